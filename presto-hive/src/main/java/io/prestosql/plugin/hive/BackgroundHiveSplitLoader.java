@@ -13,7 +13,6 @@
  */
 package io.prestosql.plugin.hive;
 
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterators;
@@ -517,7 +516,6 @@ public class BackgroundHiveSplitLoader
         return splitList;
     }
 
-    @VisibleForTesting
     static OptionalInt getBucketNumber(String name)
     {
         for (Pattern pattern : BUCKET_PATTERNS) {
@@ -15,16 +15,21 @@ package io.prestosql.plugin.hive;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.prestosql.plugin.hive.HiveSessionProperties.InsertExistingPartitionsBehavior;
 import io.prestosql.plugin.hive.metastore.HivePageSinkMetadata;
 import io.prestosql.spi.connector.ConnectorInsertTableHandle;
 
 import java.util.List;
 import java.util.Optional;
 
+import static java.util.Objects.requireNonNull;
+
 public class HiveInsertTableHandle
         extends HiveWritableTableHandle
         implements ConnectorInsertTableHandle
 {
+    private final Optional<InsertExistingPartitionsBehavior> insertExistingPartitionsBehavior;
+
     @JsonCreator
     public HiveInsertTableHandle(
             @JsonProperty("schemaName") String schemaName,
@@ -34,7 +39,8 @@ public class HiveInsertTableHandle
             @JsonProperty("locationHandle") LocationHandle locationHandle,
             @JsonProperty("bucketProperty") Optional<HiveBucketProperty> bucketProperty,
             @JsonProperty("tableStorageFormat") HiveStorageFormat tableStorageFormat,
-            @JsonProperty("partitionStorageFormat") HiveStorageFormat partitionStorageFormat)
+            @JsonProperty("partitionStorageFormat") HiveStorageFormat partitionStorageFormat,
+            @JsonProperty("insertExistingPartitionsBehavior") Optional<InsertExistingPartitionsBehavior> insertExistingPartitionsBehavior)
     {
         super(
                 schemaName,
@@ -45,5 +51,15 @@ public class HiveInsertTableHandle
                 bucketProperty,
                 tableStorageFormat,
                 partitionStorageFormat);
+        this.insertExistingPartitionsBehavior = requireNonNull(insertExistingPartitionsBehavior, "insertExistingPartitionsBehavior is null");
+    }
+
+    /**
+     * Behavior for existing partitions and unpartitioned tables that overrides the session property, if present.
+     */
+    @JsonProperty
+    public Optional<InsertExistingPartitionsBehavior> getInsertExistingPartitionsBehavior()
+    {
+        return insertExistingPartitionsBehavior;
     }
 }
@@ -23,11 +23,15 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
 import io.airlift.json.JsonCodec;
 import io.airlift.slice.Slice;
 import io.prestosql.plugin.hive.HdfsEnvironment.HdfsContext;
+import io.prestosql.plugin.hive.HiveSessionProperties.InsertExistingPartitionsBehavior;
 import io.prestosql.plugin.hive.LocationService.WriteInfo;
 import io.prestosql.plugin.hive.authentication.HiveIdentity;
 import io.prestosql.plugin.hive.metastore.Column;
@@ -49,6 +53,8 @@ import io.prestosql.spi.block.Block;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorInsertTableHandle;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition.BaseTable;
 import io.prestosql.spi.connector.ConnectorNewTableLayout;
 import io.prestosql.spi.connector.ConnectorOutputMetadata;
 import io.prestosql.spi.connector.ConnectorOutputTableHandle;
@@ -64,9 +70,11 @@ import io.prestosql.spi.connector.Constraint;
 import io.prestosql.spi.connector.ConstraintApplicationResult;
 import io.prestosql.spi.connector.DiscretePredicates;
 import io.prestosql.spi.connector.InMemoryRecordSet;
+import io.prestosql.spi.connector.LocalProperty;
 import io.prestosql.spi.connector.RecordCursor;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.connector.SchemaTablePrefix;
+import io.prestosql.spi.connector.SortingProperty;
 import io.prestosql.spi.connector.SystemTable;
 import io.prestosql.spi.connector.TableNotFoundException;
 import io.prestosql.spi.connector.ViewNotFoundException;
@@ -86,6 +94,8 @@ import io.prestosql.spi.statistics.TableStatisticsMetadata;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.TypeManager;
 import io.prestosql.spi.type.VarcharType;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.metastore.TableType;
 import org.apache.hadoop.hive.ql.exec.FileSinkOperator;
@@ -100,6 +110,7 @@ import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
@@ -122,6 +133,7 @@ import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Streams.stream;
+import static io.prestosql.plugin.hive.BackgroundHiveSplitLoader.getBucketNumber;
 import static io.prestosql.plugin.hive.HiveAnalyzeProperties.getPartitionList;
 import static io.prestosql.plugin.hive.HiveBasicStatistics.createEmptyStatistics;
 import static io.prestosql.plugin.hive.HiveBasicStatistics.createZeroStatistics;
@@ -135,11 +147,13 @@ import static io.prestosql.plugin.hive.HiveColumnHandle.PATH_COLUMN_NAME;
 import static io.prestosql.plugin.hive.HiveColumnHandle.updateRowIdHandle;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_COLUMN_ORDER_MISMATCH;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_CONCURRENT_MODIFICATION_DETECTED;
+import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_FILESYSTEM_ERROR;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_INVALID_METADATA;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_TIMEZONE_MISMATCH;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_UNKNOWN_ERROR;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
 import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_WRITER_CLOSE_ERROR;
+import static io.prestosql.plugin.hive.HivePartition.UNPARTITIONED_ID;
 import static io.prestosql.plugin.hive.HivePartitionManager.extractPartitionValues;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getCompressionCodec;
 import static io.prestosql.plugin.hive.HiveSessionProperties.getHiveStorageFormat;
@@ -147,6 +161,7 @@ import static io.prestosql.plugin.hive.HiveSessionProperties.isBucketExecutionEn
 import static io.prestosql.plugin.hive.HiveSessionProperties.isCollectColumnStatisticsOnWrite;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isCreateEmptyBucketFiles;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isOptimizedMismatchedBucketCount;
+import static io.prestosql.plugin.hive.HiveSessionProperties.isPropagateTableScanSortingProperties;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isRespectTableFormat;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isSortedWritingEnabled;
 import static io.prestosql.plugin.hive.HiveSessionProperties.isStatisticsEnabled;
@@ -184,6 +199,7 @@ import static io.prestosql.plugin.hive.PartitionUpdate.UpdateMode.NEW;
 import static io.prestosql.plugin.hive.PartitionUpdate.UpdateMode.OVERWRITE;
 import static io.prestosql.plugin.hive.metastore.MetastoreUtil.buildInitialPrivilegeSet;
 import static io.prestosql.plugin.hive.metastore.MetastoreUtil.getHiveSchema;
+import static io.prestosql.plugin.hive.metastore.MetastoreUtil.getPartitionLocation;
 import static io.prestosql.plugin.hive.metastore.MetastoreUtil.getProtectMode;
 import static io.prestosql.plugin.hive.metastore.MetastoreUtil.verifyOnline;
 import static io.prestosql.plugin.hive.metastore.PrincipalPrivileges.fromHivePrivilegeInfos;
@@ -193,15 +209,19 @@ import static io.prestosql.plugin.hive.util.CompressionConfigUtil.configureCompr
 import static io.prestosql.plugin.hive.util.ConfigurationUtils.toJobConf;
 import static io.prestosql.plugin.hive.util.HiveBucketing.getHiveBucketHandle;
 import static io.prestosql.plugin.hive.util.HiveBucketing.isHiveBucketingV1;
+import static io.prestosql.plugin.hive.util.HiveUtil.PRESTO_MATERIALIZED_VIEW_FLAG;
 import static io.prestosql.plugin.hive.util.HiveUtil.PRESTO_VIEW_FLAG;
 import static io.prestosql.plugin.hive.util.HiveUtil.columnExtraInfo;
+import static io.prestosql.plugin.hive.util.HiveUtil.decodeMaterializedViewData;
 import static io.prestosql.plugin.hive.util.HiveUtil.decodeViewData;
+import static io.prestosql.plugin.hive.util.HiveUtil.encodeMaterializedViewData;
 import static io.prestosql.plugin.hive.util.HiveUtil.encodeViewData;
 import static io.prestosql.plugin.hive.util.HiveUtil.getPartitionKeyColumnHandles;
 import static io.prestosql.plugin.hive.util.HiveUtil.hiveColumnHandles;
 import static io.prestosql.plugin.hive.util.HiveUtil.toPartitionValues;
 import static io.prestosql.plugin.hive.util.HiveUtil.verifyPartitionTypeSupported;
 import static io.prestosql.plugin.hive.util.HiveWriteUtils.checkTableIsWritable;
+import static io.prestosql.plugin.hive.util.HiveWriteUtils.createDirectory;
 import static io.prestosql.plugin.hive.util.HiveWriteUtils.initializeSerializer;
 import static io.prestosql.plugin.hive.util.HiveWriteUtils.isS3FileSystem;
 import static io.prestosql.plugin.hive.util.HiveWriteUtils.isWritableType;
@@ -221,6 +241,7 @@ import static io.prestosql.spi.statistics.TableStatisticType.ROW_COUNT;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.createUnboundedVarcharType;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 import static java.util.function.Function.identity;
@@ -228,6 +249,7 @@ import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
+import static org.apache.hadoop.hive.common.FileUtils.HIDDEN_FILES_PATH_FILTER;
 import static org.apache.hadoop.hive.metastore.TableType.EXTERNAL_TABLE;
 import static org.apache.hadoop.hive.metastore.TableType.MANAGED_TABLE;
 import static org.apache.hadoop.hive.ql.io.AcidUtils.isTransactionalTable;
@@ -239,6 +261,8 @@ public class HiveMetadata
     public static final String PRESTO_QUERY_ID_NAME = "presto_query_id";
     public static final String TABLE_COMMENT = "comment";
 
+    private static final int PARTITION_VERSION_BATCH_SIZE = 100;
+
     private static final String ORC_BLOOM_FILTER_COLUMNS_KEY = "orc.bloom.filter.columns";
     private static final String ORC_BLOOM_FILTER_FPP_KEY = "orc.bloom.filter.fpp";
 
@@ -659,6 +683,118 @@ public class HiveMetadata
         return hiveStatisticsProvider.getTableStatistics(session, ((HiveTableHandle) tableHandle).getSchemaTableName(), columns, columnTypes, partitions);
     }
 
+    @Override
+    public Optional<String> getTableVersion(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        HiveTableHandle handle = (HiveTableHandle) tableHandle;
+        HiveIdentity identity = new HiveIdentity(session);
+        Optional<Table> table = metastore.getTable(identity, handle.getSchemaName(), handle.getTableName());
+        // files of external tables can be changed without the metastore noticing
+        if (!table.isPresent() || !table.get().getTableType().equals(MANAGED_TABLE.name()) || isTransactionalTable(table.get().getParameters())) {
+            return Optional.empty();
+        }
+
+        // writes to managed tables update the statistics and DDL time stored in the table or partition parameters
+        Hasher hasher = Hashing.sha256().newHasher();
+        hashParameters(hasher, table.get().getParameters());
+        if (!handle.getPartitionColumns().isEmpty()) {
+            // the version of a handle that does not carry its partitions would require loading all of them
+            if (!handle.getPartitions().isPresent()) {
+                return Optional.empty();
+            }
+            // partitions added or dropped since the handle was pruned change the names matching its constraint
+            List<String> partitionNames = partitionManager.getPartitionNames(metastore, identity, handle).stream()
+                    .sorted()
+                    .collect(toImmutableList());
+            hasher.putInt(partitionNames.size());
+            partitionNames.forEach(partitionName -> hashString(hasher, partitionName));
+
+            Optional<Map<String, String>> partitionVersions = getPartitionVersions(identity, handle);
+            if (!partitionVersions.isPresent()) {
+                return Optional.empty();
+            }
+            hasher.putInt(partitionVersions.get().size());
+            partitionVersions.get().forEach((partitionName, version) -> {
+                hashString(hasher, partitionName);
+                hashString(hasher, version);
+            });
+        }
+        return Optional.of(hasher.hash().toString());
+    }
+
+    @Override
+    public Optional<Map<String, String>> getPartitionVersions(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        HiveTableHandle handle = (HiveTableHandle) tableHandle;
+        HiveIdentity identity = new HiveIdentity(session);
+        if (handle.getPartitionColumns().isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Table> table = metastore.getTable(identity, handle.getSchemaName(), handle.getTableName());
+        if (!table.isPresent() || !table.get().getTableType().equals(MANAGED_TABLE.name()) || isTransactionalTable(table.get().getParameters())) {
+            return Optional.empty();
+        }
+        return getPartitionVersions(identity, handle);
+    }
+
+    /**
+     * Returns the version of each partition read by the handle, in partition name order.
+     */
+    private Optional<Map<String, String>> getPartitionVersions(HiveIdentity identity, HiveTableHandle handle)
+    {
+        List<HivePartition> partitions = handle.getPartitions()
+                .orElseGet(() -> partitionManager.getPartitionsAsList(partitionManager.getPartitions(metastore, identity, handle, Constraint.alwaysTrue())));
+        List<String> partitionNames = partitions.stream()
+                .map(HivePartition::getPartitionId)
+                .sorted()
+                .collect(toImmutableList());
+        ImmutableMap.Builder<String, String> versions = ImmutableMap.builder();
+        for (List<String> batch : Lists.partition(partitionNames, PARTITION_VERSION_BATCH_SIZE)) {
+            Map<String, Optional<Partition>> partitionsByName = metastore.getPartitionsByNames(identity, handle.getSchemaName(), handle.getTableName(), batch);
+            for (String partitionName : batch) {
+                Optional<Partition> partition = partitionsByName.getOrDefault(partitionName, Optional.empty());
+                if (!partition.isPresent()) {
+                    return Optional.empty();
+                }
+                Hasher hasher = Hashing.sha256().newHasher();
+                hashParameters(hasher, partition.get().getParameters());
+                versions.put(partitionName, hasher.hash().toString());
+            }
+        }
+        return Optional.of(versions.build());
+    }
+
+    @Override
+    public Optional<ConnectorTableHandle> applyPartitions(ConnectorSession session, ConnectorTableHandle tableHandle, Set<String> partitionNames)
+    {
+        HiveTableHandle handle = (HiveTableHandle) tableHandle;
+        if (handle.getPartitionColumns().isEmpty()) {
+            return Optional.empty();
+        }
+        List<List<String>> partitionValuesList = partitionNames.stream()
+                .sorted()
+                .map(HiveUtil::toPartitionValues)
+                .collect(toImmutableList());
+        HivePartitionResult partitionResult = partitionManager.getPartitions(handle, partitionValuesList);
+        return Optional.of(partitionManager.applyPartitionResult(handle, partitionResult));
+    }
+
+    private static void hashParameters(Hasher hasher, Map<String, String> parameters)
+    {
+        hasher.putInt(parameters.size());
+        ImmutableSortedMap.copyOf(parameters).forEach((key, value) -> {
+            hashString(hasher, key);
+            hashString(hasher, value);
+        });
+    }
+
+    private static void hashString(Hasher hasher, String value)
+    {
+        // the length keeps adjacent strings from running into each other
+        hasher.putInt(value.length());
+        hasher.putString(value, UTF_8);
+    }
+
     private List<SchemaTableName> listTables(ConnectorSession session, SchemaTablePrefix prefix)
     {
         if (!prefix.getTable().isPresent()) {
@@ -727,6 +863,20 @@ public class HiveMetadata
 
     @Override
     public void createTable(ConnectorSession session, ConnectorTableMetadata tableMetadata, boolean ignoreExisting)
+    {
+        Table table = prepareTable(session, tableMetadata);
+        PrincipalPrivileges principalPrivileges = buildInitialPrivilegeSet(table.getOwner());
+        HiveBasicStatistics basicStatistics = table.getPartitionColumns().isEmpty() ? createZeroStatistics() : createEmptyStatistics();
+        metastore.createTable(
+                session,
+                table,
+                principalPrivileges,
+                Optional.empty(),
+                ignoreExisting,
+                new PartitionStatistics(basicStatistics, ImmutableMap.of()));
+    }
+
+    private Table prepareTable(ConnectorSession session, ConnectorTableMetadata tableMetadata)
     {
         SchemaTableName schemaTableName = tableMetadata.getTable();
         String schemaName = schemaTableName.getSchemaName();
@@ -768,7 +918,7 @@ public class HiveMetadata
             targetPath = locationService.getQueryWriteInfo(locationHandle).getTargetPath();
         }
 
-        Table table = buildTableObject(
+        return buildTableObject(
                 session.getQueryId(),
                 schemaName,
                 tableName,
@@ -781,15 +931,6 @@ public class HiveMetadata
                 targetPath,
                 external,
                 prestoVersion);
-        PrincipalPrivileges principalPrivileges = buildInitialPrivilegeSet(table.getOwner());
-        HiveBasicStatistics basicStatistics = table.getPartitionColumns().isEmpty() ? createZeroStatistics() : createEmptyStatistics();
-        metastore.createTable(
-                session,
-                table,
-                principalPrivileges,
-                Optional.empty(),
-                ignoreExisting,
-                new PartitionStatistics(basicStatistics, ImmutableMap.of()));
     }
 
     private Map<String, String> getEmptyTableProperties(ConnectorTableMetadata tableMetadata, HdfsContext hdfsContext)
@@ -1368,6 +1509,11 @@ public class HiveMetadata
 
     @Override
     public HiveInsertTableHandle beginInsert(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        return beginInsert(session, tableHandle, Optional.empty());
+    }
+
+    private HiveInsertTableHandle beginInsert(ConnectorSession session, ConnectorTableHandle tableHandle, Optional<InsertExistingPartitionsBehavior> insertExistingPartitionsBehavior)
     {
         verifyJvmTimeZone();
 
@@ -1404,7 +1550,8 @@ public class HiveMetadata
                 locationHandle,
                 table.getStorage().getBucketProperty(),
                 tableStorageFormat,
-                isRespectTableFormat(session) ? tableStorageFormat : getHiveStorageFormat(session));
+                isRespectTableFormat(session) ? tableStorageFormat : getHiveStorageFormat(session),
+                insertExistingPartitionsBehavior);
 
         WriteInfo writeInfo = locationService.getQueryWriteInfo(locationHandle);
         metastore.declareIntentionToWrite(session, writeInfo.getWriteMode(), writeInfo.getWritePath(), tableName);
@@ -1414,8 +1561,20 @@ public class HiveMetadata
     @Override
     public Optional<ConnectorOutputMetadata> finishInsert(ConnectorSession session, ConnectorInsertTableHandle insertHandle, Collection<Slice> fragments, Collection<ComputedStatistics> computedStatistics)
     {
-        HiveInsertTableHandle handle = (HiveInsertTableHandle) insertHandle;
+        return finishInsert(session, (HiveInsertTableHandle) insertHandle, fragments, computedStatistics, Optional.empty());
+    }
 
+    /**
+     * @param materializedViewData if present, the new view data of the materialized view stored in the table,
+     * committed together with the inserted data
+     */
+    private Optional<ConnectorOutputMetadata> finishInsert(
+            ConnectorSession session,
+            HiveInsertTableHandle handle,
+            Collection<Slice> fragments,
+            Collection<ComputedStatistics> computedStatistics,
+            Optional<String> materializedViewData)
+    {
         List<PartitionUpdate> partitionUpdates = fragments.stream()
                 .map(Slice::getBytes)
                 .map(partitionUpdateCodec::fromJson)
@@ -1429,6 +1588,19 @@ public class HiveMetadata
         if (!table.getStorage().getStorageFormat().getInputFormat().equals(tableStorageFormat.getInputFormat()) && isRespectTableFormat(session)) {
             throw new PrestoException(HIVE_CONCURRENT_MODIFICATION_DETECTED, "Table format changed during insert");
         }
+        if (materializedViewData.isPresent()) {
+            table = Table.builder(table)
+                    .setViewOriginalText(materializedViewData)
+                    .build();
+        }
+
+        boolean overwrite = handle.getInsertExistingPartitionsBehavior().equals(Optional.of(InsertExistingPartitionsBehavior.OVERWRITE));
+        if (overwrite && table.getPartitionColumns().isEmpty() && partitionUpdates.isEmpty()) {
+            // an empty result must still replace the data of the table
+            WriteInfo writeInfo = locationService.getTableWriteInfo(handle.getLocationHandle(), true);
+            createDirectory(new HdfsContext(session, handle.getSchemaName(), handle.getTableName()), hdfsEnvironment, writeInfo.getWritePath());
+            partitionUpdates = ImmutableList.of(new PartitionUpdate("", OVERWRITE, writeInfo.getWritePath(), writeInfo.getTargetPath(), ImmutableList.of(), 0, 0, 0));
+        }
 
         if (handle.getBucketProperty().isPresent() && isCreateEmptyBucketFiles(session)) {
             List<PartitionUpdate> partitionUpdatesForMissingBuckets = computePartitionUpdatesForMissingBuckets(session, handle, table, partitionUpdates);
@@ -1447,6 +1619,7 @@ public class HiveMetadata
                 .collect(toImmutableMap(HiveColumnHandle::getName, column -> column.getHiveType().getType(typeManager)));
         Map<List<String>, ComputedStatistics> partitionComputedStatistics = createComputedStatisticsToPartitionMap(computedStatistics, partitionedBy, columnTypes);
 
+        boolean tableReplaced = false;
         for (PartitionUpdate partitionUpdate : partitionUpdates) {
             if (partitionUpdate.getName().isEmpty()) {
                 // insert into unpartitioned table
@@ -1469,6 +1642,7 @@ public class HiveMetadata
 
                     // create the table with the new location
                     metastore.createTable(session, table, principalPrivileges, Optional.of(partitionUpdate.getWritePath()), false, partitionStatistics);
+                    tableReplaced = true;
                 }
                 else if (partitionUpdate.getUpdateMode() == NEW || partitionUpdate.getUpdateMode() == APPEND) {
                     // insert into unpartitioned table
@@ -1522,6 +1696,23 @@ public class HiveMetadata
             }
         }
 
+        if (overwrite && !table.getPartitionColumns().isEmpty()) {
+            // partitions that received no rows are no longer part of the table
+            Set<String> writtenPartitions = partitionUpdates.stream()
+                    .map(PartitionUpdate::getName)
+                    .collect(toImmutableSet());
+            List<String> existingPartitions = metastore.getPartitionNames(new HiveIdentity(session), handle.getSchemaName(), handle.getTableName())
+                    .orElseThrow(() -> new TableNotFoundException(handle.getSchemaTableName()));
+            for (String partitionName : existingPartitions) {
+                if (!writtenPartitions.contains(partitionName)) {
+                    metastore.dropPartition(session, handle.getSchemaName(), handle.getTableName(), toPartitionValues(partitionName));
+                }
+            }
+        }
+        if (materializedViewData.isPresent() && !tableReplaced) {
+            metastore.setTableViewOriginalText(session, handle.getSchemaName(), handle.getTableName(), materializedViewData.get());
+        }
+
         return Optional.of(new HiveWrittenPartitions(
                 partitionUpdates.stream()
                         .map(PartitionUpdate::getName)
@@ -1684,6 +1875,83 @@ public class HiveMetadata
                 });
     }
 
+    @Override
+    public void createMaterializedView(ConnectorSession session, ConnectorTableMetadata tableMetadata, ConnectorMaterializedViewDefinition definition, boolean ignoreExisting)
+    {
+        if (getExternalLocation(tableMetadata.getProperties()) != null) {
+            throw new PrestoException(NOT_SUPPORTED, "External tables cannot be used for materialized views");
+        }
+
+        Table table = Table.builder(prepareTable(session, tableMetadata))
+                .setParameter(PRESTO_MATERIALIZED_VIEW_FLAG, "true")
+                .setViewOriginalText(Optional.of(encodeMaterializedViewData(definition)))
+                .build();
+        PrincipalPrivileges principalPrivileges = buildInitialPrivilegeSet(table.getOwner());
+        HiveBasicStatistics basicStatistics = table.getPartitionColumns().isEmpty() ? createZeroStatistics() : createEmptyStatistics();
+        metastore.createTable(
+                session,
+                table,
+                principalPrivileges,
+                Optional.empty(),
+                ignoreExisting,
+                new PartitionStatistics(basicStatistics, ImmutableMap.of()));
+    }
+
+    @Override
+    public void dropMaterializedView(ConnectorSession session, SchemaTableName viewName)
+    {
+        if (!getMaterializedView(session, viewName).isPresent()) {
+            throw new TableNotFoundException(viewName);
+        }
+        metastore.dropTable(session, viewName.getSchemaName(), viewName.getTableName());
+    }
+
+    @Override
+    public List<SchemaTableName> listMaterializedViews(ConnectorSession session, Optional<String> optionalSchemaName)
+    {
+        ImmutableList.Builder<SchemaTableName> tableNames = ImmutableList.builder();
+        for (String schemaName : listSchemas(session, optionalSchemaName)) {
+            for (String tableName : metastore.getTablesWithParameter(schemaName, PRESTO_MATERIALIZED_VIEW_FLAG, "true")) {
+                tableNames.add(new SchemaTableName(schemaName, tableName));
+            }
+        }
+        return tableNames.build();
+    }
+
+    @Override
+    public Optional<ConnectorMaterializedViewDefinition> getMaterializedView(ConnectorSession session, SchemaTableName viewName)
+    {
+        return metastore.getTable(new HiveIdentity(session), viewName.getSchemaName(), viewName.getTableName())
+                .filter(HiveUtil::isPrestoMaterializedView)
+                .map(view -> decodeMaterializedViewData(view.getViewOriginalText()
+                        .orElseThrow(() -> new PrestoException(HIVE_INVALID_METADATA, "No materialized view original text: " + viewName))));
+    }
+
+    @Override
+    public HiveInsertTableHandle beginRefreshMaterializedView(ConnectorSession session, ConnectorTableHandle tableHandle, boolean incremental)
+    {
+        SchemaTableName viewName = ((HiveTableHandle) tableHandle).getSchemaTableName();
+        if (!getMaterializedView(session, viewName).isPresent()) {
+            throw new TableNotFoundException(viewName);
+        }
+        return beginInsert(session, tableHandle, Optional.of(incremental ? InsertExistingPartitionsBehavior.APPEND : InsertExistingPartitionsBehavior.OVERWRITE));
+    }
+
+    @Override
+    public Optional<ConnectorOutputMetadata> finishRefreshMaterializedView(
+            ConnectorSession session,
+            ConnectorInsertTableHandle insertHandle,
+            Collection<Slice> fragments,
+            Collection<ComputedStatistics> computedStatistics,
+            List<BaseTable> baseTables)
+    {
+        HiveInsertTableHandle handle = (HiveInsertTableHandle) insertHandle;
+        ConnectorMaterializedViewDefinition definition = getMaterializedView(session, handle.getSchemaTableName())
+                .orElseThrow(() -> new TableNotFoundException(handle.getSchemaTableName()));
+        String materializedViewData = encodeMaterializedViewData(definition.withRefresh(baseTables, session.getTimeZoneKey().getId()));
+        return finishInsert(session, handle, fragments, computedStatistics, Optional.of(materializedViewData));
+    }
+
     @Override
     public ConnectorTableHandle beginDelete(ConnectorSession session, ConnectorTableHandle tableHandle)
     {
@@ -1742,20 +2010,35 @@ public class HiveMetadata
         HiveTableHandle hiveTable = (HiveTableHandle) table;
 
         List<ColumnHandle> partitionColumns = ImmutableList.copyOf(hiveTable.getPartitionColumns());
-        List<HivePartition> partitions = partitionManager.getOrLoadPartitions(metastore, new HiveIdentity(session), hiveTable);
-
-        TupleDomain<ColumnHandle> predicate = createPredicate(partitionColumns, partitions);
 
+        TupleDomain<ColumnHandle> predicate;
         Optional<DiscretePredicates> discretePredicates = Optional.empty();
-        if (!partitionColumns.isEmpty()) {
-            // Do not create tuple domains for every partition at the same time!
-            // There can be a huge number of partitions so use an iterable so
-            // all domains do not need to be in memory at the same time.
-            Iterable<TupleDomain<ColumnHandle>> partitionDomains = Iterables.transform(partitions, (hivePartition) -> TupleDomain.fromFixedValues(hivePartition.getKeys()));
-            discretePredicates = Optional.of(new DiscretePredicates(partitionColumns, partitionDomains));
+        boolean singlePartition;
+        Optional<HivePartition> scannedPartition = Optional.empty();
+        if (!partitionColumns.isEmpty() && !hiveTable.getPartitions().isPresent()) {
+            // The partitions were not pruned, or too many of them matched to keep them in the handle.
+            // Do not list them during planning; the split manager loads them lazily.
+            predicate = hiveTable.getEnforcedConstraint();
+            singlePartition = false;
+        }
+        else {
+            List<HivePartition> partitions = partitionManager.getOrLoadPartitions(metastore, new HiveIdentity(session), hiveTable);
+            predicate = createPredicate(partitionColumns, partitions);
+            if (!partitionColumns.isEmpty()) {
+                // Do not create tuple domains for every partition at the same time!
+                // There can be a huge number of partitions so use an iterable so
+                // all domains do not need to be in memory at the same time.
+                Iterable<TupleDomain<ColumnHandle>> partitionDomains = Iterables.transform(partitions, (hivePartition) -> TupleDomain.fromFixedValues(hivePartition.getKeys()));
+                discretePredicates = Optional.of(new DiscretePredicates(partitionColumns, partitionDomains));
+            }
+            singlePartition = partitions.size() <= 1;
+            if (partitions.size() == 1) {
+                scannedPartition = Optional.of(partitions.get(0));
+            }
         }
 
         Optional<ConnectorTablePartitioning> tablePartitioning = Optional.empty();
+        List<LocalProperty<ColumnHandle>> sortingProperties = ImmutableList.of();
         if (isBucketExecutionEnabled(session) && hiveTable.getBucketHandle().isPresent()) {
             tablePartitioning = hiveTable.getBucketHandle().map(bucketing -> new ConnectorTablePartitioning(
                     new HivePartitioningHandle(
@@ -1767,6 +2050,14 @@ public class HiveMetadata
                     bucketing.getColumns().stream()
                             .map(ColumnHandle.class::cast)
                             .collect(toList())));
+
+            // each bucket is read as a single split, which is sorted only if it is a single file
+            HiveBucketHandle bucketHandle = hiveTable.getBucketHandle().get();
+            if (isPropagateTableScanSortingProperties(session) &&
+                    singlePartition &&
+                    bucketHandle.getReadBucketCount() == bucketHandle.getTableBucketCount()) {
+                sortingProperties = getSortingProperties(session, hiveTable, scannedPartition);
+            }
         }
 
         return new ConnectorTableProperties(
@@ -1774,7 +2065,65 @@ public class HiveMetadata
                 tablePartitioning,
                 Optional.empty(),
                 discretePredicates,
-                ImmutableList.of());
+                sortingProperties);
+    }
+
+    private List<LocalProperty<ColumnHandle>> getSortingProperties(ConnectorSession session, HiveTableHandle hiveTable, Optional<HivePartition> partition)
+    {
+        SchemaTableName tableName = hiveTable.getSchemaTableName();
+        Table table = metastore.getTable(new HiveIdentity(session), tableName.getSchemaName(), tableName.getTableName())
+                .orElseThrow(() -> new TableNotFoundException(tableName));
+        List<SortingColumn> sortedBy = table.getStorage().getBucketProperty()
+                .map(HiveBucketProperty::getSortedBy)
+                .orElse(ImmutableList.of());
+        if (sortedBy.isEmpty() || !hasSingleFilePerBucket(session, table, partition)) {
+            // the scan is not sorted, so the engine falls back to a hash join
+            return ImmutableList.of();
+        }
+
+        Map<String, HiveColumnHandle> columns = hiveColumnHandles(table).stream()
+                .collect(toImmutableMap(HiveColumnHandle::getName, identity()));
+        return sortedBy.stream()
+                .map(column -> new SortingProperty<ColumnHandle>(columns.get(column.getColumnName()), column.getOrder().getSortOrder()))
+                .collect(toImmutableList());
+    }
+
+    private boolean hasSingleFilePerBucket(ConnectorSession session, Table table, Optional<HivePartition> hivePartition)
+    {
+        if (!hivePartition.isPresent()) {
+            // no partition matched, so nothing is read
+            return true;
+        }
+
+        Optional<Partition> partition = Optional.empty();
+        if (!hivePartition.get().getPartitionId().equals(UNPARTITIONED_ID)) {
+            partition = metastore.getPartition(new HiveIdentity(session), table.getDatabaseName(), table.getTableName(), toPartitionValues(hivePartition.get().getPartitionId()));
+            if (!partition.isPresent()) {
+                return false;
+            }
+            // a partition with a different bucket count is read through a bucket conversion
+            Optional<Integer> partitionBucketCount = partition.get().getStorage().getBucketProperty().map(HiveBucketProperty::getBucketCount);
+            if (!partitionBucketCount.equals(table.getStorage().getBucketProperty().map(HiveBucketProperty::getBucketCount))) {
+                return false;
+            }
+        }
+
+        // files appended to a bucket, for example by separate Hive inserts, are each sorted but not sorted together
+        Path path = new Path(getPartitionLocation(table, partition));
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(new HdfsContext(session, table.getDatabaseName(), table.getTableName()), path);
+            Set<Integer> buckets = new HashSet<>();
+            for (FileStatus file : fileSystem.listStatus(path, HIDDEN_FILES_PATH_FILTER)) {
+                OptionalInt bucket = getBucketNumber(file.getPath().getName());
+                if (bucket.isPresent() && !buckets.add(bucket.getAsInt())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_FILESYSTEM_ERROR, "Failed to list files of " + path, e);
+        }
     }
 
     @Override
@@ -1784,7 +2133,7 @@ public class HiveMetadata
         checkArgument(!handle.getAnalyzePartitionValues().isPresent() || constraint.getSummary().isAll(), "Analyze should not have a constraint");
 
         HivePartitionResult partitionResult = partitionManager.getPartitions(metastore, new HiveIdentity(session), handle, constraint);
-        HiveTableHandle newHandle = partitionManager.applyPartitionResult(handle, partitionResult);
+        HiveTableHandle newHandle = partitionManager.applyPrunedPartitions(handle, partitionResult);
 
         if (handle.getPartitions().equals(newHandle.getPartitions()) &&
                 handle.getCompactEffectivePredicate().equals(newHandle.getCompactEffectivePredicate()) &&
@@ -20,6 +20,7 @@ import com.google.common.util.concurrent.ListeningExecutorService;
 import io.airlift.event.client.EventClient;
 import io.airlift.json.JsonCodec;
 import io.airlift.units.DataSize;
+import io.prestosql.plugin.hive.HiveSessionProperties.InsertExistingPartitionsBehavior;
 import io.prestosql.plugin.hive.authentication.HiveIdentity;
 import io.prestosql.plugin.hive.metastore.HiveMetastore;
 import io.prestosql.plugin.hive.metastore.HivePageSinkMetadataProvider;
@@ -45,6 +46,7 @@ import java.util.Set;
 
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.prestosql.plugin.hive.HiveSessionProperties.getInsertExistingPartitionsBehavior;
 import static io.prestosql.plugin.hive.metastore.cache.CachingHiveMetastore.memoizeMetastore;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newFixedThreadPool;
@@ -114,17 +116,24 @@ public class HivePageSinkProvider
     public ConnectorPageSink createPageSink(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorOutputTableHandle tableHandle)
     {
         HiveOutputTableHandle handle = (HiveOutputTableHandle) tableHandle;
-        return createPageSink(handle, true, session, handle.getAdditionalTableParameters());
+        return createPageSink(handle, true, getInsertExistingPartitionsBehavior(session), session, handle.getAdditionalTableParameters());
     }
 
     @Override
     public ConnectorPageSink createPageSink(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorInsertTableHandle tableHandle)
     {
-        HiveWritableTableHandle handle = (HiveInsertTableHandle) tableHandle;
-        return createPageSink(handle, false, session, ImmutableMap.of() /* for insert properties are taken from metastore */);
+        HiveInsertTableHandle handle = (HiveInsertTableHandle) tableHandle;
+        InsertExistingPartitionsBehavior insertExistingPartitionsBehavior = handle.getInsertExistingPartitionsBehavior()
+                .orElseGet(() -> getInsertExistingPartitionsBehavior(session));
+        return createPageSink(handle, false, insertExistingPartitionsBehavior, session, ImmutableMap.of() /* for insert properties are taken from metastore */);
     }
 
-    private ConnectorPageSink createPageSink(HiveWritableTableHandle handle, boolean isCreateTable, ConnectorSession session, Map<String, String> additionalTableParameters)
+    private ConnectorPageSink createPageSink(
+            HiveWritableTableHandle handle,
+            boolean isCreateTable,
+            InsertExistingPartitionsBehavior insertExistingPartitionsBehavior,
+            ConnectorSession session,
+            Map<String, String> additionalTableParameters)
     {
         OptionalInt bucketCount = OptionalInt.empty();
         List<SortingColumn> sortedBy = ImmutableList.of();
@@ -139,6 +148,7 @@ public class HivePageSinkProvider
                 handle.getSchemaName(),
                 handle.getTableName(),
                 isCreateTable,
+                insertExistingPartitionsBehavior,
                 handle.getInputColumns(),
                 handle.getTableStorageFormat(),
                 handle.getPartitionStorageFormat(),
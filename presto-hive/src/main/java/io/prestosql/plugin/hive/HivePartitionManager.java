@@ -15,9 +15,12 @@ package io.prestosql.plugin.hive;
 
 import com.google.common.base.Predicates;
 import com.google.common.base.VerifyException;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Ordering;
 import io.airlift.slice.Slice;
 import io.prestosql.plugin.hive.authentication.HiveIdentity;
 import io.prestosql.plugin.hive.metastore.SemiTransactionalHiveMetastore;
@@ -83,6 +86,7 @@ public class HivePartitionManager
 
     private final DateTimeZone timeZone;
     private final int maxPartitions;
+    private final int maxPartitionsForEagerLoad;
     private final boolean assumeCanonicalPartitionKeys;
     private final int domainCompactionThreshold;
     private final TypeManager typeManager;
@@ -96,6 +100,7 @@ public class HivePartitionManager
                 typeManager,
                 hiveConfig.getDateTimeZone(),
                 hiveConfig.getMaxPartitionsPerScan(),
+                hiveConfig.getMaxPartitionsForEagerLoad(),
                 hiveConfig.isAssumeCanonicalPartitionKeys(),
                 hiveConfig.getDomainCompactionThreshold());
     }
@@ -104,12 +109,15 @@ public class HivePartitionManager
             TypeManager typeManager,
             DateTimeZone timeZone,
             int maxPartitions,
+            int maxPartitionsForEagerLoad,
             boolean assumeCanonicalPartitionKeys,
             int domainCompactionThreshold)
     {
         this.timeZone = requireNonNull(timeZone, "timeZone is null");
         checkArgument(maxPartitions >= 1, "maxPartitions must be at least 1");
         this.maxPartitions = maxPartitions;
+        checkArgument(maxPartitionsForEagerLoad >= 1, "maxPartitionsForEagerLoad must be at least 1");
+        this.maxPartitionsForEagerLoad = maxPartitionsForEagerLoad;
         this.assumeCanonicalPartitionKeys = assumeCanonicalPartitionKeys;
         checkArgument(domainCompactionThreshold >= 1, "domainCompactionThreshold must be at least 1");
         this.domainCompactionThreshold = domainCompactionThreshold;
@@ -199,10 +207,14 @@ public class HivePartitionManager
     }
 
     public List<HivePartition> getPartitionsAsList(HivePartitionResult partitionResult)
+    {
+        return getPartitionsAsList(partitionResult.getPartitions());
+    }
+
+    private List<HivePartition> getPartitionsAsList(Iterator<HivePartition> iterator)
     {
         ImmutableList.Builder<HivePartition> partitionList = ImmutableList.builder();
         int count = 0;
-        Iterator<HivePartition> iterator = partitionResult.getPartitions();
         while (iterator.hasNext()) {
             HivePartition partition = iterator.next();
             if (count == maxPartitions) {
@@ -218,13 +230,36 @@ public class HivePartitionManager
     }
 
     public HiveTableHandle applyPartitionResult(HiveTableHandle handle, HivePartitionResult partitions)
+    {
+        return applyPartitionResult(handle, partitions, Optional.of(getPartitionsAsList(partitions)));
+    }
+
+    /**
+     * Like {@link #applyPartitionResult(HiveTableHandle, HivePartitionResult)}, but leaves the partitions out of the
+     * handle if there are more than {@code hive.max-partitions-for-eager-load} of them. The handle then only carries
+     * the constraint it enforces, and the split manager lists the matching partitions lazily.
+     */
+    public HiveTableHandle applyPrunedPartitions(HiveTableHandle handle, HivePartitionResult partitions)
+    {
+        Iterator<HivePartition> iterator = partitions.getPartitions();
+        if (!partitions.getPartitionColumns().isEmpty() && maxPartitionsForEagerLoad < maxPartitions) {
+            List<HivePartition> firstPartitions = ImmutableList.copyOf(Iterators.limit(iterator, maxPartitionsForEagerLoad + 1));
+            if (firstPartitions.size() > maxPartitionsForEagerLoad) {
+                return applyPartitionResult(handle, partitions, Optional.empty());
+            }
+            iterator = firstPartitions.iterator();
+        }
+        return applyPartitionResult(handle, partitions, Optional.of(getPartitionsAsList(iterator)));
+    }
+
+    private static HiveTableHandle applyPartitionResult(HiveTableHandle handle, HivePartitionResult partitions, Optional<List<HivePartition>> partitionList)
     {
         return new HiveTableHandle(
                 handle.getSchemaName(),
                 handle.getTableName(),
                 handle.getTableParameters(),
                 ImmutableList.copyOf(partitions.getPartitionColumns()),
-                Optional.of(getPartitionsAsList(partitions)),
+                partitionList,
                 partitions.getCompactEffectivePredicate(),
                 partitions.getEnforcedConstraint(),
                 partitions.getBucketHandle(),
@@ -238,6 +273,55 @@ public class HivePartitionManager
                 getPartitionsAsList(getPartitions(metastore, identity, table, new Constraint(table.getEnforcedConstraint()))));
     }
 
+    /**
+     * Returns the partitions of a table whose handle does not carry them, in descending order of
+     * partition name. Nothing is read from the metastore until the first partition is requested,
+     * and partition values are parsed only as the partitions are iterated.
+     */
+    public Iterable<HivePartition> getPartitionsLazily(SemiTransactionalHiveMetastore metastore, HiveIdentity identity, HiveTableHandle table)
+    {
+        checkArgument(!table.getPartitions().isPresent(), "partitions of table are already loaded");
+        SchemaTableName tableName = table.getSchemaTableName();
+        TupleDomain<ColumnHandle> effectivePredicate = table.getEnforcedConstraint();
+        List<HiveColumnHandle> partitionColumns = table.getPartitionColumns();
+        List<Type> partitionTypes = partitionColumns.stream()
+                .map(column -> typeManager.getType(column.getTypeSignature()))
+                .collect(toImmutableList());
+
+        return () -> new AbstractIterator<HivePartition>()
+        {
+            private Iterator<String> partitionNames;
+            private int count;
+
+            @Override
+            protected HivePartition computeNext()
+            {
+                if (partitionNames == null) {
+                    if (effectivePredicate.isNone()) {
+                        return endOfData();
+                    }
+                    partitionNames = Ordering.natural().reverse()
+                            .sortedCopy(getFilteredPartitionNames(metastore, identity, tableName, partitionColumns, effectivePredicate))
+                            .iterator();
+                }
+                while (partitionNames.hasNext()) {
+                    Optional<HivePartition> partition = parseValuesAndFilterPartition(tableName, partitionNames.next(), partitionColumns, partitionTypes, effectivePredicate, value -> true);
+                    if (partition.isPresent()) {
+                        if (count == maxPartitions) {
+                            throw new PrestoException(HIVE_EXCEEDED_PARTITION_LIMIT, format(
+                                    "Query over table '%s' can potentially read more than %s partitions",
+                                    tableName,
+                                    maxPartitions));
+                        }
+                        count++;
+                        return partition.get();
+                    }
+                }
+                return endOfData();
+            }
+        };
+    }
+
     private static TupleDomain<HiveColumnHandle> toCompactTupleDomain(TupleDomain<ColumnHandle> effectivePredicate, int threshold)
     {
         ImmutableMap.Builder<HiveColumnHandle, Domain> builder = ImmutableMap.builder();
@@ -287,6 +371,20 @@ public class HivePartitionManager
         return constraint.test(partition.getKeys());
     }
 
+    /**
+     * Returns the names of the partitions of the table that currently match the constraint enforced by
+     * the handle, as filtered by the metastore. The names are neither parsed nor checked against the
+     * partition limit.
+     */
+    public List<String> getPartitionNames(SemiTransactionalHiveMetastore metastore, HiveIdentity identity, HiveTableHandle table)
+    {
+        TupleDomain<ColumnHandle> effectivePredicate = table.getEnforcedConstraint();
+        if (effectivePredicate.isNone()) {
+            return ImmutableList.of();
+        }
+        return getFilteredPartitionNames(metastore, identity, table.getSchemaTableName(), table.getPartitionColumns(), effectivePredicate);
+    }
+
     private List<String> getFilteredPartitionNames(SemiTransactionalHiveMetastore metastore, HiveIdentity identity, SchemaTableName tableName, List<HiveColumnHandle> partitionKeys, TupleDomain<ColumnHandle> effectivePredicate)
     {
         checkArgument(effectivePredicate.getDomains().isPresent());
@@ -76,6 +76,7 @@ public final class HiveSessionProperties
     private static final String MAX_INITIAL_SPLIT_SIZE = "max_initial_split_size";
     private static final String RCFILE_OPTIMIZED_WRITER_VALIDATE = "rcfile_optimized_writer_validate";
     private static final String SORTED_WRITING_ENABLED = "sorted_writing_enabled";
+    private static final String PROPAGATE_TABLE_SCAN_SORTING_PROPERTIES = "propagate_table_scan_sorting_properties";
     private static final String STATISTICS_ENABLED = "statistics_enabled";
     private static final String PARTITION_STATISTICS_SAMPLE_SIZE = "partition_statistics_sample_size";
     private static final String IGNORE_CORRUPTED_STATISTICS = "ignore_corrupted_statistics";
@@ -288,6 +289,11 @@ public final class HiveSessionProperties
                         "Enable writing to bucketed sorted tables",
                         hiveConfig.isSortedWritingEnabled(),
                         false),
+                booleanProperty(
+                        PROPAGATE_TABLE_SCAN_SORTING_PROPERTIES,
+                        "Expose the sort order of bucketed sorted tables to the engine. Buckets with more than one file are read unsorted",
+                        hiveConfig.isPropagateTableScanSortingProperties(),
+                        false),
                 booleanProperty(
                         STATISTICS_ENABLED,
                         "Experimental: Expose table statistics",
@@ -497,6 +503,11 @@ public final class HiveSessionProperties
         return session.getProperty(SORTED_WRITING_ENABLED, Boolean.class);
     }
 
+    public static boolean isPropagateTableScanSortingProperties(ConnectorSession session)
+    {
+        return session.getProperty(PROPAGATE_TABLE_SCAN_SORTING_PROPERTIES, Boolean.class);
+    }
+
     public static boolean isS3SelectPushdownEnabled(ConnectorSession session)
     {
         return session.getProperty(S3_SELECT_PUSHDOWN_ENABLED, Boolean.class);
@@ -26,6 +26,7 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Properties;
+import java.util.TreeMap;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -222,6 +223,29 @@ public class HiveSplit
                 .build();
     }
 
+    @Override
+    public Optional<String> getVersionedIdentity()
+    {
+        // the file is identified by its path, and its version by its size and modification time
+        if (fileModifiedTime <= 0 || bucketConversion.isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(toStringHelper("")
+                .add("path", path)
+                .add("start", start)
+                .add("length", length)
+                .add("fileSize", fileSize)
+                .add("fileModifiedTime", fileModifiedTime)
+                .add("database", database)
+                .add("table", table)
+                .add("partitionName", partitionName)
+                .add("partitionKeys", partitionKeys)
+                .add("bucketNumber", bucketNumber)
+                .add("columnCoercions", new TreeMap<>(columnCoercions))
+                .add("schema", new TreeMap<>(schema))
+                .toString());
+    }
+
     @Override
     public String toString()
     {
@@ -27,6 +27,7 @@ import io.prestosql.plugin.hive.metastore.Partition;
 import io.prestosql.plugin.hive.metastore.SemiTransactionalHiveMetastore;
 import io.prestosql.plugin.hive.metastore.Table;
 import io.prestosql.plugin.hive.util.HiveBucketing.HiveBucketFilter;
+import io.prestosql.plugin.hive.util.PrefetchingIterator;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.VersionEmbedder;
 import io.prestosql.spi.connector.ConnectorSession;
@@ -47,6 +48,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.RejectedExecutionException;
@@ -55,7 +57,6 @@ import java.util.function.Function;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
-import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Iterables.transform;
 import static io.prestosql.plugin.hive.BackgroundHiveSplitLoader.BucketSplitInfo.createBucketSplitInfo;
@@ -185,14 +186,6 @@ public class HiveSplitManager
             throw new HiveNotReadableException(tableName, Optional.empty(), tableNotReadable);
         }
 
-        // get partitions
-        List<HivePartition> partitions = partitionManager.getOrLoadPartitions(metastore, new HiveIdentity(session), hiveTable);
-
-        // short circuit if we don't have any partitions
-        if (partitions.isEmpty()) {
-            return new FixedSplitSource(ImmutableList.of());
-        }
-
         // get buckets from first partition (arbitrary)
         Optional<HiveBucketFilter> bucketFilter = hiveTable.getBucketFilter();
 
@@ -201,11 +194,28 @@ public class HiveSplitManager
         if ((splitSchedulingStrategy == GROUPED_SCHEDULING) && !bucketHandle.isPresent()) {
             throw new PrestoException(GENERIC_INTERNAL_ERROR, "SchedulingPolicy is bucketed, but BucketHandle is not present");
         }
+        Optional<HiveBucketProperty> bucketProperty = bucketHandle.map(HiveBucketHandle::toTableBucketProperty);
 
-        // sort partitions
-        partitions = Ordering.natural().onResultOf(HivePartition::getPartitionId).reverse().sortedCopy(partitions);
+        Iterable<HivePartitionMetadata> hivePartitions;
+        if (hiveTable.getPartitions().isPresent() || table.getPartitionColumns().isEmpty()) {
+            // get partitions
+            List<HivePartition> partitions = partitionManager.getOrLoadPartitions(metastore, new HiveIdentity(session), hiveTable);
 
-        Iterable<HivePartitionMetadata> hivePartitions = getPartitionMetadata(session, metastore, table, tableName, partitions, bucketHandle.map(HiveBucketHandle::toTableBucketProperty));
+            // short circuit if we don't have any partitions
+            if (partitions.isEmpty()) {
+                return new FixedSplitSource(ImmutableList.of());
+            }
+
+            // sort partitions
+            partitions = Ordering.natural().onResultOf(HivePartition::getPartitionId).reverse().sortedCopy(partitions);
+
+            hivePartitions = getPartitionMetadata(session, metastore, table, tableName, partitions, bucketProperty);
+        }
+        else {
+            // The partitions were not pruned during planning, so there can be a lot of them. Listing them is
+            // left to the split loader, and only the batches being enumerated are kept in memory.
+            hivePartitions = loadPartitionMetadata(session, metastore, table, tableName, partitionManager.getPartitionsLazily(metastore, new HiveIdentity(session), hiveTable), bucketProperty);
+        }
 
         HiveSplitLoader hiveSplitLoader = new BackgroundHiveSplitLoader(
                 table,
@@ -276,8 +286,17 @@ public class HiveSplitManager
             }
         }
 
+        return loadPartitionMetadata(session, metastore, table, tableName, hivePartitions, bucketProperty);
+    }
+
+    /**
+     * Loads the metastore partitions in exponentially growing batches. While the split loader enumerates
+     * the files of one batch, the next one is loaded in the background.
+     */
+    private Iterable<HivePartitionMetadata> loadPartitionMetadata(ConnectorSession session, SemiTransactionalHiveMetastore metastore, Table table, SchemaTableName tableName, Iterable<HivePartition> hivePartitions, Optional<HiveBucketProperty> bucketProperty)
+    {
         Iterable<List<HivePartition>> partitionNameBatches = partitionExponentially(hivePartitions, minPartitionBatchSize, maxPartitionBatchSize);
-        Iterable<List<HivePartitionMetadata>> partitionBatches = transform(partitionNameBatches, partitionBatch -> {
+        Iterable<Callable<List<HivePartitionMetadata>>> partitionBatches = transform(partitionNameBatches, partitionBatch -> () -> {
             Map<String, Optional<Partition>> batch = metastore.getPartitionsByNames(
                     new HiveIdentity(session),
                     tableName.getSchemaName(),
@@ -373,7 +392,7 @@ public class HiveSplitManager
 
             return results.build();
         });
-        return concat(partitionBatches);
+        return () -> new PrefetchingIterator<>(partitionBatches.iterator(), executor);
     }
 
     static boolean isBucketCountCompatible(int tableBucketCount, int partitionBucketCount)
@@ -392,7 +411,7 @@ public class HiveSplitManager
     /**
      * Partition the given list in exponentially (power of 2) increasing batch sizes starting at 1 up to maxBatchSize
      */
-    private static <T> Iterable<List<T>> partitionExponentially(List<T> values, int minBatchSize, int maxBatchSize)
+    private static <T> Iterable<List<T>> partitionExponentially(Iterable<T> values, int minBatchSize, int maxBatchSize)
     {
         return () -> new AbstractIterator<List<T>>()
         {
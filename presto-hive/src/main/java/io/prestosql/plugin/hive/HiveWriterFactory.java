@@ -149,6 +149,7 @@ public class HiveWriterFactory
             String schemaName,
             String tableName,
             boolean isCreateTable,
+            InsertExistingPartitionsBehavior insertExistingPartitionsBehavior,
             List<HiveColumnHandle> inputColumns,
             HiveStorageFormat tableStorageFormat,
             HiveStorageFormat partitionStorageFormat,
@@ -192,7 +193,7 @@ public class HiveWriterFactory
         this.sortBufferSize = requireNonNull(sortBufferSize, "sortBufferSize is null");
         this.maxOpenSortFiles = maxOpenSortFiles;
         this.immutablePartitions = immutablePartitions;
-        this.insertExistingPartitionsBehavior = HiveSessionProperties.getInsertExistingPartitionsBehavior(session);
+        this.insertExistingPartitionsBehavior = requireNonNull(insertExistingPartitionsBehavior, "insertExistingPartitionsBehavior is null");
         if (immutablePartitions) {
             checkArgument(insertExistingPartitionsBehavior != InsertExistingPartitionsBehavior.APPEND, "insertExistingPartitionsBehavior cannot be APPEND");
         }
@@ -15,6 +15,7 @@ package io.prestosql.plugin.hive.metastore;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.prestosql.spi.statistics.Histogram;
 
 import javax.annotation.concurrent.Immutable;
 
@@ -45,6 +46,7 @@ public class HiveColumnStatistics
     private final OptionalLong totalSizeInBytes;
     private final OptionalLong nullsCount;
     private final OptionalLong distinctValuesCount;
+    private final Optional<Histogram> histogram;
 
     public static HiveColumnStatistics empty()
     {
@@ -61,7 +63,8 @@ public class HiveColumnStatistics
             @JsonProperty("maxValueSizeInBytes") OptionalLong maxValueSizeInBytes,
             @JsonProperty("totalSizeInBytes") OptionalLong totalSizeInBytes,
             @JsonProperty("nullsCount") OptionalLong nullsCount,
-            @JsonProperty("distinctValuesCount") OptionalLong distinctValuesCount)
+            @JsonProperty("distinctValuesCount") OptionalLong distinctValuesCount,
+            @JsonProperty("histogram") Optional<Histogram> histogram)
     {
         this.integerStatistics = requireNonNull(integerStatistics, "integerStatistics is null");
         this.doubleStatistics = requireNonNull(doubleStatistics, "doubleStatistics is null");
@@ -72,6 +75,7 @@ public class HiveColumnStatistics
         this.totalSizeInBytes = requireNonNull(totalSizeInBytes, "totalSizeInBytes is null");
         this.nullsCount = requireNonNull(nullsCount, "nullsCount is null");
         this.distinctValuesCount = requireNonNull(distinctValuesCount, "distinctValuesCount is null");
+        this.histogram = requireNonNull(histogram, "histogram is null");
 
         List<String> presentStatistics = new ArrayList<>();
         integerStatistics.ifPresent(s -> presentStatistics.add("integerStatistics"));
@@ -136,6 +140,12 @@ public class HiveColumnStatistics
         return distinctValuesCount;
     }
 
+    @JsonProperty
+    public Optional<Histogram> getHistogram()
+    {
+        return histogram;
+    }
+
     @Override
     public boolean equals(Object o)
     {
@@ -154,7 +164,8 @@ public class HiveColumnStatistics
                 Objects.equals(maxValueSizeInBytes, that.maxValueSizeInBytes) &&
                 Objects.equals(totalSizeInBytes, that.totalSizeInBytes) &&
                 Objects.equals(nullsCount, that.nullsCount) &&
-                Objects.equals(distinctValuesCount, that.distinctValuesCount);
+                Objects.equals(distinctValuesCount, that.distinctValuesCount) &&
+                Objects.equals(histogram, that.histogram);
     }
 
     @Override
@@ -169,7 +180,8 @@ public class HiveColumnStatistics
                 maxValueSizeInBytes,
                 totalSizeInBytes,
                 nullsCount,
-                distinctValuesCount);
+                distinctValuesCount,
+                histogram);
     }
 
     @Override
@@ -185,6 +197,7 @@ public class HiveColumnStatistics
                 .add("totalSizeInBytes", totalSizeInBytes)
                 .add("nullsCount", nullsCount)
                 .add("distinctValuesCount", distinctValuesCount)
+                .add("histogram", histogram)
                 .toString();
     }
 
@@ -276,6 +289,7 @@ public class HiveColumnStatistics
         private OptionalLong totalSizeInBytes = OptionalLong.empty();
         private OptionalLong nullsCount = OptionalLong.empty();
         private OptionalLong distinctValuesCount = OptionalLong.empty();
+        private Optional<Histogram> histogram = Optional.empty();
 
         private Builder() {}
 
@@ -290,6 +304,7 @@ public class HiveColumnStatistics
             this.totalSizeInBytes = other.getTotalSizeInBytes();
             this.nullsCount = other.getNullsCount();
             this.distinctValuesCount = other.getDistinctValuesCount();
+            this.histogram = other.getHistogram();
         }
 
         public Builder setIntegerStatistics(Optional<IntegerStatistics> integerStatistics)
@@ -400,6 +415,18 @@ public class HiveColumnStatistics
             return this;
         }
 
+        public Builder setHistogram(Optional<Histogram> histogram)
+        {
+            this.histogram = histogram;
+            return this;
+        }
+
+        public Builder setHistogram(Histogram histogram)
+        {
+            this.histogram = Optional.of(histogram);
+            return this;
+        }
+
         public HiveColumnStatistics build()
         {
             return new HiveColumnStatistics(
@@ -411,7 +438,8 @@ public class HiveColumnStatistics
                     maxValueSizeInBytes,
                     totalSizeInBytes,
                     nullsCount,
-                    distinctValuesCount);
+                    distinctValuesCount,
+                    histogram);
         }
     }
 }
@@ -75,6 +75,7 @@ import static io.prestosql.plugin.hive.HiveErrorCode.HIVE_TABLE_DROPPED_DURING_Q
 import static io.prestosql.plugin.hive.HiveMetadata.PRESTO_QUERY_ID_NAME;
 import static io.prestosql.plugin.hive.LocationHandle.WriteMode.DIRECT_TO_TARGET_NEW_DIRECTORY;
 import static io.prestosql.plugin.hive.metastore.HivePrivilegeInfo.HivePrivilege.OWNERSHIP;
+import static io.prestosql.plugin.hive.metastore.PrincipalPrivileges.fromHivePrivilegeInfos;
 import static io.prestosql.plugin.hive.util.HiveUtil.isPrestoView;
 import static io.prestosql.plugin.hive.util.HiveUtil.toPartitionValues;
 import static io.prestosql.plugin.hive.util.HiveWriteUtils.createDirectory;
@@ -107,6 +108,8 @@ public class SemiTransactionalHiveMetastore
     @GuardedBy("this")
     private final Map<SchemaTableName, Map<List<String>, Action<PartitionAndMore>>> partitionActions = new HashMap<>();
     @GuardedBy("this")
+    private final Map<SchemaTableName, Action<String>> viewOriginalTextUpdates = new HashMap<>();
+    @GuardedBy("this")
     private final List<DeclaredIntentionToWrite> declaredIntentionsToWrite = new ArrayList<>();
     @GuardedBy("this")
     private ExclusiveOperation bufferedExclusiveOperation;
@@ -288,6 +291,15 @@ public class SemiTransactionalHiveMetastore
         return delegate.getAllViews(databaseName);
     }
 
+    public synchronized List<String> getTablesWithParameter(String databaseName, String parameterKey, String parameterValue)
+    {
+        checkReadable();
+        if (!tableActions.isEmpty()) {
+            throw new UnsupportedOperationException("Listing all tables after adding/dropping/altering tables/views in a transaction is not supported");
+        }
+        return delegate.getTablesWithParameter(databaseName, parameterKey, parameterValue);
+    }
+
     public synchronized void createDatabase(HiveIdentity identity, Database database)
     {
         setExclusive((delegate, hdfsEnvironment) -> delegate.createDatabase(identity, database));
@@ -486,6 +498,23 @@ public class SemiTransactionalHiveMetastore
         }
     }
 
+    /**
+     * Replaces the view original text of an existing table. The change is committed together
+     * with the data written to the table or its partitions in the same transaction.
+     */
+    public synchronized void setTableViewOriginalText(ConnectorSession session, String databaseName, String tableName, String viewOriginalText)
+    {
+        setShared();
+        SchemaTableName schemaTableName = new SchemaTableName(databaseName, tableName);
+        Action<TableAndMore> oldTableAction = tableActions.get(schemaTableName);
+        if (oldTableAction != null && oldTableAction.getType() != ActionType.INSERT_EXISTING) {
+            throw new UnsupportedOperationException("Altering a table that was added, altered, or dropped in the same transaction is not supported");
+        }
+        HdfsContext hdfsContext = new HdfsContext(session, databaseName, tableName);
+        HiveIdentity identity = new HiveIdentity(session);
+        viewOriginalTextUpdates.put(schemaTableName, new Action<>(ActionType.ALTER, viewOriginalText, hdfsContext, identity));
+    }
+
     public synchronized void truncateUnpartitionedTable(ConnectorSession session, String databaseName, String tableName)
     {
         checkReadable();
@@ -969,6 +998,9 @@ public class SemiTransactionalHiveMetastore
                         throw new IllegalStateException("Unknown action type");
                 }
             }
+            for (Map.Entry<SchemaTableName, Action<String>> entry : viewOriginalTextUpdates.entrySet()) {
+                committer.prepareSetTableViewOriginalText(entry.getValue().getIdentity(), entry.getKey(), entry.getValue().getData());
+            }
             for (Map.Entry<SchemaTableName, Map<List<String>, Action<PartitionAndMore>>> tableEntry : partitionActions.entrySet()) {
                 SchemaTableName schemaTableName = tableEntry.getKey();
                 for (Map.Entry<List<String>, Action<PartitionAndMore>> partitionEntry : tableEntry.getValue().entrySet()) {
@@ -1146,6 +1178,23 @@ public class SemiTransactionalHiveMetastore
                     false));
         }
 
+        private void prepareSetTableViewOriginalText(HiveIdentity identity, SchemaTableName schemaTableName, String viewOriginalText)
+        {
+            deleteOnly = false;
+
+            Table oldTable = delegate.getTable(identity, schemaTableName.getSchemaName(), schemaTableName.getTableName())
+                    .orElseThrow(() -> new PrestoException(TRANSACTION_CONFLICT, "The table that this transaction modified was deleted in another transaction. " + schemaTableName));
+            Table newTable = Table.builder(oldTable)
+                    .setViewOriginalText(Optional.of(viewOriginalText))
+                    .build();
+            PrincipalPrivileges principalPrivileges = fromHivePrivilegeInfos(delegate.listTablePrivileges(
+                    schemaTableName.getSchemaName(),
+                    schemaTableName.getTableName(),
+                    oldTable.getOwner(),
+                    null));
+            alterTableOperations.add(new AlterTableOperation(identity, newTable, oldTable, principalPrivileges));
+        }
+
         private void prepareAddTable(HdfsContext context, TableAndMore tableAndMore)
         {
             deleteOnly = false;
@@ -103,6 +103,14 @@ import static io.prestosql.spi.StandardErrorCode.ALREADY_EXISTS;
 import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
 import static io.prestosql.spi.security.PrincipalType.ROLE;
 import static io.prestosql.spi.security.PrincipalType.USER;
+import static io.prestosql.spi.statistics.ColumnStatisticType.HISTOGRAM;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.RealType.REAL;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
 import static java.util.Objects.requireNonNull;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toSet;
@@ -123,6 +131,8 @@ public class FileHiveMetastore
     private static final Set<String> ADMIN_USERS = ImmutableSet.of("admin", "hive", "hdfs");
     private static final String ICEBERG_TABLE_TYPE_NAME = "table_type";
     private static final String ICEBERG_TABLE_TYPE_VALUE = "iceberg";
+    // types for which the engine can compute a histogram, which only this metastore is able to store
+    private static final Set<Type> HISTOGRAM_TYPES = ImmutableSet.of(BIGINT, INTEGER, SMALLINT, TINYINT, DOUBLE, REAL, DATE);
 
     private final HdfsEnvironment hdfsEnvironment;
     private final Path catalogDirectory;
@@ -307,7 +317,14 @@ public class FileHiveMetastore
     @Override
     public Set<ColumnStatisticType> getSupportedColumnStatistics(Type type)
     {
-        return ThriftMetastoreUtil.getSupportedColumnStatistics(type);
+        Set<ColumnStatisticType> supportedStatistics = ThriftMetastoreUtil.getSupportedColumnStatistics(type);
+        if (HISTOGRAM_TYPES.contains(type)) {
+            return ImmutableSet.<ColumnStatisticType>builder()
+                    .addAll(supportedStatistics)
+                    .add(HISTOGRAM)
+                    .build();
+        }
+        return supportedStatistics;
     }
 
     @Override
@@ -16,6 +16,7 @@ package io.prestosql.plugin.hive.statistics;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.VerifyException;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.HashFunction;
 import com.google.common.primitives.Ints;
@@ -42,6 +43,7 @@ import io.prestosql.spi.predicate.NullableValue;
 import io.prestosql.spi.statistics.ColumnStatistics;
 import io.prestosql.spi.statistics.DoubleRange;
 import io.prestosql.spi.statistics.Estimate;
+import io.prestosql.spi.statistics.Histogram;
 import io.prestosql.spi.statistics.TableStatistics;
 import io.prestosql.spi.type.DecimalType;
 import io.prestosql.spi.type.Decimals;
@@ -87,6 +89,7 @@ import static java.lang.Double.isFinite;
 import static java.lang.Double.isNaN;
 import static java.lang.Double.parseDouble;
 import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.nextDown;
 import static java.lang.String.format;
 import static java.util.Collections.unmodifiableList;
 import static java.util.Objects.requireNonNull;
@@ -627,6 +630,7 @@ public class MetastoreHiveStatisticsProvider
                 .setNullsFraction(calculateNullsFraction(column, partitionStatistics))
                 .setDataSize(calculateDataSize(column, partitionStatistics, rowsCount))
                 .setRange(calculateRange(type, columnStatistics))
+                .setHistogram(calculateHistogram(column, partitionStatistics))
                 .build();
     }
 
@@ -762,6 +766,114 @@ public class MetastoreHiveStatisticsProvider
                 .reduce(DoubleRange::union);
     }
 
+    @VisibleForTesting
+    static Optional<Histogram> calculateHistogram(String column, Collection<PartitionStatistics> partitionStatistics)
+    {
+        List<Histogram> histograms = new ArrayList<>();
+        List<Long> nonNullCounts = new ArrayList<>();
+        for (PartitionStatistics statistics : partitionStatistics) {
+            HiveColumnStatistics columnStatistics = statistics.getColumnStatistics().get(column);
+            OptionalLong rowCount = statistics.getBasicStatistics().getRowCount();
+            if (columnStatistics == null || !rowCount.isPresent() || !columnStatistics.getNullsCount().isPresent()) {
+                return Optional.empty();
+            }
+            long nonNullCount = rowCount.getAsLong() - columnStatistics.getNullsCount().getAsLong();
+            if (nonNullCount <= 0) {
+                continue;
+            }
+            // a partition without a histogram would be misrepresented by the histograms of the other partitions
+            if (!columnStatistics.getHistogram().isPresent()) {
+                return Optional.empty();
+            }
+            histograms.add(columnStatistics.getHistogram().get());
+            nonNullCounts.add(nonNullCount);
+        }
+
+        if (histograms.isEmpty()) {
+            return Optional.empty();
+        }
+        if (histograms.size() == 1) {
+            return Optional.of(histograms.get(0));
+        }
+        return Optional.of(mergeHistograms(histograms, nonNullCounts));
+    }
+
+    private static Histogram mergeHistograms(List<Histogram> histograms, List<Long> weights)
+    {
+        int buckets = histograms.stream()
+                .mapToInt(histogram -> histogram.getBoundaries().size() - 1)
+                .max()
+                .getAsInt();
+        double[] candidates = histograms.stream()
+                .flatMap(histogram -> histogram.getBoundaries().stream())
+                .mapToDouble(Double::doubleValue)
+                .sorted()
+                .distinct()
+                .toArray();
+
+        // invert the cumulative distribution of all partitions at equally spaced quantiles
+        ImmutableList.Builder<Double> quantiles = ImmutableList.builder();
+        quantiles.add(candidates[0]);
+        int index = 0;
+        for (int i = 1; i < buckets; i++) {
+            double quantile = ((double) i) / buckets;
+            while (index < candidates.length - 1 && getCumulativeFraction(histograms, weights, candidates[index]) < quantile) {
+                index++;
+            }
+            double value = candidates[index];
+            double fractionBelow = getCumulativeFraction(histograms, weights, nextDown(value));
+            if (index == 0 || quantile > fractionBelow) {
+                // the quantile falls into the rows equal to the value
+                quantiles.add(value);
+            }
+            else {
+                double previous = candidates[index - 1];
+                double previousFraction = getCumulativeFraction(histograms, weights, previous);
+                quantiles.add(previous + (value - previous) * (quantile - previousFraction) / (fractionBelow - previousFraction));
+            }
+        }
+        quantiles.add(candidates[candidates.length - 1]);
+        return Histogram.fromQuantiles(quantiles.build());
+    }
+
+    private static double getCumulativeFraction(List<Histogram> histograms, List<Long> weights, double value)
+    {
+        double fraction = 0;
+        double totalWeight = 0;
+        for (int i = 0; i < histograms.size(); i++) {
+            fraction += weights.get(i) * getCumulativeFraction(histograms.get(i), value);
+            totalWeight += weights.get(i);
+        }
+        return fraction / totalWeight;
+    }
+
+    private static double getCumulativeFraction(Histogram histogram, double value)
+    {
+        List<Double> boundaries = histogram.getBoundaries();
+        int buckets = boundaries.size() - 1;
+        if (value < boundaries.get(0)) {
+            return 0;
+        }
+        if (value >= boundaries.get(buckets)) {
+            return 1;
+        }
+        // find the last boundary not greater than the value
+        int low = 0;
+        int high = buckets;
+        while (high - low > 1) {
+            int middle = (low + high) >>> 1;
+            if (boundaries.get(middle) <= value) {
+                low = middle;
+            }
+            else {
+                high = middle;
+            }
+        }
+        double bucketLow = boundaries.get(low);
+        double bucketHigh = boundaries.get(low + 1);
+        return (low + (value - bucketLow) / (bucketHigh - bucketLow)) / buckets;
+    }
+
     private static boolean isRangeSupported(Type type)
     {
         return type.equals(TINYINT)
@@ -34,6 +34,7 @@ import io.prestosql.plugin.hive.metastore.Column;
 import io.prestosql.plugin.hive.metastore.Table;
 import io.prestosql.spi.ErrorCodeSupplier;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition;
 import io.prestosql.spi.connector.ConnectorViewDefinition;
 import io.prestosql.spi.connector.RecordCursor;
 import io.prestosql.spi.predicate.NullableValue;
@@ -164,12 +165,17 @@ import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector.Cate
 public final class HiveUtil
 {
     public static final String PRESTO_VIEW_FLAG = "presto_view";
+    public static final String PRESTO_MATERIALIZED_VIEW_FLAG = "presto_materialized_view";
 
     private static final String VIEW_PREFIX = "/* Presto View: ";
     private static final String VIEW_SUFFIX = " */";
     private static final JsonCodec<ConnectorViewDefinition> VIEW_CODEC =
             new JsonCodecFactory(new ObjectMapperProvider()).jsonCodec(ConnectorViewDefinition.class);
 
+    private static final String MATERIALIZED_VIEW_PREFIX = "/* Presto Materialized View: ";
+    private static final JsonCodec<ConnectorMaterializedViewDefinition> MATERIALIZED_VIEW_CODEC =
+            new JsonCodecFactory(new ObjectMapperProvider()).jsonCodec(ConnectorMaterializedViewDefinition.class);
+
     private static final DateTimeFormatter HIVE_DATE_PARSER = ISODateTimeFormat.date().withZoneUTC();
     private static final DateTimeFormatter HIVE_TIMESTAMP_PARSER;
     private static final Field COMPRESSION_CODECS_FIELD;
@@ -655,6 +661,28 @@ public final class HiveUtil
         return VIEW_CODEC.fromJson(bytes);
     }
 
+    public static boolean isPrestoMaterializedView(Table table)
+    {
+        return "true".equals(table.getParameters().get(PRESTO_MATERIALIZED_VIEW_FLAG));
+    }
+
+    public static String encodeMaterializedViewData(ConnectorMaterializedViewDefinition definition)
+    {
+        byte[] bytes = MATERIALIZED_VIEW_CODEC.toJsonBytes(definition);
+        String data = Base64.getEncoder().encodeToString(bytes);
+        return MATERIALIZED_VIEW_PREFIX + data + VIEW_SUFFIX;
+    }
+
+    public static ConnectorMaterializedViewDefinition decodeMaterializedViewData(String data)
+    {
+        checkCondition(data.startsWith(MATERIALIZED_VIEW_PREFIX), HIVE_INVALID_VIEW_DATA, "Materialized view data missing prefix: %s", data);
+        checkCondition(data.endsWith(VIEW_SUFFIX), HIVE_INVALID_VIEW_DATA, "Materialized view data missing suffix: %s", data);
+        data = data.substring(MATERIALIZED_VIEW_PREFIX.length());
+        data = data.substring(0, data.length() - VIEW_SUFFIX.length());
+        byte[] bytes = Base64.getDecoder().decode(data);
+        return MATERIALIZED_VIEW_CODEC.fromJson(bytes);
+    }
+
     public static Optional<DecimalType> getDecimalType(HiveType hiveType)
     {
         return getDecimalType(hiveType.getHiveTypeName().toString());
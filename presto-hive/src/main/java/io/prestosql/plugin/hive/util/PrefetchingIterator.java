@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.util;
+
+import com.google.common.collect.AbstractIterator;
+import com.google.common.util.concurrent.ListenableFutureTask;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static java.util.Collections.emptyIterator;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Iterates over the elements of a sequence of batches, loading the next batch on an executor
+ * while the current one is consumed. At most one batch is loaded ahead. A batch the executor
+ * has not started by the time it is needed is loaded by the consuming thread instead, so a
+ * saturated executor only removes the overlap and never blocks the iteration.
+ */
+public class PrefetchingIterator<T>
+        extends AbstractIterator<T>
+{
+    private final Iterator<? extends Callable<List<T>>> batches;
+    private final Executor executor;
+
+    private ListenableFutureTask<List<T>> nextBatch;
+    private Iterator<T> currentBatch = emptyIterator();
+
+    public PrefetchingIterator(Iterator<? extends Callable<List<T>>> batches, Executor executor)
+    {
+        this.batches = requireNonNull(batches, "batches is null");
+        this.executor = requireNonNull(executor, "executor is null");
+    }
+
+    @Override
+    protected T computeNext()
+    {
+        while (!currentBatch.hasNext()) {
+            if (nextBatch == null) {
+                // the first batch is needed right away
+                if (!batches.hasNext()) {
+                    return endOfData();
+                }
+                nextBatch = ListenableFutureTask.create(batches.next());
+            }
+
+            // does nothing when the executor has already started the task
+            nextBatch.run();
+            List<T> batch = getFutureValue(nextBatch);
+
+            nextBatch = null;
+            if (batches.hasNext()) {
+                nextBatch = ListenableFutureTask.create(batches.next());
+                executor.execute(nextBatch);
+            }
+            currentBatch = batch.iterator();
+        }
+        return currentBatch.next();
+    }
+}
@@ -13,6 +13,7 @@
  */
 package io.prestosql.plugin.hive.util;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.prestosql.plugin.hive.HiveBasicStatistics;
 import io.prestosql.plugin.hive.PartitionStatistics;
@@ -29,6 +30,7 @@ import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.spi.statistics.ColumnStatisticMetadata;
 import io.prestosql.spi.statistics.ColumnStatisticType;
 import io.prestosql.spi.statistics.ComputedStatistics;
+import io.prestosql.spi.statistics.Histogram;
 import io.prestosql.spi.type.DecimalType;
 import io.prestosql.spi.type.SqlDate;
 import io.prestosql.spi.type.SqlDecimal;
@@ -58,6 +60,7 @@ import static io.prestosql.plugin.hive.util.HiveWriteUtils.createPartitionValues
 import static io.prestosql.plugin.hive.util.Statistics.ReduceOperator.ADD;
 import static io.prestosql.plugin.hive.util.Statistics.ReduceOperator.MAX;
 import static io.prestosql.plugin.hive.util.Statistics.ReduceOperator.MIN;
+import static io.prestosql.spi.statistics.ColumnStatisticType.HISTOGRAM;
 import static io.prestosql.spi.statistics.ColumnStatisticType.MAX_VALUE;
 import static io.prestosql.spi.statistics.ColumnStatisticType.MAX_VALUE_SIZE_IN_BYTES;
 import static io.prestosql.spi.statistics.ColumnStatisticType.MIN_VALUE;
@@ -117,7 +120,9 @@ public final class Statistics
                 reduce(first.getMaxValueSizeInBytes(), second.getMaxValueSizeInBytes(), MAX, true),
                 reduce(first.getTotalSizeInBytes(), second.getTotalSizeInBytes(), ADD, true),
                 reduce(first.getNullsCount(), second.getNullsCount(), ADD, false),
-                reduce(first.getDistinctValuesCount(), second.getDistinctValuesCount(), MAX, false));
+                reduce(first.getDistinctValuesCount(), second.getDistinctValuesCount(), MAX, false),
+                // histograms cannot be merged without the data, they are recomputed by ANALYZE
+                Optional.empty());
     }
 
     private static Optional<IntegerStatistics> mergeIntegerStatistics(Optional<IntegerStatistics> first, Optional<IntegerStatistics> second)
@@ -280,6 +285,9 @@ public final class Statistics
                 case MAX_VALUE:
                     setMinMaxForEmptyPartition(columnType, result);
                     break;
+                case HISTOGRAM:
+                    // there are no values to describe
+                    break;
                 default:
                     throw new PrestoException(HIVE_UNKNOWN_COLUMN_STATISTIC_TYPE, "Unknown column statistics type: " + columnStatisticType.name());
             }
@@ -403,6 +411,11 @@ public final class Statistics
             long numberOfNonNullValues = BIGINT.getLong(computedStatistics.get(NUMBER_OF_NON_NULL_VALUES), 0);
             result.setBooleanStatistics(new BooleanStatistics(OptionalLong.of(numberOfTrue), OptionalLong.of(numberOfNonNullValues - numberOfTrue)));
         }
+
+        // HISTOGRAM
+        if (computedStatistics.containsKey(HISTOGRAM)) {
+            result.setHistogram(getHistogram(computedStatistics.get(HISTOGRAM)));
+        }
         return result.build();
     }
 
@@ -450,6 +463,19 @@ public final class Statistics
         return block.isNull(0) ? OptionalLong.empty() : OptionalLong.of(MILLISECONDS.toSeconds(timeZone.convertUTCToLocal(block.getLong(0, 0))));
     }
 
+    private static Optional<Histogram> getHistogram(Block block)
+    {
+        if (block.isNull(0)) {
+            return Optional.empty();
+        }
+        Block quantiles = block.getObject(0, Block.class);
+        ImmutableList.Builder<Double> values = ImmutableList.builder();
+        for (int position = 0; position < quantiles.getPositionCount(); position++) {
+            values.add(DOUBLE.getDouble(quantiles, position));
+        }
+        return Optional.of(Histogram.fromQuantiles(values.build()));
+    }
+
     private static Optional<BigDecimal> getDecimalValue(ConnectorSession session, Type type, Block block)
     {
         return block.isNull(0) ? Optional.empty() : Optional.of(((SqlDecimal) type.getObjectValue(session, block, 0)).toBigDecimal());
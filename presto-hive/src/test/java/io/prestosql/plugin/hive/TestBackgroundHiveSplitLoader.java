@@ -23,6 +23,7 @@ import io.airlift.units.Duration;
 import io.prestosql.plugin.hive.HiveColumnHandle.ColumnType;
 import io.prestosql.plugin.hive.authentication.NoHdfsAuthentication;
 import io.prestosql.plugin.hive.metastore.Column;
+import io.prestosql.plugin.hive.metastore.SortingColumn;
 import io.prestosql.plugin.hive.metastore.StorageFormat;
 import io.prestosql.plugin.hive.metastore.Table;
 import io.prestosql.plugin.hive.util.HiveBucketing.HiveBucketFilter;
@@ -71,6 +72,7 @@ import static io.prestosql.plugin.hive.HiveTestUtils.SESSION;
 import static io.prestosql.plugin.hive.HiveTestUtils.getHiveSession;
 import static io.prestosql.plugin.hive.HiveType.HIVE_INT;
 import static io.prestosql.plugin.hive.HiveType.HIVE_STRING;
+import static io.prestosql.plugin.hive.metastore.SortingColumn.Order.ASCENDING;
 import static io.prestosql.plugin.hive.util.HiveUtil.getRegularColumnHandles;
 import static io.prestosql.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
 import static io.prestosql.spi.predicate.TupleDomain.withColumnDomains;
@@ -213,6 +215,33 @@ public class TestBackgroundHiveSplitLoader
         assertEquals(paths.get(0), RETURNED_PATH.toString());
     }
 
+    @Test
+    public void testSortedBucketWithMultipleFiles()
+            throws Exception
+    {
+        Table table = table(
+                ImmutableList.of(),
+                Optional.of(new HiveBucketProperty(ImmutableList.of("col1"), BUCKET_COUNT, ImmutableList.of(new SortingColumn("col1", ASCENDING)))));
+
+        // the second file of bucket 0 is read as another split instead of failing the query
+        BackgroundHiveSplitLoader backgroundHiveSplitLoader = backgroundHiveSplitLoader(
+                ImmutableList.of(
+                        locatedFileStatus(new Path("hdfs://VOL1:9000/db_name/table_name/000000_0")),
+                        locatedFileStatus(new Path("hdfs://VOL1:9000/db_name/table_name/000000_0_copy_1")),
+                        locatedFileStatus(new Path("hdfs://VOL1:9000/db_name/table_name/000001_0"))),
+                TupleDomain.all(),
+                Optional.empty(),
+                table,
+                Optional.of(new HiveBucketHandle(BUCKET_COLUMN_HANDLES, BUCKET_COUNT, BUCKET_COUNT)),
+                new HiveConfig().setPropagateTableScanSortingProperties(true));
+
+        HiveSplitSource hiveSplitSource = hiveSplitSource(backgroundHiveSplitLoader);
+        backgroundHiveSplitLoader.start(hiveSplitSource);
+        List<HiveSplit> splits = drainSplits(hiveSplitSource);
+        assertEquals(splits.size(), 3);
+        assertEquals(splits.stream().filter(split -> split.getBucketNumber().equals(OptionalInt.of(0))).count(), 2);
+    }
+
     @Test
     public void testEmptyFileWithNoBlocks()
             throws Exception
@@ -339,6 +368,17 @@ public class TestBackgroundHiveSplitLoader
             Optional<HiveBucketFilter> hiveBucketFilter,
             Table table,
             Optional<HiveBucketHandle> bucketHandle)
+    {
+        return backgroundHiveSplitLoader(files, compactEffectivePredicate, hiveBucketFilter, table, bucketHandle, new HiveConfig());
+    }
+
+    private static BackgroundHiveSplitLoader backgroundHiveSplitLoader(
+            List<LocatedFileStatus> files,
+            TupleDomain<HiveColumnHandle> compactEffectivePredicate,
+            Optional<HiveBucketFilter> hiveBucketFilter,
+            Table table,
+            Optional<HiveBucketHandle> bucketHandle,
+            HiveConfig hiveConfig)
     {
         List<HivePartitionMetadata> hivePartitionMetadatas =
                 ImmutableList.of(
@@ -347,7 +387,7 @@ public class TestBackgroundHiveSplitLoader
                                 Optional.empty(),
                                 ImmutableMap.of()));
 
-        ConnectorSession connectorSession = getHiveSession(new HiveConfig()
+        ConnectorSession connectorSession = getHiveSession(hiveConfig
                 .setMaxSplitSize(new DataSize(1.0, GIGABYTE)));
 
         return new BackgroundHiveSplitLoader(
@@ -37,6 +37,7 @@ public class TestHiveConfig
                 .setTimeZone(TimeZone.getDefault().getID())
                 .setMaxSplitSize(new DataSize(64, Unit.MEGABYTE))
                 .setMaxPartitionsPerScan(100_000)
+                .setMaxPartitionsForEagerLoad(10_000)
                 .setMaxOutstandingSplits(1_000)
                 .setMaxOutstandingSplitsSize(new DataSize(256, Unit.MEGABYTE))
                 .setMaxSplitIteratorThreads(1_000)
@@ -59,6 +60,7 @@ public class TestHiveConfig
                 .setImmutablePartitions(false)
                 .setCreateEmptyBucketFiles(true)
                 .setSortedWritingEnabled(true)
+                .setPropagateTableScanSortingProperties(false)
                 .setMaxPartitionsPerWriter(100)
                 .setMaxOpenSortFiles(50)
                 .setWriteValidationThreads(16)
@@ -95,6 +97,7 @@ public class TestHiveConfig
                 .put("hive.time-zone", nonDefaultTimeZone().getID())
                 .put("hive.max-split-size", "256MB")
                 .put("hive.max-partitions-per-scan", "123")
+                .put("hive.max-partitions-for-eager-load", "122")
                 .put("hive.max-outstanding-splits", "10")
                 .put("hive.max-outstanding-splits-size", "32MB")
                 .put("hive.max-split-iterator-threads", "10")
@@ -127,6 +130,7 @@ public class TestHiveConfig
                 .put("hive.skip-target-cleanup-on-rollback", "true")
                 .put("hive.bucket-execution", "false")
                 .put("hive.sorted-writing", "false")
+                .put("hive.propagate-table-scan-sorting-properties", "true")
                 .put("hive.table-statistics-enabled", "false")
                 .put("hive.optimize-mismatched-bucket-count", "true")
                 .put("hive.non-managed-table-writes-enabled", "true")
@@ -150,6 +154,7 @@ public class TestHiveConfig
                 .setTimeZone(nonDefaultTimeZone().toTimeZone().getID())
                 .setMaxSplitSize(new DataSize(256, Unit.MEGABYTE))
                 .setMaxPartitionsPerScan(123)
+                .setMaxPartitionsForEagerLoad(122)
                 .setMaxOutstandingSplits(10)
                 .setMaxOutstandingSplitsSize(new DataSize(32, Unit.MEGABYTE))
                 .setMaxSplitIteratorThreads(10)
@@ -182,6 +187,7 @@ public class TestHiveConfig
                 .setSkipTargetCleanupOnRollback(true)
                 .setBucketExecutionEnabled(false)
                 .setSortedWritingEnabled(false)
+                .setPropagateTableScanSortingProperties(true)
                 .setTableStatisticsEnabled(false)
                 .setOptimizeMismatchedBucketCount(true)
                 .setWritesToNonManagedTablesEnabled(true)
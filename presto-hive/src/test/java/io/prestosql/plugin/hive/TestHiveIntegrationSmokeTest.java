@@ -37,6 +37,8 @@ import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.TypeSignature;
 import io.prestosql.sql.planner.Plan;
 import io.prestosql.sql.planner.plan.ExchangeNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
 import io.prestosql.sql.planner.planprinter.IoPlanPrinter.ColumnConstraint;
 import io.prestosql.sql.planner.planprinter.IoPlanPrinter.EstimatedStatsAndCost;
 import io.prestosql.sql.planner.planprinter.IoPlanPrinter.FormattedDomain;
@@ -54,6 +56,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -70,6 +73,7 @@ import java.util.stream.LongStream;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.io.Files.asCharSink;
 import static com.google.common.io.Files.createTempDir;
@@ -83,6 +87,8 @@ import static io.prestosql.SystemSessionProperties.CONCURRENT_LIFESPANS_PER_NODE
 import static io.prestosql.SystemSessionProperties.DYNAMIC_SCHEDULE_FOR_GROUPED_EXECUTION;
 import static io.prestosql.SystemSessionProperties.GROUPED_EXECUTION;
 import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.prestosql.SystemSessionProperties.MATERIALIZED_VIEW_REWRITE_ENABLED;
+import static io.prestosql.SystemSessionProperties.MERGE_JOIN_ENABLED;
 import static io.prestosql.plugin.hive.HiveColumnHandle.BUCKET_COLUMN_NAME;
 import static io.prestosql.plugin.hive.HiveColumnHandle.FILE_MODIFIED_TIME_COLUMN_NAME;
 import static io.prestosql.plugin.hive.HiveColumnHandle.FILE_SIZE_COLUMN_NAME;
@@ -3622,6 +3628,154 @@ public class TestHiveIntegrationSmokeTest
         }
     }
 
+    @Test
+    public void testMergeJoinOfSortedBucketedTables()
+            throws Exception
+    {
+        try {
+            assertUpdate(
+                    "CREATE TABLE test_merge_join_left\n" +
+                            "WITH (bucket_count = 11, bucketed_by = ARRAY['key1'], sorted_by = ARRAY['key1']) AS\n" +
+                            "SELECT orderkey key1, comment value1 FROM orders",
+                    15000);
+            assertUpdate(
+                    "CREATE TABLE test_merge_join_right\n" +
+                            "WITH (bucket_count = 11, bucketed_by = ARRAY['key2'], sorted_by = ARRAY['key2']) AS\n" +
+                            "SELECT orderkey key2, custkey value2 FROM orders WHERE orderkey % 3 = 0",
+                    5000);
+            assertUpdate(
+                    "CREATE TABLE test_merge_join_partitioned\n" +
+                            "WITH (bucket_count = 11, bucketed_by = ARRAY['key3'], sorted_by = ARRAY['key3'], partitioned_by = ARRAY['ds']) AS\n" +
+                            "SELECT orderkey key3, custkey value3, IF(orderkey % 2 = 0, 'even', 'odd') ds FROM orders",
+                    15000);
+            assertUpdate(
+                    "CREATE TABLE test_merge_join_appended\n" +
+                            "WITH (bucket_count = 11, bucketed_by = ARRAY['key4'], sorted_by = ARRAY['key4']) AS\n" +
+                            "SELECT orderkey key4, custkey value4 FROM orders WHERE orderkey % 3 = 0",
+                    5000);
+
+            Session mergeJoin = Session.builder(getSession())
+                    .setSystemProperty(MERGE_JOIN_ENABLED, "true")
+                    .setSystemProperty(COLOCATED_JOIN, "true")
+                    .setSystemProperty(GROUPED_EXECUTION, "true")
+                    .setCatalogSessionProperty(catalog, "propagate_table_scan_sorting_properties", "true")
+                    .build();
+            Session notPropagated = Session.builder(mergeJoin)
+                    .setCatalogSessionProperty(catalog, "propagate_table_scan_sorting_properties", "false")
+                    .build();
+
+            @Language("SQL") String innerJoin = "SELECT key1, value1, value2 FROM test_merge_join_left JOIN test_merge_join_right ON key1 = key2";
+            @Language("SQL") String leftJoin = "SELECT key1, value1, value2 FROM test_merge_join_left LEFT JOIN test_merge_join_right ON key1 = key2";
+            assertQuery(mergeJoin, innerJoin, "SELECT orderkey, comment, custkey FROM orders WHERE orderkey % 3 = 0", assertMergeJoin(true));
+            assertQuery(mergeJoin, leftJoin, "SELECT orderkey, comment, CASE mod(orderkey, 3) WHEN 0 THEN custkey END FROM orders", assertMergeJoin(true));
+            assertQuery(notPropagated, innerJoin, "SELECT orderkey, comment, custkey FROM orders WHERE orderkey % 3 = 0", assertMergeJoin(false));
+
+            // each bucket of a single partition is a single sorted file, but a bucket spanning partitions is not
+            assertQuery(
+                    mergeJoin,
+                    "SELECT key1, value1, value3 FROM test_merge_join_left JOIN test_merge_join_partitioned ON key1 = key3 WHERE ds = 'even'",
+                    "SELECT orderkey, comment, custkey FROM orders WHERE orderkey % 2 = 0",
+                    assertMergeJoin(true));
+            assertQuery(
+                    mergeJoin,
+                    "SELECT key1, value1, value3 FROM test_merge_join_left JOIN test_merge_join_partitioned ON key1 = key3",
+                    "SELECT orderkey, comment, custkey FROM orders",
+                    assertMergeJoin(false));
+
+            // a second file in a bucket, as appended by another Hive insert, leaves the bucket unsorted
+            String bucketFile = (String) computeScalar("SELECT \"$path\" FROM test_merge_join_appended WHERE key4 = 3");
+            long bucketRows = (long) computeScalar(format("SELECT count(*) FROM test_merge_join_appended WHERE \"$path\" = '%s'", bucketFile));
+            File file = new File(URI.create(bucketFile));
+            Files.copy(file, new File(file.getParentFile(), file.getName() + "_copy_1"));
+            assertQuery(
+                    mergeJoin,
+                    "SELECT count(*) FROM test_merge_join_left JOIN test_merge_join_appended ON key1 = key4",
+                    "SELECT " + (5000 + bucketRows),
+                    assertMergeJoin(false));
+        }
+        finally {
+            assertUpdate("DROP TABLE IF EXISTS test_merge_join_left");
+            assertUpdate("DROP TABLE IF EXISTS test_merge_join_right");
+            assertUpdate("DROP TABLE IF EXISTS test_merge_join_partitioned");
+            assertUpdate("DROP TABLE IF EXISTS test_merge_join_appended");
+        }
+    }
+
+    private Consumer<Plan> assertMergeJoin(boolean expectMergeJoin)
+    {
+        return plan -> assertEquals(
+                searchFrom(plan.getRoot()).where(MergeJoinNode.class::isInstance).matches(),
+                expectMergeJoin);
+    }
+
+    @Test
+    public void testMaterializedViewRewrite()
+    {
+        Session session = Session.builder(getSession())
+                .setSystemProperty(MATERIALIZED_VIEW_REWRITE_ENABLED, "true")
+                .build();
+
+        assertUpdate("CREATE TABLE test_mv_rewrite_orders AS SELECT orderkey, custkey, orderstatus, totalprice FROM orders", "SELECT count(*) FROM orders");
+        assertUpdate("CREATE MATERIALIZED VIEW test_mv_rewrite_finished AS SELECT orderkey, custkey, totalprice FROM test_mv_rewrite_orders WHERE orderstatus = 'F'");
+        assertUpdate("CREATE MATERIALIZED VIEW test_mv_rewrite_totals AS SELECT custkey, orderstatus, sum(totalprice) total, count(*) orders FROM test_mv_rewrite_orders GROUP BY custkey, orderstatus");
+        try {
+            assertUpdate("REFRESH MATERIALIZED VIEW test_mv_rewrite_finished", "SELECT count(*) FROM orders WHERE orderstatus = 'F'");
+            assertUpdate("REFRESH MATERIALIZED VIEW test_mv_rewrite_totals", "SELECT count(*) FROM (SELECT DISTINCT custkey, orderstatus FROM orders)");
+
+            // a query with an additional predicate
+            assertQuery(
+                    session,
+                    "SELECT orderkey, totalprice FROM test_mv_rewrite_orders WHERE orderstatus = 'F' AND custkey < 100",
+                    "SELECT orderkey, totalprice FROM orders WHERE orderstatus = 'F' AND custkey < 100",
+                    assertTablesScanned("test_mv_rewrite_finished"));
+
+            // a subquery joined with another table
+            assertQuery(
+                    session,
+                    "SELECT c.name, sum(f.totalprice) FROM customer c JOIN (SELECT custkey, totalprice FROM test_mv_rewrite_orders WHERE orderstatus = 'F') f ON c.custkey = f.custkey GROUP BY c.name",
+                    "SELECT c.name, sum(o.totalprice) FROM customer c JOIN orders o ON c.custkey = o.custkey WHERE o.orderstatus = 'F' GROUP BY c.name",
+                    assertTablesScanned("customer", "test_mv_rewrite_finished"));
+
+            // an aggregation over the same grouping keys with a predicate on one of them
+            assertQuery(
+                    session,
+                    "SELECT custkey, sum(totalprice), count(*) FROM test_mv_rewrite_orders WHERE orderstatus = 'O' GROUP BY custkey, orderstatus",
+                    "SELECT custkey, sum(totalprice), count(*) FROM orders WHERE orderstatus = 'O' GROUP BY custkey, orderstatus",
+                    assertTablesScanned("test_mv_rewrite_totals"));
+
+            // no view applies the predicate of the query or stores the rows it filters
+            assertQuery(
+                    session,
+                    "SELECT orderkey FROM test_mv_rewrite_orders WHERE orderstatus = 'O'",
+                    "SELECT orderkey FROM orders WHERE orderstatus = 'O'",
+                    assertTablesScanned("test_mv_rewrite_orders"));
+
+            // the views are stale once the table changes
+            assertUpdate("INSERT INTO test_mv_rewrite_orders VALUES (-1, 1, 'F', 1.0)", 1);
+            assertQuery(
+                    session,
+                    "SELECT orderkey, totalprice FROM test_mv_rewrite_orders WHERE orderstatus = 'F' AND custkey < 100",
+                    "SELECT orderkey, totalprice FROM orders WHERE orderstatus = 'F' AND custkey < 100 UNION ALL SELECT -1, CAST(1.0 AS DOUBLE)",
+                    assertTablesScanned("test_mv_rewrite_orders"));
+        }
+        finally {
+            assertUpdate("DROP MATERIALIZED VIEW test_mv_rewrite_totals");
+            assertUpdate("DROP MATERIALIZED VIEW test_mv_rewrite_finished");
+            assertUpdate("DROP TABLE test_mv_rewrite_orders");
+        }
+    }
+
+    private static Consumer<Plan> assertTablesScanned(String... tableNames)
+    {
+        return plan -> assertEquals(
+                searchFrom(plan.getRoot())
+                        .where(TableScanNode.class::isInstance)
+                        .<TableScanNode>findAll().stream()
+                        .map(scan -> ((HiveTableHandle) scan.getTable().getConnectorHandle()).getTableName())
+                        .collect(toImmutableSet()),
+                ImmutableSet.copyOf(tableNames));
+    }
+
     private Consumer<Plan> assertRemoteExchangesCount(int expectedRemoteExchangesCount)
     {
         return plan ->
@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.SchemaTableName;
+import io.prestosql.spi.predicate.Domain;
+import io.prestosql.spi.predicate.NullableValue;
+import io.prestosql.spi.predicate.TupleDomain;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.plugin.hive.HiveColumnHandle.ColumnType.PARTITION_KEY;
+import static io.prestosql.plugin.hive.HiveTestUtils.TYPE_MANAGER;
+import static io.prestosql.plugin.hive.HiveType.HIVE_STRING;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestHivePartitionManager
+{
+    private static final SchemaTableName TABLE_NAME = new SchemaTableName("schema", "table");
+    private static final HiveColumnHandle PARTITION_COLUMN = new HiveColumnHandle("ds", HIVE_STRING, VARCHAR.getTypeSignature(), 0, PARTITION_KEY, Optional.empty());
+    private static final HiveTableHandle TABLE_HANDLE = new HiveTableHandle(
+            TABLE_NAME.getSchemaName(),
+            TABLE_NAME.getTableName(),
+            ImmutableMap.of(),
+            ImmutableList.of(PARTITION_COLUMN),
+            Optional.empty());
+
+    private final HivePartitionManager partitionManager = new HivePartitionManager(
+            TYPE_MANAGER,
+            new HiveConfig()
+                    .setMaxPartitionsForEagerLoad(2)
+                    .setMaxPartitionsPerScan(10));
+
+    @Test
+    public void testApplyPrunedPartitions()
+    {
+        List<HivePartition> partitions = partitions(2);
+        HiveTableHandle handle = partitionManager.applyPrunedPartitions(TABLE_HANDLE, partitionResult(partitions));
+        assertEquals(handle.getPartitions(), Optional.of(partitions));
+        assertEquals(handle.getEnforcedConstraint(), enforcedConstraint());
+    }
+
+    @Test
+    public void testApplyPrunedPartitionsOverEagerLoadLimit()
+    {
+        // too many partitions to keep in the handle, which then only carries the constraint it enforces
+        HiveTableHandle handle = partitionManager.applyPrunedPartitions(TABLE_HANDLE, partitionResult(partitions(3)));
+        assertFalse(handle.getPartitions().isPresent());
+        assertEquals(handle.getEnforcedConstraint(), enforcedConstraint());
+
+        // partitions listed explicitly are always kept
+        handle = partitionManager.applyPartitionResult(TABLE_HANDLE, partitionResult(partitions(3)));
+        assertEquals(handle.getPartitions().map(List::size), Optional.of(3));
+    }
+
+    private static List<HivePartition> partitions(int count)
+    {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new HivePartition(
+                        TABLE_NAME,
+                        "ds=" + i,
+                        ImmutableMap.of(PARTITION_COLUMN, NullableValue.of(VARCHAR, utf8Slice(String.valueOf(i))))))
+                .collect(toImmutableList());
+    }
+
+    private static HivePartitionResult partitionResult(List<HivePartition> partitions)
+    {
+        return new HivePartitionResult(
+                ImmutableList.of(PARTITION_COLUMN),
+                partitions,
+                TupleDomain.all(),
+                TupleDomain.all(),
+                enforcedConstraint(),
+                Optional.empty(),
+                Optional.empty());
+    }
+
+    private static TupleDomain<ColumnHandle> enforcedConstraint()
+    {
+        return TupleDomain.withColumnDomains(ImmutableMap.of(PARTITION_COLUMN, Domain.notNull(VARCHAR)));
+    }
+}
@@ -15,6 +15,7 @@ package io.prestosql.plugin.hive.statistics;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Doubles;
 import io.prestosql.plugin.hive.HiveBasicStatistics;
 import io.prestosql.plugin.hive.HiveColumnHandle;
 import io.prestosql.plugin.hive.HiveConfig;
@@ -31,6 +32,7 @@ import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.statistics.ColumnStatistics;
 import io.prestosql.spi.statistics.DoubleRange;
 import io.prestosql.spi.statistics.Estimate;
+import io.prestosql.spi.statistics.Histogram;
 import io.prestosql.spi.statistics.TableStatistics;
 import io.prestosql.spi.type.DecimalType;
 import io.prestosql.spi.type.Type;
@@ -62,6 +64,7 @@ import static io.prestosql.plugin.hive.statistics.MetastoreHiveStatisticsProvide
 import static io.prestosql.plugin.hive.statistics.MetastoreHiveStatisticsProvider.calculateDataSizeForPartitioningKey;
 import static io.prestosql.plugin.hive.statistics.MetastoreHiveStatisticsProvider.calculateDistinctPartitionKeys;
 import static io.prestosql.plugin.hive.statistics.MetastoreHiveStatisticsProvider.calculateDistinctValuesCount;
+import static io.prestosql.plugin.hive.statistics.MetastoreHiveStatisticsProvider.calculateHistogram;
 import static io.prestosql.plugin.hive.statistics.MetastoreHiveStatisticsProvider.calculateNullsFraction;
 import static io.prestosql.plugin.hive.statistics.MetastoreHiveStatisticsProvider.calculateNullsFractionForPartitioningKey;
 import static io.prestosql.plugin.hive.statistics.MetastoreHiveStatisticsProvider.calculateRange;
@@ -600,6 +603,27 @@ public class TestMetastoreHiveStatisticsProvider
         assertEquals(calculateRange(DECIMAL, ImmutableList.of(decimalRange(BigDecimal.valueOf(1), BigDecimal.valueOf(5)), decimalRange(BigDecimal.valueOf(3), BigDecimal.valueOf(7)))), Optional.of(new DoubleRange(1, 7)));
     }
 
+    @Test
+    public void testCalculateHistogram()
+    {
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of()), Optional.empty());
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of(rowsCountAndNullsCount(10, 1))), Optional.empty());
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of(histogram(100, 0, 5, 10))), Optional.of(Histogram.fromQuantiles(ImmutableList.of(0.0, 5.0, 10.0))));
+        // empty partitions do not matter
+        assertEquals(
+                calculateHistogram(COLUMN, ImmutableList.of(histogram(100, 0, 5, 10), rowsCountAndNullsCount(0, 0))),
+                Optional.of(Histogram.fromQuantiles(ImmutableList.of(0.0, 5.0, 10.0))));
+        // a partition without a histogram
+        assertEquals(calculateHistogram(COLUMN, ImmutableList.of(histogram(100, 0, 5, 10), rowsCountAndNullsCount(10, 1))), Optional.empty());
+        assertEquals(
+                calculateHistogram(COLUMN, ImmutableList.of(histogram(100, 0, 5, 10), histogram(100, 20, 25, 30))),
+                Optional.of(Histogram.fromQuantiles(ImmutableList.of(0.0, 10.0, 30.0))));
+        // a value spanning a whole partition becomes a most common value
+        assertEquals(
+                calculateHistogram(COLUMN, ImmutableList.of(histogram(300, 1, 1, 1), histogram(100, 0, 2.5, 5, 7.5, 10))),
+                Optional.of(Histogram.fromQuantiles(ImmutableList.of(0.0, 1.0, 1.0, 1.0, 10.0))));
+    }
+
     @Test
     public void testGetTableStatistics()
     {
@@ -790,6 +814,16 @@ public class TestMetastoreHiveStatisticsProvider
                 ImmutableMap.of(COLUMN, HiveColumnStatistics.builder().setTotalSizeInBytes(dataSize).build()));
     }
 
+    private static PartitionStatistics histogram(long rowsCount, double... quantiles)
+    {
+        return new PartitionStatistics(
+                new HiveBasicStatistics(0, rowsCount, 0, 0),
+                ImmutableMap.of(COLUMN, HiveColumnStatistics.builder()
+                        .setNullsCount(0)
+                        .setHistogram(Histogram.fromQuantiles(Doubles.asList(quantiles)))
+                        .build()));
+    }
+
     private static HiveColumnStatistics distinctValuesCount(long count)
     {
         return HiveColumnStatistics.builder()
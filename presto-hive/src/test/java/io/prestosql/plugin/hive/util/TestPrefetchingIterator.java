@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.plugin.hive.util;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.PrestoException;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executor;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static java.util.stream.IntStream.range;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestPrefetchingIterator
+{
+    @Test
+    public void testDirectExecutor()
+    {
+        List<Integer> loaded = new ArrayList<>();
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(batches(3, loaded).iterator(), directExecutor());
+
+        assertEquals(ImmutableList.copyOf(iterator), ImmutableList.of(0, 1, 10, 11, 20, 21));
+        assertEquals(loaded, ImmutableList.of(0, 1, 2));
+    }
+
+    @Test
+    public void testLoadsOneBatchAhead()
+    {
+        List<Integer> loaded = new ArrayList<>();
+        List<Runnable> submitted = new ArrayList<>();
+        Executor executor = submitted::add;
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(batches(3, loaded).iterator(), executor);
+
+        // nothing is loaded before the first element is requested
+        assertEquals(loaded, ImmutableList.of());
+        assertEquals(submitted.size(), 0);
+
+        assertEquals(iterator.next(), (Integer) 0);
+        assertEquals(loaded, ImmutableList.of(0));
+        assertEquals(submitted.size(), 1);
+
+        // the executor loads the second batch
+        submitted.get(0).run();
+        assertEquals(loaded, ImmutableList.of(0, 1));
+        assertEquals(iterator.next(), (Integer) 1);
+        assertEquals(iterator.next(), (Integer) 10);
+        assertEquals(loaded, ImmutableList.of(0, 1));
+        assertEquals(submitted.size(), 2);
+
+        // the executor never runs the third batch, so the iterator loads it itself
+        assertEquals(iterator.next(), (Integer) 11);
+        assertEquals(iterator.next(), (Integer) 20);
+        assertEquals(loaded, ImmutableList.of(0, 1, 2));
+        assertEquals(iterator.next(), (Integer) 21);
+        assertFalse(iterator.hasNext());
+
+        // a task that was already run by the iterator does nothing
+        submitted.get(1).run();
+        assertEquals(loaded, ImmutableList.of(0, 1, 2));
+    }
+
+    @Test
+    public void testEmpty()
+    {
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(batches(0, new ArrayList<>()).iterator(), directExecutor());
+        assertFalse(iterator.hasNext());
+    }
+
+    @Test
+    public void testFailure()
+    {
+        List<Callable<List<Integer>>> batches = ImmutableList.of(
+                () -> ImmutableList.of(1),
+                () -> {
+                    throw new PrestoException(GENERIC_INTERNAL_ERROR, "load failed");
+                });
+        PrefetchingIterator<Integer> iterator = new PrefetchingIterator<>(batches.iterator(), directExecutor());
+
+        assertEquals(iterator.next(), (Integer) 1);
+        assertThatThrownBy(iterator::next)
+                .isInstanceOf(PrestoException.class)
+                .hasMessage("load failed");
+    }
+
+    private static List<Callable<List<Integer>>> batches(int count, List<Integer> loaded)
+    {
+        return range(0, count)
+                .mapToObj(batch -> (Callable<List<Integer>>) () -> {
+                    loaded.add(batch);
+                    return ImmutableList.of(batch * 10, batch * 10 + 1);
+                })
+                .collect(toImmutableList());
+    }
+}
@@ -18,6 +18,7 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.prestosql.execution.QueryManagerConfig;
 import io.prestosql.execution.TaskManagerConfig;
+import io.prestosql.execution.buffer.CompressionCodec;
 import io.prestosql.memory.MemoryManagerConfig;
 import io.prestosql.memory.NodeMemoryConfig;
 import io.prestosql.spi.PrestoException;
@@ -61,6 +62,7 @@ public final class SystemSessionProperties
     public static final String PREFER_STREAMING_OPERATORS = "prefer_streaming_operators";
     public static final String TASK_WRITER_COUNT = "task_writer_count";
     public static final String TASK_CONCURRENCY = "task_concurrency";
+    public static final String TASK_HASH_BUILD_CONCURRENCY = "task_hash_build_concurrency";
     public static final String TASK_SHARE_INDEX_LOADING = "task_share_index_loading";
     public static final String QUERY_MAX_MEMORY = "query_max_memory";
     public static final String QUERY_MAX_TOTAL_MEMORY = "query_max_total_memory";
@@ -69,6 +71,15 @@ public final class SystemSessionProperties
     public static final String RESOURCE_OVERCOMMIT = "resource_overcommit";
     public static final String QUERY_MAX_CPU_TIME = "query_max_cpu_time";
     public static final String QUERY_MAX_STAGE_COUNT = "query_max_stage_count";
+    public static final String FAULT_TOLERANT_EXECUTION = "fault_tolerant_execution";
+    public static final String TASK_RETRY_ATTEMPTS = "task_retry_attempts";
+    public static final String ADAPTIVE_PARTITION_COUNT = "adaptive_partition_count";
+    public static final String ADAPTIVE_TARGET_PARTITION_SIZE = "adaptive_target_partition_size";
+    public static final String ADAPTIVE_SKEWED_PARTITION_SPLITTING = "adaptive_skewed_partition_splitting";
+    public static final String ADAPTIVE_SKEWED_PARTITION_FACTOR = "adaptive_skewed_partition_factor";
+    public static final String QUERY_RESULT_CACHE_ENABLED = "query_result_cache_enabled";
+    public static final String FRAGMENT_RESULT_CACHE_ENABLED = "fragment_result_cache_enabled";
+    public static final String PLAN_CACHE_ENABLED = "plan_cache_enabled";
     public static final String REDISTRIBUTE_WRITES = "redistribute_writes";
     public static final String SCALE_WRITERS = "scale_writers";
     public static final String WRITER_MIN_SIZE = "writer_min_size";
@@ -83,6 +94,7 @@ public final class SystemSessionProperties
     public static final String REORDER_JOINS = "reorder_joins";
     public static final String JOIN_REORDERING_STRATEGY = "join_reordering_strategy";
     public static final String MAX_REORDERED_JOINS = "max_reordered_joins";
+    public static final String JOIN_ENUMERATION_MAX_SUBGRAPHS = "join_enumeration_max_subgraphs";
     public static final String INITIAL_SPLITS_PER_NODE = "initial_splits_per_node";
     public static final String SPLIT_CONCURRENCY_ADJUSTMENT_INTERVAL = "split_concurrency_adjustment_interval";
     public static final String OPTIMIZE_METADATA_QUERIES = "optimize_metadata_queries";
@@ -97,6 +109,7 @@ public final class SystemSessionProperties
     public static final String ITERATIVE_OPTIMIZER_TIMEOUT = "iterative_optimizer_timeout";
     public static final String ENABLE_FORCED_EXCHANGE_BELOW_GROUP_ID = "enable_forced_exchange_below_group_id";
     public static final String EXCHANGE_COMPRESSION = "exchange_compression";
+    public static final String EXCHANGE_COMPRESSION_CODEC = "exchange_compression_codec";
     public static final String LEGACY_TIMESTAMP = "legacy_timestamp";
     public static final String ENABLE_INTERMEDIATE_AGGREGATIONS = "enable_intermediate_aggregations";
     public static final String PUSH_AGGREGATION_THROUGH_JOIN = "push_aggregation_through_join";
@@ -106,6 +119,7 @@ public final class SystemSessionProperties
     public static final String FILTER_AND_PROJECT_MIN_OUTPUT_PAGE_SIZE = "filter_and_project_min_output_page_size";
     public static final String FILTER_AND_PROJECT_MIN_OUTPUT_PAGE_ROW_COUNT = "filter_and_project_min_output_page_row_count";
     public static final String DISTRIBUTED_SORT = "distributed_sort";
+    public static final String MERGE_JOIN_ENABLED = "merge_join_enabled";
     public static final String USE_MARK_DISTINCT = "use_mark_distinct";
     public static final String PREFER_PARTIAL_AGGREGATION = "prefer_partial_aggregation";
     public static final String OPTIMIZE_TOP_N_ROW_NUMBER = "optimize_top_n_row_number";
@@ -117,6 +131,8 @@ public final class SystemSessionProperties
     public static final String DEFAULT_FILTER_FACTOR_ENABLED = "default_filter_factor_enabled";
     public static final String UNWRAP_CASTS = "unwrap_casts";
     public static final String SKIP_REDUNDANT_SORT = "skip_redundant_sort";
+    public static final String MATERIALIZED_VIEW_REWRITE_ENABLED = "materialized_view_rewrite_enabled";
+    public static final String SHARE_TABLE_SCANS_IN_UNION = "share_table_scans_in_union";
     public static final String WORK_PROCESSOR_PIPELINES = "work_processor_pipelines";
     public static final String ENABLE_DYNAMIC_FILTERING = "enable_dynamic_filtering";
     public static final String QUERY_MAX_MEMORY_PER_NODE = "query_max_memory_per_node";
@@ -224,6 +240,15 @@ public final class SystemSessionProperties
                         false,
                         value -> validateValueIsPowerOfTwo(value, TASK_CONCURRENCY),
                         value -> value),
+                new PropertyMetadata<>(
+                        TASK_HASH_BUILD_CONCURRENCY,
+                        "Number of hash table partitions built in parallel per join, defaults to task_concurrency",
+                        BIGINT,
+                        Integer.class,
+                        taskManagerConfig.getHashBuildConcurrency(),
+                        false,
+                        value -> value == null ? null : validateValueIsPowerOfTwo(value, TASK_HASH_BUILD_CONCURRENCY),
+                        value -> value),
                 booleanProperty(
                         TASK_SHARE_INDEX_LOADING,
                         "Share index join lookups and caching within a task",
@@ -264,6 +289,59 @@ public final class SystemSessionProperties
                         "Temporary: Maximum number of stages a query can have",
                         queryManagerConfig.getMaxStageCount(),
                         true),
+                booleanProperty(
+                        FAULT_TOLERANT_EXECUTION,
+                        "Spool the output of tasks and retry failed tasks on other nodes",
+                        queryManagerConfig.isFaultTolerantExecutionEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        TASK_RETRY_ATTEMPTS,
+                        "Maximum number of times a failed task is retried in fault-tolerant execution",
+                        INTEGER,
+                        Integer.class,
+                        queryManagerConfig.getTaskRetryAttempts(),
+                        false,
+                        value -> validateIntegerValue(value, TASK_RETRY_ATTEMPTS, 0, false),
+                        object -> object),
+                booleanProperty(
+                        ADAPTIVE_PARTITION_COUNT,
+                        "Choose the number of tasks of hash partitioned stages from the actual size of their input in fault-tolerant execution",
+                        queryManagerConfig.isAdaptivePartitionCountEnabled(),
+                        false),
+                dataSizeProperty(
+                        ADAPTIVE_TARGET_PARTITION_SIZE,
+                        "Amount of input each task of a stage with an adaptive partition count should read",
+                        queryManagerConfig.getAdaptiveTargetPartitionSize(),
+                        false),
+                booleanProperty(
+                        ADAPTIVE_SKEWED_PARTITION_SPLITTING,
+                        "Split skewed probe partitions of partitioned joins across several tasks in stages with an adaptive partition count",
+                        queryManagerConfig.isAdaptiveSkewedPartitionSplittingEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        ADAPTIVE_SKEWED_PARTITION_FACTOR,
+                        "A partition is skewed when it is larger than the target partition size and this many times larger than the median partition",
+                        INTEGER,
+                        Integer.class,
+                        queryManagerConfig.getAdaptiveSkewedPartitionFactor(),
+                        false,
+                        value -> validateIntegerValue(value, ADAPTIVE_SKEWED_PARTITION_FACTOR, 1, false),
+                        object -> object),
+                booleanProperty(
+                        QUERY_RESULT_CACHE_ENABLED,
+                        "Serve the results of repeated queries over unchanged tables from the coordinator result cache",
+                        queryManagerConfig.isResultCacheEnabled(),
+                        false),
+                booleanProperty(
+                        FRAGMENT_RESULT_CACHE_ENABLED,
+                        "Reuse the output of leaf plan fragments cached per split on workers",
+                        taskManagerConfig.isFragmentResultCacheEnabled(),
+                        false),
+                booleanProperty(
+                        PLAN_CACHE_ENABLED,
+                        "Reuse the optimized plans of repeated statements over unchanged tables",
+                        queryManagerConfig.isPlanCacheEnabled(),
+                        false),
                 booleanProperty(
                         DICTIONARY_AGGREGATION,
                         "Enable optimization for aggregations on dictionaries",
@@ -320,6 +398,11 @@ public final class SystemSessionProperties
                             return intValue;
                         },
                         value -> value),
+                integerProperty(
+                        JOIN_ENUMERATION_MAX_SUBGRAPHS,
+                        "Join orders of join graphs with more connected subgraphs than this are chosen greedily instead of exhaustively",
+                        featuresConfig.getJoinEnumerationMaxSubgraphs(),
+                        false),
                 booleanProperty(
                         FAST_INEQUALITY_JOINS,
                         "Use faster handling of inequality join if it is possible",
@@ -402,6 +485,12 @@ public final class SystemSessionProperties
                         "Enable compression in exchanges",
                         featuresConfig.isExchangeCompressionEnabled(),
                         false),
+                enumProperty(
+                        EXCHANGE_COMPRESSION_CODEC,
+                        "Compression codec used in exchanges when compression is enabled",
+                        CompressionCodec.class,
+                        featuresConfig.getExchangeCompressionCodec(),
+                        false),
                 booleanProperty(
                         LEGACY_TIMESTAMP,
                         "Use legacy TIME & TIMESTAMP semantics (warning: this will be removed)",
@@ -447,6 +536,11 @@ public final class SystemSessionProperties
                         "Parallelize sort across multiple nodes",
                         featuresConfig.isDistributedSortEnabled(),
                         false),
+                booleanProperty(
+                        MERGE_JOIN_ENABLED,
+                        "Use sort-merge join when both join inputs are already sorted on the join keys",
+                        featuresConfig.isMergeJoinEnabled(),
+                        false),
                 booleanProperty(
                         USE_MARK_DISTINCT,
                         "Implement DISTINCT aggregations using MarkDistinct",
@@ -506,6 +600,16 @@ public final class SystemSessionProperties
                         "Skip redundant sort operations",
                         featuresConfig.isSkipRedundantSort(),
                         false),
+                booleanProperty(
+                        MATERIALIZED_VIEW_REWRITE_ENABLED,
+                        "Answer queries from fresh materialized views that store the same rows",
+                        featuresConfig.isMaterializedViewRewriteEnabled(),
+                        false),
+                booleanProperty(
+                        SHARE_TABLE_SCANS_IN_UNION,
+                        "Read a table once for all branches of a UNION ALL that scan it",
+                        featuresConfig.isShareTableScansInUnion(),
+                        false),
                 booleanProperty(
                         WORK_PROCESSOR_PIPELINES,
                         "Experimental: Use WorkProcessor pipelines",
@@ -618,6 +722,15 @@ public final class SystemSessionProperties
         return session.getSystemProperty(TASK_CONCURRENCY, Integer.class);
     }
 
+    public static int getTaskHashBuildConcurrency(Session session)
+    {
+        Integer value = session.getSystemProperty(TASK_HASH_BUILD_CONCURRENCY, Integer.class);
+        if (value == null) {
+            return getTaskConcurrency(session);
+        }
+        return value;
+    }
+
     public static boolean isShareIndexLoading(Session session)
     {
         return session.getSystemProperty(TASK_SHARE_INDEX_LOADING, Boolean.class);
@@ -663,6 +776,51 @@ public final class SystemSessionProperties
         return session.getSystemProperty(QUERY_MAX_STAGE_COUNT, Integer.class);
     }
 
+    public static boolean isFaultTolerantExecutionEnabled(Session session)
+    {
+        return session.getSystemProperty(FAULT_TOLERANT_EXECUTION, Boolean.class);
+    }
+
+    public static int getTaskRetryAttempts(Session session)
+    {
+        return session.getSystemProperty(TASK_RETRY_ATTEMPTS, Integer.class);
+    }
+
+    public static boolean isAdaptivePartitionCountEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTITION_COUNT, Boolean.class);
+    }
+
+    public static DataSize getAdaptiveTargetPartitionSize(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_TARGET_PARTITION_SIZE, DataSize.class);
+    }
+
+    public static boolean isAdaptiveSkewedPartitionSplittingEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_SKEWED_PARTITION_SPLITTING, Boolean.class);
+    }
+
+    public static int getAdaptiveSkewedPartitionFactor(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_SKEWED_PARTITION_FACTOR, Integer.class);
+    }
+
+    public static boolean isQueryResultCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(QUERY_RESULT_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isFragmentResultCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(FRAGMENT_RESULT_CACHE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isPlanCacheEnabled(Session session)
+    {
+        return session.getSystemProperty(PLAN_CACHE_ENABLED, Boolean.class);
+    }
+
     public static boolean planWithTableNodePartitioning(Session session)
     {
         return session.getSystemProperty(PLAN_WITH_TABLE_NODE_PARTITIONING, Boolean.class);
@@ -690,6 +848,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(MAX_REORDERED_JOINS, Integer.class);
     }
 
+    public static int getJoinEnumerationMaxSubgraphs(Session session)
+    {
+        return session.getSystemProperty(JOIN_ENUMERATION_MAX_SUBGRAPHS, Integer.class);
+    }
+
     public static boolean isColocatedJoinEnabled(Session session)
     {
         return session.getSystemProperty(COLOCATED_JOIN, Boolean.class);
@@ -789,6 +952,14 @@ public final class SystemSessionProperties
         return session.getSystemProperty(EXCHANGE_COMPRESSION, Boolean.class);
     }
 
+    public static CompressionCodec getExchangeCompressionCodec(Session session)
+    {
+        if (!isExchangeCompressionEnabled(session)) {
+            return CompressionCodec.NONE;
+        }
+        return session.getSystemProperty(EXCHANGE_COMPRESSION_CODEC, CompressionCodec.class);
+    }
+
     public static boolean isEnableIntermediateAggregations(Session session)
     {
         return session.getSystemProperty(ENABLE_INTERMEDIATE_AGGREGATIONS, Boolean.class);
@@ -844,6 +1015,11 @@ public final class SystemSessionProperties
         return session.getSystemProperty(DISTRIBUTED_SORT, Boolean.class);
     }
 
+    public static boolean isMergeJoinEnabled(Session session)
+    {
+        return session.getSystemProperty(MERGE_JOIN_ENABLED, Boolean.class);
+    }
+
     public static int getMaxGroupingSets(Session session)
     {
         return session.getSystemProperty(MAX_GROUPING_SETS, Integer.class);
@@ -921,6 +1097,16 @@ public final class SystemSessionProperties
         return session.getSystemProperty(SKIP_REDUNDANT_SORT, Boolean.class);
     }
 
+    public static boolean isMaterializedViewRewriteEnabled(Session session)
+    {
+        return session.getSystemProperty(MATERIALIZED_VIEW_REWRITE_ENABLED, Boolean.class);
+    }
+
+    public static boolean isShareTableScansInUnion(Session session)
+    {
+        return session.getSystemProperty(SHARE_TABLE_SCANS_IN_UNION, Boolean.class);
+    }
+
     public static boolean isWorkProcessorPipelines(Session session)
     {
         return session.getSystemProperty(WORK_PROCESSOR_PIPELINES, Boolean.class);
@@ -68,12 +68,12 @@ public class AggregationStatsRule
         PlanNodeStatsEstimate.Builder result = PlanNodeStatsEstimate.builder();
         for (Symbol groupBySymbol : groupBySymbols) {
             SymbolStatsEstimate symbolStatistics = sourceStats.getSymbolStatistics(groupBySymbol);
-            result.addSymbolStatistics(groupBySymbol, symbolStatistics.mapNullsFraction(nullsFraction -> {
-                if (nullsFraction == 0.0) {
-                    return 0.0;
-                }
-                return 1.0 / (symbolStatistics.getDistinctValuesCount() + 1);
-            }));
+            double nullsFraction = symbolStatistics.getNullsFraction();
+            result.addSymbolStatistics(groupBySymbol, SymbolStatsEstimate.buildFrom(symbolStatistics)
+                    .setNullsFraction(nullsFraction == 0.0 ? 0.0 : 1.0 / (symbolStatistics.getDistinctValuesCount() + 1))
+                    // every group holds a single value, so the distribution of rows is gone
+                    .setHistogram(Optional.empty())
+                    .build());
         }
 
         double rowsCount = 1;
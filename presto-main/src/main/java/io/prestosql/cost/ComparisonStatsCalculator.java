@@ -13,11 +13,14 @@
  */
 package io.prestosql.cost;
 
+import io.prestosql.spi.statistics.Histogram;
 import io.prestosql.sql.planner.Symbol;
 import io.prestosql.sql.tree.ComparisonExpression;
 
+import java.util.LinkedHashSet;
 import java.util.Optional;
 import java.util.OptionalDouble;
+import java.util.Set;
 
 import static io.prestosql.cost.SymbolStatsEstimate.buildFrom;
 import static io.prestosql.util.MoreMath.firstNonNaN;
@@ -191,7 +194,8 @@ public final class ComparisonStatsCalculator
         double nullsFilterFactor = (1 - leftExpressionStatistics.getNullsFraction()) * (1 - rightExpressionStatistics.getNullsFraction());
         double leftNdv = leftExpressionRange.getDistinctValuesCount();
         double rightNdv = rightExpressionRange.getDistinctValuesCount();
-        double filterFactor = 1.0 / max(leftNdv, rightNdv, 1);
+        double filterFactor = estimateEqualityFilterFactor(leftExpressionRange, rightExpressionRange)
+                .orElse(1.0 / max(leftNdv, rightNdv, 1));
         double retainedNdv = min(leftNdv, rightNdv);
 
         PlanNodeStatsEstimate.Builder estimate = PlanNodeStatsEstimate.buildFrom(inputStatistics)
@@ -242,6 +246,47 @@ public final class ComparisonStatsCalculator
         return result.build();
     }
 
+    private static OptionalDouble estimateEqualityFilterFactor(StatisticRange leftRange, StatisticRange rightRange)
+    {
+        if (!leftRange.getHistogram().isPresent() || !rightRange.getHistogram().isPresent()) {
+            return OptionalDouble.empty();
+        }
+
+        // most common values of either side are matched one by one, the remaining values are assumed to match uniformly
+        Set<Double> commonValues = new LinkedHashSet<>();
+        addMostCommonValues(leftRange, commonValues);
+        addMostCommonValues(rightRange, commonValues);
+
+        double filterFactor = 0;
+        double leftMatchedFraction = 0;
+        double rightMatchedFraction = 0;
+        for (double value : commonValues) {
+            OptionalDouble leftFraction = leftRange.getValueFraction(value);
+            OptionalDouble rightFraction = rightRange.getValueFraction(value);
+            if (!leftFraction.isPresent() || !rightFraction.isPresent()) {
+                return OptionalDouble.empty();
+            }
+            filterFactor += leftFraction.getAsDouble() * rightFraction.getAsDouble();
+            leftMatchedFraction += leftFraction.getAsDouble();
+            rightMatchedFraction += rightFraction.getAsDouble();
+        }
+
+        double leftRemainingNdv = leftRange.getDistinctValuesCount() - commonValues.size();
+        double rightRemainingNdv = rightRange.getDistinctValuesCount() - commonValues.size();
+        double remainingFilterFactor = max(1 - leftMatchedFraction, 0) * max(1 - rightMatchedFraction, 0) / max(leftRemainingNdv, rightRemainingNdv, 1);
+        return OptionalDouble.of(min(filterFactor + remainingFilterFactor, 1));
+    }
+
+    private static void addMostCommonValues(StatisticRange range, Set<Double> values)
+    {
+        Histogram histogram = range.getHistogram().get();
+        for (double value : histogram.getMostCommonValues()) {
+            if (range.getLow() <= value && value <= range.getHigh()) {
+                values.add(value);
+            }
+        }
+    }
+
     private static double averageExcludingNaNs(double first, double second)
     {
         if (isNaN(first) && isNaN(second)) {
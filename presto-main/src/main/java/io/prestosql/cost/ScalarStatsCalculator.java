@@ -46,6 +46,7 @@ import io.prestosql.sql.tree.SymbolReference;
 import javax.inject.Inject;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.OptionalDouble;
 
 import static io.prestosql.cost.StatsUtil.toStatsRepresentation;
@@ -220,6 +221,7 @@ public class ScalarStatsCalculator
                     return SymbolStatsEstimate.buildFrom(stats)
                             .setLowValue(-stats.getHighValue())
                             .setHighValue(-stats.getLowValue())
+                            .setHistogram(Optional.empty())
                             .build();
                 default:
                     throw new IllegalStateException("Unexpected sign: " + node.getSign());
@@ -13,7 +13,11 @@
  */
 package io.prestosql.cost;
 
+import io.prestosql.spi.statistics.Histogram;
+
 import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalDouble;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
@@ -43,7 +47,17 @@ public class StatisticRange
 
     private final double distinctValues;
 
+    /**
+     * Distribution of the values. It may describe a wider range, in which case only its part within [{@code low}, {@code high}] is used.
+     */
+    private final Optional<Histogram> histogram;
+
     public StatisticRange(double low, double high, double distinctValues)
+    {
+        this(low, high, distinctValues, Optional.empty());
+    }
+
+    public StatisticRange(double low, double high, double distinctValues, Optional<Histogram> histogram)
     {
         checkArgument(
                 low <= high || (isNaN(low) && isNaN(high)),
@@ -55,6 +69,7 @@ public class StatisticRange
 
         checkArgument(distinctValues >= 0 || isNaN(distinctValues), "Distinct values count should be non-negative, got: %s", distinctValues);
         this.distinctValues = distinctValues;
+        this.histogram = requireNonNull(histogram, "histogram is null");
     }
 
     public static StatisticRange empty()
@@ -64,7 +79,7 @@ public class StatisticRange
 
     public static StatisticRange from(SymbolStatsEstimate estimate)
     {
-        return new StatisticRange(estimate.getLowValue(), estimate.getHighValue(), estimate.getDistinctValuesCount());
+        return new StatisticRange(estimate.getLowValue(), estimate.getHighValue(), estimate.getDistinctValuesCount(), estimate.getHistogram());
     }
 
     public double getLow()
@@ -82,6 +97,11 @@ public class StatisticRange
         return distinctValues;
     }
 
+    public Optional<Histogram> getHistogram()
+    {
+        return histogram;
+    }
+
     public double length()
     {
         return high - low;
@@ -92,7 +112,15 @@ public class StatisticRange
         return isNaN(low) && isNaN(high);
     }
 
+    /**
+     * Returns the fraction of the rows in this range that fall into {@code other}.
+     */
     public double overlapPercentWith(StatisticRange other)
+    {
+        return overlapPercentWith(other, true);
+    }
+
+    private double overlapPercentWith(StatisticRange other, boolean useHistogram)
     {
         requireNonNull(other, "other is null");
 
@@ -104,6 +132,13 @@ public class StatisticRange
             return 1.0;
         }
 
+        if (useHistogram) {
+            OptionalDouble histogramOverlap = histogramOverlapPercentWith(other);
+            if (histogramOverlap.isPresent()) {
+                return histogramOverlap.getAsDouble();
+            }
+        }
+
         double lengthOfIntersect = min(this.high, other.high) - max(this.low, other.low);
         if (isInfinite(lengthOfIntersect)) {
             if (isFinite(this.distinctValues) && isFinite(other.distinctValues)) {
@@ -127,10 +162,54 @@ public class StatisticRange
         return NaN;
     }
 
+    /**
+     * Returns the fraction of the values in this range that are equal to {@code value}, if it can be derived from the histogram.
+     */
+    public OptionalDouble getValueFraction(double value)
+    {
+        return histogramOverlapPercentWith(new StatisticRange(value, value, 1));
+    }
+
+    private OptionalDouble histogramOverlapPercentWith(StatisticRange other)
+    {
+        if (!histogram.isPresent() || isInfinite(length())) {
+            return OptionalDouble.empty();
+        }
+
+        double intersectLow = max(this.low, other.low);
+        double intersectHigh = min(this.high, other.high);
+        if (intersectLow > intersectHigh) {
+            return OptionalDouble.of(0);
+        }
+
+        Histogram histogram = this.histogram.get();
+        double fractionInRange = histogram.getFraction(low, high);
+        if (!(fractionInRange > 0)) {
+            return OptionalDouble.empty();
+        }
+
+        if (intersectLow < intersectHigh) {
+            return OptionalDouble.of(min(histogram.getFraction(intersectLow, intersectHigh) / fractionInRange, 1));
+        }
+
+        // a single value: most common values have a known fraction, the remaining values share what is left evenly
+        OptionalDouble mostCommonValueFraction = histogram.getMostCommonValueFraction(intersectLow);
+        if (mostCommonValueFraction.isPresent()) {
+            return OptionalDouble.of(min(mostCommonValueFraction.getAsDouble() / fractionInRange, 1));
+        }
+        if (isNaN(distinctValues)) {
+            return OptionalDouble.empty();
+        }
+        double otherValuesFraction = max(fractionInRange - histogram.getMostCommonValuesFraction(low, high), 0);
+        double otherDistinctValues = max(distinctValues - histogram.getMostCommonValuesCount(low, high), 1);
+        return OptionalDouble.of(otherValuesFraction / fractionInRange / otherDistinctValues);
+    }
+
     private double overlappingDistinctValues(StatisticRange other)
     {
-        double overlapPercentOfLeft = overlapPercentWith(other);
-        double overlapPercentOfRight = other.overlapPercentWith(this);
+        // the histogram tells how rows are distributed, not how distinct values are
+        double overlapPercentOfLeft = overlapPercentWith(other, false);
+        double overlapPercentOfRight = other.overlapPercentWith(this, false);
         double overlapDistinctValuesLeft = overlapPercentOfLeft * distinctValues;
         double overlapDistinctValuesRight = overlapPercentOfRight * other.distinctValues;
         double minInputDistinctValues = minExcludeNaN(this.distinctValues, other.distinctValues);
@@ -144,11 +223,23 @@ public class StatisticRange
         double newLow = max(low, other.low);
         double newHigh = min(high, other.high);
         if (newLow <= newHigh) {
-            return new StatisticRange(newLow, newHigh, overlappingDistinctValues(other));
+            return new StatisticRange(newLow, newHigh, overlappingDistinctValues(other), intersectHistogram(other));
         }
         return empty();
     }
 
+    private Optional<Histogram> intersectHistogram(StatisticRange other)
+    {
+        // a histogram stays valid when the range is narrowed, but there is no single distribution of values present on both sides
+        if (!histogram.isPresent()) {
+            return other.histogram;
+        }
+        if (!other.histogram.isPresent()) {
+            return histogram;
+        }
+        return Optional.empty();
+    }
+
     public StatisticRange addAndSumDistinctValues(StatisticRange other)
     {
         double newDistinctValues = distinctValues + other.distinctValues;
@@ -163,8 +254,8 @@ public class StatisticRange
 
     public StatisticRange addAndCollapseDistinctValues(StatisticRange other)
     {
-        double overlapPercentOfThis = this.overlapPercentWith(other);
-        double overlapPercentOfOther = other.overlapPercentWith(this);
+        double overlapPercentOfThis = this.overlapPercentWith(other, false);
+        double overlapPercentOfOther = other.overlapPercentWith(this, false);
         double overlapDistinctValuesThis = overlapPercentOfThis * distinctValues;
         double overlapDistinctValuesOther = overlapPercentOfOther * other.distinctValues;
         double maxOverlappingValues = max(overlapDistinctValuesThis, overlapDistinctValuesOther);
@@ -207,13 +298,14 @@ public class StatisticRange
         StatisticRange that = (StatisticRange) o;
         return Double.compare(that.low, low) == 0 &&
                 Double.compare(that.high, high) == 0 &&
-                Double.compare(that.distinctValues, distinctValues) == 0;
+                Double.compare(that.distinctValues, distinctValues) == 0 &&
+                Objects.equals(histogram, that.histogram);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(low, high, distinctValues);
+        return Objects.hash(low, high, distinctValues, histogram);
     }
 
     @Override
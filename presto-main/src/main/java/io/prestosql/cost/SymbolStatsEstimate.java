@@ -15,8 +15,10 @@ package io.prestosql.cost;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.prestosql.spi.statistics.Histogram;
 
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Function;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -27,6 +29,7 @@ import static java.lang.Double.POSITIVE_INFINITY;
 import static java.lang.Double.isInfinite;
 import static java.lang.Double.isNaN;
 import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
 
 public class SymbolStatsEstimate
 {
@@ -39,6 +42,8 @@ public class SymbolStatsEstimate
     private final double nullsFraction;
     private final double averageRowSize;
     private final double distinctValuesCount;
+    // distribution of the non-null values, valid within [lowValue, highValue]
+    private final Optional<Histogram> histogram;
 
     public static SymbolStatsEstimate unknown()
     {
@@ -50,13 +55,19 @@ public class SymbolStatsEstimate
         return ZERO;
     }
 
+    public SymbolStatsEstimate(double lowValue, double highValue, double nullsFraction, double averageRowSize, double distinctValuesCount)
+    {
+        this(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount, Optional.empty());
+    }
+
     @JsonCreator
     public SymbolStatsEstimate(
             @JsonProperty("lowValue") double lowValue,
             @JsonProperty("highValue") double highValue,
             @JsonProperty("nullsFraction") double nullsFraction,
             @JsonProperty("averageRowSize") double averageRowSize,
-            @JsonProperty("distinctValuesCount") double distinctValuesCount)
+            @JsonProperty("distinctValuesCount") double distinctValuesCount,
+            @JsonProperty("histogram") Optional<Histogram> histogram)
     {
         checkArgument(
                 lowValue <= highValue || (isNaN(lowValue) && isNaN(highValue)),
@@ -79,6 +90,8 @@ public class SymbolStatsEstimate
         checkArgument(distinctValuesCount >= 0 || isNaN(distinctValuesCount), "Distinct values count should be non-negative, got: %s", distinctValuesCount);
         // TODO normalize distinctValuesCount for an empty range (or validate it is already normalized)
         this.distinctValuesCount = distinctValuesCount;
+
+        this.histogram = requireNonNull(histogram, "histogram is null");
     }
 
     @JsonProperty
@@ -101,7 +114,7 @@ public class SymbolStatsEstimate
 
     public StatisticRange statisticRange()
     {
-        return new StatisticRange(lowValue, highValue, distinctValuesCount);
+        return new StatisticRange(lowValue, highValue, distinctValuesCount, histogram);
     }
 
     public double getValuesFraction()
@@ -121,6 +134,12 @@ public class SymbolStatsEstimate
         return distinctValuesCount;
     }
 
+    @JsonProperty
+    public Optional<Histogram> getHistogram()
+    {
+        return histogram;
+    }
+
     public SymbolStatsEstimate mapNullsFraction(Function<Double, Double> mappingFunction)
     {
         return buildFrom(this).setNullsFraction(mappingFunction.apply(nullsFraction)).build();
@@ -157,13 +176,14 @@ public class SymbolStatsEstimate
                 Double.compare(averageRowSize, that.averageRowSize) == 0 &&
                 Double.compare(distinctValuesCount, that.distinctValuesCount) == 0 &&
                 Double.compare(lowValue, that.lowValue) == 0 &&
-                Double.compare(highValue, that.highValue) == 0;
+                Double.compare(highValue, that.highValue) == 0 &&
+                Objects.equals(histogram, that.histogram);
     }
 
     @Override
     public int hashCode()
     {
-        return Objects.hash(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount);
+        return Objects.hash(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount, histogram);
     }
 
     @Override
@@ -174,6 +194,8 @@ public class SymbolStatsEstimate
                 .add("nulls", nullsFraction)
                 .add("ndv", distinctValuesCount)
                 .add("rowSize", averageRowSize)
+                .add("histogram", histogram.orElse(null))
+                .omitNullValues()
                 .toString();
     }
 
@@ -189,7 +211,8 @@ public class SymbolStatsEstimate
                 .setHighValue(other.getHighValue())
                 .setNullsFraction(other.getNullsFraction())
                 .setAverageRowSize(other.getAverageRowSize())
-                .setDistinctValuesCount(other.getDistinctValuesCount());
+                .setDistinctValuesCount(other.getDistinctValuesCount())
+                .setHistogram(other.getHistogram());
     }
 
     public static final class Builder
@@ -199,12 +222,14 @@ public class SymbolStatsEstimate
         private double nullsFraction = NaN;
         private double averageRowSize = NaN;
         private double distinctValuesCount = NaN;
+        private Optional<Histogram> histogram = Optional.empty();
 
         public Builder setStatisticsRange(StatisticRange range)
         {
             return setLowValue(range.getLow())
                     .setHighValue(range.getHigh())
-                    .setDistinctValuesCount(range.getDistinctValuesCount());
+                    .setDistinctValuesCount(range.getDistinctValuesCount())
+                    .setHistogram(range.getHistogram());
         }
 
         public Builder setLowValue(double lowValue)
@@ -237,9 +262,15 @@ public class SymbolStatsEstimate
             return this;
         }
 
+        public Builder setHistogram(Optional<Histogram> histogram)
+        {
+            this.histogram = requireNonNull(histogram, "histogram is null");
+            return this;
+        }
+
         public SymbolStatsEstimate build()
         {
-            return new SymbolStatsEstimate(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount);
+            return new SymbolStatsEstimate(lowValue, highValue, nullsFraction, averageRowSize, distinctValuesCount, histogram);
         }
     }
 }
@@ -283,6 +283,8 @@ public class FailedDispatchQuery
                 new DataSize(0, BYTE),
                 0,
                 new DataSize(0, BYTE),
+                false,
+                ImmutableList.of(),
                 ImmutableList.of(),
                 ImmutableList.of());
     }
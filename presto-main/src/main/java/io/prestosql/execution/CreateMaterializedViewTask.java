@@ -0,0 +1,147 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.Session;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.execution.warnings.WarningCollector;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.QualifiedObjectName;
+import io.prestosql.security.AccessControl;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.ColumnMetadata;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition;
+import io.prestosql.spi.connector.ConnectorTableMetadata;
+import io.prestosql.sql.analyzer.Analysis;
+import io.prestosql.sql.analyzer.Analyzer;
+import io.prestosql.sql.analyzer.Field;
+import io.prestosql.sql.parser.SqlParser;
+import io.prestosql.sql.tree.CreateMaterializedView;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.Statement;
+import io.prestosql.transaction.TransactionManager;
+
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.prestosql.metadata.MetadataUtil.createQualifiedObjectName;
+import static io.prestosql.spi.StandardErrorCode.ALREADY_EXISTS;
+import static io.prestosql.spi.StandardErrorCode.NOT_FOUND;
+import static io.prestosql.spi.StandardErrorCode.TABLE_ALREADY_EXISTS;
+import static io.prestosql.spi.connector.ConnectorViewDefinition.ViewColumn;
+import static io.prestosql.sql.NodeUtils.mapFromProperties;
+import static io.prestosql.sql.ParameterUtils.parameterExtractor;
+import static io.prestosql.sql.SqlFormatterUtil.getFormattedSql;
+import static io.prestosql.sql.analyzer.SemanticExceptions.semanticException;
+import static java.util.Objects.requireNonNull;
+
+public class CreateMaterializedViewTask
+        implements DataDefinitionTask<CreateMaterializedView>
+{
+    private final SqlParser sqlParser;
+
+    @Inject
+    public CreateMaterializedViewTask(SqlParser sqlParser)
+    {
+        this.sqlParser = requireNonNull(sqlParser, "sqlParser is null");
+    }
+
+    @Override
+    public String getName()
+    {
+        return "CREATE MATERIALIZED VIEW";
+    }
+
+    @Override
+    public String explain(CreateMaterializedView statement, List<Expression> parameters)
+    {
+        return "CREATE MATERIALIZED VIEW " + statement.getName();
+    }
+
+    @Override
+    public ListenableFuture<?> execute(CreateMaterializedView statement, TransactionManager transactionManager, Metadata metadata, AccessControl accessControl, QueryStateMachine stateMachine, List<Expression> parameters)
+    {
+        Session session = stateMachine.getSession();
+        QualifiedObjectName name = createQualifiedObjectName(session, statement, statement.getName());
+
+        if (metadata.getTableHandle(session, name).isPresent() || metadata.getView(session, name).isPresent()) {
+            if (!statement.isNotExists()) {
+                throw semanticException(TABLE_ALREADY_EXISTS, statement, "Materialized view '%s' already exists", name);
+            }
+            return immediateFuture(null);
+        }
+
+        CatalogName catalogName = metadata.getCatalogHandle(session, name.getCatalogName())
+                .orElseThrow(() -> new PrestoException(NOT_FOUND, "Catalog does not exist: " + name.getCatalogName()));
+
+        accessControl.checkCanCreateTable(session.toSecurityContext(), name);
+
+        String sql = getFormattedSql(statement.getQuery(), sqlParser);
+
+        Analysis analysis = analyzeStatement(statement, session, metadata, accessControl, parameters, stateMachine.getWarningCollector());
+
+        List<Field> fields = analysis.getOutputDescriptor(statement.getQuery()).getVisibleFields();
+
+        Map<String, Object> properties = metadata.getTablePropertyManager().getProperties(
+                catalogName,
+                name.getCatalogName(),
+                mapFromProperties(statement.getProperties()),
+                session,
+                metadata,
+                parameterExtractor(statement, parameters));
+
+        ConnectorTableMetadata tableMetadata = new ConnectorTableMetadata(
+                name.asSchemaTableName(),
+                fields.stream()
+                        .map(field -> new ColumnMetadata(field.getName().get(), field.getType()))
+                        .collect(toImmutableList()),
+                properties);
+
+        // the view is empty until its first refresh
+        ConnectorMaterializedViewDefinition definition = new ConnectorMaterializedViewDefinition(
+                sql,
+                session.getCatalog(),
+                session.getSchema(),
+                fields.stream()
+                        .map(field -> new ViewColumn(field.getName().get(), field.getType().getTypeId()))
+                        .collect(toImmutableList()),
+                Optional.of(session.getUser()),
+                Optional.empty(),
+                Optional.empty());
+
+        try {
+            metadata.createMaterializedView(session, name.getCatalogName(), tableMetadata, definition, statement.isNotExists());
+        }
+        catch (PrestoException e) {
+            // connectors are not required to handle the ignoreExisting flag
+            if (!e.getErrorCode().equals(ALREADY_EXISTS.toErrorCode()) || !statement.isNotExists()) {
+                throw e;
+            }
+        }
+
+        return immediateFuture(null);
+    }
+
+    private Analysis analyzeStatement(Statement statement, Session session, Metadata metadata, AccessControl accessControl, List<Expression> parameters, WarningCollector warningCollector)
+    {
+        Analyzer analyzer = new Analyzer(session, metadata, sqlParser, accessControl, Optional.empty(), parameters, parameterExtractor(statement, parameters), warningCollector);
+        return analyzer.analyze(statement);
+    }
+}
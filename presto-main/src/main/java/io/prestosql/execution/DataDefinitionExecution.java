@@ -21,6 +21,7 @@ import io.airlift.units.Duration;
 import io.prestosql.Session;
 import io.prestosql.execution.QueryPreparer.PreparedQuery;
 import io.prestosql.execution.StateMachine.StateChangeListener;
+import io.prestosql.execution.plancache.PlanCache;
 import io.prestosql.execution.warnings.WarningCollector;
 import io.prestosql.memory.VersionedMemoryPoolId;
 import io.prestosql.metadata.Metadata;
@@ -60,6 +61,7 @@ public class DataDefinitionExecution<T extends Statement>
     private final AccessControl accessControl;
     private final QueryStateMachine stateMachine;
     private final List<Expression> parameters;
+    private final PlanCache planCache;
 
     private DataDefinitionExecution(
             DataDefinitionTask<T> task,
@@ -69,7 +71,8 @@ public class DataDefinitionExecution<T extends Statement>
             Metadata metadata,
             AccessControl accessControl,
             QueryStateMachine stateMachine,
-            List<Expression> parameters)
+            List<Expression> parameters,
+            PlanCache planCache)
     {
         this.task = requireNonNull(task, "task is null");
         this.statement = requireNonNull(statement, "statement is null");
@@ -79,6 +82,7 @@ public class DataDefinitionExecution<T extends Statement>
         this.accessControl = requireNonNull(accessControl, "accessControl is null");
         this.stateMachine = requireNonNull(stateMachine, "stateMachine is null");
         this.parameters = parameters;
+        this.planCache = requireNonNull(planCache, "planCache is null");
     }
 
     @Override
@@ -171,6 +175,10 @@ public class DataDefinitionExecution<T extends Statement>
                 @Override
                 public void onSuccess(@Nullable Object result)
                 {
+                    if (!task.isSessionControl() && !task.isTransactionControl()) {
+                        // cached plans may refer to objects that were changed or dropped
+                        planCache.invalidateAll();
+                    }
                     stateMachine.transitionToFinishing();
                 }
 
@@ -283,18 +291,21 @@ public class DataDefinitionExecution<T extends Statement>
         private final Metadata metadata;
         private final AccessControl accessControl;
         private final Map<Class<? extends Statement>, DataDefinitionTask<?>> tasks;
+        private final PlanCache planCache;
 
         @Inject
         public DataDefinitionExecutionFactory(
                 TransactionManager transactionManager,
                 Metadata metadata,
                 AccessControl accessControl,
-                Map<Class<? extends Statement>, DataDefinitionTask<?>> tasks)
+                Map<Class<? extends Statement>, DataDefinitionTask<?>> tasks,
+                PlanCache planCache)
         {
             this.transactionManager = requireNonNull(transactionManager, "transactionManager is null");
             this.metadata = requireNonNull(metadata, "metadata is null");
             this.accessControl = requireNonNull(accessControl, "accessControl is null");
             this.tasks = requireNonNull(tasks, "tasks is null");
+            this.planCache = requireNonNull(planCache, "planCache is null");
         }
 
         @Override
@@ -318,7 +329,7 @@ public class DataDefinitionExecution<T extends Statement>
             checkArgument(task != null, "no task for statement: %s", statement.getClass().getSimpleName());
 
             stateMachine.setUpdateType(task.getName());
-            return new DataDefinitionExecution<>(task, statement, slug, transactionManager, metadata, accessControl, stateMachine, parameters);
+            return new DataDefinitionExecution<>(task, statement, slug, transactionManager, metadata, accessControl, stateMachine, parameters, planCache);
         }
     }
 }
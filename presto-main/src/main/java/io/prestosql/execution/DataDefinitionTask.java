@@ -48,4 +48,12 @@ public interface DataDefinitionTask<T extends Statement>
     {
         return false;
     }
+
+    /**
+     * Returns true if the task only changes the state of the session, and no catalog object.
+     */
+    default boolean isSessionControl()
+    {
+        return false;
+    }
 }
@@ -40,4 +40,10 @@ public class DeallocateTask
         stateMachine.removePreparedStatement(statementName);
         return immediateFuture(null);
     }
+
+    @Override
+    public boolean isSessionControl()
+    {
+        return true;
+    }
 }
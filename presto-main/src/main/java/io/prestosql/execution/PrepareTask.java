@@ -71,4 +71,10 @@ public class PrepareTask
         stateMachine.addPreparedStatement(prepare.getName().getValue(), sql);
         return immediateFuture(null);
     }
+
+    @Override
+    public boolean isSessionControl()
+    {
+        return true;
+    }
 }
@@ -21,6 +21,8 @@ import io.airlift.units.Duration;
 import io.prestosql.execution.QueryPreparer.PreparedQuery;
 import io.prestosql.execution.QueryTracker.TrackedQuery;
 import io.prestosql.execution.StateMachine.StateChangeListener;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.execution.resultcache.QueryResultCacheKey;
 import io.prestosql.execution.warnings.WarningCollector;
 import io.prestosql.memory.VersionedMemoryPoolId;
 import io.prestosql.server.BasicQueryInfo;
@@ -30,6 +32,7 @@ import io.prestosql.sql.planner.Plan;
 
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.function.Consumer;
 
@@ -96,13 +99,28 @@ public interface QueryExecution
         private final List<Type> columnTypes;
         private final Set<URI> bufferLocations;
         private final boolean noMoreBufferLocations;
+        private final List<SerializedPage> cachedPages;
+        private final Optional<QueryResultCacheKey> resultCacheKey;
 
         public QueryOutputInfo(List<String> columnNames, List<Type> columnTypes, Set<URI> bufferLocations, boolean noMoreBufferLocations)
+        {
+            this(columnNames, columnTypes, bufferLocations, noMoreBufferLocations, ImmutableList.of(), Optional.empty());
+        }
+
+        public QueryOutputInfo(
+                List<String> columnNames,
+                List<Type> columnTypes,
+                Set<URI> bufferLocations,
+                boolean noMoreBufferLocations,
+                List<SerializedPage> cachedPages,
+                Optional<QueryResultCacheKey> resultCacheKey)
         {
             this.columnNames = ImmutableList.copyOf(requireNonNull(columnNames, "columnNames is null"));
             this.columnTypes = ImmutableList.copyOf(requireNonNull(columnTypes, "columnTypes is null"));
             this.bufferLocations = ImmutableSet.copyOf(requireNonNull(bufferLocations, "bufferLocations is null"));
             this.noMoreBufferLocations = noMoreBufferLocations;
+            this.cachedPages = ImmutableList.copyOf(requireNonNull(cachedPages, "cachedPages is null"));
+            this.resultCacheKey = requireNonNull(resultCacheKey, "resultCacheKey is null");
         }
 
         public List<String> getColumnNames()
@@ -124,5 +142,21 @@ public interface QueryExecution
         {
             return noMoreBufferLocations;
         }
+
+        /**
+         * Output pages taken from the query result cache. A query answered from the cache has no buffer locations.
+         */
+        public List<SerializedPage> getCachedPages()
+        {
+            return cachedPages;
+        }
+
+        /**
+         * Key under which the output of the query should be added to the query result cache, if it is cacheable.
+         */
+        public Optional<QueryResultCacheKey> getResultCacheKey()
+        {
+            return resultCacheKey;
+        }
     }
 }
@@ -17,7 +17,9 @@ import io.airlift.configuration.Config;
 import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.DefunctConfig;
 import io.airlift.configuration.LegacyConfig;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.airlift.units.MinDataSize;
 import io.airlift.units.MinDuration;
 
 import javax.validation.constraints.Max;
@@ -26,6 +28,8 @@ import javax.validation.constraints.NotNull;
 
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
 @DefunctConfig({
         "query.max-pending-splits-per-node",
         "query.queue-config-file",
@@ -64,6 +68,23 @@ public class QueryManagerConfig
     private int requiredWorkers = 1;
     private Duration requiredWorkersMaxWait = new Duration(5, TimeUnit.MINUTES);
 
+    private boolean faultTolerantExecutionEnabled;
+    private int taskRetryAttempts = 4;
+    private boolean adaptivePartitionCountEnabled;
+    private DataSize adaptiveTargetPartitionSize = new DataSize(128, MEGABYTE);
+    private boolean adaptiveSkewedPartitionSplittingEnabled = true;
+    private int adaptiveSkewedPartitionFactor = 5;
+
+    private boolean resultCacheEnabled;
+    private DataSize resultCacheMaxSize = new DataSize(256, MEGABYTE);
+    private DataSize resultCacheMaxEntrySize = new DataSize(8, MEGABYTE);
+    private Duration resultCacheTtl = new Duration(5, TimeUnit.MINUTES);
+
+    private boolean planCacheEnabled;
+    private int planCacheMaxEntries = 1000;
+    private Duration planCacheTtl = new Duration(10, TimeUnit.MINUTES);
+    private Duration planCacheTableVersionCheckInterval = new Duration(10, TimeUnit.SECONDS);
+
     @Min(1)
     public int getScheduleSplitBatchSize()
     {
@@ -348,4 +369,198 @@ public class QueryManagerConfig
         this.requiredWorkersMaxWait = requiredWorkersMaxWait;
         return this;
     }
+
+    public boolean isFaultTolerantExecutionEnabled()
+    {
+        return faultTolerantExecutionEnabled;
+    }
+
+    @Config("query.fault-tolerant-execution-enabled")
+    @ConfigDescription("Spool the output of tasks to the spooling storage and retry failed tasks on other nodes")
+    public QueryManagerConfig setFaultTolerantExecutionEnabled(boolean faultTolerantExecutionEnabled)
+    {
+        this.faultTolerantExecutionEnabled = faultTolerantExecutionEnabled;
+        return this;
+    }
+
+    @Min(0)
+    public int getTaskRetryAttempts()
+    {
+        return taskRetryAttempts;
+    }
+
+    @Config("query.task-retry-attempts")
+    @ConfigDescription("Maximum number of times a failed task is retried in fault-tolerant execution")
+    public QueryManagerConfig setTaskRetryAttempts(int taskRetryAttempts)
+    {
+        this.taskRetryAttempts = taskRetryAttempts;
+        return this;
+    }
+
+    public boolean isAdaptivePartitionCountEnabled()
+    {
+        return adaptivePartitionCountEnabled;
+    }
+
+    @Config("query.adaptive-partition-count-enabled")
+    @ConfigDescription("Choose the number of tasks of hash partitioned stages from the actual size of their input in fault-tolerant execution")
+    public QueryManagerConfig setAdaptivePartitionCountEnabled(boolean adaptivePartitionCountEnabled)
+    {
+        this.adaptivePartitionCountEnabled = adaptivePartitionCountEnabled;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("1MB")
+    public DataSize getAdaptiveTargetPartitionSize()
+    {
+        return adaptiveTargetPartitionSize;
+    }
+
+    @Config("query.adaptive-target-partition-size")
+    @ConfigDescription("Amount of input each task of a stage with an adaptive partition count should read")
+    public QueryManagerConfig setAdaptiveTargetPartitionSize(DataSize adaptiveTargetPartitionSize)
+    {
+        this.adaptiveTargetPartitionSize = adaptiveTargetPartitionSize;
+        return this;
+    }
+
+    public boolean isAdaptiveSkewedPartitionSplittingEnabled()
+    {
+        return adaptiveSkewedPartitionSplittingEnabled;
+    }
+
+    @Config("query.adaptive-skewed-partition-splitting-enabled")
+    @ConfigDescription("Split skewed probe partitions of partitioned joins across several tasks in stages with an adaptive partition count")
+    public QueryManagerConfig setAdaptiveSkewedPartitionSplittingEnabled(boolean adaptiveSkewedPartitionSplittingEnabled)
+    {
+        this.adaptiveSkewedPartitionSplittingEnabled = adaptiveSkewedPartitionSplittingEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getAdaptiveSkewedPartitionFactor()
+    {
+        return adaptiveSkewedPartitionFactor;
+    }
+
+    @Config("query.adaptive-skewed-partition-factor")
+    @ConfigDescription("A partition is skewed when it is larger than the target partition size and this many times larger than the median partition")
+    public QueryManagerConfig setAdaptiveSkewedPartitionFactor(int adaptiveSkewedPartitionFactor)
+    {
+        this.adaptiveSkewedPartitionFactor = adaptiveSkewedPartitionFactor;
+        return this;
+    }
+
+    public boolean isResultCacheEnabled()
+    {
+        return resultCacheEnabled;
+    }
+
+    @Config("query.result-cache-enabled")
+    @ConfigDescription("Serve the results of repeated queries over unchanged tables from the coordinator result cache")
+    public QueryManagerConfig setResultCacheEnabled(boolean resultCacheEnabled)
+    {
+        this.resultCacheEnabled = resultCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getResultCacheMaxSize()
+    {
+        return resultCacheMaxSize;
+    }
+
+    @Config("query.result-cache-max-size")
+    @ConfigDescription("Maximum amount of coordinator memory used by cached query results")
+    public QueryManagerConfig setResultCacheMaxSize(DataSize resultCacheMaxSize)
+    {
+        this.resultCacheMaxSize = resultCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getResultCacheMaxEntrySize()
+    {
+        return resultCacheMaxEntrySize;
+    }
+
+    @Config("query.result-cache-max-entry-size")
+    @ConfigDescription("Results of queries producing more serialized output than this are not cached")
+    public QueryManagerConfig setResultCacheMaxEntrySize(DataSize resultCacheMaxEntrySize)
+    {
+        this.resultCacheMaxEntrySize = resultCacheMaxEntrySize;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getResultCacheTtl()
+    {
+        return resultCacheTtl;
+    }
+
+    @Config("query.result-cache-ttl")
+    @ConfigDescription("Time after which a cached query result is discarded, even if the tables it was computed from are unchanged")
+    public QueryManagerConfig setResultCacheTtl(Duration resultCacheTtl)
+    {
+        this.resultCacheTtl = resultCacheTtl;
+        return this;
+    }
+
+    public boolean isPlanCacheEnabled()
+    {
+        return planCacheEnabled;
+    }
+
+    @Config("query.plan-cache-enabled")
+    @ConfigDescription("Reuse the optimized plans of repeated statements over unchanged tables")
+    public QueryManagerConfig setPlanCacheEnabled(boolean planCacheEnabled)
+    {
+        this.planCacheEnabled = planCacheEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getPlanCacheMaxEntries()
+    {
+        return planCacheMaxEntries;
+    }
+
+    @Config("query.plan-cache-max-entries")
+    @ConfigDescription("Maximum number of optimized plans kept in the plan cache")
+    public QueryManagerConfig setPlanCacheMaxEntries(int planCacheMaxEntries)
+    {
+        this.planCacheMaxEntries = planCacheMaxEntries;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getPlanCacheTtl()
+    {
+        return planCacheTtl;
+    }
+
+    @Config("query.plan-cache-ttl")
+    @ConfigDescription("Time after which a cached plan is discarded, even if the tables it reads are unchanged")
+    public QueryManagerConfig setPlanCacheTtl(Duration planCacheTtl)
+    {
+        this.planCacheTtl = planCacheTtl;
+        return this;
+    }
+
+    @NotNull
+    public Duration getPlanCacheTableVersionCheckInterval()
+    {
+        return planCacheTableVersionCheckInterval;
+    }
+
+    @Config("query.plan-cache-table-version-check-interval")
+    @ConfigDescription("Time for which a cached plan is reused without checking the versions of the tables it scans again")
+    public QueryManagerConfig setPlanCacheTableVersionCheckInterval(Duration planCacheTableVersionCheckInterval)
+    {
+        this.planCacheTableVersionCheckInterval = planCacheTableVersionCheckInterval;
+        return this;
+    }
 }
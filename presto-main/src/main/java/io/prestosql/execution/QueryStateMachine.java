@@ -27,6 +27,9 @@ import io.airlift.units.Duration;
 import io.prestosql.Session;
 import io.prestosql.execution.QueryExecution.QueryOutputInfo;
 import io.prestosql.execution.StateMachine.StateChangeListener;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.execution.resultcache.CachedQueryResult;
+import io.prestosql.execution.resultcache.QueryResultCacheKey;
 import io.prestosql.execution.warnings.WarningCollector;
 import io.prestosql.memory.VersionedMemoryPoolId;
 import io.prestosql.metadata.Metadata;
@@ -43,6 +46,7 @@ import io.prestosql.spi.resourcegroups.ResourceGroupId;
 import io.prestosql.spi.security.SelectedRole;
 import io.prestosql.spi.type.Type;
 import io.prestosql.sql.planner.PlanFragment;
+import io.prestosql.sql.planner.iterative.RuleStatsSummary;
 import io.prestosql.sql.planner.plan.TableScanNode;
 import io.prestosql.transaction.TransactionId;
 import io.prestosql.transaction.TransactionManager;
@@ -142,6 +146,10 @@ public class QueryStateMachine
 
     private final AtomicReference<String> updateType = new AtomicReference<>();
 
+    private final AtomicBoolean resultCacheHit = new AtomicBoolean();
+
+    private final AtomicReference<List<RuleStatsSummary>> optimizerRuleStats = new AtomicReference<>(ImmutableList.of());
+
     private final AtomicReference<ExecutionFailureInfo> failureCause = new AtomicReference<>();
 
     private final AtomicReference<Set<Input>> inputs = new AtomicReference<>(ImmutableSet.of());
@@ -580,6 +588,10 @@ public class QueryStateMachine
 
                 succinctBytes(physicalWrittenDataSize),
 
+                resultCacheHit.get(),
+
+                optimizerRuleStats.get(),
+
                 stageGcStatistics.build(),
 
                 operatorStatsSummary.build());
@@ -610,6 +622,22 @@ public class QueryStateMachine
         outputManager.updateOutputLocations(newExchangeLocations, noMoreExchangeLocations);
     }
 
+    public void setResultCacheKey(QueryResultCacheKey resultCacheKey)
+    {
+        outputManager.setResultCacheKey(resultCacheKey);
+    }
+
+    public void setCachedResult(CachedQueryResult cachedResult)
+    {
+        resultCacheHit.set(true);
+        outputManager.setCachedResult(cachedResult.getColumnNames(), cachedResult.getColumnTypes(), cachedResult.getPages());
+    }
+
+    public void setOptimizerRuleStats(List<RuleStatsSummary> optimizerRuleStats)
+    {
+        this.optimizerRuleStats.set(ImmutableList.copyOf(requireNonNull(optimizerRuleStats, "optimizerRuleStats is null")));
+    }
+
     public void setInputs(List<Input> inputs)
     {
         requireNonNull(inputs, "inputs is null");
@@ -1059,6 +1087,8 @@ public class QueryStateMachine
                 queryStats.getOutputDataSize(),
                 queryStats.getOutputPositions(),
                 queryStats.getPhysicalWrittenDataSize(),
+                queryStats.isResultCacheHit(),
+                queryStats.getOptimizerRuleStats(),
                 queryStats.getStageGcStatistics(),
                 ImmutableList.of()); // Remove the operator summaries as OperatorInfo (especially ExchangeClientStatus) can hold onto a large amount of memory
     }
@@ -1078,6 +1108,10 @@ public class QueryStateMachine
         private final Set<URI> exchangeLocations = new LinkedHashSet<>();
         @GuardedBy("this")
         private boolean noMoreExchangeLocations;
+        @GuardedBy("this")
+        private List<SerializedPage> cachedPages = ImmutableList.of();
+        @GuardedBy("this")
+        private Optional<QueryResultCacheKey> resultCacheKey = Optional.empty();
 
         public QueryOutputManager(Executor executor)
         {
@@ -1135,12 +1169,42 @@ public class QueryStateMachine
             queryOutputInfo.ifPresent(info -> fireStateChanged(info, outputInfoListeners));
         }
 
+        public synchronized void setResultCacheKey(QueryResultCacheKey resultCacheKey)
+        {
+            requireNonNull(resultCacheKey, "resultCacheKey is null");
+            checkState(columnNames == null, "result cache key must be set before the output fields");
+            this.resultCacheKey = Optional.of(resultCacheKey);
+        }
+
+        public void setCachedResult(List<String> columnNames, List<Type> columnTypes, List<SerializedPage> cachedPages)
+        {
+            requireNonNull(columnNames, "columnNames is null");
+            requireNonNull(columnTypes, "columnTypes is null");
+            requireNonNull(cachedPages, "cachedPages is null");
+            checkArgument(columnNames.size() == columnTypes.size(), "columnNames and columnTypes must be the same size");
+
+            Optional<QueryOutputInfo> queryOutputInfo;
+            List<Consumer<QueryOutputInfo>> outputInfoListeners;
+            synchronized (this) {
+                checkState(this.columnNames == null && this.columnTypes == null, "output fields already set");
+                checkState(exchangeLocations.isEmpty(), "cached result set after output locations");
+                this.columnNames = ImmutableList.copyOf(columnNames);
+                this.columnTypes = ImmutableList.copyOf(columnTypes);
+                this.cachedPages = ImmutableList.copyOf(cachedPages);
+                this.noMoreExchangeLocations = true;
+
+                queryOutputInfo = getQueryOutputInfo();
+                outputInfoListeners = ImmutableList.copyOf(this.outputInfoListeners);
+            }
+            queryOutputInfo.ifPresent(info -> fireStateChanged(info, outputInfoListeners));
+        }
+
         private synchronized Optional<QueryOutputInfo> getQueryOutputInfo()
         {
             if (columnNames == null || columnTypes == null) {
                 return Optional.empty();
             }
-            return Optional.of(new QueryOutputInfo(columnNames, columnTypes, exchangeLocations, noMoreExchangeLocations));
+            return Optional.of(new QueryOutputInfo(columnNames, columnTypes, exchangeLocations, noMoreExchangeLocations, cachedPages, resultCacheKey));
         }
 
         private void fireStateChanged(QueryOutputInfo queryOutputInfo, List<Consumer<QueryOutputInfo>> outputInfoListeners)
@@ -23,6 +23,7 @@ import io.prestosql.operator.BlockedReason;
 import io.prestosql.operator.OperatorStats;
 import io.prestosql.operator.TableWriterOperator;
 import io.prestosql.spi.eventlistener.StageGcStatistics;
+import io.prestosql.sql.planner.iterative.RuleStatsSummary;
 import org.joda.time.DateTime;
 
 import javax.annotation.Nullable;
@@ -98,6 +99,10 @@ public class QueryStats
 
     private final DataSize physicalWrittenDataSize;
 
+    private final boolean resultCacheHit;
+
+    private final List<RuleStatsSummary> optimizerRuleStats;
+
     private final List<StageGcStatistics> stageGcStatistics;
 
     private final List<OperatorStats> operatorSummaries;
@@ -163,6 +168,10 @@ public class QueryStats
 
             @JsonProperty("physicalWrittenDataSize") DataSize physicalWrittenDataSize,
 
+            @JsonProperty("resultCacheHit") boolean resultCacheHit,
+
+            @JsonProperty("optimizerRuleStats") List<RuleStatsSummary> optimizerRuleStats,
+
             @JsonProperty("stageGcStatistics") List<StageGcStatistics> stageGcStatistics,
 
             @JsonProperty("operatorSummaries") List<OperatorStats> operatorSummaries)
@@ -238,6 +247,10 @@ public class QueryStats
 
         this.physicalWrittenDataSize = requireNonNull(physicalWrittenDataSize, "physicalWrittenDataSize is null");
 
+        this.resultCacheHit = resultCacheHit;
+
+        this.optimizerRuleStats = ImmutableList.copyOf(requireNonNull(optimizerRuleStats, "optimizerRuleStats is null"));
+
         this.stageGcStatistics = ImmutableList.copyOf(requireNonNull(stageGcStatistics, "stageGcStatistics is null"));
 
         this.operatorSummaries = ImmutableList.copyOf(requireNonNull(operatorSummaries, "operatorSummaries is null"));
@@ -526,6 +539,18 @@ public class QueryStats
         return physicalWrittenDataSize;
     }
 
+    @JsonProperty
+    public boolean isResultCacheHit()
+    {
+        return resultCacheHit;
+    }
+
+    @JsonProperty
+    public List<RuleStatsSummary> getOptimizerRuleStats()
+    {
+        return optimizerRuleStats;
+    }
+
     @JsonProperty
     public long getWrittenPositions()
     {
@@ -61,4 +61,10 @@ public class ResetSessionTask
 
         return immediateFuture(null);
     }
+
+    @Override
+    public boolean isSessionControl()
+    {
+        return true;
+    }
 }
@@ -77,4 +77,10 @@ public class SetPathTask
         stateMachine.setSetPath(sqlPath.toString());
         return immediateFuture(null);
     }
+
+    @Override
+    public boolean isSessionControl()
+    {
+        return true;
+    }
 }
@@ -66,4 +66,10 @@ public class SetRoleTask
         stateMachine.addSetRole(catalog, new SelectedRole(type, statement.getRole().map(c -> c.getValue().toLowerCase(ENGLISH))));
         return immediateFuture(null);
     }
+
+    @Override
+    public boolean isSessionControl()
+    {
+        return true;
+    }
 }
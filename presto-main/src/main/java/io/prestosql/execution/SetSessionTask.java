@@ -92,4 +92,10 @@ public class SetSessionTask
 
         return immediateFuture(null);
     }
+
+    @Override
+    public boolean isSessionControl()
+    {
+        return true;
+    }
 }
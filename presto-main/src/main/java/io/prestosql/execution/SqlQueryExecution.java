@@ -29,6 +29,12 @@ import io.prestosql.execution.QueryPreparer.PreparedQuery;
 import io.prestosql.execution.StateMachine.StateChangeListener;
 import io.prestosql.execution.buffer.OutputBuffers;
 import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.execution.plancache.PlanCache;
+import io.prestosql.execution.plancache.PlanCacheKey;
+import io.prestosql.execution.plancache.PlanTemplate;
+import io.prestosql.execution.resultcache.CachedQueryResult;
+import io.prestosql.execution.resultcache.QueryResultCache;
+import io.prestosql.execution.resultcache.QueryResultCacheKey;
 import io.prestosql.execution.scheduler.ExecutionPolicy;
 import io.prestosql.execution.scheduler.NodeScheduler;
 import io.prestosql.execution.scheduler.SplitSchedulerStats;
@@ -47,6 +53,7 @@ import io.prestosql.spi.QueryId;
 import io.prestosql.spi.connector.ConnectorTableHandle;
 import io.prestosql.split.SplitManager;
 import io.prestosql.split.SplitSource;
+import io.prestosql.spooling.SpoolingStorage;
 import io.prestosql.sql.analyzer.Analysis;
 import io.prestosql.sql.analyzer.Analyzer;
 import io.prestosql.sql.analyzer.QueryExplainer;
@@ -65,6 +72,7 @@ import io.prestosql.sql.planner.StageExecutionPlan;
 import io.prestosql.sql.planner.SubPlan;
 import io.prestosql.sql.planner.TypeAnalyzer;
 import io.prestosql.sql.planner.optimizations.PlanOptimizer;
+import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.tree.Explain;
 import org.joda.time.DateTime;
 
@@ -83,6 +91,8 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Throwables.throwIfInstanceOf;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.succinctBytes;
+import static io.prestosql.SystemSessionProperties.isFaultTolerantExecutionEnabled;
+import static io.prestosql.execution.QueryState.FINISHED;
 import static io.prestosql.execution.buffer.OutputBuffers.BROADCAST_PARTITION_ID;
 import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
 import static io.prestosql.execution.scheduler.SqlQueryScheduler.createSqlQueryScheduler;
@@ -123,6 +133,8 @@ public class SqlQueryExecution
     private final Analysis analysis;
     private final StatsCalculator statsCalculator;
     private final CostCalculator costCalculator;
+    private final QueryResultCache queryResultCache;
+    private final PlanCache planCache;
 
     private SqlQueryExecution(
             PreparedQuery preparedQuery,
@@ -148,6 +160,9 @@ public class SqlQueryExecution
             SplitSchedulerStats schedulerStats,
             StatsCalculator statsCalculator,
             CostCalculator costCalculator,
+            SpoolingStorage spoolingStorage,
+            QueryResultCache queryResultCache,
+            PlanCache planCache,
             WarningCollector warningCollector)
     {
         try (SetThreadName ignored = new SetThreadName("Query-%s", stateMachine.getQueryId())) {
@@ -168,6 +183,8 @@ public class SqlQueryExecution
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
             this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
             this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
+            this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
+            this.planCache = requireNonNull(planCache, "planCache is null");
 
             checkArgument(scheduleSplitBatchSize > 0, "scheduleSplitBatchSize must be greater than 0");
             this.scheduleSplitBatchSize = scheduleSplitBatchSize;
@@ -191,6 +208,21 @@ public class SqlQueryExecution
                 }
             });
 
+            // cached plans check the versions of the tables they scan again once a write is committed
+            if (analysis.getUpdateType() != null) {
+                stateMachine.addStateChangeListener(state -> {
+                    if (state == FINISHED) {
+                        planCache.tableWritten();
+                    }
+                });
+            }
+
+            // the spooled output is removed once all tasks are done, so no task writes to it anymore
+            if (isFaultTolerantExecutionEnabled(stateMachine.getSession())) {
+                requireNonNull(spoolingStorage, "spoolingStorage is null");
+                stateMachine.addQueryInfoStateChangeListener(finalQueryInfo -> queryExecutor.execute(() -> spoolingStorage.removeQuery(stateMachine.getQueryId())));
+            }
+
             this.remoteTaskFactory = new MemoryTrackingRemoteTaskFactory(requireNonNull(remoteTaskFactory, "remoteTaskFactory is null"), stateMachine);
         }
     }
@@ -335,6 +367,20 @@ public class SqlQueryExecution
 
                 PlanRoot plan = planQuery();
 
+                Optional<QueryResultCacheKey> resultCacheKey = queryResultCache.createKey(getSession(), queryPlan.get());
+                if (resultCacheKey.isPresent()) {
+                    Optional<CachedQueryResult> cachedResult = queryResultCache.get(resultCacheKey.get());
+                    if (cachedResult.isPresent()) {
+                        // the output is served by the statement resource, so no stage is scheduled
+                        stateMachine.setCachedResult(cachedResult.get());
+                        if (stateMachine.transitionToStarting()) {
+                            stateMachine.transitionToFinishing();
+                        }
+                        return;
+                    }
+                    stateMachine.setResultCacheKey(resultCacheKey.get());
+                }
+
                 metadata.beginQuery(getSession(), plan.getTableHandles());
 
                 planDistribution(plan);
@@ -390,10 +436,8 @@ public class SqlQueryExecution
 
     private PlanRoot doPlanQuery()
     {
-        // plan query
-        PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
-        LogicalPlanner logicalPlanner = new LogicalPlanner(stateMachine.getSession(), planOptimizers, idAllocator, metadata, new TypeAnalyzer(sqlParser, metadata), statsCalculator, costCalculator, stateMachine.getWarningCollector());
-        Plan plan = logicalPlanner.plan(analysis);
+        // plan query, or reuse the plan of an identical statement
+        Plan plan = createPlan();
         queryPlan.set(plan);
 
         // extract inputs
@@ -411,6 +455,62 @@ public class SqlQueryExecution
         return new PlanRoot(fragmentedPlan, !explainAnalyze, extractTableHandles(analysis));
     }
 
+    private Plan createPlan()
+    {
+        Optional<PlanCacheKey> planCacheKey = planCache.createKey(stateMachine.getSession(), analysis);
+        if (!analysis.getParameters().isEmpty()) {
+            return createPlanFromTemplate(planCacheKey);
+        }
+
+        Optional<Plan> cachedPlan = planCacheKey.flatMap(key -> planCache.get(stateMachine.getSession(), key, analysis));
+        if (cachedPlan.isPresent()) {
+            return cachedPlan.get();
+        }
+        LogicalPlanner logicalPlanner = createLogicalPlanner(new PlanNodeIdAllocator());
+        Plan plan = logicalPlanner.plan(analysis);
+        stateMachine.setOptimizerRuleStats(logicalPlanner.getRuleStats());
+        planCacheKey.ifPresent(key -> planCache.put(stateMachine.getSession(), key, analysis, plan));
+        return plan;
+    }
+
+    private Plan createPlanFromTemplate(Optional<PlanCacheKey> planCacheKey)
+    {
+        // the plan of a prepared statement is cached before its parameter values are bound, and is optimized for the values of each execution
+        Optional<PlanTemplate> cachedTemplate = planCacheKey.flatMap(planCache::getTemplate);
+        if (cachedTemplate.isPresent()) {
+            Optional<PlanNode> root = cachedTemplate.get().bind(analysis);
+            if (root.isPresent()) {
+                LogicalPlanner logicalPlanner = createLogicalPlanner(cachedTemplate.get().createIdAllocator());
+                Plan plan = logicalPlanner.optimize(root.get(), cachedTemplate.get().getTypes());
+                stateMachine.setOptimizerRuleStats(logicalPlanner.getRuleStats());
+                return plan;
+            }
+        }
+
+        if (planCacheKey.isPresent()) {
+            PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+            LogicalPlanner logicalPlanner = createLogicalPlanner(idAllocator);
+            PlanNode root = logicalPlanner.planWithUnboundParameters(analysis);
+            Optional<PlanTemplate> template = PlanTemplate.create(root, logicalPlanner.getTypes(), idAllocator, analysis);
+            if (template.isPresent()) {
+                planCache.putTemplate(planCacheKey.get(), template.get());
+                Plan plan = logicalPlanner.optimize(template.get().bind(analysis).get(), template.get().getTypes());
+                stateMachine.setOptimizerRuleStats(logicalPlanner.getRuleStats());
+                return plan;
+            }
+        }
+
+        LogicalPlanner logicalPlanner = createLogicalPlanner(new PlanNodeIdAllocator());
+        Plan plan = logicalPlanner.plan(analysis);
+        stateMachine.setOptimizerRuleStats(logicalPlanner.getRuleStats());
+        return plan;
+    }
+
+    private LogicalPlanner createLogicalPlanner(PlanNodeIdAllocator idAllocator)
+    {
+        return new LogicalPlanner(stateMachine.getSession(), planOptimizers, idAllocator, metadata, new TypeAnalyzer(sqlParser, metadata), statsCalculator, costCalculator, stateMachine.getWarningCollector());
+    }
+
     private static Multimap<CatalogName, ConnectorTableHandle> extractTableHandles(Analysis analysis)
     {
         ImmutableMultimap.Builder<CatalogName, ConnectorTableHandle> tableHandles = ImmutableMultimap.builder();
@@ -654,6 +754,9 @@ public class SqlQueryExecution
         private final Map<String, ExecutionPolicy> executionPolicies;
         private final StatsCalculator statsCalculator;
         private final CostCalculator costCalculator;
+        private final SpoolingStorage spoolingStorage;
+        private final QueryResultCache queryResultCache;
+        private final PlanCache planCache;
 
         @Inject
         SqlQueryExecutionFactory(QueryManagerConfig config,
@@ -675,7 +778,10 @@ public class SqlQueryExecution
                 Map<String, ExecutionPolicy> executionPolicies,
                 SplitSchedulerStats schedulerStats,
                 StatsCalculator statsCalculator,
-                CostCalculator costCalculator)
+                CostCalculator costCalculator,
+                SpoolingStorage spoolingStorage,
+                QueryResultCache queryResultCache,
+                PlanCache planCache)
         {
             requireNonNull(config, "config is null");
             this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
@@ -698,6 +804,9 @@ public class SqlQueryExecution
             this.planOptimizers = requireNonNull(planOptimizers, "planOptimizers is null").get();
             this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
             this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
+            this.spoolingStorage = requireNonNull(spoolingStorage, "spoolingStorage is null");
+            this.queryResultCache = requireNonNull(queryResultCache, "queryResultCache is null");
+            this.planCache = requireNonNull(planCache, "planCache is null");
         }
 
         @Override
@@ -735,6 +844,9 @@ public class SqlQueryExecution
                     schedulerStats,
                     statsCalculator,
                     costCalculator,
+                    spoolingStorage,
+                    queryResultCache,
+                    planCache,
                     warningCollector);
         }
     }
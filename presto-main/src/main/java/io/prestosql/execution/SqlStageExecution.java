@@ -13,7 +13,9 @@
  */
 package io.prestosql.execution;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
@@ -23,6 +25,7 @@ import io.airlift.units.Duration;
 import io.prestosql.Session;
 import io.prestosql.execution.StateMachine.StateChangeListener;
 import io.prestosql.execution.buffer.OutputBuffers;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
 import io.prestosql.execution.scheduler.SplitSchedulerStats;
 import io.prestosql.failuredetector.FailureDetector;
 import io.prestosql.metadata.InternalNode;
@@ -40,6 +43,8 @@ import javax.annotation.concurrent.ThreadSafe;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -55,16 +60,21 @@ import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.prestosql.failuredetector.FailureDetector.State.GONE;
 import static io.prestosql.operator.ExchangeOperator.REMOTE_CONNECTOR_ID;
+import static io.prestosql.operator.SpoolingPageBufferClient.spooledOutputLocation;
+import static io.prestosql.spi.ErrorType.USER_ERROR;
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.prestosql.spi.StandardErrorCode.REMOTE_HOST_GONE;
+import static io.prestosql.sql.planner.plan.ExchangeNode.Type.REPLICATE;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -76,8 +86,10 @@ public final class SqlStageExecution
     private final boolean summarizeTaskInfo;
     private final Executor executor;
     private final FailureDetector failureDetector;
+    private final SplitSchedulerStats schedulerStats;
 
     private final Map<PlanFragmentId, RemoteSourceNode> exchangeSources;
+    private final Set<PlanNodeId> replicatedSources;
 
     private final Map<InternalNode, Set<RemoteTask>> tasks = new ConcurrentHashMap<>();
 
@@ -101,6 +113,19 @@ public final class SqlStageExecution
 
     private final AtomicReference<OutputBuffers> outputBuffers = new AtomicReference<>();
 
+    @GuardedBy("this")
+    private boolean readSpooledSources;
+    @GuardedBy("this")
+    private int maxTaskRetries;
+    @GuardedBy("this")
+    private Supplier<List<InternalNode>> retryNodes = ImmutableList::of;
+    @GuardedBy("this")
+    private final Map<TaskId, TaskAttempts> taskAttempts = new HashMap<>();
+    @GuardedBy("this")
+    private final Map<Integer, List<Integer>> taskSourcePartitions = new HashMap<>();
+    @GuardedBy("this")
+    private final Map<Integer, Map<PlanNodeId, Set<TaskId>>> taskSourceTaskFilters = new HashMap<>();
+
     private final ListenerManager<Set<Lifespan>> completedLifespansChangeListeners = new ListenerManager<>();
 
     public static SqlStageExecution createSqlStageExecution(
@@ -133,12 +158,20 @@ public final class SqlStageExecution
                 nodeTaskMap,
                 summarizeTaskInfo,
                 executor,
-                failureDetector);
+                failureDetector,
+                schedulerStats);
         sqlStageExecution.initialize();
         return sqlStageExecution;
     }
 
-    private SqlStageExecution(StageStateMachine stateMachine, RemoteTaskFactory remoteTaskFactory, NodeTaskMap nodeTaskMap, boolean summarizeTaskInfo, Executor executor, FailureDetector failureDetector)
+    private SqlStageExecution(
+            StageStateMachine stateMachine,
+            RemoteTaskFactory remoteTaskFactory,
+            NodeTaskMap nodeTaskMap,
+            boolean summarizeTaskInfo,
+            Executor executor,
+            FailureDetector failureDetector,
+            SplitSchedulerStats schedulerStats)
     {
         this.stateMachine = stateMachine;
         this.remoteTaskFactory = requireNonNull(remoteTaskFactory, "remoteTaskFactory is null");
@@ -146,6 +179,7 @@ public final class SqlStageExecution
         this.summarizeTaskInfo = summarizeTaskInfo;
         this.executor = requireNonNull(executor, "executor is null");
         this.failureDetector = requireNonNull(failureDetector, "failureDetector is null");
+        this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
 
         ImmutableMap.Builder<PlanFragmentId, RemoteSourceNode> fragmentToExchangeSource = ImmutableMap.builder();
         for (RemoteSourceNode remoteSourceNode : stateMachine.getFragment().getRemoteSourceNodes()) {
@@ -154,6 +188,10 @@ public final class SqlStageExecution
             }
         }
         this.exchangeSources = fragmentToExchangeSource.build();
+        this.replicatedSources = stateMachine.getFragment().getRemoteSourceNodes().stream()
+                .filter(remoteSourceNode -> remoteSourceNode.getExchangeType() == REPLICATE)
+                .map(RemoteSourceNode::getId)
+                .collect(toImmutableSet());
     }
 
     // this is a separate method to ensure that the `this` reference is not leaked during construction
@@ -207,6 +245,30 @@ public final class SqlStageExecution
         return outputBuffers.get();
     }
 
+    /**
+     * Makes the tasks of this stage read the output of the source stages from the spooling storage,
+     * which requires the source stages to spool their output.
+     */
+    public synchronized void readSpooledSources()
+    {
+        checkState(allTasks.isEmpty(), "Tasks have already been scheduled");
+        readSpooledSources = true;
+    }
+
+    /**
+     * Retries failed tasks of this stage on other nodes, up to the given number of times per task.
+     * A retried task keeps its task id, so the consumers of its spooled output do not change, and
+     * it reads its own sources again from the start, which requires them to be spooled.
+     */
+    public synchronized void enableTaskRetries(int maxTaskRetries, Supplier<List<InternalNode>> retryNodes)
+    {
+        checkArgument(maxTaskRetries >= 0, "maxTaskRetries is negative");
+        checkState(readSpooledSources, "Task retries require spooled sources");
+        checkState(allTasks.isEmpty(), "Tasks have already been scheduled");
+        this.maxTaskRetries = maxTaskRetries;
+        this.retryNodes = requireNonNull(retryNodes, "retryNodes is null");
+    }
+
     public void beginScheduling()
     {
         stateMachine.transitionToScheduling();
@@ -303,8 +365,7 @@ public final class SqlStageExecution
         for (RemoteTask task : getAllTasks()) {
             ImmutableMultimap.Builder<PlanNodeId, Split> newSplits = ImmutableMultimap.builder();
             for (RemoteTask sourceTask : sourceTasks) {
-                URI exchangeLocation = sourceTask.getTaskStatus().getSelf();
-                newSplits.put(remoteSource.getId(), createRemoteSplitFor(task.getTaskId(), exchangeLocation));
+                newSplits.putAll(remoteSource.getId(), createRemoteSplitsFor(remoteSource.getId(), task.getTaskId(), sourceTask));
             }
             task.addSplits(newSplits.build());
         }
@@ -371,6 +432,40 @@ public final class SqlStageExecution
         return Optional.of(scheduleTask(node, new TaskId(stateMachine.getStageId(), partition), ImmutableMultimap.of(), totalPartitions));
     }
 
+    /**
+     * Schedules a task that reads the given partitions of the partitioned sources, instead of only
+     * the partition matching its own id. Replicated sources are read once, as usual.
+     */
+    public synchronized Optional<RemoteTask> scheduleTask(InternalNode node, int partition, List<Integer> sourcePartitions, OptionalInt totalPartitions)
+    {
+        return scheduleTask(node, partition, sourcePartitions, ImmutableMap.of(), totalPartitions);
+    }
+
+    /**
+     * Schedules a task that reads the given partitions of the partitioned sources, but only from
+     * the given tasks of the filtered remote sources. This splits a large partition of one source
+     * across several tasks, each of which reads the partition from all tasks of the other sources.
+     */
+    public synchronized Optional<RemoteTask> scheduleTask(
+            InternalNode node,
+            int partition,
+            List<Integer> sourcePartitions,
+            Map<PlanNodeId, Set<TaskId>> sourceTaskFilters,
+            OptionalInt totalPartitions)
+    {
+        requireNonNull(sourcePartitions, "sourcePartitions is null");
+        requireNonNull(sourceTaskFilters, "sourceTaskFilters is null");
+        checkArgument(!sourcePartitions.isEmpty(), "sourcePartitions is empty");
+        checkState(readSpooledSources, "Reading several source partitions requires spooled sources");
+
+        if (stateMachine.getState().isDone()) {
+            return Optional.empty();
+        }
+        taskSourcePartitions.put(partition, ImmutableList.copyOf(sourcePartitions));
+        taskSourceTaskFilters.put(partition, ImmutableMap.copyOf(sourceTaskFilters));
+        return scheduleTask(node, partition, totalPartitions);
+    }
+
     public synchronized Set<RemoteTask> scheduleSplits(InternalNode node, Multimap<PlanNodeId, Split> splits, Multimap<PlanNodeId, Lifespan> noMoreSplitsNotification)
     {
         requireNonNull(node, "node is null");
@@ -396,6 +491,7 @@ public final class SqlStageExecution
         else {
             task = tasks.iterator().next();
             task.addSplits(splits);
+            recordSplits(task.getTaskId(), splits);
         }
         if (noMoreSplitsNotification.size() > 1) {
             // The assumption that `noMoreSplitsNotification.size() <= 1` currently holds.
@@ -413,13 +509,26 @@ public final class SqlStageExecution
     {
         checkArgument(!allTasks.contains(taskId), "A task with id %s already exists", taskId);
 
+        if (maxTaskRetries > 0) {
+            TaskAttempts attempts = new TaskAttempts(totalPartitions);
+            attempts.getSplits().putAll(sourceSplits);
+            taskAttempts.put(taskId, attempts);
+        }
+
+        allTasks.add(taskId);
+        return startTask(node, taskId, sourceSplits, totalPartitions);
+    }
+
+    @GuardedBy("this")
+    private RemoteTask startTask(InternalNode node, TaskId taskId, Multimap<PlanNodeId, Split> sourceSplits, OptionalInt totalPartitions)
+    {
         ImmutableMultimap.Builder<PlanNodeId, Split> initialSplits = ImmutableMultimap.builder();
         initialSplits.putAll(sourceSplits);
 
         sourceTasks.forEach((planNodeId, task) -> {
-            TaskStatus status = task.getTaskStatus();
-            if (status.getState() != TaskState.FINISHED) {
-                initialSplits.put(planNodeId, createRemoteSplitFor(taskId, status.getSelf()));
+            // spooled output can still be read after the source task finished
+            if (readSpooledSources || task.getTaskStatus().getState() != TaskState.FINISHED) {
+                initialSplits.putAll(planNodeId, createRemoteSplitsFor(planNodeId, taskId, task));
             }
         });
 
@@ -439,12 +548,15 @@ public final class SqlStageExecution
 
         completeSources.forEach(task::noMoreSplits);
 
-        allTasks.add(taskId);
         tasks.computeIfAbsent(node, key -> newConcurrentHashSet()).add(task);
         nodeTaskMap.addTask(node, task);
+        TaskAttempts attempts = taskAttempts.get(taskId);
+        if (attempts != null) {
+            attempts.setCurrentAttempt(node, task);
+        }
 
-        task.addStateChangeListener(new StageTaskListener());
-        task.addFinalTaskInfoListener(this::updateFinalTaskInfo);
+        task.addStateChangeListener(new StageTaskListener(task));
+        task.addFinalTaskInfoListener(taskInfo -> updateFinalTaskInfo(task, taskInfo));
 
         if (!stateMachine.getState().isDone()) {
             task.start();
@@ -467,13 +579,97 @@ public final class SqlStageExecution
         stateMachine.recordGetSplitTime(start);
     }
 
-    private static Split createRemoteSplitFor(TaskId taskId, URI taskLocation)
+    @GuardedBy("this")
+    private List<Split> createRemoteSplitsFor(PlanNodeId remoteSourceId, TaskId taskId, RemoteTask sourceTask)
+    {
+        Set<TaskId> sourceTaskFilter = taskSourceTaskFilters.getOrDefault(taskId.getId(), ImmutableMap.of()).get(remoteSourceId);
+        if (sourceTaskFilter != null && !sourceTaskFilter.contains(sourceTask.getTaskId())) {
+            return ImmutableList.of();
+        }
+        List<Integer> sourcePartitions = taskSourcePartitions.get(taskId.getId());
+        if (sourcePartitions == null || replicatedSources.contains(remoteSourceId)) {
+            return ImmutableList.of(createRemoteSplitFor(taskId.getId(), sourceTask));
+        }
+        return sourcePartitions.stream()
+                .map(partition -> createRemoteSplitFor(partition, sourceTask))
+                .collect(toImmutableList());
+    }
+
+    @GuardedBy("this")
+    private Split createRemoteSplitFor(int bufferId, RemoteTask sourceTask)
     {
         // Fetch the results from the buffer assigned to the task based on id
-        URI splitLocation = uriBuilderFrom(taskLocation).appendPath("results").appendPath(String.valueOf(taskId.getId())).build();
+        URI splitLocation;
+        if (readSpooledSources) {
+            splitLocation = spooledOutputLocation(sourceTask.getTaskId(), new OutputBufferId(bufferId));
+        }
+        else {
+            URI taskLocation = sourceTask.getTaskStatus().getSelf();
+            splitLocation = uriBuilderFrom(taskLocation).appendPath("results").appendPath(String.valueOf(bufferId)).build();
+        }
         return new Split(REMOTE_CONNECTOR_ID, new RemoteSplit(splitLocation), Lifespan.taskWide());
     }
 
+    @GuardedBy("this")
+    private void recordSplits(TaskId taskId, Multimap<PlanNodeId, Split> splits)
+    {
+        TaskAttempts attempts = taskAttempts.get(taskId);
+        if (attempts != null) {
+            attempts.getSplits().putAll(splits);
+        }
+    }
+
+    private synchronized boolean isCurrentAttempt(RemoteTask task)
+    {
+        TaskAttempts attempts = taskAttempts.get(task.getTaskId());
+        return attempts == null || attempts.getCurrentAttempt() == task;
+    }
+
+    private synchronized boolean retryTask(RemoteTask failedTask, TaskStatus taskStatus)
+    {
+        TaskId taskId = failedTask.getTaskId();
+        TaskAttempts attempts = taskAttempts.get(taskId);
+        if (attempts == null || attempts.getCurrentAttempt() != failedTask || stateMachine.getState().isDone()) {
+            return false;
+        }
+        if (attempts.getRetries() >= maxTaskRetries) {
+            return false;
+        }
+        boolean userError = taskStatus.getFailures().stream()
+                .map(ExecutionFailureInfo::getErrorCode)
+                .anyMatch(errorCode -> errorCode != null && errorCode.getType() == USER_ERROR);
+        if (userError) {
+            return false;
+        }
+        // splits that can only be processed on the node that failed cannot be moved
+        if (!attempts.getSplits().values().stream().allMatch(Split::isRemotelyAccessible)) {
+            return false;
+        }
+
+        Optional<InternalNode> retryNode = retryNodes.get().stream()
+                .filter(node -> !attempts.getNodes().contains(node))
+                .filter(node -> failureDetector.getState(node.getHostAndPort()) != GONE)
+                .min(Comparator.comparingInt(node -> tasks.getOrDefault(node, ImmutableSet.of()).size()));
+        if (!retryNode.isPresent()) {
+            return false;
+        }
+
+        InternalNode failedNode = attempts.getCurrentNode();
+        Set<RemoteTask> nodeTasks = tasks.get(failedNode);
+        if (nodeTasks != null) {
+            nodeTasks.remove(failedTask);
+            if (nodeTasks.isEmpty()) {
+                tasks.remove(failedNode);
+            }
+        }
+        tasksWithFinalInfo.remove(taskId);
+        attempts.recordRetry();
+        schedulerStats.getRetriedTasks().update(1);
+
+        startTask(retryNode.get(), taskId, ImmutableMultimap.copyOf(attempts.getSplits()), attempts.getTotalPartitions());
+        return true;
+    }
+
     private synchronized void updateTaskStatus(TaskStatus taskStatus)
     {
         try {
@@ -514,8 +710,12 @@ public final class SqlStageExecution
         }
     }
 
-    private synchronized void updateFinalTaskInfo(TaskInfo finalTaskInfo)
+    private synchronized void updateFinalTaskInfo(RemoteTask task, TaskInfo finalTaskInfo)
     {
+        if (!isCurrentAttempt(task)) {
+            // the task was retried
+            return;
+        }
         tasksWithFinalInfo.add(finalTaskInfo.getTaskStatus().getTaskId());
         checkAllTaskFinal();
     }
@@ -556,14 +756,29 @@ public final class SqlStageExecution
     private class StageTaskListener
             implements StateChangeListener<TaskStatus>
     {
+        private final RemoteTask task;
         private long previousUserMemory;
         private long previousSystemMemory;
         private long previousRevocableMemory;
         private final Set<Lifespan> completedDriverGroups = new HashSet<>();
 
+        public StageTaskListener(RemoteTask task)
+        {
+            this.task = requireNonNull(task, "task is null");
+        }
+
         @Override
         public void stateChanged(TaskStatus taskStatus)
         {
+            if (!isCurrentAttempt(task)) {
+                // the task was retried
+                return;
+            }
+            if (taskStatus.getState() == TaskState.FAILED && retryTask(task, taskStatus)) {
+                // the memory of the failed attempt is released
+                updateMemoryUsage(0, 0, 0);
+                return;
+            }
             try {
                 updateMemoryUsage(taskStatus);
                 updateCompletedDriverGroups(taskStatus);
@@ -573,11 +788,16 @@ public final class SqlStageExecution
             }
         }
 
-        private synchronized void updateMemoryUsage(TaskStatus taskStatus)
+        private void updateMemoryUsage(TaskStatus taskStatus)
+        {
+            updateMemoryUsage(
+                    taskStatus.getMemoryReservation().toBytes(),
+                    taskStatus.getSystemMemoryReservation().toBytes(),
+                    taskStatus.getRevocableMemoryReservation().toBytes());
+        }
+
+        private synchronized void updateMemoryUsage(long currentUserMemory, long currentSystemMemory, long currentRevocableMemory)
         {
-            long currentUserMemory = taskStatus.getMemoryReservation().toBytes();
-            long currentSystemMemory = taskStatus.getSystemMemoryReservation().toBytes();
-            long currentRevocableMemory = taskStatus.getRevocableMemoryReservation().toBytes();
             long deltaUserMemoryInBytes = currentUserMemory - previousUserMemory;
             long deltaRevocableMemoryInBytes = currentRevocableMemory - previousRevocableMemory;
             long deltaTotalMemoryInBytes = (currentUserMemory + currentSystemMemory + currentRevocableMemory) - (previousUserMemory + previousSystemMemory + previousRevocableMemory);
@@ -605,6 +825,63 @@ public final class SqlStageExecution
         }
     }
 
+    private static class TaskAttempts
+    {
+        private final OptionalInt totalPartitions;
+        private final Multimap<PlanNodeId, Split> splits = ArrayListMultimap.create();
+        private final Set<InternalNode> nodes = new HashSet<>();
+        private InternalNode currentNode;
+        private RemoteTask currentAttempt;
+        private int retries;
+
+        public TaskAttempts(OptionalInt totalPartitions)
+        {
+            this.totalPartitions = requireNonNull(totalPartitions, "totalPartitions is null");
+        }
+
+        public OptionalInt getTotalPartitions()
+        {
+            return totalPartitions;
+        }
+
+        public Multimap<PlanNodeId, Split> getSplits()
+        {
+            return splits;
+        }
+
+        public Set<InternalNode> getNodes()
+        {
+            return nodes;
+        }
+
+        public InternalNode getCurrentNode()
+        {
+            return currentNode;
+        }
+
+        public RemoteTask getCurrentAttempt()
+        {
+            return currentAttempt;
+        }
+
+        public void setCurrentAttempt(InternalNode node, RemoteTask task)
+        {
+            nodes.add(node);
+            currentNode = node;
+            currentAttempt = task;
+        }
+
+        public int getRetries()
+        {
+            return retries;
+        }
+
+        public void recordRetry()
+        {
+            retries++;
+        }
+    }
+
     private static class ListenerManager<T>
     {
         private final List<Consumer<T>> listeners = new ArrayList<>();
@@ -24,10 +24,13 @@ import io.airlift.units.MaxDuration;
 import io.airlift.units.MinDuration;
 import io.prestosql.util.PowerOfTwo;
 
+import javax.annotation.Nullable;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.concurrent.TimeUnit;
 
 @DefunctConfig({
@@ -58,6 +61,13 @@ public class TaskManagerConfig
     private DataSize sinkMaxBufferSize = new DataSize(32, Unit.MEGABYTE);
     private DataSize maxPagePartitioningBufferSize = new DataSize(32, Unit.MEGABYTE);
 
+    private boolean fragmentResultCacheEnabled;
+    private DataSize fragmentResultCacheMaxMemory = new DataSize(256, Unit.MEGABYTE);
+    private DataSize fragmentResultCacheMaxEntrySize = new DataSize(4, Unit.MEGABYTE);
+    private Duration fragmentResultCacheTtl = new Duration(1, TimeUnit.HOURS);
+    private Path fragmentResultCacheDiskPath;
+    private DataSize fragmentResultCacheMaxDiskSize = new DataSize(10, Unit.GIGABYTE);
+
     private Duration clientTimeout = new Duration(2, TimeUnit.MINUTES);
     private Duration infoMaxAge = new Duration(15, TimeUnit.MINUTES);
 
@@ -66,6 +76,7 @@ public class TaskManagerConfig
 
     private int writerCount = 1;
     private int taskConcurrency = 16;
+    private Integer hashBuildConcurrency;
     private int httpResponseThreads = 100;
     private int httpTimeoutThreads = 3;
 
@@ -321,6 +332,90 @@ public class TaskManagerConfig
         return this;
     }
 
+    public boolean isFragmentResultCacheEnabled()
+    {
+        return fragmentResultCacheEnabled;
+    }
+
+    @Config("task.fragment-result-cache-enabled")
+    @ConfigDescription("Cache the output of leaf plan fragments per split on workers")
+    public TaskManagerConfig setFragmentResultCacheEnabled(boolean fragmentResultCacheEnabled)
+    {
+        this.fragmentResultCacheEnabled = fragmentResultCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFragmentResultCacheMaxMemory()
+    {
+        return fragmentResultCacheMaxMemory;
+    }
+
+    @Config("task.fragment-result-cache-max-memory")
+    @ConfigDescription("Maximum memory used by cached fragment results")
+    public TaskManagerConfig setFragmentResultCacheMaxMemory(DataSize fragmentResultCacheMaxMemory)
+    {
+        this.fragmentResultCacheMaxMemory = fragmentResultCacheMaxMemory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFragmentResultCacheMaxEntrySize()
+    {
+        return fragmentResultCacheMaxEntrySize;
+    }
+
+    @Config("task.fragment-result-cache-max-entry-size")
+    @ConfigDescription("Maximum size of the cached result of a single split")
+    public TaskManagerConfig setFragmentResultCacheMaxEntrySize(DataSize fragmentResultCacheMaxEntrySize)
+    {
+        this.fragmentResultCacheMaxEntrySize = fragmentResultCacheMaxEntrySize;
+        return this;
+    }
+
+    @MinDuration("1s")
+    @NotNull
+    public Duration getFragmentResultCacheTtl()
+    {
+        return fragmentResultCacheTtl;
+    }
+
+    @Config("task.fragment-result-cache-ttl")
+    @ConfigDescription("Time after which a cached fragment result is discarded")
+    public TaskManagerConfig setFragmentResultCacheTtl(Duration fragmentResultCacheTtl)
+    {
+        this.fragmentResultCacheTtl = fragmentResultCacheTtl;
+        return this;
+    }
+
+    @Nullable
+    public Path getFragmentResultCacheDiskPath()
+    {
+        return fragmentResultCacheDiskPath;
+    }
+
+    @Config("task.fragment-result-cache-disk-path")
+    @ConfigDescription("Directory that holds fragment results evicted from memory; results are not kept on disk when unset")
+    public TaskManagerConfig setFragmentResultCacheDiskPath(String fragmentResultCacheDiskPath)
+    {
+        this.fragmentResultCacheDiskPath = fragmentResultCacheDiskPath == null ? null : Paths.get(fragmentResultCacheDiskPath);
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFragmentResultCacheMaxDiskSize()
+    {
+        return fragmentResultCacheMaxDiskSize;
+    }
+
+    @Config("task.fragment-result-cache-max-disk-size")
+    @ConfigDescription("Maximum disk space used by cached fragment results")
+    public TaskManagerConfig setFragmentResultCacheMaxDiskSize(DataSize fragmentResultCacheMaxDiskSize)
+    {
+        this.fragmentResultCacheMaxDiskSize = fragmentResultCacheMaxDiskSize;
+        return this;
+    }
+
     @MinDuration("5s")
     @NotNull
     public Duration getClientTimeout()
@@ -378,6 +473,22 @@ public class TaskManagerConfig
         return this;
     }
 
+    @Min(1)
+    @PowerOfTwo
+    @Nullable
+    public Integer getHashBuildConcurrency()
+    {
+        return hashBuildConcurrency;
+    }
+
+    @Config("task.hash-build-concurrency")
+    @ConfigDescription("Number of hash table partitions built in parallel per join, defaults to task.concurrency")
+    public TaskManagerConfig setHashBuildConcurrency(Integer hashBuildConcurrency)
+    {
+        this.hashBuildConcurrency = hashBuildConcurrency;
+        return this;
+    }
+
     @Min(1)
     public int getHttpResponseThreads()
     {
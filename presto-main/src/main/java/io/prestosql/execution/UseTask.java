@@ -60,4 +60,10 @@ public class UseTask
 
         return immediateFuture(null);
     }
+
+    @Override
+    public boolean isSessionControl()
+    {
+        return true;
+    }
 }
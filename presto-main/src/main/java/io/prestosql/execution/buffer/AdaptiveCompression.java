@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import static java.lang.Math.min;
+
+/**
+ * Decides whether to compress the next page of a stream of pages. After a few pages in a row
+ * that do not compress well enough to be sent compressed, compression is skipped for a number
+ * of pages that doubles every time the following probe page does not compress either.
+ */
+@NotThreadSafe
+public final class AdaptiveCompression
+{
+    private static final int MAX_INCOMPRESSIBLE_PAGES = 3;
+    private static final int MAX_SKIPPED_PAGES = 64;
+
+    private int incompressiblePages;
+    private int skipInterval = 1;
+    private int pagesToSkip;
+    private long skippedPages;
+
+    public boolean shouldCompress()
+    {
+        if (pagesToSkip > 0) {
+            pagesToSkip--;
+            skippedPages++;
+            return false;
+        }
+        return true;
+    }
+
+    public void recordCompressionResult(boolean compressed)
+    {
+        if (compressed) {
+            incompressiblePages = 0;
+            skipInterval = 1;
+            return;
+        }
+        incompressiblePages++;
+        if (incompressiblePages >= MAX_INCOMPRESSIBLE_PAGES) {
+            pagesToSkip = skipInterval;
+            skipInterval = min(skipInterval * 2, MAX_SKIPPED_PAGES);
+        }
+    }
+
+    public long getSkippedPages()
+    {
+        return skippedPages;
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+public enum CompressionCodec
+{
+    NONE(null, null),
+    LZ4(Lz4Compressor::new, Lz4Decompressor::new),
+    SNAPPY(SnappyCompressor::new, SnappyDecompressor::new),
+    ZSTD(ZstdCompressor::new, ZstdDecompressor::new);
+
+    private final Supplier<Compressor> compressorSupplier;
+    private final Supplier<Decompressor> decompressorSupplier;
+
+    CompressionCodec(Supplier<Compressor> compressorSupplier, Supplier<Decompressor> decompressorSupplier)
+    {
+        this.compressorSupplier = compressorSupplier;
+        this.decompressorSupplier = decompressorSupplier;
+    }
+
+    public Optional<Compressor> createCompressor()
+    {
+        return Optional.ofNullable(compressorSupplier).map(Supplier::get);
+    }
+
+    public Optional<Decompressor> createDecompressor()
+    {
+        return Optional.ofNullable(decompressorSupplier).map(Supplier::get);
+    }
+}
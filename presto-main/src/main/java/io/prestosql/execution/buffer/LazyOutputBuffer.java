@@ -23,6 +23,7 @@ import io.prestosql.execution.StateMachine.StateChangeListener;
 import io.prestosql.execution.TaskId;
 import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
 import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.spooling.SpoolingStorage;
 
 import javax.annotation.concurrent.GuardedBy;
 
@@ -47,10 +48,12 @@ public class LazyOutputBuffer
         implements OutputBuffer
 {
     private final StateMachine<BufferState> state;
+    private final TaskId taskId;
     private final String taskInstanceId;
     private final DataSize maxBufferSize;
     private final Supplier<LocalMemoryContext> systemMemoryContextSupplier;
     private final Executor executor;
+    private final SpoolingStorage spoolingStorage;
 
     @GuardedBy("this")
     private OutputBuffer delegate;
@@ -66,15 +69,17 @@ public class LazyOutputBuffer
             String taskInstanceId,
             Executor executor,
             DataSize maxBufferSize,
-            Supplier<LocalMemoryContext> systemMemoryContextSupplier)
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier,
+            SpoolingStorage spoolingStorage)
     {
-        requireNonNull(taskId, "taskId is null");
+        this.taskId = requireNonNull(taskId, "taskId is null");
         this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
         this.executor = requireNonNull(executor, "executor is null");
         state = new StateMachine<>(taskId + "-buffer", executor, OPEN, TERMINAL_BUFFER_STATES);
         this.maxBufferSize = requireNonNull(maxBufferSize, "maxBufferSize is null");
         checkArgument(maxBufferSize.toBytes() > 0, "maxBufferSize must be at least 1");
         this.systemMemoryContextSupplier = requireNonNull(systemMemoryContextSupplier, "systemMemoryContextSupplier is null");
+        this.spoolingStorage = requireNonNull(spoolingStorage, "spoolingStorage is null");
     }
 
     @Override
@@ -156,16 +161,21 @@ public class LazyOutputBuffer
                 if (state.get().isTerminal()) {
                     return;
                 }
-                switch (newOutputBuffers.getType()) {
-                    case PARTITIONED:
-                        delegate = new PartitionedOutputBuffer(taskInstanceId, state, newOutputBuffers, maxBufferSize, systemMemoryContextSupplier, executor);
-                        break;
-                    case BROADCAST:
-                        delegate = new BroadcastOutputBuffer(taskInstanceId, state, maxBufferSize, systemMemoryContextSupplier, executor);
-                        break;
-                    case ARBITRARY:
-                        delegate = new ArbitraryOutputBuffer(taskInstanceId, state, maxBufferSize, systemMemoryContextSupplier, executor);
-                        break;
+                if (newOutputBuffers.isSpooled()) {
+                    delegate = new SpoolingOutputBuffer(taskId, taskInstanceId, state, newOutputBuffers, spoolingStorage, systemMemoryContextSupplier);
+                }
+                else {
+                    switch (newOutputBuffers.getType()) {
+                        case PARTITIONED:
+                            delegate = new PartitionedOutputBuffer(taskInstanceId, state, newOutputBuffers, maxBufferSize, systemMemoryContextSupplier, executor);
+                            break;
+                        case BROADCAST:
+                            delegate = new BroadcastOutputBuffer(taskInstanceId, state, maxBufferSize, systemMemoryContextSupplier, executor);
+                            break;
+                        case ARBITRARY:
+                            delegate = new ArbitraryOutputBuffer(taskInstanceId, state, maxBufferSize, systemMemoryContextSupplier, executor);
+                            break;
+                    }
                 }
 
                 // process pending aborts and reads outside of synchronized lock
@@ -41,7 +41,7 @@ public final class OutputBuffers
 
     public static OutputBuffers createInitialEmptyOutputBuffers(BufferType type)
     {
-        return new OutputBuffers(type, 0, false, ImmutableMap.of());
+        return new OutputBuffers(type, 0, false, false, ImmutableMap.of());
     }
 
     public static OutputBuffers createInitialEmptyOutputBuffers(PartitioningHandle partitioningHandle)
@@ -56,7 +56,7 @@ public final class OutputBuffers
         else {
             type = PARTITIONED;
         }
-        return new OutputBuffers(type, 0, false, ImmutableMap.of());
+        return new OutputBuffers(type, 0, false, false, ImmutableMap.of());
     }
 
     public enum BufferType
@@ -69,6 +69,7 @@ public final class OutputBuffers
     private final BufferType type;
     private final long version;
     private final boolean noMoreBufferIds;
+    private final boolean spooled;
     private final Map<OutputBufferId, Integer> buffers;
 
     // Visible only for Jackson... Use the "with" methods instead
@@ -77,12 +78,14 @@ public final class OutputBuffers
             @JsonProperty("type") BufferType type,
             @JsonProperty("version") long version,
             @JsonProperty("noMoreBufferIds") boolean noMoreBufferIds,
+            @JsonProperty("spooled") boolean spooled,
             @JsonProperty("buffers") Map<OutputBufferId, Integer> buffers)
     {
         this.type = type;
         this.version = version;
         this.buffers = ImmutableMap.copyOf(requireNonNull(buffers, "buffers is null"));
         this.noMoreBufferIds = noMoreBufferIds;
+        this.spooled = spooled;
     }
 
     @JsonProperty
@@ -103,6 +106,16 @@ public final class OutputBuffers
         return noMoreBufferIds;
     }
 
+    /**
+     * Whether the output is written to the spooling storage, where consumers read it,
+     * instead of being served by the output buffer of the task.
+     */
+    @JsonProperty
+    public boolean isSpooled()
+    {
+        return spooled;
+    }
+
     @JsonProperty
     public Map<OutputBufferId, Integer> getBuffers()
     {
@@ -113,6 +126,7 @@ public final class OutputBuffers
     {
         requireNonNull(newOutputBuffers, "newOutputBuffers is null");
         checkState(type == newOutputBuffers.getType(), "newOutputBuffers has a different type");
+        checkState(spooled == newOutputBuffers.isSpooled(), "newOutputBuffers has a different spooling setting");
 
         if (noMoreBufferIds) {
             checkArgument(this.equals(newOutputBuffers), "Expected buffer to not change after no more buffers is set");
@@ -138,7 +152,7 @@ public final class OutputBuffers
     @Override
     public int hashCode()
     {
-        return Objects.hash(version, noMoreBufferIds, buffers);
+        return Objects.hash(version, noMoreBufferIds, spooled, buffers);
     }
 
     @Override
@@ -153,6 +167,7 @@ public final class OutputBuffers
         OutputBuffers other = (OutputBuffers) obj;
         return Objects.equals(this.version, other.version) &&
                 Objects.equals(this.noMoreBufferIds, other.noMoreBufferIds) &&
+                Objects.equals(this.spooled, other.spooled) &&
                 Objects.equals(this.buffers, other.buffers);
     }
 
@@ -163,6 +178,7 @@ public final class OutputBuffers
                 .add("type", type)
                 .add("version", version)
                 .add("noMoreBufferIds", noMoreBufferIds)
+                .add("spooled", spooled)
                 .add("bufferIds", buffers)
                 .toString();
     }
@@ -183,6 +199,7 @@ public final class OutputBuffers
                 type,
                 version + 1,
                 false,
+                spooled,
                 ImmutableMap.<OutputBufferId, Integer>builder()
                         .putAll(buffers)
                         .put(bufferId, partition)
@@ -218,7 +235,7 @@ public final class OutputBuffers
         // add the existing buffers
         newBuffers.putAll(this.buffers);
 
-        return new OutputBuffers(type, version + 1, false, newBuffers);
+        return new OutputBuffers(type, version + 1, false, spooled, newBuffers);
     }
 
     public OutputBuffers withNoMoreBufferIds()
@@ -227,7 +244,16 @@ public final class OutputBuffers
             return this;
         }
 
-        return new OutputBuffers(type, version + 1, true, buffers);
+        return new OutputBuffers(type, version + 1, true, spooled, buffers);
+    }
+
+    public OutputBuffers withSpooling()
+    {
+        if (spooled) {
+            return this;
+        }
+
+        return new OutputBuffers(type, version, noMoreBufferIds, true, buffers);
     }
 
     private void checkHasBuffer(OutputBufferId bufferId, int partition)
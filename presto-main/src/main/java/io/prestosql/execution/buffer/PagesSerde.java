@@ -26,6 +26,7 @@ import io.prestosql.spiller.SpillCipher;
 
 import javax.annotation.concurrent.NotThreadSafe;
 
+import java.nio.ByteBuffer;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -47,6 +48,10 @@ public class PagesSerde
     private final Optional<Compressor> compressor;
     private final Optional<Decompressor> decompressor;
     private final Optional<SpillCipher> spillCipher;
+    private final AdaptiveCompression compression = new AdaptiveCompression();
+
+    // reused for every page, only the compressed bytes of a page are copied out of it
+    private byte[] compressionBuffer = new byte[0];
 
     public PagesSerde(BlockEncodingSerde blockEncodingSerde, Optional<Compressor> compressor, Optional<Decompressor> decompressor, Optional<SpillCipher> spillCipher)
     {
@@ -61,22 +66,45 @@ public class PagesSerde
     {
         SliceOutput serializationBuffer = new DynamicSliceOutput(toIntExact(page.getSizeInBytes() + Integer.BYTES)); // block length is an int
         writeRawPage(page, serializationBuffer, blockEncodingSerde);
-        Slice slice = serializationBuffer.slice();
-        int uncompressedSize = serializationBuffer.size();
+        return serialize(serializationBuffer.slice(), page.getPositionCount());
+    }
+
+    /**
+     * Serializes a page that is already written in the raw page format: the channel count followed by the blocks.
+     */
+    public SerializedPage serialize(Slice rawPage, int positionCount)
+    {
+        return serialize(rawPage, positionCount, compression);
+    }
+
+    /**
+     * Serializes a raw page, deciding whether to compress it with the given state, so that streams of pages
+     * that compress differently, such as the partitions of an output, can keep separate states.
+     */
+    public SerializedPage serialize(Slice rawPage, int positionCount, AdaptiveCompression compression)
+    {
+        Slice slice = requireNonNull(rawPage, "rawPage is null");
+        requireNonNull(compression, "compression is null");
+        int uncompressedSize = slice.length();
         MarkerSet markers = MarkerSet.empty();
 
-        if (compressor.isPresent()) {
-            byte[] compressed = new byte[compressor.get().maxCompressedLength(uncompressedSize)];
+        if (compressor.isPresent() && compression.shouldCompress()) {
+            int maxCompressedLength = compressor.get().maxCompressedLength(uncompressedSize);
+            if (compressionBuffer.length < maxCompressedLength) {
+                compressionBuffer = new byte[maxCompressedLength];
+            }
             int compressedSize = compressor.get().compress(
                     (byte[]) slice.getBase(),
                     (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
                     uncompressedSize,
-                    compressed,
+                    compressionBuffer,
                     0,
-                    compressed.length);
+                    maxCompressedLength);
 
-            if ((((double) compressedSize) / uncompressedSize) <= MINIMUM_COMPRESSION_RATIO) {
-                slice = Slices.wrappedBuffer(compressed, 0, compressedSize);
+            boolean compressed = (((double) compressedSize) / uncompressedSize) <= MINIMUM_COMPRESSION_RATIO;
+            compression.recordCompressionResult(compressed);
+            if (compressed) {
+                slice = Slices.wrappedBuffer(compressionBuffer, 0, compressedSize);
                 markers.add(COMPRESSED);
             }
         }
@@ -94,11 +122,11 @@ public class PagesSerde
             markers.add(ENCRYPTED);
         }
 
-        if (!slice.isCompact()) {
+        if (!slice.isCompact() || slice.getBase() == compressionBuffer) {
             slice = Slices.copyOf(slice);
         }
 
-        return new SerializedPage(slice, markers, page.getPositionCount(), uncompressedSize);
+        return new SerializedPage(slice, markers, positionCount, uncompressedSize);
     }
 
     public Page deserialize(SerializedPage serializedPage)
@@ -126,13 +154,21 @@ public class PagesSerde
 
             int uncompressedSize = serializedPage.getUncompressedSizeInBytes();
             byte[] decompressed = new byte[uncompressedSize];
-            checkState(decompressor.get().decompress(
-                    (byte[]) slice.getBase(),
-                    (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
-                    slice.length(),
-                    decompressed,
-                    0,
-                    uncompressedSize) == uncompressedSize);
+            if (slice.getBase() instanceof byte[]) {
+                checkState(decompressor.get().decompress(
+                        (byte[]) slice.getBase(),
+                        (int) (slice.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                        slice.length(),
+                        decompressed,
+                        0,
+                        uncompressedSize) == uncompressedSize);
+            }
+            else {
+                // pages received into direct memory are decompressed without copying them to the heap first
+                ByteBuffer output = ByteBuffer.wrap(decompressed);
+                decompressor.get().decompress(slice.toByteBuffer(), output);
+                checkState(output.position() == uncompressedSize);
+            }
 
             slice = Slices.wrappedBuffer(decompressed);
         }
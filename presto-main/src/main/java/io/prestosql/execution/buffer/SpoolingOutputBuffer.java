@@ -0,0 +1,427 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.units.DataSize;
+import io.prestosql.execution.StateMachine;
+import io.prestosql.execution.StateMachine.StateChangeListener;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spooling.SpooledOutputManifest;
+import io.prestosql.spooling.SpooledOutputManifest.FileRange;
+import io.prestosql.spooling.SpoolingStorage;
+import io.prestosql.spooling.SpoolingStorage.TaskOutputWriter;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.Futures.immediateFailedFuture;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static io.prestosql.execution.buffer.BufferState.FAILED;
+import static io.prestosql.execution.buffer.BufferState.FINISHED;
+import static io.prestosql.execution.buffer.BufferState.FLUSHING;
+import static io.prestosql.execution.buffer.BufferState.NO_MORE_BUFFERS;
+import static io.prestosql.execution.buffer.BufferState.NO_MORE_PAGES;
+import static io.prestosql.execution.buffer.BufferState.OPEN;
+import static io.prestosql.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.writeSerializedPage;
+import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static io.prestosql.spooling.SpooledOutputManifest.ALL_BUFFERS;
+import static io.prestosql.spooling.SpooledOutputManifest.MANIFEST_FILE_NAME;
+import static io.prestosql.spooling.SpooledOutputManifest.dataFileName;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Output buffer of a fault-tolerant task, which writes the pages to {@link SpoolingStorage}
+ * instead of holding them until the consumers fetch them. The output is committed once all pages
+ * and buffers are known, and the consumers read it from the storage, so the buffer never blocks
+ * the producer and never serves pages itself.
+ * <p>
+ * Partitioned output is written to a file per partition. Broadcast output is written to a single
+ * file that all buffers read. Arbitrary output is written to a single file that is divided among
+ * the buffers when the output is committed.
+ */
+public class SpoolingOutputBuffer
+        implements OutputBuffer
+{
+    private static final int FILE_BUFFER_SIZE = 64 * 1024;
+
+    private final String taskInstanceId;
+    private final StateMachine<BufferState> state;
+    private final TaskOutputWriter writer;
+    private final Supplier<LocalMemoryContext> systemMemoryContextSupplier;
+
+    @GuardedBy("this")
+    private OutputBuffers outputBuffers;
+    @GuardedBy("this")
+    private final Map<Integer, SpoolFile> files = new HashMap<>();
+
+    private final AtomicLong totalRowsAdded = new AtomicLong();
+    private final AtomicLong totalPagesAdded = new AtomicLong();
+    private final AtomicLong peakMemoryUsage = new AtomicLong();
+
+    public SpoolingOutputBuffer(
+            TaskId taskId,
+            String taskInstanceId,
+            StateMachine<BufferState> state,
+            OutputBuffers outputBuffers,
+            SpoolingStorage spoolingStorage,
+            Supplier<LocalMemoryContext> systemMemoryContextSupplier)
+    {
+        requireNonNull(taskId, "taskId is null");
+        this.taskInstanceId = requireNonNull(taskInstanceId, "taskInstanceId is null");
+        this.state = requireNonNull(state, "state is null");
+        this.outputBuffers = requireNonNull(outputBuffers, "outputBuffers is null");
+        checkArgument(outputBuffers.isSpooled(), "outputBuffers are not spooled");
+        this.writer = requireNonNull(spoolingStorage, "spoolingStorage is null").createTaskOutput(taskId);
+        this.systemMemoryContextSupplier = requireNonNull(systemMemoryContextSupplier, "systemMemoryContextSupplier is null");
+
+        if (outputBuffers.isNoMoreBufferIds()) {
+            state.compareAndSet(OPEN, NO_MORE_BUFFERS);
+            state.compareAndSet(NO_MORE_PAGES, FLUSHING);
+        }
+    }
+
+    @Override
+    public OutputBufferInfo getInfo()
+    {
+        BufferState state = this.state.get();
+        return new OutputBufferInfo(
+                "SPOOLING",
+                state,
+                state.canAddBuffers(),
+                state.canAddPages(),
+                0,
+                0,
+                totalRowsAdded.get(),
+                totalPagesAdded.get(),
+                ImmutableList.of());
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return state.get() == FINISHED;
+    }
+
+    @Override
+    public double getUtilization()
+    {
+        // pages are written out as they are added
+        return 0.0;
+    }
+
+    @Override
+    public boolean isOverutilized()
+    {
+        return false;
+    }
+
+    @Override
+    public void addStateChangeListener(StateChangeListener<BufferState> stateChangeListener)
+    {
+        state.addStateChangeListener(stateChangeListener);
+    }
+
+    @Override
+    public synchronized void setOutputBuffers(OutputBuffers newOutputBuffers)
+    {
+        requireNonNull(newOutputBuffers, "newOutputBuffers is null");
+
+        // ignore buffers added after query finishes, which can happen when a query is canceled
+        // also ignore old versions, which is normal
+        if (state.get().isTerminal() || outputBuffers.getVersion() >= newOutputBuffers.getVersion()) {
+            return;
+        }
+
+        outputBuffers.checkValidTransition(newOutputBuffers);
+        outputBuffers = newOutputBuffers;
+
+        if (outputBuffers.isNoMoreBufferIds()) {
+            state.compareAndSet(OPEN, NO_MORE_BUFFERS);
+            state.compareAndSet(NO_MORE_PAGES, FLUSHING);
+        }
+        commitIfFlushing();
+    }
+
+    @Override
+    public ListenableFuture<BufferResult> get(OutputBufferId bufferId, long token, DataSize maxSize)
+    {
+        return immediateFailedFuture(new PrestoException(GENERIC_INTERNAL_ERROR, "Output of a spooling task must be read from the spooling storage"));
+    }
+
+    @Override
+    public void acknowledge(OutputBufferId bufferId, long token)
+    {
+        // pages are never served from this buffer
+    }
+
+    @Override
+    public void abort(OutputBufferId bufferId)
+    {
+        // the output is read from the spooling storage, possibly more than once
+    }
+
+    @Override
+    public ListenableFuture<?> isFull()
+    {
+        return immediateFuture(null);
+    }
+
+    @Override
+    public void enqueue(List<SerializedPage> pages)
+    {
+        enqueue(0, pages);
+    }
+
+    @Override
+    public synchronized void enqueue(int partition, List<SerializedPage> pages)
+    {
+        requireNonNull(pages, "pages is null");
+
+        // ignore pages after "no more pages" is set
+        // this can happen with a limit query
+        if (!state.get().canAddPages()) {
+            return;
+        }
+        checkArgument(partition == 0 || outputBuffers.getType() == PARTITIONED, "Expected partition 0 for %s output, but got %s", outputBuffers.getType(), partition);
+
+        SpoolFile file = files.get(partition);
+        if (file == null) {
+            file = new SpoolFile(createFile(partition));
+            files.put(partition, file);
+            updateMemoryUsage();
+        }
+        for (SerializedPage page : pages) {
+            file.write(page);
+            totalRowsAdded.addAndGet(page.getPositionCount());
+        }
+        totalPagesAdded.addAndGet(pages.size());
+    }
+
+    @Override
+    public synchronized void setNoMorePages()
+    {
+        state.compareAndSet(OPEN, NO_MORE_PAGES);
+        state.compareAndSet(NO_MORE_BUFFERS, FLUSHING);
+        commitIfFlushing();
+    }
+
+    @Override
+    public synchronized void destroy()
+    {
+        if (state.setIf(FINISHED, oldState -> !oldState.isTerminal())) {
+            discard();
+        }
+    }
+
+    @Override
+    public synchronized void fail()
+    {
+        if (state.setIf(FAILED, oldState -> !oldState.isTerminal())) {
+            discard();
+        }
+    }
+
+    @Override
+    public long getPeakMemoryUsage()
+    {
+        return peakMemoryUsage.get();
+    }
+
+    @GuardedBy("this")
+    private void commitIfFlushing()
+    {
+        if (state.get() != FLUSHING) {
+            return;
+        }
+
+        try {
+            SpooledOutputManifest manifest = createManifest();
+            for (SpoolFile file : files.values()) {
+                file.close();
+            }
+            try (OutputStream output = writer.createFile(MANIFEST_FILE_NAME)) {
+                manifest.writeTo(output);
+            }
+            // if another attempt of the task committed first, its output is equivalent
+            writer.commit();
+        }
+        catch (IOException e) {
+            discard();
+            state.setIf(FAILED, oldState -> !oldState.isTerminal());
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to commit spooled task output", e);
+        }
+        files.clear();
+        updateMemoryUsage();
+        state.setIf(FINISHED, oldState -> !oldState.isTerminal());
+    }
+
+    @GuardedBy("this")
+    private SpooledOutputManifest createManifest()
+    {
+        ImmutableMap.Builder<Integer, FileRange> ranges = ImmutableMap.builder();
+        switch (outputBuffers.getType()) {
+            case PARTITIONED:
+                outputBuffers.getBuffers().forEach((bufferId, partition) -> {
+                    SpoolFile file = files.get(partition);
+                    if (file != null) {
+                        ranges.put(bufferId.getId(), new FileRange(partition, 0, file.getSize()));
+                    }
+                });
+                break;
+            case BROADCAST:
+                if (files.containsKey(0)) {
+                    ranges.put(ALL_BUFFERS, new FileRange(0, 0, files.get(0).getSize()));
+                }
+                break;
+            case ARBITRARY:
+                if (files.containsKey(0)) {
+                    List<Integer> bufferIds = outputBuffers.getBuffers().keySet().stream()
+                            .map(OutputBufferId::getId)
+                            .sorted()
+                            .collect(toImmutableList());
+                    ranges.putAll(divideArbitraryOutput(files.get(0).getPageEnds(), bufferIds));
+                }
+                break;
+        }
+        return new SpooledOutputManifest(ranges.build());
+    }
+
+    /**
+     * Divides the pages of a file among the buffers, into contiguous ranges of similar size.
+     */
+    @VisibleForTesting
+    static Map<Integer, FileRange> divideArbitraryOutput(List<Long> pageEnds, List<Integer> bufferIds)
+    {
+        checkState(!bufferIds.isEmpty(), "Arbitrary output has pages but no buffers");
+        ImmutableMap.Builder<Integer, FileRange> ranges = ImmutableMap.builder();
+        long totalSize = pageEnds.isEmpty() ? 0 : pageEnds.get(pageEnds.size() - 1);
+        long start = 0;
+        int page = 0;
+        for (int i = 0; i < bufferIds.size() && page < pageEnds.size(); i++) {
+            long target = totalSize * (i + 1) / bufferIds.size();
+            long end = pageEnds.get(page++);
+            while (page < pageEnds.size() && pageEnds.get(page) <= target) {
+                end = pageEnds.get(page++);
+            }
+            if (i == bufferIds.size() - 1) {
+                end = totalSize;
+                page = pageEnds.size();
+            }
+            ranges.put(bufferIds.get(i), new FileRange(0, start, end));
+            start = end;
+        }
+        return ranges.build();
+    }
+
+    @GuardedBy("this")
+    private OutputStreamSliceOutput createFile(int fileIndex)
+    {
+        try {
+            return new OutputStreamSliceOutput(writer.createFile(dataFileName(fileIndex)), FILE_BUFFER_SIZE);
+        }
+        catch (IOException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to create spooled task output", e);
+        }
+    }
+
+    @GuardedBy("this")
+    private void discard()
+    {
+        for (SpoolFile file : files.values()) {
+            try {
+                file.close();
+            }
+            catch (IOException ignored) {
+                // the file is deleted with the rest of the output
+            }
+        }
+        files.clear();
+        writer.abort();
+        updateMemoryUsage();
+    }
+
+    @GuardedBy("this")
+    private void updateMemoryUsage()
+    {
+        long bytes = (long) files.size() * FILE_BUFFER_SIZE;
+        peakMemoryUsage.accumulateAndGet(bytes, Math::max);
+        getSystemMemoryContext().ifPresent(memoryContext -> memoryContext.setBytes(bytes));
+    }
+
+    private Optional<LocalMemoryContext> getSystemMemoryContext()
+    {
+        try {
+            return Optional.of(systemMemoryContextSupplier.get());
+        }
+        catch (RuntimeException ignored) {
+            // This is possible with races, e.g., a task is created and then immediately aborted,
+            // so that the task context hasn't been created yet
+        }
+        return Optional.empty();
+    }
+
+    private static class SpoolFile
+    {
+        private final OutputStreamSliceOutput output;
+        private final List<Long> pageEnds = new ArrayList<>();
+
+        public SpoolFile(OutputStreamSliceOutput output)
+        {
+            this.output = requireNonNull(output, "output is null");
+        }
+
+        public void write(SerializedPage page)
+        {
+            writeSerializedPage(output, page);
+            pageEnds.add(output.longSize());
+        }
+
+        public long getSize()
+        {
+            return output.longSize();
+        }
+
+        public List<Long> getPageEnds()
+        {
+            return pageEnds;
+        }
+
+        public void close()
+                throws IOException
+        {
+            output.close();
+        }
+    }
+}
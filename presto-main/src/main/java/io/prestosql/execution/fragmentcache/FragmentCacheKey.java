@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.fragmentcache;
+
+import io.prestosql.connector.CatalogName;
+
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the output of a leaf plan fragment for one split: the canonical form of the
+ * fragment and the versioned identity of the data the split reads.
+ */
+public final class FragmentCacheKey
+{
+    private final String fragment;
+    private final CatalogName catalogName;
+    private final String splitIdentity;
+
+    public FragmentCacheKey(String fragment, CatalogName catalogName, String splitIdentity)
+    {
+        this.fragment = requireNonNull(fragment, "fragment is null");
+        this.catalogName = requireNonNull(catalogName, "catalogName is null");
+        this.splitIdentity = requireNonNull(splitIdentity, "splitIdentity is null");
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return Character.BYTES * ((long) fragment.length() + splitIdentity.length());
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        FragmentCacheKey other = (FragmentCacheKey) o;
+        return fragment.equals(other.fragment) &&
+                catalogName.equals(other.catalogName) &&
+                splitIdentity.equals(other.splitIdentity);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(fragment, catalogName, splitIdentity);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("fragment", fragment)
+                .add("catalogName", catalogName)
+                .add("splitIdentity", splitIdentity)
+                .toString();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.fragmentcache;
+
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.PagesSerdeFactory;
+import io.prestosql.metadata.Split;
+
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Caching of the output of one leaf fragment, shared by the drivers of its pipeline.
+ */
+public class FragmentResultCacheContext
+{
+    private final FragmentResultCacheManager cacheManager;
+    private final String fragment;
+    private final PagesSerdeFactory pagesSerdeFactory;
+
+    public FragmentResultCacheContext(FragmentResultCacheManager cacheManager, String fragment, PagesSerdeFactory pagesSerdeFactory)
+    {
+        this.cacheManager = requireNonNull(cacheManager, "cacheManager is null");
+        this.fragment = requireNonNull(fragment, "fragment is null");
+        this.pagesSerdeFactory = requireNonNull(pagesSerdeFactory, "pagesSerdeFactory is null");
+    }
+
+    public FragmentResultCacheManager getCacheManager()
+    {
+        return cacheManager;
+    }
+
+    /**
+     * Returns the key of the output of the fragment for the split, or empty if the data read by the split cannot be identified.
+     */
+    public Optional<FragmentCacheKey> createKey(Split split)
+    {
+        return split.getConnectorSplit().getVersionedIdentity()
+                .map(identity -> new FragmentCacheKey(fragment, split.getCatalogName(), identity));
+    }
+
+    public PagesSerde createPagesSerde()
+    {
+        return pagesSerdeFactory.createPagesSerde();
+    }
+}
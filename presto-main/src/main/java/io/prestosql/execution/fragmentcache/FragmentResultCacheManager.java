@@ -0,0 +1,513 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.fragmentcache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.google.common.cache.RemovalNotification;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Ints;
+import io.airlift.json.JsonCodec;
+import io.airlift.log.Logger;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.stats.CounterStat;
+import io.prestosql.Session;
+import io.prestosql.execution.TaskManagerConfig;
+import io.prestosql.execution.buffer.PagesSerdeFactory;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.optimizations.SymbolMapper;
+import io.prestosql.sql.planner.plan.AggregationNode;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.PlanVisitor;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.tree.Expression;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.prestosql.SystemSessionProperties.isFragmentResultCacheEnabled;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.readSerializedPages;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.writeSerializedPages;
+import static io.prestosql.sql.DynamicFilters.extractDynamicFilters;
+import static io.prestosql.sql.planner.DeterminismEvaluator.isDeterministic;
+import static io.prestosql.sql.planner.ExpressionExtractor.extractExpressions;
+import static io.prestosql.sql.planner.SessionTimeEvaluator.dependsOnSessionTime;
+import static io.prestosql.sql.planner.plan.AggregationNode.Step.PARTIAL;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.deleteIfExists;
+import static java.nio.file.Files.newDirectoryStream;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.util.Comparator.comparing;
+import static java.util.Objects.requireNonNull;
+import static java.util.UUID.randomUUID;
+import static java.util.concurrent.Executors.newSingleThreadExecutor;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Output of leaf plan fragments per split, kept on the worker so that a later query with the same
+ * leaf fragment over the same data reuses the pages instead of reading and aggregating the split again.
+ * Results are kept in memory and, when a disk path is configured, results evicted from memory are
+ * written to disk. Both tiers are bounded in size and entries expire after a fixed time.
+ */
+public class FragmentResultCacheManager
+{
+    private static final Logger log = Logger.get(FragmentResultCacheManager.class);
+
+    private static final String CANONICAL_SYMBOL_PREFIX = "$fragment_";
+    private static final String CACHE_FILE_PREFIX = "fragment-result-";
+    private static final String CACHE_FILE_SUFFIX = ".bin";
+    private static final String CACHE_FILE_GLOB = CACHE_FILE_PREFIX + "*" + CACHE_FILE_SUFFIX;
+    private static final int BUFFER_SIZE = 4 * 1024;
+
+    private final JsonCodec<PlanNode> planCodec;
+    private final PagesSerdeFactory pagesSerdeFactory;
+    private final long maxEntrySizeInBytes;
+    private final Cache<FragmentCacheKey, List<SerializedPage>> memoryCache;
+    private final Optional<Path> diskPath;
+    private final Optional<Cache<FragmentCacheKey, CachedFile>> diskCache;
+    private final ExecutorService flushExecutor;
+
+    private final CounterStat memoryHits = new CounterStat();
+    private final CounterStat diskHits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat uncacheable = new CounterStat();
+
+    @Inject
+    public FragmentResultCacheManager(TaskManagerConfig config, BlockEncodingSerde blockEncodingSerde, JsonCodec<PlanNode> planCodec)
+    {
+        this(
+                blockEncodingSerde,
+                planCodec,
+                config.getFragmentResultCacheMaxMemory().toBytes(),
+                config.getFragmentResultCacheMaxEntrySize().toBytes(),
+                config.getFragmentResultCacheTtl().toMillis(),
+                Optional.ofNullable(config.getFragmentResultCacheDiskPath()),
+                config.getFragmentResultCacheMaxDiskSize().toBytes(),
+                newSingleThreadExecutor(daemonThreadsNamed("fragment-result-cache-flusher")));
+    }
+
+    @VisibleForTesting
+    FragmentResultCacheManager(
+            BlockEncodingSerde blockEncodingSerde,
+            JsonCodec<PlanNode> planCodec,
+            long maxMemorySizeInBytes,
+            long maxEntrySizeInBytes,
+            long ttlMillis,
+            Optional<Path> diskPath,
+            long maxDiskSizeInBytes,
+            ExecutorService flushExecutor)
+    {
+        this.planCodec = requireNonNull(planCodec, "planCodec is null");
+        this.pagesSerdeFactory = new PagesSerdeFactory(requireNonNull(blockEncodingSerde, "blockEncodingSerde is null"), true);
+        this.maxEntrySizeInBytes = maxEntrySizeInBytes;
+        this.diskPath = requireNonNull(diskPath, "diskPath is null");
+        this.flushExecutor = requireNonNull(flushExecutor, "flushExecutor is null");
+        this.memoryCache = CacheBuilder.newBuilder()
+                .maximumWeight(maxMemorySizeInBytes)
+                .<FragmentCacheKey, List<SerializedPage>>weigher((key, pages) -> Ints.saturatedCast(key.getRetainedSizeInBytes() + getRetainedSizeInBytes(pages)))
+                .expireAfterWrite(ttlMillis, MILLISECONDS)
+                .removalListener(this::onMemoryRemoval)
+                .build();
+        this.diskCache = diskPath.map(path -> {
+            try {
+                createDirectories(path);
+            }
+            catch (IOException e) {
+                throw new IllegalArgumentException(
+                        format("could not create fragment result cache path %s; adjust task.fragment-result-cache-disk-path config property or filesystem permissions", path), e);
+            }
+            cleanupOldCacheFiles(path);
+            return CacheBuilder.newBuilder()
+                    .maximumWeight(maxDiskSizeInBytes)
+                    .<FragmentCacheKey, CachedFile>weigher((key, file) -> Ints.saturatedCast(file.getSizeInBytes()))
+                    .expireAfterWrite(ttlMillis, MILLISECONDS)
+                    .removalListener(FragmentResultCacheManager::onDiskRemoval)
+                    .build();
+        });
+    }
+
+    @PreDestroy
+    public void destroy()
+    {
+        flushExecutor.shutdownNow();
+        diskCache.ifPresent(Cache::invalidateAll);
+    }
+
+    /**
+     * Returns the context for caching the output of the fragment, or empty if its output must not be cached.
+     * The output is cached only for a scan, optionally followed by filters, projections and a partial aggregation,
+     * in which no expression depends on the time or on random values.
+     */
+    public Optional<FragmentResultCacheContext> createContext(Session session, PlanNode root)
+    {
+        if (!isFragmentResultCacheEnabled(session)) {
+            return Optional.empty();
+        }
+
+        Optional<String> fragment = canonicalize(session, root);
+        if (!fragment.isPresent()) {
+            uncacheable.update(1);
+            return Optional.empty();
+        }
+        return Optional.of(new FragmentResultCacheContext(this, fragment.get(), pagesSerdeFactory));
+    }
+
+    private Optional<String> canonicalize(Session session, PlanNode root)
+    {
+        for (Expression expression : extractExpressions(root)) {
+            if (!isDeterministic(expression) || dependsOnSessionTime(expression) || !extractDynamicFilters(expression).getDynamicConjuncts().isEmpty()) {
+                return Optional.empty();
+            }
+        }
+
+        // symbol names and plan node ids depend on the rest of the query, so they are replaced with
+        // names and ids that depend only on the structure of the fragment
+        Optional<PlanNode> canonicalRoot = root.accept(new Canonicalizer(), null);
+        if (!canonicalRoot.isPresent()) {
+            return Optional.empty();
+        }
+
+        String plan;
+        try {
+            plan = planCodec.toJson(canonicalRoot.get());
+        }
+        catch (IllegalArgumentException e) {
+            // the plan contains a handle that cannot be serialized
+            return Optional.empty();
+        }
+
+        Hasher hasher = Hashing.sha256().newHasher()
+                .putString(plan, UTF_8)
+                .putString(session.getTimeZoneKey().getId(), UTF_8)
+                .putString(session.getLocale().toLanguageTag(), UTF_8)
+                .putString(new TreeMap<>(session.getSystemProperties()).toString(), UTF_8);
+        session.getConnectorProperties().entrySet().stream()
+                .sorted(comparing(entry -> entry.getKey().toString()))
+                .forEach(entry -> hasher
+                        .putString(entry.getKey().toString(), UTF_8)
+                        .putString(new TreeMap<>(entry.getValue()).toString(), UTF_8));
+        return Optional.of(hasher.hash().toString());
+    }
+
+    public Optional<List<SerializedPage>> get(FragmentCacheKey key)
+    {
+        requireNonNull(key, "key is null");
+        List<SerializedPage> pages = memoryCache.getIfPresent(key);
+        if (pages != null) {
+            memoryHits.update(1);
+            return Optional.of(pages);
+        }
+
+        if (diskCache.isPresent()) {
+            CachedFile file = diskCache.get().getIfPresent(key);
+            if (file != null) {
+                Optional<List<SerializedPage>> loaded = readFile(file.getPath());
+                if (loaded.isPresent()) {
+                    diskHits.update(1);
+                    // move the result back to memory, where it is written to disk again if it is evicted
+                    diskCache.get().invalidate(key);
+                    memoryCache.put(key, loaded.get());
+                    return loaded;
+                }
+            }
+        }
+
+        misses.update(1);
+        return Optional.empty();
+    }
+
+    public void put(FragmentCacheKey key, List<SerializedPage> pages)
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(pages, "pages is null");
+        if (getRetainedSizeInBytes(pages) <= maxEntrySizeInBytes) {
+            memoryCache.put(key, ImmutableList.copyOf(pages));
+        }
+    }
+
+    public long getMaxEntrySizeInBytes()
+    {
+        return maxEntrySizeInBytes;
+    }
+
+    private void onMemoryRemoval(RemovalNotification<FragmentCacheKey, List<SerializedPage>> notification)
+    {
+        // only results pushed out by newer ones are kept on disk; expired and replaced results are dropped
+        if (notification.getCause() != RemovalCause.SIZE || !diskCache.isPresent()) {
+            return;
+        }
+        FragmentCacheKey key = notification.getKey();
+        List<SerializedPage> pages = notification.getValue();
+        flushExecutor.execute(() -> writeFile(key, pages));
+    }
+
+    private void writeFile(FragmentCacheKey key, List<SerializedPage> pages)
+    {
+        Path file = diskPath.get().resolve(CACHE_FILE_PREFIX + randomUUID() + CACHE_FILE_SUFFIX);
+        long sizeInBytes;
+        try (SliceOutput output = new OutputStreamSliceOutput(newOutputStream(file), BUFFER_SIZE)) {
+            sizeInBytes = writeSerializedPages(output, pages);
+        }
+        catch (IOException | UncheckedIOException e) {
+            log.warn(e, "Failed to write fragment result to %s", file);
+            deleteFile(file);
+            return;
+        }
+        diskCache.get().put(key, new CachedFile(file, sizeInBytes));
+    }
+
+    private static Optional<List<SerializedPage>> readFile(Path file)
+    {
+        try (InputStream input = newInputStream(file)) {
+            return Optional.of(ImmutableList.copyOf(readSerializedPages(new InputStreamSliceInput(input, BUFFER_SIZE))));
+        }
+        catch (IOException | UncheckedIOException e) {
+            // the file can be removed by a concurrent eviction
+            log.debug(e, "Failed to read fragment result from %s", file);
+            return Optional.empty();
+        }
+    }
+
+    private static void onDiskRemoval(RemovalNotification<FragmentCacheKey, CachedFile> notification)
+    {
+        deleteFile(notification.getValue().getPath());
+    }
+
+    private static void deleteFile(Path file)
+    {
+        try {
+            deleteIfExists(file);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to delete fragment result file %s", file);
+        }
+    }
+
+    private static void cleanupOldCacheFiles(Path path)
+    {
+        try (DirectoryStream<Path> stream = newDirectoryStream(path, CACHE_FILE_GLOB)) {
+            stream.forEach(FragmentResultCacheManager::deleteFile);
+        }
+        catch (IOException e) {
+            log.warn(e, "Error cleaning fragment result files");
+        }
+    }
+
+    private static long getRetainedSizeInBytes(List<SerializedPage> pages)
+    {
+        return pages.stream()
+                .mapToLong(SerializedPage::getRetainedSizeInBytes)
+                .sum();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMemoryHits()
+    {
+        return memoryHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getDiskHits()
+    {
+        return diskHits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getUncacheable()
+    {
+        return uncacheable;
+    }
+
+    @Managed
+    public long getMemoryEntryCount()
+    {
+        return memoryCache.size();
+    }
+
+    @Managed
+    public long getDiskEntryCount()
+    {
+        return diskCache.map(Cache::size).orElse(0L);
+    }
+
+    @Managed
+    public long getMemoryRetainedSizeInBytes()
+    {
+        return memoryCache.asMap().entrySet().stream()
+                .mapToLong(entry -> entry.getKey().getRetainedSizeInBytes() + getRetainedSizeInBytes(entry.getValue()))
+                .sum();
+    }
+
+    @Managed
+    public long getDiskSizeInBytes()
+    {
+        return diskCache.map(cache -> cache.asMap().values().stream()
+                .mapToLong(CachedFile::getSizeInBytes)
+                .sum())
+                .orElse(0L);
+    }
+
+    private static class Canonicalizer
+            extends PlanVisitor<Optional<PlanNode>, Void>
+    {
+        private final PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+        private final Map<Symbol, Symbol> mapping = new HashMap<>();
+        private int nextSymbolId;
+
+        @Override
+        protected Optional<PlanNode> visitPlan(PlanNode node, Void context)
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<PlanNode> visitTableScan(TableScanNode node, Void context)
+        {
+            ImmutableList.Builder<Symbol> outputs = ImmutableList.builder();
+            ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+            for (Symbol symbol : node.getOutputSymbols()) {
+                if (!define(symbol)) {
+                    return Optional.empty();
+                }
+                outputs.add(mapping.get(symbol));
+                assignments.put(mapping.get(symbol), node.getAssignments().get(symbol));
+            }
+            // the node is only serialized, so the enforced constraint, which is not part of the JSON form, is not needed
+            return Optional.of(new TableScanNode(idAllocator.getNextId(), node.getTable(), outputs.build(), assignments.build()));
+        }
+
+        @Override
+        public Optional<PlanNode> visitFilter(FilterNode node, Void context)
+        {
+            return node.getSource().accept(this, context)
+                    .map(source -> new FilterNode(idAllocator.getNextId(), source, new SymbolMapper(mapping).map(node.getPredicate())));
+        }
+
+        @Override
+        public Optional<PlanNode> visitProject(ProjectNode node, Void context)
+        {
+            Optional<PlanNode> source = node.getSource().accept(this, context);
+            if (!source.isPresent()) {
+                return Optional.empty();
+            }
+            // map the expressions before the outputs, which can have the names of source symbols
+            SymbolMapper sourceMapper = new SymbolMapper(mapping);
+            Map<Symbol, Expression> expressions = new HashMap<>();
+            node.getAssignments().forEach((symbol, expression) -> expressions.put(symbol, sourceMapper.map(expression)));
+
+            Assignments.Builder assignments = Assignments.builder();
+            for (Symbol symbol : node.getOutputSymbols()) {
+                if (!define(symbol)) {
+                    return Optional.empty();
+                }
+                assignments.put(mapping.get(symbol), expressions.get(symbol));
+            }
+            return Optional.of(new ProjectNode(idAllocator.getNextId(), source.get(), assignments.build()));
+        }
+
+        @Override
+        public Optional<PlanNode> visitAggregation(AggregationNode node, Void context)
+        {
+            if (node.getStep() != PARTIAL || node.getGroupIdSymbol().isPresent()) {
+                return Optional.empty();
+            }
+            Optional<PlanNode> source = node.getSource().accept(this, context);
+            if (!source.isPresent()) {
+                return Optional.empty();
+            }
+            for (Symbol symbol : node.getAggregations().keySet()) {
+                if (!define(symbol)) {
+                    return Optional.empty();
+                }
+            }
+            return Optional.of(new SymbolMapper(mapping).map(node, source.get(), idAllocator));
+        }
+
+        private boolean define(Symbol symbol)
+        {
+            // a symbol that looks like a canonical one would make the mapping ambiguous
+            if (symbol.getName().startsWith(CANONICAL_SYMBOL_PREFIX)) {
+                return false;
+            }
+            mapping.put(symbol, new Symbol(CANONICAL_SYMBOL_PREFIX + nextSymbolId++));
+            return true;
+        }
+    }
+
+    private static class CachedFile
+    {
+        private final Path path;
+        private final long sizeInBytes;
+
+        public CachedFile(Path path, long sizeInBytes)
+        {
+            this.path = requireNonNull(path, "path is null");
+            checkArgument(sizeInBytes >= 0, "sizeInBytes is negative");
+            this.sizeInBytes = sizeInBytes;
+        }
+
+        public Path getPath()
+        {
+            return path;
+        }
+
+        public long getSizeInBytes()
+        {
+            return sizeInBytes;
+        }
+    }
+}
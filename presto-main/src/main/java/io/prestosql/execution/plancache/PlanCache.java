@@ -0,0 +1,404 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.plancache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Ticker;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.stats.CounterStat;
+import io.prestosql.Session;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.execution.QueryManagerConfig;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.QualifiedObjectName;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.spi.connector.ConnectorTransactionHandle;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.analyzer.Analysis;
+import io.prestosql.sql.planner.Plan;
+import io.prestosql.sql.planner.plan.IndexSourceNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.SimplePlanRewriter;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.tree.CurrentTime;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.FunctionCall;
+import io.prestosql.sql.tree.NodeRef;
+import io.prestosql.sql.tree.Parameter;
+import io.prestosql.sql.tree.Query;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.inject.Inject;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static io.prestosql.SystemSessionProperties.isPlanCacheEnabled;
+import static io.prestosql.sql.SqlFormatter.formatSql;
+import static io.prestosql.sql.planner.SessionTimeEvaluator.dependsOnSessionTime;
+import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Plans of queries, kept on the coordinator so that a repeated statement is analyzed but not planned again.
+ * <p>
+ * The optimized plan of a statement without parameters is stored with the versions of the table handles it scans,
+ * which carry the partitions pruned while planning, and is reused only while those versions are unchanged. The versions
+ * are checked again when a plan is reused after the table version check interval, or after a query of this coordinator
+ * wrote to a table.
+ * <p>
+ * A prepared statement with parameters is stored as a {@link PlanTemplate}, planned before the values of its parameters
+ * are bound, so that all executions of the statement share it. Each execution binds its values and is then optimized,
+ * since the optimizers fold the values into the plan and into the table handles they push predicates into. A template
+ * does not depend on the data of the tables, so it is not versioned.
+ * <p>
+ * Plans are discarded when they expire and whenever a data definition statement completes.
+ */
+public class PlanCache
+{
+    private final Metadata metadata;
+    private final Ticker ticker;
+    private final long tableVersionCheckIntervalNanos;
+    private final Cache<PlanCacheKey, CachedPlan> cache;
+    private final Cache<PlanCacheKey, PlanTemplate> templates;
+    // incremented whenever a query of this coordinator wrote to a table
+    private final AtomicLong writeCount = new AtomicLong();
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat uncacheable = new CounterStat();
+    private final CounterStat invalidations = new CounterStat();
+
+    @Inject
+    public PlanCache(QueryManagerConfig config, Metadata metadata)
+    {
+        this(
+                metadata,
+                config.getPlanCacheMaxEntries(),
+                config.getPlanCacheTtl().toMillis(),
+                config.getPlanCacheTableVersionCheckInterval().toMillis(),
+                Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    PlanCache(Metadata metadata, long maxEntries, long ttlMillis, long tableVersionCheckIntervalMillis, Ticker ticker)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.ticker = requireNonNull(ticker, "ticker is null");
+        this.tableVersionCheckIntervalNanos = MILLISECONDS.toNanos(tableVersionCheckIntervalMillis);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlMillis, MILLISECONDS)
+                .ticker(ticker)
+                .build();
+        this.templates = CacheBuilder.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttlMillis, MILLISECONDS)
+                .ticker(ticker)
+                .build();
+    }
+
+    /**
+     * Returns the key of the plan of the analyzed statement, or empty if the plan must not be cached. The optimized
+     * plan of a statement without parameters is cached only if nothing in it depends on the time the query runs,
+     * since the optimizers evaluate such functions while planning.
+     */
+    public Optional<PlanCacheKey> createKey(Session session, Analysis analysis)
+    {
+        if (!isPlanCacheEnabled(session)) {
+            return Optional.empty();
+        }
+
+        Optional<PlanCacheKey> key = doCreateKey(session, analysis);
+        if (!key.isPresent()) {
+            uncacheable.update(1);
+        }
+        return key;
+    }
+
+    private Optional<PlanCacheKey> doCreateKey(Session session, Analysis analysis)
+    {
+        if (!(analysis.getStatement() instanceof Query)) {
+            return Optional.empty();
+        }
+
+        if (analysis.getParameters().isEmpty()) {
+            // the types cover every analyzed expression, including those of the views the query reads
+            for (NodeRef<Expression> expression : analysis.getTypes().keySet()) {
+                if (expression.getNode() instanceof CurrentTime) {
+                    return Optional.empty();
+                }
+                if (expression.getNode() instanceof FunctionCall && dependsOnSessionTime(expression.getNode())) {
+                    return Optional.empty();
+                }
+            }
+        }
+
+        // the types of the values, rather than the values, are part of the key, since the planner coerces parameters by type
+        Map<Integer, String> parameters = new TreeMap<>();
+        for (NodeRef<Parameter> parameter : analysis.getParameters().keySet()) {
+            String type = analysis.getType(parameter.getNode()).getTypeSignature().toString();
+            Type coercion = analysis.getCoercion(parameter.getNode());
+            if (coercion != null) {
+                type += "->" + coercion.getTypeSignature();
+            }
+            parameters.put(parameter.getNode().getPosition(), type);
+        }
+
+        return Optional.of(new PlanCacheKey(
+                formatSql(analysis.getStatement()),
+                ImmutableList.copyOf(parameters.values()),
+                session.getUser(),
+                session.getCatalog(),
+                session.getSchema(),
+                session.getPath(),
+                session.getTimeZoneKey(),
+                session.getLocale(),
+                session.getSystemProperties(),
+                session.getConnectorProperties()));
+    }
+
+    /**
+     * Returns the cached optimized plan with its tables bound to the transaction of the analyzed query, if the tables
+     * it scans are unchanged.
+     */
+    public Optional<Plan> get(Session session, PlanCacheKey key, Analysis analysis)
+    {
+        requireNonNull(session, "session is null");
+        requireNonNull(key, "key is null");
+        requireNonNull(analysis, "analysis is null");
+        checkArgument(analysis.getParameters().isEmpty(), "The plans of statements with parameters are cached as templates");
+        CachedPlan cachedPlan = cache.getIfPresent(key);
+        if (cachedPlan == null) {
+            misses.update(1);
+            return Optional.empty();
+        }
+        Plan plan = cachedPlan.getPlan();
+
+        Map<CatalogName, ConnectorTransactionHandle> transactions = new HashMap<>();
+        for (TableHandle table : analysis.getTables()) {
+            transactions.put(table.getCatalogName(), table.getTransaction());
+        }
+        boolean bound = searchFrom(plan.getRoot())
+                .where(TableScanNode.class::isInstance)
+                .<TableScanNode>findAll().stream()
+                .allMatch(tableScan -> transactions.containsKey(tableScan.getTable().getCatalogName()));
+        if (!bound) {
+            misses.update(1);
+            return Optional.empty();
+        }
+
+        PlanNode root = SimplePlanRewriter.rewriteWith(new TransactionRebinder(ImmutableMap.copyOf(transactions)), plan.getRoot());
+        if (!cachedPlan.isValidated(writeCount.get(), ticker.read())) {
+            long validationWriteCount = writeCount.get();
+            if (!getTableVersions(session, root).equals(Optional.of(cachedPlan.getTableVersions()))) {
+                cache.invalidate(key);
+                misses.update(1);
+                return Optional.empty();
+            }
+            cachedPlan.setValidated(validationWriteCount, ticker.read());
+        }
+
+        hits.update(1);
+        return Optional.of(new Plan(root, plan.getTypes(), plan.getStatsAndCosts()));
+    }
+
+    /**
+     * Returns the cached template of the plan of a statement with parameters.
+     */
+    public Optional<PlanTemplate> getTemplate(PlanCacheKey key)
+    {
+        requireNonNull(key, "key is null");
+        PlanTemplate template = templates.getIfPresent(key);
+        if (template == null) {
+            misses.update(1);
+            return Optional.empty();
+        }
+        hits.update(1);
+        return Optional.of(template);
+    }
+
+    public void putTemplate(PlanCacheKey key, PlanTemplate template)
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(template, "template is null");
+        templates.put(key, template);
+    }
+
+    public void put(Session session, PlanCacheKey key, Analysis analysis, Plan plan)
+    {
+        requireNonNull(session, "session is null");
+        requireNonNull(key, "key is null");
+        requireNonNull(analysis, "analysis is null");
+        requireNonNull(plan, "plan is null");
+        // index handles are bound to the transaction that resolved them
+        if (searchFrom(plan.getRoot()).where(IndexSourceNode.class::isInstance).matches()) {
+            uncacheable.update(1);
+            return;
+        }
+
+        // a table that is not scanned was answered while planning, for example from its partitions or because none of them matched
+        Set<QualifiedObjectName> scannedTables = searchFrom(plan.getRoot())
+                .where(TableScanNode.class::isInstance)
+                .<TableScanNode>findAll().stream()
+                .map(tableScan -> metadata.getTableMetadata(session, tableScan.getTable()).getQualifiedName())
+                .collect(toImmutableSet());
+        boolean scansAllTables = analysis.getTables().stream()
+                .map(table -> metadata.getTableMetadata(session, table).getQualifiedName())
+                .allMatch(scannedTables::contains);
+
+        long validationWriteCount = writeCount.get();
+        Optional<List<String>> tableVersions = getTableVersions(session, plan.getRoot());
+        if (!scansAllTables || !tableVersions.isPresent()) {
+            uncacheable.update(1);
+            return;
+        }
+        CachedPlan cachedPlan = new CachedPlan(plan, tableVersions.get());
+        cachedPlan.setValidated(validationWriteCount, ticker.read());
+        cache.put(key, cachedPlan);
+    }
+
+    private Optional<List<String>> getTableVersions(Session session, PlanNode root)
+    {
+        ImmutableList.Builder<String> tableVersions = ImmutableList.builder();
+        for (TableScanNode tableScan : searchFrom(root).where(TableScanNode.class::isInstance).<TableScanNode>findAll()) {
+            Optional<String> tableVersion = metadata.getTableVersion(session, tableScan.getTable());
+            if (!tableVersion.isPresent()) {
+                return Optional.empty();
+            }
+            tableVersions.add(tableVersion.get());
+        }
+        return Optional.of(tableVersions.build());
+    }
+
+    public void invalidateAll()
+    {
+        invalidations.update(1);
+        cache.invalidateAll();
+        templates.invalidateAll();
+    }
+
+    /**
+     * Records that a query wrote to a table, so that the table versions of each cached plan are checked on its next use.
+     */
+    public void tableWritten()
+    {
+        writeCount.incrementAndGet();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getUncacheable()
+    {
+        return uncacheable;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getInvalidations()
+    {
+        return invalidations;
+    }
+
+    @Managed
+    public long getEntryCount()
+    {
+        return cache.size() + templates.size();
+    }
+
+    private class CachedPlan
+    {
+        private final Plan plan;
+        private final List<String> tableVersions;
+        // the write count and time at which the table versions were last found unchanged
+        private volatile long validatedWriteCount;
+        private volatile long validatedNanos;
+
+        public CachedPlan(Plan plan, List<String> tableVersions)
+        {
+            this.plan = requireNonNull(plan, "plan is null");
+            this.tableVersions = ImmutableList.copyOf(requireNonNull(tableVersions, "tableVersions is null"));
+        }
+
+        public Plan getPlan()
+        {
+            return plan;
+        }
+
+        public List<String> getTableVersions()
+        {
+            return tableVersions;
+        }
+
+        public boolean isValidated(long currentWriteCount, long currentNanos)
+        {
+            return validatedWriteCount == currentWriteCount && currentNanos - validatedNanos < tableVersionCheckIntervalNanos;
+        }
+
+        public void setValidated(long writeCount, long nanos)
+        {
+            validatedWriteCount = writeCount;
+            validatedNanos = nanos;
+        }
+    }
+
+    private static class TransactionRebinder
+            extends SimplePlanRewriter<Void>
+    {
+        private final Map<CatalogName, ConnectorTransactionHandle> transactions;
+
+        private TransactionRebinder(Map<CatalogName, ConnectorTransactionHandle> transactions)
+        {
+            this.transactions = requireNonNull(transactions, "transactions is null");
+        }
+
+        @Override
+        public PlanNode visitTableScan(TableScanNode node, RewriteContext<Void> context)
+        {
+            TableHandle table = node.getTable();
+            TableHandle boundTable = new TableHandle(
+                    table.getCatalogName(),
+                    table.getConnectorHandle(),
+                    transactions.get(table.getCatalogName()),
+                    table.getLayout());
+            return new TableScanNode(node.getId(), boundTable, node.getOutputSymbols(), node.getAssignments(), node.getEnforcedConstraint());
+        }
+    }
+}
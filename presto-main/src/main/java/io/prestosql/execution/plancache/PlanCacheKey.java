@@ -0,0 +1,127 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.plancache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.spi.type.TimeZoneKey;
+import io.prestosql.sql.SqlPath;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the plan of a statement: the statement text, the types of the values bound to its parameters,
+ * and the parts of the session that can change how it is planned.
+ */
+public final class PlanCacheKey
+{
+    private final String statement;
+    private final List<String> parameters;
+    private final String user;
+    private final Optional<String> catalog;
+    private final Optional<String> schema;
+    private final SqlPath path;
+    private final TimeZoneKey timeZoneKey;
+    private final Locale locale;
+    private final Map<String, String> systemProperties;
+    private final Map<CatalogName, Map<String, String>> catalogProperties;
+    private final int hashCode;
+
+    public PlanCacheKey(
+            String statement,
+            List<String> parameters,
+            String user,
+            Optional<String> catalog,
+            Optional<String> schema,
+            SqlPath path,
+            TimeZoneKey timeZoneKey,
+            Locale locale,
+            Map<String, String> systemProperties,
+            Map<CatalogName, Map<String, String>> catalogProperties)
+    {
+        this.statement = requireNonNull(statement, "statement is null");
+        this.parameters = ImmutableList.copyOf(requireNonNull(parameters, "parameters is null"));
+        this.user = requireNonNull(user, "user is null");
+        this.catalog = requireNonNull(catalog, "catalog is null");
+        this.schema = requireNonNull(schema, "schema is null");
+        this.path = requireNonNull(path, "path is null");
+        this.timeZoneKey = requireNonNull(timeZoneKey, "timeZoneKey is null");
+        this.locale = requireNonNull(locale, "locale is null");
+        this.systemProperties = ImmutableMap.copyOf(requireNonNull(systemProperties, "systemProperties is null"));
+        this.catalogProperties = ImmutableMap.copyOf(requireNonNull(catalogProperties, "catalogProperties is null"));
+        this.hashCode = Objects.hash(
+                statement,
+                this.parameters,
+                user,
+                catalog,
+                schema,
+                path,
+                timeZoneKey,
+                locale,
+                this.systemProperties,
+                this.catalogProperties);
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        PlanCacheKey other = (PlanCacheKey) o;
+        return hashCode == other.hashCode &&
+                statement.equals(other.statement) &&
+                parameters.equals(other.parameters) &&
+                user.equals(other.user) &&
+                catalog.equals(other.catalog) &&
+                schema.equals(other.schema) &&
+                path.equals(other.path) &&
+                timeZoneKey.equals(other.timeZoneKey) &&
+                locale.equals(other.locale) &&
+                systemProperties.equals(other.systemProperties) &&
+                catalogProperties.equals(other.catalogProperties);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("statement", statement)
+                .add("parameters", parameters)
+                .add("user", user)
+                .add("catalog", catalog.orElse(null))
+                .add("schema", schema.orElse(null))
+                .add("path", path)
+                .add("timeZoneKey", timeZoneKey)
+                .add("locale", locale)
+                .toString();
+    }
+}
@@ -0,0 +1,229 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.plancache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.sql.analyzer.Analysis;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.TypeProvider;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import io.prestosql.sql.planner.plan.SimplePlanRewriter;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.planner.plan.ValuesNode;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.ExpressionRewriter;
+import io.prestosql.sql.tree.ExpressionTreeRewriter;
+import io.prestosql.sql.tree.NodeRef;
+import io.prestosql.sql.tree.Parameter;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.sql.planner.ExpressionExtractor.extractExpressions;
+import static io.prestosql.sql.planner.SubExpressionExtractor.extract;
+import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Plan of a prepared statement in which the parameters are left in place of their values. The plan is not
+ * optimized: each execution binds its own values and table handles to it, and the optimizers then fold the
+ * values into the plan and push them into the table handles.
+ */
+public final class PlanTemplate
+{
+    private final PlanNode root;
+    private final TypeProvider types;
+    private final int nextPlanNodeId;
+    private final int tableCount;
+    // index of the scanned table in the tables of the analysis
+    private final Map<PlanNodeId, Integer> scanTables;
+
+    private PlanTemplate(PlanNode root, TypeProvider types, int nextPlanNodeId, int tableCount, Map<PlanNodeId, Integer> scanTables)
+    {
+        this.root = requireNonNull(root, "root is null");
+        this.types = requireNonNull(types, "types is null");
+        this.nextPlanNodeId = nextPlanNodeId;
+        this.tableCount = tableCount;
+        this.scanTables = ImmutableMap.copyOf(requireNonNull(scanTables, "scanTables is null"));
+    }
+
+    /**
+     * Creates the template of a plan produced with unbound parameters for the analyzed statement, or returns empty
+     * if the values of the statement cannot be bound to the plan, for example because one of them was used while
+     * analyzing the statement.
+     */
+    public static Optional<PlanTemplate> create(PlanNode root, TypeProvider types, PlanNodeIdAllocator idAllocator, Analysis analysis)
+    {
+        List<TableHandle> tables = ImmutableList.copyOf(analysis.getTables());
+        Map<PlanNodeId, Integer> scanTables = new HashMap<>();
+        for (TableScanNode tableScan : searchFrom(root).where(TableScanNode.class::isInstance).<TableScanNode>findAll()) {
+            int index = indexOf(tables, tableScan.getTable());
+            if (index < 0) {
+                return Optional.empty();
+            }
+            scanTables.put(tableScan.getId(), index);
+        }
+
+        PlanTemplate template = new PlanTemplate(root, types, idAllocator.getNextIdValue(), tables.size(), scanTables);
+        if (!template.bind(analysis).isPresent()) {
+            return Optional.empty();
+        }
+        return Optional.of(template);
+    }
+
+    private static int indexOf(List<TableHandle> tables, TableHandle table)
+    {
+        for (int i = 0; i < tables.size(); i++) {
+            // the planner scans the handles of the analysis
+            if (tables.get(i) == table) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public TypeProvider getTypes()
+    {
+        return types;
+    }
+
+    /**
+     * Returns an allocator for the nodes added to a bound copy of the template.
+     */
+    public PlanNodeIdAllocator createIdAllocator()
+    {
+        return new PlanNodeIdAllocator(nextPlanNodeId);
+    }
+
+    /**
+     * Returns the plan with the parameter values and table handles of the analyzed execution of the statement,
+     * or empty if they cannot be bound to the plan.
+     */
+    public Optional<PlanNode> bind(Analysis analysis)
+    {
+        List<TableHandle> tables = ImmutableList.copyOf(analysis.getTables());
+        if (tables.size() != tableCount) {
+            return Optional.empty();
+        }
+        Map<Integer, Expression> values = new HashMap<>();
+        for (Map.Entry<NodeRef<Parameter>, Expression> entry : analysis.getParameters().entrySet()) {
+            values.put(entry.getKey().getNode().getPosition(), entry.getValue());
+        }
+
+        Binder binder = new Binder(tables, values);
+        PlanNode bound = SimplePlanRewriter.rewriteWith(binder, root);
+        boolean unboundParameters = extractExpressions(bound).stream()
+                .flatMap(expression -> extract(expression).stream())
+                .anyMatch(Parameter.class::isInstance);
+        if (unboundParameters || !binder.getBoundPositions().equals(values.keySet())) {
+            return Optional.empty();
+        }
+        return Optional.of(bound);
+    }
+
+    private class Binder
+            extends SimplePlanRewriter<Void>
+    {
+        private final List<TableHandle> tables;
+        private final Map<Integer, Expression> values;
+        private final Set<Integer> boundPositions = new HashSet<>();
+
+        private Binder(List<TableHandle> tables, Map<Integer, Expression> values)
+        {
+            this.tables = requireNonNull(tables, "tables is null");
+            this.values = requireNonNull(values, "values is null");
+        }
+
+        public Set<Integer> getBoundPositions()
+        {
+            return boundPositions;
+        }
+
+        @Override
+        public PlanNode visitTableScan(TableScanNode node, RewriteContext<Void> context)
+        {
+            TableHandle table = tables.get(scanTables.get(node.getId()));
+            return new TableScanNode(node.getId(), table, node.getOutputSymbols(), node.getAssignments(), node.getEnforcedConstraint());
+        }
+
+        @Override
+        public PlanNode visitFilter(FilterNode node, RewriteContext<Void> context)
+        {
+            return new FilterNode(node.getId(), context.rewrite(node.getSource()), bind(node.getPredicate()));
+        }
+
+        @Override
+        public PlanNode visitProject(ProjectNode node, RewriteContext<Void> context)
+        {
+            return new ProjectNode(node.getId(), context.rewrite(node.getSource()), node.getAssignments().rewrite(this::bind));
+        }
+
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Void> context)
+        {
+            return new JoinNode(
+                    node.getId(),
+                    node.getType(),
+                    context.rewrite(node.getLeft()),
+                    context.rewrite(node.getRight()),
+                    node.getCriteria(),
+                    node.getOutputSymbols(),
+                    node.getFilter().map(this::bind),
+                    node.getLeftHashSymbol(),
+                    node.getRightHashSymbol(),
+                    node.getDistributionType(),
+                    node.isSpillable(),
+                    node.getDynamicFilters());
+        }
+
+        @Override
+        public PlanNode visitValues(ValuesNode node, RewriteContext<Void> context)
+        {
+            List<List<Expression>> rows = node.getRows().stream()
+                    .map(row -> row.stream()
+                            .map(this::bind)
+                            .collect(toImmutableList()))
+                    .collect(toImmutableList());
+            return new ValuesNode(node.getId(), node.getOutputSymbols(), rows);
+        }
+
+        private Expression bind(Expression expression)
+        {
+            return ExpressionTreeRewriter.rewriteWith(new ExpressionRewriter<Void>()
+            {
+                @Override
+                public Expression rewriteParameter(Parameter node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+                {
+                    Expression value = values.get(node.getPosition());
+                    if (value == null) {
+                        return node;
+                    }
+                    boundPositions.add(node.getPosition());
+                    return value;
+                }
+            }, expression);
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.resultcache;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.primitives.Ints;
+import io.airlift.json.JsonCodec;
+import io.airlift.stats.CounterStat;
+import io.prestosql.Session;
+import io.prestosql.execution.QueryManagerConfig;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.sql.planner.DeterminismEvaluator;
+import io.prestosql.sql.planner.Plan;
+import io.prestosql.sql.planner.plan.DeleteNode;
+import io.prestosql.sql.planner.plan.ExplainAnalyzeNode;
+import io.prestosql.sql.planner.plan.IndexSourceNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.StatisticsWriterNode;
+import io.prestosql.sql.planner.plan.TableDeleteNode;
+import io.prestosql.sql.planner.plan.TableFinishNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.planner.plan.TableWriterNode;
+import io.prestosql.sql.tree.Expression;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.inject.Inject;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static io.prestosql.SystemSessionProperties.isQueryResultCacheEnabled;
+import static io.prestosql.sql.planner.ExpressionExtractor.extractExpressions;
+import static io.prestosql.sql.planner.SessionTimeEvaluator.dependsOnSessionTime;
+import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Results of read-only queries, kept on the coordinator so that a repeated query over unchanged tables
+ * is answered without scheduling any stages. Entries are bounded in total size and expire after a fixed time.
+ */
+public class QueryResultCache
+{
+    // nodes with side effects, or whose output describes the execution rather than the data
+    private static final Set<Class<? extends PlanNode>> UNCACHEABLE_NODES = ImmutableSet.of(
+            TableWriterNode.class,
+            TableFinishNode.class,
+            DeleteNode.class,
+            TableDeleteNode.class,
+            StatisticsWriterNode.class,
+            ExplainAnalyzeNode.class,
+            IndexSourceNode.class);
+
+    private final Metadata metadata;
+    private final JsonCodec<PlanNode> planCodec;
+    private final long maxEntrySizeInBytes;
+    private final Cache<QueryResultCacheKey, CachedQueryResult> cache;
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat uncacheable = new CounterStat();
+
+    @Inject
+    public QueryResultCache(QueryManagerConfig config, Metadata metadata, JsonCodec<PlanNode> planCodec)
+    {
+        this(
+                metadata,
+                planCodec,
+                config.getResultCacheMaxSize().toBytes(),
+                config.getResultCacheMaxEntrySize().toBytes(),
+                config.getResultCacheTtl().toMillis());
+    }
+
+    @VisibleForTesting
+    QueryResultCache(Metadata metadata, JsonCodec<PlanNode> planCodec, long maxSizeInBytes, long maxEntrySizeInBytes, long ttlMillis)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.planCodec = requireNonNull(planCodec, "planCodec is null");
+        this.maxEntrySizeInBytes = maxEntrySizeInBytes;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSizeInBytes)
+                .<QueryResultCacheKey, CachedQueryResult>weigher((key, result) -> Ints.saturatedCast(key.getRetainedSizeInBytes() + result.getRetainedSizeInBytes()))
+                .expireAfterWrite(ttlMillis, MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Returns the key of the result of the plan, or empty if the result must not be cached. A result is cached
+     * only for read-only plans in which every table has a version and nothing depends on the time or on random values.
+     */
+    public Optional<QueryResultCacheKey> createKey(Session session, Plan plan)
+    {
+        if (!isQueryResultCacheEnabled(session)) {
+            return Optional.empty();
+        }
+
+        Optional<QueryResultCacheKey> key = doCreateKey(session, plan.getRoot());
+        if (!key.isPresent()) {
+            uncacheable.update(1);
+        }
+        return key;
+    }
+
+    private Optional<QueryResultCacheKey> doCreateKey(Session session, PlanNode root)
+    {
+        if (searchFrom(root).where(node -> UNCACHEABLE_NODES.contains(node.getClass())).matches()) {
+            return Optional.empty();
+        }
+
+        for (Expression expression : extractExpressions(root)) {
+            if (!DeterminismEvaluator.isDeterministic(expression) || dependsOnSessionTime(expression)) {
+                return Optional.empty();
+            }
+        }
+
+        ImmutableList.Builder<String> tableVersions = ImmutableList.builder();
+        List<TableScanNode> tableScans = searchFrom(root).where(TableScanNode.class::isInstance).findAll();
+        for (TableScanNode tableScan : tableScans) {
+            Optional<String> tableVersion = metadata.getTableVersion(session, tableScan.getTable());
+            if (!tableVersion.isPresent()) {
+                return Optional.empty();
+            }
+            tableVersions.add(tableVersion.get());
+        }
+
+        String plan;
+        try {
+            plan = planCodec.toJson(root);
+        }
+        catch (IllegalArgumentException e) {
+            // the plan contains a node or handle that cannot be serialized
+            return Optional.empty();
+        }
+
+        return Optional.of(new QueryResultCacheKey(
+                plan,
+                tableVersions.build(),
+                session.getUser(),
+                session.getTimeZoneKey(),
+                session.getLocale(),
+                session.getSystemProperties(),
+                session.getConnectorProperties()));
+    }
+
+    public Optional<CachedQueryResult> get(QueryResultCacheKey key)
+    {
+        requireNonNull(key, "key is null");
+        CachedQueryResult result = cache.getIfPresent(key);
+        if (result == null) {
+            misses.update(1);
+            return Optional.empty();
+        }
+        hits.update(1);
+        return Optional.of(result);
+    }
+
+    public void put(QueryResultCacheKey key, CachedQueryResult result)
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(result, "result is null");
+        if (result.getRetainedSizeInBytes() <= maxEntrySizeInBytes) {
+            cache.put(key, result);
+        }
+    }
+
+    public long getMaxEntrySizeInBytes()
+    {
+        return maxEntrySizeInBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getUncacheable()
+    {
+        return uncacheable;
+    }
+
+    @Managed
+    public long getEntryCount()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getRetainedSizeInBytes()
+    {
+        return cache.asMap().entrySet().stream()
+                .mapToLong(entry -> entry.getKey().getRetainedSizeInBytes() + entry.getValue().getRetainedSizeInBytes())
+                .sum();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.resultcache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.spi.type.TimeZoneKey;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Identifies the result of a query: the optimized plan, the versions of the tables it reads,
+ * and the parts of the session that can change the values the plan produces.
+ */
+public final class QueryResultCacheKey
+{
+    private final String plan;
+    private final List<String> tableVersions;
+    private final String user;
+    private final TimeZoneKey timeZoneKey;
+    private final Locale locale;
+    private final Map<String, String> systemProperties;
+    private final Map<CatalogName, Map<String, String>> catalogProperties;
+    private final int hashCode;
+
+    public QueryResultCacheKey(
+            String plan,
+            List<String> tableVersions,
+            String user,
+            TimeZoneKey timeZoneKey,
+            Locale locale,
+            Map<String, String> systemProperties,
+            Map<CatalogName, Map<String, String>> catalogProperties)
+    {
+        this.plan = requireNonNull(plan, "plan is null");
+        this.tableVersions = ImmutableList.copyOf(requireNonNull(tableVersions, "tableVersions is null"));
+        this.user = requireNonNull(user, "user is null");
+        this.timeZoneKey = requireNonNull(timeZoneKey, "timeZoneKey is null");
+        this.locale = requireNonNull(locale, "locale is null");
+        this.systemProperties = ImmutableMap.copyOf(requireNonNull(systemProperties, "systemProperties is null"));
+        this.catalogProperties = ImmutableMap.copyOf(requireNonNull(catalogProperties, "catalogProperties is null"));
+        this.hashCode = Objects.hash(plan, this.tableVersions, user, timeZoneKey, locale, this.systemProperties, this.catalogProperties);
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        // the plan dominates the size of the key
+        long size = Character.BYTES * (long) plan.length();
+        for (String tableVersion : tableVersions) {
+            size += Character.BYTES * (long) tableVersion.length();
+        }
+        return size;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        QueryResultCacheKey other = (QueryResultCacheKey) o;
+        return hashCode == other.hashCode &&
+                plan.equals(other.plan) &&
+                tableVersions.equals(other.tableVersions) &&
+                user.equals(other.user) &&
+                timeZoneKey.equals(other.timeZoneKey) &&
+                locale.equals(other.locale) &&
+                systemProperties.equals(other.systemProperties) &&
+                catalogProperties.equals(other.catalogProperties);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return hashCode;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("tableVersions", tableVersions)
+                .add("user", user)
+                .add("timeZoneKey", timeZoneKey)
+                .add("locale", locale)
+                .add("systemProperties", systemProperties)
+                .add("catalogProperties", catalogProperties)
+                .toString();
+    }
+}
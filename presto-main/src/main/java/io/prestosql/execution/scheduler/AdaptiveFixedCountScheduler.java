@@ -0,0 +1,433 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.scheduler;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.log.Logger;
+import io.airlift.units.DataSize;
+import io.prestosql.execution.RemoteTask;
+import io.prestosql.execution.SqlStageExecution;
+import io.prestosql.execution.StageInfo;
+import io.prestosql.execution.StageStats;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.TaskInfo;
+import io.prestosql.execution.TaskStatus;
+import io.prestosql.metadata.InternalNode;
+import io.prestosql.operator.OperatorStats;
+import io.prestosql.operator.PartitionedOutputOperator.PartitionedOutputInfo;
+import io.prestosql.sql.planner.plan.AggregationNode;
+import io.prestosql.sql.planner.plan.ExchangeNode;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanFragmentId;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import io.prestosql.sql.planner.plan.RemoteSourceNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.LongStream;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.util.concurrent.Futures.nonCancellationPropagating;
+import static io.prestosql.execution.scheduler.ScheduleResult.BlockedReason.WAITING_FOR_SOURCE_STAGES;
+import static io.prestosql.sql.planner.plan.AggregationNode.Step.PARTIAL;
+import static io.prestosql.sql.planner.plan.ExchangeNode.Scope.LOCAL;
+import static io.prestosql.sql.planner.plan.ExchangeNode.Type.REPARTITION;
+import static io.prestosql.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.LEFT;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Schedules the tasks of a stage that only reads spooled, partitioned output of other stages,
+ * once all those stages have finished. The number of tasks is then chosen from the actual size
+ * of the output, so that each task reads about the target size, and neighbouring partitions are
+ * coalesced into a single task when they are small.
+ * <p>
+ * When the stage probes a partitioned join, a probe partition that is much larger than the
+ * others is split across several tasks instead. Each of these tasks reads the partition from
+ * some of the probe source tasks, and the whole partition of the build side.
+ */
+public class AdaptiveFixedCountScheduler
+        implements StageScheduler
+{
+    private static final Logger log = Logger.get(AdaptiveFixedCountScheduler.class);
+
+    private final SqlStageExecution stage;
+    private final List<InternalNode> partitionToNode;
+    private final List<SqlStageExecution> sourceStages;
+    private final long targetPartitionSizeInBytes;
+    private final int skewedPartitionFactor;
+    private final Optional<RemoteSourceNode> splittableSource;
+    private final SplitSchedulerStats schedulerStats;
+
+    private final Map<SqlStageExecution, StageInfo> finalSourceStageInfos = new ConcurrentHashMap<>();
+    private final SettableFuture<?> sourceStagesDone = SettableFuture.create();
+
+    public AdaptiveFixedCountScheduler(
+            SqlStageExecution stage,
+            List<InternalNode> partitionToNode,
+            List<SqlStageExecution> sourceStages,
+            DataSize targetPartitionSize,
+            boolean skewedPartitionSplittingEnabled,
+            int skewedPartitionFactor,
+            SplitSchedulerStats schedulerStats)
+    {
+        this.stage = requireNonNull(stage, "stage is null");
+        this.partitionToNode = ImmutableList.copyOf(requireNonNull(partitionToNode, "partitionToNode is null"));
+        checkArgument(!partitionToNode.isEmpty(), "partitionToNode is empty");
+        this.sourceStages = ImmutableList.copyOf(requireNonNull(sourceStages, "sourceStages is null"));
+        checkArgument(!sourceStages.isEmpty(), "sourceStages is empty");
+        this.targetPartitionSizeInBytes = requireNonNull(targetPartitionSize, "targetPartitionSize is null").toBytes();
+        checkArgument(skewedPartitionFactor >= 1, "skewedPartitionFactor must be at least 1");
+        this.skewedPartitionFactor = skewedPartitionFactor;
+        this.schedulerStats = requireNonNull(schedulerStats, "schedulerStats is null");
+
+        Set<PlanFragmentId> sourceFragmentIds = sourceStages.stream()
+                .map(sourceStage -> sourceStage.getFragment().getId())
+                .collect(toImmutableSet());
+        if (skewedPartitionSplittingEnabled) {
+            // the partition sizes of all probe sources must be known
+            this.splittableSource = findSplittableJoinSource(stage.getFragment().getRoot())
+                    .filter(source -> sourceFragmentIds.containsAll(source.getSourceFragmentIds()));
+        }
+        else {
+            this.splittableSource = Optional.empty();
+        }
+
+        for (SqlStageExecution sourceStage : sourceStages) {
+            // the stats of a stage are complete once the final info of all its tasks is known
+            sourceStage.addFinalStageInfoListener(stageInfo -> {
+                finalSourceStageInfos.put(sourceStage, stageInfo);
+                if (finalSourceStageInfos.size() == this.sourceStages.size()) {
+                    sourceStagesDone.set(null);
+                }
+            });
+        }
+    }
+
+    @Override
+    public ScheduleResult schedule()
+    {
+        if (!sourceStagesDone.isDone()) {
+            // the scheduler cancels the futures it waited for
+            return new ScheduleResult(false, ImmutableList.of(), nonCancellationPropagating(sourceStagesDone), WAITING_FOR_SOURCE_STAGES, 0);
+        }
+
+        int partitionCount = partitionToNode.size();
+        long outputBytes = 0;
+        long outputPositions = 0;
+        long[] partitionBytes = new long[partitionCount];
+        long[] splittablePartitionBytes = new long[partitionCount];
+        List<TaskId> splittableSourceTasks = new ArrayList<>();
+        boolean partitionSizesKnown = true;
+        for (StageInfo stageInfo : finalSourceStageInfos.values()) {
+            StageStats stageStats = stageInfo.getStageStats();
+            outputBytes += stageStats.getOutputDataSize().toBytes();
+            outputPositions += stageStats.getOutputPositions();
+
+            Optional<long[]> sourcePartitionBytes = estimatePartitionSizes(stageStats, partitionCount);
+            if (!sourcePartitionBytes.isPresent()) {
+                partitionSizesKnown = false;
+                continue;
+            }
+            addTo(partitionBytes, sourcePartitionBytes.get());
+            if (splittableSource.isPresent() && splittableSource.get().getSourceFragmentIds().contains(stageInfo.getPlan().getId())) {
+                addTo(splittablePartitionBytes, sourcePartitionBytes.get());
+                stageInfo.getTasks().stream()
+                        .map(TaskInfo::getTaskStatus)
+                        .map(TaskStatus::getTaskId)
+                        .distinct()
+                        .forEach(splittableSourceTasks::add);
+            }
+        }
+        splittableSourceTasks.sort(Comparator.comparing(TaskId::toString));
+
+        List<TaskAssignment> assignments;
+        if (partitionSizesKnown) {
+            int maxSplitCount = splittableSource.isPresent() ? splittableSourceTasks.size() : 1;
+            assignments = assignPartitions(partitionBytes, splittablePartitionBytes, maxSplitCount, targetPartitionSizeInBytes, skewedPartitionFactor);
+        }
+        else {
+            // without the sizes of the partitions, assume they are of similar size
+            assignments = coalescePartitions(partitionCount, getTaskCount(outputBytes, targetPartitionSizeInBytes, partitionCount)).stream()
+                    .map(partitions -> new TaskAssignment(partitions, 0, 1))
+                    .collect(toImmutableList());
+        }
+
+        long coalescedPartitions = 0;
+        long splitPartitions = 0;
+        for (TaskAssignment assignment : assignments) {
+            coalescedPartitions += assignment.getPartitions().size() - 1;
+            if (assignment.getSplit() == 0 && assignment.getSplitCount() > 1) {
+                splitPartitions++;
+            }
+        }
+        schedulerStats.getCoalescedPartitions().update(coalescedPartitions);
+        schedulerStats.getSplitSkewedPartitions().update(splitPartitions);
+        log.debug("Stage %s reads %s rows and %s bytes from its sources, scheduling %s tasks for %s partitions, %s skewed partitions are split",
+                stage.getStageId(), outputPositions, outputBytes, assignments.size(), partitionCount, splitPartitions);
+
+        OptionalInt totalPartitions = OptionalInt.of(assignments.size());
+        ImmutableList.Builder<RemoteTask> newTasks = ImmutableList.builder();
+        for (int partition = 0; partition < assignments.size(); partition++) {
+            TaskAssignment assignment = assignments.get(partition);
+            Map<PlanNodeId, Set<TaskId>> sourceTaskFilters = ImmutableMap.of();
+            if (assignment.getSplitCount() > 1) {
+                int sourceTaskCount = splittableSourceTasks.size();
+                sourceTaskFilters = ImmutableMap.of(splittableSource.get().getId(), ImmutableSet.copyOf(splittableSourceTasks.subList(
+                        assignment.getSplit() * sourceTaskCount / assignment.getSplitCount(),
+                        (assignment.getSplit() + 1) * sourceTaskCount / assignment.getSplitCount())));
+            }
+            stage.scheduleTask(partitionToNode.get(partition % partitionToNode.size()), partition, assignment.getPartitions(), sourceTaskFilters, totalPartitions)
+                    .ifPresent(newTasks::add);
+        }
+
+        return new ScheduleResult(true, newTasks.build(), 0);
+    }
+
+    private static void addTo(long[] sum, long[] values)
+    {
+        for (int i = 0; i < sum.length; i++) {
+            sum[i] += values[i];
+        }
+    }
+
+    /**
+     * Estimates the output size of each partition of a stage from the number of rows its partitioned
+     * output operators sent to the partition.
+     */
+    private static Optional<long[]> estimatePartitionSizes(StageStats stageStats, int partitionCount)
+    {
+        long[] partitionRowCounts = null;
+        for (OperatorStats operatorStats : stageStats.getOperatorSummaries()) {
+            if (!(operatorStats.getInfo() instanceof PartitionedOutputInfo)) {
+                continue;
+            }
+            long[] operatorPartitionRowCounts = ((PartitionedOutputInfo) operatorStats.getInfo()).getPartitionRowCounts();
+            if (operatorPartitionRowCounts.length != partitionCount) {
+                return Optional.empty();
+            }
+            if (partitionRowCounts == null) {
+                partitionRowCounts = operatorPartitionRowCounts;
+            }
+            else {
+                addTo(partitionRowCounts, operatorPartitionRowCounts);
+            }
+        }
+
+        long outputBytes = stageStats.getOutputDataSize().toBytes();
+        if (partitionRowCounts == null) {
+            // a stage that produced no output may not have run any operators
+            return outputBytes == 0 ? Optional.of(new long[partitionCount]) : Optional.empty();
+        }
+
+        long outputRows = LongStream.of(partitionRowCounts).sum();
+        long[] partitionBytes = new long[partitionCount];
+        if (outputRows > 0) {
+            for (int partition = 0; partition < partitionCount; partition++) {
+                partitionBytes[partition] = (long) ((double) outputBytes * partitionRowCounts[partition] / outputRows);
+            }
+        }
+        return Optional.of(partitionBytes);
+    }
+
+    /**
+     * Finds the probe source of a partitioned join whose partitions can be split across tasks. The rows
+     * of a split partition are processed by several tasks, so the probe side must read the source
+     * directly, and the operators above the join must not rely on the partitioning either.
+     */
+    @VisibleForTesting
+    static Optional<RemoteSourceNode> findSplittableJoinSource(PlanNode node)
+    {
+        if (node instanceof JoinNode) {
+            JoinNode join = (JoinNode) node;
+            // every probe row is still joined with all build rows of its partition, but
+            // unmatched build rows would be produced by every task reading the partition
+            if (join.getDistributionType().equals(Optional.of(PARTITIONED)) &&
+                    (join.getType() == INNER || join.getType() == LEFT) &&
+                    !join.getCriteria().isEmpty()) {
+                return findProbeSource(join.getLeft());
+            }
+            return Optional.empty();
+        }
+        if (isRowByRow(node) || (node instanceof AggregationNode && ((AggregationNode) node).getStep() == PARTIAL)) {
+            return findSplittableJoinSource(node.getSources().get(0));
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<RemoteSourceNode> findProbeSource(PlanNode node)
+    {
+        if (node instanceof RemoteSourceNode) {
+            RemoteSourceNode remoteSource = (RemoteSourceNode) node;
+            return remoteSource.getExchangeType() == REPARTITION ? Optional.of(remoteSource) : Optional.empty();
+        }
+        if (isRowByRow(node)) {
+            return findProbeSource(node.getSources().get(0));
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isRowByRow(PlanNode node)
+    {
+        return node instanceof ProjectNode ||
+                node instanceof FilterNode ||
+                (node instanceof ExchangeNode && ((ExchangeNode) node).getScope() == LOCAL && node.getSources().size() == 1);
+    }
+
+    /**
+     * Assigns the partitions to tasks. Neighbouring partitions are coalesced into a task while their
+     * total size stays within the target size. A partition of the splittable source that is larger
+     * than the target size and the given factor times the median partition of that source is split
+     * into several tasks, up to the given maximum.
+     */
+    @VisibleForTesting
+    static List<TaskAssignment> assignPartitions(
+            long[] partitionBytes,
+            long[] splittablePartitionBytes,
+            int maxSplitCount,
+            long targetPartitionSizeInBytes,
+            int skewedPartitionFactor)
+    {
+        checkArgument(partitionBytes.length == splittablePartitionBytes.length, "partition counts differ");
+        long[] sortedSplittablePartitionBytes = splittablePartitionBytes.clone();
+        Arrays.sort(sortedSplittablePartitionBytes);
+        long median = sortedSplittablePartitionBytes[sortedSplittablePartitionBytes.length / 2];
+        long skewThreshold = max(targetPartitionSizeInBytes, skewedPartitionFactor * median);
+
+        ImmutableList.Builder<TaskAssignment> assignments = ImmutableList.builder();
+        List<Integer> coalesced = new ArrayList<>();
+        long coalescedBytes = 0;
+        for (int partition = 0; partition < partitionBytes.length; partition++) {
+            if (splittablePartitionBytes[partition] > skewThreshold) {
+                long splitCount = min(maxSplitCount, (splittablePartitionBytes[partition] + targetPartitionSizeInBytes - 1) / targetPartitionSizeInBytes);
+                if (splitCount > 1) {
+                    if (!coalesced.isEmpty()) {
+                        assignments.add(new TaskAssignment(coalesced, 0, 1));
+                        coalesced = new ArrayList<>();
+                        coalescedBytes = 0;
+                    }
+                    for (int split = 0; split < splitCount; split++) {
+                        assignments.add(new TaskAssignment(ImmutableList.of(partition), split, (int) splitCount));
+                    }
+                    continue;
+                }
+            }
+
+            if (!coalesced.isEmpty() && coalescedBytes + partitionBytes[partition] > targetPartitionSizeInBytes) {
+                assignments.add(new TaskAssignment(coalesced, 0, 1));
+                coalesced = new ArrayList<>();
+                coalescedBytes = 0;
+            }
+            coalesced.add(partition);
+            coalescedBytes += partitionBytes[partition];
+        }
+        if (!coalesced.isEmpty()) {
+            assignments.add(new TaskAssignment(coalesced, 0, 1));
+        }
+        return assignments.build();
+    }
+
+    @VisibleForTesting
+    static int getTaskCount(long outputBytes, long targetPartitionSizeInBytes, int partitionCount)
+    {
+        long taskCount = (outputBytes + targetPartitionSizeInBytes - 1) / targetPartitionSizeInBytes;
+        return (int) max(1, min(partitionCount, taskCount));
+    }
+
+    /**
+     * Assigns the partitions to the tasks in contiguous ranges of the same length, give or take one.
+     */
+    @VisibleForTesting
+    static List<List<Integer>> coalescePartitions(int partitionCount, int taskCount)
+    {
+        checkArgument(taskCount >= 1 && taskCount <= partitionCount, "taskCount must be between 1 and %s", partitionCount);
+        ImmutableList.Builder<List<Integer>> tasks = ImmutableList.builder();
+        for (int task = 0; task < taskCount; task++) {
+            ImmutableList.Builder<Integer> partitions = ImmutableList.builder();
+            for (int partition = task * partitionCount / taskCount; partition < (task + 1) * partitionCount / taskCount; partition++) {
+                partitions.add(partition);
+            }
+            tasks.add(partitions.build());
+        }
+        return tasks.build();
+    }
+
+    @VisibleForTesting
+    static class TaskAssignment
+    {
+        private final List<Integer> partitions;
+        private final int split;
+        private final int splitCount;
+
+        public TaskAssignment(List<Integer> partitions, int split, int splitCount)
+        {
+            this.partitions = ImmutableList.copyOf(requireNonNull(partitions, "partitions is null"));
+            checkArgument(split >= 0 && split < splitCount, "split must be between 0 and %s", splitCount - 1);
+            checkArgument(splitCount == 1 || this.partitions.size() == 1, "only a single partition can be split");
+            this.split = split;
+            this.splitCount = splitCount;
+        }
+
+        public List<Integer> getPartitions()
+        {
+            return partitions;
+        }
+
+        /**
+         * Index of the part of a split partition the task reads.
+         */
+        public int getSplit()
+        {
+            return split;
+        }
+
+        /**
+         * Number of tasks the partition is split across, or 1 when the partitions are not split.
+         */
+        public int getSplitCount()
+        {
+            return splitCount;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("partitions", partitions)
+                    .add("split", split)
+                    .add("splitCount", splitCount)
+                    .toString();
+        }
+    }
+}
@@ -36,6 +36,8 @@ public class NodeSchedulerConfig
     private int maxPendingSplitsPerTask = 10;
     private NodeSchedulerPolicy nodeSchedulerPolicy = NodeSchedulerPolicy.UNIFORM;
     private boolean optimizedLocalScheduling = true;
+    private boolean lateSplitBindingEnabled;
+    private int maxUnstartedSplitsPerTask = 8;
 
     @NotNull
     public NodeSchedulerPolicy getNodeSchedulerPolicy()
@@ -127,4 +129,29 @@ public class NodeSchedulerConfig
         this.optimizedLocalScheduling = optimizedLocalScheduling;
         return this;
     }
+
+    public boolean isLateSplitBindingEnabled()
+    {
+        return lateSplitBindingEnabled;
+    }
+
+    @Config("node-scheduler.late-split-binding-enabled")
+    public NodeSchedulerConfig setLateSplitBindingEnabled(boolean lateSplitBindingEnabled)
+    {
+        this.lateSplitBindingEnabled = lateSplitBindingEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getMaxUnstartedSplitsPerTask()
+    {
+        return maxUnstartedSplitsPerTask;
+    }
+
+    @Config("node-scheduler.max-unstarted-splits-per-task")
+    public NodeSchedulerConfig setMaxUnstartedSplitsPerTask(int maxUnstartedSplitsPerTask)
+    {
+        this.maxUnstartedSplitsPerTask = maxUnstartedSplitsPerTask;
+        return this;
+    }
 }
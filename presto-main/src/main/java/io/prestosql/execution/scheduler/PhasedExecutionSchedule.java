@@ -22,6 +22,7 @@ import io.prestosql.sql.planner.PlanFragment;
 import io.prestosql.sql.planner.plan.ExchangeNode;
 import io.prestosql.sql.planner.plan.IndexJoinNode;
 import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.PlanFragmentId;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanVisitor;
@@ -212,6 +213,16 @@ public class PhasedExecutionSchedule
             return processJoin(node.getRight(), node.getLeft(), currentFragmentId);
         }
 
+        @Override
+        public Set<PlanFragmentId> visitMergeJoin(MergeJoinNode node, PlanFragmentId currentFragmentId)
+        {
+            // both inputs are consumed in lockstep, so they must be scheduled together
+            return ImmutableSet.<PlanFragmentId>builder()
+                    .addAll(node.getLeft().accept(this, currentFragmentId))
+                    .addAll(node.getRight().accept(this, currentFragmentId))
+                    .build();
+        }
+
         @Override
         public Set<PlanFragmentId> visitSemiJoin(SemiJoinNode node, PlanFragmentId currentFragmentId)
         {
@@ -33,12 +33,14 @@ public class ScheduleResult
         SPLIT_QUEUES_FULL,
         WAITING_FOR_SOURCE,
         MIXED_SPLIT_QUEUES_FULL_AND_WAITING_FOR_SOURCE,
+        WAITING_FOR_SOURCE_STAGES,
         /**/;
 
         public BlockedReason combineWith(BlockedReason other)
         {
             switch (this) {
                 case WRITER_SCALING:
+                case WAITING_FOR_SOURCE_STAGES:
                     throw new IllegalArgumentException("cannot be combined");
                 case NO_ACTIVE_DRIVER_GROUP:
                     return other;
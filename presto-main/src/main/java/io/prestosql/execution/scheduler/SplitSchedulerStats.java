@@ -31,6 +31,9 @@ public class SplitSchedulerStats
     private final CounterStat waitingForSource = new CounterStat();
     private final CounterStat splitQueuesFull = new CounterStat();
     private final DistributionStat splitsPerIteration = new DistributionStat();
+    private final CounterStat retriedTasks = new CounterStat();
+    private final CounterStat coalescedPartitions = new CounterStat();
+    private final CounterStat splitSkewedPartitions = new CounterStat();
 
     @Managed
     @Nested
@@ -66,4 +69,25 @@ public class SplitSchedulerStats
     {
         return splitQueuesFull;
     }
+
+    @Managed
+    @Nested
+    public CounterStat getRetriedTasks()
+    {
+        return retriedTasks;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getCoalescedPartitions()
+    {
+        return coalescedPartitions;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getSplitSkewedPartitions()
+    {
+        return splitSkewedPartitions;
+    }
 }
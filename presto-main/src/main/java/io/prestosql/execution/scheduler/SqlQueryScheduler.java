@@ -66,6 +66,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
@@ -81,8 +82,14 @@ import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
 import static io.airlift.concurrent.MoreFutures.whenAnyComplete;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
+import static io.prestosql.SystemSessionProperties.getAdaptiveSkewedPartitionFactor;
+import static io.prestosql.SystemSessionProperties.getAdaptiveTargetPartitionSize;
 import static io.prestosql.SystemSessionProperties.getConcurrentLifespansPerNode;
+import static io.prestosql.SystemSessionProperties.getTaskRetryAttempts;
 import static io.prestosql.SystemSessionProperties.getWriterMinSize;
+import static io.prestosql.SystemSessionProperties.isAdaptivePartitionCountEnabled;
+import static io.prestosql.SystemSessionProperties.isAdaptiveSkewedPartitionSplittingEnabled;
+import static io.prestosql.SystemSessionProperties.isFaultTolerantExecutionEnabled;
 import static io.prestosql.connector.CatalogName.isInternalSystemConnector;
 import static io.prestosql.execution.BasicStageStats.aggregateBasicStageStats;
 import static io.prestosql.execution.SqlStageExecution.createSqlStageExecution;
@@ -96,7 +103,10 @@ import static io.prestosql.execution.scheduler.SourcePartitionedScheduler.newSou
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.prestosql.spi.StandardErrorCode.NO_NODES_AVAILABLE;
 import static io.prestosql.spi.connector.NotPartitionedPartitionHandle.NOT_PARTITIONED;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.COORDINATOR_DISTRIBUTION;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_BROADCAST_DISTRIBUTION;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.SCALED_WRITER_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
 import static io.prestosql.sql.planner.plan.ExchangeNode.Type.REPLICATE;
@@ -187,6 +197,7 @@ public class SqlQueryScheduler
         // todo come up with a better way to build this, or eliminate this map
         ImmutableMap.Builder<StageId, StageScheduler> stageSchedulers = ImmutableMap.builder();
         ImmutableMap.Builder<StageId, StageLinkage> stageLinkages = ImmutableMap.builder();
+        ImmutableMap.Builder<StageId, Supplier<List<InternalNode>>> retryNodes = ImmutableMap.builder();
 
         // Only fetch a distribution once per query to assure all stages see the same machine assignments
         Map<PartitioningHandle, NodePartitionMap> partitioningCache = new HashMap<>();
@@ -208,12 +219,25 @@ public class SqlQueryScheduler
                 failureDetector,
                 nodeTaskMap,
                 stageSchedulers,
-                stageLinkages);
+                stageLinkages,
+                retryNodes);
 
         SqlStageExecution rootStage = stages.get(0);
         rootStage.setOutputBuffers(rootOutputBuffers);
         this.rootStageId = rootStage.getStageId();
 
+        if (isFaultTolerantExecutionEnabled(session)) {
+            // the output of the root stage is not spooled, so its tasks cannot be retried
+            Map<StageId, Supplier<List<InternalNode>>> stageRetryNodes = retryNodes.build();
+            for (SqlStageExecution stage : stages) {
+                stage.readSpooledSources();
+                Supplier<List<InternalNode>> nodes = stageRetryNodes.get(stage.getStageId());
+                if (nodes != null && !stage.getStageId().equals(rootStageId)) {
+                    stage.enableTaskRetries(getTaskRetryAttempts(session), nodes);
+                }
+            }
+        }
+
         this.stages = stages.stream()
                 .collect(toImmutableMap(SqlStageExecution::getStageId, identity()));
 
@@ -294,7 +318,8 @@ public class SqlQueryScheduler
             FailureDetector failureDetector,
             NodeTaskMap nodeTaskMap,
             ImmutableMap.Builder<StageId, StageScheduler> stageSchedulers,
-            ImmutableMap.Builder<StageId, StageLinkage> stageLinkages)
+            ImmutableMap.Builder<StageId, StageLinkage> stageLinkages,
+            ImmutableMap.Builder<StageId, Supplier<List<InternalNode>>> retryNodes)
     {
         ImmutableList.Builder<SqlStageExecution> stages = ImmutableList.builder();
 
@@ -315,6 +340,7 @@ public class SqlQueryScheduler
         stages.add(stage);
 
         Optional<int[]> bucketToPartition;
+        Optional<List<InternalNode>> adaptivePartitionToNode = Optional.empty();
         PartitioningHandle partitioningHandle = plan.getFragment().getPartitioning();
         if (partitioningHandle.equals(SOURCE_DISTRIBUTION)) {
             // nodes are selected dynamically based on the constraints of the splits and the system load
@@ -328,6 +354,7 @@ public class SqlQueryScheduler
 
             checkArgument(!plan.getFragment().getStageExecutionDescriptor().isStageGroupedExecution());
             stageSchedulers.put(stageId, newSourcePartitionedSchedulerAsStageScheduler(stage, planNodeId, splitSource, placementPolicy, splitBatchSize));
+            retryNodes.put(stageId, nodeSelector::allNodes);
             bucketToPartition = Optional.of(new int[1]);
         }
         else if (partitioningHandle.equals(SCALED_WRITER_DISTRIBUTION)) {
@@ -396,7 +423,17 @@ public class SqlQueryScheduler
                 List<InternalNode> partitionToNode = nodePartitionMap.getPartitionToNode();
                 // todo this should asynchronously wait a standard timeout period before failing
                 checkCondition(!partitionToNode.isEmpty(), NO_NODES_AVAILABLE, "No worker nodes available");
-                stageSchedulers.put(stageId, new FixedCountScheduler(stage, partitionToNode));
+                if (isAdaptivePartitionCount(session, partitioningHandle)) {
+                    // the scheduler depends on the child stages
+                    adaptivePartitionToNode = Optional.of(partitionToNode);
+                }
+                else {
+                    stageSchedulers.put(stageId, new FixedCountScheduler(stage, partitionToNode));
+                }
+                if (!partitioningHandle.equals(COORDINATOR_DISTRIBUTION)) {
+                    NodeSelector nodeSelector = nodeScheduler.createNodeSelector(Optional.empty());
+                    retryNodes.put(stageId, nodeSelector::allNodes);
+                }
                 bucketToPartition = Optional.of(nodePartitionMap.getBucketToPartition());
             }
         }
@@ -419,20 +456,40 @@ public class SqlQueryScheduler
                     failureDetector,
                     nodeTaskMap,
                     stageSchedulers,
-                    stageLinkages);
+                    stageLinkages,
+                    retryNodes);
             stages.addAll(subTree);
 
             SqlStageExecution childStage = subTree.get(0);
             childStagesBuilder.add(childStage);
         }
         Set<SqlStageExecution> childStages = childStagesBuilder.build();
+        if (adaptivePartitionToNode.isPresent()) {
+            // replicated output is only committed once all tasks of this stage are known
+            List<SqlStageExecution> partitionedChildStages = childStages.stream()
+                    .filter(childStage -> !childStage.getFragment().getPartitioningScheme().getPartitioning().getHandle().equals(FIXED_BROADCAST_DISTRIBUTION))
+                    .collect(toImmutableList());
+            if (partitionedChildStages.isEmpty()) {
+                stageSchedulers.put(stageId, new FixedCountScheduler(stage, adaptivePartitionToNode.get()));
+            }
+            else {
+                stageSchedulers.put(stageId, new AdaptiveFixedCountScheduler(
+                        stage,
+                        adaptivePartitionToNode.get(),
+                        partitionedChildStages,
+                        getAdaptiveTargetPartitionSize(session),
+                        isAdaptiveSkewedPartitionSplittingEnabled(session),
+                        getAdaptiveSkewedPartitionFactor(session),
+                        schedulerStats));
+            }
+        }
         stage.addStateChangeListener(newState -> {
             if (newState.isDone()) {
                 childStages.forEach(SqlStageExecution::cancel);
             }
         });
 
-        stageLinkages.put(stageId, new StageLinkage(plan.getFragment().getId(), parent, childStages));
+        stageLinkages.put(stageId, new StageLinkage(plan.getFragment().getId(), parent, childStages, isFaultTolerantExecutionEnabled(session), adaptivePartitionToNode.isPresent()));
 
         if (partitioningHandle.equals(SCALED_WRITER_DISTRIBUTION)) {
             Supplier<Collection<TaskStatus>> sourceTasksProvider = () -> childStages.stream()
@@ -460,6 +517,14 @@ public class SqlQueryScheduler
         return stages.build();
     }
 
+    private static boolean isAdaptivePartitionCount(Session session, PartitioningHandle partitioningHandle)
+    {
+        // the output of the child stages must be complete before the number of tasks is chosen, so it has to be spooled
+        return isFaultTolerantExecutionEnabled(session) &&
+                isAdaptivePartitionCountEnabled(session) &&
+                (partitioningHandle.equals(FIXED_HASH_DISTRIBUTION) || partitioningHandle.equals(FIXED_ARBITRARY_DISTRIBUTION));
+    }
+
     public BasicStageStats getBasicStageStats()
     {
         List<BasicStageStats> stageStats = stages.values().stream()
@@ -557,6 +622,7 @@ public class SqlQueryScheduler
                     if (result.getBlockedReason().isPresent()) {
                         switch (result.getBlockedReason().get()) {
                             case WRITER_SCALING:
+                            case WAITING_FOR_SOURCE_STAGES:
                                 // no-op
                                 break;
                             case WAITING_FOR_SOURCE:
@@ -672,22 +738,31 @@ public class SqlQueryScheduler
         private final Set<OutputBufferManager> childOutputBufferManagers;
         private final Set<StageId> childStageIds;
 
-        public StageLinkage(PlanFragmentId fragmentId, ExchangeLocationsConsumer parent, Set<SqlStageExecution> children)
+        public StageLinkage(PlanFragmentId fragmentId, ExchangeLocationsConsumer parent, Set<SqlStageExecution> children, boolean spoolChildOutput, boolean adaptivePartitionCount)
         {
             this.currentStageFragmentId = fragmentId;
             this.parent = parent;
             this.childOutputBufferManagers = children.stream()
                     .map(childStage -> {
+                        Consumer<OutputBuffers> outputBufferTarget = childStage::setOutputBuffers;
+                        if (spoolChildOutput) {
+                            outputBufferTarget = outputBuffers -> childStage.setOutputBuffers(outputBuffers.withSpooling());
+                        }
                         PartitioningHandle partitioningHandle = childStage.getFragment().getPartitioningScheme().getPartitioning().getHandle();
                         if (partitioningHandle.equals(FIXED_BROADCAST_DISTRIBUTION)) {
-                            return new BroadcastOutputBufferManager(childStage::setOutputBuffers);
+                            return new BroadcastOutputBufferManager(outputBufferTarget);
                         }
                         else if (partitioningHandle.equals(SCALED_WRITER_DISTRIBUTION)) {
-                            return new ScaledOutputBufferManager(childStage::setOutputBuffers);
+                            return new ScaledOutputBufferManager(outputBufferTarget);
                         }
                         else {
                             int partitionCount = Ints.max(childStage.getFragment().getPartitioningScheme().getBucketToPartition().get()) + 1;
-                            return new PartitionedOutputBufferManager(partitioningHandle, partitionCount, childStage::setOutputBuffers);
+                            OutputBufferManager outputBufferManager = new PartitionedOutputBufferManager(partitioningHandle, partitionCount, outputBufferTarget);
+                            if (adaptivePartitionCount) {
+                                // the tasks of the stage read any of the partitions, so they are not matched with a buffer
+                                outputBufferManager = (newBuffers, noMoreBuffers) -> {};
+                            }
+                            return outputBufferManager;
                         }
                     })
                     .collect(toImmutableSet());
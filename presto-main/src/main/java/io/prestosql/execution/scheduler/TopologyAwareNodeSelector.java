@@ -59,6 +59,8 @@ public class TopologyAwareNodeSelector
     private final int minCandidates;
     private final int maxSplitsPerNode;
     private final int maxPendingSplitsPerTask;
+    private final boolean lateSplitBindingEnabled;
+    private final int maxUnstartedSplitsPerTask;
     private final List<CounterStat> topologicalSplitCounters;
     private final NetworkTopology networkTopology;
 
@@ -70,6 +72,8 @@ public class TopologyAwareNodeSelector
             int minCandidates,
             int maxSplitsPerNode,
             int maxPendingSplitsPerTask,
+            boolean lateSplitBindingEnabled,
+            int maxUnstartedSplitsPerTask,
             List<CounterStat> topologicalSplitCounters,
             NetworkTopology networkTopology)
     {
@@ -80,6 +84,8 @@ public class TopologyAwareNodeSelector
         this.minCandidates = minCandidates;
         this.maxSplitsPerNode = maxSplitsPerNode;
         this.maxPendingSplitsPerTask = maxPendingSplitsPerTask;
+        this.lateSplitBindingEnabled = lateSplitBindingEnabled;
+        this.maxUnstartedSplitsPerTask = maxUnstartedSplitsPerTask;
         this.topologicalSplitCounters = requireNonNull(topologicalSplitCounters, "topologicalSplitCounters is null");
         this.networkTopology = requireNonNull(networkTopology, "networkTopology is null");
     }
@@ -127,7 +133,7 @@ public class TopologyAwareNodeSelector
                     log.debug("No nodes available to schedule %s. Available nodes %s", split, nodeMap.getNodesByHost().keys());
                     throw new PrestoException(NO_NODES_AVAILABLE, "No nodes available to run query");
                 }
-                InternalNode chosenNode = bestNodeSplitCount(candidateNodes.iterator(), minCandidates, maxPendingSplitsPerTask, assignmentStats);
+                InternalNode chosenNode = bestNodeSplitCount(candidateNodes.iterator(), minCandidates, getMaxQueuedSplitsPerTask(), assignmentStats);
                 if (chosenNode != null) {
                     assignment.put(chosenNode, split);
                     assignmentStats.addAssignedSplit(chosenNode);
@@ -189,11 +195,13 @@ public class TopologyAwareNodeSelector
 
         ListenableFuture<?> blocked;
         int maxPendingForWildcardNetworkAffinity = calculateMaxPendingSplits(0, topologicalSplitCounters.size() - 1);
+        // with late split binding, wake up as soon as any task starts one of its queued splits
+        int spaceThreshold = lateSplitBindingEnabled ? maxPendingForWildcardNetworkAffinity : calculateLowWatermark(maxPendingForWildcardNetworkAffinity);
         if (splitWaitingForAnyNode) {
-            blocked = toWhenHasSplitQueueSpaceFuture(existingTasks, calculateLowWatermark(maxPendingForWildcardNetworkAffinity));
+            blocked = toWhenHasSplitQueueSpaceFuture(existingTasks, spaceThreshold);
         }
         else {
-            blocked = toWhenHasSplitQueueSpaceFuture(blockedExactNodes, existingTasks, calculateLowWatermark(maxPendingForWildcardNetworkAffinity));
+            blocked = toWhenHasSplitQueueSpaceFuture(blockedExactNodes, existingTasks, spaceThreshold);
         }
         return new SplitPlacementResult(blocked, assignment);
     }
@@ -205,13 +213,23 @@ public class TopologyAwareNodeSelector
      */
     private int calculateMaxPendingSplits(int splitAffinity, int totalDepth)
     {
+        int maxQueuedSplitsPerTask = getMaxQueuedSplitsPerTask();
         if (totalDepth == 0) {
-            return maxPendingSplitsPerTask;
+            return maxQueuedSplitsPerTask;
         }
         // Use half the queue for any split
         // Reserve the other half for splits that have some amount of network affinity
         double queueFraction = 0.5 * (1.0 + splitAffinity / (double) totalDepth);
-        return (int) Math.ceil(maxPendingSplitsPerTask * queueFraction);
+        return (int) Math.ceil(maxQueuedSplitsPerTask * queueFraction);
+    }
+
+    /**
+     * With late split binding, only the splits a task has not started yet limit further assignments, so the
+     * remaining splits stay on the coordinator until a worker has runner capacity for them.
+     */
+    private int getMaxQueuedSplitsPerTask()
+    {
+        return lateSplitBindingEnabled ? maxUnstartedSplitsPerTask : maxPendingSplitsPerTask;
     }
 
     @Override
@@ -229,7 +247,7 @@ public class TopologyAwareNodeSelector
 
         while (candidates.hasNext() && (fullCandidatesConsidered < minCandidatesWhenFull || bestQueueNotFull == null)) {
             InternalNode node = candidates.next();
-            if (assignmentStats.getTotalSplitCount(node) < maxSplitsPerNode) {
+            if (!lateSplitBindingEnabled && assignmentStats.getTotalSplitCount(node) < maxSplitsPerNode) {
                 return node;
             }
             fullCandidatesConsidered++;
@@ -59,6 +59,8 @@ public class TopologyAwareNodeSelectorFactory
     private final boolean includeCoordinator;
     private final int maxSplitsPerNode;
     private final int maxPendingSplitsPerTask;
+    private final boolean lateSplitBindingEnabled;
+    private final int maxUnstartedSplitsPerTask;
     private final NodeTaskMap nodeTaskMap;
 
     private final List<CounterStat> placementCounters;
@@ -84,6 +86,8 @@ public class TopologyAwareNodeSelectorFactory
         this.includeCoordinator = schedulerConfig.isIncludeCoordinator();
         this.maxSplitsPerNode = schedulerConfig.getMaxSplitsPerNode();
         this.maxPendingSplitsPerTask = schedulerConfig.getMaxPendingSplitsPerTask();
+        this.lateSplitBindingEnabled = schedulerConfig.isLateSplitBindingEnabled();
+        this.maxUnstartedSplitsPerTask = schedulerConfig.getMaxUnstartedSplitsPerTask();
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
         checkArgument(maxSplitsPerNode >= maxPendingSplitsPerTask, "maxSplitsPerNode must be > maxPendingSplitsPerTask");
 
@@ -129,6 +133,8 @@ public class TopologyAwareNodeSelectorFactory
                 minCandidates,
                 maxSplitsPerNode,
                 maxPendingSplitsPerTask,
+                lateSplitBindingEnabled,
+                maxUnstartedSplitsPerTask,
                 placementCounters,
                 networkTopology);
     }
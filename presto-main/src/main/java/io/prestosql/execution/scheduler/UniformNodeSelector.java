@@ -65,6 +65,8 @@ public class UniformNodeSelector
     private final int maxSplitsPerNode;
     private final int maxPendingSplitsPerTask;
     private final boolean optimizedLocalScheduling;
+    private final boolean lateSplitBindingEnabled;
+    private final int maxUnstartedSplitsPerTask;
 
     public UniformNodeSelector(
             InternalNodeManager nodeManager,
@@ -74,7 +76,9 @@ public class UniformNodeSelector
             int minCandidates,
             int maxSplitsPerNode,
             int maxPendingSplitsPerTask,
-            boolean optimizedLocalScheduling)
+            boolean optimizedLocalScheduling,
+            boolean lateSplitBindingEnabled,
+            int maxUnstartedSplitsPerTask)
     {
         this.nodeManager = requireNonNull(nodeManager, "nodeManager is null");
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
@@ -84,6 +88,8 @@ public class UniformNodeSelector
         this.maxSplitsPerNode = maxSplitsPerNode;
         this.maxPendingSplitsPerTask = maxPendingSplitsPerTask;
         this.optimizedLocalScheduling = optimizedLocalScheduling;
+        this.lateSplitBindingEnabled = lateSplitBindingEnabled;
+        this.maxUnstartedSplitsPerTask = maxUnstartedSplitsPerTask;
     }
 
     @Override
@@ -114,6 +120,10 @@ public class UniformNodeSelector
     @Override
     public SplitPlacementResult computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks)
     {
+        if (lateSplitBindingEnabled) {
+            return computeLateBoundAssignments(splits, existingTasks);
+        }
+
         Multimap<InternalNode, Split> assignment = HashMultimap.create();
         NodeMap nodeMap = this.nodeMap.get().get();
         NodeAssignmentStats assignmentStats = new NodeAssignmentStats(nodeTaskMap, nodeMap, existingTasks);
@@ -213,6 +223,69 @@ public class UniformNodeSelector
         return new SplitPlacementResult(blocked, assignment);
     }
 
+    /**
+     * Assigns splits only to the tasks that have started almost all of the splits sent to them. Since a worker
+     * starts queued splits as soon as its task executor has runner capacity, the unassigned splits stay on the
+     * coordinator until some worker is ready to run them, and a slow worker does not keep a long queue of splits
+     * that idle workers could have run at the end of the stage.
+     */
+    private SplitPlacementResult computeLateBoundAssignments(Set<Split> splits, List<RemoteTask> existingTasks)
+    {
+        Multimap<InternalNode, Split> assignment = HashMultimap.create();
+        NodeMap nodeMap = this.nodeMap.get().get();
+        NodeAssignmentStats assignmentStats = new NodeAssignmentStats(nodeTaskMap, nodeMap, existingTasks);
+
+        ResettableRandomizedIterator<InternalNode> randomCandidates = randomizedNodes(nodeMap, includeCoordinator, ImmutableSet.of());
+        Set<InternalNode> blockedExactNodes = new HashSet<>();
+        boolean splitWaitingForAnyNode = false;
+        for (Split split : splits) {
+            List<InternalNode> candidateNodes;
+            if (!split.isRemotelyAccessible()) {
+                candidateNodes = selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator);
+            }
+            else {
+                randomCandidates.reset();
+                candidateNodes = selectNodes(minCandidates, randomCandidates);
+                if (optimizedLocalScheduling && !split.getAddresses().isEmpty()) {
+                    // prefer the local nodes when they are as ready as any other candidate
+                    candidateNodes = ImmutableList.<InternalNode>builder()
+                            .addAll(selectExactNodes(nodeMap, split.getAddresses(), includeCoordinator))
+                            .addAll(candidateNodes)
+                            .build();
+                }
+            }
+            if (candidateNodes.isEmpty()) {
+                log.debug("No nodes available to schedule %s. Available nodes %s", split, nodeMap.getNodesByHost().keys());
+                throw new PrestoException(NO_NODES_AVAILABLE, "No nodes available to run query");
+            }
+
+            Optional<InternalNode> chosenNode = candidateNodes.stream()
+                    .filter(node -> assignmentStats.getQueuedSplitCountForStage(node) < maxUnstartedSplitsPerTask)
+                    .min(comparingInt(assignmentStats::getQueuedSplitCountForStage));
+            if (chosenNode.isPresent()) {
+                assignment.put(chosenNode.get(), split);
+                assignmentStats.addAssignedSplit(chosenNode.get());
+            }
+            else if (split.isRemotelyAccessible()) {
+                splitWaitingForAnyNode = true;
+            }
+            // Exact node set won't matter, if a split is waiting for any node
+            else if (!splitWaitingForAnyNode) {
+                blockedExactNodes.addAll(candidateNodes);
+            }
+        }
+
+        // wake up as soon as any task starts one of its queued splits
+        ListenableFuture<?> blocked;
+        if (splitWaitingForAnyNode) {
+            blocked = toWhenHasSplitQueueSpaceFuture(existingTasks, maxUnstartedSplitsPerTask);
+        }
+        else {
+            blocked = toWhenHasSplitQueueSpaceFuture(blockedExactNodes, existingTasks, maxUnstartedSplitsPerTask);
+        }
+        return new SplitPlacementResult(blocked, assignment);
+    }
+
     @Override
     public SplitPlacementResult computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks, BucketNodeMap bucketNodeMap)
     {
@@ -53,6 +53,8 @@ public class UniformNodeSelectorFactory
     private final int maxSplitsPerNode;
     private final int maxPendingSplitsPerTask;
     private final boolean optimizedLocalScheduling;
+    private final boolean lateSplitBindingEnabled;
+    private final int maxUnstartedSplitsPerTask;
     private final NodeTaskMap nodeTaskMap;
 
     @Inject
@@ -71,6 +73,8 @@ public class UniformNodeSelectorFactory
         this.maxSplitsPerNode = config.getMaxSplitsPerNode();
         this.maxPendingSplitsPerTask = config.getMaxPendingSplitsPerTask();
         this.optimizedLocalScheduling = config.getOptimizedLocalScheduling();
+        this.lateSplitBindingEnabled = config.isLateSplitBindingEnabled();
+        this.maxUnstartedSplitsPerTask = config.getMaxUnstartedSplitsPerTask();
         this.nodeTaskMap = requireNonNull(nodeTaskMap, "nodeTaskMap is null");
         checkArgument(maxSplitsPerNode >= maxPendingSplitsPerTask, "maxSplitsPerNode must be > maxPendingSplitsPerTask");
     }
@@ -94,7 +98,9 @@ public class UniformNodeSelectorFactory
                 minCandidates,
                 maxSplitsPerNode,
                 maxPendingSplitsPerTask,
-                optimizedLocalScheduling);
+                optimizedLocalScheduling,
+                lateSplitBindingEnabled,
+                maxUnstartedSplitsPerTask);
     }
 
     private NodeMap createNodeMap(Optional<CatalogName> catalogName)
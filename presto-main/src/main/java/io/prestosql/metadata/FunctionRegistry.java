@@ -27,6 +27,7 @@ import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.prestosql.operator.aggregation.ApproximateCountDistinctAggregation;
 import io.prestosql.operator.aggregation.ApproximateDoublePercentileAggregations;
 import io.prestosql.operator.aggregation.ApproximateDoublePercentileArrayAggregations;
+import io.prestosql.operator.aggregation.ApproximateHistogramForStats;
 import io.prestosql.operator.aggregation.ApproximateLongPercentileAggregations;
 import io.prestosql.operator.aggregation.ApproximateLongPercentileArrayAggregations;
 import io.prestosql.operator.aggregation.ApproximateRealPercentileAggregations;
@@ -416,6 +417,7 @@ public class FunctionRegistry
                 .aggregate(DefaultApproximateCountDistinctAggregation.class)
                 .aggregate(SumDataSizeForStats.class)
                 .aggregate(MaxDataSizeForStats.class)
+                .aggregates(ApproximateHistogramForStats.class)
                 .aggregates(CountAggregation.class)
                 .aggregates(VarianceAggregation.class)
                 .aggregates(CentralMomentsAggregation.class)
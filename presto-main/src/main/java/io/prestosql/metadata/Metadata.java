@@ -27,6 +27,8 @@ import io.prestosql.spi.connector.CatalogSchemaName;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
 import io.prestosql.spi.connector.ConnectorCapabilities;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition.BaseTable;
 import io.prestosql.spi.connector.ConnectorOutputMetadata;
 import io.prestosql.spi.connector.ConnectorTableHandle;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
@@ -115,6 +117,21 @@ public interface Metadata
      */
     TableStatistics getTableStatistics(Session session, TableHandle tableHandle, Constraint constraint);
 
+    /**
+     * Return a token identifying the current version of the data read by the specified table, if the connector provides one.
+     */
+    Optional<String> getTableVersion(Session session, TableHandle tableHandle);
+
+    /**
+     * Return version tokens of the partitions read by the specified table keyed by partition name, if the connector provides them.
+     */
+    Optional<Map<String, String>> getPartitionVersions(Session session, TableHandle tableHandle);
+
+    /**
+     * Restrict the specified table to the given partitions, named as in {@link #getPartitionVersions}.
+     */
+    Optional<TableHandle> applyPartitions(Session session, TableHandle tableHandle, Set<String> partitionNames);
+
     /**
      * Get the names that match the specified table prefix (never null).
      */
@@ -315,6 +332,36 @@ public interface Metadata
      */
     void dropView(Session session, QualifiedObjectName viewName);
 
+    /**
+     * Creates the specified materialized view, with its data stored in a table described by the table metadata.
+     */
+    void createMaterializedView(Session session, String catalogName, ConnectorTableMetadata tableMetadata, ConnectorMaterializedViewDefinition definition, boolean ignoreExisting);
+
+    /**
+     * Drops the specified materialized view.
+     */
+    void dropMaterializedView(Session session, QualifiedObjectName viewName);
+
+    /**
+     * Get the names of the materialized views that match the specified table prefix (never null).
+     */
+    List<QualifiedObjectName> listMaterializedViews(Session session, QualifiedTablePrefix prefix);
+
+    /**
+     * Returns the materialized view definition for the specified view name.
+     */
+    Optional<ConnectorMaterializedViewDefinition> getMaterializedView(Session session, QualifiedObjectName viewName);
+
+    /**
+     * Begin refresh of a materialized view
+     */
+    InsertTableHandle beginRefreshMaterializedView(Session session, TableHandle tableHandle, boolean incremental);
+
+    /**
+     * Finish refresh of a materialized view
+     */
+    Optional<ConnectorOutputMetadata> finishRefreshMaterializedView(Session session, InsertTableHandle tableHandle, Collection<Slice> fragments, Collection<ComputedStatistics> computedStatistics, List<BaseTable> baseTables);
+
     /**
      * Try to locate a table index that can lookup results by indexableColumns and provide the requested outputColumns.
      */
@@ -24,6 +24,11 @@ import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.prestosql.execution.ScheduledSplit;
 import io.prestosql.execution.TaskSource;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.execution.fragmentcache.FragmentCacheKey;
+import io.prestosql.execution.fragmentcache.FragmentResultCacheContext;
+import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.metadata.Split;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.PrestoException;
@@ -35,6 +40,7 @@ import javax.annotation.concurrent.GuardedBy;
 import java.io.Closeable;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -47,6 +53,7 @@ import java.util.function.Supplier;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.throwIfUnchecked;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.prestosql.operator.Operator.NOT_BLOCKED;
@@ -72,6 +79,7 @@ public class Driver
     private final List<Operator> allOperators;
     private final Optional<SourceOperator> sourceOperator;
     private final Optional<DeleteOperator> deleteOperator;
+    private final Optional<FragmentResultCacheContext> fragmentResultCacheContext;
 
     // This variable acts as a staging area. When new splits (encapsulated in TaskSource) are
     // provided to a Driver, the Driver will not process them right away. Instead, the splits are
@@ -87,6 +95,22 @@ public class Driver
     @GuardedBy("exclusiveLock")
     private TaskSource currentTaskSource;
 
+    // output of the split of this driver, collected for the fragment result cache; the key is null when the output is not collected
+    @GuardedBy("exclusiveLock")
+    private FragmentCacheKey fragmentCacheKey;
+    @GuardedBy("exclusiveLock")
+    private List<SerializedPage> fragmentPages;
+    @GuardedBy("exclusiveLock")
+    private long fragmentPagesSizeInBytes;
+    @GuardedBy("exclusiveLock")
+    private LocalMemoryContext fragmentPagesMemoryContext;
+
+    // output of the split of this driver, served from the fragment result cache
+    @GuardedBy("exclusiveLock")
+    private Iterator<SerializedPage> cachedPages;
+    @GuardedBy("exclusiveLock")
+    private PagesSerde fragmentPagesSerde;
+
     private final AtomicReference<SettableFuture<?>> driverBlockedFuture = new AtomicReference<>();
 
     private enum State
@@ -95,10 +119,16 @@ public class Driver
     }
 
     public static Driver createDriver(DriverContext driverContext, List<Operator> operators)
+    {
+        return createDriver(driverContext, operators, Optional.empty());
+    }
+
+    public static Driver createDriver(DriverContext driverContext, List<Operator> operators, Optional<FragmentResultCacheContext> fragmentResultCacheContext)
     {
         requireNonNull(driverContext, "driverContext is null");
         requireNonNull(operators, "operators is null");
-        Driver driver = new Driver(driverContext, operators);
+        requireNonNull(fragmentResultCacheContext, "fragmentResultCacheContext is null");
+        Driver driver = new Driver(driverContext, operators, fragmentResultCacheContext);
         driver.initialize();
         return driver;
     }
@@ -116,7 +146,7 @@ public class Driver
         return createDriver(driverContext, operators);
     }
 
-    private Driver(DriverContext driverContext, List<Operator> operators)
+    private Driver(DriverContext driverContext, List<Operator> operators, Optional<FragmentResultCacheContext> fragmentResultCacheContext)
     {
         this.driverContext = requireNonNull(driverContext, "driverContext is null");
         this.allOperators = ImmutableList.copyOf(requireNonNull(operators, "operators is null"));
@@ -138,6 +168,7 @@ public class Driver
         }
         this.sourceOperator = sourceOperator;
         this.deleteOperator = deleteOperator;
+        this.fragmentResultCacheContext = fragmentResultCacheContext;
 
         currentTaskSource = sourceOperator.map(operator -> new TaskSource(operator.getSourceId(), ImmutableSet.of(), false)).orElse(null);
         // initially the driverBlockedFuture is not blocked (it is completed)
@@ -242,6 +273,20 @@ public class Driver
         // determine new splits to add
         Set<ScheduledSplit> newSplits = Sets.difference(newSource.getSplits(), currentTaskSource.getSplits());
 
+        // a driver of a cacheable fragment receives its only split at once, and its output can be served from the cache
+        if (fragmentResultCacheContext.isPresent() && currentTaskSource.getSplits().isEmpty() && newSource.getSplits().size() == 1 && newSource.isNoMoreSplits()) {
+            Optional<FragmentCacheKey> key = fragmentResultCacheContext.get().createKey(getOnlyElement(newSplits).getSplit());
+            if (key.isPresent()) {
+                Optional<List<SerializedPage>> pages = fragmentResultCacheContext.get().getCacheManager().get(key.get());
+                if (pages.isPresent()) {
+                    useCachedPages(pages.get());
+                    currentTaskSource = newSource;
+                    return;
+                }
+                startCollectingPages(key.get());
+            }
+        }
+
         // add new splits
         SourceOperator sourceOperator = this.sourceOperator.orElseThrow(VerifyException::new);
         for (ScheduledSplit newSplit : newSplits) {
@@ -259,6 +304,74 @@ public class Driver
         currentTaskSource = newSource;
     }
 
+    @GuardedBy("exclusiveLock")
+    private void useCachedPages(List<SerializedPage> pages)
+    {
+        // only the output operator is needed; the operators that would compute the pages are never started
+        List<Operator> skippedOperators = activeOperators.subList(0, activeOperators.size() - 1);
+        Throwable throwable = closeAndDestroyOperators(skippedOperators);
+        skippedOperators.clear();
+        if (throwable != null) {
+            throwIfUnchecked(throwable);
+            throw new RuntimeException(throwable);
+        }
+        cachedPages = pages.iterator();
+        fragmentPagesSerde = fragmentResultCacheContext.orElseThrow(VerifyException::new).createPagesSerde();
+    }
+
+    @GuardedBy("exclusiveLock")
+    private ListenableFuture<?> processCachedPages(OperationTimer operationTimer)
+    {
+        Operator outputOperator = getOnlyElement(activeOperators);
+        while (cachedPages.hasNext() && !driverContext.isDone()) {
+            Optional<ListenableFuture<?>> blocked = getBlockedFuture(outputOperator);
+            if (blocked.isPresent()) {
+                driverContext.recordBlocked(blocked.get());
+                outputOperator.getOperatorContext().recordBlocked(blocked.get());
+                return blocked.get();
+            }
+            if (!outputOperator.needsInput()) {
+                break;
+            }
+            Page page = fragmentPagesSerde.deserialize(cachedPages.next());
+            outputOperator.addInput(page);
+            outputOperator.getOperatorContext().recordAddInput(operationTimer, page);
+        }
+        return NOT_BLOCKED;
+    }
+
+    @GuardedBy("exclusiveLock")
+    private void startCollectingPages(FragmentCacheKey key)
+    {
+        fragmentCacheKey = key;
+        fragmentPages = new ArrayList<>();
+        fragmentPagesSizeInBytes = 0;
+        fragmentPagesMemoryContext = allOperators.get(allOperators.size() - 1).getOperatorContext().newLocalSystemMemoryContext(Driver.class.getSimpleName());
+        fragmentPagesSerde = fragmentResultCacheContext.orElseThrow(VerifyException::new).createPagesSerde();
+    }
+
+    @GuardedBy("exclusiveLock")
+    private void collectPage(Page page)
+    {
+        SerializedPage serializedPage = fragmentPagesSerde.serialize(page);
+        fragmentPages.add(serializedPage);
+        fragmentPagesSizeInBytes += serializedPage.getRetainedSizeInBytes();
+        if (fragmentPagesSizeInBytes > fragmentResultCacheContext.orElseThrow(VerifyException::new).getCacheManager().getMaxEntrySizeInBytes()) {
+            // the output is too large to be cached
+            stopCollectingPages();
+            return;
+        }
+        fragmentPagesMemoryContext.setBytes(fragmentPagesSizeInBytes);
+    }
+
+    @GuardedBy("exclusiveLock")
+    private void stopCollectingPages()
+    {
+        fragmentCacheKey = null;
+        fragmentPages = null;
+        fragmentPagesMemoryContext.setBytes(0);
+    }
+
     public ListenableFuture<?> processFor(Duration duration)
     {
         checkLockNotHeld("Can not process for a duration while holding the driver lock");
@@ -353,6 +466,10 @@ public class Driver
         try {
             processNewSources();
 
+            if (cachedPages != null && cachedPages.hasNext()) {
+                return processCachedPages(operationTimer);
+            }
+
             // If there is only one operator, finish it
             // Some operators (LookupJoinOperator and HashBuildOperator) are broken and requires finish to be called continuously
             // TODO remove the second part of the if statement, when these operators are fixed
@@ -381,6 +498,9 @@ public class Driver
 
                     // if we got an output page, add it to the next operator
                     if (page != null && page.getPositionCount() != 0) {
+                        if (fragmentCacheKey != null && i == activeOperators.size() - 2) {
+                            collectPage(page);
+                        }
                         next.addInput(page);
                         next.getOperatorContext().recordAddInput(operationTimer, page);
                         movedPage = true;
@@ -401,6 +521,12 @@ public class Driver
 
             for (int index = activeOperators.size() - 1; index >= 0; index--) {
                 if (activeOperators.get(index).isFinished()) {
+                    // the output operator finishing after all other operators means the whole split was processed
+                    if (fragmentCacheKey != null && activeOperators.size() == 1) {
+                        fragmentResultCacheContext.orElseThrow(VerifyException::new).getCacheManager().put(fragmentCacheKey, fragmentPages);
+                        stopCollectingPages();
+                    }
+
                     // close and remove this operator and all source operators
                     List<Operator> finishedOperators = this.activeOperators.subList(0, index + 1);
                     Throwable throwable = closeAndDestroyOperators(finishedOperators);
@@ -16,6 +16,7 @@ package io.prestosql.operator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import io.prestosql.execution.Lifespan;
+import io.prestosql.execution.fragmentcache.FragmentResultCacheContext;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 
 import java.util.HashSet;
@@ -39,12 +40,25 @@ public class DriverFactory
     private final Optional<PlanNodeId> sourceId;
     private final OptionalInt driverInstances;
     private final PipelineExecutionStrategy pipelineExecutionStrategy;
+    private final Optional<FragmentResultCacheContext> fragmentResultCacheContext;
 
     private boolean closed;
     private final Set<Lifespan> encounteredLifespans = new HashSet<>();
     private final Set<Lifespan> closedLifespans = new HashSet<>();
 
     public DriverFactory(int pipelineId, boolean inputDriver, boolean outputDriver, List<OperatorFactory> operatorFactories, OptionalInt driverInstances, PipelineExecutionStrategy pipelineExecutionStrategy)
+    {
+        this(pipelineId, inputDriver, outputDriver, operatorFactories, driverInstances, pipelineExecutionStrategy, Optional.empty());
+    }
+
+    public DriverFactory(
+            int pipelineId,
+            boolean inputDriver,
+            boolean outputDriver,
+            List<OperatorFactory> operatorFactories,
+            OptionalInt driverInstances,
+            PipelineExecutionStrategy pipelineExecutionStrategy,
+            Optional<FragmentResultCacheContext> fragmentResultCacheContext)
     {
         this.pipelineId = pipelineId;
         this.inputDriver = inputDriver;
@@ -53,6 +67,8 @@ public class DriverFactory
         checkArgument(!operatorFactories.isEmpty(), "There must be at least one operator");
         this.driverInstances = requireNonNull(driverInstances, "driverInstances is null");
         this.pipelineExecutionStrategy = requireNonNull(pipelineExecutionStrategy, "pipelineExecutionStrategy is null");
+        this.fragmentResultCacheContext = requireNonNull(fragmentResultCacheContext, "fragmentResultCacheContext is null");
+        checkArgument(!fragmentResultCacheContext.isPresent() || outputDriver, "Only the output pipeline can cache fragment results");
 
         List<PlanNodeId> sourceIds = operatorFactories.stream()
                 .filter(SourceOperatorFactory.class::isInstance)
@@ -114,7 +130,7 @@ public class DriverFactory
             Operator operator = operatorFactory.createOperator(driverContext);
             operators.add(operator);
         }
-        return Driver.createDriver(driverContext, operators.build());
+        return Driver.createDriver(driverContext, operators.build(), fragmentResultCacheContext);
     }
 
     public synchronized void noMoreDrivers(Lifespan lifespan)
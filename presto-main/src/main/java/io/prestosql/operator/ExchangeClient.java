@@ -23,7 +23,7 @@ import io.airlift.units.Duration;
 import io.prestosql.execution.buffer.PageCodecMarker;
 import io.prestosql.execution.buffer.SerializedPage;
 import io.prestosql.memory.context.LocalMemoryContext;
-import io.prestosql.operator.HttpPageBufferClient.ClientCallback;
+import io.prestosql.operator.PageBufferClient.ClientCallback;
 import io.prestosql.operator.WorkProcessor.ProcessState;
 
 import javax.annotation.Nullable;
@@ -45,6 +45,7 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.collect.Sets.newConcurrentHashSet;
@@ -55,26 +56,24 @@ import static java.util.Objects.requireNonNull;
 public class ExchangeClient
         implements Closeable
 {
-    private static final SerializedPage NO_MORE_PAGES = new SerializedPage(EMPTY_SLICE, PageCodecMarker.MarkerSet.empty(), 0, 0);
+    private static final BufferedPage NO_MORE_PAGES = BufferedPage.onHeap(new SerializedPage(EMPTY_SLICE, PageCodecMarker.MarkerSet.empty(), 0, 0));
 
     private final long bufferCapacity;
-    private final DataSize maxResponseSize;
     private final int concurrentRequestMultiplier;
-    private final Duration maxErrorDuration;
-    private final boolean acknowledgePages;
-    private final HttpClient httpClient;
+    private final PageBufferClient.Factory pageBufferClientFactory;
     private final ScheduledExecutorService scheduler;
+    private final boolean offHeapPages;
 
     @GuardedBy("this")
     private boolean noMoreLocations;
 
-    private final ConcurrentMap<URI, HttpPageBufferClient> allClients = new ConcurrentHashMap<>();
+    private final ConcurrentMap<URI, PageBufferClient> allClients = new ConcurrentHashMap<>();
 
     @GuardedBy("this")
-    private final Deque<HttpPageBufferClient> queuedClients = new LinkedList<>();
+    private final Deque<PageBufferClient> queuedClients = new LinkedList<>();
 
-    private final Set<HttpPageBufferClient> completedClients = newConcurrentHashSet();
-    private final LinkedBlockingDeque<SerializedPage> pageBuffer = new LinkedBlockingDeque<>();
+    private final Set<PageBufferClient> completedClients = newConcurrentHashSet();
+    private final LinkedBlockingDeque<BufferedPage> pageBuffer = new LinkedBlockingDeque<>();
 
     @GuardedBy("this")
     private final List<SettableFuture<?>> blockedCallers = new ArrayList<>();
@@ -92,7 +91,6 @@ public class ExchangeClient
     private final AtomicReference<Throwable> failure = new AtomicReference<>();
 
     private final LocalMemoryContext systemMemoryContext;
-    private final Executor pageBufferClientCallbackExecutor;
 
     // ExchangeClientStatus.mergeWith assumes all clients have the same bufferCapacity.
     // Please change that method accordingly when this assumption becomes not true.
@@ -106,17 +104,51 @@ public class ExchangeClient
             ScheduledExecutorService scheduler,
             LocalMemoryContext systemMemoryContext,
             Executor pageBufferClientCallbackExecutor)
+    {
+        this(
+                bufferCapacity,
+                concurrentRequestMultiplier,
+                httpPageBufferClientFactory(maxResponseSize, maxErrorDuration, acknowledgePages, httpClient, scheduler, pageBufferClientCallbackExecutor),
+                scheduler,
+                systemMemoryContext,
+                false);
+    }
+
+    public ExchangeClient(
+            DataSize bufferCapacity,
+            int concurrentRequestMultiplier,
+            PageBufferClient.Factory pageBufferClientFactory,
+            ScheduledExecutorService scheduler,
+            LocalMemoryContext systemMemoryContext,
+            boolean offHeapPages)
     {
         this.bufferCapacity = bufferCapacity.toBytes();
-        this.maxResponseSize = maxResponseSize;
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
-        this.maxErrorDuration = maxErrorDuration;
-        this.acknowledgePages = acknowledgePages;
-        this.httpClient = httpClient;
+        this.pageBufferClientFactory = requireNonNull(pageBufferClientFactory, "pageBufferClientFactory is null");
         this.scheduler = scheduler;
         this.systemMemoryContext = systemMemoryContext;
+        this.offHeapPages = offHeapPages;
         this.maxBufferRetainedSizeInBytes = Long.MIN_VALUE;
-        this.pageBufferClientCallbackExecutor = requireNonNull(pageBufferClientCallbackExecutor, "pageBufferClientCallbackExecutor is null");
+    }
+
+    public static PageBufferClient.Factory httpPageBufferClientFactory(
+            DataSize maxResponseSize,
+            Duration maxErrorDuration,
+            boolean acknowledgePages,
+            HttpClient httpClient,
+            ScheduledExecutorService scheduler,
+            Executor pageBufferClientCallbackExecutor)
+    {
+        requireNonNull(pageBufferClientCallbackExecutor, "pageBufferClientCallbackExecutor is null");
+        return (location, clientCallback) -> new HttpPageBufferClient(
+                httpClient,
+                maxResponseSize,
+                maxErrorDuration,
+                acknowledgePages,
+                location,
+                clientCallback,
+                scheduler,
+                pageBufferClientCallbackExecutor);
     }
 
     public ExchangeClientStatus getStatus()
@@ -125,7 +157,7 @@ public class ExchangeClient
         // It does not guarantee a consistent view between different exchange clients.
         // Guaranteeing a consistent view introduces significant lock contention.
         ImmutableList.Builder<PageBufferClientStatus> pageBufferClientStatusBuilder = ImmutableList.builder();
-        for (HttpPageBufferClient client : allClients.values()) {
+        for (PageBufferClient client : allClients.values()) {
             pageBufferClientStatusBuilder.add(client.getStatus());
         }
         List<PageBufferClientStatus> pageBufferClientStatus = pageBufferClientStatusBuilder.build();
@@ -155,21 +187,23 @@ public class ExchangeClient
 
         checkState(!noMoreLocations, "No more locations already set");
 
-        HttpPageBufferClient client = new HttpPageBufferClient(
-                httpClient,
-                maxResponseSize,
-                maxErrorDuration,
-                acknowledgePages,
-                location,
-                new ExchangeClientCallback(),
-                scheduler,
-                pageBufferClientCallbackExecutor);
+        PageBufferClient client = pageBufferClientFactory.create(location, new ExchangeClientCallback());
         allClients.put(location, client);
         queuedClients.add(client);
 
         scheduleRequestIfNecessary();
     }
 
+    /**
+     * Adds pages that are already available on this node, such as a cached query result, ahead of the pages of the remote locations.
+     */
+    public synchronized void addLocalPages(List<SerializedPage> pages)
+    {
+        requireNonNull(pages, "pages is null");
+        checkState(!noMoreLocations, "No more locations already set");
+        addPages(pages);
+    }
+
     public synchronized void noMoreLocations()
     {
         noMoreLocations = true;
@@ -208,11 +242,11 @@ public class ExchangeClient
             return null;
         }
 
-        SerializedPage page = pageBuffer.poll();
+        BufferedPage page = pageBuffer.poll();
         return postProcessPage(page);
     }
 
-    private SerializedPage postProcessPage(SerializedPage page)
+    private SerializedPage postProcessPage(BufferedPage page)
     {
         checkState(!Thread.holdsLock(this), "Can not get next page while holding a lock on this");
 
@@ -230,6 +264,9 @@ public class ExchangeClient
             return null;
         }
 
+        // the page has been removed from the buffer, so close() will not free it concurrently
+        SerializedPage serializedPage = page.take();
+
         synchronized (this) {
             if (!closed.get()) {
                 bufferRetainedSizeInBytes -= page.getRetainedSizeInBytes();
@@ -240,7 +277,7 @@ public class ExchangeClient
             }
         }
         scheduleRequestIfNecessary();
-        return page;
+        return serializedPage;
     }
 
     public boolean isFinished()
@@ -262,10 +299,12 @@ public class ExchangeClient
             return;
         }
 
-        for (HttpPageBufferClient client : allClients.values()) {
+        for (PageBufferClient client : allClients.values()) {
             closeQuietly(client);
         }
-        pageBuffer.clear();
+        List<BufferedPage> bufferedPages = new ArrayList<>();
+        pageBuffer.drainTo(bufferedPages);
+        bufferedPages.forEach(BufferedPage::free);
         systemMemoryContext.setBytes(0);
         bufferRetainedSizeInBytes = 0;
         if (pageBuffer.peekLast() != NO_MORE_PAGES) {
@@ -304,7 +343,7 @@ public class ExchangeClient
         clientCount -= pendingClients;
 
         for (int i = 0; i < clientCount; i++) {
-            HttpPageBufferClient client = queuedClients.poll();
+            PageBufferClient client = queuedClients.poll();
             if (client == null) {
                 // no more clients available
                 return;
@@ -329,17 +368,18 @@ public class ExchangeClient
             return false;
         }
 
-        pageBuffer.addAll(pages);
+        long pagesRetainedSizeInBytes = 0;
+        for (SerializedPage page : pages) {
+            BufferedPage bufferedPage = offHeapPages ? BufferedPage.offHeap(OffHeapSerializedPage.copyOf(page)) : BufferedPage.onHeap(page);
+            pageBuffer.add(bufferedPage);
+            pagesRetainedSizeInBytes += bufferedPage.getRetainedSizeInBytes();
+        }
 
         if (!pages.isEmpty()) {
             // notify all blocked callers
             notifyBlockedCallers();
         }
 
-        long pagesRetainedSizeInBytes = pages.stream()
-                .mapToLong(SerializedPage::getRetainedSizeInBytes)
-                .sum();
-
         bufferRetainedSizeInBytes += pagesRetainedSizeInBytes;
         maxBufferRetainedSizeInBytes = Math.max(maxBufferRetainedSizeInBytes, bufferRetainedSizeInBytes);
         systemMemoryContext.setBytes(bufferRetainedSizeInBytes);
@@ -364,7 +404,7 @@ public class ExchangeClient
         }
     }
 
-    private synchronized void requestComplete(HttpPageBufferClient client)
+    private synchronized void requestComplete(PageBufferClient client)
     {
         if (!queuedClients.contains(client)) {
             queuedClients.add(client);
@@ -372,7 +412,7 @@ public class ExchangeClient
         scheduleRequestIfNecessary();
     }
 
-    private synchronized void clientFinished(HttpPageBufferClient client)
+    private synchronized void clientFinished(PageBufferClient client)
     {
         requireNonNull(client, "client is null");
         completedClients.add(client);
@@ -407,7 +447,7 @@ public class ExchangeClient
             implements ClientCallback
     {
         @Override
-        public boolean addPages(HttpPageBufferClient client, List<SerializedPage> pages)
+        public boolean addPages(PageBufferClient client, List<SerializedPage> pages)
         {
             requireNonNull(client, "client is null");
             requireNonNull(pages, "pages is null");
@@ -415,20 +455,20 @@ public class ExchangeClient
         }
 
         @Override
-        public void requestComplete(HttpPageBufferClient client)
+        public void requestComplete(PageBufferClient client)
         {
             requireNonNull(client, "client is null");
             ExchangeClient.this.requestComplete(client);
         }
 
         @Override
-        public void clientFinished(HttpPageBufferClient client)
+        public void clientFinished(PageBufferClient client)
         {
             ExchangeClient.this.clientFinished(client);
         }
 
         @Override
-        public void clientFailed(HttpPageBufferClient client, Throwable cause)
+        public void clientFailed(PageBufferClient client, Throwable cause)
         {
             requireNonNull(client, "client is null");
             requireNonNull(cause, "cause is null");
@@ -436,7 +476,54 @@ public class ExchangeClient
         }
     }
 
-    private static void closeQuietly(HttpPageBufferClient client)
+    /**
+     * A page waiting in the buffer. With off-heap pages, the data is copied out of the Java heap when
+     * the page is added. It is copied back and freed when the page is taken, or just freed when the
+     * client is closed.
+     */
+    private static final class BufferedPage
+    {
+        @Nullable
+        private final SerializedPage page;
+        @Nullable
+        private final OffHeapSerializedPage offHeapPage;
+
+        private BufferedPage(@Nullable SerializedPage page, @Nullable OffHeapSerializedPage offHeapPage)
+        {
+            checkArgument(page == null ^ offHeapPage == null, "exactly one of page and offHeapPage must be set");
+            this.page = page;
+            this.offHeapPage = offHeapPage;
+        }
+
+        public static BufferedPage onHeap(SerializedPage page)
+        {
+            return new BufferedPage(requireNonNull(page, "page is null"), null);
+        }
+
+        public static BufferedPage offHeap(OffHeapSerializedPage offHeapPage)
+        {
+            return new BufferedPage(null, requireNonNull(offHeapPage, "offHeapPage is null"));
+        }
+
+        public long getRetainedSizeInBytes()
+        {
+            return page != null ? page.getRetainedSizeInBytes() : offHeapPage.getRetainedSizeInBytes();
+        }
+
+        public SerializedPage take()
+        {
+            return page != null ? page : offHeapPage.toSerializedPage();
+        }
+
+        public void free()
+        {
+            if (offHeapPage != null) {
+                offHeapPage.free();
+            }
+        }
+    }
+
+    private static void closeQuietly(PageBufferClient client)
     {
         try {
             client.close();
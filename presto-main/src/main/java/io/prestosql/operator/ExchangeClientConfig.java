@@ -21,6 +21,7 @@ import io.airlift.units.Duration;
 import io.airlift.units.MinDataSize;
 import io.airlift.units.MinDuration;
 
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -28,6 +29,8 @@ import java.util.concurrent.TimeUnit;
 
 public class ExchangeClientConfig
 {
+    public static final String EXCHANGE_TRANSPORT = "exchange.transport";
+
     private DataSize maxBufferSize = new DataSize(32, Unit.MEGABYTE);
     private int concurrentRequestMultiplier = 3;
     private Duration minErrorDuration = new Duration(1, TimeUnit.MINUTES);
@@ -36,6 +39,15 @@ public class ExchangeClientConfig
     private int clientThreads = 25;
     private int pageBufferClientMaxCallbackThreads = 25;
     private boolean acknowledgePages = true;
+    private ExchangeTransport transport = ExchangeTransport.HTTP;
+    private int streamingPort = 8081;
+    private boolean offHeapPagesEnabled;
+
+    public enum ExchangeTransport
+    {
+        HTTP,
+        STREAMING,
+    }
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -141,4 +153,43 @@ public class ExchangeClientConfig
         this.acknowledgePages = acknowledgePages;
         return this;
     }
+
+    @NotNull
+    public ExchangeTransport getTransport()
+    {
+        return transport;
+    }
+
+    @Config(EXCHANGE_TRANSPORT)
+    public ExchangeClientConfig setTransport(ExchangeTransport transport)
+    {
+        this.transport = transport;
+        return this;
+    }
+
+    @Min(1)
+    @Max(65535)
+    public int getStreamingPort()
+    {
+        return streamingPort;
+    }
+
+    @Config("exchange.streaming.port")
+    public ExchangeClientConfig setStreamingPort(int streamingPort)
+    {
+        this.streamingPort = streamingPort;
+        return this;
+    }
+
+    public boolean isOffHeapPagesEnabled()
+    {
+        return offHeapPagesEnabled;
+    }
+
+    @Config("exchange.off-heap-pages-enabled")
+    public ExchangeClientConfig setOffHeapPagesEnabled(boolean offHeapPagesEnabled)
+    {
+        this.offHeapPagesEnabled = offHeapPagesEnabled;
+        return this;
+    }
 }
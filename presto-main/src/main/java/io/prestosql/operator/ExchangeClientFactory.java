@@ -18,12 +18,18 @@ import io.airlift.http.client.HttpClient;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.operator.ExchangeClientConfig.ExchangeTransport;
+import io.prestosql.spooling.SpoolingStorage;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
 
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.util.Optional;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -31,6 +37,9 @@ import java.util.concurrent.ThreadPoolExecutor;
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.operator.ExchangeClient.httpPageBufferClientFactory;
+import static io.prestosql.operator.ExchangeClientConfig.ExchangeTransport.STREAMING;
+import static io.prestosql.operator.SpoolingPageBufferClient.isSpooledOutputLocation;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newFixedThreadPool;
 
@@ -39,19 +48,20 @@ public class ExchangeClientFactory
 {
     private final DataSize maxBufferedBytes;
     private final int concurrentRequestMultiplier;
-    private final Duration maxErrorDuration;
-    private final HttpClient httpClient;
     private final DataSize maxResponseSize;
-    private final boolean acknowledgePages;
     private final ScheduledExecutorService scheduler;
+    private final boolean offHeapPages;
     private final ThreadPoolExecutorMBean executorMBean;
     private final ExecutorService pageBufferClientCallbackExecutor;
+    private final PageBufferClient.Factory pageBufferClientFactory;
+    private final Optional<AsynchronousChannelGroup> streamingChannelGroup;
 
     @Inject
     public ExchangeClientFactory(
             ExchangeClientConfig config,
             @ForExchange HttpClient httpClient,
-            @ForExchange ScheduledExecutorService scheduler)
+            @ForExchange ScheduledExecutorService scheduler,
+            SpoolingStorage spoolingStorage)
     {
         this(
                 config.getMaxBufferSize(),
@@ -59,9 +69,14 @@ public class ExchangeClientFactory
                 config.getConcurrentRequestMultiplier(),
                 config.getMaxErrorDuration(),
                 config.isAcknowledgePages(),
+                config.isOffHeapPagesEnabled(),
                 config.getPageBufferClientMaxCallbackThreads(),
+                config.getTransport(),
+                config.getStreamingPort(),
+                config.getClientThreads(),
                 httpClient,
-                scheduler);
+                scheduler,
+                spoolingStorage);
     }
 
     public ExchangeClientFactory(
@@ -70,15 +85,20 @@ public class ExchangeClientFactory
             int concurrentRequestMultiplier,
             Duration maxErrorDuration,
             boolean acknowledgePages,
+            boolean offHeapPages,
             int pageBufferClientMaxCallbackThreads,
+            ExchangeTransport transport,
+            int streamingPort,
+            int streamingThreads,
             HttpClient httpClient,
-            ScheduledExecutorService scheduler)
+            ScheduledExecutorService scheduler,
+            SpoolingStorage spoolingStorage)
     {
         this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
-        this.maxErrorDuration = requireNonNull(maxErrorDuration, "maxErrorDuration is null");
-        this.acknowledgePages = acknowledgePages;
-        this.httpClient = requireNonNull(httpClient, "httpClient is null");
+        requireNonNull(maxErrorDuration, "maxErrorDuration is null");
+        requireNonNull(httpClient, "httpClient is null");
+        requireNonNull(spoolingStorage, "spoolingStorage is null");
 
         // Use only 0.75 of the maxResponseSize to leave room for additional bytes from the encoding
         // TODO figure out a better way to compute the size of data that will be transferred over the network
@@ -87,10 +107,55 @@ public class ExchangeClientFactory
         this.maxResponseSize = new DataSize(maxResponseSizeBytes, BYTE);
 
         this.scheduler = requireNonNull(scheduler, "scheduler is null");
+        this.offHeapPages = offHeapPages;
 
         this.pageBufferClientCallbackExecutor = newFixedThreadPool(pageBufferClientMaxCallbackThreads, daemonThreadsNamed("page-buffer-client-callback-%s"));
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) pageBufferClientCallbackExecutor);
 
+        PageBufferClient.Factory httpPageBufferClientFactory = httpPageBufferClientFactory(
+                this.maxResponseSize,
+                maxErrorDuration,
+                acknowledgePages,
+                httpClient,
+                scheduler,
+                pageBufferClientCallbackExecutor);
+        requireNonNull(transport, "transport is null");
+        PageBufferClient.Factory transportClientFactory;
+        if (transport == STREAMING) {
+            AsynchronousChannelGroup channelGroup;
+            try {
+                channelGroup = AsynchronousChannelGroup.withFixedThreadPool(streamingThreads, daemonThreadsNamed("exchange-streaming-%s"));
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            this.streamingChannelGroup = Optional.of(channelGroup);
+            transportClientFactory = (location, clientCallback) -> new StreamingPageBufferClient(
+                    location,
+                    streamingPort,
+                    channelGroup,
+                    this.maxResponseSize,
+                    // a results frame is bounded like an HTTP response
+                    new DataSize(Math.min(httpClient.getMaxContentLength(), maxResponseSize.toBytes()), BYTE),
+                    maxErrorDuration,
+                    clientCallback,
+                    scheduler,
+                    pageBufferClientCallbackExecutor,
+                    httpPageBufferClientFactory);
+        }
+        else {
+            this.streamingChannelGroup = Optional.empty();
+            transportClientFactory = httpPageBufferClientFactory;
+        }
+
+        // the output of fault-tolerant tasks is read from the spooling storage instead of the task
+        this.pageBufferClientFactory = (location, clientCallback) -> {
+            if (isSpooledOutputLocation(location)) {
+                return new SpoolingPageBufferClient(location, spoolingStorage, this.maxResponseSize, clientCallback, scheduler, pageBufferClientCallbackExecutor);
+            }
+            return transportClientFactory.create(location, clientCallback);
+        };
+
         checkArgument(maxBufferedBytes.toBytes() > 0, "maxBufferSize must be at least 1 byte: %s", maxBufferedBytes);
         checkArgument(maxResponseSize.toBytes() > 0, "maxResponseSize must be at least 1 byte: %s", maxResponseSize);
         checkArgument(concurrentRequestMultiplier > 0, "concurrentRequestMultiplier must be at least 1: %s", concurrentRequestMultiplier);
@@ -100,6 +165,7 @@ public class ExchangeClientFactory
     public void stop()
     {
         pageBufferClientCallbackExecutor.shutdownNow();
+        streamingChannelGroup.ifPresent(AsynchronousChannelGroup::shutdown);
     }
 
     @Managed
@@ -114,13 +180,10 @@ public class ExchangeClientFactory
     {
         return new ExchangeClient(
                 maxBufferedBytes,
-                maxResponseSize,
                 concurrentRequestMultiplier,
-                maxErrorDuration,
-                acknowledgePages,
-                httpClient,
+                pageBufferClientFactory,
                 scheduler,
                 systemMemoryContext,
-                pageBufferClientCallbackExecutor);
+                offHeapPages);
     }
 }
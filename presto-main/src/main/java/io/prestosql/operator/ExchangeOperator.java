@@ -182,7 +182,9 @@ public class ExchangeOperator
 
         operatorContext.recordNetworkInput(page.getSizeInBytes(), page.getPositionCount());
 
+        OperationTimer timer = operatorContext.startSerdeTimer();
         Page deserializedPage = serde.deserialize(page);
+        operatorContext.recordSerde(timer, page.getUncompressedSizeInBytes(), page.getSizeInBytes());
         operatorContext.recordProcessedInput(deserializedPage.getSizeInBytes(), page.getPositionCount());
 
         return deserializedPage;
@@ -0,0 +1,229 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.units.Duration;
+import io.prestosql.execution.buffer.SerializedPage;
+
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.List;
+
+import static java.lang.Math.toIntExact;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Frames of the streaming exchange transport. A client opens a connection for one output buffer
+ * of a remote task and then requests its pages one batch at a time over that connection. Like a results
+ * request over HTTP, every {@link #POLL} is a long poll that the server answers when pages are available
+ * or its wait time is over, and a client has a single poll outstanding per connection:
+ * <ul>
+ * <li>{@link #OPEN}: protocol version, output buffer location. Answered with {@link #ACCEPTED},
+ * or {@link #REJECTED} if the server does not serve the location, in which case the client uses HTTP.</li>
+ * <li>{@link #POLL}: token, maximum bytes. Acknowledges the pages before the token like a results request
+ * over HTTP does, and is answered with a {@link #RESULTS} frame of at most that many bytes of pages.</li>
+ * <li>{@link #CLOSE}: aborts the output buffer. Answered with {@link #CLOSED}.</li>
+ * </ul>
+ * Every frame is a type byte and the length of the body, followed by the body. The server answers
+ * a frame it cannot process with {@link #FAILED} and closes the connection.
+ */
+public final class ExchangeStreamProtocol
+{
+    public static final int VERSION = 1;
+
+    // client frames
+    public static final byte OPEN = 1;
+    public static final byte POLL = 2;
+    public static final byte CLOSE = 3;
+
+    // server frames
+    public static final byte ACCEPTED = 11;
+    public static final byte REJECTED = 12;
+    public static final byte RESULTS = 13;
+    public static final byte CLOSED = 14;
+    public static final byte FAILED = 15;
+
+    public static final int FRAME_HEADER_SIZE = Byte.BYTES + Integer.BYTES;
+    // token, next token, buffer complete, page count
+    public static final int RESULTS_HEADER_SIZE = Long.BYTES + Long.BYTES + Byte.BYTES + Integer.BYTES;
+    // position count, codec markers, uncompressed size, size
+    public static final int PAGE_HEADER_SIZE = Integer.BYTES + Byte.BYTES + Integer.BYTES + Integer.BYTES;
+    // frames other than results are small
+    public static final int MAX_CONTROL_FRAME_SIZE = 64 * 1024;
+
+    private ExchangeStreamProtocol() {}
+
+    public static ByteBuffer openFrame(String location)
+    {
+        byte[] locationBytes = location.getBytes(UTF_8);
+        ByteBuffer frame = allocateFrame(OPEN, Integer.BYTES + Integer.BYTES + locationBytes.length);
+        frame.putInt(VERSION);
+        frame.putInt(locationBytes.length);
+        frame.put(locationBytes);
+        frame.flip();
+        return frame;
+    }
+
+    public static ByteBuffer pollFrame(long token, long maxBytes)
+    {
+        ByteBuffer frame = allocateFrame(POLL, Long.BYTES + Long.BYTES);
+        frame.putLong(token);
+        frame.putLong(maxBytes);
+        frame.flip();
+        return frame;
+    }
+
+    public static ByteBuffer emptyFrame(byte type)
+    {
+        ByteBuffer frame = allocateFrame(type, 0);
+        frame.flip();
+        return frame;
+    }
+
+    public static ByteBuffer messageFrame(byte type, String message)
+    {
+        byte[] messageBytes = message.getBytes(UTF_8);
+        ByteBuffer frame = allocateFrame(type, messageBytes.length);
+        frame.put(messageBytes);
+        frame.flip();
+        return frame;
+    }
+
+    /**
+     * Buffers of a results frame. The pages are not copied: the buffers of their slices are sent as they are.
+     */
+    public static ByteBuffer[] resultsFrame(String taskInstanceId, long token, long nextToken, boolean bufferComplete, List<SerializedPage> pages)
+    {
+        byte[] taskInstanceIdBytes = taskInstanceId.getBytes(UTF_8);
+        long bodySize = Integer.BYTES + taskInstanceIdBytes.length + RESULTS_HEADER_SIZE;
+        for (SerializedPage page : pages) {
+            bodySize += PAGE_HEADER_SIZE + page.getSizeInBytes();
+        }
+
+        ByteBuffer[] buffers = new ByteBuffer[1 + 2 * pages.size()];
+        ByteBuffer header = allocateFrame(RESULTS, toIntExact(bodySize));
+        header.putInt(taskInstanceIdBytes.length);
+        header.put(taskInstanceIdBytes);
+        header.putLong(token);
+        header.putLong(nextToken);
+        header.put((byte) (bufferComplete ? 1 : 0));
+        header.putInt(pages.size());
+        header.flip();
+        buffers[0] = header;
+
+        for (int i = 0; i < pages.size(); i++) {
+            SerializedPage page = pages.get(i);
+            ByteBuffer pageHeader = ByteBuffer.allocate(PAGE_HEADER_SIZE).order(LITTLE_ENDIAN);
+            pageHeader.putInt(page.getPositionCount());
+            pageHeader.put(page.getPageCodecMarkers());
+            pageHeader.putInt(page.getUncompressedSizeInBytes());
+            pageHeader.putInt(page.getSizeInBytes());
+            pageHeader.flip();
+            buffers[1 + 2 * i] = pageHeader;
+            buffers[2 + 2 * i] = page.getSlice().toByteBuffer();
+        }
+        return buffers;
+    }
+
+    public static String readString(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    public static String readMessage(ByteBuffer buffer)
+    {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Reads until the buffer is full. The future fails with an {@link EOFException} if the connection is closed first.
+     */
+    public static ListenableFuture<ByteBuffer> readFully(AsynchronousSocketChannel channel, ByteBuffer buffer, Duration timeout)
+    {
+        SettableFuture<ByteBuffer> future = SettableFuture.create();
+        channel.read(buffer, timeout.toMillis(), MILLISECONDS, null, new CompletionHandler<Integer, Void>()
+        {
+            @Override
+            public void completed(Integer bytesRead, Void attachment)
+            {
+                if (bytesRead < 0) {
+                    future.setException(new EOFException("Connection closed by peer"));
+                }
+                else if (buffer.hasRemaining()) {
+                    channel.read(buffer, timeout.toMillis(), MILLISECONDS, null, this);
+                }
+                else {
+                    buffer.flip();
+                    future.set(buffer);
+                }
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment)
+            {
+                future.setException(exc);
+            }
+        });
+        return future;
+    }
+
+    public static ListenableFuture<?> writeFully(AsynchronousSocketChannel channel, ByteBuffer... buffers)
+    {
+        SettableFuture<?> future = SettableFuture.create();
+        channel.write(buffers, 0, buffers.length, 0, MILLISECONDS, null, new CompletionHandler<Long, Void>()
+        {
+            @Override
+            public void completed(Long bytesWritten, Void attachment)
+            {
+                for (ByteBuffer buffer : buffers) {
+                    if (buffer.hasRemaining()) {
+                        channel.write(buffers, 0, buffers.length, 0, MILLISECONDS, null, this);
+                        return;
+                    }
+                }
+                future.set(null);
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment)
+            {
+                future.setException(exc);
+            }
+        });
+        return future;
+    }
+
+    public static ByteBuffer allocateFrameHeader()
+    {
+        return ByteBuffer.allocate(FRAME_HEADER_SIZE).order(LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer allocateFrame(byte type, int bodySize)
+    {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + bodySize).order(LITTLE_ENDIAN);
+        frame.put(type);
+        frame.putInt(bodySize);
+        return frame;
+    }
+}
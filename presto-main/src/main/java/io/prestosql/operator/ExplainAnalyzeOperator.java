@@ -29,6 +29,7 @@ import java.util.concurrent.TimeUnit;
 import static com.google.common.base.Preconditions.checkState;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static io.prestosql.sql.planner.planprinter.PlanPrinter.textDistributedPlan;
+import static io.prestosql.sql.planner.planprinter.PlanPrinter.textOptimizerRuleStats;
 import static java.util.Objects.requireNonNull;
 
 public class ExplainAnalyzeOperator
@@ -146,6 +147,9 @@ public class ExplainAnalyzeOperator
         }
 
         String plan = textDistributedPlan(queryInfo.getOutputStage().get().getSubStages().get(0), metadata, operatorContext.getSession(), verbose);
+        if (verbose) {
+            plan += "\n" + textOptimizerRuleStats(queryInfo.getQueryStats().getOptimizerRuleStats());
+        }
         BlockBuilder builder = VARCHAR.createBlockBuilder(null, 1);
         VARCHAR.writeString(builder, plan);
 
@@ -41,7 +41,6 @@ import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.io.BufferedReader;
-import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
@@ -86,29 +85,10 @@ import static java.util.concurrent.TimeUnit.SECONDS;
 
 @ThreadSafe
 public final class HttpPageBufferClient
-        implements Closeable
+        implements PageBufferClient
 {
     private static final Logger log = Logger.get(HttpPageBufferClient.class);
 
-    /**
-     * For each request, the addPage method will be called zero or more times,
-     * followed by either requestComplete or clientFinished (if buffer complete).  If the client is
-     * closed, requestComplete or bufferFinished may never be called.
-     * <p/>
-     * <b>NOTE:</b> Implementations of this interface are not allowed to perform
-     * blocking operations.
-     */
-    public interface ClientCallback
-    {
-        boolean addPages(HttpPageBufferClient client, List<SerializedPage> pages);
-
-        void requestComplete(HttpPageBufferClient client);
-
-        void clientFinished(HttpPageBufferClient client);
-
-        void clientFailed(HttpPageBufferClient client, Throwable cause);
-    }
-
     private final HttpClient httpClient;
     private final DataSize maxResponseSize;
     private final boolean acknowledgePages;
@@ -180,6 +160,7 @@ public final class HttpPageBufferClient
         this.backoff = new Backoff(maxErrorDuration, ticker);
     }
 
+    @Override
     public synchronized PageBufferClientStatus getStatus()
     {
         String state;
@@ -220,6 +201,7 @@ public final class HttpPageBufferClient
                 httpRequestState);
     }
 
+    @Override
     public synchronized boolean isRunning()
     {
         return future != null;
@@ -252,6 +234,7 @@ public final class HttpPageBufferClient
         }
     }
 
+    @Override
     public synchronized void scheduleRequest()
     {
         if (closed || (future != null) || scheduled) {
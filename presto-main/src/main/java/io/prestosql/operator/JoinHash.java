@@ -92,6 +92,31 @@ public final class JoinHash
         return startJoinPosition(addressIndex, position, allChannelsPage);
     }
 
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, long[] joinPositions)
+    {
+        pagesHash.getAddressIndex(positions, positionCount, hashChannelsPage, joinPositions);
+        startJoinPositions(positions, positionCount, allChannelsPage, joinPositions);
+    }
+
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, long[] rawHashes, long[] joinPositions)
+    {
+        pagesHash.getAddressIndex(positions, positionCount, hashChannelsPage, rawHashes, joinPositions);
+        startJoinPositions(positions, positionCount, allChannelsPage, joinPositions);
+    }
+
+    private void startJoinPositions(int[] positions, int positionCount, Page allProbeChannelsPage, long[] joinPositions)
+    {
+        if (positionLinks == null) {
+            return;
+        }
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            joinPositions[position] = startJoinPosition(toIntExact(joinPositions[position]), position, allProbeChannelsPage);
+        }
+    }
+
     private long startJoinPosition(int currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
         if (currentJoinPosition == -1) {
@@ -52,6 +52,10 @@ public class JoinProbe
 
     private int position = -1;
 
+    // join positions of the whole page, resolved in a single batch on first use
+    private long[] joinPositionCache;
+    private LookupSource joinPositionCacheSource;
+
     private JoinProbe(int[] probeOutputChannels, Page page, List<Integer> probeJoinChannels, OptionalInt probeHashChannel)
     {
         this.probeOutputChannels = probeOutputChannels;
@@ -79,6 +83,12 @@ public class JoinProbe
 
     public long getCurrentJoinPosition(LookupSource lookupSource)
     {
+        if (lookupSource.supportsBatchedJoinPositions()) {
+            if (joinPositionCacheSource != lookupSource) {
+                fillJoinPositionCache(lookupSource);
+            }
+            return joinPositionCache[position];
+        }
         if (currentRowContainsNull()) {
             return -1;
         }
@@ -99,10 +109,44 @@ public class JoinProbe
         return page;
     }
 
+    private void fillJoinPositionCache(LookupSource lookupSource)
+    {
+        long[] joinPositions = new long[positionCount];
+        int[] positions = new int[positionCount];
+        int nonNullPositionCount = 0;
+        for (int position = 0; position < positionCount; position++) {
+            if (rowContainsNull(position)) {
+                joinPositions[position] = -1;
+            }
+            else {
+                positions[nonNullPositionCount++] = position;
+            }
+        }
+
+        if (probeHashBlock.isPresent()) {
+            long[] rawHashes = new long[positionCount];
+            for (int i = 0; i < nonNullPositionCount; i++) {
+                rawHashes[positions[i]] = BIGINT.getLong(probeHashBlock.get(), positions[i]);
+            }
+            lookupSource.getJoinPositions(positions, nonNullPositionCount, probePage, page, rawHashes, joinPositions);
+        }
+        else {
+            lookupSource.getJoinPositions(positions, nonNullPositionCount, probePage, page, joinPositions);
+        }
+
+        joinPositionCache = joinPositions;
+        joinPositionCacheSource = lookupSource;
+    }
+
     private boolean currentRowContainsNull()
+    {
+        return rowContainsNull(position);
+    }
+
+    private boolean rowContainsNull(int position)
     {
         for (Block probeBlock : probeBlocks) {
-            if (probeBlock.isNull(position)) {
+            if (probeBlock.mayHaveNull() && probeBlock.isNull(position)) {
                 return true;
             }
         }
@@ -36,6 +36,39 @@ public interface LookupSource
 
     long getJoinPosition(int position, Page hashChannelsPage, Page allChannelsPage);
 
+    /**
+     * Returns true if join positions can be resolved for a batch of probe positions
+     * up front, before rows for any of them are produced.
+     */
+    default boolean supportsBatchedJoinPositions()
+    {
+        return true;
+    }
+
+    /**
+     * Resolves the join positions for the first {@code positionCount} entries of {@code positions}.
+     * Both {@code rawHashes} and {@code joinPositions} are indexed by probe position.
+     */
+    default void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, long[] rawHashes, long[] joinPositions)
+    {
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            joinPositions[position] = getJoinPosition(position, hashChannelsPage, allChannelsPage, rawHashes[position]);
+        }
+    }
+
+    /**
+     * Resolves the join positions for the first {@code positionCount} entries of {@code positions}.
+     * {@code joinPositions} is indexed by probe position.
+     */
+    default void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, long[] joinPositions)
+    {
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            joinPositions[position] = getJoinPosition(position, hashChannelsPage, allChannelsPage);
+        }
+    }
+
     long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage);
 
     void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset);
@@ -0,0 +1,521 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.prestosql.execution.Lifespan;
+import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.operator.exchange.LocalExchange;
+import io.prestosql.operator.exchange.LocalExchange.LocalExchangeFactory;
+import io.prestosql.operator.exchange.LocalExchangeSource;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PageBuilder;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.SortOrder;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.LEFT;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Joins two inputs that are both sorted on the join keys by advancing over them in lockstep.
+ * The left input is pushed into the operator, while the right input is pulled from a local
+ * exchange. Only the right rows sharing the current key are buffered, so memory usage is
+ * bounded by the size of the largest group of equal right keys rather than the whole right input.
+ */
+public class MergeJoinOperator
+        implements Operator
+{
+    private static final int MAX_POSITIONS_PER_PAGE = 8192;
+
+    public static class MergeJoinOperatorFactory
+            implements OperatorFactory
+    {
+        private final int operatorId;
+        private final PlanNodeId planNodeId;
+        private final JoinNode.Type joinType;
+        private final LocalExchangeFactory rightExchangeFactory;
+        private final List<Type> leftTypes;
+        private final List<Integer> leftKeyChannels;
+        private final List<Integer> leftOutputChannels;
+        private final List<Type> rightTypes;
+        private final List<Integer> rightKeyChannels;
+        private final List<Integer> rightOutputChannels;
+        private final List<SortOrder> sortOrders;
+        private final Set<Lifespan> lifespansWithOperator = newConcurrentHashSet();
+        private boolean closed;
+
+        public MergeJoinOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                JoinNode.Type joinType,
+                LocalExchangeFactory rightExchangeFactory,
+                List<Type> leftTypes,
+                List<Integer> leftKeyChannels,
+                List<Integer> leftOutputChannels,
+                List<Type> rightTypes,
+                List<Integer> rightKeyChannels,
+                List<Integer> rightOutputChannels,
+                List<SortOrder> sortOrders)
+        {
+            this.operatorId = operatorId;
+            this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
+            this.joinType = requireNonNull(joinType, "joinType is null");
+            this.rightExchangeFactory = requireNonNull(rightExchangeFactory, "rightExchangeFactory is null");
+            this.leftTypes = ImmutableList.copyOf(requireNonNull(leftTypes, "leftTypes is null"));
+            this.leftKeyChannels = ImmutableList.copyOf(requireNonNull(leftKeyChannels, "leftKeyChannels is null"));
+            this.leftOutputChannels = ImmutableList.copyOf(requireNonNull(leftOutputChannels, "leftOutputChannels is null"));
+            this.rightTypes = ImmutableList.copyOf(requireNonNull(rightTypes, "rightTypes is null"));
+            this.rightKeyChannels = ImmutableList.copyOf(requireNonNull(rightKeyChannels, "rightKeyChannels is null"));
+            this.rightOutputChannels = ImmutableList.copyOf(requireNonNull(rightOutputChannels, "rightOutputChannels is null"));
+            this.sortOrders = ImmutableList.copyOf(requireNonNull(sortOrders, "sortOrders is null"));
+        }
+
+        @Override
+        public Operator createOperator(DriverContext driverContext)
+        {
+            checkState(!closed, "Factory is already closed");
+            // a lifespan with more than one left driver is not a single sorted stream
+            checkState(lifespansWithOperator.add(driverContext.getLifespan()), "Left side of merge join is expected to be a single stream per lifespan");
+
+            LocalExchange localExchange = rightExchangeFactory.getLocalExchange(driverContext.getLifespan());
+            checkState(localExchange.getBufferCount() == 1, "right side of merge join must be a single stream");
+            LocalExchangeSource rightSource = localExchange.getNextSource();
+
+            OperatorContext operatorContext = driverContext.addOperatorContext(operatorId, planNodeId, MergeJoinOperator.class.getSimpleName());
+            return new MergeJoinOperator(
+                    operatorContext,
+                    joinType,
+                    leftTypes,
+                    leftKeyChannels,
+                    leftOutputChannels,
+                    rightTypes,
+                    rightKeyChannels,
+                    rightOutputChannels,
+                    sortOrders,
+                    rightSource.pages(),
+                    rightSource::close);
+        }
+
+        @Override
+        public void noMoreOperators(Lifespan lifespan)
+        {
+            // a lifespan without left splits never reads the right side, so release its writers
+            if (lifespansWithOperator.add(lifespan)) {
+                rightExchangeFactory.getLocalExchange(lifespan).getNextSource().close();
+            }
+        }
+
+        @Override
+        public void noMoreOperators()
+        {
+            closed = true;
+        }
+
+        @Override
+        public OperatorFactory duplicate()
+        {
+            throw new UnsupportedOperationException("Merge join operator factories can not be duplicated");
+        }
+    }
+
+    private final OperatorContext operatorContext;
+    private final JoinNode.Type joinType;
+    private final List<Type> keyTypes;
+    private final int[] leftKeyChannels;
+    private final int[] leftOutputChannels;
+    private final int[] rightKeyChannels;
+    private final int[] rightOutputChannels;
+    private final List<SortOrder> sortOrders;
+    private final WorkProcessor<Page> rightPages;
+    private final Runnable rightSourceCloser;
+    private final LocalMemoryContext memoryContext;
+    private final PageBuilder pageBuilder;
+
+    private Page leftPage;
+    private int leftPosition;
+    private boolean finishing;
+
+    // next right row that has not been added to a group yet
+    private Page rightPage;
+    private int rightPosition;
+    private boolean rightFinished;
+
+    // right rows sharing the key of the first row of the first page
+    private final List<Page> rightGroup = new ArrayList<>();
+    // regions share the memory of the page they were cut from, so each page is counted once
+    private Page lastRetainedRightPage;
+    private long rightGroupRetainedSizeInBytes;
+    private boolean rightGroupComplete;
+
+    // progress of emitting the right group for the current left row
+    private boolean emittingMatches;
+    private int matchPage;
+    private int matchPosition;
+
+    private boolean closed;
+
+    public MergeJoinOperator(
+            OperatorContext operatorContext,
+            JoinNode.Type joinType,
+            List<Type> leftTypes,
+            List<Integer> leftKeyChannels,
+            List<Integer> leftOutputChannels,
+            List<Type> rightTypes,
+            List<Integer> rightKeyChannels,
+            List<Integer> rightOutputChannels,
+            List<SortOrder> sortOrders,
+            WorkProcessor<Page> rightPages,
+            Runnable rightSourceCloser)
+    {
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.joinType = requireNonNull(joinType, "joinType is null");
+        checkArgument(joinType == INNER || joinType == LEFT, "Unsupported merge join type: %s", joinType);
+        checkArgument(leftKeyChannels.size() == rightKeyChannels.size(), "left and right key channels do not match");
+        checkArgument(leftKeyChannels.size() == sortOrders.size(), "key channels and sort orders do not match");
+        this.leftKeyChannels = Ints.toArray(leftKeyChannels);
+        this.leftOutputChannels = Ints.toArray(leftOutputChannels);
+        this.rightKeyChannels = Ints.toArray(rightKeyChannels);
+        this.rightOutputChannels = Ints.toArray(rightOutputChannels);
+        this.sortOrders = ImmutableList.copyOf(sortOrders);
+        this.rightPages = requireNonNull(rightPages, "rightPages is null");
+        this.rightSourceCloser = requireNonNull(rightSourceCloser, "rightSourceCloser is null");
+        this.memoryContext = operatorContext.localUserMemoryContext();
+
+        ImmutableList.Builder<Type> keyTypes = ImmutableList.builder();
+        for (int channel : leftKeyChannels) {
+            keyTypes.add(leftTypes.get(channel));
+        }
+        this.keyTypes = keyTypes.build();
+
+        ImmutableList.Builder<Type> outputTypes = ImmutableList.builder();
+        for (int channel : leftOutputChannels) {
+            outputTypes.add(leftTypes.get(channel));
+        }
+        for (int channel : rightOutputChannels) {
+            outputTypes.add(rightTypes.get(channel));
+        }
+        this.pageBuilder = new PageBuilder(outputTypes.build());
+    }
+
+    @Override
+    public OperatorContext getOperatorContext()
+    {
+        return operatorContext;
+    }
+
+    @Override
+    public void finish()
+    {
+        finishing = true;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        boolean finished = (finishing || noMoreMatchesPossible()) && leftPage == null && pageBuilder.isEmpty();
+        if (finished) {
+            close();
+        }
+        return finished;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (leftPage != null && rightPages.isBlocked()) {
+            return rightPages.getBlockedFuture();
+        }
+        return NOT_BLOCKED;
+    }
+
+    @Override
+    public boolean needsInput()
+    {
+        return !finishing && leftPage == null && !noMoreMatchesPossible();
+    }
+
+    @Override
+    public void addInput(Page page)
+    {
+        requireNonNull(page, "page is null");
+        checkState(needsInput(), "Operator does not need input");
+
+        if (page.getPositionCount() > 0) {
+            leftPage = page;
+            leftPosition = 0;
+        }
+    }
+
+    @Override
+    public Page getOutput()
+    {
+        if (leftPage != null) {
+            processLeftPage();
+        }
+
+        Page page = null;
+        if (!pageBuilder.isEmpty() && (isOutputFull() || leftPage == null)) {
+            page = pageBuilder.build();
+            pageBuilder.reset();
+        }
+        updateMemoryUsage();
+        return page;
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        leftPage = null;
+        rightPage = null;
+        clearRightGroup();
+        memoryContext.setBytes(0);
+        rightSourceCloser.run();
+    }
+
+    private boolean noMoreMatchesPossible()
+    {
+        // for an inner join, once the right side is exhausted no further left row can produce output
+        return joinType == INNER && rightFinished && rightGroup.isEmpty();
+    }
+
+    private void processLeftPage()
+    {
+        while (leftPosition < leftPage.getPositionCount()) {
+            if (isOutputFull()) {
+                return;
+            }
+
+            if (emittingMatches) {
+                emitMatches();
+                continue;
+            }
+
+            if (hasNullKey(leftPage, leftPosition, leftKeyChannels)) {
+                advanceLeft(false);
+                continue;
+            }
+
+            if (!rightGroup.isEmpty()) {
+                if (!rightGroupComplete && !collectRightGroup()) {
+                    return;
+                }
+                int comparison = compare(leftPage, leftPosition, leftKeyChannels, rightGroup.get(0), 0, rightKeyChannels);
+                if (comparison == 0) {
+                    emittingMatches = true;
+                    matchPage = 0;
+                    matchPosition = 0;
+                    continue;
+                }
+                if (comparison < 0) {
+                    advanceLeft(false);
+                    continue;
+                }
+                clearRightGroup();
+            }
+
+            // find the first right row that is not smaller than the left row
+            if (!loadRightPage()) {
+                return;
+            }
+            if (rightFinished) {
+                advanceLeft(false);
+                continue;
+            }
+            if (hasNullKey(rightPage, rightPosition, rightKeyChannels)) {
+                rightPosition++;
+                continue;
+            }
+            int comparison = compare(leftPage, leftPosition, leftKeyChannels, rightPage, rightPosition, rightKeyChannels);
+            if (comparison < 0) {
+                advanceLeft(false);
+            }
+            else if (comparison > 0) {
+                rightPosition++;
+            }
+            else {
+                rightGroupComplete = false;
+                if (!collectRightGroup()) {
+                    return;
+                }
+            }
+        }
+
+        leftPage = null;
+    }
+
+    private void emitMatches()
+    {
+        while (matchPage < rightGroup.size()) {
+            Page page = rightGroup.get(matchPage);
+            while (matchPosition < page.getPositionCount()) {
+                if (isOutputFull()) {
+                    return;
+                }
+                appendRow(page, matchPosition);
+                matchPosition++;
+            }
+            matchPage++;
+            matchPosition = 0;
+        }
+        emittingMatches = false;
+        advanceLeft(true);
+    }
+
+    private void advanceLeft(boolean matched)
+    {
+        if (!matched && joinType == LEFT) {
+            appendRow(null, 0);
+        }
+        leftPosition++;
+    }
+
+    /**
+     * Adds the right rows equal to the first row of the group (or to the current right row when
+     * the group is empty) to the group. Returns false if the right input is not ready.
+     */
+    private boolean collectRightGroup()
+    {
+        while (true) {
+            if (!loadRightPage()) {
+                return false;
+            }
+            if (rightFinished) {
+                rightGroupComplete = true;
+                return true;
+            }
+
+            Page keyPage = rightGroup.isEmpty() ? rightPage : rightGroup.get(0);
+            int keyPosition = rightGroup.isEmpty() ? rightPosition : 0;
+            int start = rightPosition;
+            while (rightPosition < rightPage.getPositionCount() && compare(keyPage, keyPosition, rightKeyChannels, rightPage, rightPosition, rightKeyChannels) == 0) {
+                rightPosition++;
+            }
+            if (rightPosition > start) {
+                rightGroup.add(rightPage.getRegion(start, rightPosition - start));
+                if (rightPage != lastRetainedRightPage) {
+                    lastRetainedRightPage = rightPage;
+                    rightGroupRetainedSizeInBytes += rightPage.getRetainedSizeInBytes();
+                    updateMemoryUsage();
+                }
+            }
+            if (rightPosition < rightPage.getPositionCount()) {
+                rightGroupComplete = true;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Makes sure the right row at {@code rightPosition} is available, unless the right input
+     * is finished. Returns false if the right input is blocked or yielded.
+     */
+    private boolean loadRightPage()
+    {
+        while (!rightFinished && (rightPage == null || rightPosition >= rightPage.getPositionCount())) {
+            rightPage = null;
+            if (!rightPages.process()) {
+                return false;
+            }
+            if (rightPages.isFinished()) {
+                rightFinished = true;
+                return true;
+            }
+            rightPage = rightPages.getResult();
+            rightPosition = 0;
+            operatorContext.recordProcessedInput(rightPage.getSizeInBytes(), rightPage.getPositionCount());
+        }
+        return true;
+    }
+
+    private void clearRightGroup()
+    {
+        rightGroup.clear();
+        lastRetainedRightPage = null;
+        rightGroupRetainedSizeInBytes = 0;
+        rightGroupComplete = false;
+        updateMemoryUsage();
+    }
+
+    private void appendRow(Page rightRowPage, int rightRowPosition)
+    {
+        pageBuilder.declarePosition();
+        int outputChannel = 0;
+        for (int channel : leftOutputChannels) {
+            Type type = pageBuilder.getType(outputChannel);
+            type.appendTo(leftPage.getBlock(channel), leftPosition, pageBuilder.getBlockBuilder(outputChannel));
+            outputChannel++;
+        }
+        for (int channel : rightOutputChannels) {
+            BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(outputChannel);
+            if (rightRowPage == null) {
+                blockBuilder.appendNull();
+            }
+            else {
+                pageBuilder.getType(outputChannel).appendTo(rightRowPage.getBlock(channel), rightRowPosition, blockBuilder);
+            }
+            outputChannel++;
+        }
+    }
+
+    private boolean isOutputFull()
+    {
+        return pageBuilder.isFull() || pageBuilder.getPositionCount() >= MAX_POSITIONS_PER_PAGE;
+    }
+
+    private int compare(Page leftRowPage, int leftRowPosition, int[] leftChannels, Page rightRowPage, int rightRowPosition, int[] rightChannels)
+    {
+        for (int i = 0; i < leftChannels.length; i++) {
+            Block leftBlock = leftRowPage.getBlock(leftChannels[i]);
+            Block rightBlock = rightRowPage.getBlock(rightChannels[i]);
+            int comparison = sortOrders.get(i).compareBlockValue(keyTypes.get(i), leftBlock, leftRowPosition, rightBlock, rightRowPosition);
+            if (comparison != 0) {
+                return comparison;
+            }
+        }
+        return 0;
+    }
+
+    private static boolean hasNullKey(Page page, int position, int[] keyChannels)
+    {
+        for (int channel : keyChannels) {
+            if (page.getBlock(channel).isNull(position)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void updateMemoryUsage()
+    {
+        memoryContext.setBytes(rightGroupRetainedSizeInBytes + pageBuilder.getRetainedSizeInBytes());
+    }
+}
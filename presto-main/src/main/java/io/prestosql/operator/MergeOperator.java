@@ -166,7 +166,10 @@ public class MergeOperator
         pageProducers.add(exchangeClient.pages()
                 .map(serializedPage -> {
                     operatorContext.recordNetworkInput(serializedPage.getSizeInBytes(), serializedPage.getPositionCount());
-                    return pagesSerde.deserialize(serializedPage);
+                    OperationTimer timer = operatorContext.startSerdeTimer();
+                    Page page = pagesSerde.deserialize(serializedPage);
+                    operatorContext.recordSerde(timer, serializedPage.getUncompressedSizeInBytes(), serializedPage.getSizeInBytes());
+                    return page;
                 }));
 
         return Optional::empty;
@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.prestosql.execution.buffer.PageCodecMarker;
+import io.prestosql.execution.buffer.SerializedPage;
+import org.openjdk.jol.info.ClassLayout;
+import sun.misc.Unsafe;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.lang.reflect.Field;
+
+import static com.google.common.base.Preconditions.checkState;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
+
+/**
+ * The data of a {@link SerializedPage} held in memory allocated outside of the Java heap.
+ * The memory is owned by this object and is freed by {@link #toSerializedPage()} or {@link #free()},
+ * so nothing but this object ever references it.
+ */
+@ThreadSafe
+final class OffHeapSerializedPage
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(OffHeapSerializedPage.class).instanceSize();
+
+    private static final Unsafe unsafe;
+
+    static {
+        try {
+            // fetch theUnsafe object
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            unsafe = (Unsafe) field.get(null);
+            if (unsafe == null) {
+                throw new RuntimeException("Unsafe access not available");
+            }
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private final int positionCount;
+    private final byte pageCodecMarkers;
+    private final int uncompressedSizeInBytes;
+    private final int sizeInBytes;
+
+    private final long address;
+    @GuardedBy("this")
+    private boolean freed;
+
+    private OffHeapSerializedPage(long address, int sizeInBytes, byte pageCodecMarkers, int positionCount, int uncompressedSizeInBytes)
+    {
+        this.address = address;
+        this.sizeInBytes = sizeInBytes;
+        this.pageCodecMarkers = pageCodecMarkers;
+        this.positionCount = positionCount;
+        this.uncompressedSizeInBytes = uncompressedSizeInBytes;
+    }
+
+    public static OffHeapSerializedPage copyOf(SerializedPage page)
+    {
+        Slice slice = page.getSlice();
+        long address = unsafe.allocateMemory(slice.length());
+        unsafe.copyMemory(slice.getBase(), slice.getAddress(), null, address, slice.length());
+        return new OffHeapSerializedPage(address, slice.length(), page.getPageCodecMarkers(), page.getPositionCount(), page.getUncompressedSizeInBytes());
+    }
+
+    /**
+     * Copies the data back into the Java heap and frees the memory of this page.
+     */
+    public synchronized SerializedPage toSerializedPage()
+    {
+        checkState(!freed, "page already freed");
+        byte[] data = new byte[sizeInBytes];
+        unsafe.copyMemory(null, address, data, ARRAY_BYTE_BASE_OFFSET, sizeInBytes);
+        free();
+        return new SerializedPage(Slices.wrappedBuffer(data), PageCodecMarker.MarkerSet.fromByteValue(pageCodecMarkers), positionCount, uncompressedSizeInBytes);
+    }
+
+    public synchronized void free()
+    {
+        if (!freed) {
+            unsafe.freeMemory(address);
+            freed = true;
+        }
+    }
+
+    public synchronized boolean isFreed()
+    {
+        return freed;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeInBytes;
+    }
+}
@@ -83,6 +83,10 @@ public class OperatorContext
 
     private final AtomicLong physicalWrittenDataSize = new AtomicLong();
 
+    private final OperationTiming serdeTiming = new OperationTiming();
+    private final AtomicLong serdeUncompressedDataSize = new AtomicLong();
+    private final AtomicLong serdeSerializedDataSize = new AtomicLong();
+
     private final AtomicReference<SettableFuture<?>> memoryFuture;
     private final AtomicReference<SettableFuture<?>> revocableMemoryFuture;
     private final AtomicReference<BlockedMonitor> blockedMonitor = new AtomicReference<>();
@@ -216,6 +220,21 @@ public class OperatorContext
         physicalWrittenDataSize.getAndAdd(sizeInBytes);
     }
 
+    /**
+     * Starts timing the serialization or deserialization of a page, see {@link #recordSerde}.
+     */
+    OperationTimer startSerdeTimer()
+    {
+        return new OperationTimer(driverContext.isCpuTimerEnabled());
+    }
+
+    void recordSerde(OperationTimer timer, long uncompressedSizeInBytes, long serializedSizeInBytes)
+    {
+        timer.end(serdeTiming);
+        serdeUncompressedDataSize.getAndAdd(uncompressedSizeInBytes);
+        serdeSerializedDataSize.getAndAdd(serializedSizeInBytes);
+    }
+
     public void recordBlocked(ListenableFuture<?> blocked)
     {
         requireNonNull(blocked, "blocked is null");
@@ -530,6 +549,10 @@ public class OperatorContext
 
                 succinctBytes(spillContext.getSpilledBytes()),
 
+                new Duration(serdeTiming.getCpuNanos(), NANOSECONDS).convertToMostSuccinctTimeUnit(),
+                succinctBytes(serdeUncompressedDataSize.get()),
+                succinctBytes(serdeSerializedDataSize.get()),
+
                 memoryFuture.get().isDone() ? Optional.empty() : Optional.of(WAITING_FOR_MEMORY),
                 info);
     }
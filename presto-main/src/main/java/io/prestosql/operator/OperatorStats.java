@@ -79,6 +79,10 @@ public class OperatorStats
 
     private final DataSize spilledDataSize;
 
+    private final Duration serdeCpu;
+    private final DataSize serdeUncompressedDataSize;
+    private final DataSize serdeSerializedDataSize;
+
     private final Optional<BlockedReason> blockedReason;
 
     private final OperatorInfo info;
@@ -129,6 +133,10 @@ public class OperatorStats
 
             @JsonProperty("spilledDataSize") DataSize spilledDataSize,
 
+            @JsonProperty("serdeCpu") Duration serdeCpu,
+            @JsonProperty("serdeUncompressedDataSize") DataSize serdeUncompressedDataSize,
+            @JsonProperty("serdeSerializedDataSize") DataSize serdeSerializedDataSize,
+
             @JsonProperty("blockedReason") Optional<BlockedReason> blockedReason,
 
             @JsonProperty("info") OperatorInfo info)
@@ -182,6 +190,10 @@ public class OperatorStats
 
         this.spilledDataSize = requireNonNull(spilledDataSize, "spilledDataSize is null");
 
+        this.serdeCpu = requireNonNull(serdeCpu, "serdeCpu is null");
+        this.serdeUncompressedDataSize = requireNonNull(serdeUncompressedDataSize, "serdeUncompressedDataSize is null");
+        this.serdeSerializedDataSize = requireNonNull(serdeSerializedDataSize, "serdeSerializedDataSize is null");
+
         this.blockedReason = blockedReason;
 
         this.info = info;
@@ -397,6 +409,33 @@ public class OperatorStats
         return spilledDataSize;
     }
 
+    /**
+     * CPU time spent serializing and deserializing pages for exchanges, including compression
+     */
+    @JsonProperty
+    public Duration getSerdeCpu()
+    {
+        return serdeCpu;
+    }
+
+    /**
+     * Size of the pages serialized or deserialized for exchanges before compression
+     */
+    @JsonProperty
+    public DataSize getSerdeUncompressedDataSize()
+    {
+        return serdeUncompressedDataSize;
+    }
+
+    /**
+     * Size of the pages serialized or deserialized for exchanges as transferred
+     */
+    @JsonProperty
+    public DataSize getSerdeSerializedDataSize()
+    {
+        return serdeSerializedDataSize;
+    }
+
     @JsonProperty
     public Optional<BlockedReason> getBlockedReason()
     {
@@ -455,6 +494,10 @@ public class OperatorStats
 
         long spilledDataSize = this.spilledDataSize.toBytes();
 
+        long serdeCpu = this.serdeCpu.roundTo(NANOSECONDS);
+        long serdeUncompressedDataSize = this.serdeUncompressedDataSize.toBytes();
+        long serdeSerializedDataSize = this.serdeSerializedDataSize.toBytes();
+
         Optional<BlockedReason> blockedReason = this.blockedReason;
 
         Mergeable<OperatorInfo> base = getMergeableInfoOrNull(info);
@@ -500,6 +543,10 @@ public class OperatorStats
 
             spilledDataSize += operator.getSpilledDataSize().toBytes();
 
+            serdeCpu += operator.getSerdeCpu().roundTo(NANOSECONDS);
+            serdeUncompressedDataSize += operator.getSerdeUncompressedDataSize().toBytes();
+            serdeSerializedDataSize += operator.getSerdeSerializedDataSize().toBytes();
+
             if (operator.getBlockedReason().isPresent()) {
                 blockedReason = operator.getBlockedReason();
             }
@@ -555,6 +602,10 @@ public class OperatorStats
 
                 succinctBytes(spilledDataSize),
 
+                new Duration(serdeCpu, NANOSECONDS).convertToMostSuccinctTimeUnit(),
+                succinctBytes(serdeUncompressedDataSize),
+                succinctBytes(serdeSerializedDataSize),
+
                 blockedReason,
 
                 (OperatorInfo) base);
@@ -614,6 +665,9 @@ public class OperatorStats
                 peakRevocableMemoryReservation,
                 peakTotalMemoryReservation,
                 spilledDataSize,
+                serdeCpu,
+                serdeUncompressedDataSize,
+                serdeSerializedDataSize,
                 blockedReason,
                 (info != null && info.isFinal()) ? info : null);
     }
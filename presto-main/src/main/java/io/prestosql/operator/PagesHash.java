@@ -168,6 +168,69 @@ public final class PagesHash
         return -1;
     }
 
+    public void getAddressIndex(int[] positions, int positionCount, Page hashChannelsPage, long[] addressIndexes)
+    {
+        long[] rawHashes = new long[hashChannelsPage.getPositionCount()];
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            rawHashes[position] = pagesHashStrategy.hashRow(position, hashChannelsPage);
+        }
+        getAddressIndex(positions, positionCount, hashChannelsPage, rawHashes, addressIndexes);
+    }
+
+    /**
+     * Batched version of {@link #getAddressIndex(int, Page, long)}. Lookups are split into
+     * stages (hash slots, slot keys, stored hash bytes, key comparison) so that the independent
+     * cache misses of different positions overlap instead of being serialized.
+     * Both {@code rawHashes} and {@code addressIndexes} are indexed by probe position.
+     */
+    public void getAddressIndex(int[] positions, int positionCount, Page hashChannelsPage, long[] rawHashes, long[] addressIndexes)
+    {
+        int[] hashPositions = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            hashPositions[i] = getHashPosition(rawHashes[positions[i]], mask);
+        }
+
+        int[] slotKeys = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            slotKeys[i] = key[hashPositions[i]];
+        }
+
+        byte[] slotHashes = new byte[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            int slotKey = slotKeys[i];
+            if (slotKey != -1) {
+                slotHashes[i] = positionToHashes[slotKey];
+            }
+        }
+
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            int slotKey = slotKeys[i];
+            byte rawHash = (byte) rawHashes[position];
+
+            if (slotKey == -1) {
+                addressIndexes[position] = -1;
+            }
+            else if (slotHashes[i] == rawHash && positionEqualsCurrentRowIgnoreNulls(slotKey, position, hashChannelsPage)) {
+                addressIndexes[position] = slotKey;
+            }
+            else {
+                // collision, fall back to probing the following slots one by one
+                int pos = (hashPositions[i] + 1) & mask;
+                addressIndexes[position] = -1;
+                while (key[pos] != -1) {
+                    if (positionEqualsCurrentRowIgnoreNulls(key[pos], rawHash, position, hashChannelsPage)) {
+                        addressIndexes[position] = key[pos];
+                        break;
+                    }
+                    // increment position and mask to handler wrap around
+                    pos = (pos + 1) & mask;
+                }
+            }
+        }
+    }
+
     public void appendTo(long position, PageBuilder pageBuilder, int outputChannelOffset)
     {
         long pageAddress = addresses.getLong(toIntExact(position));
@@ -201,6 +264,11 @@ public final class PagesHash
             return false;
         }
 
+        return positionEqualsCurrentRowIgnoreNulls(leftPosition, rightPosition, rightPage);
+    }
+
+    private boolean positionEqualsCurrentRowIgnoreNulls(int leftPosition, int rightPosition, Page rightPage)
+    {
         long pageAddress = addresses.getLong(leftPosition);
         int blockIndex = decodeSliceIndex(pageAddress);
         int blockPosition = decodePosition(pageAddress);
@@ -147,6 +147,69 @@ public class PartitionedLookupSource
         return encodePartitionedJoinPosition(partition, toIntExact(joinPosition));
     }
 
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, long[] joinPositions)
+    {
+        long[] rawHashes = new long[hashChannelsPage.getPositionCount()];
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            rawHashes[position] = partitionGenerator.getRawHash(hashChannelsPage, position);
+        }
+        getJoinPositions(positions, positionCount, hashChannelsPage, allChannelsPage, rawHashes, joinPositions);
+    }
+
+    @Override
+    public void getJoinPositions(int[] positions, int positionCount, Page hashChannelsPage, Page allChannelsPage, long[] rawHashes, long[] joinPositions)
+    {
+        if (lookupSources.length == 1) {
+            lookupSources[0].getJoinPositions(positions, positionCount, hashChannelsPage, allChannelsPage, rawHashes, joinPositions);
+            encodePartitionedJoinPositions(0, positions, 0, positionCount, joinPositions);
+            return;
+        }
+
+        // group positions by partition, so that each partition resolves its positions in a single batch
+        int[] partitions = new int[positionCount];
+        int[] partitionOffsets = new int[lookupSources.length + 1];
+        for (int i = 0; i < positionCount; i++) {
+            int partition = partitionGenerator.getPartition(rawHashes[positions[i]]);
+            partitions[i] = partition;
+            partitionOffsets[partition + 1]++;
+        }
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            partitionOffsets[partition + 1] += partitionOffsets[partition];
+        }
+
+        int[] partitionedPositions = new int[positionCount];
+        int[] partitionSizes = new int[lookupSources.length];
+        for (int i = 0; i < positionCount; i++) {
+            int partition = partitions[i];
+            partitionedPositions[partitionOffsets[partition] + partitionSizes[partition]] = positions[i];
+            partitionSizes[partition]++;
+        }
+
+        for (int partition = 0; partition < lookupSources.length; partition++) {
+            int offset = partitionOffsets[partition];
+            int size = partitionSizes[partition];
+            if (size == 0) {
+                continue;
+            }
+            int[] batch = offset == 0 ? partitionedPositions : Arrays.copyOfRange(partitionedPositions, offset, offset + size);
+            lookupSources[partition].getJoinPositions(batch, size, hashChannelsPage, allChannelsPage, rawHashes, joinPositions);
+            encodePartitionedJoinPositions(partition, partitionedPositions, offset, offset + size, joinPositions);
+        }
+    }
+
+    private void encodePartitionedJoinPositions(int partition, int[] positions, int from, int to, long[] joinPositions)
+    {
+        for (int i = from; i < to; i++) {
+            int position = positions[i];
+            long joinPosition = joinPositions[position];
+            if (joinPosition >= 0) {
+                joinPositions[position] = encodePartitionedJoinPosition(partition, toIntExact(joinPosition));
+            }
+        }
+    }
+
     @Override
     public long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
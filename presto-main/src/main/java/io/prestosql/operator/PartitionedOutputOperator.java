@@ -15,6 +15,7 @@ package io.prestosql.operator;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 import io.prestosql.execution.buffer.OutputBuffer;
@@ -22,8 +23,9 @@ import io.prestosql.execution.buffer.PagesSerde;
 import io.prestosql.execution.buffer.PagesSerdeFactory;
 import io.prestosql.execution.buffer.SerializedPage;
 import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.operator.repartition.DecodedPage;
+import io.prestosql.operator.repartition.SerializedPageBuilder;
 import io.prestosql.spi.Page;
-import io.prestosql.spi.PageBuilder;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.RunLengthEncodedBlock;
 import io.prestosql.spi.predicate.NullableValue;
@@ -31,15 +33,17 @@ import io.prestosql.spi.type.Type;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.util.Mergeable;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Function;
+import java.util.stream.LongStream;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.collect.ImmutableList.toImmutableList;
-import static io.prestosql.execution.buffer.PageSplitterUtil.splitPage;
 import static io.prestosql.spi.block.PageBuilderStatus.DEFAULT_MAX_PAGE_SIZE_IN_BYTES;
 import static java.lang.Math.max;
 import static java.lang.Math.min;
@@ -293,20 +297,32 @@ public class PartitionedOutputOperator
 
     private static class PagePartitioner
     {
+        // rows are appended to a partition in batches of at most this many, and of no more than are
+        // estimated to fit into the page of the partition, so that pages are flushed close to their maximum size
+        private static final int APPEND_BATCH_SIZE = 1024;
+
         private final OutputBuffer outputBuffer;
-        private final List<Type> sourceTypes;
         private final PartitionFunction partitionFunction;
         private final List<Integer> partitionChannels;
         private final List<Optional<Block>> partitionConstants;
         private final PagesSerde serde;
-        private final PageBuilder[] pageBuilders;
+        private final SerializedPageBuilder[] pageBuilders;
+        private final long maxPageSizeInBytes;
         private final boolean replicatesAnyRow;
         private final OptionalInt nullChannel; // when present, send the position to every partition if this channel is null.
         private final AtomicLong rowsAdded = new AtomicLong();
         private final AtomicLong pagesAdded = new AtomicLong();
+        private final AtomicLongArray partitionRowsAdded;
         private boolean hasAnyRowBeenReplicated;
         private OperatorContext operatorContext;
 
+        // partition of each position of the current page, or -1 if the position is replicated
+        private int[] positionPartitions = new int[0];
+        // positions of the current page grouped by partition, in page order within a partition
+        private int[] partitionedPositions = new int[0];
+        private int[] replicatedPositions = new int[0];
+        private final int[] partitionOffsets;
+
         public PagePartitioner(
                 PartitionFunction partitionFunction,
                 List<Integer> partitionChannels,
@@ -327,18 +343,19 @@ public class PartitionedOutputOperator
             this.replicatesAnyRow = replicatesAnyRow;
             this.nullChannel = requireNonNull(nullChannel, "nullChannel is null");
             this.outputBuffer = requireNonNull(outputBuffer, "outputBuffer is null");
-            this.sourceTypes = requireNonNull(sourceTypes, "sourceTypes is null");
             this.serde = requireNonNull(serdeFactory, "serdeFactory is null").createPagesSerde();
             this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
 
             int partitionCount = partitionFunction.getPartitionCount();
             int pageSize = min(DEFAULT_MAX_PAGE_SIZE_IN_BYTES, ((int) maxMemory.toBytes()) / partitionCount);
-            pageSize = max(1, pageSize);
+            this.maxPageSizeInBytes = max(1, pageSize);
 
-            this.pageBuilders = new PageBuilder[partitionCount];
+            this.pageBuilders = new SerializedPageBuilder[partitionCount];
             for (int i = 0; i < partitionCount; i++) {
-                pageBuilders[i] = PageBuilder.withMaxPageSize(pageSize, sourceTypes);
+                pageBuilders[i] = new SerializedPageBuilder(sourceTypes, serdeFactory.getBlockEncodingSerde());
             }
+            this.partitionOffsets = new int[partitionCount + 1];
+            this.partitionRowsAdded = new AtomicLongArray(partitionCount);
         }
 
         public ListenableFuture<?> isFull()
@@ -351,19 +368,16 @@ public class PartitionedOutputOperator
             // We use a foreach loop instead of streams
             // as it has much better performance.
             long sizeInBytes = 0;
-            for (PageBuilder pageBuilder : pageBuilders) {
-                sizeInBytes += pageBuilder.getSizeInBytes();
+            for (SerializedPageBuilder pageBuilder : pageBuilders) {
+                sizeInBytes += pageBuilder.getBufferedSizeInBytes();
             }
             return sizeInBytes;
         }
 
-        /**
-         * This method can be expensive for complex types.
-         */
         public long getRetainedSizeInBytes()
         {
             long sizeInBytes = 0;
-            for (PageBuilder pageBuilder : pageBuilders) {
+            for (SerializedPageBuilder pageBuilder : pageBuilders) {
                 sizeInBytes += pageBuilder.getRetainedSizeInBytes();
             }
             return sizeInBytes;
@@ -371,29 +385,73 @@ public class PartitionedOutputOperator
 
         public PartitionedOutputInfo getInfo()
         {
-            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage());
+            long[] partitionRowCounts = new long[partitionRowsAdded.length()];
+            for (int partition = 0; partition < partitionRowCounts.length; partition++) {
+                partitionRowCounts[partition] = partitionRowsAdded.get(partition);
+            }
+            return new PartitionedOutputInfo(rowsAdded.get(), pagesAdded.get(), outputBuffer.getPeakMemoryUsage(), partitionRowCounts);
         }
 
         public void partitionPage(Page page)
         {
             requireNonNull(page, "page is null");
 
+            page = page.getLoadedPage();
+            int positionCount = page.getPositionCount();
+            if (positionPartitions.length < positionCount) {
+                positionPartitions = new int[positionCount];
+                partitionedPositions = new int[positionCount];
+                replicatedPositions = new int[positionCount];
+            }
+
+            // compute the partitions of all positions first
             Page partitionFunctionArgs = getPartitionFunctionArguments(page);
-            for (int position = 0; position < page.getPositionCount(); position++) {
+            Block nullBlock = nullChannel.isPresent() ? page.getBlock(nullChannel.getAsInt()) : null;
+            int replicatedPositionCount = 0;
+            for (int position = 0; position < positionCount; position++) {
                 boolean shouldReplicate = (replicatesAnyRow && !hasAnyRowBeenReplicated) ||
-                        nullChannel.isPresent() && page.getBlock(nullChannel.getAsInt()).isNull(position);
+                        nullBlock != null && nullBlock.isNull(position);
                 if (shouldReplicate) {
-                    for (PageBuilder pageBuilder : pageBuilders) {
-                        appendRow(pageBuilder, page, position);
-                    }
+                    positionPartitions[position] = -1;
+                    replicatedPositions[replicatedPositionCount++] = position;
                     hasAnyRowBeenReplicated = true;
                 }
                 else {
-                    int partition = partitionFunction.getPartition(partitionFunctionArgs, position);
-                    appendRow(pageBuilders[partition], page, position);
+                    positionPartitions[position] = partitionFunction.getPartition(partitionFunctionArgs, position);
+                }
+            }
+
+            // then group the positions by partition
+            Arrays.fill(partitionOffsets, 0);
+            for (int position = 0; position < positionCount; position++) {
+                partitionOffsets[positionPartitions[position] + 1]++;
+            }
+            // the replicated positions were counted for partition 0
+            partitionOffsets[0] = 0;
+            for (int partition = 0; partition < pageBuilders.length; partition++) {
+                partitionOffsets[partition + 1] += partitionOffsets[partition];
+            }
+            int[] nextPositions = Arrays.copyOf(partitionOffsets, pageBuilders.length);
+            for (int position = 0; position < positionCount; position++) {
+                int partition = positionPartitions[position];
+                if (partition >= 0) {
+                    partitionedPositions[nextPositions[partition]++] = position;
+                }
+            }
+
+            // and append the columns of each partition
+            DecodedPage decodedPage = pageBuilders[0].decode(page);
+            long averageRowSizeInBytes = positionCount == 0 ? 1 : max(1, page.getSizeInBytes() / positionCount);
+            for (int partition = 0; partition < pageBuilders.length; partition++) {
+                if (replicatedPositionCount > 0) {
+                    appendPositions(partition, decodedPage, averageRowSizeInBytes, replicatedPositions, 0, replicatedPositionCount);
+                }
+                int partitionStart = partitionOffsets[partition];
+                int partitionPositionCount = partitionOffsets[partition + 1] - partitionStart;
+                if (partitionPositionCount > 0) {
+                    appendPositions(partition, decodedPage, averageRowSizeInBytes, partitionedPositions, partitionStart, partitionPositionCount);
                 }
             }
-            flush(false);
         }
 
         private Page getPartitionFunctionArguments(Page page)
@@ -411,13 +469,18 @@ public class PartitionedOutputOperator
             return new Page(page.getPositionCount(), blocks);
         }
 
-        private void appendRow(PageBuilder pageBuilder, Page page, int position)
+        private void appendPositions(int partition, DecodedPage page, long averageRowSizeInBytes, int[] positions, int offset, int length)
         {
-            pageBuilder.declarePosition();
-
-            for (int channel = 0; channel < sourceTypes.size(); channel++) {
-                Type type = sourceTypes.get(channel);
-                type.appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            SerializedPageBuilder pageBuilder = pageBuilders[partition];
+            while (length > 0) {
+                long remainingBytes = maxPageSizeInBytes - pageBuilder.getBufferedSizeInBytes();
+                int batchSize = (int) min(min(length, APPEND_BATCH_SIZE), max(1, remainingBytes / averageRowSizeInBytes));
+                pageBuilder.appendPositions(page, positions, offset, batchSize);
+                offset += batchSize;
+                length -= batchSize;
+                if (pageBuilder.getBufferedSizeInBytes() >= maxPageSizeInBytes) {
+                    flushPartition(partition);
+                }
             }
         }
 
@@ -425,23 +488,27 @@ public class PartitionedOutputOperator
         {
             // add all full pages to output buffer
             for (int partition = 0; partition < pageBuilders.length; partition++) {
-                PageBuilder partitionPageBuilder = pageBuilders[partition];
-                if (!partitionPageBuilder.isEmpty() && (force || partitionPageBuilder.isFull())) {
-                    Page pagePartition = partitionPageBuilder.build();
-                    partitionPageBuilder.reset();
-
-                    operatorContext.recordOutput(pagePartition.getSizeInBytes(), pagePartition.getPositionCount());
-
-                    List<SerializedPage> serializedPages = splitPage(pagePartition, DEFAULT_MAX_PAGE_SIZE_IN_BYTES).stream()
-                            .map(serde::serialize)
-                            .collect(toImmutableList());
-
-                    outputBuffer.enqueue(partition, serializedPages);
-                    pagesAdded.incrementAndGet();
-                    rowsAdded.addAndGet(pagePartition.getPositionCount());
+                SerializedPageBuilder partitionPageBuilder = pageBuilders[partition];
+                if (!partitionPageBuilder.isEmpty() && (force || partitionPageBuilder.getBufferedSizeInBytes() >= maxPageSizeInBytes)) {
+                    flushPartition(partition);
                 }
             }
         }
+
+        private void flushPartition(int partition)
+        {
+            SerializedPageBuilder partitionPageBuilder = pageBuilders[partition];
+            int positionCount = partitionPageBuilder.getPositionCount();
+            operatorContext.recordOutput(partitionPageBuilder.getSizeInBytes(), positionCount);
+
+            OperationTimer timer = operatorContext.startSerdeTimer();
+            SerializedPage page = partitionPageBuilder.build(serde);
+            operatorContext.recordSerde(timer, page.getUncompressedSizeInBytes(), page.getSizeInBytes());
+            outputBuffer.enqueue(partition, ImmutableList.of(page));
+            pagesAdded.incrementAndGet();
+            rowsAdded.addAndGet(positionCount);
+            partitionRowsAdded.addAndGet(partition, positionCount);
+        }
     }
 
     public static class PartitionedOutputInfo
@@ -450,16 +517,19 @@ public class PartitionedOutputOperator
         private final long rowsAdded;
         private final long pagesAdded;
         private final long outputBufferPeakMemoryUsage;
+        private final long[] partitionRowCounts;
 
         @JsonCreator
         public PartitionedOutputInfo(
                 @JsonProperty("rowsAdded") long rowsAdded,
                 @JsonProperty("pagesAdded") long pagesAdded,
-                @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage)
+                @JsonProperty("outputBufferPeakMemoryUsage") long outputBufferPeakMemoryUsage,
+                @JsonProperty("partitionRowCounts") long[] partitionRowCounts)
         {
             this.rowsAdded = rowsAdded;
             this.pagesAdded = pagesAdded;
             this.outputBufferPeakMemoryUsage = outputBufferPeakMemoryUsage;
+            this.partitionRowCounts = requireNonNull(partitionRowCounts, "partitionRowCounts is null").clone();
         }
 
         @JsonProperty
@@ -480,13 +550,33 @@ public class PartitionedOutputOperator
             return outputBufferPeakMemoryUsage;
         }
 
+        /**
+         * Number of rows sent to each output partition, including replicated rows.
+         * A partition receiving many more rows than the others indicates a skewed key.
+         */
+        @JsonProperty
+        public long[] getPartitionRowCounts()
+        {
+            return partitionRowCounts.clone();
+        }
+
+        public long getMaxPartitionRowCount()
+        {
+            return LongStream.of(partitionRowCounts).max().orElse(0);
+        }
+
         @Override
         public PartitionedOutputInfo mergeWith(PartitionedOutputInfo other)
         {
+            long[] mergedPartitionRowCounts = Arrays.copyOf(partitionRowCounts, max(partitionRowCounts.length, other.partitionRowCounts.length));
+            for (int partition = 0; partition < other.partitionRowCounts.length; partition++) {
+                mergedPartitionRowCounts[partition] += other.partitionRowCounts[partition];
+            }
             return new PartitionedOutputInfo(
                     rowsAdded + other.rowsAdded,
                     pagesAdded + other.pagesAdded,
-                    Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage));
+                    Math.max(outputBufferPeakMemoryUsage, other.outputBufferPeakMemoryUsage),
+                    mergedPartitionRowCounts);
         }
 
         @Override
@@ -502,6 +592,8 @@ public class PartitionedOutputOperator
                     .add("rowsAdded", rowsAdded)
                     .add("pagesAdded", pagesAdded)
                     .add("outputBufferPeakMemoryUsage", outputBufferPeakMemoryUsage)
+                    .add("partitionCount", partitionRowCounts.length)
+                    .add("maxPartitionRowCount", getMaxPartitionRowCount())
                     .toString();
         }
     }
@@ -0,0 +1,394 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import io.airlift.log.Logger;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.SliceInput;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spooling.SpooledOutputManifest;
+import io.prestosql.spooling.SpooledOutputManifest.FileRange;
+import io.prestosql.spooling.SpoolingStorage;
+import org.joda.time.DateTime;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.readSerializedPages;
+import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static io.prestosql.spooling.SpooledOutputManifest.MANIFEST_FILE_NAME;
+import static io.prestosql.spooling.SpooledOutputManifest.dataFileName;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Reads the output of a fault-tolerant task from the {@link SpoolingStorage}. Until an attempt
+ * of the task commits its output, the client polls the storage with a growing delay. Since the
+ * committed output never changes, the client does not depend on the task or the node that
+ * produced it, and a retried consumer simply reads the output again.
+ */
+@ThreadSafe
+public final class SpoolingPageBufferClient
+        implements PageBufferClient
+{
+    private static final Logger log = Logger.get(SpoolingPageBufferClient.class);
+
+    public static final String SPOOLED_OUTPUT_SCHEME = "spool";
+
+    private static final Duration MIN_POLL_DELAY = new Duration(50, MILLISECONDS);
+    private static final Duration MAX_POLL_DELAY = new Duration(1, SECONDS);
+
+    private final URI location;
+    private final TaskId taskId;
+    private final int bufferId;
+    private final SpoolingStorage spoolingStorage;
+    private final DataSize maxResponseSize;
+    private final ClientCallback clientCallback;
+    private final ScheduledExecutorService scheduler;
+    private final Executor pageBufferClientCallbackExecutor;
+
+    @GuardedBy("this")
+    private boolean closed;
+    @GuardedBy("this")
+    private boolean scheduled;
+    @GuardedBy("this")
+    private boolean running;
+    @GuardedBy("this")
+    private boolean committed;
+    @GuardedBy("this")
+    private long pollDelayMillis;
+    @GuardedBy("this")
+    private SliceInput input;
+    @GuardedBy("this")
+    private Iterator<SerializedPage> pages;
+    @GuardedBy("this")
+    private DateTime lastUpdate = DateTime.now();
+
+    private final AtomicLong rowsReceived = new AtomicLong();
+    private final AtomicInteger pagesReceived = new AtomicInteger();
+
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicInteger pagesRejected = new AtomicInteger();
+
+    private final AtomicInteger requestsScheduled = new AtomicInteger();
+    private final AtomicInteger requestsCompleted = new AtomicInteger();
+    private final AtomicInteger requestsFailed = new AtomicInteger();
+
+    public SpoolingPageBufferClient(
+            URI location,
+            SpoolingStorage spoolingStorage,
+            DataSize maxResponseSize,
+            ClientCallback clientCallback,
+            ScheduledExecutorService scheduler,
+            Executor pageBufferClientCallbackExecutor)
+    {
+        this.location = requireNonNull(location, "location is null");
+        checkArgument(isSpooledOutputLocation(location), "Not a spooled output location: %s", location);
+        String[] path = location.getPath().split("/");
+        checkArgument(path.length == 6 && path[4].equals("results"), "Invalid spooled output location: %s", location);
+        this.taskId = TaskId.valueOf(path[3]);
+        this.bufferId = OutputBufferId.fromString(path[5]).getId();
+        this.spoolingStorage = requireNonNull(spoolingStorage, "spoolingStorage is null");
+        this.maxResponseSize = requireNonNull(maxResponseSize, "maxResponseSize is null");
+        this.clientCallback = requireNonNull(clientCallback, "clientCallback is null");
+        this.scheduler = requireNonNull(scheduler, "scheduler is null");
+        this.pageBufferClientCallbackExecutor = requireNonNull(pageBufferClientCallbackExecutor, "pageBufferClientCallbackExecutor is null");
+    }
+
+    public static URI spooledOutputLocation(TaskId taskId, OutputBufferId bufferId)
+    {
+        return URI.create(format("%s:/v1/task/%s/results/%s", SPOOLED_OUTPUT_SCHEME, taskId, bufferId));
+    }
+
+    public static boolean isSpooledOutputLocation(URI location)
+    {
+        return SPOOLED_OUTPUT_SCHEME.equals(location.getScheme());
+    }
+
+    @Override
+    public PageBufferClientStatus getStatus()
+    {
+        String state;
+        String readState;
+        synchronized (this) {
+            if (closed) {
+                state = "closed";
+            }
+            else if (running) {
+                state = "running";
+            }
+            else if (scheduled) {
+                state = "scheduled";
+            }
+            else {
+                state = "queued";
+            }
+            readState = committed ? "reading" : "waiting for commit";
+        }
+
+        long rejectedRows = rowsRejected.get();
+        int rejectedPages = pagesRejected.get();
+
+        return new PageBufferClientStatus(
+                location,
+                state,
+                lastUpdate,
+                rowsReceived.get(),
+                pagesReceived.get(),
+                rejectedRows == 0 ? OptionalLong.empty() : OptionalLong.of(rejectedRows),
+                rejectedPages == 0 ? OptionalInt.empty() : OptionalInt.of(rejectedPages),
+                requestsScheduled.get(),
+                requestsCompleted.get(),
+                requestsFailed.get(),
+                readState);
+    }
+
+    @Override
+    public synchronized boolean isRunning()
+    {
+        return running;
+    }
+
+    @Override
+    public void close()
+    {
+        SliceInput input;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            // a running read closes the input when it completes
+            input = running ? null : this.input;
+            this.input = null;
+            pages = null;
+            lastUpdate = DateTime.now();
+        }
+        closeQuietly(input);
+    }
+
+    @Override
+    public synchronized void scheduleRequest()
+    {
+        if (closed || running || scheduled) {
+            return;
+        }
+        scheduled = true;
+
+        scheduler.schedule(() -> pageBufferClientCallbackExecutor.execute(this::readPages), pollDelayMillis, MILLISECONDS);
+
+        lastUpdate = DateTime.now();
+        requestsScheduled.incrementAndGet();
+    }
+
+    private void readPages()
+    {
+        synchronized (this) {
+            scheduled = false;
+            if (closed) {
+                return;
+            }
+            running = true;
+        }
+
+        ImmutableList.Builder<SerializedPage> pageBuilder = ImmutableList.builder();
+        boolean finished;
+        try {
+            Iterator<SerializedPage> pages = openPages();
+            if (pages == null) {
+                // no attempt of the task has committed its output yet
+                synchronized (this) {
+                    pollDelayMillis = min(MAX_POLL_DELAY.toMillis(), Math.max(MIN_POLL_DELAY.toMillis(), pollDelayMillis * 2));
+                }
+                completeRequest(ImmutableList.of(), false);
+                return;
+            }
+
+            long bytes = 0;
+            while (bytes < maxResponseSize.toBytes() && pages.hasNext()) {
+                SerializedPage page = pages.next();
+                pageBuilder.add(page);
+                bytes += page.getRetainedSizeInBytes();
+            }
+            finished = !pages.hasNext();
+        }
+        catch (IOException | RuntimeException e) {
+            log.debug(e, "Reading spooled output %s failed", location);
+            synchronized (this) {
+                running = false;
+            }
+            requestsFailed.incrementAndGet();
+            clientCallback.clientFailed(this, new PrestoException(GENERIC_INTERNAL_ERROR, format("Failed to read spooled output %s", location), e));
+            return;
+        }
+        completeRequest(pageBuilder.build(), finished);
+    }
+
+    private Iterator<SerializedPage> openPages()
+            throws IOException
+    {
+        synchronized (this) {
+            if (pages != null) {
+                return pages;
+            }
+        }
+
+        Optional<InputStream> manifestFile = spoolingStorage.openCommittedFile(taskId, MANIFEST_FILE_NAME);
+        if (!manifestFile.isPresent()) {
+            return null;
+        }
+        SpooledOutputManifest manifest;
+        try (InputStream manifestInput = manifestFile.get()) {
+            manifest = SpooledOutputManifest.readFrom(manifestInput);
+        }
+
+        SliceInput input = null;
+        Iterator<SerializedPage> pages = ImmutableList.<SerializedPage>of().iterator();
+        Optional<FileRange> range = manifest.getRange(bufferId);
+        if (range.isPresent()) {
+            InputStream data = spoolingStorage.openCommittedFile(taskId, dataFileName(range.get().getFileIndex()))
+                    .orElseThrow(() -> new IOException("Spooled output is missing file " + dataFileName(range.get().getFileIndex())));
+            try {
+                ByteStreams.skipFully(data, range.get().getStart());
+            }
+            catch (IOException e) {
+                data.close();
+                throw e;
+            }
+            input = new InputStreamSliceInput(ByteStreams.limit(data, range.get().getLength()));
+            pages = readSerializedPages(input);
+        }
+
+        synchronized (this) {
+            committed = true;
+            this.input = input;
+            this.pages = pages;
+        }
+        return pages;
+    }
+
+    private void completeRequest(List<SerializedPage> pages, boolean finished)
+    {
+        if (!pages.isEmpty()) {
+            if (clientCallback.addPages(this, pages)) {
+                pagesReceived.addAndGet(pages.size());
+                rowsReceived.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+            }
+            else {
+                pagesRejected.addAndGet(pages.size());
+                rowsRejected.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+            }
+        }
+
+        SliceInput input = null;
+        synchronized (this) {
+            running = false;
+            if (finished || closed) {
+                input = this.input;
+                this.input = null;
+                this.pages = null;
+            }
+            if (finished) {
+                closed = true;
+            }
+            lastUpdate = DateTime.now();
+        }
+        closeQuietly(input);
+        requestsCompleted.incrementAndGet();
+
+        if (finished) {
+            clientCallback.clientFinished(this);
+        }
+        else {
+            clientCallback.requestComplete(this);
+        }
+    }
+
+    private static void closeQuietly(SliceInput input)
+    {
+        if (input != null) {
+            input.close();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        SpoolingPageBufferClient that = (SpoolingPageBufferClient) o;
+
+        return location.equals(that.location);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return location.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        String state;
+        synchronized (this) {
+            if (closed) {
+                state = "CLOSED";
+            }
+            else if (running) {
+                state = "RUNNING";
+            }
+            else if (scheduled) {
+                state = "SCHEDULED";
+            }
+            else {
+                state = "QUEUED";
+            }
+        }
+        return toStringHelper(this)
+                .add("location", location)
+                .addValue(state)
+                .toString();
+    }
+}
@@ -0,0 +1,794 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.log.Logger;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.execution.buffer.PageCodecMarker;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.operator.HttpPageBufferClient.PagesResponse;
+import io.prestosql.server.remotetask.Backoff;
+import io.prestosql.spi.PrestoException;
+import org.joda.time.DateTime;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.prestosql.operator.ExchangeStreamProtocol.ACCEPTED;
+import static io.prestosql.operator.ExchangeStreamProtocol.CLOSE;
+import static io.prestosql.operator.ExchangeStreamProtocol.CLOSED;
+import static io.prestosql.operator.ExchangeStreamProtocol.FAILED;
+import static io.prestosql.operator.ExchangeStreamProtocol.MAX_CONTROL_FRAME_SIZE;
+import static io.prestosql.operator.ExchangeStreamProtocol.PAGE_HEADER_SIZE;
+import static io.prestosql.operator.ExchangeStreamProtocol.REJECTED;
+import static io.prestosql.operator.ExchangeStreamProtocol.RESULTS;
+import static io.prestosql.operator.ExchangeStreamProtocol.RESULTS_HEADER_SIZE;
+import static io.prestosql.operator.ExchangeStreamProtocol.allocateFrameHeader;
+import static io.prestosql.operator.ExchangeStreamProtocol.emptyFrame;
+import static io.prestosql.operator.ExchangeStreamProtocol.openFrame;
+import static io.prestosql.operator.ExchangeStreamProtocol.pollFrame;
+import static io.prestosql.operator.ExchangeStreamProtocol.readFully;
+import static io.prestosql.operator.ExchangeStreamProtocol.readMessage;
+import static io.prestosql.operator.ExchangeStreamProtocol.writeFully;
+import static io.prestosql.operator.HttpPageBufferClient.PagesResponse.createPagesResponse;
+import static io.prestosql.spi.HostAddress.fromUri;
+import static io.prestosql.spi.StandardErrorCode.REMOTE_BUFFER_CLOSE_FAILED;
+import static io.prestosql.spi.StandardErrorCode.REMOTE_TASK_MISMATCH;
+import static io.prestosql.util.Failures.REMOTE_TASK_MISMATCH_ERROR;
+import static io.prestosql.util.Failures.WORKER_NODE_ERROR;
+import static java.lang.String.format;
+import static java.net.StandardSocketOptions.TCP_NODELAY;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Fetches the pages of a remote output buffer over a persistent connection using the
+ * {@link ExchangeStreamProtocol}. Each request is a long poll for the next batch of pages, like a
+ * results request over HTTP, and only one request is outstanding on the connection at a time. The
+ * results are bounded by the maximum results frame size, and every page is read into its own heap buffer.
+ * <p>
+ * If the remote node does not accept the connection, the client switches to HTTP for the rest
+ * of its life. The remote buffer is always aborted over HTTP, like the HTTP client does.
+ */
+@ThreadSafe
+public final class StreamingPageBufferClient
+        implements PageBufferClient
+{
+    private static final Logger log = Logger.get(StreamingPageBufferClient.class);
+
+    // the server answers a poll within its maximum wait time even if there are no pages
+    private static final Duration READ_TIMEOUT = new Duration(30, SECONDS);
+
+    private final URI location;
+    private final String streamHost;
+    private final int streamPort;
+    private final AsynchronousChannelGroup channelGroup;
+    private final DataSize maxResponseSize;
+    private final DataSize maxResultsFrameSize;
+    private final ClientCallback clientCallback;
+    private final ScheduledExecutorService scheduler;
+    private final Executor pageBufferClientCallbackExecutor;
+    private final PageBufferClient.Factory httpClientFactory;
+    private final Backoff backoff;
+
+    @GuardedBy("this")
+    private boolean closed;
+    @GuardedBy("this")
+    private ListenableFuture<?> future;
+    @GuardedBy("this")
+    private AsynchronousSocketChannel channel;
+    @GuardedBy("this")
+    private boolean accepted;
+    @GuardedBy("this")
+    private PageBufferClient httpClient;
+    @GuardedBy("this")
+    private DateTime lastUpdate = DateTime.now();
+    @GuardedBy("this")
+    private long token;
+    @GuardedBy("this")
+    private boolean scheduled;
+    @GuardedBy("this")
+    private boolean completed;
+    @GuardedBy("this")
+    private String taskInstanceId;
+
+    private final AtomicLong rowsReceived = new AtomicLong();
+    private final AtomicInteger pagesReceived = new AtomicInteger();
+
+    private final AtomicLong rowsRejected = new AtomicLong();
+    private final AtomicInteger pagesRejected = new AtomicInteger();
+
+    private final AtomicInteger requestsScheduled = new AtomicInteger();
+    private final AtomicInteger requestsCompleted = new AtomicInteger();
+    private final AtomicInteger requestsFailed = new AtomicInteger();
+
+    public StreamingPageBufferClient(
+            URI location,
+            int streamPort,
+            AsynchronousChannelGroup channelGroup,
+            DataSize maxResponseSize,
+            DataSize maxResultsFrameSize,
+            Duration maxErrorDuration,
+            ClientCallback clientCallback,
+            ScheduledExecutorService scheduler,
+            Executor pageBufferClientCallbackExecutor,
+            PageBufferClient.Factory httpClientFactory)
+    {
+        this(location, streamPort, channelGroup, maxResponseSize, maxResultsFrameSize, maxErrorDuration, clientCallback, scheduler, Ticker.systemTicker(), pageBufferClientCallbackExecutor, httpClientFactory);
+    }
+
+    public StreamingPageBufferClient(
+            URI location,
+            int streamPort,
+            AsynchronousChannelGroup channelGroup,
+            DataSize maxResponseSize,
+            DataSize maxResultsFrameSize,
+            Duration maxErrorDuration,
+            ClientCallback clientCallback,
+            ScheduledExecutorService scheduler,
+            Ticker ticker,
+            Executor pageBufferClientCallbackExecutor,
+            PageBufferClient.Factory httpClientFactory)
+    {
+        this.location = requireNonNull(location, "location is null");
+        this.streamHost = requireNonNull(location.getHost(), "location host is null");
+        this.streamPort = streamPort;
+        this.channelGroup = requireNonNull(channelGroup, "channelGroup is null");
+        this.maxResponseSize = requireNonNull(maxResponseSize, "maxResponseSize is null");
+        this.maxResultsFrameSize = requireNonNull(maxResultsFrameSize, "maxResultsFrameSize is null");
+        this.clientCallback = requireNonNull(clientCallback, "clientCallback is null");
+        this.scheduler = requireNonNull(scheduler, "scheduler is null");
+        this.pageBufferClientCallbackExecutor = requireNonNull(pageBufferClientCallbackExecutor, "pageBufferClientCallbackExecutor is null");
+        this.httpClientFactory = requireNonNull(httpClientFactory, "httpClientFactory is null");
+        requireNonNull(maxErrorDuration, "maxErrorDuration is null");
+        requireNonNull(ticker, "ticker is null");
+        this.backoff = new Backoff(maxErrorDuration, ticker);
+    }
+
+    @Override
+    public PageBufferClientStatus getStatus()
+    {
+        String state;
+        String connectionState;
+        synchronized (this) {
+            if (httpClient != null && !closed) {
+                return httpClient.getStatus();
+            }
+            if (closed) {
+                state = "closed";
+            }
+            else if (future != null) {
+                state = "running";
+            }
+            else if (scheduled) {
+                state = "scheduled";
+            }
+            else if (completed) {
+                state = "completed";
+            }
+            else {
+                state = "queued";
+            }
+            connectionState = channel != null ? "connected" : "not connected";
+        }
+
+        long rejectedRows = rowsRejected.get();
+        int rejectedPages = pagesRejected.get();
+
+        return new PageBufferClientStatus(
+                location,
+                state,
+                lastUpdate,
+                rowsReceived.get(),
+                pagesReceived.get(),
+                rejectedRows == 0 ? OptionalLong.empty() : OptionalLong.of(rejectedRows),
+                rejectedPages == 0 ? OptionalInt.empty() : OptionalInt.of(rejectedPages),
+                requestsScheduled.get(),
+                requestsCompleted.get(),
+                requestsFailed.get(),
+                connectionState);
+    }
+
+    @Override
+    public synchronized boolean isRunning()
+    {
+        if (httpClient != null) {
+            return httpClient.isRunning();
+        }
+        return future != null;
+    }
+
+    @Override
+    public void close()
+    {
+        boolean shouldAbort;
+        ListenableFuture<?> future;
+        AsynchronousSocketChannel channel;
+        PageBufferClient httpClient;
+        synchronized (this) {
+            shouldAbort = !closed;
+            closed = true;
+
+            future = this.future;
+            this.future = null;
+            channel = this.channel;
+            this.channel = null;
+
+            // the remote buffer is aborted with an HTTP delete
+            if (shouldAbort && this.httpClient == null) {
+                this.httpClient = httpClientFactory.create(location, new HttpClientCallback());
+            }
+            httpClient = this.httpClient;
+
+            lastUpdate = DateTime.now();
+        }
+
+        if (future != null && !future.isDone()) {
+            future.cancel(true);
+        }
+        closeQuietly(channel);
+
+        if (httpClient != null) {
+            httpClient.close();
+        }
+    }
+
+    @Override
+    public void scheduleRequest()
+    {
+        PageBufferClient httpClient;
+        synchronized (this) {
+            httpClient = this.httpClient;
+            if (httpClient == null) {
+                scheduleStreamRequest();
+                return;
+            }
+        }
+        httpClient.scheduleRequest();
+    }
+
+    @GuardedBy("this")
+    private void scheduleStreamRequest()
+    {
+        if (closed || (future != null) || scheduled) {
+            return;
+        }
+        scheduled = true;
+
+        // start before scheduling to include error delay
+        backoff.startRequest();
+
+        long delayNanos = backoff.getBackoffDelayNanos();
+        scheduler.schedule(() -> {
+            try {
+                initiateRequest();
+            }
+            catch (Throwable t) {
+                // should not happen, but be safe and fail the operator
+                clientCallback.clientFailed(StreamingPageBufferClient.this, t);
+            }
+        }, delayNanos, NANOSECONDS);
+
+        lastUpdate = DateTime.now();
+        requestsScheduled.incrementAndGet();
+    }
+
+    private synchronized void initiateRequest()
+    {
+        scheduled = false;
+        if (closed || (future != null) || httpClient != null) {
+            return;
+        }
+
+        ListenableFuture<AsynchronousSocketChannel> connection = channel == null ? connect() : immediateFuture(channel);
+        if (completed) {
+            sendClose(connection);
+        }
+        else {
+            sendPoll(connection);
+        }
+
+        lastUpdate = DateTime.now();
+    }
+
+    private ListenableFuture<AsynchronousSocketChannel> connect()
+    {
+        AsynchronousSocketChannel channel;
+        try {
+            channel = AsynchronousSocketChannel.open(channelGroup);
+            channel.setOption(TCP_NODELAY, true);
+        }
+        catch (IOException e) {
+            return Futures.immediateFailedFuture(e);
+        }
+
+        SettableFuture<AsynchronousSocketChannel> connected = SettableFuture.create();
+        channel.connect(new InetSocketAddress(streamHost, streamPort), null, new CompletionHandler<Void, Void>()
+        {
+            @Override
+            public void completed(Void result, Void attachment)
+            {
+                connected.set(channel);
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment)
+            {
+                closeQuietly(channel);
+                connected.setException(exc);
+            }
+        });
+
+        ListenableFuture<ByteBuffer> opened = Futures.transformAsync(
+                connected,
+                ignored -> Futures.transformAsync(
+                        writeFully(channel, openFrame(location.toString())),
+                        written -> readControlFrame(channel),
+                        directExecutor()),
+                directExecutor());
+        return Futures.transform(opened, response -> {
+            byte type = response.get();
+            if (type == REJECTED) {
+                throw new StreamRejectedException(readMessage(response));
+            }
+            checkFrameType(type, ACCEPTED, response);
+            synchronized (this) {
+                if (closed) {
+                    closeQuietly(channel);
+                    throw new PageTransportErrorException(format("Client for %s is closed", location));
+                }
+                accepted = true;
+                this.channel = channel;
+            }
+            return channel;
+        }, directExecutor());
+    }
+
+    private synchronized void sendPoll(ListenableFuture<AsynchronousSocketChannel> connection)
+    {
+        long requestToken = token;
+        ListenableFuture<PagesResponse> resultFuture = Futures.transformAsync(
+                connection,
+                channel -> Futures.transformAsync(
+                        writeFully(channel, pollFrame(requestToken, maxResponseSize.toBytes())),
+                        written -> readResults(channel),
+                        directExecutor()),
+                directExecutor());
+
+        future = resultFuture;
+        Futures.addCallback(resultFuture, new FutureCallback<PagesResponse>()
+        {
+            @Override
+            public void onSuccess(PagesResponse result)
+            {
+                checkNotHoldsLock(this);
+
+                backoff.success();
+
+                List<SerializedPage> pages;
+                try {
+                    synchronized (StreamingPageBufferClient.this) {
+                        if (taskInstanceId == null) {
+                            taskInstanceId = result.getTaskInstanceId();
+                        }
+
+                        if (!isNullOrEmpty(taskInstanceId) && !result.getTaskInstanceId().equals(taskInstanceId)) {
+                            throw new PrestoException(REMOTE_TASK_MISMATCH, format("%s (%s)", REMOTE_TASK_MISMATCH_ERROR, fromUri(location)));
+                        }
+
+                        if (result.getToken() == token) {
+                            pages = result.getPages();
+                            token = result.getNextToken();
+                        }
+                        else {
+                            pages = ImmutableList.of();
+                        }
+                    }
+                }
+                catch (PrestoException e) {
+                    handleFailure(e, resultFuture);
+                    return;
+                }
+
+                // addPages must be called regardless of whether pages is an empty list, see HttpPageBufferClient
+                if (clientCallback.addPages(StreamingPageBufferClient.this, pages)) {
+                    pagesReceived.addAndGet(pages.size());
+                    rowsReceived.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+                }
+                else {
+                    pagesRejected.addAndGet(pages.size());
+                    rowsRejected.addAndGet(pages.stream().mapToLong(SerializedPage::getPositionCount).sum());
+                }
+
+                synchronized (StreamingPageBufferClient.this) {
+                    // client is complete, acknowledge it by closing the buffer in the next request
+                    if (result.isClientComplete()) {
+                        completed = true;
+                    }
+                    if (future == resultFuture) {
+                        future = null;
+                    }
+                    lastUpdate = DateTime.now();
+                }
+                requestsCompleted.incrementAndGet();
+                clientCallback.requestComplete(StreamingPageBufferClient.this);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                log.debug("Request to %s failed %s", location, t);
+                checkNotHoldsLock(this);
+
+                if (fallBackToHttp(t, resultFuture)) {
+                    return;
+                }
+                if (!(t instanceof PrestoException) && backoff.failure()) {
+                    String message = format("%s (%s - %s failures, failure duration %s, total failed request time %s)",
+                            WORKER_NODE_ERROR,
+                            location,
+                            backoff.getFailureCount(),
+                            backoff.getFailureDuration().convertTo(SECONDS),
+                            backoff.getFailureRequestTimeTotal().convertTo(SECONDS));
+                    t = new PageTransportTimeoutException(fromUri(location), message, t);
+                }
+                handleFailure(t, resultFuture);
+            }
+        }, pageBufferClientCallbackExecutor);
+    }
+
+    private synchronized void sendClose(ListenableFuture<AsynchronousSocketChannel> connection)
+    {
+        ListenableFuture<ByteBuffer> resultFuture = Futures.transformAsync(
+                connection,
+                channel -> Futures.transformAsync(
+                        writeFully(channel, emptyFrame(CLOSE)),
+                        written -> readControlFrame(channel),
+                        directExecutor()),
+                directExecutor());
+
+        future = resultFuture;
+        Futures.addCallback(resultFuture, new FutureCallback<ByteBuffer>()
+        {
+            @Override
+            public void onSuccess(ByteBuffer response)
+            {
+                checkNotHoldsLock(this);
+                try {
+                    checkFrameType(response.get(), CLOSED, response);
+                }
+                catch (PrestoException e) {
+                    onFailure(e);
+                    return;
+                }
+
+                backoff.success();
+                AsynchronousSocketChannel channel;
+                synchronized (StreamingPageBufferClient.this) {
+                    closed = true;
+                    if (future == resultFuture) {
+                        future = null;
+                    }
+                    channel = StreamingPageBufferClient.this.channel;
+                    StreamingPageBufferClient.this.channel = null;
+                    lastUpdate = DateTime.now();
+                }
+                closeQuietly(channel);
+                requestsCompleted.incrementAndGet();
+                clientCallback.clientFinished(StreamingPageBufferClient.this);
+            }
+
+            @Override
+            public void onFailure(Throwable t)
+            {
+                checkNotHoldsLock(this);
+
+                log.error("Request to close %s failed %s", location, t);
+                if (!(t instanceof PrestoException) && backoff.failure()) {
+                    String message = format("Error closing remote buffer (%s - %s failures, failure duration %s, total failed request time %s)",
+                            location,
+                            backoff.getFailureCount(),
+                            backoff.getFailureDuration().convertTo(SECONDS),
+                            backoff.getFailureRequestTimeTotal().convertTo(SECONDS));
+                    t = new PrestoException(REMOTE_BUFFER_CLOSE_FAILED, message, t);
+                }
+                handleFailure(t, resultFuture);
+            }
+        }, pageBufferClientCallbackExecutor);
+    }
+
+    private ListenableFuture<PagesResponse> readResults(AsynchronousSocketChannel channel)
+    {
+        return Futures.transformAsync(readFully(channel, allocateFrameHeader(), READ_TIMEOUT), header -> {
+            byte type = header.get();
+            int length = header.getInt();
+            if (type != RESULTS) {
+                if (length > MAX_CONTROL_FRAME_SIZE) {
+                    throw new PageTransportErrorException(format("Error fetching %s: unexpected frame %s of %s bytes", location, type, length));
+                }
+                return Futures.transformAsync(readBody(channel, length), body -> {
+                    checkFrameType(type, RESULTS, body);
+                    throw new IllegalStateException("unreachable");
+                }, directExecutor());
+            }
+            // the server may exceed the requested size to return a single large page, but not the limit of a response
+            if (length > maxResultsFrameSize.toBytes()) {
+                throw new PageTransportErrorException(format("Error fetching %s: results of %s bytes exceed maximum of %s", location, length, maxResultsFrameSize));
+            }
+            return Futures.transformAsync(readBody(channel, Integer.BYTES), taskInstanceIdLengthBuffer -> {
+                int taskInstanceIdLength = taskInstanceIdLengthBuffer.getInt();
+                int pagesLength = length - Integer.BYTES - RESULTS_HEADER_SIZE - taskInstanceIdLength;
+                if (taskInstanceIdLength < 0 || pagesLength < 0) {
+                    throw new PageTransportErrorException(format("Error fetching %s: malformed results frame", location));
+                }
+                return Futures.transformAsync(readBody(channel, taskInstanceIdLength + RESULTS_HEADER_SIZE), resultsHeader -> {
+                    byte[] taskInstanceId = new byte[taskInstanceIdLength];
+                    resultsHeader.get(taskInstanceId);
+                    long token = resultsHeader.getLong();
+                    long nextToken = resultsHeader.getLong();
+                    boolean complete = resultsHeader.get() != 0;
+                    int pageCount = resultsHeader.getInt();
+                    return Futures.transform(
+                            readPages(channel, pageCount, pagesLength, ImmutableList.builder()),
+                            pages -> createPagesResponse(new String(taskInstanceId, UTF_8), token, nextToken, pages, complete),
+                            directExecutor());
+                }, directExecutor());
+            }, directExecutor());
+        }, directExecutor());
+    }
+
+    private ListenableFuture<List<SerializedPage>> readPages(AsynchronousSocketChannel channel, int remainingPages, int remainingBytes, ImmutableList.Builder<SerializedPage> pages)
+    {
+        if (remainingPages == 0) {
+            if (remainingBytes != 0) {
+                throw new PageTransportErrorException(format("Error fetching %s: malformed results frame", location));
+            }
+            return immediateFuture(pages.build());
+        }
+        if (remainingBytes < PAGE_HEADER_SIZE) {
+            throw new PageTransportErrorException(format("Error fetching %s: malformed results frame", location));
+        }
+        return Futures.transformAsync(readBody(channel, PAGE_HEADER_SIZE), header -> {
+            int positionCount = header.getInt();
+            byte codecMarkers = header.get();
+            int uncompressedSize = header.getInt();
+            int size = header.getInt();
+            if (size < 0 || size > remainingBytes - PAGE_HEADER_SIZE) {
+                throw new PageTransportErrorException(format("Error fetching %s: page of %s bytes exceeds the results frame", location, size));
+            }
+            // every page gets its own buffer, so that its retained size is accounted for exactly
+            return Futures.transformAsync(readFully(channel, ByteBuffer.allocate(size), READ_TIMEOUT), body -> {
+                pages.add(new SerializedPage(Slices.wrappedBuffer(body.array()), PageCodecMarker.MarkerSet.fromByteValue(codecMarkers), positionCount, uncompressedSize));
+                return readPages(channel, remainingPages - 1, remainingBytes - PAGE_HEADER_SIZE - size, pages);
+            }, directExecutor());
+        }, directExecutor());
+    }
+
+    private static ListenableFuture<ByteBuffer> readControlFrame(AsynchronousSocketChannel channel)
+    {
+        // returns the body positioned after the frame type
+        return Futures.transformAsync(readFully(channel, allocateFrameHeader(), READ_TIMEOUT), header -> {
+            byte type = header.get();
+            int length = header.getInt();
+            if (length > MAX_CONTROL_FRAME_SIZE) {
+                throw new PageTransportErrorException(format("Control frame of %s bytes exceeds maximum of %s bytes", length, MAX_CONTROL_FRAME_SIZE));
+            }
+            ByteBuffer frame = ByteBuffer.allocate(Byte.BYTES + length).order(LITTLE_ENDIAN);
+            frame.put(type);
+            return Futures.transform(readFully(channel, frame, READ_TIMEOUT), ignored -> {
+                frame.position(0);
+                return frame;
+            }, directExecutor());
+        }, directExecutor());
+    }
+
+    private static ListenableFuture<ByteBuffer> readBody(AsynchronousSocketChannel channel, int length)
+    {
+        return readFully(channel, ByteBuffer.allocate(length).order(LITTLE_ENDIAN), READ_TIMEOUT);
+    }
+
+    private void checkFrameType(byte type, byte expected, ByteBuffer body)
+    {
+        if (type == FAILED) {
+            throw new PageTransportErrorException(format("Error fetching %s: %s", location, readMessage(body)));
+        }
+        if (type != expected) {
+            throw new PageTransportErrorException(format("Error fetching %s: expected frame %s but got %s", location, expected, type));
+        }
+    }
+
+    /**
+     * Switches to HTTP if the remote node does not serve the streaming transport.
+     */
+    private boolean fallBackToHttp(Throwable t, ListenableFuture<?> expectedFuture)
+    {
+        PageBufferClient httpClient;
+        synchronized (this) {
+            if (accepted || !(t instanceof ConnectException || t instanceof StreamRejectedException)) {
+                return false;
+            }
+            log.debug("Streaming exchange is not available for %s, using HTTP: %s", location, t.getMessage());
+            if (future == expectedFuture) {
+                future = null;
+            }
+            if (closed) {
+                return true;
+            }
+            this.httpClient = httpClientFactory.create(location, new HttpClientCallback());
+            httpClient = this.httpClient;
+            lastUpdate = DateTime.now();
+        }
+        httpClient.scheduleRequest();
+        return true;
+    }
+
+    private void handleFailure(Throwable t, ListenableFuture<?> expectedFuture)
+    {
+        // Can not delegate to other callback while holding a lock on this
+        checkNotHoldsLock(this);
+
+        requestsFailed.incrementAndGet();
+        requestsCompleted.incrementAndGet();
+
+        if (t instanceof PrestoException) {
+            clientCallback.clientFailed(StreamingPageBufferClient.this, t);
+        }
+
+        AsynchronousSocketChannel channel;
+        synchronized (StreamingPageBufferClient.this) {
+            if (future == expectedFuture) {
+                future = null;
+            }
+            // the state of the connection is unknown, so the next request reconnects
+            channel = this.channel;
+            this.channel = null;
+            lastUpdate = DateTime.now();
+        }
+        closeQuietly(channel);
+        clientCallback.requestComplete(StreamingPageBufferClient.this);
+    }
+
+    private static void checkNotHoldsLock(Object lock)
+    {
+        checkState(!Thread.holdsLock(lock), "Cannot execute this method while holding a lock");
+    }
+
+    private static void closeQuietly(AsynchronousSocketChannel channel)
+    {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.close();
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        StreamingPageBufferClient that = (StreamingPageBufferClient) o;
+        return location.equals(that.location);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return location.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        String state;
+        synchronized (this) {
+            if (closed) {
+                state = "CLOSED";
+            }
+            else if (httpClient != null) {
+                state = "HTTP";
+            }
+            else if (future != null) {
+                state = "RUNNING";
+            }
+            else {
+                state = "QUEUED";
+            }
+        }
+        return toStringHelper(this)
+                .add("location", location)
+                .addValue(state)
+                .toString();
+    }
+
+    /**
+     * Reports to the exchange on behalf of this client once it has switched to HTTP.
+     */
+    private class HttpClientCallback
+            implements ClientCallback
+    {
+        @Override
+        public boolean addPages(PageBufferClient client, List<SerializedPage> pages)
+        {
+            return clientCallback.addPages(StreamingPageBufferClient.this, pages);
+        }
+
+        @Override
+        public void requestComplete(PageBufferClient client)
+        {
+            clientCallback.requestComplete(StreamingPageBufferClient.this);
+        }
+
+        @Override
+        public void clientFinished(PageBufferClient client)
+        {
+            clientCallback.clientFinished(StreamingPageBufferClient.this);
+        }
+
+        @Override
+        public void clientFailed(PageBufferClient client, Throwable cause)
+        {
+            clientCallback.clientFailed(StreamingPageBufferClient.this, cause);
+        }
+    }
+
+    private static class StreamRejectedException
+            extends RuntimeException
+    {
+        public StreamRejectedException(String message)
+        {
+            super(message);
+        }
+    }
+}
@@ -52,6 +52,7 @@ import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
 import static io.prestosql.sql.planner.plan.TableWriterNode.CreateTarget;
 import static io.prestosql.sql.planner.plan.TableWriterNode.InsertTarget;
+import static io.prestosql.sql.planner.plan.TableWriterNode.RefreshMaterializedViewTarget;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 
@@ -88,7 +89,9 @@ public class TableWriterOperator
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
             this.columnChannels = requireNonNull(columnChannels, "columnChannels is null");
             this.pageSinkManager = requireNonNull(pageSinkManager, "pageSinkManager is null");
-            checkArgument(writerTarget instanceof CreateTarget || writerTarget instanceof InsertTarget, "writerTarget must be CreateTarget or InsertTarget");
+            checkArgument(
+                    writerTarget instanceof CreateTarget || writerTarget instanceof InsertTarget || writerTarget instanceof RefreshMaterializedViewTarget,
+                    "writerTarget must be CreateTarget, InsertTarget or RefreshMaterializedViewTarget");
             this.target = requireNonNull(writerTarget, "writerTarget is null");
             this.session = session;
             this.statisticsAggregationOperatorFactory = requireNonNull(statisticsAggregationOperatorFactory, "statisticsAggregationOperatorFactory is null");
@@ -113,6 +116,9 @@ public class TableWriterOperator
             if (target instanceof InsertTarget) {
                 return pageSinkManager.createPageSink(session, ((InsertTarget) target).getHandle());
             }
+            if (target instanceof RefreshMaterializedViewTarget) {
+                return pageSinkManager.createPageSink(session, ((RefreshMaterializedViewTarget) target).getHandle());
+            }
             throw new UnsupportedOperationException("Unhandled target type: " + target.getClass().getName());
         }
 
@@ -143,13 +143,21 @@ public class TaskOutputOperator
         page = pagePreprocessor.apply(page);
 
         List<SerializedPage> serializedPages = splitPage(page, DEFAULT_MAX_PAGE_SIZE_IN_BYTES).stream()
-                .map(serde::serialize)
+                .map(this::serialize)
                 .collect(toImmutableList());
 
         outputBuffer.enqueue(serializedPages);
         operatorContext.recordOutput(page.getSizeInBytes(), page.getPositionCount());
     }
 
+    private SerializedPage serialize(Page page)
+    {
+        OperationTimer timer = operatorContext.startSerdeTimer();
+        SerializedPage serializedPage = serde.serialize(page);
+        operatorContext.recordSerde(timer, serializedPage.getUncompressedSizeInBytes(), serializedPage.getSizeInBytes());
+        return serializedPage;
+    }
+
     @Override
     public Page getOutput()
     {
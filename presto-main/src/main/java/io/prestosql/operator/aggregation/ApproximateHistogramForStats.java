@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.aggregation;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.stats.QuantileDigest;
+import io.prestosql.operator.aggregation.state.DigestAndPercentileState;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.function.AggregationFunction;
+import io.prestosql.spi.function.AggregationState;
+import io.prestosql.spi.function.CombineFunction;
+import io.prestosql.spi.function.InputFunction;
+import io.prestosql.spi.function.OutputFunction;
+import io.prestosql.spi.function.SqlType;
+import io.prestosql.spi.type.StandardTypes;
+
+import java.util.List;
+
+import static io.prestosql.operator.aggregation.FloatingPointBitsConverterUtil.doubleToSortableLong;
+import static io.prestosql.operator.aggregation.FloatingPointBitsConverterUtil.sortableLongToDouble;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Computes the boundaries of an equi-height histogram of a numeric column, as the values of
+ * {@link #HISTOGRAM_BUCKETS} + 1 equally spaced quantiles, converted to double.
+ */
+@AggregationFunction(value = ApproximateHistogramForStats.NAME, hidden = true)
+public final class ApproximateHistogramForStats
+{
+    public static final String NAME = "$internal$approx_histogram_for_stats";
+    public static final int HISTOGRAM_BUCKETS = 100;
+
+    private static final double MAX_ERROR = 0.01;
+    private static final List<Double> QUANTILES = createQuantiles();
+
+    private ApproximateHistogramForStats() {}
+
+    @InputFunction
+    public static void bigintInput(@AggregationState DigestAndPercentileState state, @SqlType(StandardTypes.BIGINT) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void integerInput(@AggregationState DigestAndPercentileState state, @SqlType(StandardTypes.INTEGER) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void smallintInput(@AggregationState DigestAndPercentileState state, @SqlType(StandardTypes.SMALLINT) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void tinyintInput(@AggregationState DigestAndPercentileState state, @SqlType(StandardTypes.TINYINT) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void dateInput(@AggregationState DigestAndPercentileState state, @SqlType(StandardTypes.DATE) long value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void doubleInput(@AggregationState DigestAndPercentileState state, @SqlType(StandardTypes.DOUBLE) double value)
+    {
+        add(state, value);
+    }
+
+    @InputFunction
+    public static void realInput(@AggregationState DigestAndPercentileState state, @SqlType(StandardTypes.REAL) long value)
+    {
+        add(state, intBitsToFloat(toIntExact(value)));
+    }
+
+    private static void add(DigestAndPercentileState state, double value)
+    {
+        if (Double.isNaN(value)) {
+            return;
+        }
+
+        QuantileDigest digest = state.getDigest();
+        if (digest == null) {
+            digest = new QuantileDigest(MAX_ERROR);
+            state.setDigest(digest);
+            state.addMemoryUsage(digest.estimatedInMemorySizeInBytes());
+        }
+
+        state.addMemoryUsage(-digest.estimatedInMemorySizeInBytes());
+        digest.add(doubleToSortableLong(value));
+        state.addMemoryUsage(digest.estimatedInMemorySizeInBytes());
+    }
+
+    @CombineFunction
+    public static void combine(@AggregationState DigestAndPercentileState state, @AggregationState DigestAndPercentileState otherState)
+    {
+        QuantileDigest input = otherState.getDigest();
+        if (input == null) {
+            return;
+        }
+
+        QuantileDigest previous = state.getDigest();
+        if (previous == null) {
+            state.setDigest(input);
+            state.addMemoryUsage(input.estimatedInMemorySizeInBytes());
+        }
+        else {
+            state.addMemoryUsage(-previous.estimatedInMemorySizeInBytes());
+            previous.merge(input);
+            state.addMemoryUsage(previous.estimatedInMemorySizeInBytes());
+        }
+    }
+
+    @OutputFunction("array(double)")
+    public static void output(@AggregationState DigestAndPercentileState state, BlockBuilder out)
+    {
+        QuantileDigest digest = state.getDigest();
+        if (digest == null || digest.getCount() == 0.0) {
+            out.appendNull();
+            return;
+        }
+
+        BlockBuilder blockBuilder = out.beginBlockEntry();
+        for (long value : digest.getQuantiles(QUANTILES)) {
+            DOUBLE.writeDouble(blockBuilder, sortableLongToDouble(value));
+        }
+        out.closeEntry();
+    }
+
+    private static List<Double> createQuantiles()
+    {
+        ImmutableList.Builder<Double> quantiles = ImmutableList.builder();
+        for (int i = 0; i <= HISTOGRAM_BUCKETS; i++) {
+            quantiles.add(((double) i) / HISTOGRAM_BUCKETS);
+        }
+        return quantiles.build();
+    }
+}
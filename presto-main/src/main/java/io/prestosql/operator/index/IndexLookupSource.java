@@ -88,6 +88,13 @@ public class IndexLookupSource
         return joinPosition;
     }
 
+    @Override
+    public boolean supportsBatchedJoinPositions()
+    {
+        // looking up an unloaded key replaces indexedData, which invalidates previously returned join positions
+        return false;
+    }
+
     @Override
     public long getNextJoinPosition(long currentJoinPosition, int probePosition, Page allProbeChannelsPage)
     {
@@ -14,6 +14,7 @@
 package io.prestosql.operator.project;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import io.airlift.slice.SizeOf;
 import io.prestosql.array.ReferenceCountMap;
 import io.prestosql.memory.context.LocalMemoryContext;
@@ -61,6 +62,10 @@ public class PageProcessor
     private final DictionarySourceIdFunction dictionarySourceIdFunction = new DictionarySourceIdFunction();
     private final Optional<PageFilter> filter;
     private final List<PageProjection> projections;
+    private final int inputChannelCount;
+    private final List<PageProjection> filterSubExpressions;
+    private final List<PageProjection> projectionSubExpressions;
+    private final DriverYieldSignal subExpressionYieldSignal = new DriverYieldSignal();
 
     private int projectBatchSize;
 
@@ -73,6 +78,25 @@ public class PageProcessor
     @VisibleForTesting
     public PageProcessor(Optional<PageFilter> filter, List<? extends PageProjection> projections, OptionalInt initialBatchSize, ExpressionProfiler expressionProfiler)
     {
+        this(filter, projections, 0, ImmutableList.of(), ImmutableList.of(), initialBatchSize, expressionProfiler);
+    }
+
+    /**
+     * Creates a processor whose filter and projections may read sub expressions they share from the
+     * channels following the first {@code inputChannelCount} channels of the page. The filter sub
+     * expressions are computed for all positions of the page before the filter is applied, and the
+     * projection sub expressions are computed for the selected positions only, after it.
+     */
+    public PageProcessor(
+            Optional<PageFilter> filter,
+            List<? extends PageProjection> projections,
+            int inputChannelCount,
+            List<? extends PageProjection> filterSubExpressions,
+            List<? extends PageProjection> projectionSubExpressions,
+            OptionalInt initialBatchSize,
+            ExpressionProfiler expressionProfiler)
+    {
+        checkArgument(inputChannelCount >= 0, "inputChannelCount is negative");
         this.filter = requireNonNull(filter, "filter is null")
                 .map(pageFilter -> {
                     if (pageFilter.getInputChannels().size() == 1 && pageFilter.isDeterministic()) {
@@ -80,14 +104,10 @@ public class PageProcessor
                     }
                     return pageFilter;
                 });
-        this.projections = requireNonNull(projections, "projections is null").stream()
-                .map(projection -> {
-                    if (projection.getInputChannels().size() == 1 && projection.isDeterministic()) {
-                        return new DictionaryAwarePageProjection(projection, dictionarySourceIdFunction, projection instanceof InputPageProjection);
-                    }
-                    return projection;
-                })
-                .collect(toImmutableList());
+        this.projections = wrapDictionaryAware(requireNonNull(projections, "projections is null"));
+        this.inputChannelCount = inputChannelCount;
+        this.filterSubExpressions = wrapDictionaryAware(requireNonNull(filterSubExpressions, "filterSubExpressions is null"));
+        this.projectionSubExpressions = wrapDictionaryAware(requireNonNull(projectionSubExpressions, "projectionSubExpressions is null"));
         this.projectBatchSize = initialBatchSize.orElse(1);
         this.expressionProfiler = requireNonNull(expressionProfiler, "expressionProfiler is null");
     }
@@ -117,23 +137,87 @@ public class PageProcessor
             return WorkProcessor.of();
         }
 
+        if (!filterSubExpressions.isEmpty() || !projectionSubExpressions.isEmpty()) {
+            Block[] inputBlocks = new Block[inputChannelCount];
+            for (int channel = 0; channel < inputChannelCount; channel++) {
+                inputBlocks[channel] = page.getBlock(channel);
+            }
+            page = new Page(page.getPositionCount(), inputBlocks);
+            page = appendSubExpressions(session, page, filterSubExpressions, positionsRange(0, page.getPositionCount()));
+        }
+
+        SelectedPositions selectedPositions = positionsRange(0, page.getPositionCount());
         if (filter.isPresent()) {
-            SelectedPositions selectedPositions = filter.get().filter(session, filter.get().getInputChannels().getInputChannels(page));
-            if (selectedPositions.isEmpty()) {
+            SelectedPositions filteredPositions = filter.get().filter(session, filter.get().getInputChannels().getInputChannels(page));
+            if (filteredPositions.isEmpty()) {
                 return WorkProcessor.of();
             }
 
             if (projections.isEmpty()) {
                 // retained memory for empty page is negligible
-                return WorkProcessor.of(new Page(selectedPositions.size()));
+                return WorkProcessor.of(new Page(filteredPositions.size()));
             }
 
-            if (selectedPositions.size() != page.getPositionCount()) {
-                return WorkProcessor.create(new ProjectSelectedPositions(session, yieldSignal, memoryContext, page, selectedPositions, avoidPageMaterialization));
+            if (filteredPositions.size() != page.getPositionCount()) {
+                selectedPositions = filteredPositions;
+            }
+        }
+
+        page = appendSubExpressions(session, page, projectionSubExpressions, selectedPositions);
+        return WorkProcessor.create(new ProjectSelectedPositions(session, yieldSignal, memoryContext, page, selectedPositions, avoidPageMaterialization));
+    }
+
+    private Page appendSubExpressions(ConnectorSession session, Page page, List<PageProjection> subExpressions, SelectedPositions selectedPositions)
+    {
+        // like the filter, shared sub expressions are computed without yielding
+        for (PageProjection subExpression : subExpressions) {
+            Work<Block> work = subExpression.project(session, subExpressionYieldSignal, subExpression.getInputChannels().getInputChannels(page), selectedPositions);
+            verify(work.process(), "sub expression projection did not complete");
+            page = page.appendColumn(alignToPagePositions(work.getResult(), selectedPositions, page.getPositionCount()));
+        }
+        return page;
+    }
+
+    /**
+     * Projections produce values for the selected positions only. Returns a block that has the
+     * value for the n-th selected position at that position of the page.
+     */
+    private static Block alignToPagePositions(Block block, SelectedPositions selectedPositions, int positionCount)
+    {
+        if (!selectedPositions.isList() && selectedPositions.getOffset() == 0 && selectedPositions.size() == positionCount) {
+            return block;
+        }
+
+        Block dictionary = block;
+        int[] dictionaryIds = null;
+        if (block instanceof DictionaryBlock) {
+            DictionaryBlock dictionaryBlock = (DictionaryBlock) block;
+            dictionary = dictionaryBlock.getDictionary();
+            dictionaryIds = new int[block.getPositionCount()];
+            for (int i = 0; i < dictionaryIds.length; i++) {
+                dictionaryIds[i] = dictionaryBlock.getId(i);
             }
         }
 
-        return WorkProcessor.create(new ProjectSelectedPositions(session, yieldSignal, memoryContext, page, positionsRange(0, page.getPositionCount()), avoidPageMaterialization));
+        // positions that were not selected are never read
+        int[] ids = new int[positionCount];
+        for (int i = 0; i < selectedPositions.size(); i++) {
+            int position = selectedPositions.isList() ? selectedPositions.getPositions()[selectedPositions.getOffset() + i] : selectedPositions.getOffset() + i;
+            ids[position] = dictionaryIds == null ? i : dictionaryIds[i];
+        }
+        return new DictionaryBlock(positionCount, dictionary, ids);
+    }
+
+    private List<PageProjection> wrapDictionaryAware(List<? extends PageProjection> projections)
+    {
+        return projections.stream()
+                .map(projection -> {
+                    if (projection.getInputChannels().size() == 1 && projection.isDeterministic()) {
+                        return new DictionaryAwarePageProjection(projection, dictionarySourceIdFunction, projection instanceof InputPageProjection);
+                    }
+                    return projection;
+                })
+                .collect(toImmutableList());
     }
 
     private class ProjectSelectedPositions
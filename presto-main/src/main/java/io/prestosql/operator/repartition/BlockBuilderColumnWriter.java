@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.repartition;
+
+import io.airlift.slice.SliceOutput;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes values of types without a dedicated writer by building a block and serializing it.
+ */
+class BlockBuilderColumnWriter
+        implements ColumnWriter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(BlockBuilderColumnWriter.class).instanceSize();
+
+    private final Type type;
+    private final BlockEncodingSerde blockEncodingSerde;
+    private BlockBuilder blockBuilder;
+
+    public BlockBuilderColumnWriter(Type type, BlockEncodingSerde blockEncodingSerde)
+    {
+        this.type = requireNonNull(type, "type is null");
+        this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.blockBuilder = type.createBlockBuilder(null, 0);
+    }
+
+    @Override
+    public long append(DecodedBlock decodedBlock, int[] positions, int offset, int length)
+    {
+        Block block = decodedBlock.getBlock();
+        long initialSize = blockBuilder.getSizeInBytes();
+        for (int i = offset; i < offset + length; i++) {
+            type.appendTo(block, positions[i], blockBuilder);
+        }
+        return blockBuilder.getSizeInBytes() - initialSize;
+    }
+
+    @Override
+    public void writeTo(SliceOutput output)
+    {
+        blockEncodingSerde.writeBlock(output, blockBuilder.build());
+    }
+
+    @Override
+    public long getSizeInBytes()
+    {
+        return blockBuilder.getSizeInBytes();
+    }
+
+    @Override
+    public long getSerializedSizeInBytes()
+    {
+        // the encodings of other blocks are not known here, so this is an estimate
+        return blockBuilder.getSizeInBytes() + Integer.BYTES * (blockBuilder.getPositionCount() + 16L);
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + blockBuilder.getRetainedSizeInBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        blockBuilder = blockBuilder.newBlockBuilderLike(null);
+    }
+}
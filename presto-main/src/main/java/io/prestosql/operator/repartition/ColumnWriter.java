@@ -0,0 +1,98 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.repartition;
+
+import io.airlift.slice.SliceOutput;
+import io.prestosql.spi.block.Block;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Accumulates the values of one column in the serialized form of its block encoding.
+ */
+interface ColumnWriter
+{
+    /**
+     * Prepares a block for {@link #append}. The result can be appended to any writer of the same type.
+     */
+    default DecodedBlock decode(Block block)
+    {
+        return new DecodedBlock(block);
+    }
+
+    /**
+     * Appends the values at the given positions of the block. The positions must be increasing.
+     *
+     * @return size of the appended values as a block builder holding them would report it, which
+     * counts every position at its full width even where the built block is more compact
+     */
+    long append(DecodedBlock block, int[] positions, int offset, int length);
+
+    /**
+     * Writes the accumulated values as a block, in the format read by {@link io.prestosql.spi.block.BlockEncodingSerde#readBlock}.
+     */
+    void writeTo(SliceOutput output);
+
+    /**
+     * Size of the block the accumulated values would make, as reported by {@link Block#getSizeInBytes()}.
+     */
+    long getSizeInBytes();
+
+    /**
+     * Number of bytes {@link #writeTo} writes, so that pages can be written into buffers of their exact size.
+     */
+    long getSerializedSizeInBytes();
+
+    long getRetainedSizeInBytes();
+
+    void reset();
+
+    static void writeEncodingName(SliceOutput output, String encodingName)
+    {
+        byte[] bytes = encodingName.getBytes(UTF_8);
+        output.writeInt(bytes.length);
+        output.writeBytes(bytes);
+    }
+
+    static int getEncodingNameSize(String encodingName)
+    {
+        return Integer.BYTES + encodingName.getBytes(UTF_8).length;
+    }
+
+    static int getNullsSize(boolean hasNull, int positionCount)
+    {
+        return Byte.BYTES + (hasNull ? (positionCount + 7) / 8 : 0);
+    }
+
+    /**
+     * Writes null flags as bits, in the format block encodings use for nulls.
+     */
+    static void writeNulls(SliceOutput output, boolean[] nulls, boolean hasNull, int positionCount)
+    {
+        output.writeBoolean(hasNull);
+        if (!hasNull) {
+            return;
+        }
+
+        for (int position = 0; position < positionCount; position += 8) {
+            byte value = 0;
+            int mask = 0b1000_0000;
+            for (int i = position; i < Math.min(position + 8, positionCount); i++) {
+                value |= nulls[i] ? mask : 0;
+                mask >>>= 1;
+            }
+            output.appendByte(value);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.repartition;
+
+import io.prestosql.spi.block.Block;
+
+import javax.annotation.Nullable;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A block prepared by {@link ColumnWriter#decode} for appending its positions to any number
+ * of column writers of its type.
+ */
+final class DecodedBlock
+{
+    private static final DecodedBlock[] NO_FIELDS = new DecodedBlock[0];
+
+    private final Block block;
+    private final DecodedBlock[] fields;
+    @Nullable
+    private final int[] fieldPositions;
+
+    public DecodedBlock(Block block)
+    {
+        this(block, NO_FIELDS, null);
+    }
+
+    public DecodedBlock(Block block, DecodedBlock[] fields, @Nullable int[] fieldPositions)
+    {
+        this.block = requireNonNull(block, "block is null");
+        this.fields = requireNonNull(fields, "fields is null");
+        this.fieldPositions = fieldPositions;
+    }
+
+    public Block getBlock()
+    {
+        return block;
+    }
+
+    public DecodedBlock getField(int field)
+    {
+        return fields[field];
+    }
+
+    /**
+     * Position in the fields of the row at each position, or -1 if the row is null.
+     * Null when every row is at the same position in the fields.
+     */
+    @Nullable
+    public int[] getFieldPositions()
+    {
+        return fieldPositions;
+    }
+}
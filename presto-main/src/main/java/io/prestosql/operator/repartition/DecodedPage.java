@@ -0,0 +1,47 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.repartition;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A page prepared by {@link SerializedPageBuilder#decode} for appending its positions to
+ * any number of builders of its types, so that the preparation is done once per page.
+ */
+public final class DecodedPage
+{
+    private final DecodedBlock[] blocks;
+    private final int positionCount;
+
+    DecodedPage(DecodedBlock[] blocks, int positionCount)
+    {
+        this.blocks = requireNonNull(blocks, "blocks is null");
+        this.positionCount = positionCount;
+    }
+
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    int getChannelCount()
+    {
+        return blocks.length;
+    }
+
+    DecodedBlock getBlock(int channel)
+    {
+        return blocks[channel];
+    }
+}
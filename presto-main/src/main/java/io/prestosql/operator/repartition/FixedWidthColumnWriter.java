@@ -0,0 +1,182 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.repartition;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.SliceOutput;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.RunLengthBlockEncoding;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.prestosql.operator.repartition.ColumnWriter.getEncodingNameSize;
+import static io.prestosql.operator.repartition.ColumnWriter.getNullsSize;
+import static io.prestosql.operator.repartition.ColumnWriter.writeEncodingName;
+import static io.prestosql.operator.repartition.ColumnWriter.writeNulls;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes values of the LONG_ARRAY, INT_ARRAY, SHORT_ARRAY and BYTE_ARRAY encodings.
+ */
+class FixedWidthColumnWriter
+        implements ColumnWriter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(FixedWidthColumnWriter.class).instanceSize();
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int RUN_LENGTH_ENCODING_NAME_SIZE = getEncodingNameSize(RunLengthBlockEncoding.NAME);
+
+    private final String encodingName;
+    private final int encodingNameSize;
+    private final int valueSize;
+    private final DynamicSliceOutput values;
+
+    private boolean[] nulls = new boolean[INITIAL_CAPACITY];
+    private boolean hasNull;
+    private boolean hasNonNull;
+    private int positionCount;
+
+    public FixedWidthColumnWriter(String encodingName, int valueSize)
+    {
+        this.encodingName = requireNonNull(encodingName, "encodingName is null");
+        this.encodingNameSize = getEncodingNameSize(encodingName);
+        this.valueSize = valueSize;
+        this.values = new DynamicSliceOutput(INITIAL_CAPACITY * valueSize);
+    }
+
+    @Override
+    public long append(DecodedBlock decodedBlock, int[] positions, int offset, int length)
+    {
+        Block block = decodedBlock.getBlock();
+        ensureCapacity(positionCount + length);
+
+        if (block.mayHaveNull()) {
+            for (int i = 0; i < length; i++) {
+                int position = positions[offset + i];
+                if (block.isNull(position)) {
+                    nulls[positionCount + i] = true;
+                    hasNull = true;
+                }
+                else {
+                    writeValue(block, position);
+                    hasNonNull = true;
+                }
+            }
+        }
+        else {
+            switch (valueSize) {
+                case Long.BYTES:
+                    for (int i = 0; i < length; i++) {
+                        values.writeLong(block.getLong(positions[offset + i], 0));
+                    }
+                    break;
+                case Integer.BYTES:
+                    for (int i = 0; i < length; i++) {
+                        values.writeInt(block.getInt(positions[offset + i], 0));
+                    }
+                    break;
+                default:
+                    for (int i = 0; i < length; i++) {
+                        writeValue(block, positions[offset + i]);
+                    }
+            }
+            hasNonNull |= length > 0;
+        }
+        positionCount += length;
+        return (valueSize + Byte.BYTES) * (long) length;
+    }
+
+    private void writeValue(Block block, int position)
+    {
+        switch (valueSize) {
+            case Long.BYTES:
+                values.writeLong(block.getLong(position, 0));
+                break;
+            case Integer.BYTES:
+                values.writeInt(block.getInt(position, 0));
+                break;
+            case Short.BYTES:
+                values.writeShort(block.getShort(position, 0));
+                break;
+            case Byte.BYTES:
+                values.writeByte(block.getByte(position, 0));
+                break;
+            default:
+                throw new IllegalStateException("Unsupported value size: " + valueSize);
+        }
+    }
+
+    @Override
+    public void writeTo(SliceOutput output)
+    {
+        if (positionCount > 0 && !hasNonNull) {
+            // like the block builders, write a column of nulls as a run of a single null
+            writeEncodingName(output, RunLengthBlockEncoding.NAME);
+            output.writeInt(positionCount);
+            writeEncodingName(output, encodingName);
+            output.appendInt(1);
+            writeNulls(output, new boolean[] {true}, true, 1);
+            return;
+        }
+
+        writeEncodingName(output, encodingName);
+        output.appendInt(positionCount);
+        writeNulls(output, nulls, hasNull, positionCount);
+        output.writeBytes(values.slice());
+    }
+
+    @Override
+    public long getSizeInBytes()
+    {
+        if (positionCount > 0 && !hasNonNull) {
+            return valueSize + Byte.BYTES;
+        }
+        return (valueSize + Byte.BYTES) * (long) positionCount;
+    }
+
+    @Override
+    public long getSerializedSizeInBytes()
+    {
+        if (positionCount > 0 && !hasNonNull) {
+            return RUN_LENGTH_ENCODING_NAME_SIZE + Integer.BYTES + encodingNameSize + Integer.BYTES + getNullsSize(true, 1);
+        }
+        return encodingNameSize + Integer.BYTES + getNullsSize(hasNull, positionCount) + values.size();
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(nulls) + values.getRetainedSize();
+    }
+
+    @Override
+    public void reset()
+    {
+        if (hasNull) {
+            Arrays.fill(nulls, 0, positionCount, false);
+        }
+        values.reset();
+        hasNull = false;
+        hasNonNull = false;
+        positionCount = 0;
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (nulls.length < capacity) {
+            nulls = Arrays.copyOf(nulls, Math.max(capacity, nulls.length * 2));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.repartition;
+
+import io.airlift.slice.SliceOutput;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.ColumnarRow;
+import io.prestosql.spi.block.RowBlockEncoding;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.prestosql.operator.repartition.ColumnWriter.getEncodingNameSize;
+import static io.prestosql.operator.repartition.ColumnWriter.getNullsSize;
+import static io.prestosql.operator.repartition.ColumnWriter.writeEncodingName;
+import static io.prestosql.operator.repartition.ColumnWriter.writeNulls;
+import static io.prestosql.spi.block.ColumnarRow.toColumnarRow;
+
+/**
+ * Writes values of the ROW encoding. Null rows have no entry in the field columns.
+ */
+class RowColumnWriter
+        implements ColumnWriter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(RowColumnWriter.class).instanceSize();
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ENCODING_NAME_SIZE = getEncodingNameSize(RowBlockEncoding.NAME);
+
+    private final ColumnWriter[] fieldWriters;
+
+    // offsets[i] is the number of non null rows before row i
+    private int[] offsets = new int[INITIAL_CAPACITY + 1];
+    private boolean[] nulls = new boolean[INITIAL_CAPACITY];
+    private boolean hasNull;
+    private int positionCount;
+    private int[] fieldPositions = new int[0];
+
+    public RowColumnWriter(List<ColumnWriter> fieldWriters)
+    {
+        this.fieldWriters = fieldWriters.toArray(new ColumnWriter[0]);
+    }
+
+    @Override
+    public DecodedBlock decode(Block block)
+    {
+        ColumnarRow columnarRow = toColumnarRow(block);
+        DecodedBlock[] fields = new DecodedBlock[fieldWriters.length];
+        for (int field = 0; field < fieldWriters.length; field++) {
+            fields[field] = fieldWriters[field].decode(columnarRow.getField(field));
+        }
+
+        // the fields of a columnar row only have entries for the non null rows
+        int[] fieldPositions = null;
+        if (block.mayHaveNull()) {
+            int positionCount = block.getPositionCount();
+            fieldPositions = new int[positionCount];
+            int nonNullRows = 0;
+            for (int position = 0; position < positionCount; position++) {
+                fieldPositions[position] = columnarRow.isNull(position) ? -1 : nonNullRows++;
+            }
+            if (nonNullRows == positionCount) {
+                fieldPositions = null;
+            }
+        }
+        return new DecodedBlock(block, fields, fieldPositions);
+    }
+
+    @Override
+    public long append(DecodedBlock block, int[] positions, int offset, int length)
+    {
+        ensureCapacity(positionCount + length);
+        if (fieldPositions.length < length) {
+            fieldPositions = new int[length];
+        }
+
+        int[] rowFieldPositions = block.getFieldPositions();
+        int fieldPositionCount = 0;
+        if (rowFieldPositions == null) {
+            for (int i = 0; i < length; i++) {
+                fieldPositions[i] = positions[offset + i];
+                offsets[positionCount + i + 1] = offsets[positionCount + i] + 1;
+            }
+            fieldPositionCount = length;
+        }
+        else {
+            for (int i = 0; i < length; i++) {
+                int fieldPosition = rowFieldPositions[positions[offset + i]];
+                int rowOffset = offsets[positionCount + i];
+                if (fieldPosition < 0) {
+                    nulls[positionCount + i] = true;
+                    hasNull = true;
+                    offsets[positionCount + i + 1] = rowOffset;
+                }
+                else {
+                    fieldPositions[fieldPositionCount++] = fieldPosition;
+                    offsets[positionCount + i + 1] = rowOffset + 1;
+                }
+            }
+        }
+
+        long sizeInBytes = (Integer.BYTES + Byte.BYTES) * (long) length;
+        for (int field = 0; field < fieldWriters.length; field++) {
+            sizeInBytes += fieldWriters[field].append(block.getField(field), fieldPositions, 0, fieldPositionCount);
+        }
+        positionCount += length;
+        return sizeInBytes;
+    }
+
+    @Override
+    public void writeTo(SliceOutput output)
+    {
+        writeEncodingName(output, RowBlockEncoding.NAME);
+        output.appendInt(fieldWriters.length);
+        for (ColumnWriter fieldWriter : fieldWriters) {
+            fieldWriter.writeTo(output);
+        }
+        output.appendInt(positionCount);
+        for (int position = 0; position <= positionCount; position++) {
+            output.appendInt(offsets[position]);
+        }
+        writeNulls(output, nulls, hasNull, positionCount);
+    }
+
+    @Override
+    public long getSizeInBytes()
+    {
+        long sizeInBytes = (Integer.BYTES + Byte.BYTES) * (long) positionCount;
+        for (ColumnWriter fieldWriter : fieldWriters) {
+            sizeInBytes += fieldWriter.getSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    @Override
+    public long getSerializedSizeInBytes()
+    {
+        long sizeInBytes = ENCODING_NAME_SIZE + Integer.BYTES + Integer.BYTES + Integer.BYTES * (positionCount + 1L) + getNullsSize(hasNull, positionCount);
+        for (ColumnWriter fieldWriter : fieldWriters) {
+            sizeInBytes += fieldWriter.getSerializedSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = INSTANCE_SIZE + sizeOf(offsets) + sizeOf(nulls) + sizeOf(fieldPositions);
+        for (ColumnWriter fieldWriter : fieldWriters) {
+            retainedSizeInBytes += fieldWriter.getRetainedSizeInBytes();
+        }
+        return retainedSizeInBytes;
+    }
+
+    @Override
+    public void reset()
+    {
+        if (hasNull) {
+            Arrays.fill(nulls, 0, positionCount, false);
+        }
+        for (ColumnWriter fieldWriter : fieldWriters) {
+            fieldWriter.reset();
+        }
+        hasNull = false;
+        positionCount = 0;
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (nulls.length < capacity) {
+            int newCapacity = Math.max(capacity, nulls.length * 2);
+            offsets = Arrays.copyOf(offsets, newCapacity + 1);
+            nulls = Arrays.copyOf(nulls, newCapacity);
+        }
+    }
+}
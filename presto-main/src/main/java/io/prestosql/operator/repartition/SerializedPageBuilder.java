@@ -0,0 +1,195 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.repartition;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.prestosql.execution.buffer.AdaptiveCompression;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.BlockEncodingSerde;
+import io.prestosql.spi.block.ByteArrayBlockBuilder;
+import io.prestosql.spi.block.ByteArrayBlockEncoding;
+import io.prestosql.spi.block.IntArrayBlockBuilder;
+import io.prestosql.spi.block.IntArrayBlockEncoding;
+import io.prestosql.spi.block.LongArrayBlockBuilder;
+import io.prestosql.spi.block.LongArrayBlockEncoding;
+import io.prestosql.spi.block.RowBlockBuilder;
+import io.prestosql.spi.block.ShortArrayBlockBuilder;
+import io.prestosql.spi.block.ShortArrayBlockEncoding;
+import io.prestosql.spi.block.VariableWidthBlockBuilder;
+import io.prestosql.spi.type.RowType;
+import io.prestosql.spi.type.Type;
+import org.openjdk.jol.info.ClassLayout;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Builds a page from positions of other pages a column at a time, writing the values directly in
+ * the serialized form of their block encodings instead of copying them into blocks first.
+ */
+@NotThreadSafe
+public class SerializedPageBuilder
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(SerializedPageBuilder.class).instanceSize();
+
+    private final ColumnWriter[] columnWriters;
+    // each partition decides on its own whether its pages are worth compressing
+    private final AdaptiveCompression compression = new AdaptiveCompression();
+    private int positionCount;
+    private long bufferedSizeInBytes;
+
+    public SerializedPageBuilder(List<Type> types, BlockEncodingSerde blockEncodingSerde)
+    {
+        requireNonNull(types, "types is null");
+        requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+        this.columnWriters = types.stream()
+                .map(type -> createColumnWriter(type, blockEncodingSerde))
+                .toArray(ColumnWriter[]::new);
+    }
+
+    /**
+     * Prepares a page for {@link #appendPositions(DecodedPage, int[], int, int)}. The result can be
+     * appended to any builder of the same types.
+     */
+    public DecodedPage decode(Page page)
+    {
+        checkArgument(page.getChannelCount() == columnWriters.length, "Expected %s channels, but page has %s", columnWriters.length, page.getChannelCount());
+        DecodedBlock[] blocks = new DecodedBlock[columnWriters.length];
+        for (int channel = 0; channel < columnWriters.length; channel++) {
+            blocks[channel] = columnWriters[channel].decode(page.getBlock(channel));
+        }
+        return new DecodedPage(blocks, page.getPositionCount());
+    }
+
+    /**
+     * Appends the rows at the given positions of the page. The positions must be increasing.
+     */
+    public void appendPositions(Page page, int[] positions, int offset, int length)
+    {
+        appendPositions(decode(page), positions, offset, length);
+    }
+
+    /**
+     * Appends the rows at the given positions of the decoded page. The positions must be increasing.
+     */
+    public void appendPositions(DecodedPage page, int[] positions, int offset, int length)
+    {
+        checkArgument(page.getChannelCount() == columnWriters.length, "Expected %s channels, but page has %s", columnWriters.length, page.getChannelCount());
+        for (int channel = 0; channel < columnWriters.length; channel++) {
+            bufferedSizeInBytes += columnWriters[channel].append(page.getBlock(channel), positions, offset, length);
+        }
+        positionCount += length;
+    }
+
+    public boolean isEmpty()
+    {
+        return positionCount == 0;
+    }
+
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    /**
+     * Size of the page the appended rows would make, as reported by {@link Page#getSizeInBytes()}.
+     */
+    public long getSizeInBytes()
+    {
+        long sizeInBytes = 0;
+        for (ColumnWriter columnWriter : columnWriters) {
+            sizeInBytes += columnWriter.getSizeInBytes();
+        }
+        return sizeInBytes;
+    }
+
+    /**
+     * Size of the appended rows as a {@link io.prestosql.spi.PageBuilder} holding them would report it.
+     * This is what decides when the page is full, so pages are cut at the same sizes as built pages are.
+     */
+    public long getBufferedSizeInBytes()
+    {
+        return bufferedSizeInBytes;
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        long retainedSizeInBytes = INSTANCE_SIZE;
+        for (ColumnWriter columnWriter : columnWriters) {
+            retainedSizeInBytes += columnWriter.getRetainedSizeInBytes();
+        }
+        return retainedSizeInBytes;
+    }
+
+    /**
+     * Serializes the appended rows and resets the builder.
+     */
+    public SerializedPage build(PagesSerde serde)
+    {
+        checkState(!isEmpty(), "page is empty");
+
+        long serializedSizeInBytes = Integer.BYTES;
+        for (ColumnWriter columnWriter : columnWriters) {
+            serializedSizeInBytes += columnWriter.getSerializedSizeInBytes();
+        }
+        DynamicSliceOutput output = new DynamicSliceOutput(toIntExact(serializedSizeInBytes));
+        output.writeInt(columnWriters.length);
+        for (ColumnWriter columnWriter : columnWriters) {
+            columnWriter.writeTo(output);
+            columnWriter.reset();
+        }
+        SerializedPage page = serde.serialize(output.slice(), positionCount, compression);
+        positionCount = 0;
+        bufferedSizeInBytes = 0;
+        return page;
+    }
+
+    private static ColumnWriter createColumnWriter(Type type, BlockEncodingSerde blockEncodingSerde)
+    {
+        // pick the writer by the block the type builds, so that the values are read back the same way
+        BlockBuilder blockBuilder = type.createBlockBuilder(null, 0);
+        if (blockBuilder instanceof LongArrayBlockBuilder) {
+            return new FixedWidthColumnWriter(LongArrayBlockEncoding.NAME, Long.BYTES);
+        }
+        if (blockBuilder instanceof IntArrayBlockBuilder) {
+            return new FixedWidthColumnWriter(IntArrayBlockEncoding.NAME, Integer.BYTES);
+        }
+        if (blockBuilder instanceof ShortArrayBlockBuilder) {
+            return new FixedWidthColumnWriter(ShortArrayBlockEncoding.NAME, Short.BYTES);
+        }
+        if (blockBuilder instanceof ByteArrayBlockBuilder) {
+            return new FixedWidthColumnWriter(ByteArrayBlockEncoding.NAME, Byte.BYTES);
+        }
+        if (blockBuilder instanceof VariableWidthBlockBuilder) {
+            return new VariableWidthColumnWriter();
+        }
+        if (type instanceof RowType && blockBuilder instanceof RowBlockBuilder) {
+            List<ColumnWriter> fieldWriters = type.getTypeParameters().stream()
+                    .map(fieldType -> createColumnWriter(fieldType, blockEncodingSerde))
+                    .collect(toImmutableList());
+            return new RowColumnWriter(fieldWriters);
+        }
+        return new BlockBuilderColumnWriter(type, blockEncodingSerde);
+    }
+}
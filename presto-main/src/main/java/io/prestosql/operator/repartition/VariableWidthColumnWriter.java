@@ -0,0 +1,121 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.repartition;
+
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.SliceOutput;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.VariableWidthBlockEncoding;
+import org.openjdk.jol.info.ClassLayout;
+
+import java.util.Arrays;
+
+import static io.airlift.slice.SizeOf.sizeOf;
+import static io.prestosql.operator.repartition.ColumnWriter.getEncodingNameSize;
+import static io.prestosql.operator.repartition.ColumnWriter.getNullsSize;
+import static io.prestosql.operator.repartition.ColumnWriter.writeEncodingName;
+import static io.prestosql.operator.repartition.ColumnWriter.writeNulls;
+
+/**
+ * Writes values of the VARIABLE_WIDTH encoding.
+ */
+class VariableWidthColumnWriter
+        implements ColumnWriter
+{
+    private static final int INSTANCE_SIZE = ClassLayout.parseClass(VariableWidthColumnWriter.class).instanceSize();
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int ENCODING_NAME_SIZE = getEncodingNameSize(VariableWidthBlockEncoding.NAME);
+
+    private final DynamicSliceOutput bytes = new DynamicSliceOutput(INITIAL_CAPACITY * 16);
+
+    // the end offset of each value in bytes
+    private int[] offsets = new int[INITIAL_CAPACITY];
+    private boolean[] nulls = new boolean[INITIAL_CAPACITY];
+    private boolean hasNull;
+    private int positionCount;
+
+    @Override
+    public long append(DecodedBlock decodedBlock, int[] positions, int offset, int length)
+    {
+        Block block = decodedBlock.getBlock();
+        ensureCapacity(positionCount + length);
+        int initialSize = bytes.size();
+
+        boolean mayHaveNull = block.mayHaveNull();
+        for (int i = 0; i < length; i++) {
+            int position = positions[offset + i];
+            if (mayHaveNull && block.isNull(position)) {
+                nulls[positionCount + i] = true;
+                hasNull = true;
+            }
+            else {
+                bytes.writeBytes(block.getSlice(position, 0, block.getSliceLength(position)));
+            }
+            offsets[positionCount + i] = bytes.size();
+        }
+        positionCount += length;
+        return bytes.size() - initialSize + (Integer.BYTES + Byte.BYTES) * (long) length;
+    }
+
+    @Override
+    public void writeTo(SliceOutput output)
+    {
+        writeEncodingName(output, VariableWidthBlockEncoding.NAME);
+        output.appendInt(positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            output.appendInt(offsets[position]);
+        }
+        writeNulls(output, nulls, hasNull, positionCount);
+        output.appendInt(bytes.size());
+        output.writeBytes(bytes.slice());
+    }
+
+    @Override
+    public long getSizeInBytes()
+    {
+        return bytes.size() + (Integer.BYTES + Byte.BYTES) * (long) positionCount;
+    }
+
+    @Override
+    public long getSerializedSizeInBytes()
+    {
+        return ENCODING_NAME_SIZE + Integer.BYTES + Integer.BYTES * (long) positionCount + getNullsSize(hasNull, positionCount) + Integer.BYTES + bytes.size();
+    }
+
+    @Override
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE + sizeOf(offsets) + sizeOf(nulls) + bytes.getRetainedSize();
+    }
+
+    @Override
+    public void reset()
+    {
+        if (hasNull) {
+            Arrays.fill(nulls, 0, positionCount, false);
+        }
+        bytes.reset();
+        hasNull = false;
+        positionCount = 0;
+    }
+
+    private void ensureCapacity(int capacity)
+    {
+        if (offsets.length < capacity) {
+            int newCapacity = Math.max(capacity, offsets.length * 2);
+            offsets = Arrays.copyOf(offsets, newCapacity);
+            nulls = Arrays.copyOf(nulls, newCapacity);
+        }
+    }
+}
@@ -45,6 +45,7 @@ import io.prestosql.execution.CallTask;
 import io.prestosql.execution.ClusterSizeMonitor;
 import io.prestosql.execution.CommentTask;
 import io.prestosql.execution.CommitTask;
+import io.prestosql.execution.CreateMaterializedViewTask;
 import io.prestosql.execution.CreateRoleTask;
 import io.prestosql.execution.CreateSchemaTask;
 import io.prestosql.execution.CreateTableTask;
@@ -52,6 +53,7 @@ import io.prestosql.execution.CreateViewTask;
 import io.prestosql.execution.DataDefinitionTask;
 import io.prestosql.execution.DeallocateTask;
 import io.prestosql.execution.DropColumnTask;
+import io.prestosql.execution.DropMaterializedViewTask;
 import io.prestosql.execution.DropRoleTask;
 import io.prestosql.execution.DropSchemaTask;
 import io.prestosql.execution.DropTableTask;
@@ -84,9 +86,11 @@ import io.prestosql.execution.StartTransactionTask;
 import io.prestosql.execution.TaskInfo;
 import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.UseTask;
+import io.prestosql.execution.plancache.PlanCache;
 import io.prestosql.execution.resourcegroups.InternalResourceGroupManager;
 import io.prestosql.execution.resourcegroups.LegacyResourceGroupConfigurationManager;
 import io.prestosql.execution.resourcegroups.ResourceGroupManager;
+import io.prestosql.execution.resultcache.QueryResultCache;
 import io.prestosql.execution.scheduler.AllAtOnceExecutionPolicy;
 import io.prestosql.execution.scheduler.ExecutionPolicy;
 import io.prestosql.execution.scheduler.PhasedExecutionPolicy;
@@ -113,12 +117,14 @@ import io.prestosql.sql.tree.AddColumn;
 import io.prestosql.sql.tree.Call;
 import io.prestosql.sql.tree.Comment;
 import io.prestosql.sql.tree.Commit;
+import io.prestosql.sql.tree.CreateMaterializedView;
 import io.prestosql.sql.tree.CreateRole;
 import io.prestosql.sql.tree.CreateSchema;
 import io.prestosql.sql.tree.CreateTable;
 import io.prestosql.sql.tree.CreateView;
 import io.prestosql.sql.tree.Deallocate;
 import io.prestosql.sql.tree.DropColumn;
+import io.prestosql.sql.tree.DropMaterializedView;
 import io.prestosql.sql.tree.DropRole;
 import io.prestosql.sql.tree.DropSchema;
 import io.prestosql.sql.tree.DropTable;
@@ -307,6 +313,15 @@ public class CoordinatorModule
         binder.bind(SplitSchedulerStats.class).in(Scopes.SINGLETON);
         newExporter(binder).export(SplitSchedulerStats.class).withGeneratedName();
         binder.bind(SqlQueryExecutionFactory.class).in(Scopes.SINGLETON);
+
+        // query result cache
+        binder.bind(QueryResultCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(QueryResultCache.class).withGeneratedName();
+
+        // plan cache
+        binder.bind(PlanCache.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(PlanCache.class).withGeneratedName();
+
         getAllQueryTypes().entrySet().stream()
                 .filter(entry -> entry.getValue() != QueryType.DATA_DEFINITION)
                 .forEach(entry -> executionBinder.addBinding(entry.getKey()).to(SqlQueryExecutionFactory.class).in(Scopes.SINGLETON));
@@ -324,6 +339,8 @@ public class CoordinatorModule
         bindDataDefinitionTask(binder, executionBinder, DropTable.class, DropTableTask.class);
         bindDataDefinitionTask(binder, executionBinder, CreateView.class, CreateViewTask.class);
         bindDataDefinitionTask(binder, executionBinder, DropView.class, DropViewTask.class);
+        bindDataDefinitionTask(binder, executionBinder, CreateMaterializedView.class, CreateMaterializedViewTask.class);
+        bindDataDefinitionTask(binder, executionBinder, DropMaterializedView.class, DropMaterializedViewTask.class);
         bindDataDefinitionTask(binder, executionBinder, Use.class, UseTask.class);
         bindDataDefinitionTask(binder, executionBinder, SetSession.class, SetSessionTask.class);
         bindDataDefinitionTask(binder, executionBinder, ResetSession.class, ResetSessionTask.class);
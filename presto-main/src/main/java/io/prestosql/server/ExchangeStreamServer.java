@@ -0,0 +1,318 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.http.server.HttpServerInfo;
+import io.airlift.log.Logger;
+import io.airlift.node.NodeInfo;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.TaskManager;
+import io.prestosql.execution.buffer.BufferResult;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.operator.ExchangeClientConfig;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.AsynchronousServerSocketChannel;
+import java.nio.channels.AsynchronousSocketChannel;
+import java.nio.channels.CompletionHandler;
+import java.util.Objects;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.addTimeout;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.prestosql.operator.ExchangeClientConfig.ExchangeTransport.STREAMING;
+import static io.prestosql.operator.ExchangeStreamProtocol.ACCEPTED;
+import static io.prestosql.operator.ExchangeStreamProtocol.CLOSE;
+import static io.prestosql.operator.ExchangeStreamProtocol.CLOSED;
+import static io.prestosql.operator.ExchangeStreamProtocol.FAILED;
+import static io.prestosql.operator.ExchangeStreamProtocol.MAX_CONTROL_FRAME_SIZE;
+import static io.prestosql.operator.ExchangeStreamProtocol.OPEN;
+import static io.prestosql.operator.ExchangeStreamProtocol.POLL;
+import static io.prestosql.operator.ExchangeStreamProtocol.REJECTED;
+import static io.prestosql.operator.ExchangeStreamProtocol.VERSION;
+import static io.prestosql.operator.ExchangeStreamProtocol.allocateFrameHeader;
+import static io.prestosql.operator.ExchangeStreamProtocol.emptyFrame;
+import static io.prestosql.operator.ExchangeStreamProtocol.messageFrame;
+import static io.prestosql.operator.ExchangeStreamProtocol.readFully;
+import static io.prestosql.operator.ExchangeStreamProtocol.readString;
+import static io.prestosql.operator.ExchangeStreamProtocol.resultsFrame;
+import static io.prestosql.operator.ExchangeStreamProtocol.writeFully;
+import static java.lang.String.format;
+import static java.net.StandardSocketOptions.TCP_NODELAY;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+/**
+ * Serves the output buffers of the tasks on this node over the streaming exchange transport.
+ * Each connection serves a single output buffer, see {@link io.prestosql.operator.ExchangeStreamProtocol}.
+ */
+public class ExchangeStreamServer
+{
+    private static final Logger log = Logger.get(ExchangeStreamServer.class);
+
+    private static final Duration MAX_WAIT_TIME = new Duration(2, SECONDS);
+    // a client holds on to its connection while its exchange buffer is full
+    private static final Duration NO_TIMEOUT = new Duration(0, SECONDS);
+    private static final Pattern RESULTS_PATH = Pattern.compile("/v1/task/([^/]+)/results/(\\d+)");
+
+    private final boolean enabled;
+    private final String address;
+    private final int port;
+    private final TaskManager taskManager;
+    private final HttpServerInfo httpServerInfo;
+    private final ScheduledExecutorService timeoutExecutor;
+
+    @GuardedBy("this")
+    private AsynchronousChannelGroup channelGroup;
+    @GuardedBy("this")
+    private AsynchronousServerSocketChannel serverChannel;
+
+    @Inject
+    public ExchangeStreamServer(
+            ExchangeClientConfig config,
+            NodeInfo nodeInfo,
+            TaskManager taskManager,
+            HttpServerInfo httpServerInfo,
+            @ForAsyncHttp ScheduledExecutorService timeoutExecutor)
+    {
+        requireNonNull(config, "config is null");
+        this.enabled = config.getTransport() == STREAMING;
+        // the transport has neither TLS nor authentication, so it is only served on the internal network
+        this.address = requireNonNull(nodeInfo, "nodeInfo is null").getInternalAddress();
+        this.port = config.getStreamingPort();
+        this.taskManager = requireNonNull(taskManager, "taskManager is null");
+        this.httpServerInfo = requireNonNull(httpServerInfo, "httpServerInfo is null");
+        this.timeoutExecutor = requireNonNull(timeoutExecutor, "timeoutExecutor is null");
+    }
+
+    @PostConstruct
+    public synchronized void start()
+            throws IOException
+    {
+        if (!enabled) {
+            return;
+        }
+        channelGroup = AsynchronousChannelGroup.withFixedThreadPool(Runtime.getRuntime().availableProcessors(), daemonThreadsNamed("exchange-stream-server-%s"));
+        serverChannel = AsynchronousServerSocketChannel.open(channelGroup);
+        try {
+            serverChannel.bind(new InetSocketAddress(address, port));
+        }
+        catch (IOException e) {
+            // remote clients fall back to HTTP when they cannot connect
+            log.warn("Cannot serve streaming exchange on %s:%s, output buffers are served over HTTP only: %s", address, port, e.getMessage());
+            stop();
+            return;
+        }
+        acceptNext(serverChannel);
+    }
+
+    @PreDestroy
+    public synchronized void stop()
+    {
+        if (serverChannel != null) {
+            try {
+                serverChannel.close();
+            }
+            catch (IOException ignored) {
+            }
+            serverChannel = null;
+        }
+        if (channelGroup != null) {
+            channelGroup.shutdown();
+            channelGroup = null;
+        }
+    }
+
+    private void acceptNext(AsynchronousServerSocketChannel serverChannel)
+    {
+        serverChannel.accept(null, new CompletionHandler<AsynchronousSocketChannel, Void>()
+        {
+            @Override
+            public void completed(AsynchronousSocketChannel channel, Void attachment)
+            {
+                acceptNext(serverChannel);
+                try {
+                    channel.setOption(TCP_NODELAY, true);
+                }
+                catch (IOException e) {
+                    closeQuietly(channel);
+                    return;
+                }
+                new Connection(channel).readFrame();
+            }
+
+            @Override
+            public void failed(Throwable exc, Void attachment)
+            {
+                if (serverChannel.isOpen()) {
+                    log.debug(exc, "Accepting streaming exchange connection failed");
+                    acceptNext(serverChannel);
+                }
+            }
+        });
+    }
+
+    private static void closeQuietly(AsynchronousSocketChannel channel)
+    {
+        try {
+            channel.close();
+        }
+        catch (IOException ignored) {
+        }
+    }
+
+    private class Connection
+    {
+        private final AsynchronousSocketChannel channel;
+        private TaskId taskId;
+        private OutputBufferId bufferId;
+
+        public Connection(AsynchronousSocketChannel channel)
+        {
+            this.channel = requireNonNull(channel, "channel is null");
+        }
+
+        public void readFrame()
+        {
+            ListenableFuture<ByteBuffer> frame = Futures.transformAsync(readFully(channel, allocateFrameHeader(), NO_TIMEOUT), header -> {
+                byte type = header.get();
+                int length = header.getInt();
+                if (length > MAX_CONTROL_FRAME_SIZE) {
+                    throw new IOException(format("Frame of %s bytes exceeds maximum of %s bytes", length, MAX_CONTROL_FRAME_SIZE));
+                }
+                ByteBuffer body = ByteBuffer.allocate(Byte.BYTES + length).order(LITTLE_ENDIAN);
+                body.put(type);
+                return Futures.transform(readFully(channel, body, NO_TIMEOUT), ignored -> {
+                    body.position(0);
+                    return body;
+                }, directExecutor());
+            }, directExecutor());
+
+            ListenableFuture<Boolean> processed = Futures.transformAsync(frame, this::process, directExecutor());
+            Futures.addCallback(processed, new FutureCallback<Boolean>()
+            {
+                @Override
+                public void onSuccess(Boolean keepOpen)
+                {
+                    if (keepOpen) {
+                        readFrame();
+                    }
+                    else {
+                        closeQuietly(channel);
+                    }
+                }
+
+                @Override
+                public void onFailure(Throwable t)
+                {
+                    // the client reconnects if the failure was transient
+                    log.debug(t, "Streaming exchange connection failed");
+                    closeQuietly(channel);
+                }
+            }, directExecutor());
+        }
+
+        private ListenableFuture<Boolean> process(ByteBuffer frame)
+        {
+            byte type = frame.get();
+            try {
+                switch (type) {
+                    case OPEN:
+                        return open(frame);
+                    case POLL:
+                        return sendResults(frame.getLong(), new DataSize(frame.getLong(), BYTE));
+                    case CLOSE:
+                        checkOpened();
+                        taskManager.abortTaskResults(taskId, bufferId);
+                        return reply(true, emptyFrame(CLOSED));
+                    default:
+                        throw new IllegalArgumentException(format("Unexpected frame %s", type));
+                }
+            }
+            catch (RuntimeException e) {
+                return reply(false, messageFrame(FAILED, Objects.toString(e.getMessage(), e.toString())));
+            }
+        }
+
+        private ListenableFuture<Boolean> open(ByteBuffer frame)
+        {
+            int version = frame.getInt();
+            URI location = URI.create(readString(frame));
+            if (version != VERSION) {
+                return reply(false, messageFrame(REJECTED, format("Unsupported protocol version %s", version)));
+            }
+            // a node that does not own this port, but shares the host with the node that does, rejects
+            // the buffers of the other node instead of creating phantom tasks for them
+            Matcher matcher = RESULTS_PATH.matcher(location.getPath());
+            if (!isLocalPort(location.getPort()) || !matcher.matches()) {
+                return reply(false, messageFrame(REJECTED, format("Output buffer %s is not served by this node", location)));
+            }
+            taskId = TaskId.valueOf(matcher.group(1));
+            bufferId = OutputBufferId.fromString(matcher.group(2));
+            return reply(true, emptyFrame(ACCEPTED));
+        }
+
+        private ListenableFuture<Boolean> sendResults(long token, DataSize maxSize)
+        {
+            checkOpened();
+            ListenableFuture<BufferResult> bufferResult = addTimeout(
+                    taskManager.getTaskResults(taskId, bufferId, token, maxSize),
+                    () -> BufferResult.emptyResults(taskManager.getTaskInstanceId(taskId), token, false),
+                    MAX_WAIT_TIME,
+                    timeoutExecutor);
+            return Futures.transformAsync(bufferResult, result -> {
+                ByteBuffer[] buffers = resultsFrame(result.getTaskInstanceId(), result.getToken(), result.getNextToken(), result.isBufferComplete(), result.getSerializedPages());
+                return Futures.transform(writeFully(channel, buffers), ignored -> true, directExecutor());
+            }, directExecutor());
+        }
+
+        private ListenableFuture<Boolean> reply(boolean keepOpen, ByteBuffer frame)
+        {
+            return Futures.transform(writeFully(channel, frame), ignored -> keepOpen, directExecutor());
+        }
+
+        private void checkOpened()
+        {
+            if (taskId == null) {
+                throw new IllegalStateException("Connection is not open");
+            }
+        }
+    }
+
+    private boolean isLocalPort(int port)
+    {
+        URI httpUri = httpServerInfo.getHttpUri();
+        URI httpsUri = httpServerInfo.getHttpsUri();
+        return (httpUri != null && httpUri.getPort() == port) || (httpsUri != null && httpsUri.getPort() == port);
+    }
+}
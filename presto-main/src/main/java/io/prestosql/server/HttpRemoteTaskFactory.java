@@ -13,6 +13,7 @@
  */
 package io.prestosql.server;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Multimap;
 import io.airlift.concurrent.BoundedExecutor;
 import io.airlift.concurrent.ThreadPoolExecutorMBean;
@@ -35,6 +36,7 @@ import io.prestosql.metadata.Split;
 import io.prestosql.operator.ForScheduler;
 import io.prestosql.server.remotetask.HttpRemoteTask;
 import io.prestosql.server.remotetask.RemoteTaskStats;
+import io.prestosql.server.remotetask.TaskCodec;
 import io.prestosql.sql.planner.PlanFragment;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import org.weakref.jmx.Managed;
@@ -50,6 +52,9 @@ import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.prestosql.server.SmileCodec.smileCodec;
+import static io.prestosql.server.remotetask.TaskCodec.jsonTaskCodec;
+import static io.prestosql.server.remotetask.TaskCodec.smileTaskCodec;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newSingleThreadScheduledExecutor;
@@ -59,9 +64,9 @@ public class HttpRemoteTaskFactory
 {
     private final HttpClient httpClient;
     private final LocationFactory locationFactory;
-    private final JsonCodec<TaskStatus> taskStatusCodec;
-    private final JsonCodec<TaskInfo> taskInfoCodec;
-    private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
+    private final TaskCodec<TaskStatus> taskStatusCodec;
+    private final TaskCodec<TaskInfo> taskInfoCodec;
+    private final TaskCodec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final Duration maxErrorDuration;
     private final Duration taskStatusRefreshMaxWait;
     private final Duration taskInfoUpdateInterval;
@@ -80,13 +85,23 @@ public class HttpRemoteTaskFactory
             JsonCodec<TaskStatus> taskStatusCodec,
             JsonCodec<TaskInfo> taskInfoCodec,
             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+            ObjectMapper objectMapper,
+            InternalCommunicationConfig internalCommunicationConfig,
             RemoteTaskStats stats)
     {
         this.httpClient = httpClient;
         this.locationFactory = locationFactory;
-        this.taskStatusCodec = taskStatusCodec;
-        this.taskInfoCodec = taskInfoCodec;
-        this.taskUpdateRequestCodec = taskUpdateRequestCodec;
+        if (internalCommunicationConfig.isSmileEnabled()) {
+            // the Smile codecs share the serializers of the JSON codecs
+            this.taskStatusCodec = smileTaskCodec(taskStatusCodec, smileCodec(objectMapper, TaskStatus.class));
+            this.taskInfoCodec = smileTaskCodec(taskInfoCodec, smileCodec(objectMapper, TaskInfo.class));
+            this.taskUpdateRequestCodec = smileTaskCodec(taskUpdateRequestCodec, smileCodec(objectMapper, TaskUpdateRequest.class));
+        }
+        else {
+            this.taskStatusCodec = jsonTaskCodec(taskStatusCodec);
+            this.taskInfoCodec = jsonTaskCodec(taskInfoCodec);
+            this.taskUpdateRequestCodec = jsonTaskCodec(taskUpdateRequestCodec);
+        }
         this.maxErrorDuration = config.getRemoteTaskMaxErrorDuration();
         this.taskStatusRefreshMaxWait = taskConfig.getStatusRefreshMaxWait();
         this.taskInfoUpdateInterval = taskConfig.getInfoUpdateInterval();
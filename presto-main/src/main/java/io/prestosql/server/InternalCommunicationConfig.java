@@ -14,10 +14,12 @@
 package io.prestosql.server;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.ConfigSecuritySensitive;
 
 public class InternalCommunicationConfig
 {
+    public static final String INTERNAL_COMMUNICATION_HTTPS_REQUIRED = "internal-communication.https.required";
     public static final String INTERNAL_COMMUNICATION_KERBEROS_ENABLED = "internal-communication.kerberos.enabled";
 
     private boolean httpsRequired;
@@ -27,13 +29,14 @@ public class InternalCommunicationConfig
     private String trustStorePassword;
     private boolean kerberosEnabled;
     private boolean kerberosUseCanonicalHostname = true;
+    private boolean smileEnabled;
 
     public boolean isHttpsRequired()
     {
         return httpsRequired;
     }
 
-    @Config("internal-communication.https.required")
+    @Config(INTERNAL_COMMUNICATION_HTTPS_REQUIRED)
     public InternalCommunicationConfig setHttpsRequired(boolean httpsRequired)
     {
         this.httpsRequired = httpsRequired;
@@ -113,4 +116,17 @@ public class InternalCommunicationConfig
         this.kerberosUseCanonicalHostname = kerberosUseCanonicalHostname;
         return this;
     }
+
+    public boolean isSmileEnabled()
+    {
+        return smileEnabled;
+    }
+
+    @Config("internal-communication.smile.enabled")
+    @ConfigDescription("Encode task updates, task status and task info as Smile instead of JSON")
+    public InternalCommunicationConfig setSmileEnabled(boolean smileEnabled)
+    {
+        this.smileEnabled = smileEnabled;
+        return this;
+    }
 }
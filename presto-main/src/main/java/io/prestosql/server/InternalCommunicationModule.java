@@ -18,6 +18,7 @@ import com.google.inject.Module;
 import io.airlift.configuration.AbstractConfigurationAwareModule;
 import io.airlift.http.client.HttpClientConfig;
 import io.airlift.http.client.spnego.KerberosConfig;
+import io.prestosql.operator.ExchangeClientConfig;
 
 import java.io.UncheckedIOException;
 import java.net.InetAddress;
@@ -27,6 +28,9 @@ import java.util.Locale;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.configuration.ConditionalModule.installModuleIf;
 import static io.airlift.configuration.ConfigBinder.configBinder;
+import static io.prestosql.operator.ExchangeClientConfig.EXCHANGE_TRANSPORT;
+import static io.prestosql.operator.ExchangeClientConfig.ExchangeTransport.STREAMING;
+import static io.prestosql.server.InternalCommunicationConfig.INTERNAL_COMMUNICATION_HTTPS_REQUIRED;
 import static io.prestosql.server.InternalCommunicationConfig.INTERNAL_COMMUNICATION_KERBEROS_ENABLED;
 import static io.prestosql.server.security.KerberosConfig.HTTP_SERVER_AUTHENTICATION_KRB5_KEYTAB;
 
@@ -45,6 +49,13 @@ public class InternalCommunicationModule
         });
 
         install(installModuleIf(InternalCommunicationConfig.class, InternalCommunicationConfig::isKerberosEnabled, kerberosInternalCommunicationModule()));
+
+        // the streaming exchange transport is neither encrypted nor authenticated
+        ExchangeClientConfig exchangeClientConfig = buildConfigObject(ExchangeClientConfig.class);
+        verify(exchangeClientConfig.getTransport() != STREAMING || !internalCommunicationConfig.isHttpsRequired(),
+                "%s=%s is not supported when %s is true", EXCHANGE_TRANSPORT, STREAMING, INTERNAL_COMMUNICATION_HTTPS_REQUIRED);
+        verify(exchangeClientConfig.getTransport() != STREAMING || !internalCommunicationConfig.isKerberosEnabled(),
+                "%s=%s is not supported when %s is true", EXCHANGE_TRANSPORT, STREAMING, INTERNAL_COMMUNICATION_KERBEROS_ENABLED);
     }
 
     private Module kerberosInternalCommunicationModule()
@@ -53,6 +53,7 @@ import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.TaskStatus;
 import io.prestosql.execution.executor.MultilevelSplitQueue;
 import io.prestosql.execution.executor.TaskExecutor;
+import io.prestosql.execution.fragmentcache.FragmentResultCacheManager;
 import io.prestosql.execution.scheduler.NodeScheduler;
 import io.prestosql.execution.scheduler.NodeSchedulerConfig;
 import io.prestosql.execution.scheduler.TopologyAwareNodeSelectorModule;
@@ -108,6 +109,9 @@ import io.prestosql.split.PageSinkProvider;
 import io.prestosql.split.PageSourceManager;
 import io.prestosql.split.PageSourceProvider;
 import io.prestosql.split.SplitManager;
+import io.prestosql.spooling.LocalSpoolingStorage;
+import io.prestosql.spooling.SpoolingConfig;
+import io.prestosql.spooling.SpoolingStorage;
 import io.prestosql.sql.Serialization.ExpressionDeserializer;
 import io.prestosql.sql.Serialization.ExpressionSerializer;
 import io.prestosql.sql.Serialization.FunctionCallDeserializer;
@@ -124,6 +128,7 @@ import io.prestosql.sql.planner.CompilerConfig;
 import io.prestosql.sql.planner.LocalExecutionPlanner;
 import io.prestosql.sql.planner.NodePartitioningManager;
 import io.prestosql.sql.planner.TypeAnalyzer;
+import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.tree.Expression;
 import io.prestosql.sql.tree.FunctionCall;
 import io.prestosql.transaction.TransactionManagerConfig;
@@ -259,6 +264,7 @@ public class ServerMainModule
         binder.bind(TaskManagementExecutor.class).in(Scopes.SINGLETON);
         binder.bind(SqlTaskManager.class).in(Scopes.SINGLETON);
         binder.bind(TaskManager.class).to(Key.get(SqlTaskManager.class));
+        binder.bind(ExchangeStreamServer.class).in(Scopes.SINGLETON);
 
         // memory revoking scheduler
         binder.bind(MemoryRevokingScheduler.class).in(Scopes.SINGLETON);
@@ -297,12 +303,18 @@ public class ServerMainModule
         binder.bind(PagesIndex.Factory.class).to(PagesIndex.DefaultFactory.class);
         binder.bind(LookupJoinOperators.class).in(Scopes.SINGLETON);
 
+        // fragment result cache
+        jsonCodecBinder(binder).bindJsonCodec(PlanNode.class);
+        binder.bind(FragmentResultCacheManager.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(FragmentResultCacheManager.class).withGeneratedName();
+
         jsonCodecBinder(binder).bindJsonCodec(TaskStatus.class);
         jsonCodecBinder(binder).bindJsonCodec(StageInfo.class);
         jsonCodecBinder(binder).bindJsonCodec(TaskInfo.class);
         jsonCodecBinder(binder).bindJsonCodec(OperatorStats.class);
         jsonCodecBinder(binder).bindJsonCodec(ExecutionFailureInfo.class);
         jaxrsBinder(binder).bind(PagesResponseWriter.class);
+        jaxrsBinder(binder).bind(SmileMapper.class);
 
         // exchange client
         binder.bind(ExchangeClientSupplier.class).to(ExchangeClientFactory.class).in(Scopes.SINGLETON);
@@ -429,6 +441,11 @@ public class ServerMainModule
         binder.bind(LocalSpillManager.class).in(Scopes.SINGLETON);
         configBinder(binder).bindConfig(NodeSpillConfig.class);
 
+        // spooled output of fault-tolerant queries
+        binder.bind(SpoolingStorage.class).to(LocalSpoolingStorage.class).in(Scopes.SINGLETON);
+        newExporter(binder).export(SpoolingStorage.class).withGeneratedName();
+        configBinder(binder).bindConfig(SpoolingConfig.class);
+
         // dispatcher
         // TODO remove dispatcher fromm ServerMainModule, and bind dependent components only on coordinators
         OptionalBinder.newOptionalBinder(binder, DispatchManager.class);
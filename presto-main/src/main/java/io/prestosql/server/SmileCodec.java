@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encodes values as Smile, the binary form of JSON, with the serializers of a JSON object mapper.
+ * The encoded values have the same structure as with {@link io.airlift.json.JsonCodec}, but are
+ * smaller and cheaper to produce and parse.
+ */
+public class SmileCodec<T>
+{
+    private static final SmileFactory SMILE_FACTORY = new SmileFactory();
+
+    private final JavaType type;
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    public static <T> SmileCodec<T> smileCodec(ObjectMapper objectMapper, Class<T> type)
+    {
+        return new SmileCodec<>(objectMapper, type);
+    }
+
+    public SmileCodec(ObjectMapper objectMapper, Type type)
+    {
+        requireNonNull(objectMapper, "objectMapper is null");
+        this.type = objectMapper.getTypeFactory().constructType(requireNonNull(type, "type is null"));
+        this.reader = objectMapper.readerFor(this.type);
+        this.writer = objectMapper.writerFor(this.type);
+    }
+
+    public byte[] toBytes(T value)
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (JsonGenerator generator = SMILE_FACTORY.createGenerator(output)) {
+            writer.writeValue(generator, value);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Unable to encode " + type + " as Smile", e);
+        }
+        return output.toByteArray();
+    }
+
+    public T fromBytes(byte[] bytes)
+    {
+        try (JsonParser parser = SMILE_FACTORY.createParser(bytes)) {
+            return reader.readValue(parser);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Invalid Smile bytes for " + type, e);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import static io.prestosql.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads and writes Smile entities with the serializers of the JSON object mapper.
+ */
+@Provider
+@Consumes(APPLICATION_JACKSON_SMILE)
+@Produces(APPLICATION_JACKSON_SMILE)
+public class SmileMapper
+        implements MessageBodyReader<Object>, MessageBodyWriter<Object>
+{
+    private static final MediaType JACKSON_SMILE_TYPE = MediaType.valueOf(APPLICATION_JACKSON_SMILE);
+
+    private final ObjectMapper objectMapper;
+    private final SmileFactory smileFactory;
+
+    @Inject
+    public SmileMapper(ObjectMapper objectMapper)
+    {
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper is null");
+        // the entity streams belong to the container
+        this.smileFactory = new SmileFactory();
+        smileFactory.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+        smileFactory.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return isSmile(mediaType);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream input)
+            throws IOException
+    {
+        JsonParser parser = smileFactory.createParser(input);
+        return objectMapper.readerFor(objectMapper.getTypeFactory().constructType(genericType)).readValue(parser);
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return isSmile(mediaType);
+    }
+
+    @Override
+    public long getSize(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object value,
+            Class<?> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream output)
+            throws IOException, WebApplicationException
+    {
+        JsonGenerator generator = smileFactory.createGenerator(output);
+        objectMapper.writerFor(objectMapper.getTypeFactory().constructType(genericType)).writeValue(generator, value);
+        // We use flush instead of close, because the underlying stream would be closed and that is not allowed.
+        generator.flush();
+    }
+
+    private static boolean isSmile(MediaType mediaType)
+    {
+        return !mediaType.isWildcardType() && !mediaType.isWildcardSubtype() && mediaType.isCompatible(JACKSON_SMILE_TYPE);
+    }
+}
@@ -47,6 +47,9 @@ import io.prestosql.execution.TaskInfo;
 import io.prestosql.execution.buffer.PagesSerde;
 import io.prestosql.execution.buffer.PagesSerdeFactory;
 import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.execution.resultcache.CachedQueryResult;
+import io.prestosql.execution.resultcache.QueryResultCache;
+import io.prestosql.execution.resultcache.QueryResultCacheKey;
 import io.prestosql.operator.ExchangeClient;
 import io.prestosql.spi.ErrorCode;
 import io.prestosql.spi.Page;
@@ -69,6 +72,7 @@ import javax.ws.rs.core.Response;
 import javax.ws.rs.core.UriInfo;
 
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -87,7 +91,7 @@ import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
 import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 import static io.airlift.concurrent.MoreFutures.addTimeout;
-import static io.prestosql.SystemSessionProperties.isExchangeCompressionEnabled;
+import static io.prestosql.SystemSessionProperties.getExchangeCompressionCodec;
 import static io.prestosql.execution.QueryState.FAILED;
 import static io.prestosql.server.protocol.Slug.Context.EXECUTING_QUERY;
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
@@ -114,6 +118,8 @@ class Query
 
     private final PagesSerde serde;
 
+    private final QueryResultCache queryResultCache;
+
     @GuardedBy("this")
     private OptionalLong nextToken = OptionalLong.of(0);
 
@@ -162,6 +168,19 @@ class Query
     @GuardedBy("this")
     private Long updateCount;
 
+    @GuardedBy("this")
+    private boolean cachedPagesAdded;
+
+    // output pages recorded for the query result cache, until the result is complete or grows too large
+    @GuardedBy("this")
+    private Optional<QueryResultCacheKey> resultCacheKey = Optional.empty();
+
+    @GuardedBy("this")
+    private final List<SerializedPage> resultPages = new ArrayList<>();
+
+    @GuardedBy("this")
+    private long resultPagesSizeInBytes;
+
     public static Query create(
             Session session,
             Slug slug,
@@ -169,9 +188,10 @@ class Query
             ExchangeClient exchangeClient,
             Executor dataProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
-            BlockEncodingSerde blockEncodingSerde)
+            BlockEncodingSerde blockEncodingSerde,
+            QueryResultCache queryResultCache)
     {
-        Query result = new Query(session, slug, queryManager, exchangeClient, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde);
+        Query result = new Query(session, slug, queryManager, exchangeClient, dataProcessorExecutor, timeoutExecutor, blockEncodingSerde, queryResultCache);
 
         result.queryManager.addOutputInfoListener(result.getQueryId(), result::setQueryOutputInfo);
 
@@ -192,7 +212,8 @@ class Query
             ExchangeClient exchangeClient,
             Executor resultsProcessorExecutor,
             ScheduledExecutorService timeoutExecutor,
-            BlockEncodingSerde blockEncodingSerde)
+            BlockEncodingSerde blockEncodingSerde,
+            QueryResultCache queryResultCache)
     {
         requireNonNull(session, "session is null");
         requireNonNull(slug, "slug is null");
@@ -201,6 +222,7 @@ class Query
         requireNonNull(resultsProcessorExecutor, "resultsProcessorExecutor is null");
         requireNonNull(timeoutExecutor, "timeoutExecutor is null");
         requireNonNull(blockEncodingSerde, "serde is null");
+        requireNonNull(queryResultCache, "queryResultCache is null");
 
         this.queryManager = queryManager;
 
@@ -210,8 +232,9 @@ class Query
         this.exchangeClient = exchangeClient;
         this.resultsProcessorExecutor = resultsProcessorExecutor;
         this.timeoutExecutor = timeoutExecutor;
+        this.queryResultCache = queryResultCache;
 
-        serde = new PagesSerdeFactory(blockEncodingSerde, isExchangeCompressionEnabled(session)).createPagesSerde();
+        serde = new PagesSerdeFactory(blockEncodingSerde, getExchangeCompressionCodec(session)).createPagesSerde();
     }
 
     public void cancel()
@@ -403,6 +426,8 @@ class Query
                     break;
                 }
 
+                recordResultPage(serializedPage);
+
                 Page page = serde.deserialize(serializedPage);
                 bytes += page.getLogicalSizeInBytes();
                 rows += page.getPositionCount();
@@ -437,8 +462,13 @@ class Query
 
         closeExchangeClientIfNecessary(queryInfo);
 
+        // all output has been removed from the exchange once it is closed after the query finished
+        if ((queryInfo.getState() == QueryState.FINISHED) && exchangeClient.isClosed()) {
+            cacheResult();
+        }
+
         // for queries with no output, return a fake result for clients that require it
-        if ((queryInfo.getState() == QueryState.FINISHED) && !queryInfo.getOutputStage().isPresent()) {
+        if ((queryInfo.getState() == QueryState.FINISHED) && !queryInfo.getOutputStage().isPresent() && !queryInfo.getQueryStats().isResultCacheHit()) {
             columns = ImmutableList.of(createColumn("result", BooleanType.BOOLEAN));
             data = ImmutableSet.of(ImmutableList.of(true));
         }
@@ -509,13 +539,43 @@ class Query
     {
         // Close the exchange client if the query has failed, or if the query
         // is done and it does not have an output stage. The latter happens
-        // for data definition executions, as those do not have output.
+        // for data definition executions, as those do not have output. Queries
+        // answered from the result cache have no output stage either, but their
+        // output is already in the exchange client.
         if ((queryInfo.getState() == FAILED) ||
-                (queryInfo.getState().isDone() && !queryInfo.getOutputStage().isPresent())) {
+                (queryInfo.getState().isDone() && !queryInfo.getOutputStage().isPresent() && !queryInfo.getQueryStats().isResultCacheHit())) {
             exchangeClient.close();
         }
     }
 
+    private synchronized void recordResultPage(SerializedPage serializedPage)
+    {
+        if (!resultCacheKey.isPresent()) {
+            return;
+        }
+        resultPagesSizeInBytes += serializedPage.getRetainedSizeInBytes();
+        if (resultPagesSizeInBytes > queryResultCache.getMaxEntrySizeInBytes()) {
+            // the result is too large to be cached
+            resultCacheKey = Optional.empty();
+            resultPages.clear();
+            return;
+        }
+        resultPages.add(serializedPage);
+    }
+
+    private synchronized void cacheResult()
+    {
+        if (!resultCacheKey.isPresent()) {
+            return;
+        }
+        List<String> columnNames = columns.stream()
+                .map(Column::getName)
+                .collect(toImmutableList());
+        queryResultCache.put(resultCacheKey.get(), new CachedQueryResult(columnNames, types, resultPages));
+        resultCacheKey = Optional.empty();
+        resultPages.clear();
+    }
+
     private synchronized void setQueryOutputInfo(QueryExecution.QueryOutputInfo outputInfo)
     {
         // if first callback, set column names
@@ -530,6 +590,12 @@ class Query
             }
             columns = list.build();
             types = outputInfo.getColumnTypes();
+            resultCacheKey = outputInfo.getResultCacheKey();
+        }
+
+        if (!cachedPagesAdded && !outputInfo.getCachedPages().isEmpty()) {
+            exchangeClient.addLocalPages(outputInfo.getCachedPages());
+            cachedPagesAdded = true;
         }
 
         for (URI outputLocation : outputInfo.getBufferLocations()) {
@@ -0,0 +1,167 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server.remotetask;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+import io.prestosql.server.SmileCodec;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static io.prestosql.PrestoMediaTypes.JACKSON_SMILE_TYPE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decodes the body of a task resource response as Smile or JSON, depending on its content type.
+ */
+public class FullTaskResponseHandler<T>
+        implements ResponseHandler<FullTaskResponseHandler.TaskResponse<T>, RuntimeException>
+{
+    private final JsonCodec<T> jsonCodec;
+    private final Optional<SmileCodec<T>> smileCodec;
+
+    FullTaskResponseHandler(JsonCodec<T> jsonCodec, Optional<SmileCodec<T>> smileCodec)
+    {
+        this.jsonCodec = requireNonNull(jsonCodec, "jsonCodec is null");
+        this.smileCodec = requireNonNull(smileCodec, "smileCodec is null");
+    }
+
+    @Override
+    public TaskResponse<T> handleException(Request request, Exception exception)
+    {
+        throw propagate(request, exception);
+    }
+
+    @Override
+    public TaskResponse<T> handle(Request request, Response response)
+    {
+        byte[] bytes;
+        try {
+            bytes = ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Error reading response from server", e);
+        }
+
+        Optional<MediaType> mediaType = parseMediaType(response.getHeader(CONTENT_TYPE));
+        if (mediaType.isPresent() && smileCodec.isPresent() && mediaType.get().is(JACKSON_SMILE_TYPE)) {
+            try {
+                return new TaskResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes, smileCodec.get().fromBytes(bytes), null);
+            }
+            catch (IllegalArgumentException e) {
+                return new TaskResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes, null, new IllegalArgumentException("Unable to create value from Smile response", e));
+            }
+        }
+        if (mediaType.isPresent() && mediaType.get().is(JSON_UTF_8.withoutParameters())) {
+            try {
+                return new TaskResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes, jsonCodec.fromJson(bytes), null);
+            }
+            catch (IllegalArgumentException e) {
+                String json = new String(bytes, UTF_8);
+                return new TaskResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes, null, new IllegalArgumentException("Unable to create value from JSON response:\n[" + json + "]", e));
+            }
+        }
+        return new TaskResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes, null, null);
+    }
+
+    private static Optional<MediaType> parseMediaType(String contentType)
+    {
+        if (contentType == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(MediaType.parse(contentType));
+        }
+        catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    public static class TaskResponse<T>
+    {
+        private final int statusCode;
+        private final String statusMessage;
+        private final byte[] responseBytes;
+        private final T value;
+        private final IllegalArgumentException exception;
+
+        public TaskResponse(int statusCode, String statusMessage, byte[] responseBytes, T value, IllegalArgumentException exception)
+        {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.responseBytes = requireNonNull(responseBytes, "responseBytes is null");
+            this.value = value;
+            this.exception = exception;
+        }
+
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        public String getStatusMessage()
+        {
+            return statusMessage;
+        }
+
+        public boolean hasValue()
+        {
+            return value != null;
+        }
+
+        public T getValue()
+        {
+            if (value == null) {
+                throw new IllegalStateException("Response does not contain a value", exception);
+            }
+            return value;
+        }
+
+        public int getResponseSize()
+        {
+            return responseBytes.length;
+        }
+
+        public String getResponseBody()
+        {
+            return new String(responseBytes, UTF_8);
+        }
+
+        public IllegalArgumentException getException()
+        {
+            return exception;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("statusCode", statusCode)
+                    .add("statusMessage", statusMessage)
+                    .add("hasValue", hasValue())
+                    .add("value", value)
+                    .toString();
+        }
+    }
+}
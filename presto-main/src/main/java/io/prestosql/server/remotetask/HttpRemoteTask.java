@@ -24,11 +24,9 @@ import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.SetThreadName;
-import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpUriBuilder;
 import io.airlift.http.client.Request;
-import io.airlift.json.JsonCodec;
 import io.airlift.log.Logger;
 import io.airlift.units.Duration;
 import io.prestosql.Session;
@@ -48,7 +46,10 @@ import io.prestosql.execution.buffer.OutputBuffers;
 import io.prestosql.execution.buffer.PageBufferInfo;
 import io.prestosql.metadata.Split;
 import io.prestosql.operator.TaskStats;
+import io.prestosql.server.SmileCodec;
 import io.prestosql.server.TaskUpdateRequest;
+import io.prestosql.server.remotetask.FullTaskResponseHandler.TaskResponse;
+import io.prestosql.server.remotetask.SimpleHttpResponseHandler.UnsupportedMediaTypeException;
 import io.prestosql.sql.planner.PlanFragment;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanNodeId;
@@ -81,11 +82,11 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.util.concurrent.Futures.immediateFuture;
-import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.http.client.Request.Builder.prepareDelete;
 import static io.airlift.http.client.Request.Builder.preparePost;
 import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
+import static io.prestosql.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static io.prestosql.execution.TaskInfo.createInitialTask;
 import static io.prestosql.execution.TaskState.ABORTED;
 import static io.prestosql.execution.TaskState.FAILED;
@@ -144,13 +145,15 @@ public final class HttpRemoteTask
     private final Executor executor;
     private final ScheduledExecutorService errorScheduledExecutor;
 
-    private final JsonCodec<TaskInfo> taskInfoCodec;
-    private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
+    private final TaskCodec<TaskInfo> taskInfoCodec;
+    private final TaskCodec<TaskUpdateRequest> taskUpdateRequestCodec;
 
     private final RequestErrorTracker updateErrorTracker;
 
     private final AtomicBoolean needsUpdate = new AtomicBoolean(true);
     private final AtomicBoolean sendPlan = new AtomicBoolean(true);
+    // cleared when the worker does not accept task updates encoded as Smile
+    private final AtomicBoolean sendSmile;
 
     private final PartitionedSplitCountTracker partitionedSplitCountTracker;
 
@@ -172,9 +175,9 @@ public final class HttpRemoteTask
             Duration taskStatusRefreshMaxWait,
             Duration taskInfoUpdateInterval,
             boolean summarizeTaskInfo,
-            JsonCodec<TaskStatus> taskStatusCodec,
-            JsonCodec<TaskInfo> taskInfoCodec,
-            JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+            TaskCodec<TaskStatus> taskStatusCodec,
+            TaskCodec<TaskInfo> taskInfoCodec,
+            TaskCodec<TaskUpdateRequest> taskUpdateRequestCodec,
             PartitionedSplitCountTracker partitionedSplitCountTracker,
             RemoteTaskStats stats)
     {
@@ -206,6 +209,7 @@ public final class HttpRemoteTask
             this.summarizeTaskInfo = summarizeTaskInfo;
             this.taskInfoCodec = taskInfoCodec;
             this.taskUpdateRequestCodec = taskUpdateRequestCodec;
+            this.sendSmile = new AtomicBoolean(taskUpdateRequestCodec.getSmileCodec().isPresent());
             this.updateErrorTracker = new RequestErrorTracker(taskId, location, maxErrorDuration, errorScheduledExecutor, "updating task");
             this.partitionedSplitCountTracker = requireNonNull(partitionedSplitCountTracker, "partitionedSplitCountTracker is null");
             this.stats = stats;
@@ -509,21 +513,32 @@ public final class HttpRemoteTask
                 sources,
                 outputBuffers.get(),
                 totalPartitions);
-        byte[] taskUpdateRequestJson = taskUpdateRequestCodec.toJsonBytes(updateRequest);
+        Optional<SmileCodec<TaskUpdateRequest>> smileCodec = taskUpdateRequestCodec.getSmileCodec().filter(codec -> sendSmile.get());
+        byte[] taskUpdateRequestBytes;
+        String contentType;
+        if (smileCodec.isPresent()) {
+            taskUpdateRequestBytes = smileCodec.get().toBytes(updateRequest);
+            contentType = APPLICATION_JACKSON_SMILE;
+        }
+        else {
+            taskUpdateRequestBytes = taskUpdateRequestCodec.getJsonCodec().toJsonBytes(updateRequest);
+            contentType = MediaType.JSON_UTF_8.toString();
+        }
         if (fragment.isPresent()) {
-            stats.updateWithPlanBytes(taskUpdateRequestJson.length);
+            stats.updateWithPlanBytes(taskUpdateRequestBytes.length);
         }
 
         HttpUriBuilder uriBuilder = getHttpUriBuilder(taskStatus);
         Request request = preparePost()
                 .setUri(uriBuilder.build())
-                .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
-                .setBodyGenerator(createStaticBodyGenerator(taskUpdateRequestJson))
+                .setHeader(HttpHeaders.CONTENT_TYPE, contentType)
+                .setHeader(HttpHeaders.ACCEPT, taskInfoCodec.getAcceptedMediaTypes())
+                .setBodyGenerator(createStaticBodyGenerator(taskUpdateRequestBytes))
                 .build();
 
         updateErrorTracker.startRequest();
 
-        ListenableFuture<JsonResponse<TaskInfo>> future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+        ListenableFuture<TaskResponse<TaskInfo>> future = httpClient.executeAsync(request, taskInfoCodec.createResponseHandler());
         currentRequest = future;
         currentRequestStartNanos = System.nanoTime();
 
@@ -571,6 +586,7 @@ public final class HttpRemoteTask
             HttpUriBuilder uriBuilder = getHttpUriBuilder(taskStatus).addParameter("abort", "false");
             Request request = prepareDelete()
                     .setUri(uriBuilder.build())
+                    .setHeader(HttpHeaders.ACCEPT, taskInfoCodec.getAcceptedMediaTypes())
                     .build();
             scheduleAsyncCleanupRequest(createCleanupBackoff(), request, "cancel");
         }
@@ -601,6 +617,7 @@ public final class HttpRemoteTask
         HttpUriBuilder uriBuilder = getHttpUriBuilder(getTaskStatus());
         Request request = prepareDelete()
                 .setUri(uriBuilder.build())
+                .setHeader(HttpHeaders.ACCEPT, taskInfoCodec.getAcceptedMediaTypes())
                 .build();
 
         scheduleAsyncCleanupRequest(createCleanupBackoff(), request, "cleanup");
@@ -627,6 +644,7 @@ public final class HttpRemoteTask
             HttpUriBuilder uriBuilder = getHttpUriBuilder(getTaskStatus());
             Request request = prepareDelete()
                     .setUri(uriBuilder.build())
+                    .setHeader(HttpHeaders.ACCEPT, taskInfoCodec.getAcceptedMediaTypes())
                     .build();
             scheduleAsyncCleanupRequest(createCleanupBackoff(), request, "abort");
         }
@@ -644,10 +662,10 @@ public final class HttpRemoteTask
 
     private void doScheduleAsyncCleanupRequest(Backoff cleanupBackoff, Request request, String action)
     {
-        Futures.addCallback(httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec)), new FutureCallback<JsonResponse<TaskInfo>>()
+        Futures.addCallback(httpClient.executeAsync(request, taskInfoCodec.createResponseHandler()), new FutureCallback<TaskResponse<TaskInfo>>()
         {
             @Override
-            public void onSuccess(JsonResponse<TaskInfo> result)
+            public void onSuccess(TaskResponse<TaskInfo> result)
             {
                 try {
                     updateTaskInfo(result.getValue());
@@ -795,6 +813,11 @@ public final class HttpRemoteTask
                     // on failure assume we need to update again
                     needsUpdate.set(true);
 
+                    if (cause instanceof UnsupportedMediaTypeException && sendSmile.compareAndSet(true, false)) {
+                        // the worker does not accept Smile, so the update is sent again as JSON
+                        return;
+                    }
+
                     // if task not already done, record error
                     TaskStatus taskStatus = getTaskStatus();
                     if (!taskStatus.getState().isDone()) {
@@ -14,8 +14,8 @@
 package io.prestosql.server.remotetask;
 
 import com.google.common.util.concurrent.FutureCallback;
-import io.airlift.http.client.FullJsonResponseHandler;
 import io.airlift.http.client.HttpStatus;
+import io.prestosql.server.remotetask.FullTaskResponseHandler.TaskResponse;
 import io.prestosql.spi.PrestoException;
 
 import java.net.URI;
@@ -25,7 +25,7 @@ import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
 public class SimpleHttpResponseHandler<T>
-        implements FutureCallback<FullJsonResponseHandler.JsonResponse<T>>
+        implements FutureCallback<TaskResponse<T>>
 {
     private final SimpleHttpResponseCallback<T> callback;
 
@@ -40,7 +40,7 @@ public class SimpleHttpResponseHandler<T>
     }
 
     @Override
-    public void onSuccess(FullJsonResponseHandler.JsonResponse<T> response)
+    public void onSuccess(TaskResponse<T> response)
     {
         stats.updateSuccess();
         stats.responseSize(response.getResponseSize());
@@ -51,6 +51,9 @@ public class SimpleHttpResponseHandler<T>
             else if (response.getStatusCode() == HttpStatus.SERVICE_UNAVAILABLE.code()) {
                 callback.failed(new ServiceUnavailableException(uri));
             }
+            else if (response.getStatusCode() == HttpStatus.UNSUPPORTED_MEDIA_TYPE.code()) {
+                callback.failed(new UnsupportedMediaTypeException(uri));
+            }
             else {
                 // Something is broken in the server or the client, so fail the task immediately (includes 500 errors)
                 Exception cause = response.getException();
@@ -94,4 +97,13 @@ public class SimpleHttpResponseHandler<T>
             super("Server returned SERVICE_UNAVAILABLE: " + uri);
         }
     }
+
+    static class UnsupportedMediaTypeException
+            extends RuntimeException
+    {
+        public UnsupportedMediaTypeException(URI uri)
+        {
+            super("Server returned UNSUPPORTED_MEDIA_TYPE: " + uri);
+        }
+    }
 }
@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.server.remotetask;
+
+import io.airlift.json.JsonCodec;
+import io.prestosql.server.SmileCodec;
+
+import java.util.Optional;
+
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static io.prestosql.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encoding of a value exchanged with the task resource of a worker. When a Smile codec is present,
+ * Smile is preferred and JSON is kept for workers that do not produce or accept Smile.
+ */
+public class TaskCodec<T>
+{
+    private static final String SMILE_OR_JSON = APPLICATION_JACKSON_SMILE + ", " + JSON_UTF_8.withoutParameters() + "; q=0.5";
+
+    private final JsonCodec<T> jsonCodec;
+    private final Optional<SmileCodec<T>> smileCodec;
+
+    public static <T> TaskCodec<T> jsonTaskCodec(JsonCodec<T> jsonCodec)
+    {
+        return new TaskCodec<>(jsonCodec, Optional.empty());
+    }
+
+    public static <T> TaskCodec<T> smileTaskCodec(JsonCodec<T> jsonCodec, SmileCodec<T> smileCodec)
+    {
+        return new TaskCodec<>(jsonCodec, Optional.of(smileCodec));
+    }
+
+    private TaskCodec(JsonCodec<T> jsonCodec, Optional<SmileCodec<T>> smileCodec)
+    {
+        this.jsonCodec = requireNonNull(jsonCodec, "jsonCodec is null");
+        this.smileCodec = requireNonNull(smileCodec, "smileCodec is null");
+    }
+
+    public JsonCodec<T> getJsonCodec()
+    {
+        return jsonCodec;
+    }
+
+    public Optional<SmileCodec<T>> getSmileCodec()
+    {
+        return smileCodec;
+    }
+
+    public String getAcceptedMediaTypes()
+    {
+        return smileCodec.isPresent() ? SMILE_OR_JSON : JSON_UTF_8.toString();
+    }
+
+    public FullTaskResponseHandler<T> createResponseHandler()
+    {
+        return new FullTaskResponseHandler<>(jsonCodec, smileCodec);
+    }
+}
@@ -24,7 +24,6 @@ import io.airlift.slice.InputStreamSliceInput;
 import io.airlift.slice.OutputStreamSliceOutput;
 import io.airlift.slice.SliceOutput;
 import io.prestosql.execution.buffer.PagesSerde;
-import io.prestosql.execution.buffer.PagesSerdeUtil;
 import io.prestosql.execution.buffer.SerializedPage;
 import io.prestosql.memory.context.LocalMemoryContext;
 import io.prestosql.operator.SpillContext;
@@ -44,6 +43,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterators.transform;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.readSerializedPages;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.writeSerializedPage;
 import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.prestosql.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_PREFIX;
@@ -62,6 +63,7 @@ public class FileSingleStreamSpiller
     private final Closer closer = Closer.create();
     private final PagesSerde serde;
     private final SpillerStats spillerStats;
+    private final SpillPathStats spillPathStats;
     private final SpillContext localSpillContext;
     private final LocalMemoryContext memoryContext;
 
@@ -83,6 +85,7 @@ public class FileSingleStreamSpiller
         this.serde = requireNonNull(serde, "serde is null");
         this.executor = requireNonNull(executor, "executor is null");
         this.spillerStats = requireNonNull(spillerStats, "spillerStats is null");
+        this.spillPathStats = spillerStats.getSpillPathStats(spillPath);
         this.localSpillContext = spillContext.newLocalSpillContext();
         this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
         if (requireNonNull(spillCipher, "spillCipher is null").isPresent()) {
@@ -112,7 +115,15 @@ public class FileSingleStreamSpiller
     {
         requireNonNull(pageIterator, "pageIterator is null");
         checkNoSpillInProgress();
-        spillInProgress = executor.submit(() -> writePages(pageIterator));
+        spillPathStats.writeQueued();
+        spillInProgress = executor.submit(() -> {
+            try {
+                writePages(pageIterator);
+            }
+            finally {
+                spillPathStats.writeFinished();
+            }
+        });
         return spillInProgress;
     }
 
@@ -145,6 +156,7 @@ public class FileSingleStreamSpiller
                 SerializedPage serializedPage = serde.serialize(page);
                 long pageSize = serializedPage.getSizeInBytes();
                 localSpillContext.updateBytes(pageSize);
+                spillPathStats.getWrittenBytes().update(pageSize);
                 spillerStats.addToTotalSpilledBytes(pageSize);
                 writeSerializedPage(output, serializedPage);
             }
@@ -161,7 +173,10 @@ public class FileSingleStreamSpiller
 
         try {
             InputStream input = closer.register(targetFile.newInputStream());
-            Iterator<Page> pages = PagesSerdeUtil.readPages(serde, new InputStreamSliceInput(input, BUFFER_SIZE));
+            Iterator<Page> pages = transform(readSerializedPages(new InputStreamSliceInput(input, BUFFER_SIZE)), page -> {
+                spillPathStats.getReadBytes().update(page.getSizeInBytes());
+                return serde.deserialize(page);
+            });
             return closeWhenExhausted(pages, input);
         }
         catch (IOException e) {
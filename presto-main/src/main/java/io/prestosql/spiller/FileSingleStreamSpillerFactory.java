@@ -18,6 +18,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import com.google.inject.Inject;
 import io.airlift.log.Logger;
+import io.prestosql.execution.buffer.CompressionCodec;
 import io.prestosql.execution.buffer.PagesSerde;
 import io.prestosql.execution.buffer.PagesSerdeFactory;
 import io.prestosql.memory.context.LocalMemoryContext;
@@ -38,6 +39,7 @@ import java.nio.file.Path;
 import java.util.List;
 import java.util.Optional;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.util.concurrent.MoreExecutors.listeningDecorator;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.prestosql.spi.StandardErrorCode.OUT_OF_SPILL_SPACE;
@@ -66,6 +68,7 @@ public class FileSingleStreamSpillerFactory
     private final SpillerStats spillerStats;
     private final double maxUsedSpaceThreshold;
     private final boolean spillEncryptionEnabled;
+    private final int maxStripes;
     private int roundRobinIndex;
 
     @Inject
@@ -79,8 +82,9 @@ public class FileSingleStreamSpillerFactory
                 spillerStats,
                 requireNonNull(featuresConfig, "featuresConfig is null").getSpillerSpillPaths(),
                 requireNonNull(featuresConfig, "featuresConfig is null").getSpillMaxUsedSpaceThreshold(),
-                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillCompressionEnabled(),
-                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillEncryptionEnabled());
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillCompressionEnabled() ? nodeSpillConfig.getSpillCompressionCodec() : CompressionCodec.NONE,
+                requireNonNull(nodeSpillConfig, "nodeSpillConfig is null").isSpillEncryptionEnabled(),
+                requireNonNull(featuresConfig, "featuresConfig is null").getSpillerMaxStripes());
     }
 
     @VisibleForTesting
@@ -93,7 +97,41 @@ public class FileSingleStreamSpillerFactory
             boolean spillCompressionEnabled,
             boolean spillEncryptionEnabled)
     {
-        this.serdeFactory = new PagesSerdeFactory(blockEncodingSerde, spillCompressionEnabled);
+        this(
+                executor,
+                blockEncodingSerde,
+                spillerStats,
+                spillPaths,
+                maxUsedSpaceThreshold,
+                spillCompressionEnabled ? CompressionCodec.LZ4 : CompressionCodec.NONE,
+                spillEncryptionEnabled);
+    }
+
+    @VisibleForTesting
+    public FileSingleStreamSpillerFactory(
+            ListeningExecutorService executor,
+            BlockEncodingSerde blockEncodingSerde,
+            SpillerStats spillerStats,
+            List<Path> spillPaths,
+            double maxUsedSpaceThreshold,
+            CompressionCodec spillCompressionCodec,
+            boolean spillEncryptionEnabled)
+    {
+        this(executor, blockEncodingSerde, spillerStats, spillPaths, maxUsedSpaceThreshold, spillCompressionCodec, spillEncryptionEnabled, 1);
+    }
+
+    @VisibleForTesting
+    public FileSingleStreamSpillerFactory(
+            ListeningExecutorService executor,
+            BlockEncodingSerde blockEncodingSerde,
+            SpillerStats spillerStats,
+            List<Path> spillPaths,
+            double maxUsedSpaceThreshold,
+            CompressionCodec spillCompressionCodec,
+            boolean spillEncryptionEnabled,
+            int maxStripes)
+    {
+        this.serdeFactory = new PagesSerdeFactory(blockEncodingSerde, spillCompressionCodec);
         this.executor = requireNonNull(executor, "executor is null");
         this.spillerStats = requireNonNull(spillerStats, "spillerStats can not be null");
         requireNonNull(spillPaths, "spillPaths is null");
@@ -113,6 +151,8 @@ public class FileSingleStreamSpillerFactory
         });
         this.maxUsedSpaceThreshold = maxUsedSpaceThreshold;
         this.spillEncryptionEnabled = spillEncryptionEnabled;
+        checkArgument(maxStripes >= 1, "maxStripes must be at least 1");
+        this.maxStripes = maxStripes;
         this.roundRobinIndex = 0;
     }
 
@@ -149,25 +189,38 @@ public class FileSingleStreamSpillerFactory
     @Override
     public SingleStreamSpiller create(List<Type> types, SpillContext spillContext, LocalMemoryContext memoryContext)
     {
-        Optional<SpillCipher> spillCipher = Optional.empty();
-        if (spillEncryptionEnabled) {
-            spillCipher = Optional.of(new AesSpillCipher());
+        List<Path> spillPaths = getNextSpillPaths(maxStripes);
+        Optional<SpillCipher> spillCipher = spillEncryptionEnabled ? Optional.of(new AesSpillCipher()) : Optional.empty();
+        if (spillPaths.size() > 1) {
+            // the stripes share the cipher, so that it is closed once with the spiller
+            return new StripedFileSingleStreamSpiller(() -> serdeFactory.createPagesSerdeForSpill(spillCipher), executor, spillPaths, spillerStats, spillContext, memoryContext, spillCipher);
         }
         PagesSerde serde = serdeFactory.createPagesSerdeForSpill(spillCipher);
-        return new FileSingleStreamSpiller(serde, executor, getNextSpillPath(), spillerStats, spillContext, memoryContext, spillCipher);
+        return new FileSingleStreamSpiller(serde, executor, spillPaths.get(0), spillerStats, spillContext, memoryContext, spillCipher);
     }
 
-    private synchronized Path getNextSpillPath()
+    /**
+     * Returns up to {@code count} spill paths with enough free space. Successive calls start from different paths.
+     */
+    private synchronized List<Path> getNextSpillPaths(int count)
     {
         int spillPathsCount = spillPaths.size();
-        for (int i = 0; i < spillPathsCount; ++i) {
+        ImmutableList.Builder<Path> paths = ImmutableList.builder();
+        int selected = 0;
+        for (int i = 0; i < spillPathsCount && selected < count; ++i) {
             int pathIndex = (roundRobinIndex + i) % spillPathsCount;
             Path path = spillPaths.get(pathIndex);
             if (hasEnoughDiskSpace(path)) {
-                roundRobinIndex = (roundRobinIndex + i + 1) % spillPathsCount;
-                return path;
+                if (selected == 0) {
+                    roundRobinIndex = (roundRobinIndex + i + 1) % spillPathsCount;
+                }
+                paths.add(path);
+                selected++;
             }
         }
+        if (selected > 0) {
+            return paths.build();
+        }
         if (spillPaths.isEmpty()) {
             throw new PrestoException(OUT_OF_SPILL_SPACE, "No spill paths configured");
         }
@@ -15,6 +15,7 @@ package io.prestosql.spiller;
 
 import io.airlift.configuration.Config;
 import io.airlift.units.DataSize;
+import io.prestosql.execution.buffer.CompressionCodec;
 
 import javax.validation.constraints.NotNull;
 
@@ -24,6 +25,7 @@ public class NodeSpillConfig
     private DataSize queryMaxSpillPerNode = new DataSize(100, DataSize.Unit.GIGABYTE);
 
     private boolean spillCompressionEnabled;
+    private CompressionCodec spillCompressionCodec = CompressionCodec.LZ4;
     private boolean spillEncryptionEnabled;
 
     @NotNull
@@ -64,6 +66,19 @@ public class NodeSpillConfig
         return this;
     }
 
+    @NotNull
+    public CompressionCodec getSpillCompressionCodec()
+    {
+        return spillCompressionCodec;
+    }
+
+    @Config("experimental.spill-compression-codec")
+    public NodeSpillConfig setSpillCompressionCodec(CompressionCodec spillCompressionCodec)
+    {
+        this.spillCompressionCodec = spillCompressionCodec;
+        return this;
+    }
+
     public boolean isSpillEncryptionEnabled()
     {
         return spillEncryptionEnabled;
@@ -0,0 +1,86 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spiller;
+
+import io.airlift.stats.CounterStat;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Throughput and queue depth of the spill files on a single spill path.
+ */
+@ThreadSafe
+public class SpillPathStats
+{
+    private final CounterStat writtenBytes = new CounterStat();
+    private final CounterStat readBytes = new CounterStat();
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final AtomicInteger pendingReads = new AtomicInteger();
+
+    @Managed
+    @Nested
+    public CounterStat getWrittenBytes()
+    {
+        return writtenBytes;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getReadBytes()
+    {
+        return readBytes;
+    }
+
+    /**
+     * Number of writes to spill files on the path that are queued or running.
+     */
+    @Managed
+    public int getPendingWrites()
+    {
+        return pendingWrites.get();
+    }
+
+    /**
+     * Number of reads of spill files on the path that are queued or running.
+     */
+    @Managed
+    public int getPendingReads()
+    {
+        return pendingReads.get();
+    }
+
+    public void writeQueued()
+    {
+        pendingWrites.incrementAndGet();
+    }
+
+    public void writeFinished()
+    {
+        pendingWrites.decrementAndGet();
+    }
+
+    public void readQueued()
+    {
+        pendingReads.incrementAndGet();
+    }
+
+    public void readFinished()
+    {
+        pendingReads.decrementAndGet();
+    }
+}
@@ -13,13 +13,19 @@
  */
 package io.prestosql.spiller;
 
+import com.google.common.collect.ImmutableMap;
 import org.weakref.jmx.Managed;
 
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
 
 public class SpillerStats
 {
     protected final AtomicLong totalSpilledBytes = new AtomicLong();
+    private final ConcurrentMap<Path, SpillPathStats> spillPathStats = new ConcurrentHashMap<>();
 
     @Managed
     public long getTotalSpilledBytes()
@@ -31,4 +37,14 @@ public class SpillerStats
     {
         totalSpilledBytes.addAndGet(delta);
     }
+
+    public SpillPathStats getSpillPathStats(Path spillPath)
+    {
+        return spillPathStats.computeIfAbsent(spillPath, path -> new SpillPathStats());
+    }
+
+    public Map<Path, SpillPathStats> getSpillPathStats()
+    {
+        return ImmutableMap.copyOf(spillPathStats);
+    }
 }
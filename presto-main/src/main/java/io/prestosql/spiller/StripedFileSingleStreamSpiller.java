@@ -0,0 +1,415 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spiller;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Closer;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import io.airlift.slice.InputStreamSliceInput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.memory.context.LocalMemoryContext;
+import io.prestosql.operator.SpillContext;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PrestoException;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.readSerializedPage;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.writeSerializedPage;
+import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static io.prestosql.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_PREFIX;
+import static io.prestosql.spiller.FileSingleStreamSpillerFactory.SPILL_FILE_SUFFIX;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spills a single stream of pages into one file on each of several spill paths. Every stripe is written
+ * by its own task, which takes the next page of the stream when it is done with the previous one, so
+ * faster disks take a larger share of the pages and at most one write per stripe is in flight. Pages are
+ * tagged with their position in the stream and merged back into spill order when they are read, with
+ * the next page of every stripe read ahead.
+ */
+@NotThreadSafe
+public class StripedFileSingleStreamSpiller
+        implements SingleStreamSpiller
+{
+    @VisibleForTesting
+    static final int BUFFER_SIZE = FileSingleStreamSpiller.BUFFER_SIZE;
+
+    private final List<Stripe> stripes;
+    private final PagesSerde serde;
+    private final Closer closer = Closer.create();
+    private final SpillerStats spillerStats;
+    private final SpillContext localSpillContext;
+    private final LocalMemoryContext memoryContext;
+    private final ListeningExecutorService executor;
+
+    @GuardedBy("this")
+    private long nextSequenceNumber;
+    @GuardedBy("this")
+    private long spilledPagesInMemorySize;
+
+    private boolean writable = true;
+    private ListenableFuture<?> spillInProgress = Futures.immediateFuture(null);
+
+    public StripedFileSingleStreamSpiller(
+            Supplier<PagesSerde> serdeSupplier,
+            ListeningExecutorService executor,
+            List<Path> spillPaths,
+            SpillerStats spillerStats,
+            SpillContext spillContext,
+            LocalMemoryContext memoryContext,
+            Optional<SpillCipher> spillCipher)
+    {
+        requireNonNull(serdeSupplier, "serdeSupplier is null");
+        requireNonNull(spillPaths, "spillPaths is null");
+        checkArgument(!spillPaths.isEmpty(), "spillPaths is empty");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.spillerStats = requireNonNull(spillerStats, "spillerStats is null");
+        this.localSpillContext = spillContext.newLocalSpillContext();
+        this.memoryContext = requireNonNull(memoryContext, "memoryContext is null");
+        if (requireNonNull(spillCipher, "spillCipher is null").isPresent()) {
+            closer.register(spillCipher.get()::close);
+        }
+        // the memory of the buffers of all stripes is reserved up front, for the reasons described in FileSingleStreamSpiller
+        this.memoryContext.setBytes((long) BUFFER_SIZE * spillPaths.size());
+
+        ImmutableList.Builder<Stripe> stripes = ImmutableList.builder();
+        try {
+            for (Path spillPath : spillPaths) {
+                FileHolder file = closer.register(new FileHolder(Files.createTempFile(spillPath, SPILL_FILE_PREFIX, SPILL_FILE_SUFFIX)));
+                // serdes are not thread safe, so every stripe serializes its pages with its own
+                stripes.add(new Stripe(file, serdeSupplier.get(), spillerStats.getSpillPathStats(spillPath)));
+            }
+        }
+        catch (IOException e) {
+            try {
+                closer.close();
+            }
+            catch (IOException closeException) {
+                e.addSuppressed(closeException);
+            }
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to create spill file", e);
+        }
+        this.stripes = stripes.build();
+        this.serde = serdeSupplier.get();
+    }
+
+    @Override
+    public ListenableFuture<?> spill(Iterator<Page> pageIterator)
+    {
+        requireNonNull(pageIterator, "pageIterator is null");
+        checkNoSpillInProgress();
+        checkState(writable, "Spilling no longer allowed. The spiller has been made non-writable on first read for subsequent reads to be consistent");
+        spillInProgress = Futures.allAsList(stripes.stream()
+                .map(stripe -> stripe.write(() -> nextPage(pageIterator)))
+                .collect(toImmutableList()));
+        return spillInProgress;
+    }
+
+    private synchronized Optional<SequencedPage> nextPage(Iterator<Page> pageIterator)
+    {
+        if (!pageIterator.hasNext()) {
+            return Optional.empty();
+        }
+        Page page = pageIterator.next();
+        spilledPagesInMemorySize += page.getSizeInBytes();
+        return Optional.of(new SequencedPage(nextSequenceNumber++, page));
+    }
+
+    @Override
+    public synchronized long getSpilledPagesInMemorySize()
+    {
+        return spilledPagesInMemorySize;
+    }
+
+    @Override
+    public Iterator<Page> getSpilledPages()
+    {
+        checkNoSpillInProgress();
+        checkState(writable, "Repeated reads are disallowed to prevent potential resource leaks");
+        writable = false;
+
+        List<StripeReader> readers = new ArrayList<>();
+        for (Stripe stripe : stripes) {
+            StripeReader reader = new StripeReader(stripe);
+            closer.register(reader::close);
+            reader.readAhead();
+            readers.add(reader);
+        }
+        return new MergingPageIterator(readers, serde);
+    }
+
+    @Override
+    public ListenableFuture<List<Page>> getAllSpilledPages()
+    {
+        checkNoSpillInProgress();
+        checkState(writable, "Repeated reads are disallowed to prevent potential resource leaks");
+        writable = false;
+
+        // every stripe is read completely by its own task, so that no task waits for another
+        List<ListenableFuture<List<SequencedSerializedPage>>> stripePages = stripes.stream()
+                .map(Stripe::readAll)
+                .collect(toImmutableList());
+        return Futures.transform(Futures.allAsList(stripePages), pages -> pages.stream()
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingLong(SequencedSerializedPage::getSequenceNumber))
+                .map(page -> serde.deserialize(page.getPage()))
+                .collect(toImmutableList()), directExecutor());
+    }
+
+    @Override
+    public void close()
+    {
+        closer.register(localSpillContext);
+        closer.register(() -> memoryContext.setBytes(0));
+        try {
+            closer.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to close spiller", e);
+        }
+    }
+
+    private void checkNoSpillInProgress()
+    {
+        checkState(spillInProgress.isDone(), "spill in progress");
+    }
+
+    private class Stripe
+    {
+        private final FileHolder file;
+        private final PagesSerde serde;
+        private final SpillPathStats stats;
+
+        Stripe(FileHolder file, PagesSerde serde, SpillPathStats stats)
+        {
+            this.file = requireNonNull(file, "file is null");
+            this.serde = requireNonNull(serde, "serde is null");
+            this.stats = requireNonNull(stats, "stats is null");
+        }
+
+        ListenableFuture<?> write(Supplier<Optional<SequencedPage>> pages)
+        {
+            stats.writeQueued();
+            return executor.submit(() -> {
+                try (SliceOutput output = new OutputStreamSliceOutput(file.newOutputStream(APPEND), BUFFER_SIZE)) {
+                    for (Optional<SequencedPage> page = pages.get(); page.isPresent(); page = pages.get()) {
+                        SerializedPage serializedPage = serde.serialize(page.get().getPage());
+                        long pageSize = serializedPage.getSizeInBytes();
+                        localSpillContext.updateBytes(pageSize);
+                        spillerStats.addToTotalSpilledBytes(pageSize);
+                        stats.getWrittenBytes().update(pageSize);
+                        output.writeLong(page.get().getSequenceNumber());
+                        writeSerializedPage(output, serializedPage);
+                    }
+                }
+                catch (UncheckedIOException | IOException e) {
+                    throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to spill pages", e);
+                }
+                finally {
+                    stats.writeFinished();
+                }
+            });
+        }
+
+        ListenableFuture<List<SequencedSerializedPage>> readAll()
+        {
+            stats.readQueued();
+            return executor.submit(() -> {
+                try (SliceInput input = new InputStreamSliceInput(file.newInputStream(), BUFFER_SIZE)) {
+                    ImmutableList.Builder<SequencedSerializedPage> pages = ImmutableList.builder();
+                    while (input.isReadable()) {
+                        pages.add(readPage(input));
+                    }
+                    return pages.build();
+                }
+                catch (UncheckedIOException | IOException e) {
+                    throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
+                }
+                finally {
+                    stats.readFinished();
+                }
+            });
+        }
+
+        SequencedSerializedPage readPage(SliceInput input)
+        {
+            long sequenceNumber = input.readLong();
+            SerializedPage page = readSerializedPage(input);
+            stats.getReadBytes().update(page.getSizeInBytes());
+            return new SequencedSerializedPage(sequenceNumber, page);
+        }
+    }
+
+    private class StripeReader
+    {
+        private final Stripe stripe;
+        private final SliceInput input;
+        private ListenableFuture<Optional<SequencedSerializedPage>> nextPage;
+
+        StripeReader(Stripe stripe)
+        {
+            this.stripe = requireNonNull(stripe, "stripe is null");
+            try {
+                this.input = new InputStreamSliceInput(stripe.file.newInputStream(), BUFFER_SIZE);
+            }
+            catch (IOException e) {
+                throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
+            }
+        }
+
+        /**
+         * Starts reading the next page of the stripe. Only one read is in flight at a time, so the input is never read concurrently.
+         */
+        void readAhead()
+        {
+            stripe.stats.readQueued();
+            nextPage = executor.submit(() -> {
+                try {
+                    if (!input.isReadable()) {
+                        return Optional.empty();
+                    }
+                    return Optional.of(stripe.readPage(input));
+                }
+                finally {
+                    stripe.stats.readFinished();
+                }
+            });
+        }
+
+        Optional<SequencedSerializedPage> getNextPage()
+        {
+            try {
+                return getFutureValue(nextPage);
+            }
+            catch (UncheckedIOException e) {
+                throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
+            }
+        }
+
+        void close()
+                throws IOException
+        {
+            input.close();
+        }
+    }
+
+    private static class MergingPageIterator
+            extends AbstractIterator<Page>
+    {
+        private final List<StripeReader> readers;
+        private final PagesSerde serde;
+
+        MergingPageIterator(List<StripeReader> readers, PagesSerde serde)
+        {
+            this.readers = new ArrayList<>(requireNonNull(readers, "readers is null"));
+            this.serde = requireNonNull(serde, "serde is null");
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            StripeReader next = null;
+            SequencedSerializedPage nextPage = null;
+            Iterator<StripeReader> iterator = readers.iterator();
+            while (iterator.hasNext()) {
+                StripeReader reader = iterator.next();
+                Optional<SequencedSerializedPage> page = reader.getNextPage();
+                if (!page.isPresent()) {
+                    iterator.remove();
+                    continue;
+                }
+                if (nextPage == null || page.get().getSequenceNumber() < nextPage.getSequenceNumber()) {
+                    next = reader;
+                    nextPage = page.get();
+                }
+            }
+            if (next == null) {
+                return endOfData();
+            }
+            next.readAhead();
+            return serde.deserialize(nextPage.getPage());
+        }
+    }
+
+    private static class SequencedPage
+    {
+        private final long sequenceNumber;
+        private final Page page;
+
+        SequencedPage(long sequenceNumber, Page page)
+        {
+            this.sequenceNumber = sequenceNumber;
+            this.page = requireNonNull(page, "page is null");
+        }
+
+        long getSequenceNumber()
+        {
+            return sequenceNumber;
+        }
+
+        Page getPage()
+        {
+            return page;
+        }
+    }
+
+    private static class SequencedSerializedPage
+    {
+        private final long sequenceNumber;
+        private final SerializedPage page;
+
+        SequencedSerializedPage(long sequenceNumber, SerializedPage page)
+        {
+            this.sequenceNumber = sequenceNumber;
+            this.page = requireNonNull(page, "page is null");
+        }
+
+        long getSequenceNumber()
+        {
+            return sequenceNumber;
+        }
+
+        SerializedPage getPage()
+        {
+            return page;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spooling;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.io.CountingInputStream;
+import com.google.common.io.CountingOutputStream;
+import io.airlift.log.Logger;
+import io.prestosql.execution.TaskId;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.QueryId;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.inject.Inject;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.prestosql.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static java.nio.file.Files.createDirectories;
+import static java.nio.file.Files.exists;
+import static java.nio.file.Files.move;
+import static java.nio.file.Files.newInputStream;
+import static java.nio.file.Files.newOutputStream;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Keeps the output of the tasks in a directory, with one directory per query. Each attempt of a task
+ * writes its files into a directory of its own, and commits them by renaming that directory to the
+ * directory of the task, which fails if another attempt committed first. For the output to outlive
+ * the nodes that wrote it, the directory must be on a file system that all nodes share.
+ */
+public class LocalSpoolingStorage
+        implements SpoolingStorage
+{
+    private static final Logger log = Logger.get(LocalSpoolingStorage.class);
+
+    private final Optional<Path> spoolingPath;
+
+    private final AtomicLong spooledBytes = new AtomicLong();
+    private final AtomicLong readBytes = new AtomicLong();
+    private final AtomicLong committedOutputs = new AtomicLong();
+    private final AtomicLong discardedOutputs = new AtomicLong();
+
+    @Inject
+    public LocalSpoolingStorage(SpoolingConfig config)
+    {
+        this(Optional.ofNullable(requireNonNull(config, "config is null").getSpoolingPath()).map(Paths::get));
+    }
+
+    @VisibleForTesting
+    public LocalSpoolingStorage(Optional<Path> spoolingPath)
+    {
+        this.spoolingPath = requireNonNull(spoolingPath, "spoolingPath is null");
+    }
+
+    @Override
+    public TaskOutputWriter createTaskOutput(TaskId taskId)
+    {
+        Path taskPath = getTaskPath(taskId);
+        Path attemptPath = taskPath.resolveSibling(taskPath.getFileName() + "." + UUID.randomUUID() + ".attempt");
+        try {
+            createDirectories(attemptPath);
+        }
+        catch (IOException e) {
+            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Could not create spooling directory " + attemptPath, e);
+        }
+        return new LocalTaskOutputWriter(taskPath, attemptPath);
+    }
+
+    @Override
+    public Optional<InputStream> openCommittedFile(TaskId taskId, String fileName)
+            throws IOException
+    {
+        Path taskPath = getTaskPath(taskId);
+        if (!exists(taskPath)) {
+            return Optional.empty();
+        }
+        return Optional.of(new CountingFileInputStream(newInputStream(taskPath.resolve(fileName))));
+    }
+
+    @Override
+    public void removeQuery(QueryId queryId)
+    {
+        if (!spoolingPath.isPresent()) {
+            return;
+        }
+        Path queryPath = spoolingPath.get().resolve(queryId.toString());
+        try {
+            deleteRecursively(queryPath, ALLOW_INSECURE);
+        }
+        catch (NoSuchFileException ignored) {
+            // the query did not spool any output
+        }
+        catch (IOException e) {
+            log.warn(e, "Could not remove spooled output of query %s", queryId);
+        }
+    }
+
+    @Managed
+    public long getSpooledBytes()
+    {
+        return spooledBytes.get();
+    }
+
+    @Managed
+    public long getReadBytes()
+    {
+        return readBytes.get();
+    }
+
+    @Managed
+    public long getCommittedOutputs()
+    {
+        return committedOutputs.get();
+    }
+
+    @Managed
+    public long getDiscardedOutputs()
+    {
+        return discardedOutputs.get();
+    }
+
+    private Path getTaskPath(TaskId taskId)
+    {
+        Path path = spoolingPath.orElseThrow(() -> new PrestoException(GENERIC_INTERNAL_ERROR, "Fault-tolerant execution requires spooling.path to be configured"));
+        return path.resolve(taskId.getQueryId().toString()).resolve(taskId.toString());
+    }
+
+    private static void deleteQuietly(Path path)
+    {
+        try {
+            deleteRecursively(path, ALLOW_INSECURE);
+        }
+        catch (IOException e) {
+            log.warn(e, "Could not delete spooled output %s", path);
+        }
+    }
+
+    private class LocalTaskOutputWriter
+            implements TaskOutputWriter
+    {
+        private final Path taskPath;
+        private final Path attemptPath;
+
+        @GuardedBy("this")
+        private boolean committed;
+        @GuardedBy("this")
+        private boolean aborted;
+
+        public LocalTaskOutputWriter(Path taskPath, Path attemptPath)
+        {
+            this.taskPath = requireNonNull(taskPath, "taskPath is null");
+            this.attemptPath = requireNonNull(attemptPath, "attemptPath is null");
+        }
+
+        @Override
+        public synchronized OutputStream createFile(String fileName)
+                throws IOException
+        {
+            checkState(!committed && !aborted, "output is already committed or aborted");
+            return new CountingFileOutputStream(newOutputStream(attemptPath.resolve(fileName)));
+        }
+
+        @Override
+        public synchronized boolean commit()
+                throws IOException
+        {
+            checkState(!committed && !aborted, "output is already committed or aborted");
+            try {
+                move(attemptPath, taskPath, ATOMIC_MOVE);
+                committed = true;
+                committedOutputs.incrementAndGet();
+                return true;
+            }
+            catch (IOException e) {
+                if (!exists(taskPath)) {
+                    throw e;
+                }
+            }
+            // another attempt of the task committed first
+            aborted = true;
+            discardedOutputs.incrementAndGet();
+            deleteQuietly(attemptPath);
+            return false;
+        }
+
+        @Override
+        public synchronized void abort()
+        {
+            if (committed || aborted) {
+                return;
+            }
+            aborted = true;
+            deleteQuietly(attemptPath);
+        }
+    }
+
+    private class CountingFileOutputStream
+            extends FilterOutputStream
+    {
+        public CountingFileOutputStream(OutputStream out)
+        {
+            super(new CountingOutputStream(out));
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length)
+                throws IOException
+        {
+            out.write(buffer, offset, length);
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            super.close();
+            spooledBytes.addAndGet(((CountingOutputStream) out).getCount());
+        }
+    }
+
+    private class CountingFileInputStream
+            extends FilterInputStream
+    {
+        public CountingFileInputStream(InputStream in)
+        {
+            super(new CountingInputStream(in));
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            super.close();
+            readBytes.addAndGet(((CountingInputStream) in).getCount());
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spooling;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Describes where the pages of each output buffer of a task are in the files the task spooled.
+ * The pages of a buffer are a contiguous range of one data file. An output buffer without an
+ * entry received no pages.
+ */
+public final class SpooledOutputManifest
+{
+    public static final String MANIFEST_FILE_NAME = "manifest";
+    public static final int ALL_BUFFERS = -1;
+
+    private final Map<Integer, FileRange> ranges;
+
+    public SpooledOutputManifest(Map<Integer, FileRange> ranges)
+    {
+        this.ranges = ImmutableMap.copyOf(requireNonNull(ranges, "ranges is null"));
+    }
+
+    public static String dataFileName(int fileIndex)
+    {
+        return "data-" + fileIndex;
+    }
+
+    public Map<Integer, FileRange> getRanges()
+    {
+        return ranges;
+    }
+
+    public Optional<FileRange> getRange(int bufferId)
+    {
+        FileRange range = ranges.get(ALL_BUFFERS);
+        if (range == null) {
+            range = ranges.get(bufferId);
+        }
+        return Optional.ofNullable(range);
+    }
+
+    public void writeTo(OutputStream outputStream)
+            throws IOException
+    {
+        DataOutputStream output = new DataOutputStream(outputStream);
+        output.writeInt(ranges.size());
+        for (Entry<Integer, FileRange> entry : ranges.entrySet()) {
+            output.writeInt(entry.getKey());
+            output.writeInt(entry.getValue().getFileIndex());
+            output.writeLong(entry.getValue().getStart());
+            output.writeLong(entry.getValue().getEnd());
+        }
+        output.flush();
+    }
+
+    public static SpooledOutputManifest readFrom(InputStream inputStream)
+            throws IOException
+    {
+        DataInputStream input = new DataInputStream(inputStream);
+        int count = input.readInt();
+        ImmutableMap.Builder<Integer, FileRange> ranges = ImmutableMap.builder();
+        for (int i = 0; i < count; i++) {
+            int bufferId = input.readInt();
+            ranges.put(bufferId, new FileRange(input.readInt(), input.readLong(), input.readLong()));
+        }
+        return new SpooledOutputManifest(ranges.build());
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        SpooledOutputManifest that = (SpooledOutputManifest) o;
+        return ranges.equals(that.ranges);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return ranges.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("ranges", ranges)
+                .toString();
+    }
+
+    public static final class FileRange
+    {
+        private final int fileIndex;
+        private final long start;
+        private final long end;
+
+        public FileRange(int fileIndex, long start, long end)
+        {
+            checkArgument(fileIndex >= 0, "fileIndex is negative");
+            checkArgument(start >= 0 && start <= end, "invalid range [%s, %s)", start, end);
+            this.fileIndex = fileIndex;
+            this.start = start;
+            this.end = end;
+        }
+
+        public int getFileIndex()
+        {
+            return fileIndex;
+        }
+
+        public long getStart()
+        {
+            return start;
+        }
+
+        public long getEnd()
+        {
+            return end;
+        }
+
+        public long getLength()
+        {
+            return end - start;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileRange that = (FileRange) o;
+            return fileIndex == that.fileIndex &&
+                    start == that.start &&
+                    end == that.end;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(fileIndex, start, end);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("fileIndex", fileIndex)
+                    .add("start", start)
+                    .add("end", end)
+                    .toString();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spooling;
+
+import io.prestosql.execution.TaskId;
+import io.prestosql.spi.QueryId;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+/**
+ * Stores the output of the tasks of fault-tolerant queries, so that it can still be read after
+ * the task is gone, and read again when a consumer task is retried. Each attempt of a task writes
+ * its own files, which become visible to readers only once the attempt commits them. The first
+ * attempt of a task to commit wins, and the files of the other attempts are discarded.
+ */
+public interface SpoolingStorage
+{
+    /**
+     * Creates the output of a new attempt of the task.
+     */
+    TaskOutputWriter createTaskOutput(TaskId taskId);
+
+    /**
+     * Opens a file of the committed output of the task, or returns empty if no attempt of the
+     * task has committed its output yet.
+     */
+    Optional<InputStream> openCommittedFile(TaskId taskId, String fileName)
+            throws IOException;
+
+    /**
+     * Removes the output of all tasks of the query.
+     */
+    void removeQuery(QueryId queryId);
+
+    interface TaskOutputWriter
+    {
+        OutputStream createFile(String fileName)
+                throws IOException;
+
+        /**
+         * Makes the files of this attempt visible to readers. Returns false if another attempt
+         * of the task committed first, in which case the files of this attempt are discarded.
+         */
+        boolean commit()
+                throws IOException;
+
+        /**
+         * Discards the files of this attempt, unless they have been committed.
+         */
+        void abort();
+    }
+}
@@ -25,6 +25,7 @@ import io.prestosql.metadata.TableHandle;
 import io.prestosql.security.AccessControl;
 import io.prestosql.security.SecurityContext;
 import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
 import io.prestosql.spi.security.Identity;
 import io.prestosql.spi.type.Type;
@@ -83,6 +84,8 @@ public class Analysis
     @Nullable
     private final Statement root;
     private final Map<NodeRef<Parameter>, Expression> parameters;
+    // set while the statement is planned for a plan template, which is bound to the parameter values later
+    private boolean parameterBindingDeferred;
     private String updateType;
 
     private final Map<NodeRef<Table>, Query> namedQueries = new LinkedHashMap<>();
@@ -133,6 +136,7 @@ public class Analysis
 
     private Optional<Create> create = Optional.empty();
     private Optional<Insert> insert = Optional.empty();
+    private Optional<RefreshMaterializedView> refreshMaterializedView = Optional.empty();
     private Optional<TableHandle> analyzeTarget = Optional.empty();
 
     // for describe input and describe output
@@ -551,6 +555,16 @@ public class Analysis
         return insert;
     }
 
+    public void setRefreshMaterializedView(RefreshMaterializedView refreshMaterializedView)
+    {
+        this.refreshMaterializedView = Optional.of(refreshMaterializedView);
+    }
+
+    public Optional<RefreshMaterializedView> getRefreshMaterializedView()
+    {
+        return refreshMaterializedView;
+    }
+
     public Query getNamedQuery(Table table)
     {
         return namedQueries.get(NodeRef.of(table));
@@ -607,6 +621,16 @@ public class Analysis
         return parameters;
     }
 
+    public boolean isParameterBindingDeferred()
+    {
+        return parameterBindingDeferred;
+    }
+
+    public void setParameterBindingDeferred(boolean parameterBindingDeferred)
+    {
+        this.parameterBindingDeferred = parameterBindingDeferred;
+    }
+
     public boolean isDescribe()
     {
         return isDescribe;
@@ -731,6 +755,36 @@ public class Analysis
         }
     }
 
+    @Immutable
+    public static final class RefreshMaterializedView
+    {
+        private final Query query;
+        private final ConnectorMaterializedViewDefinition definition;
+        private final Insert insert;
+
+        public RefreshMaterializedView(Query query, ConnectorMaterializedViewDefinition definition, Insert insert)
+        {
+            this.query = requireNonNull(query, "query is null");
+            this.definition = requireNonNull(definition, "definition is null");
+            this.insert = requireNonNull(insert, "insert is null");
+        }
+
+        public Query getQuery()
+        {
+            return query;
+        }
+
+        public ConnectorMaterializedViewDefinition getDefinition()
+        {
+            return definition;
+        }
+
+        public Insert getInsert()
+        {
+            return insert;
+        }
+    }
+
     public static final class JoinUsingAnalysis
     {
         private final List<Integer> leftJoinFields;
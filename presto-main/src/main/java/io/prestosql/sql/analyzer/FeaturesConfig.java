@@ -22,6 +22,7 @@ import io.airlift.configuration.DefunctConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.airlift.units.MaxDataSize;
+import io.prestosql.execution.buffer.CompressionCodec;
 import io.prestosql.operator.aggregation.arrayagg.ArrayAggGroupImplementation;
 import io.prestosql.operator.aggregation.histogram.HistogramGroupImplementation;
 import io.prestosql.operator.aggregation.multimapagg.MultimapAggGroupImplementation;
@@ -78,6 +79,7 @@ public class FeaturesConfig
     private boolean fastInequalityJoins = true;
     private JoinReorderingStrategy joinReorderingStrategy = ELIMINATE_CROSS_JOINS;
     private int maxReorderedJoins = 9;
+    private int joinEnumerationMaxSubgraphs = 1024;
     private boolean redistributeWrites = true;
     private boolean scaleWriters;
     private DataSize writerMinSize = new DataSize(32, DataSize.Unit.MEGABYTE);
@@ -86,12 +88,14 @@ public class FeaturesConfig
     private boolean enableIntermediateAggregations;
     private boolean pushTableWriteThroughUnion = true;
     private boolean exchangeCompressionEnabled;
+    private CompressionCodec exchangeCompressionCodec = CompressionCodec.LZ4;
     private boolean legacyTimestamp = true;
     private boolean optimizeMixedDistinctAggregations;
     private boolean unwrapCasts = true;
     private boolean forceSingleNodeOutput = true;
     private boolean pagesIndexEagerCompactionEnabled;
     private boolean distributedSort = true;
+    private boolean mergeJoinEnabled;
 
     private boolean dictionaryAggregation;
 
@@ -107,6 +111,7 @@ public class FeaturesConfig
     private DataSize aggregationOperatorUnspillMemoryLimit = new DataSize(4, DataSize.Unit.MEGABYTE);
     private List<Path> spillerSpillPaths = ImmutableList.of();
     private int spillerThreads = 4;
+    private int spillerMaxStripes = 1;
     private double spillMaxUsedSpaceThreshold = 0.9;
     private boolean iterativeOptimizerEnabled = true;
     private boolean enableStatsCalculator = true;
@@ -122,6 +127,8 @@ public class FeaturesConfig
     private boolean optimizeTopNRowNumber = true;
     private boolean workProcessorPipelines;
     private boolean skipRedundantSort = true;
+    private boolean materializedViewRewriteEnabled;
+    private boolean shareTableScansInUnion;
 
     private Duration iterativeOptimizerTimeout = new Duration(3, MINUTES); // by default let optimizer wait a long time in case it retrieves some data from ConnectorMetadata
     private boolean enableDynamicFiltering;
@@ -348,6 +355,20 @@ public class FeaturesConfig
         return this;
     }
 
+    @Min(1)
+    public int getJoinEnumerationMaxSubgraphs()
+    {
+        return joinEnumerationMaxSubgraphs;
+    }
+
+    @Config("optimizer.join-enumeration-max-subgraphs")
+    @ConfigDescription("Join orders of join graphs with more connected subgraphs than this are chosen greedily instead of exhaustively")
+    public FeaturesConfig setJoinEnumerationMaxSubgraphs(int joinEnumerationMaxSubgraphs)
+    {
+        this.joinEnumerationMaxSubgraphs = joinEnumerationMaxSubgraphs;
+        return this;
+    }
+
     public boolean isRedistributeWrites()
     {
         return redistributeWrites;
@@ -661,6 +682,20 @@ public class FeaturesConfig
         return this;
     }
 
+    @Min(1)
+    public int getSpillerMaxStripes()
+    {
+        return spillerMaxStripes;
+    }
+
+    @Config("experimental.spiller-max-stripes")
+    @ConfigDescription("Maximum number of spill paths a single spilled stream of pages is striped across")
+    public FeaturesConfig setSpillerMaxStripes(int spillerMaxStripes)
+    {
+        this.spillerMaxStripes = spillerMaxStripes;
+        return this;
+    }
+
     @DecimalMin("0.0")
     @DecimalMax("1.0")
     public double getMemoryRevokingThreshold()
@@ -776,6 +811,19 @@ public class FeaturesConfig
         return this;
     }
 
+    @NotNull
+    public CompressionCodec getExchangeCompressionCodec()
+    {
+        return exchangeCompressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    public FeaturesConfig setExchangeCompressionCodec(CompressionCodec exchangeCompressionCodec)
+    {
+        this.exchangeCompressionCodec = exchangeCompressionCodec;
+        return this;
+    }
+
     public boolean isEnableIntermediateAggregations()
     {
         return enableIntermediateAggregations;
@@ -910,6 +958,19 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isMergeJoinEnabled()
+    {
+        return mergeJoinEnabled;
+    }
+
+    @Config("optimizer.merge-join-enabled")
+    @ConfigDescription("Use sort-merge join when both join inputs are already sorted on the join keys")
+    public FeaturesConfig setMergeJoinEnabled(boolean mergeJoinEnabled)
+    {
+        this.mergeJoinEnabled = mergeJoinEnabled;
+        return this;
+    }
+
     public int getMaxGroupingSets()
     {
         return maxGroupingSets;
@@ -945,4 +1006,30 @@ public class FeaturesConfig
         this.skipRedundantSort = value;
         return this;
     }
+
+    public boolean isMaterializedViewRewriteEnabled()
+    {
+        return materializedViewRewriteEnabled;
+    }
+
+    @Config("optimizer.materialized-view-rewrite-enabled")
+    @ConfigDescription("Answer queries from fresh materialized views that store the same rows")
+    public FeaturesConfig setMaterializedViewRewriteEnabled(boolean materializedViewRewriteEnabled)
+    {
+        this.materializedViewRewriteEnabled = materializedViewRewriteEnabled;
+        return this;
+    }
+
+    public boolean isShareTableScansInUnion()
+    {
+        return shareTableScansInUnion;
+    }
+
+    @Config("optimizer.share-table-scans-in-union")
+    @ConfigDescription("Read a table once for all branches of a UNION ALL that scan it")
+    public FeaturesConfig setShareTableScansInUnion(boolean shareTableScansInUnion)
+    {
+        this.shareTableScansInUnion = shareTableScansInUnion;
+        return this;
+    }
 }
@@ -38,6 +38,7 @@ import io.prestosql.spi.PrestoWarning;
 import io.prestosql.spi.connector.CatalogSchemaName;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
 import io.prestosql.spi.connector.ConnectorViewDefinition;
 import io.prestosql.spi.connector.ConnectorViewDefinition.ViewColumn;
@@ -62,6 +63,7 @@ import io.prestosql.sql.tree.Analyze;
 import io.prestosql.sql.tree.Call;
 import io.prestosql.sql.tree.Comment;
 import io.prestosql.sql.tree.Commit;
+import io.prestosql.sql.tree.CreateMaterializedView;
 import io.prestosql.sql.tree.CreateSchema;
 import io.prestosql.sql.tree.CreateTable;
 import io.prestosql.sql.tree.CreateTableAsSelect;
@@ -72,6 +74,7 @@ import io.prestosql.sql.tree.DefaultTraversalVisitor;
 import io.prestosql.sql.tree.Delete;
 import io.prestosql.sql.tree.DereferenceExpression;
 import io.prestosql.sql.tree.DropColumn;
+import io.prestosql.sql.tree.DropMaterializedView;
 import io.prestosql.sql.tree.DropSchema;
 import io.prestosql.sql.tree.DropTable;
 import io.prestosql.sql.tree.DropView;
@@ -111,6 +114,7 @@ import io.prestosql.sql.tree.Property;
 import io.prestosql.sql.tree.QualifiedName;
 import io.prestosql.sql.tree.Query;
 import io.prestosql.sql.tree.QuerySpecification;
+import io.prestosql.sql.tree.RefreshMaterializedView;
 import io.prestosql.sql.tree.Relation;
 import io.prestosql.sql.tree.RenameColumn;
 import io.prestosql.sql.tree.RenameSchema;
@@ -380,6 +384,51 @@ class StatementAnalyzer
             return createAndAssignScope(insert, scope, Field.newUnqualified("rows", BIGINT));
         }
 
+        @Override
+        protected Scope visitRefreshMaterializedView(RefreshMaterializedView node, Optional<Scope> scope)
+        {
+            QualifiedObjectName viewName = createQualifiedObjectName(session, node, node.getName());
+            ConnectorMaterializedViewDefinition definition = metadata.getMaterializedView(session, viewName)
+                    .orElseThrow(() -> semanticException(TABLE_NOT_FOUND, node, "Materialized view '%s' does not exist", viewName));
+            TableHandle targetTableHandle = metadata.getTableHandle(session, viewName)
+                    .orElseThrow(() -> semanticException(TABLE_NOT_FOUND, node, "Storage table of materialized view '%s' does not exist", viewName));
+
+            // a refresh replaces the stored data, either in full or by appending to it
+            accessControl.checkCanInsertIntoTable(session.toSecurityContext(), viewName);
+            accessControl.checkCanDeleteFromTable(session.toSecurityContext(), viewName);
+
+            analysis.setUpdateType("REFRESH MATERIALIZED VIEW");
+
+            // analyze the query that defines the view
+            Query query = parseView(definition.getOriginalSql(), viewName, node);
+            RelationType queryDescriptor = analyzeView(query, viewName, definition.getCatalog(), definition.getSchema(), definition.getOwner(), node);
+
+            TableMetadata tableMetadata = metadata.getTableMetadata(session, targetTableHandle);
+            List<ColumnMetadata> tableColumns = tableMetadata.getColumns().stream()
+                    .filter(column -> !column.isHidden())
+                    .collect(toImmutableList());
+            List<Type> tableTypes = tableColumns.stream()
+                    .map(ColumnMetadata::getType)
+                    .collect(toImmutableList());
+            List<Type> queryTypes = queryDescriptor.getVisibleFields().stream()
+                    .map(Field::getType)
+                    .collect(toImmutableList());
+            if (!typesMatchForInsert(tableTypes, queryTypes)) {
+                throw semanticException(VIEW_IS_STALE, node, "Materialized view '%s' is stale; it must be re-created", viewName);
+            }
+
+            Map<String, ColumnHandle> columnHandles = metadata.getColumnHandles(session, targetTableHandle);
+            analysis.setRefreshMaterializedView(new Analysis.RefreshMaterializedView(
+                    query,
+                    definition,
+                    new Analysis.Insert(
+                            targetTableHandle,
+                            tableColumns.stream().map(column -> columnHandles.get(column.getName())).collect(toImmutableList()),
+                            metadata.getInsertLayout(session, targetTableHandle))));
+
+            return createAndAssignScope(node, scope, Field.newUnqualified("rows", BIGINT));
+        }
+
         private boolean typesMatchForInsert(List<Type> tableTypes, List<Type> queryTypes)
         {
             if (tableTypes.size() != queryTypes.size()) {
@@ -574,6 +623,27 @@ class StatementAnalyzer
             return createAndAssignScope(node, scope);
         }
 
+        @Override
+        protected Scope visitCreateMaterializedView(CreateMaterializedView node, Optional<Scope> scope)
+        {
+            analysis.setUpdateType("CREATE MATERIALIZED VIEW");
+
+            QualifiedObjectName viewName = createQualifiedObjectName(session, node, node.getName());
+
+            validateProperties(node.getProperties(), scope);
+
+            // analyze the query that defines the view
+            StatementAnalyzer analyzer = new StatementAnalyzer(analysis, metadata, sqlParser, accessControl, session, warningCollector);
+
+            Scope queryScope = analyzer.analyze(node.getQuery(), scope);
+
+            accessControl.checkCanCreateTable(session.toSecurityContext(), viewName);
+
+            validateColumns(node, queryScope.getRelationType());
+
+            return createAndAssignScope(node, scope);
+        }
+
         @Override
         protected Scope visitSetSession(SetSession node, Optional<Scope> scope)
         {
@@ -663,6 +733,12 @@ class StatementAnalyzer
             return createAndAssignScope(node, scope);
         }
 
+        @Override
+        protected Scope visitDropMaterializedView(DropMaterializedView node, Optional<Scope> scope)
+        {
+            return createAndAssignScope(node, scope);
+        }
+
         @Override
         protected Scope visitStartTransaction(StartTransaction node, Optional<Scope> scope)
         {
@@ -2046,7 +2122,7 @@ class StatementAnalyzer
             }
         }
 
-        private RelationType analyzeView(Query query, QualifiedObjectName name, Optional<String> catalog, Optional<String> schema, Optional<String> owner, Table node)
+        private RelationType analyzeView(Query query, QualifiedObjectName name, Optional<String> catalog, Optional<String> schema, Optional<String> owner, Node node)
         {
             try {
                 // run view as view owner if set; otherwise, run as session user
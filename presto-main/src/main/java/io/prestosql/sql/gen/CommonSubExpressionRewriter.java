@@ -0,0 +1,696 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.sql.relational.CallExpression;
+import io.prestosql.sql.relational.ConstantExpression;
+import io.prestosql.sql.relational.DeterminismEvaluator;
+import io.prestosql.sql.relational.InputReferenceExpression;
+import io.prestosql.sql.relational.LambdaDefinitionExpression;
+import io.prestosql.sql.relational.RowExpression;
+import io.prestosql.sql.relational.RowExpressionVisitor;
+import io.prestosql.sql.relational.SpecialForm;
+import io.prestosql.sql.relational.VariableReferenceExpression;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.sql.gen.CommonSubExpressionRewriter.Stage.FILTER;
+import static io.prestosql.sql.gen.CommonSubExpressionRewriter.Stage.PROJECTION;
+import static io.prestosql.sql.relational.Expressions.field;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Finds deterministic subexpressions that occur more than once across the filter and the
+ * projections of a page processor, and rewrites them to read a precomputed channel instead.
+ * The precomputed channels are appended after the input channels of the page: channels for
+ * subexpressions the filter needs are computed for all positions before the filter runs, and
+ * the remaining ones are computed only for the positions selected by the filter.
+ * <p>
+ * Generated code skips the evaluation of a function argument when an earlier argument is null,
+ * and conditional forms only evaluate some of their operands, so a subexpression is only
+ * computed ahead of time if at least one of its occurrences would always have been evaluated.
+ * Otherwise hoisting it could raise errors for rows the original expression never evaluated.
+ */
+public final class CommonSubExpressionRewriter
+{
+    private CommonSubExpressionRewriter() {}
+
+    public static Result extractCommonSubExpressions(Optional<RowExpression> filter, List<? extends RowExpression> projections, DeterminismEvaluator determinismEvaluator)
+    {
+        requireNonNull(filter, "filter is null");
+        requireNonNull(projections, "projections is null");
+        requireNonNull(determinismEvaluator, "determinismEvaluator is null");
+
+        int inputChannelCount = 0;
+        List<Root> roots = new ArrayList<>();
+        if (filter.isPresent()) {
+            roots.add(new Root(filter.get(), FILTER, false));
+            inputChannelCount = Math.max(inputChannelCount, getInputChannelCount(filter.get()));
+        }
+        for (RowExpression projection : projections) {
+            roots.add(new Root(projection, PROJECTION, false));
+            inputChannelCount = Math.max(inputChannelCount, getInputChannelCount(projection));
+        }
+
+        // sub expression i is temporarily assigned channel inputChannelCount + i
+        List<SubExpression> subExpressions = new ArrayList<>();
+        long eliminatedEvaluations = 0;
+        while (true) {
+            Map<RowExpression, Occurrences> occurrences = new LinkedHashMap<>();
+            for (Root root : roots) {
+                root.getExpression().accept(new OccurrenceCollector(occurrences, root), true);
+            }
+
+            Optional<Candidate> candidate = selectCandidate(occurrences, determinismEvaluator);
+            if (!candidate.isPresent()) {
+                break;
+            }
+
+            RowExpression expression = candidate.get().getExpression();
+            Stage stage = candidate.get().getStage();
+            InputReferenceExpression reference = field(inputChannelCount + subExpressions.size(), expression.getType());
+            for (Root root : roots) {
+                if (stage == FILTER || root.getStage() == PROJECTION) {
+                    root.replace(ImmutableMap.of(expression, reference));
+                }
+            }
+            Root body = new Root(expression, stage, true);
+            roots.add(body);
+            subExpressions.add(new SubExpression(body, stage));
+            eliminatedEvaluations += candidate.get().getCount() - 1;
+        }
+
+        if (subExpressions.isEmpty()) {
+            return new Result(filter, ImmutableList.copyOf(projections), inputChannelCount, ImmutableList.of(), ImmutableList.of(), ImmutableList.of(), 0);
+        }
+
+        // compute the sub expressions needed by the filter first, and each sub expression after the ones it depends on
+        List<Integer> order = new ArrayList<>();
+        for (Stage stage : Stage.values()) {
+            for (int i = 0; i < subExpressions.size(); i++) {
+                if (subExpressions.get(i).getStage() == stage) {
+                    addInDependencyOrder(i, subExpressions, inputChannelCount, order);
+                }
+            }
+        }
+
+        Map<RowExpression, RowExpression> channelMapping = new HashMap<>();
+        for (int channel = 0; channel < order.size(); channel++) {
+            int index = order.get(channel);
+            RowExpression body = subExpressions.get(index).getBody().getExpression();
+            channelMapping.put(field(inputChannelCount + index, body.getType()), field(inputChannelCount + channel, body.getType()));
+        }
+        for (Root root : roots) {
+            root.replace(channelMapping);
+        }
+
+        ImmutableList.Builder<RowExpression> filterSubExpressions = ImmutableList.builder();
+        ImmutableList.Builder<RowExpression> projectionSubExpressions = ImmutableList.builder();
+        ImmutableList.Builder<RowExpression> sharedExpressions = ImmutableList.builder();
+        Map<RowExpression, RowExpression> expansions = new HashMap<>();
+        for (int channel = 0; channel < order.size(); channel++) {
+            SubExpression subExpression = subExpressions.get(order.get(channel));
+            RowExpression body = subExpression.getBody().getExpression();
+            if (subExpression.getStage() == FILTER) {
+                filterSubExpressions.add(body);
+            }
+            else {
+                projectionSubExpressions.add(body);
+            }
+            RowExpression expanded = body.accept(new ExpressionReplacer(expansions, null), null);
+            expansions.put(field(inputChannelCount + channel, body.getType()), expanded);
+            sharedExpressions.add(expanded);
+        }
+
+        int rootIndex = 0;
+        Optional<RowExpression> rewrittenFilter = Optional.empty();
+        if (filter.isPresent()) {
+            rewrittenFilter = Optional.of(roots.get(rootIndex++).getExpression());
+        }
+        ImmutableList.Builder<RowExpression> rewrittenProjections = ImmutableList.builder();
+        for (int i = 0; i < projections.size(); i++) {
+            rewrittenProjections.add(roots.get(rootIndex++).getExpression());
+        }
+
+        return new Result(
+                rewrittenFilter,
+                rewrittenProjections.build(),
+                inputChannelCount,
+                filterSubExpressions.build(),
+                projectionSubExpressions.build(),
+                sharedExpressions.build(),
+                eliminatedEvaluations);
+    }
+
+    private static Optional<Candidate> selectCandidate(Map<RowExpression, Occurrences> occurrences, DeterminismEvaluator determinismEvaluator)
+    {
+        Candidate best = null;
+        for (Map.Entry<RowExpression, Occurrences> entry : occurrences.entrySet()) {
+            Occurrences occurrence = entry.getValue();
+            if (!occurrence.isEligible()) {
+                continue;
+            }
+
+            Stage stage;
+            int count;
+            if (occurrence.isUnconditionalInFilter()) {
+                stage = FILTER;
+                count = occurrence.getCount();
+            }
+            else if (occurrence.isUnconditionalInProjection()) {
+                stage = PROJECTION;
+                count = occurrence.getProjectionCount();
+            }
+            else {
+                continue;
+            }
+
+            // prefer the largest expression, so that the expressions nested in it are only shared
+            // if they also occur outside of it
+            if (count > 1 && (best == null || occurrence.getSize() > best.getSize()) && determinismEvaluator.isDeterministic(entry.getKey())) {
+                best = new Candidate(entry.getKey(), stage, count, occurrence.getSize());
+            }
+        }
+        return Optional.ofNullable(best);
+    }
+
+    private static void addInDependencyOrder(int index, List<SubExpression> subExpressions, int inputChannelCount, List<Integer> order)
+    {
+        if (order.contains(index)) {
+            return;
+        }
+        SubExpression subExpression = subExpressions.get(index);
+        for (int channel : getInputChannels(subExpression.getBody().getExpression())) {
+            if (channel >= inputChannelCount) {
+                SubExpression dependency = subExpressions.get(channel - inputChannelCount);
+                checkState(dependency.getStage() == FILTER || subExpression.getStage() == PROJECTION, "filter sub expression depends on a projection sub expression");
+                addInDependencyOrder(channel - inputChannelCount, subExpressions, inputChannelCount, order);
+            }
+        }
+        order.add(index);
+    }
+
+    private static int getInputChannelCount(RowExpression expression)
+    {
+        return getInputChannels(expression).stream()
+                .mapToInt(Integer::intValue)
+                .max()
+                .orElse(-1) + 1;
+    }
+
+    private static Set<Integer> getInputChannels(RowExpression expression)
+    {
+        Set<Integer> channels = new TreeSet<>();
+        expression.accept(new RowExpressionVisitor<Void, Void>()
+        {
+            @Override
+            public Void visitCall(CallExpression call, Void context)
+            {
+                call.getArguments().forEach(argument -> argument.accept(this, context));
+                return null;
+            }
+
+            @Override
+            public Void visitInputReference(InputReferenceExpression reference, Void context)
+            {
+                channels.add(reference.getField());
+                return null;
+            }
+
+            @Override
+            public Void visitConstant(ConstantExpression literal, Void context)
+            {
+                return null;
+            }
+
+            @Override
+            public Void visitLambda(LambdaDefinitionExpression lambda, Void context)
+            {
+                return null;
+            }
+
+            @Override
+            public Void visitVariableReference(VariableReferenceExpression reference, Void context)
+            {
+                return null;
+            }
+
+            @Override
+            public Void visitSpecialForm(SpecialForm specialForm, Void context)
+            {
+                specialForm.getArguments().forEach(argument -> argument.accept(this, context));
+                return null;
+            }
+        }, null);
+        return channels;
+    }
+
+    private static boolean isUnconditionalArgument(SpecialForm specialForm, int argument)
+    {
+        switch (specialForm.getForm()) {
+            case ROW_CONSTRUCTOR:
+                return true;
+            case WHEN:
+            case BIND:
+                return false;
+            default:
+                return argument == 0;
+        }
+    }
+
+    enum Stage
+    {
+        FILTER,
+        PROJECTION
+    }
+
+    /**
+     * Records every call and special form of an expression tree, and returns a summary of the
+     * visited tree. The context is whether the visited expression is always evaluated when the
+     * root of the tree is.
+     */
+    private static class OccurrenceCollector
+            implements RowExpressionVisitor<NodeInfo, Boolean>
+    {
+        private final Map<RowExpression, Occurrences> occurrences;
+        private final Root root;
+
+        public OccurrenceCollector(Map<RowExpression, Occurrences> occurrences, Root root)
+        {
+            this.occurrences = requireNonNull(occurrences, "occurrences is null");
+            this.root = requireNonNull(root, "root is null");
+        }
+
+        @Override
+        public NodeInfo visitCall(CallExpression call, Boolean unconditional)
+        {
+            NodeInfo info = new NodeInfo(1, false, true);
+            for (int i = 0; i < call.getArguments().size(); i++) {
+                info = info.add(call.getArguments().get(i).accept(this, unconditional && i == 0));
+            }
+            record(call, info, unconditional);
+            return info;
+        }
+
+        @Override
+        public NodeInfo visitSpecialForm(SpecialForm specialForm, Boolean unconditional)
+        {
+            NodeInfo info = new NodeInfo(1, false, true);
+            for (int i = 0; i < specialForm.getArguments().size(); i++) {
+                info = info.add(specialForm.getArguments().get(i).accept(this, unconditional && isUnconditionalArgument(specialForm, i)));
+            }
+            record(specialForm, info, unconditional);
+            return info;
+        }
+
+        @Override
+        public NodeInfo visitInputReference(InputReferenceExpression reference, Boolean unconditional)
+        {
+            return new NodeInfo(1, true, true);
+        }
+
+        @Override
+        public NodeInfo visitConstant(ConstantExpression literal, Boolean unconditional)
+        {
+            return new NodeInfo(1, false, true);
+        }
+
+        @Override
+        public NodeInfo visitLambda(LambdaDefinitionExpression lambda, Boolean unconditional)
+        {
+            // lambda bodies are compiled separately and are never shared
+            return new NodeInfo(1, false, false);
+        }
+
+        @Override
+        public NodeInfo visitVariableReference(VariableReferenceExpression reference, Boolean unconditional)
+        {
+            return new NodeInfo(1, false, false);
+        }
+
+        private void record(RowExpression expression, NodeInfo info, boolean unconditional)
+        {
+            // the body of an extracted sub expression is not an occurrence of itself
+            if (root.isSubExpression() && expression == root.getExpression()) {
+                return;
+            }
+            occurrences.computeIfAbsent(expression, key -> new Occurrences(info))
+                    .add(root.getStage(), unconditional);
+        }
+    }
+
+    private static class NodeInfo
+    {
+        private final int size;
+        private final boolean referencesInput;
+        private final boolean shareable;
+
+        public NodeInfo(int size, boolean referencesInput, boolean shareable)
+        {
+            this.size = size;
+            this.referencesInput = referencesInput;
+            this.shareable = shareable;
+        }
+
+        public NodeInfo add(NodeInfo other)
+        {
+            return new NodeInfo(size + other.size, referencesInput || other.referencesInput, shareable && other.shareable);
+        }
+    }
+
+    private static class Occurrences
+    {
+        private final NodeInfo info;
+        private int count;
+        private int projectionCount;
+        private boolean unconditionalInFilter;
+        private boolean unconditionalInProjection;
+
+        public Occurrences(NodeInfo info)
+        {
+            this.info = requireNonNull(info, "info is null");
+        }
+
+        public void add(Stage stage, boolean unconditional)
+        {
+            count++;
+            if (stage == FILTER) {
+                unconditionalInFilter |= unconditional;
+            }
+            else {
+                projectionCount++;
+                unconditionalInProjection |= unconditional;
+            }
+        }
+
+        public boolean isEligible()
+        {
+            return info.shareable && info.referencesInput;
+        }
+
+        public int getSize()
+        {
+            return info.size;
+        }
+
+        public int getCount()
+        {
+            return count;
+        }
+
+        public int getProjectionCount()
+        {
+            return projectionCount;
+        }
+
+        public boolean isUnconditionalInFilter()
+        {
+            return unconditionalInFilter;
+        }
+
+        public boolean isUnconditionalInProjection()
+        {
+            return unconditionalInProjection;
+        }
+    }
+
+    private static class Candidate
+    {
+        private final RowExpression expression;
+        private final Stage stage;
+        private final int count;
+        private final int size;
+
+        public Candidate(RowExpression expression, Stage stage, int count, int size)
+        {
+            this.expression = requireNonNull(expression, "expression is null");
+            this.stage = requireNonNull(stage, "stage is null");
+            this.count = count;
+            this.size = size;
+        }
+
+        public RowExpression getExpression()
+        {
+            return expression;
+        }
+
+        public Stage getStage()
+        {
+            return stage;
+        }
+
+        public int getCount()
+        {
+            return count;
+        }
+
+        public int getSize()
+        {
+            return size;
+        }
+    }
+
+    /**
+     * An expression being rewritten: the filter, a projection, or the body of an extracted
+     * sub expression. The stage is the one in which the expression is evaluated.
+     */
+    private static class Root
+    {
+        private final Stage stage;
+        private final boolean subExpression;
+        private RowExpression expression;
+
+        public Root(RowExpression expression, Stage stage, boolean subExpression)
+        {
+            this.expression = requireNonNull(expression, "expression is null");
+            this.stage = requireNonNull(stage, "stage is null");
+            this.subExpression = subExpression;
+        }
+
+        public RowExpression getExpression()
+        {
+            return expression;
+        }
+
+        public Stage getStage()
+        {
+            return stage;
+        }
+
+        public boolean isSubExpression()
+        {
+            return subExpression;
+        }
+
+        public void replace(Map<RowExpression, RowExpression> replacements)
+        {
+            expression = expression.accept(new ExpressionReplacer(replacements, subExpression ? expression : null), null);
+        }
+    }
+
+    private static class SubExpression
+    {
+        private final Root body;
+        private final Stage stage;
+
+        public SubExpression(Root body, Stage stage)
+        {
+            this.body = requireNonNull(body, "body is null");
+            this.stage = requireNonNull(stage, "stage is null");
+        }
+
+        public Root getBody()
+        {
+            return body;
+        }
+
+        public Stage getStage()
+        {
+            return stage;
+        }
+    }
+
+    private static class ExpressionReplacer
+            implements RowExpressionVisitor<RowExpression, Void>
+    {
+        private final Map<RowExpression, RowExpression> replacements;
+        private final RowExpression excluded;
+
+        public ExpressionReplacer(Map<RowExpression, RowExpression> replacements, RowExpression excluded)
+        {
+            this.replacements = requireNonNull(replacements, "replacements is null");
+            this.excluded = excluded;
+        }
+
+        @Override
+        public RowExpression visitCall(CallExpression call, Void context)
+        {
+            RowExpression replacement = getReplacement(call);
+            if (replacement != null) {
+                return replacement;
+            }
+            return new CallExpression(
+                    call.getSignature(),
+                    call.getType(),
+                    call.getArguments().stream()
+                            .map(argument -> argument.accept(this, context))
+                            .collect(toImmutableList()));
+        }
+
+        @Override
+        public RowExpression visitSpecialForm(SpecialForm specialForm, Void context)
+        {
+            RowExpression replacement = getReplacement(specialForm);
+            if (replacement != null) {
+                return replacement;
+            }
+            return new SpecialForm(
+                    specialForm.getForm(),
+                    specialForm.getType(),
+                    specialForm.getArguments().stream()
+                            .map(argument -> argument.accept(this, context))
+                            .collect(toImmutableList()));
+        }
+
+        @Override
+        public RowExpression visitInputReference(InputReferenceExpression reference, Void context)
+        {
+            RowExpression replacement = getReplacement(reference);
+            return replacement != null ? replacement : reference;
+        }
+
+        @Override
+        public RowExpression visitConstant(ConstantExpression literal, Void context)
+        {
+            return literal;
+        }
+
+        @Override
+        public RowExpression visitLambda(LambdaDefinitionExpression lambda, Void context)
+        {
+            return lambda;
+        }
+
+        @Override
+        public RowExpression visitVariableReference(VariableReferenceExpression reference, Void context)
+        {
+            return reference;
+        }
+
+        private RowExpression getReplacement(RowExpression expression)
+        {
+            if (expression == excluded) {
+                return null;
+            }
+            return replacements.get(expression);
+        }
+    }
+
+    public static class Result
+    {
+        private final Optional<RowExpression> filter;
+        private final List<RowExpression> projections;
+        private final int inputChannelCount;
+        private final List<RowExpression> filterSubExpressions;
+        private final List<RowExpression> projectionSubExpressions;
+        private final List<RowExpression> sharedExpressions;
+        private final long eliminatedEvaluations;
+
+        public Result(
+                Optional<RowExpression> filter,
+                List<RowExpression> projections,
+                int inputChannelCount,
+                List<RowExpression> filterSubExpressions,
+                List<RowExpression> projectionSubExpressions,
+                List<RowExpression> sharedExpressions,
+                long eliminatedEvaluations)
+        {
+            this.filter = requireNonNull(filter, "filter is null");
+            this.projections = ImmutableList.copyOf(requireNonNull(projections, "projections is null"));
+            this.inputChannelCount = inputChannelCount;
+            this.filterSubExpressions = ImmutableList.copyOf(requireNonNull(filterSubExpressions, "filterSubExpressions is null"));
+            this.projectionSubExpressions = ImmutableList.copyOf(requireNonNull(projectionSubExpressions, "projectionSubExpressions is null"));
+            this.sharedExpressions = ImmutableList.copyOf(requireNonNull(sharedExpressions, "sharedExpressions is null"));
+            this.eliminatedEvaluations = eliminatedEvaluations;
+        }
+
+        public Optional<RowExpression> getFilter()
+        {
+            return filter;
+        }
+
+        public List<RowExpression> getProjections()
+        {
+            return projections;
+        }
+
+        /**
+         * Number of channels of the input page the original expressions read. The sub expressions
+         * are computed into the channels following them.
+         */
+        public int getInputChannelCount()
+        {
+            return inputChannelCount;
+        }
+
+        /**
+         * Sub expressions computed for all positions of the page before the filter, in channel order.
+         */
+        public List<RowExpression> getFilterSubExpressions()
+        {
+            return filterSubExpressions;
+        }
+
+        /**
+         * Sub expressions computed only for the positions selected by the filter, in channel order.
+         * Their channels follow the channels of the filter sub expressions.
+         */
+        public List<RowExpression> getProjectionSubExpressions()
+        {
+            return projectionSubExpressions;
+        }
+
+        /**
+         * The shared expressions in terms of the input channels only, in channel order.
+         */
+        public List<RowExpression> getSharedExpressions()
+        {
+            return sharedExpressions;
+        }
+
+        /**
+         * Number of per position evaluations of the shared expressions that are saved.
+         */
+        public long getEliminatedEvaluations()
+        {
+            return eliminatedEvaluations;
+        }
+
+        public boolean hasSharedExpressions()
+        {
+            return !sharedExpressions.isEmpty();
+        }
+    }
+}
@@ -20,12 +20,15 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import io.airlift.bytecode.ClassDefinition;
 import io.airlift.bytecode.CompilationException;
+import io.airlift.log.Logger;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.operator.project.CursorProcessor;
 import io.prestosql.operator.project.PageFilter;
 import io.prestosql.operator.project.PageProcessor;
 import io.prestosql.operator.project.PageProjection;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.sql.planner.CompilerConfig;
+import io.prestosql.sql.relational.DeterminismEvaluator;
 import io.prestosql.sql.relational.RowExpression;
 import org.weakref.jmx.Managed;
 import org.weakref.jmx.Nested;
@@ -36,6 +39,7 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -47,6 +51,7 @@ import static io.airlift.bytecode.ParameterizedType.type;
 import static io.prestosql.spi.StandardErrorCode.COMPILER_ERROR;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.sql.gen.BytecodeUtils.invoke;
+import static io.prestosql.sql.gen.CommonSubExpressionRewriter.extractCommonSubExpressions;
 import static io.prestosql.sql.relational.Expressions.constant;
 import static io.prestosql.util.CompilerUtils.defineClass;
 import static io.prestosql.util.CompilerUtils.makeClassName;
@@ -54,15 +59,35 @@ import static java.util.Objects.requireNonNull;
 
 public class ExpressionCompiler
 {
+    private static final Logger log = Logger.get(ExpressionCompiler.class);
+
     private final PageFunctionCompiler pageFunctionCompiler;
     private final LoadingCache<CacheKey, Class<? extends CursorProcessor>> cursorProcessors;
     private final CacheStatsMBean cacheStatsMBean;
+    private final DeterminismEvaluator determinismEvaluator;
+    private final boolean commonSubExpressionEliminationEnabled;
+
+    private final AtomicLong pageProcessorsWithSharedExpressions = new AtomicLong();
+    private final AtomicLong sharedExpressions = new AtomicLong();
+    private final AtomicLong eliminatedEvaluations = new AtomicLong();
 
-    @Inject
     public ExpressionCompiler(Metadata metadata, PageFunctionCompiler pageFunctionCompiler)
+    {
+        this(metadata, pageFunctionCompiler, false);
+    }
+
+    @Inject
+    public ExpressionCompiler(Metadata metadata, PageFunctionCompiler pageFunctionCompiler, CompilerConfig config)
+    {
+        this(metadata, pageFunctionCompiler, requireNonNull(config, "config is null").isCommonSubExpressionEliminationEnabled());
+    }
+
+    public ExpressionCompiler(Metadata metadata, PageFunctionCompiler pageFunctionCompiler, boolean commonSubExpressionEliminationEnabled)
     {
         requireNonNull(metadata, "metadata is null");
         this.pageFunctionCompiler = requireNonNull(pageFunctionCompiler, "pageFunctionCompiler is null");
+        this.determinismEvaluator = new DeterminismEvaluator(metadata);
+        this.commonSubExpressionEliminationEnabled = commonSubExpressionEliminationEnabled;
         this.cursorProcessors = CacheBuilder.newBuilder()
                 .recordStats()
                 .maximumSize(1000)
@@ -77,6 +102,24 @@ public class ExpressionCompiler
         return cacheStatsMBean;
     }
 
+    @Managed
+    public long getPageProcessorsWithSharedExpressions()
+    {
+        return pageProcessorsWithSharedExpressions.get();
+    }
+
+    @Managed
+    public long getSharedExpressions()
+    {
+        return sharedExpressions.get();
+    }
+
+    @Managed
+    public long getEliminatedEvaluations()
+    {
+        return eliminatedEvaluations.get();
+    }
+
     public Supplier<CursorProcessor> compileCursorProcessor(Optional<RowExpression> filter, List<? extends RowExpression> projections, Object uniqueKey)
     {
         Class<? extends CursorProcessor> cursorProcessor = cursorProcessors.getUnchecked(new CacheKey(filter, projections, uniqueKey));
@@ -100,21 +143,68 @@ public class ExpressionCompiler
             List<? extends RowExpression> projections,
             Optional<String> classNameSuffix,
             OptionalInt initialBatchSize)
+    {
+        if (commonSubExpressionEliminationEnabled) {
+            CommonSubExpressionRewriter.Result result = extractCommonSubExpressions(filter, projections, determinismEvaluator);
+            if (result.hasSharedExpressions()) {
+                pageProcessorsWithSharedExpressions.incrementAndGet();
+                sharedExpressions.addAndGet(result.getSharedExpressions().size());
+                eliminatedEvaluations.addAndGet(result.getEliminatedEvaluations());
+                log.debug("Sharing %s across filter %s and projections %s", result.getSharedExpressions(), filter, projections);
+                return compilePageProcessor(
+                        result.getFilter(),
+                        result.getProjections(),
+                        result.getInputChannelCount(),
+                        result.getFilterSubExpressions(),
+                        result.getProjectionSubExpressions(),
+                        classNameSuffix,
+                        initialBatchSize);
+            }
+        }
+        return compilePageProcessor(filter, projections, 0, ImmutableList.of(), ImmutableList.of(), classNameSuffix, initialBatchSize);
+    }
+
+    private Supplier<PageProcessor> compilePageProcessor(
+            Optional<RowExpression> filter,
+            List<? extends RowExpression> projections,
+            int inputChannelCount,
+            List<RowExpression> filterSubExpressions,
+            List<RowExpression> projectionSubExpressions,
+            Optional<String> classNameSuffix,
+            OptionalInt initialBatchSize)
     {
         Optional<Supplier<PageFilter>> filterFunctionSupplier = filter.map(expression -> pageFunctionCompiler.compileFilter(expression, classNameSuffix));
-        List<Supplier<PageProjection>> pageProjectionSuppliers = projections.stream()
-                .map(projection -> pageFunctionCompiler.compileProjection(projection, classNameSuffix))
-                .collect(toImmutableList());
+        List<Supplier<PageProjection>> pageProjectionSuppliers = compileProjections(projections, classNameSuffix);
+        List<Supplier<PageProjection>> filterSubExpressionSuppliers = compileProjections(filterSubExpressions, classNameSuffix);
+        List<Supplier<PageProjection>> projectionSubExpressionSuppliers = compileProjections(projectionSubExpressions, classNameSuffix);
 
         return () -> {
             Optional<PageFilter> filterFunction = filterFunctionSupplier.map(Supplier::get);
-            List<PageProjection> pageProjections = pageProjectionSuppliers.stream()
-                    .map(Supplier::get)
-                    .collect(toImmutableList());
-            return new PageProcessor(filterFunction, pageProjections, initialBatchSize);
+            return new PageProcessor(
+                    filterFunction,
+                    getAll(pageProjectionSuppliers),
+                    inputChannelCount,
+                    getAll(filterSubExpressionSuppliers),
+                    getAll(projectionSubExpressionSuppliers),
+                    initialBatchSize,
+                    new ExpressionProfiler());
         };
     }
 
+    private List<Supplier<PageProjection>> compileProjections(List<? extends RowExpression> projections, Optional<String> classNameSuffix)
+    {
+        return projections.stream()
+                .map(projection -> pageFunctionCompiler.compileProjection(projection, classNameSuffix))
+                .collect(toImmutableList());
+    }
+
+    private static List<PageProjection> getAll(List<Supplier<PageProjection>> suppliers)
+    {
+        return suppliers.stream()
+                .map(Supplier::get)
+                .collect(toImmutableList());
+    }
+
     public Supplier<PageProcessor> compilePageProcessor(Optional<RowExpression> filter, List<? extends RowExpression> projections)
     {
         return compilePageProcessor(filter, projections, Optional.empty());
@@ -46,6 +46,10 @@ import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.connector.ConnectorSession;
 import io.prestosql.sql.gen.LambdaBytecodeGenerator.CompiledLambda;
+import io.prestosql.sql.gen.columnar.ColumnarExpression;
+import io.prestosql.sql.gen.columnar.ColumnarExpressionCompiler;
+import io.prestosql.sql.gen.columnar.ColumnarPageFilter;
+import io.prestosql.sql.gen.columnar.ColumnarPageProjection;
 import io.prestosql.sql.planner.CompilerConfig;
 import io.prestosql.sql.relational.ConstantExpression;
 import io.prestosql.sql.relational.DeterminismEvaluator;
@@ -99,6 +103,7 @@ public class PageFunctionCompiler
 {
     private final Metadata metadata;
     private final DeterminismEvaluator determinismEvaluator;
+    private final boolean columnarEvaluationEnabled;
 
     private final LoadingCache<RowExpression, Supplier<PageProjection>> projectionCache;
     private final LoadingCache<RowExpression, Supplier<PageFilter>> filterCache;
@@ -109,13 +114,19 @@ public class PageFunctionCompiler
     @Inject
     public PageFunctionCompiler(Metadata metadata, CompilerConfig config)
     {
-        this(metadata, requireNonNull(config, "config is null").getExpressionCacheSize());
+        this(metadata, requireNonNull(config, "config is null").getExpressionCacheSize(), config.isColumnarEvaluationEnabled());
     }
 
     public PageFunctionCompiler(Metadata metadata, int expressionCacheSize)
+    {
+        this(metadata, expressionCacheSize, false);
+    }
+
+    public PageFunctionCompiler(Metadata metadata, int expressionCacheSize, boolean columnarEvaluationEnabled)
     {
         this.metadata = requireNonNull(metadata, "metadata is null");
         this.determinismEvaluator = new DeterminismEvaluator(metadata);
+        this.columnarEvaluationEnabled = columnarEvaluationEnabled;
 
         if (expressionCacheSize > 0) {
             projectionCache = CacheBuilder.newBuilder()
@@ -184,6 +195,17 @@ public class PageFunctionCompiler
 
         PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(projection);
 
+        if (columnarEvaluationEnabled) {
+            Optional<ColumnarExpression> columnarProjection = ColumnarExpressionCompiler.compile(result.getRewrittenExpression());
+            if (columnarProjection.isPresent()) {
+                ColumnarPageProjection projectionFunction = new ColumnarPageProjection(
+                        columnarProjection.get(),
+                        determinismEvaluator.isDeterministic(result.getRewrittenExpression()),
+                        result.getInputChannels());
+                return () -> projectionFunction;
+            }
+        }
+
         CallSiteBinder callSiteBinder = new CallSiteBinder();
 
         // generate Work
@@ -371,6 +393,17 @@ public class PageFunctionCompiler
 
         PageFieldsToInputParametersRewriter.Result result = rewritePageFieldsToInputParameters(filter);
 
+        if (columnarEvaluationEnabled) {
+            Optional<List<ColumnarExpression>> columnarFilter = ColumnarExpressionCompiler.compileFilter(result.getRewrittenExpression());
+            if (columnarFilter.isPresent()) {
+                ColumnarPageFilter filterFunction = new ColumnarPageFilter(
+                        columnarFilter.get(),
+                        determinismEvaluator.isDeterministic(result.getRewrittenExpression()),
+                        result.getInputChannels());
+                return () -> filterFunction;
+            }
+        }
+
         CallSiteBinder callSiteBinder = new CallSiteBinder();
         ClassDefinition classDefinition = defineFilterClass(result.getRewrittenExpression(), result.getInputChannels(), callSiteBinder, classNameSuffix);
 
@@ -0,0 +1,234 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.spi.type.Type;
+import io.prestosql.type.BigintOperators;
+import io.prestosql.type.DoubleOperators;
+import io.prestosql.type.IntegerOperators;
+import io.prestosql.type.SmallintOperators;
+import io.prestosql.type.TinyintOperators;
+
+import java.util.function.LongBinaryOperator;
+
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Binary arithmetic over BIGINT, INTEGER, SMALLINT, TINYINT or DOUBLE
+ * operands of the same type. Values are computed with the scalar operator
+ * implementations, so overflow and division by zero fail exactly as they do
+ * in compiled expressions. Null positions are never computed.
+ */
+final class ArithmeticColumnExpression
+        implements ColumnarExpression
+{
+    private final OperatorType operator;
+    private final Type type;
+    private final ColumnarExpression left;
+    private final ColumnarExpression right;
+    // used for integer types narrower than bigint
+    private final LongBinaryOperator narrowOperator;
+
+    ArithmeticColumnExpression(OperatorType operator, Type type, ColumnarExpression left, ColumnarExpression right)
+    {
+        this.operator = requireNonNull(operator, "operator is null");
+        this.type = requireNonNull(type, "type is null");
+        this.left = requireNonNull(left, "left is null");
+        this.right = requireNonNull(right, "right is null");
+        if (!isSupported(operator, type)) {
+            throw new IllegalArgumentException("Unsupported arithmetic: " + operator + " " + type);
+        }
+        this.narrowOperator = type.equals(BIGINT) || type.equals(DOUBLE) ? null : narrowOperator(operator, type);
+    }
+
+    static boolean isSupported(OperatorType operator, Type type)
+    {
+        switch (operator) {
+            case ADD:
+            case SUBTRACT:
+            case MULTIPLY:
+            case DIVIDE:
+            case MODULUS:
+                return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) || type.equals(DOUBLE);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        ColumnVector leftVector = left.evaluate(page, positions, positionCount);
+        ColumnVector rightVector = right.evaluate(page, positions, positionCount);
+        boolean[] nulls = ColumnVector.unionNulls(leftVector, rightVector);
+
+        if (type.equals(DOUBLE)) {
+            double[] result = new double[positionCount];
+            evaluateDouble(leftVector.getDoubles(), rightVector.getDoubles(), nulls, result, positionCount);
+            return ColumnVector.doubleVector(positionCount, nulls, result);
+        }
+
+        long[] result = new long[positionCount];
+        if (narrowOperator == null) {
+            evaluateBigint(leftVector.getLongs(), rightVector.getLongs(), nulls, result, positionCount);
+        }
+        else {
+            long[] leftValues = leftVector.getLongs();
+            long[] rightValues = rightVector.getLongs();
+            for (int i = 0; i < positionCount; i++) {
+                if (nulls == null || !nulls[i]) {
+                    result[i] = narrowOperator.applyAsLong(leftValues[i], rightValues[i]);
+                }
+            }
+        }
+        return ColumnVector.longVector(positionCount, nulls, result);
+    }
+
+    private void evaluateBigint(long[] left, long[] right, boolean[] nulls, long[] result, int positionCount)
+    {
+        switch (operator) {
+            case ADD:
+                for (int i = 0; i < positionCount; i++) {
+                    if (nulls == null || !nulls[i]) {
+                        result[i] = BigintOperators.add(left[i], right[i]);
+                    }
+                }
+                return;
+            case SUBTRACT:
+                for (int i = 0; i < positionCount; i++) {
+                    if (nulls == null || !nulls[i]) {
+                        result[i] = BigintOperators.subtract(left[i], right[i]);
+                    }
+                }
+                return;
+            case MULTIPLY:
+                for (int i = 0; i < positionCount; i++) {
+                    if (nulls == null || !nulls[i]) {
+                        result[i] = BigintOperators.multiply(left[i], right[i]);
+                    }
+                }
+                return;
+            case DIVIDE:
+                for (int i = 0; i < positionCount; i++) {
+                    if (nulls == null || !nulls[i]) {
+                        result[i] = BigintOperators.divide(left[i], right[i]);
+                    }
+                }
+                return;
+            case MODULUS:
+                for (int i = 0; i < positionCount; i++) {
+                    if (nulls == null || !nulls[i]) {
+                        result[i] = BigintOperators.modulus(left[i], right[i]);
+                    }
+                }
+                return;
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+    }
+
+    private void evaluateDouble(double[] left, double[] right, boolean[] nulls, double[] result, int positionCount)
+    {
+        // double arithmetic cannot fail, so null positions are computed as well
+        switch (operator) {
+            case ADD:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = DoubleOperators.add(left[i], right[i]);
+                }
+                return;
+            case SUBTRACT:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = DoubleOperators.subtract(left[i], right[i]);
+                }
+                return;
+            case MULTIPLY:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = DoubleOperators.multiply(left[i], right[i]);
+                }
+                return;
+            case DIVIDE:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = DoubleOperators.divide(left[i], right[i]);
+                }
+                return;
+            case MODULUS:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = DoubleOperators.modulus(left[i], right[i]);
+                }
+                return;
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+    }
+
+    private static LongBinaryOperator narrowOperator(OperatorType operator, Type type)
+    {
+        if (type.equals(INTEGER)) {
+            switch (operator) {
+                case ADD:
+                    return IntegerOperators::add;
+                case SUBTRACT:
+                    return IntegerOperators::subtract;
+                case MULTIPLY:
+                    return IntegerOperators::multiply;
+                case DIVIDE:
+                    return IntegerOperators::divide;
+                case MODULUS:
+                    return IntegerOperators::modulus;
+            }
+        }
+        if (type.equals(SMALLINT)) {
+            switch (operator) {
+                case ADD:
+                    return SmallintOperators::add;
+                case SUBTRACT:
+                    return SmallintOperators::subtract;
+                case MULTIPLY:
+                    return SmallintOperators::multiply;
+                case DIVIDE:
+                    return SmallintOperators::divide;
+                case MODULUS:
+                    return SmallintOperators::modulus;
+            }
+        }
+        if (type.equals(TINYINT)) {
+            switch (operator) {
+                case ADD:
+                    return TinyintOperators::add;
+                case SUBTRACT:
+                    return TinyintOperators::subtract;
+                case MULTIPLY:
+                    return TinyintOperators::multiply;
+                case DIVIDE:
+                    return TinyintOperators::divide;
+                case MODULUS:
+                    return TinyintOperators::modulus;
+            }
+        }
+        throw new IllegalArgumentException("Unsupported arithmetic: " + operator + " " + type);
+    }
+}
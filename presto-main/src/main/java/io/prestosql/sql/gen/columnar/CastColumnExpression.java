@@ -0,0 +1,153 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import io.prestosql.type.BigintOperators;
+import io.prestosql.type.DoubleOperators;
+import io.prestosql.type.IntegerOperators;
+import io.prestosql.type.SmallintOperators;
+
+import java.util.List;
+import java.util.function.DoubleToLongFunction;
+import java.util.function.LongUnaryOperator;
+
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Cast between BIGINT, INTEGER, SMALLINT, TINYINT and DOUBLE. Widening casts
+ * between integral types reuse the input values; narrowing casts use the
+ * scalar cast operators, so out of range values fail as they do in compiled
+ * expressions.
+ */
+final class CastColumnExpression
+        implements ColumnarExpression
+{
+    // integral types, narrowest first
+    private static final List<Type> INTEGRAL_TYPES = ImmutableList.of(TINYINT, SMALLINT, INTEGER, BIGINT);
+
+    private final Type type;
+    private final ColumnarExpression input;
+    private final LongUnaryOperator narrowingCast;
+    private final DoubleToLongFunction doubleCast;
+
+    CastColumnExpression(Type type, ColumnarExpression input)
+    {
+        this.type = requireNonNull(type, "type is null");
+        this.input = requireNonNull(input, "input is null");
+        Type sourceType = input.getType();
+        if (!isSupported(sourceType, type)) {
+            throw new IllegalArgumentException("Unsupported cast: " + sourceType + " to " + type);
+        }
+        this.narrowingCast = INTEGRAL_TYPES.indexOf(type) < INTEGRAL_TYPES.indexOf(sourceType) ? narrowingCast(sourceType, type) : null;
+        this.doubleCast = sourceType.equals(DOUBLE) ? doubleCast(type) : null;
+    }
+
+    static boolean isSupported(Type sourceType, Type targetType)
+    {
+        return (INTEGRAL_TYPES.contains(sourceType) || sourceType.equals(DOUBLE)) &&
+                (INTEGRAL_TYPES.contains(targetType) || targetType.equals(DOUBLE));
+    }
+
+    @Override
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        ColumnVector inputVector = input.evaluate(page, positions, positionCount);
+        boolean[] nulls = inputVector.getNulls();
+
+        if (input.getType().equals(DOUBLE)) {
+            if (type.equals(DOUBLE)) {
+                return inputVector;
+            }
+            double[] values = inputVector.getDoubles();
+            long[] result = new long[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                if (nulls == null || !nulls[i]) {
+                    result[i] = doubleCast.applyAsLong(values[i]);
+                }
+            }
+            return ColumnVector.longVector(positionCount, nulls, result);
+        }
+
+        long[] values = inputVector.getLongs();
+        if (type.equals(DOUBLE)) {
+            double[] result = new double[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                result[i] = values[i];
+            }
+            return ColumnVector.doubleVector(positionCount, nulls, result);
+        }
+        if (narrowingCast == null) {
+            return inputVector;
+        }
+        long[] result = new long[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            if (nulls == null || !nulls[i]) {
+                result[i] = narrowingCast.applyAsLong(values[i]);
+            }
+        }
+        return ColumnVector.longVector(positionCount, nulls, result);
+    }
+
+    private static LongUnaryOperator narrowingCast(Type sourceType, Type targetType)
+    {
+        if (sourceType.equals(BIGINT)) {
+            if (targetType.equals(INTEGER)) {
+                return BigintOperators::castToInteger;
+            }
+            if (targetType.equals(SMALLINT)) {
+                return BigintOperators::castToSmallint;
+            }
+            return BigintOperators::castToTinyint;
+        }
+        if (sourceType.equals(INTEGER)) {
+            if (targetType.equals(SMALLINT)) {
+                return IntegerOperators::castToSmallint;
+            }
+            return IntegerOperators::castToTinyint;
+        }
+        return SmallintOperators::castToTinyint;
+    }
+
+    private static DoubleToLongFunction doubleCast(Type targetType)
+    {
+        if (targetType.equals(BIGINT)) {
+            return DoubleOperators::castToLong;
+        }
+        if (targetType.equals(INTEGER)) {
+            return DoubleOperators::castToInteger;
+        }
+        if (targetType.equals(SMALLINT)) {
+            return DoubleOperators::castToSmallint;
+        }
+        if (targetType.equals(TINYINT)) {
+            return DoubleOperators::castToTinyint;
+        }
+        // identity cast
+        return null;
+    }
+}
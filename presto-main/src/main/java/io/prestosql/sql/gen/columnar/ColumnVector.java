@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import javax.annotation.Nullable;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Values of an expression for a batch of positions. Entry {@code i} holds the
+ * value for the {@code i}-th position of the batch, in the array matching the
+ * Java type of the expression. Values of null entries are unspecified.
+ * Vectors may share arrays, so they must not be modified once created.
+ */
+public final class ColumnVector
+{
+    private final int positionCount;
+    @Nullable
+    private final boolean[] nulls;
+    @Nullable
+    private final long[] longs;
+    @Nullable
+    private final double[] doubles;
+    @Nullable
+    private final boolean[] booleans;
+
+    private ColumnVector(int positionCount, @Nullable boolean[] nulls, @Nullable long[] longs, @Nullable double[] doubles, @Nullable boolean[] booleans)
+    {
+        checkArgument(positionCount >= 0, "positionCount is negative");
+        checkArgument(nulls == null || nulls.length >= positionCount, "nulls is too short");
+        this.positionCount = positionCount;
+        this.nulls = nulls;
+        this.longs = longs;
+        this.doubles = doubles;
+        this.booleans = booleans;
+    }
+
+    public static ColumnVector longVector(int positionCount, @Nullable boolean[] nulls, long[] values)
+    {
+        requireNonNull(values, "values is null");
+        checkArgument(values.length >= positionCount, "values is too short");
+        return new ColumnVector(positionCount, nulls, values, null, null);
+    }
+
+    public static ColumnVector doubleVector(int positionCount, @Nullable boolean[] nulls, double[] values)
+    {
+        requireNonNull(values, "values is null");
+        checkArgument(values.length >= positionCount, "values is too short");
+        return new ColumnVector(positionCount, nulls, null, values, null);
+    }
+
+    public static ColumnVector booleanVector(int positionCount, @Nullable boolean[] nulls, boolean[] values)
+    {
+        requireNonNull(values, "values is null");
+        checkArgument(values.length >= positionCount, "values is too short");
+        return new ColumnVector(positionCount, nulls, null, null, values);
+    }
+
+    public int getPositionCount()
+    {
+        return positionCount;
+    }
+
+    /**
+     * Returns the null flags of the entries, or null if no entry is null.
+     */
+    @Nullable
+    public boolean[] getNulls()
+    {
+        return nulls;
+    }
+
+    public boolean isNull(int index)
+    {
+        return nulls != null && nulls[index];
+    }
+
+    public long[] getLongs()
+    {
+        return requireNonNull(longs, "not a long vector");
+    }
+
+    public double[] getDoubles()
+    {
+        return requireNonNull(doubles, "not a double vector");
+    }
+
+    public boolean[] getBooleans()
+    {
+        return requireNonNull(booleans, "not a boolean vector");
+    }
+
+    /**
+     * Returns the union of the null flags of two vectors, or null if neither has nulls.
+     */
+    @Nullable
+    static boolean[] unionNulls(ColumnVector left, ColumnVector right)
+    {
+        boolean[] leftNulls = left.getNulls();
+        boolean[] rightNulls = right.getNulls();
+        if (leftNulls == null) {
+            return rightNulls;
+        }
+        if (rightNulls == null) {
+            return leftNulls;
+        }
+        int positionCount = left.getPositionCount();
+        boolean[] nulls = new boolean[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            nulls[i] = leftNulls[i] | rightNulls[i];
+        }
+        return nulls;
+    }
+}
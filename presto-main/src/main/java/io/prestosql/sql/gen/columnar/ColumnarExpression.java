@@ -0,0 +1,33 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+
+/**
+ * An expression evaluated a batch of positions at a time, in tight loops over
+ * primitive arrays, instead of once per position.
+ */
+public interface ColumnarExpression
+{
+    Type getType();
+
+    /**
+     * Evaluates the expression for the first {@code positionCount} entries of
+     * {@code positions}, which are positions of {@code page}. The result has an
+     * entry per evaluated position, in the same order.
+     */
+    ColumnVector evaluate(Page page, int[] positions, int positionCount);
+}
@@ -0,0 +1,254 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.spi.type.Type;
+import io.prestosql.spi.type.VarcharType;
+import io.prestosql.sql.relational.CallExpression;
+import io.prestosql.sql.relational.ConstantExpression;
+import io.prestosql.sql.relational.InputReferenceExpression;
+import io.prestosql.sql.relational.LambdaDefinitionExpression;
+import io.prestosql.sql.relational.RowExpression;
+import io.prestosql.sql.relational.RowExpressionVisitor;
+import io.prestosql.sql.relational.SpecialForm;
+import io.prestosql.sql.relational.VariableReferenceExpression;
+import io.prestosql.type.LikePattern;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static io.prestosql.metadata.Signature.mangleOperatorName;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static io.prestosql.sql.relational.Signatures.CAST;
+
+/**
+ * Translates a {@link RowExpression} over page fields into a {@link ColumnarExpression}.
+ * Supported are input references and constants of integral, date, DOUBLE and
+ * BOOLEAN types, arithmetic, comparisons, numeric casts, IS NULL, NOT, AND, OR,
+ * IN with non-null constants, and LIKE with a {@code 'literal%'} pattern.
+ */
+public final class ColumnarExpressionCompiler
+{
+    private static final Map<String, OperatorType> OPERATORS;
+
+    static {
+        ImmutableMap.Builder<String, OperatorType> operators = ImmutableMap.builder();
+        for (OperatorType operator : OperatorType.values()) {
+            operators.put(mangleOperatorName(operator), operator);
+        }
+        OPERATORS = operators.build();
+    }
+
+    private ColumnarExpressionCompiler() {}
+
+    /**
+     * Returns the columnar form of the expression, or empty if the expression
+     * uses anything that cannot be evaluated in columnar form.
+     */
+    public static Optional<ColumnarExpression> compile(RowExpression expression)
+    {
+        return Optional.ofNullable(expression.accept(new Visitor(), null));
+    }
+
+    /**
+     * Returns the columnar form of each conjunct of the filter, or empty if any
+     * conjunct cannot be evaluated in columnar form.
+     */
+    public static Optional<List<ColumnarExpression>> compileFilter(RowExpression filter)
+    {
+        ImmutableList.Builder<ColumnarExpression> conjuncts = ImmutableList.builder();
+        for (RowExpression conjunct : extractConjuncts(filter)) {
+            Optional<ColumnarExpression> columnarConjunct = compile(conjunct);
+            if (!columnarConjunct.isPresent()) {
+                return Optional.empty();
+            }
+            conjuncts.add(columnarConjunct.get());
+        }
+        return Optional.of(conjuncts.build());
+    }
+
+    private static List<RowExpression> extractConjuncts(RowExpression expression)
+    {
+        if (expression instanceof SpecialForm && ((SpecialForm) expression).getForm() == SpecialForm.Form.AND) {
+            return ImmutableList.<RowExpression>builder()
+                    .addAll(extractConjuncts(((SpecialForm) expression).getArguments().get(0)))
+                    .addAll(extractConjuncts(((SpecialForm) expression).getArguments().get(1)))
+                    .build();
+        }
+        return ImmutableList.of(expression);
+    }
+
+    static boolean isLongType(Type type)
+    {
+        return type.equals(BIGINT) || type.equals(INTEGER) || type.equals(SMALLINT) || type.equals(TINYINT) || type.equals(DATE);
+    }
+
+    private static boolean isSupportedType(Type type)
+    {
+        return isLongType(type) || type.equals(DOUBLE) || type.equals(BOOLEAN);
+    }
+
+    // visit methods return null for unsupported expressions
+    private static class Visitor
+            implements RowExpressionVisitor<ColumnarExpression, Void>
+    {
+        @Override
+        public ColumnarExpression visitCall(CallExpression call, Void context)
+        {
+            String name = call.getSignature().getName();
+            List<RowExpression> arguments = call.getArguments();
+
+            if (name.equals(CAST)) {
+                ColumnarExpression input = arguments.get(0).accept(this, context);
+                if (input == null) {
+                    return null;
+                }
+                if (input.getType().equals(call.getType())) {
+                    return input;
+                }
+                if (!CastColumnExpression.isSupported(input.getType(), call.getType())) {
+                    return null;
+                }
+                return new CastColumnExpression(call.getType(), input);
+            }
+
+            if (name.equals("not")) {
+                ColumnarExpression input = arguments.get(0).accept(this, context);
+                return input == null ? null : new NotColumnExpression(input);
+            }
+
+            if (name.equals("LIKE")) {
+                return visitLike(arguments);
+            }
+
+            OperatorType operator = OPERATORS.get(name);
+            if (operator == null || arguments.size() != 2) {
+                return null;
+            }
+            Type argumentType = arguments.get(0).getType();
+            if (!argumentType.equals(arguments.get(1).getType())) {
+                return null;
+            }
+            if (ArithmeticColumnExpression.isSupported(operator, argumentType) && call.getType().equals(argumentType)) {
+                ColumnarExpression left = arguments.get(0).accept(this, context);
+                ColumnarExpression right = arguments.get(1).accept(this, context);
+                return left == null || right == null ? null : new ArithmeticColumnExpression(operator, argumentType, left, right);
+            }
+            if (ComparisonColumnExpression.isSupported(operator, argumentType)) {
+                ColumnarExpression left = arguments.get(0).accept(this, context);
+                ColumnarExpression right = arguments.get(1).accept(this, context);
+                return left == null || right == null ? null : new ComparisonColumnExpression(operator, left, right);
+            }
+            return null;
+        }
+
+        private static ColumnarExpression visitLike(List<RowExpression> arguments)
+        {
+            if (arguments.size() != 2 ||
+                    !(arguments.get(0) instanceof InputReferenceExpression) ||
+                    !(arguments.get(0).getType() instanceof VarcharType) ||
+                    !(arguments.get(1) instanceof ConstantExpression)) {
+                return null;
+            }
+            Object pattern = ((ConstantExpression) arguments.get(1)).getValue();
+            if (!(pattern instanceof LikePattern)) {
+                return null;
+            }
+            int field = ((InputReferenceExpression) arguments.get(0)).getField();
+            return ((LikePattern) pattern).getLiteralPrefix()
+                    .map(prefix -> new LikePrefixColumnExpression(field, prefix))
+                    .orElse(null);
+        }
+
+        @Override
+        public ColumnarExpression visitSpecialForm(SpecialForm specialForm, Void context)
+        {
+            List<RowExpression> arguments = specialForm.getArguments();
+            switch (specialForm.getForm()) {
+                case IS_NULL: {
+                    if (arguments.get(0) instanceof InputReferenceExpression) {
+                        return new IsNullColumnExpression(((InputReferenceExpression) arguments.get(0)).getField());
+                    }
+                    ColumnarExpression input = arguments.get(0).accept(this, context);
+                    return input == null ? null : new IsNullColumnExpression(input);
+                }
+                case AND:
+                case OR: {
+                    ColumnarExpression left = arguments.get(0).accept(this, context);
+                    ColumnarExpression right = arguments.get(1).accept(this, context);
+                    if (left == null || right == null) {
+                        return null;
+                    }
+                    return specialForm.getForm() == SpecialForm.Form.AND ? LogicalColumnExpression.and(left, right) : LogicalColumnExpression.or(left, right);
+                }
+                case IN: {
+                    ColumnarExpression value = arguments.get(0).accept(this, context);
+                    if (value == null || !isLongType(value.getType())) {
+                        return null;
+                    }
+                    ImmutableList.Builder<Long> constants = ImmutableList.builder();
+                    for (RowExpression argument : arguments.subList(1, arguments.size())) {
+                        if (!(argument instanceof ConstantExpression) || ((ConstantExpression) argument).getValue() == null || !argument.getType().equals(value.getType())) {
+                            return null;
+                        }
+                        constants.add((Long) ((ConstantExpression) argument).getValue());
+                    }
+                    return new InColumnExpression(value, constants.build());
+                }
+                default:
+                    return null;
+            }
+        }
+
+        @Override
+        public ColumnarExpression visitInputReference(InputReferenceExpression reference, Void context)
+        {
+            if (!isSupportedType(reference.getType())) {
+                return null;
+            }
+            return new InputColumnExpression(reference.getField(), reference.getType());
+        }
+
+        @Override
+        public ColumnarExpression visitConstant(ConstantExpression literal, Void context)
+        {
+            if (!isSupportedType(literal.getType())) {
+                return null;
+            }
+            return new ConstantColumnExpression(literal.getValue(), literal.getType());
+        }
+
+        @Override
+        public ColumnarExpression visitLambda(LambdaDefinitionExpression lambda, Void context)
+        {
+            return null;
+        }
+
+        @Override
+        public ColumnarExpression visitVariableReference(VariableReferenceExpression reference, Void context)
+        {
+            return null;
+        }
+    }
+}
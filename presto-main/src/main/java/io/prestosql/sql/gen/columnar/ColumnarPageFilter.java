@@ -0,0 +1,101 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.operator.project.InputChannels;
+import io.prestosql.operator.project.PageFilter;
+import io.prestosql.operator.project.SelectedPositions;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.connector.ConnectorSession;
+
+import java.util.List;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.prestosql.operator.project.SelectedPositions.positionsList;
+import static io.prestosql.operator.project.SelectedPositions.positionsRange;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Filter evaluated in columnar form. The conjuncts of the filter are evaluated
+ * one after another, each only for the positions selected by the previous
+ * ones, narrowing the selected positions in place.
+ */
+public class ColumnarPageFilter
+        implements PageFilter
+{
+    private final List<ColumnarExpression> conjuncts;
+    private final boolean deterministic;
+    private final InputChannels inputChannels;
+
+    public ColumnarPageFilter(List<ColumnarExpression> conjuncts, boolean deterministic, InputChannels inputChannels)
+    {
+        this.conjuncts = ImmutableList.copyOf(requireNonNull(conjuncts, "conjuncts is null"));
+        this.deterministic = deterministic;
+        this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return deterministic;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public SelectedPositions filter(ConnectorSession session, Page page)
+    {
+        int positionCount = page.getPositionCount();
+        int[] positions = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            positions[i] = i;
+        }
+
+        int selectedCount = positionCount;
+        for (ColumnarExpression conjunct : conjuncts) {
+            if (selectedCount == 0) {
+                break;
+            }
+            ColumnVector result = conjunct.evaluate(page, positions, selectedCount);
+            boolean[] values = result.getBooleans();
+            boolean[] nulls = result.getNulls();
+
+            // compact the selected positions, without branching on the conjunct result
+            int remainingCount = 0;
+            for (int i = 0; i < selectedCount; i++) {
+                positions[remainingCount] = positions[i];
+                remainingCount += values[i] && (nulls == null || !nulls[i]) ? 1 : 0;
+            }
+            selectedCount = remainingCount;
+        }
+
+        if (selectedCount == 0 || selectedCount == positionCount) {
+            return positionsRange(0, selectedCount);
+        }
+        return positionsList(positions, 0, selectedCount);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("conjuncts", conjuncts)
+                .toString();
+    }
+}
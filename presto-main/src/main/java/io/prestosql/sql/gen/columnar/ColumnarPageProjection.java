@@ -0,0 +1,163 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.operator.CompletedWork;
+import io.prestosql.operator.DriverYieldSignal;
+import io.prestosql.operator.Work;
+import io.prestosql.operator.project.InputChannels;
+import io.prestosql.operator.project.PageProjection;
+import io.prestosql.operator.project.SelectedPositions;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.ByteArrayBlock;
+import io.prestosql.spi.block.IntArrayBlock;
+import io.prestosql.spi.block.LongArrayBlock;
+import io.prestosql.spi.block.ShortArrayBlock;
+import io.prestosql.spi.connector.ConnectorSession;
+import io.prestosql.spi.type.Type;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static java.lang.Double.doubleToLongBits;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Projection evaluated in columnar form. The selected positions of a batch
+ * are evaluated at once, so unlike generated projections the work never
+ * yields part way through a batch.
+ */
+public class ColumnarPageProjection
+        implements PageProjection
+{
+    private final ColumnarExpression projection;
+    private final boolean deterministic;
+    private final InputChannels inputChannels;
+
+    public ColumnarPageProjection(ColumnarExpression projection, boolean deterministic, InputChannels inputChannels)
+    {
+        this.projection = requireNonNull(projection, "projection is null");
+        this.deterministic = deterministic;
+        this.inputChannels = requireNonNull(inputChannels, "inputChannels is null");
+    }
+
+    @Override
+    public Type getType()
+    {
+        return projection.getType();
+    }
+
+    @Override
+    public boolean isDeterministic()
+    {
+        return deterministic;
+    }
+
+    @Override
+    public InputChannels getInputChannels()
+    {
+        return inputChannels;
+    }
+
+    @Override
+    public Work<Block> project(ConnectorSession session, DriverYieldSignal yieldSignal, Page page, SelectedPositions selectedPositions)
+    {
+        int positionCount = selectedPositions.size();
+        int[] positions;
+        if (selectedPositions.isList()) {
+            positions = selectedPositions.getPositions();
+            if (selectedPositions.getOffset() != 0) {
+                positions = Arrays.copyOfRange(positions, selectedPositions.getOffset(), selectedPositions.getOffset() + positionCount);
+            }
+        }
+        else {
+            positions = new int[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                positions[i] = selectedPositions.getOffset() + i;
+            }
+        }
+
+        ColumnVector result = projection.evaluate(page, positions, positionCount);
+        return new CompletedWork<>(toBlock(getType(), result));
+    }
+
+    private static Block toBlock(Type type, ColumnVector vector)
+    {
+        int positionCount = vector.getPositionCount();
+        Optional<boolean[]> nulls = Optional.ofNullable(vector.getNulls());
+
+        if (type.equals(BIGINT)) {
+            long[] values = vector.getLongs();
+            return new LongArrayBlock(positionCount, nulls, values.length == positionCount ? values : Arrays.copyOf(values, positionCount));
+        }
+        if (type.equals(DOUBLE)) {
+            double[] values = vector.getDoubles();
+            long[] bits = new long[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                bits[i] = doubleToLongBits(values[i]);
+            }
+            return new LongArrayBlock(positionCount, nulls, bits);
+        }
+        if (type.equals(INTEGER) || type.equals(DATE)) {
+            long[] values = vector.getLongs();
+            int[] narrowed = new int[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                narrowed[i] = (int) values[i];
+            }
+            return new IntArrayBlock(positionCount, nulls, narrowed);
+        }
+        if (type.equals(SMALLINT)) {
+            long[] values = vector.getLongs();
+            short[] narrowed = new short[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                narrowed[i] = (short) values[i];
+            }
+            return new ShortArrayBlock(positionCount, nulls, narrowed);
+        }
+        if (type.equals(TINYINT)) {
+            long[] values = vector.getLongs();
+            byte[] narrowed = new byte[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                narrowed[i] = (byte) values[i];
+            }
+            return new ByteArrayBlock(positionCount, nulls, narrowed);
+        }
+        if (type.equals(BOOLEAN)) {
+            boolean[] values = vector.getBooleans();
+            byte[] bytes = new byte[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                bytes[i] = (byte) (values[i] ? 1 : 0);
+            }
+            return new ByteArrayBlock(positionCount, nulls, bytes);
+        }
+        throw new UnsupportedOperationException("Unsupported type: " + type);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("projection", projection)
+                .toString();
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.spi.type.Type;
+
+import javax.annotation.Nullable;
+
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.sql.gen.columnar.ColumnarExpressionCompiler.isLongType;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Comparison of two operands of the same integral, date or DOUBLE type.
+ */
+final class ComparisonColumnExpression
+        implements ColumnarExpression
+{
+    private final OperatorType operator;
+    private final ColumnarExpression left;
+    private final ColumnarExpression right;
+    // the right operand when it is a non-null constant, which is compared without filling a vector
+    @Nullable
+    private final Object constant;
+
+    ComparisonColumnExpression(OperatorType operator, ColumnarExpression left, ColumnarExpression right)
+    {
+        this.operator = requireNonNull(operator, "operator is null");
+        this.left = requireNonNull(left, "left is null");
+        this.right = requireNonNull(right, "right is null");
+        if (!isSupported(operator, left.getType()) || !left.getType().equals(right.getType())) {
+            throw new IllegalArgumentException("Unsupported comparison: " + left.getType() + " " + operator + " " + right.getType());
+        }
+        this.constant = right instanceof ConstantColumnExpression ? ((ConstantColumnExpression) right).getValue() : null;
+    }
+
+    static boolean isSupported(OperatorType operator, Type type)
+    {
+        switch (operator) {
+            case EQUAL:
+            case NOT_EQUAL:
+            case LESS_THAN:
+            case LESS_THAN_OR_EQUAL:
+            case GREATER_THAN:
+            case GREATER_THAN_OR_EQUAL:
+                return isLongType(type) || type.equals(DOUBLE);
+            default:
+                return false;
+        }
+    }
+
+    @Override
+    public Type getType()
+    {
+        return BOOLEAN;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        ColumnVector leftVector = left.evaluate(page, positions, positionCount);
+        boolean[] result = new boolean[positionCount];
+        // comparisons cannot fail, so null positions are computed as well
+        if (constant != null) {
+            if (left.getType().equals(DOUBLE)) {
+                compareDoubles(leftVector.getDoubles(), (double) constant, result, positionCount);
+            }
+            else {
+                compareLongs(leftVector.getLongs(), (long) constant, result, positionCount);
+            }
+            return ColumnVector.booleanVector(positionCount, leftVector.getNulls(), result);
+        }
+
+        ColumnVector rightVector = right.evaluate(page, positions, positionCount);
+        if (left.getType().equals(DOUBLE)) {
+            compareDoubles(leftVector.getDoubles(), rightVector.getDoubles(), result, positionCount);
+        }
+        else {
+            compareLongs(leftVector.getLongs(), rightVector.getLongs(), result, positionCount);
+        }
+        return ColumnVector.booleanVector(positionCount, ColumnVector.unionNulls(leftVector, rightVector), result);
+    }
+
+    private void compareLongs(long[] left, long[] right, boolean[] result, int positionCount)
+    {
+        switch (operator) {
+            case EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] == right[i];
+                }
+                return;
+            case NOT_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] != right[i];
+                }
+                return;
+            case LESS_THAN:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] < right[i];
+                }
+                return;
+            case LESS_THAN_OR_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] <= right[i];
+                }
+                return;
+            case GREATER_THAN:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] > right[i];
+                }
+                return;
+            case GREATER_THAN_OR_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] >= right[i];
+                }
+                return;
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+    }
+
+    private void compareLongs(long[] left, long right, boolean[] result, int positionCount)
+    {
+        switch (operator) {
+            case EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] == right;
+                }
+                return;
+            case NOT_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] != right;
+                }
+                return;
+            case LESS_THAN:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] < right;
+                }
+                return;
+            case LESS_THAN_OR_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] <= right;
+                }
+                return;
+            case GREATER_THAN:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] > right;
+                }
+                return;
+            case GREATER_THAN_OR_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] >= right;
+                }
+                return;
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+    }
+
+    @SuppressWarnings("FloatingPointEquality")
+    private void compareDoubles(double[] left, double[] right, boolean[] result, int positionCount)
+    {
+        switch (operator) {
+            case EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] == right[i];
+                }
+                return;
+            case NOT_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] != right[i];
+                }
+                return;
+            case LESS_THAN:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] < right[i];
+                }
+                return;
+            case LESS_THAN_OR_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] <= right[i];
+                }
+                return;
+            case GREATER_THAN:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] > right[i];
+                }
+                return;
+            case GREATER_THAN_OR_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] >= right[i];
+                }
+                return;
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+    }
+
+    @SuppressWarnings("FloatingPointEquality")
+    private void compareDoubles(double[] left, double right, boolean[] result, int positionCount)
+    {
+        switch (operator) {
+            case EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] == right;
+                }
+                return;
+            case NOT_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] != right;
+                }
+                return;
+            case LESS_THAN:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] < right;
+                }
+                return;
+            case LESS_THAN_OR_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] <= right;
+                }
+                return;
+            case GREATER_THAN:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] > right;
+                }
+                return;
+            case GREATER_THAN_OR_EQUAL:
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = left[i] >= right;
+                }
+                return;
+            default:
+                throw new UnsupportedOperationException("Unsupported operator: " + operator);
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+
+import static java.util.Objects.requireNonNull;
+
+final class ConstantColumnExpression
+        implements ColumnarExpression
+{
+    @Nullable
+    private final Object value;
+    private final Type type;
+
+    ConstantColumnExpression(@Nullable Object value, Type type)
+    {
+        this.value = value;
+        this.type = requireNonNull(type, "type is null");
+    }
+
+    @Nullable
+    public Object getValue()
+    {
+        return value;
+    }
+
+    @Override
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        boolean[] nulls = null;
+        if (value == null) {
+            nulls = new boolean[positionCount];
+            Arrays.fill(nulls, true);
+        }
+
+        Class<?> javaType = type.getJavaType();
+        if (javaType == long.class) {
+            long[] values = new long[positionCount];
+            if (value != null) {
+                Arrays.fill(values, (long) value);
+            }
+            return ColumnVector.longVector(positionCount, nulls, values);
+        }
+        if (javaType == double.class) {
+            double[] values = new double[positionCount];
+            if (value != null) {
+                Arrays.fill(values, (double) value);
+            }
+            return ColumnVector.doubleVector(positionCount, nulls, values);
+        }
+        if (javaType == boolean.class) {
+            boolean[] values = new boolean[positionCount];
+            if (value != null) {
+                Arrays.fill(values, (boolean) value);
+            }
+            return ColumnVector.booleanVector(positionCount, nulls, values);
+        }
+        throw new UnsupportedOperationException("Unsupported type: " + type);
+    }
+}
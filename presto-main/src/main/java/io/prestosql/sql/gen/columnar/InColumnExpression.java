@@ -0,0 +1,57 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+
+import java.util.Collection;
+
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * IN with a list of non-null constants of an integral or date type.
+ */
+final class InColumnExpression
+        implements ColumnarExpression
+{
+    private final ColumnarExpression value;
+    private final LongOpenHashSet set;
+
+    InColumnExpression(ColumnarExpression value, Collection<Long> constants)
+    {
+        this.value = requireNonNull(value, "value is null");
+        this.set = new LongOpenHashSet(requireNonNull(constants, "constants is null"));
+    }
+
+    @Override
+    public Type getType()
+    {
+        return BOOLEAN;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        ColumnVector valueVector = value.evaluate(page, positions, positionCount);
+        long[] values = valueVector.getLongs();
+        boolean[] result = new boolean[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            result[i] = set.contains(values[i]);
+        }
+        return ColumnVector.booleanVector(positionCount, valueVector.getNulls(), result);
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.type.Type;
+
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DateType.DATE;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.TinyintType.TINYINT;
+import static java.lang.Double.longBitsToDouble;
+import static java.util.Objects.requireNonNull;
+
+final class InputColumnExpression
+        implements ColumnarExpression
+{
+    private final int field;
+    private final Type type;
+
+    InputColumnExpression(int field, Type type)
+    {
+        this.field = field;
+        this.type = requireNonNull(type, "type is null");
+    }
+
+    @Override
+    public Type getType()
+    {
+        return type;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        Block block = page.getBlock(field);
+        boolean[] nulls = null;
+        if (block.mayHaveNull()) {
+            for (int i = 0; i < positionCount; i++) {
+                if (block.isNull(positions[i])) {
+                    if (nulls == null) {
+                        nulls = new boolean[positionCount];
+                    }
+                    nulls[i] = true;
+                }
+            }
+        }
+
+        // read the block directly according to its value width, as calls through the
+        // type would not be inlined in loops shared by all columns
+        if (type.equals(DOUBLE)) {
+            double[] values = new double[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                if (nulls == null || !nulls[i]) {
+                    values[i] = longBitsToDouble(block.getLong(positions[i], 0));
+                }
+            }
+            return ColumnVector.doubleVector(positionCount, nulls, values);
+        }
+        if (type.equals(BOOLEAN)) {
+            boolean[] values = new boolean[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                if (nulls == null || !nulls[i]) {
+                    values[i] = block.getByte(positions[i], 0) != 0;
+                }
+            }
+            return ColumnVector.booleanVector(positionCount, nulls, values);
+        }
+        long[] values = new long[positionCount];
+        if (type.equals(BIGINT)) {
+            for (int i = 0; i < positionCount; i++) {
+                if (nulls == null || !nulls[i]) {
+                    values[i] = block.getLong(positions[i], 0);
+                }
+            }
+        }
+        else if (type.equals(INTEGER) || type.equals(DATE)) {
+            for (int i = 0; i < positionCount; i++) {
+                if (nulls == null || !nulls[i]) {
+                    values[i] = block.getInt(positions[i], 0);
+                }
+            }
+        }
+        else if (type.equals(SMALLINT)) {
+            for (int i = 0; i < positionCount; i++) {
+                if (nulls == null || !nulls[i]) {
+                    values[i] = block.getShort(positions[i], 0);
+                }
+            }
+        }
+        else if (type.equals(TINYINT)) {
+            for (int i = 0; i < positionCount; i++) {
+                if (nulls == null || !nulls[i]) {
+                    values[i] = block.getByte(positions[i], 0);
+                }
+            }
+        }
+        else {
+            throw new UnsupportedOperationException("Unsupported type: " + type);
+        }
+        return ColumnVector.longVector(positionCount, nulls, values);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.type.Type;
+
+import javax.annotation.Nullable;
+
+import java.util.OptionalInt;
+
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static java.util.Objects.requireNonNull;
+
+final class IsNullColumnExpression
+        implements ColumnarExpression
+{
+    @Nullable
+    private final ColumnarExpression input;
+    private final OptionalInt field;
+
+    IsNullColumnExpression(ColumnarExpression input)
+    {
+        this.input = requireNonNull(input, "input is null");
+        this.field = OptionalInt.empty();
+    }
+
+    /**
+     * Checks an input column of any type directly, without reading its values.
+     */
+    IsNullColumnExpression(int field)
+    {
+        this.input = null;
+        this.field = OptionalInt.of(field);
+    }
+
+    @Override
+    public Type getType()
+    {
+        return BOOLEAN;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        if (field.isPresent()) {
+            Block block = page.getBlock(field.getAsInt());
+            boolean[] result = new boolean[positionCount];
+            if (block.mayHaveNull()) {
+                for (int i = 0; i < positionCount; i++) {
+                    result[i] = block.isNull(positions[i]);
+                }
+            }
+            return ColumnVector.booleanVector(positionCount, null, result);
+        }
+        boolean[] nulls = input.evaluate(page, positions, positionCount).getNulls();
+        return ColumnVector.booleanVector(positionCount, null, nulls == null ? new boolean[positionCount] : nulls);
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.airlift.slice.Slice;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.type.Type;
+
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * LIKE with a pattern of the form {@code 'literal%'} over a varchar input
+ * column. Matches compare the leading bytes of each value in place, without
+ * copying the value or running the pattern regex.
+ */
+final class LikePrefixColumnExpression
+        implements ColumnarExpression
+{
+    private final int field;
+    private final Slice prefix;
+
+    LikePrefixColumnExpression(int field, Slice prefix)
+    {
+        this.field = field;
+        this.prefix = requireNonNull(prefix, "prefix is null");
+    }
+
+    @Override
+    public Type getType()
+    {
+        return BOOLEAN;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        Block block = page.getBlock(field);
+        int prefixLength = prefix.length();
+        boolean[] nulls = null;
+        boolean[] result = new boolean[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            int position = positions[i];
+            if (block.isNull(position)) {
+                if (nulls == null) {
+                    nulls = new boolean[positionCount];
+                }
+                nulls[i] = true;
+            }
+            else {
+                result[i] = block.getSliceLength(position) >= prefixLength && block.bytesEqual(position, 0, prefix, 0, prefixLength);
+            }
+        }
+        return ColumnVector.booleanVector(positionCount, nulls, result);
+    }
+}
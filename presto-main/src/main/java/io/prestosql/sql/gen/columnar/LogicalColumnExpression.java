@@ -0,0 +1,103 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Three-valued AND or OR. As in compiled expressions, the right operand is
+ * only evaluated for the positions where the left operand does not decide the
+ * result, so the right operand is never evaluated for positions a preceding
+ * condition has excluded.
+ */
+final class LogicalColumnExpression
+        implements ColumnarExpression
+{
+    private final boolean and;
+    private final ColumnarExpression left;
+    private final ColumnarExpression right;
+
+    static LogicalColumnExpression and(ColumnarExpression left, ColumnarExpression right)
+    {
+        return new LogicalColumnExpression(true, left, right);
+    }
+
+    static LogicalColumnExpression or(ColumnarExpression left, ColumnarExpression right)
+    {
+        return new LogicalColumnExpression(false, left, right);
+    }
+
+    private LogicalColumnExpression(boolean and, ColumnarExpression left, ColumnarExpression right)
+    {
+        this.and = and;
+        this.left = requireNonNull(left, "left is null");
+        this.right = requireNonNull(right, "right is null");
+    }
+
+    @Override
+    public Type getType()
+    {
+        return BOOLEAN;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        ColumnVector leftVector = left.evaluate(page, positions, positionCount);
+        boolean[] leftValues = leftVector.getBooleans();
+        boolean[] leftNulls = leftVector.getNulls();
+
+        // the left value decides the result when it is false for AND, or true for OR
+        int[] undecided = new int[positionCount];
+        int undecidedCount = 0;
+        for (int i = 0; i < positionCount; i++) {
+            undecided[undecidedCount] = i;
+            undecidedCount += (leftNulls != null && leftNulls[i]) || leftValues[i] == and ? 1 : 0;
+        }
+        if (undecidedCount == 0) {
+            return leftVector;
+        }
+
+        int[] rightPositions = new int[undecidedCount];
+        for (int i = 0; i < undecidedCount; i++) {
+            rightPositions[i] = positions[undecided[i]];
+        }
+        ColumnVector rightVector = right.evaluate(page, rightPositions, undecidedCount);
+        boolean[] rightValues = rightVector.getBooleans();
+
+        boolean[] result = leftValues.clone();
+        boolean[] nulls = null;
+        for (int i = 0; i < undecidedCount; i++) {
+            int index = undecided[i];
+            if (!rightVector.isNull(i) && rightValues[i] != and) {
+                // the right value decides the result
+                result[index] = !and;
+            }
+            else if (rightVector.isNull(i) || (leftNulls != null && leftNulls[index])) {
+                if (nulls == null) {
+                    nulls = new boolean[positionCount];
+                }
+                nulls[index] = true;
+            }
+            else {
+                result[index] = and;
+            }
+        }
+        return ColumnVector.booleanVector(positionCount, nulls, result);
+    }
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static java.util.Objects.requireNonNull;
+
+final class NotColumnExpression
+        implements ColumnarExpression
+{
+    private final ColumnarExpression input;
+
+    NotColumnExpression(ColumnarExpression input)
+    {
+        this.input = requireNonNull(input, "input is null");
+    }
+
+    @Override
+    public Type getType()
+    {
+        return BOOLEAN;
+    }
+
+    @Override
+    public ColumnVector evaluate(Page page, int[] positions, int positionCount)
+    {
+        ColumnVector inputVector = input.evaluate(page, positions, positionCount);
+        boolean[] values = inputVector.getBooleans();
+        boolean[] result = new boolean[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            result[i] = !values[i];
+        }
+        return ColumnVector.booleanVector(positionCount, inputVector.getNulls(), result);
+    }
+}
@@ -23,6 +23,8 @@ import javax.validation.constraints.Min;
 public class CompilerConfig
 {
     private int expressionCacheSize = 10_000;
+    private boolean columnarEvaluationEnabled;
+    private boolean commonSubExpressionEliminationEnabled;
 
     @Min(0)
     public int getExpressionCacheSize()
@@ -37,4 +39,30 @@ public class CompilerConfig
         this.expressionCacheSize = expressionCacheSize;
         return this;
     }
+
+    public boolean isColumnarEvaluationEnabled()
+    {
+        return columnarEvaluationEnabled;
+    }
+
+    @Config("compiler.columnar-evaluation-enabled")
+    @Description("Evaluate supported filters and projections a batch of positions at a time instead of per position")
+    public CompilerConfig setColumnarEvaluationEnabled(boolean columnarEvaluationEnabled)
+    {
+        this.columnarEvaluationEnabled = columnarEvaluationEnabled;
+        return this;
+    }
+
+    public boolean isCommonSubExpressionEliminationEnabled()
+    {
+        return commonSubExpressionEliminationEnabled;
+    }
+
+    @Config("compiler.common-subexpression-elimination-enabled")
+    @Description("Evaluate subexpressions shared by the filter and projections of an operator once per position")
+    public CompilerConfig setCommonSubExpressionEliminationEnabled(boolean commonSubExpressionEliminationEnabled)
+    {
+        this.commonSubExpressionEliminationEnabled = commonSubExpressionEliminationEnabled;
+        return this;
+    }
 }
@@ -35,6 +35,8 @@ import io.prestosql.execution.StageId;
 import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.buffer.OutputBuffer;
 import io.prestosql.execution.buffer.PagesSerdeFactory;
+import io.prestosql.execution.fragmentcache.FragmentResultCacheContext;
+import io.prestosql.execution.fragmentcache.FragmentResultCacheManager;
 import io.prestosql.index.IndexManager;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.Signature;
@@ -64,6 +66,7 @@ import io.prestosql.operator.LookupJoinOperators;
 import io.prestosql.operator.LookupOuterOperator.LookupOuterOperatorFactory;
 import io.prestosql.operator.LookupSourceFactory;
 import io.prestosql.operator.MarkDistinctOperator.MarkDistinctOperatorFactory;
+import io.prestosql.operator.MergeJoinOperator.MergeJoinOperatorFactory;
 import io.prestosql.operator.MergeOperator.MergeOperatorFactory;
 import io.prestosql.operator.NestedLoopJoinBridge;
 import io.prestosql.operator.NestedLoopJoinPagesSupplier;
@@ -158,6 +161,7 @@ import io.prestosql.sql.planner.plan.IndexSourceNode;
 import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanNodeId;
@@ -229,12 +233,13 @@ import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.prestosql.SystemSessionProperties.getAggregationOperatorUnspillMemoryLimit;
 import static io.prestosql.SystemSessionProperties.getDynamicFilteringMaxPerDriverRowCount;
 import static io.prestosql.SystemSessionProperties.getDynamicFilteringMaxPerDriverSize;
+import static io.prestosql.SystemSessionProperties.getExchangeCompressionCodec;
 import static io.prestosql.SystemSessionProperties.getFilterAndProjectMinOutputPageRowCount;
 import static io.prestosql.SystemSessionProperties.getFilterAndProjectMinOutputPageSize;
 import static io.prestosql.SystemSessionProperties.getTaskConcurrency;
+import static io.prestosql.SystemSessionProperties.getTaskHashBuildConcurrency;
 import static io.prestosql.SystemSessionProperties.getTaskWriterCount;
 import static io.prestosql.SystemSessionProperties.isEnableDynamicFiltering;
-import static io.prestosql.SystemSessionProperties.isExchangeCompressionEnabled;
 import static io.prestosql.SystemSessionProperties.isSpillEnabled;
 import static io.prestosql.SystemSessionProperties.isSpillOrderBy;
 import static io.prestosql.SystemSessionProperties.isSpillWindowOperator;
@@ -261,6 +266,7 @@ import static io.prestosql.sql.planner.ExpressionNodeInliner.replaceExpression;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.COORDINATOR_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_BROADCAST_DISTRIBUTION;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_PASSTHROUGH_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.SCALED_WRITER_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
 import static io.prestosql.sql.planner.plan.AggregationNode.Step.FINAL;
@@ -272,6 +278,7 @@ import static io.prestosql.sql.planner.plan.JoinNode.Type.LEFT;
 import static io.prestosql.sql.planner.plan.JoinNode.Type.RIGHT;
 import static io.prestosql.sql.planner.plan.TableWriterNode.CreateTarget;
 import static io.prestosql.sql.planner.plan.TableWriterNode.InsertTarget;
+import static io.prestosql.sql.planner.plan.TableWriterNode.RefreshMaterializedViewTarget;
 import static io.prestosql.sql.planner.plan.TableWriterNode.WriterTarget;
 import static io.prestosql.sql.tree.BooleanLiteral.TRUE_LITERAL;
 import static io.prestosql.sql.tree.ComparisonExpression.Operator.LESS_THAN;
@@ -313,6 +320,7 @@ public class LocalExecutionPlanner
     private final JoinCompiler joinCompiler;
     private final LookupJoinOperators lookupJoinOperators;
     private final OrderingCompiler orderingCompiler;
+    private final FragmentResultCacheManager fragmentResultCacheManager;
 
     @Inject
     public LocalExecutionPlanner(
@@ -335,7 +343,8 @@ public class LocalExecutionPlanner
             PagesIndex.Factory pagesIndexFactory,
             JoinCompiler joinCompiler,
             LookupJoinOperators lookupJoinOperators,
-            OrderingCompiler orderingCompiler)
+            OrderingCompiler orderingCompiler,
+            FragmentResultCacheManager fragmentResultCacheManager)
     {
         this.explainAnalyzeContext = requireNonNull(explainAnalyzeContext, "explainAnalyzeContext is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
@@ -360,6 +369,7 @@ public class LocalExecutionPlanner
         this.joinCompiler = requireNonNull(joinCompiler, "joinCompiler is null");
         this.lookupJoinOperators = requireNonNull(lookupJoinOperators, "lookupJoinOperators is null");
         this.orderingCompiler = requireNonNull(orderingCompiler, "orderingCompiler is null");
+        this.fragmentResultCacheManager = requireNonNull(fragmentResultCacheManager, "fragmentResultCacheManager is null");
     }
 
     public LocalExecutionPlan plan(
@@ -464,6 +474,12 @@ public class LocalExecutionPlanner
                 .map(types::get)
                 .collect(toImmutableList());
 
+        // the output of a fragment that reads its source in a single pipeline can be cached per split
+        Optional<FragmentResultCacheContext> fragmentResultCacheContext = Optional.empty();
+        if (context.isInputDriver() && context.getDriverFactories().isEmpty()) {
+            fragmentResultCacheContext = fragmentResultCacheManager.createContext(session, plan);
+        }
+
         context.addDriverFactory(
                 context.isInputDriver(),
                 true,
@@ -474,10 +490,11 @@ public class LocalExecutionPlanner
                                 plan.getId(),
                                 outputTypes,
                                 pagePreprocessor,
-                                new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session))))
+                                new PagesSerdeFactory(metadata.getBlockEncodingSerde(), getExchangeCompressionCodec(session))))
                         .build(),
                 context.getDriverInstanceCount(),
-                physicalOperation.getPipelineExecutionStrategy());
+                physicalOperation.getPipelineExecutionStrategy(),
+                fragmentResultCacheContext);
 
         addLookupOuterDrivers(context);
 
@@ -562,6 +579,17 @@ public class LocalExecutionPlanner
         }
 
         public void addDriverFactory(boolean inputDriver, boolean outputDriver, List<OperatorFactory> operatorFactories, OptionalInt driverInstances, PipelineExecutionStrategy pipelineExecutionStrategy)
+        {
+            addDriverFactory(inputDriver, outputDriver, operatorFactories, driverInstances, pipelineExecutionStrategy, Optional.empty());
+        }
+
+        public void addDriverFactory(
+                boolean inputDriver,
+                boolean outputDriver,
+                List<OperatorFactory> operatorFactories,
+                OptionalInt driverInstances,
+                PipelineExecutionStrategy pipelineExecutionStrategy,
+                Optional<FragmentResultCacheContext> fragmentResultCacheContext)
         {
             if (pipelineExecutionStrategy == GROUPED_EXECUTION) {
                 OperatorFactory firstOperatorFactory = operatorFactories.get(0);
@@ -577,7 +605,7 @@ public class LocalExecutionPlanner
                 operatorFactories = WorkProcessorPipelineSourceOperator.convertOperators(getNextOperatorId(), operatorFactories);
             }
 
-            driverFactories.add(new DriverFactory(getNextPipelineId(), inputDriver, outputDriver, operatorFactories, driverInstances, pipelineExecutionStrategy));
+            driverFactories.add(new DriverFactory(getNextPipelineId(), inputDriver, outputDriver, operatorFactories, driverInstances, pipelineExecutionStrategy, fragmentResultCacheContext));
         }
 
         private List<DriverFactory> getDriverFactories()
@@ -743,7 +771,7 @@ public class LocalExecutionPlanner
                     context.getNextOperatorId(),
                     node.getId(),
                     exchangeClientSupplier,
-                    new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session)),
+                    new PagesSerdeFactory(metadata.getBlockEncodingSerde(), getExchangeCompressionCodec(session)),
                     orderingCompiler,
                     types,
                     outputChannels,
@@ -763,7 +791,7 @@ public class LocalExecutionPlanner
                     context.getNextOperatorId(),
                     node.getId(),
                     exchangeClientSupplier,
-                    new PagesSerdeFactory(metadata.getBlockEncodingSerde(), isExchangeCompressionEnabled(session)));
+                    new PagesSerdeFactory(metadata.getBlockEncodingSerde(), getExchangeCompressionCodec(session)));
 
             return new PhysicalOperation(operatorFactory, makeLayout(node), context, UNGROUPED_EXECUTION);
         }
@@ -1638,6 +1666,63 @@ public class LocalExecutionPlanner
             }
         }
 
+        @Override
+        public PhysicalOperation visitMergeJoin(MergeJoinNode node, LocalExecutionPlanContext context)
+        {
+            // both inputs are single sorted streams, consumed in lockstep by a single driver
+            PhysicalOperation left = node.getLeft().accept(this, context);
+            context.setDriverInstanceCount(1);
+
+            LocalExecutionPlanContext rightContext = context.createSubContext();
+            PhysicalOperation right = node.getRight().accept(this, rightContext);
+            checkState(rightContext.getDriverInstanceCount().orElse(1) == 1, "Right side of merge join is expected to be a single stream");
+
+            LocalExchangeFactory rightExchangeFactory = new LocalExchangeFactory(
+                    FIXED_PASSTHROUGH_DISTRIBUTION,
+                    1,
+                    right.getTypes(),
+                    ImmutableList.of(),
+                    Optional.empty(),
+                    right.getPipelineExecutionStrategy(),
+                    maxLocalExchangeBufferSize);
+            List<OperatorFactory> rightOperatorFactories = new ArrayList<>(right.getOperatorFactories());
+            rightOperatorFactories.add(new LocalExchangeSinkOperatorFactory(
+                    rightExchangeFactory,
+                    rightContext.getNextOperatorId(),
+                    node.getId(),
+                    rightExchangeFactory.newSinkFactoryId(),
+                    Function.identity()));
+            context.addDriverFactory(rightContext.isInputDriver(), false, rightOperatorFactories, rightContext.getDriverInstanceCount(), right.getPipelineExecutionStrategy());
+
+            List<Symbol> leftOutputSymbols = node.getOutputSymbols().stream()
+                    .filter(node.getLeft().getOutputSymbols()::contains)
+                    .collect(toImmutableList());
+            List<Symbol> rightOutputSymbols = node.getOutputSymbols().stream()
+                    .filter(node.getRight().getOutputSymbols()::contains)
+                    .collect(toImmutableList());
+
+            ImmutableMap.Builder<Symbol, Integer> outputMappings = ImmutableMap.builder();
+            int channel = 0;
+            for (Symbol symbol : Iterables.concat(leftOutputSymbols, rightOutputSymbols)) {
+                outputMappings.put(symbol, channel);
+                channel++;
+            }
+
+            OperatorFactory operatorFactory = new MergeJoinOperatorFactory(
+                    context.getNextOperatorId(),
+                    node.getId(),
+                    node.getType(),
+                    rightExchangeFactory,
+                    left.getTypes(),
+                    getChannelsForSymbols(Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getLeft), left.getLayout()),
+                    getChannelsForSymbols(leftOutputSymbols, left.getLayout()),
+                    right.getTypes(),
+                    getChannelsForSymbols(Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getRight), right.getLayout()),
+                    getChannelsForSymbols(rightOutputSymbols, right.getLayout()),
+                    node.getSortOrders());
+            return new PhysicalOperation(operatorFactory, outputMappings.build(), context, left);
+        }
+
         @Override
         public PhysicalOperation visitSpatialJoin(SpatialJoinNode node, LocalExecutionPlanContext context)
         {
@@ -1973,6 +2058,11 @@ public class LocalExecutionPlanner
                 boolean spillEnabled)
         {
             LocalExecutionPlanContext buildContext = context.createSubContext();
+            if (isLocalRepartitioningExchange(buildNode)) {
+                // the local exchange radix partitions build rows as they arrive, and each partition
+                // builds its own hash table on a separate driver, so build parallelism is the partition count
+                buildContext.setDriverInstanceCount(getTaskHashBuildConcurrency(session));
+            }
             PhysicalOperation buildSource = buildNode.accept(this, buildContext);
 
             if (buildSource.getPipelineExecutionStrategy() == GROUPED_EXECUTION) {
@@ -2070,6 +2160,15 @@ public class LocalExecutionPlanner
             return lookupSourceFactoryManager;
         }
 
+        private boolean isLocalRepartitioningExchange(PlanNode node)
+        {
+            if (!(node instanceof ExchangeNode)) {
+                return false;
+            }
+            ExchangeNode exchangeNode = (ExchangeNode) node;
+            return exchangeNode.getScope() == LOCAL && exchangeNode.getType() == ExchangeNode.Type.REPARTITION;
+        }
+
         private DynamicFilterSourceOperatorFactory createDynamicFilterSourceOperatorFactory(
                 LocalDynamicFilter dynamicFilter,
                 JoinNode node,
@@ -2847,6 +2946,10 @@ public class LocalExecutionPlanner
             else if (target instanceof InsertTarget) {
                 return metadata.finishInsert(session, ((InsertTarget) target).getHandle(), fragments, statistics);
             }
+            else if (target instanceof RefreshMaterializedViewTarget) {
+                RefreshMaterializedViewTarget refresh = (RefreshMaterializedViewTarget) target;
+                return metadata.finishRefreshMaterializedView(session, refresh.getHandle(), fragments, statistics, refresh.getBaseTables());
+            }
             else if (target instanceof DeleteTarget) {
                 metadata.finishDelete(session, ((DeleteTarget) target).getHandle(), fragments);
                 return Optional.empty();
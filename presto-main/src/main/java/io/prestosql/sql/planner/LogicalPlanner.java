@@ -30,9 +30,15 @@ import io.prestosql.metadata.QualifiedObjectName;
 import io.prestosql.metadata.TableHandle;
 import io.prestosql.metadata.TableMetadata;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.CatalogSchemaTableName;
 import io.prestosql.spi.connector.ColumnHandle;
 import io.prestosql.spi.connector.ColumnMetadata;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition.BaseTable;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
+import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.ConstraintApplicationResult;
+import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.spi.statistics.TableStatisticsMetadata;
 import io.prestosql.spi.type.Type;
 import io.prestosql.sql.analyzer.Analysis;
@@ -41,11 +47,13 @@ import io.prestosql.sql.analyzer.RelationId;
 import io.prestosql.sql.analyzer.RelationType;
 import io.prestosql.sql.analyzer.Scope;
 import io.prestosql.sql.planner.StatisticsAggregationPlanner.TableStatisticAggregation;
+import io.prestosql.sql.planner.iterative.RuleStatsSummary;
 import io.prestosql.sql.planner.optimizations.PlanOptimizer;
 import io.prestosql.sql.planner.plan.AggregationNode;
 import io.prestosql.sql.planner.plan.Assignments;
 import io.prestosql.sql.planner.plan.DeleteNode;
 import io.prestosql.sql.planner.plan.ExplainAnalyzeNode;
+import io.prestosql.sql.planner.plan.FilterNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanNode;
@@ -69,6 +77,7 @@ import io.prestosql.sql.tree.LongLiteral;
 import io.prestosql.sql.tree.NodeRef;
 import io.prestosql.sql.tree.NullLiteral;
 import io.prestosql.sql.tree.Query;
+import io.prestosql.sql.tree.RefreshMaterializedView;
 import io.prestosql.sql.tree.Statement;
 import io.prestosql.type.TypeCoercion;
 
@@ -79,19 +88,24 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Streams.zip;
 import static io.prestosql.spi.StandardErrorCode.NOT_SUPPORTED;
 import static io.prestosql.spi.statistics.TableStatisticType.ROW_COUNT;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarbinaryType.VARBINARY;
+import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
 import static io.prestosql.sql.planner.plan.AggregationNode.singleGroupingSet;
 import static io.prestosql.sql.planner.plan.TableWriterNode.CreateReference;
 import static io.prestosql.sql.planner.plan.TableWriterNode.InsertReference;
+import static io.prestosql.sql.planner.plan.TableWriterNode.RefreshMaterializedViewReference;
 import static io.prestosql.sql.planner.plan.TableWriterNode.WriterTarget;
 import static io.prestosql.sql.planner.sanity.PlanSanityChecker.DISTRIBUTED_PLAN_SANITY_CHECKER;
 import static java.lang.String.format;
@@ -110,6 +124,7 @@ public class LogicalPlanner
     private final List<PlanOptimizer> planOptimizers;
     private final PlanSanityChecker planSanityChecker;
     private final SymbolAllocator symbolAllocator = new SymbolAllocator();
+    private final QueryRuleStatsRecorder queryRuleStats = new QueryRuleStatsRecorder();
     private final Metadata metadata;
     private final TypeCoercion typeCoercion;
     private final TypeAnalyzer typeAnalyzer;
@@ -161,12 +176,45 @@ public class LogicalPlanner
     public Plan plan(Analysis analysis, Stage stage)
     {
         PlanNode root = planStatement(analysis, analysis.getStatement());
+        return optimize(root, symbolAllocator, stage);
+    }
+
+    /**
+     * Plans the statement with its parameters left in place of their values, so that the plan can be bound to the
+     * values of each execution of a prepared statement. The plan is neither validated nor optimized, since the
+     * optimizers fold the values of the parameters into it. Its symbols are those of {@link #getTypes()}.
+     */
+    public PlanNode planWithUnboundParameters(Analysis analysis)
+    {
+        analysis.setParameterBindingDeferred(true);
+        try {
+            return planStatement(analysis, analysis.getStatement());
+        }
+        finally {
+            analysis.setParameterBindingDeferred(false);
+        }
+    }
+
+    public TypeProvider getTypes()
+    {
+        return TypeProvider.copyOf(symbolAllocator.getTypes().allTypes());
+    }
+
+    /**
+     * Validates and optimizes a plan of the statement whose parameters were bound after it was planned.
+     */
+    public Plan optimize(PlanNode root, TypeProvider types)
+    {
+        return optimize(root, new SymbolAllocator(types.allTypes()), Stage.OPTIMIZED_AND_VALIDATED);
+    }
 
+    private Plan optimize(PlanNode root, SymbolAllocator symbolAllocator, Stage stage)
+    {
         planSanityChecker.validateIntermediatePlan(root, session, metadata, typeAnalyzer, symbolAllocator.getTypes(), warningCollector);
 
         if (stage.ordinal() >= Stage.OPTIMIZED.ordinal()) {
             for (PlanOptimizer optimizer : planOptimizers) {
-                root = optimizer.optimize(root, session, symbolAllocator.getTypes(), symbolAllocator, idAllocator, warningCollector);
+                root = optimizer.optimize(root, session, symbolAllocator.getTypes(), symbolAllocator, idAllocator, warningCollector, queryRuleStats);
                 requireNonNull(root, format("%s returned a null plan", optimizer.getClass().getName()));
             }
         }
@@ -182,6 +230,14 @@ public class LogicalPlanner
         return new Plan(root, types, StatsAndCosts.create(root, statsProvider, costProvider));
     }
 
+    /**
+     * Returns the statistics of the optimizer rules applied by this planner.
+     */
+    public List<RuleStatsSummary> getRuleStats()
+    {
+        return queryRuleStats.getRuleStats();
+    }
+
     public PlanNode planStatement(Analysis analysis, Statement statement)
     {
         if (statement instanceof CreateTableAsSelect && analysis.getCreate().get().isCreateTableAsSelectNoOp()) {
@@ -207,6 +263,10 @@ public class LogicalPlanner
             checkState(analysis.getInsert().isPresent(), "Insert handle is missing");
             return createInsertPlan(analysis, (Insert) statement);
         }
+        else if (statement instanceof RefreshMaterializedView) {
+            checkState(analysis.getRefreshMaterializedView().isPresent(), "Refresh handle is missing");
+            return createRefreshMaterializedViewPlan(analysis);
+        }
         else if (statement instanceof Delete) {
             return createDeletePlan(analysis, (Delete) statement);
         }
@@ -309,7 +369,90 @@ public class LogicalPlanner
     private RelationPlan createInsertPlan(Analysis analysis, Insert insertStatement)
     {
         Analysis.Insert insert = analysis.getInsert().get();
+        RelationPlan plan = createRelationPlan(analysis, insertStatement.getQuery());
+        return createInsertPlan(analysis, plan, insert, new InsertReference(insert.getTarget()));
+    }
+
+    private RelationPlan createRefreshMaterializedViewPlan(Analysis analysis)
+    {
+        Analysis.RefreshMaterializedView refresh = analysis.getRefreshMaterializedView().get();
+        Analysis.Insert insert = refresh.getInsert();
 
+        RelationPlan plan = createRelationPlan(analysis, refresh.getQuery());
+
+        List<TableScanNode> scans = searchFrom(plan.getRoot())
+                .where(TableScanNode.class::isInstance)
+                .findAll();
+        List<BaseTable> baseTables = scans.stream()
+                .map(scan -> getBaseTable(scan.getTable()))
+                .distinct()
+                .collect(toImmutableList());
+
+        // when the only base table has merely gained partitions since the last refresh, the new partitions are appended to the stored data
+        boolean incremental = false;
+        Optional<Set<String>> appendedPartitions = getAppendedPartitions(session, refresh.getDefinition(), baseTables, plan.getRoot());
+        if (appendedPartitions.isPresent()) {
+            TableScanNode scan = getOnlyElement(scans);
+            Optional<TableHandle> appendedTable = metadata.applyPartitions(session, scan.getTable(), appendedPartitions.get());
+            if (appendedTable.isPresent()) {
+                PlanNode root = searchFrom(plan.getRoot())
+                        .where(node -> node == scan)
+                        .replaceFirst(new TableScanNode(scan.getId(), appendedTable.get(), scan.getOutputSymbols(), scan.getAssignments(), scan.getEnforcedConstraint()));
+                plan = new RelationPlan(root, plan.getScope(), plan.getFieldMappings());
+                incremental = true;
+            }
+        }
+
+        return createInsertPlan(analysis, plan, insert, new RefreshMaterializedViewReference(insert.getTarget(), incremental, baseTables));
+    }
+
+    private BaseTable getBaseTable(TableHandle tableHandle)
+    {
+        SchemaTableName tableName = metadata.getTableMetadata(session, tableHandle).getTable();
+        // connectors need not report the version of a handle whose partitions were not pruned
+        TableHandle prunedHandle = metadata.applyFilter(session, tableHandle, Constraint.alwaysTrue())
+                .map(ConstraintApplicationResult::getHandle)
+                .orElse(tableHandle);
+        return new BaseTable(
+                new CatalogSchemaTableName(tableHandle.getCatalogName().getCatalogName(), tableName),
+                metadata.getTableVersion(session, prunedHandle),
+                metadata.getPartitionVersions(session, tableHandle).orElse(ImmutableMap.of()));
+    }
+
+    private static Optional<Set<String>> getAppendedPartitions(Session session, ConnectorMaterializedViewDefinition definition, List<BaseTable> baseTables, PlanNode root)
+    {
+        if (!definition.getBaseTables().isPresent() || definition.getBaseTables().get().size() != 1 || baseTables.size() != 1) {
+            return Optional.empty();
+        }
+        // rows computed in another time zone may differ from those already stored
+        if (!definition.getTimeZone().equals(Optional.of(session.getTimeZoneKey().getId()))) {
+            return Optional.empty();
+        }
+        BaseTable previous = getOnlyElement(definition.getBaseTables().get());
+        BaseTable current = getOnlyElement(baseTables);
+        if (!previous.getTable().equals(current.getTable()) || previous.getPartitionVersions().isEmpty() || current.getPartitionVersions().isEmpty()) {
+            return Optional.empty();
+        }
+        // every partition seen by the previous refresh must be unchanged
+        for (Entry<String, String> partition : previous.getPartitionVersions().entrySet()) {
+            if (!partition.getValue().equals(current.getPartitionVersions().get(partition.getKey()))) {
+                return Optional.empty();
+            }
+        }
+        // only a row-wise query produces for the new partitions exactly the rows that are missing from the stored data
+        boolean rowWise = !searchFrom(root)
+                .where(node -> !(node instanceof TableScanNode) && !(node instanceof FilterNode) && !(node instanceof ProjectNode))
+                .matches();
+        if (!rowWise) {
+            return Optional.empty();
+        }
+        return Optional.of(current.getPartitionVersions().keySet().stream()
+                .filter(partition -> !previous.getPartitionVersions().containsKey(partition))
+                .collect(toImmutableSet()));
+    }
+
+    private RelationPlan createInsertPlan(Analysis analysis, RelationPlan plan, Analysis.Insert insert, WriterTarget target)
+    {
         TableMetadata tableMetadata = metadata.getTableMetadata(session, insert.getTarget());
 
         List<ColumnMetadata> visibleTableColumns = tableMetadata.getColumns().stream()
@@ -319,8 +462,6 @@ public class LogicalPlanner
                 .map(ColumnMetadata::getName)
                 .collect(toImmutableList());
 
-        RelationPlan plan = createRelationPlan(analysis, insertStatement.getQuery());
-
         Map<String, ColumnHandle> columns = metadata.getColumnHandles(session, insert.getTarget());
         Assignments.Builder assignments = Assignments.builder();
         for (ColumnMetadata column : tableMetadata.getColumns()) {
@@ -362,7 +503,7 @@ public class LogicalPlanner
         return createTableWriterPlan(
                 analysis,
                 plan,
-                new InsertReference(insert.getTarget()),
+                target,
                 visibleTableColumnNames,
                 insert.getNewTableLayout(),
                 statisticsMetadata);
@@ -22,6 +22,7 @@ import io.prestosql.sql.planner.plan.TableWriterNode;
 import io.prestosql.sql.planner.plan.TableWriterNode.CreateTarget;
 import io.prestosql.sql.planner.plan.TableWriterNode.DeleteTarget;
 import io.prestosql.sql.planner.plan.TableWriterNode.InsertTarget;
+import io.prestosql.sql.planner.plan.TableWriterNode.RefreshMaterializedViewTarget;
 import io.prestosql.sql.planner.plan.TableWriterNode.WriterTarget;
 
 import java.util.Optional;
@@ -70,6 +71,13 @@ public class OutputExtractor
                         "cannot have more than a single create, insert or delete in a query");
                 schemaTableName = target.getSchemaTableName();
             }
+            else if (writerTarget instanceof RefreshMaterializedViewTarget) {
+                RefreshMaterializedViewTarget target = (RefreshMaterializedViewTarget) writerTarget;
+                catalogName = target.getHandle().getCatalogName();
+                checkState(schemaTableName == null || schemaTableName.equals(target.getSchemaTableName()),
+                        "cannot have more than a single create, insert or delete in a query");
+                schemaTableName = target.getSchemaTableName();
+            }
             else if (writerTarget instanceof DeleteTarget) {
                 DeleteTarget target = (DeleteTarget) writerTarget;
                 catalogName = target.getHandle().getCatalogName();
@@ -56,6 +56,9 @@ public class ParameterRewriter
     public Expression rewriteParameter(Parameter node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
     {
         checkState(parameters.size() > node.getPosition(), "Too few parameter values");
+        if (analysis != null && analysis.isParameterBindingDeferred()) {
+            return coerceIfNecessary(node, node);
+        }
         return coerceIfNecessary(node, parameters.get(NodeRef.of(node)));
     }
 
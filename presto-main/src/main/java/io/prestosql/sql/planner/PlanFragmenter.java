@@ -34,6 +34,7 @@ import io.prestosql.sql.planner.plan.AggregationNode;
 import io.prestosql.sql.planner.plan.ExchangeNode;
 import io.prestosql.sql.planner.plan.ExplainAnalyzeNode;
 import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanFragmentId;
 import io.prestosql.sql.planner.plan.PlanNode;
@@ -636,6 +637,26 @@ public class PlanFragmenter
             return GroupedExecutionProperties.notCapable();
         }
 
+        @Override
+        public GroupedExecutionProperties visitMergeJoin(MergeJoinNode node, Void context)
+        {
+            GroupedExecutionProperties left = node.getLeft().accept(this, null);
+            GroupedExecutionProperties right = node.getRight().accept(this, null);
+
+            // Scans that are sorted per split are only sorted within a lifespan, so both sides must be grouped.
+            // Inputs merged into a single stream are shared by all lifespans and are not capable of grouped execution.
+            if (groupedExecutionEnabled && left.isCurrentNodeCapable() && right.isCurrentNodeCapable()) {
+                return new GroupedExecutionProperties(
+                        true,
+                        true,
+                        ImmutableList.<PlanNodeId>builder()
+                                .addAll(left.capableTableScanNodes)
+                                .addAll(right.capableTableScanNodes)
+                                .build());
+            }
+            return GroupedExecutionProperties.notCapable();
+        }
+
         @Override
         public GroupedExecutionProperties visitWindow(WindowNode node, Void context)
         {
@@ -19,8 +19,26 @@ public class PlanNodeIdAllocator
 {
     private int nextId;
 
+    public PlanNodeIdAllocator()
+    {
+        this(0);
+    }
+
+    /**
+     * Creates an allocator that continues after the ids allocated for an existing plan.
+     */
+    public PlanNodeIdAllocator(int nextId)
+    {
+        this.nextId = nextId;
+    }
+
     public PlanNodeId getNextId()
     {
         return new PlanNodeId(Integer.toString(nextId++));
     }
+
+    public int getNextIdValue()
+    {
+        return nextId;
+    }
 }
@@ -28,6 +28,7 @@ import io.prestosql.sql.planner.iterative.IterativeOptimizer;
 import io.prestosql.sql.planner.iterative.Rule;
 import io.prestosql.sql.planner.iterative.rule.AddExchangesBelowPartialAggregationOverGroupIdRuleSet;
 import io.prestosql.sql.planner.iterative.rule.AddIntermediateAggregations;
+import io.prestosql.sql.planner.iterative.rule.AnswerFromMaterializedViews;
 import io.prestosql.sql.planner.iterative.rule.CanonicalizeExpressions;
 import io.prestosql.sql.planner.iterative.rule.CreatePartialTopN;
 import io.prestosql.sql.planner.iterative.rule.DesugarAtTimeZone;
@@ -114,6 +115,7 @@ import io.prestosql.sql.planner.iterative.rule.RemoveUnreferencedScalarSubquerie
 import io.prestosql.sql.planner.iterative.rule.RemoveUnsupportedDynamicFilters;
 import io.prestosql.sql.planner.iterative.rule.ReorderJoins;
 import io.prestosql.sql.planner.iterative.rule.RewriteSpatialPartitioningAggregation;
+import io.prestosql.sql.planner.iterative.rule.ShareTableScansInUnion;
 import io.prestosql.sql.planner.iterative.rule.SimplifyCountOverConstant;
 import io.prestosql.sql.planner.iterative.rule.SimplifyExpressions;
 import io.prestosql.sql.planner.iterative.rule.SingleDistinctAggregationToGroupBy;
@@ -278,6 +280,12 @@ public class PlanOptimizers
         PlanOptimizer predicatePushDown = new StatsRecordingPlanOptimizer(optimizerStats, new PredicatePushDown(metadata, typeAnalyzer));
 
         builder.add(
+                // Compares the plan with the plans of materialized views as both are created by the planner, so it must be run before all the other optimizers
+                new IterativeOptimizer(
+                        ruleStats,
+                        statsCalculator,
+                        estimatedExchangesCostCalculator,
+                        new AnswerFromMaterializedViews(metadata, typeAnalyzer, statsCalculator, costCalculator).rules()),
                 // Clean up all the sugar in expressions, e.g. AtTimeZone, must be run before all the other optimizers
                 new IterativeOptimizer(
                         ruleStats,
@@ -400,6 +408,11 @@ public class PlanOptimizers
                                 new RemoveAggregationInSemiJoin())),
                 new CheckSubqueryNodesAreRewritten(),
                 predicatePushDown,
+                new IterativeOptimizer(
+                        ruleStats,
+                        statsCalculator,
+                        estimatedExchangesCostCalculator,
+                        ImmutableSet.of(new ShareTableScansInUnion())), // must run before PushPredicateIntoTableScan specializes the table handles of the branches
                 new IterativeOptimizer(
                         ruleStats,
                         statsCalculator,
@@ -0,0 +1,83 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner;
+
+import io.airlift.units.Duration;
+import io.prestosql.sql.planner.iterative.Rule;
+import io.prestosql.sql.planner.iterative.RuleStatsSummary;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Rule statistics of the optimization of a single query. Unlike {@link RuleStatsRecorder},
+ * which aggregates over all queries for JMX, these are reported with the query.
+ */
+@NotThreadSafe
+public class QueryRuleStatsRecorder
+{
+    private final Map<Class<?>, RuleCounters> stats = new HashMap<>();
+
+    public void record(Rule<?> rule, long nanos, boolean match)
+    {
+        RuleCounters counters = getCounters(rule);
+        counters.invocations++;
+        counters.nanos += nanos;
+        if (match) {
+            counters.hits++;
+        }
+    }
+
+    public void recordFailure(Rule<?> rule)
+    {
+        getCounters(rule).failures++;
+    }
+
+    /**
+     * Returns the statistics of the rules that were invoked, most expensive first.
+     */
+    public List<RuleStatsSummary> getRuleStats()
+    {
+        return stats.entrySet().stream()
+                .sorted(Comparator.<Map.Entry<Class<?>, RuleCounters>>comparingLong(entry -> entry.getValue().nanos).reversed()
+                        .thenComparing(entry -> entry.getKey().getSimpleName()))
+                .map(entry -> new RuleStatsSummary(
+                        entry.getKey().getSimpleName(),
+                        entry.getValue().invocations,
+                        entry.getValue().hits,
+                        entry.getValue().failures,
+                        new Duration(entry.getValue().nanos, NANOSECONDS).convertToMostSuccinctTimeUnit()))
+                .collect(toImmutableList());
+    }
+
+    private RuleCounters getCounters(Rule<?> rule)
+    {
+        return stats.computeIfAbsent(rule.getClass(), ignored -> new RuleCounters());
+    }
+
+    private static class RuleCounters
+    {
+        private long invocations;
+        private long hits;
+        private long failures;
+        private long nanos;
+    }
+}
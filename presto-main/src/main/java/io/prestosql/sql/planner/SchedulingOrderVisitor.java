@@ -17,6 +17,7 @@ package io.prestosql.sql.planner;
 import com.google.common.collect.ImmutableList;
 import io.prestosql.sql.planner.plan.IndexJoinNode;
 import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.sql.planner.plan.SemiJoinNode;
@@ -73,6 +74,14 @@ public final class SchedulingOrderVisitor
             return null;
         }
 
+        @Override
+        public Void visitMergeJoin(MergeJoinNode node, Void context)
+        {
+            node.getRight().accept(this, context);
+            node.getLeft().accept(this, context);
+            return null;
+        }
+
         @Override
         public Void visitIndexJoin(IndexJoinNode node, Void context)
         {
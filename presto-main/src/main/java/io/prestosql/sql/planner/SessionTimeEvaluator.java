@@ -0,0 +1,71 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner;
+
+import com.google.common.collect.ImmutableSet;
+import io.prestosql.sql.tree.CurrentTime;
+import io.prestosql.sql.tree.DefaultExpressionTraversalVisitor;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.FunctionCall;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Determines whether a given Expression depends on the time the query starts,
+ * so that it evaluates differently each time the same query runs
+ */
+public final class SessionTimeEvaluator
+{
+    private SessionTimeEvaluator() {}
+
+    public static boolean dependsOnSessionTime(Expression expression)
+    {
+        requireNonNull(expression, "expression is null");
+
+        AtomicBoolean sessionTime = new AtomicBoolean();
+        new Visitor().process(expression, sessionTime);
+        return sessionTime.get();
+    }
+
+    private static class Visitor
+            extends DefaultExpressionTraversalVisitor<Void, AtomicBoolean>
+    {
+        private static final Set<String> FUNCTIONS = ImmutableSet.of(
+                "current_date",
+                "current_time",
+                "current_timestamp",
+                "now",
+                "localtime",
+                "localtimestamp");
+
+        @Override
+        protected Void visitCurrentTime(CurrentTime node, AtomicBoolean sessionTime)
+        {
+            sessionTime.set(true);
+            return null;
+        }
+
+        @Override
+        protected Void visitFunctionCall(FunctionCall node, AtomicBoolean sessionTime)
+        {
+            if (FUNCTIONS.contains(node.getName().toString())) {
+                sessionTime.set(true);
+            }
+            return super.visitFunctionCall(node, sessionTime);
+        }
+    }
+}
@@ -253,6 +253,9 @@ class TranslationMap
             public Expression rewriteParameter(Parameter node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
             {
                 checkState(analysis.getParameters().size() > node.getPosition(), "Too few parameter values");
+                if (analysis.isParameterBindingDeferred()) {
+                    return coerceIfNecessary(node, node);
+                }
                 return coerceIfNecessary(node, analysis.getParameters().get(NodeRef.of(node)));
             }
 
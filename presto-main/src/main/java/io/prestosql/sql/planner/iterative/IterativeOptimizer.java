@@ -29,6 +29,7 @@ import io.prestosql.matching.Match;
 import io.prestosql.matching.Pattern;
 import io.prestosql.spi.PrestoException;
 import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.QueryRuleStatsRecorder;
 import io.prestosql.sql.planner.RuleStatsRecorder;
 import io.prestosql.sql.planner.SymbolAllocator;
 import io.prestosql.sql.planner.TypeProvider;
@@ -78,11 +79,17 @@ public class IterativeOptimizer
 
     @Override
     public PlanNode optimize(PlanNode plan, Session session, TypeProvider types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator, WarningCollector warningCollector)
+    {
+        return optimize(plan, session, types, symbolAllocator, idAllocator, warningCollector, new QueryRuleStatsRecorder());
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, TypeProvider types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator, WarningCollector warningCollector, QueryRuleStatsRecorder queryRuleStats)
     {
         // only disable new rules if we have legacy rules to fall back to
         if (!SystemSessionProperties.isNewOptimizerEnabled(session) && !legacyRules.isEmpty()) {
             for (PlanOptimizer optimizer : legacyRules) {
-                plan = optimizer.optimize(plan, session, symbolAllocator.getTypes(), symbolAllocator, idAllocator, warningCollector);
+                plan = optimizer.optimize(plan, session, symbolAllocator.getTypes(), symbolAllocator, idAllocator, warningCollector, queryRuleStats);
             }
 
             return plan;
@@ -92,7 +99,7 @@ public class IterativeOptimizer
         Lookup lookup = Lookup.from(planNode -> Stream.of(memo.resolve(planNode)));
 
         Duration timeout = SystemSessionProperties.getOptimizerTimeout(session);
-        Context context = new Context(memo, lookup, idAllocator, symbolAllocator, System.nanoTime(), timeout.toMillis(), session, warningCollector);
+        Context context = new Context(memo, lookup, idAllocator, symbolAllocator, System.nanoTime(), timeout.toMillis(), session, warningCollector, queryRuleStats);
         exploreGroup(memo.getRootGroup(), context);
 
         return memo.extract();
@@ -100,6 +107,13 @@ public class IterativeOptimizer
 
     private boolean exploreGroup(int group, Context context)
     {
+        // Rules only look at a node and the nodes below it, so a group whose subtree has not
+        // changed since it was last explored cannot match. Skipping such groups avoids walking
+        // all branches of a wide plan again whenever a rule fires above them.
+        if (context.memo.isExplored(group)) {
+            return false;
+        }
+
         // tracks whether this group or any children groups change as
         // this method executes
         boolean progress = exploreNode(group, context);
@@ -115,6 +129,7 @@ public class IterativeOptimizer
             }
         }
 
+        context.memo.markExplored(group);
         return progress;
     }
 
@@ -167,9 +182,11 @@ public class IterativeOptimizer
             }
             catch (RuntimeException e) {
                 stats.recordFailure(rule);
+                context.queryRuleStats.recordFailure(rule);
                 throw e;
             }
             stats.record(rule, duration, !result.isEmpty());
+            context.queryRuleStats.record(rule, duration, !result.isEmpty());
 
             if (result.getTransformedPlan().isPresent()) {
                 return result;
@@ -262,6 +279,7 @@ public class IterativeOptimizer
         private final long timeoutInMilliseconds;
         private final Session session;
         private final WarningCollector warningCollector;
+        private final QueryRuleStatsRecorder queryRuleStats;
 
         public Context(
                 Memo memo,
@@ -271,7 +289,8 @@ public class IterativeOptimizer
                 long startTimeInNanos,
                 long timeoutInMilliseconds,
                 Session session,
-                WarningCollector warningCollector)
+                WarningCollector warningCollector,
+                QueryRuleStatsRecorder queryRuleStats)
         {
             checkArgument(timeoutInMilliseconds >= 0, "Timeout has to be a non-negative number [milliseconds]");
 
@@ -283,6 +302,7 @@ public class IterativeOptimizer
             this.timeoutInMilliseconds = timeoutInMilliseconds;
             this.session = session;
             this.warningCollector = warningCollector;
+            this.queryRuleStats = queryRuleStats;
         }
 
         public void checkTimeoutNotExhausted()
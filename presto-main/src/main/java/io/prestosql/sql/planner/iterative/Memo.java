@@ -132,10 +132,42 @@ public class Memo
         group.membership = node;
         decrementReferenceCounts(old, groupId);
         evictStatisticsAndCost(group);
+        clearExplored(group);
 
         return node;
     }
 
+    /**
+     * Marks the group as explored, meaning that no rule applies to it or to any group below it.
+     * The mark is only set when all children of the group are marked, and it is cleared when the
+     * group or any group below it is replaced.
+     */
+    public void markExplored(int groupId)
+    {
+        Group group = getGroup(groupId);
+        group.explored = getAllReferences(group.membership).stream()
+                .allMatch(child -> getGroup(child).explored);
+    }
+
+    public boolean isExplored(int group)
+    {
+        return getGroup(group).explored;
+    }
+
+    private void clearExplored(Group group)
+    {
+        // the ancestors of a group that is not explored are not explored either
+        if (!group.explored) {
+            return;
+        }
+        group.explored = false;
+        for (int parentGroup : group.incomingReferences.elementSet()) {
+            if (parentGroup != ROOT_GROUP_REF) {
+                clearExplored(getGroup(parentGroup));
+            }
+        }
+    }
+
     private void evictStatisticsAndCost(Group group)
     {
         group.stats = null;
@@ -258,6 +290,7 @@ public class Memo
         private PlanNodeStatsEstimate stats;
         @Nullable
         private PlanCostEstimate cost;
+        private boolean explored;
 
         private Group(PlanNode member)
         {
@@ -0,0 +1,90 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.airlift.units.Duration;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Applications of a rule during the optimization of a single query.
+ */
+public class RuleStatsSummary
+{
+    private final String rule;
+    private final long invocations;
+    private final long hits;
+    private final long failures;
+    private final Duration time;
+
+    @JsonCreator
+    public RuleStatsSummary(
+            @JsonProperty("rule") String rule,
+            @JsonProperty("invocations") long invocations,
+            @JsonProperty("hits") long hits,
+            @JsonProperty("failures") long failures,
+            @JsonProperty("time") Duration time)
+    {
+        this.rule = requireNonNull(rule, "rule is null");
+        this.invocations = invocations;
+        this.hits = hits;
+        this.failures = failures;
+        this.time = requireNonNull(time, "time is null");
+    }
+
+    @JsonProperty
+    public String getRule()
+    {
+        return rule;
+    }
+
+    @JsonProperty
+    public long getInvocations()
+    {
+        return invocations;
+    }
+
+    @JsonProperty
+    public long getHits()
+    {
+        return hits;
+    }
+
+    @JsonProperty
+    public long getFailures()
+    {
+        return failures;
+    }
+
+    @JsonProperty
+    public Duration getTime()
+    {
+        return time;
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("rule", rule)
+                .add("invocations", invocations)
+                .add("hits", hits)
+                .add("failures", failures)
+                .add("time", time)
+                .toString();
+    }
+}
@@ -0,0 +1,608 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.prestosql.Session;
+import io.prestosql.cost.CostCalculator;
+import io.prestosql.cost.StatsCalculator;
+import io.prestosql.execution.warnings.WarningCollector;
+import io.prestosql.matching.Captures;
+import io.prestosql.matching.Pattern;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.QualifiedObjectName;
+import io.prestosql.metadata.QualifiedTablePrefix;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.security.AllowAllAccessControl;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.spi.connector.ColumnMetadata;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition.BaseTable;
+import io.prestosql.spi.connector.Constraint;
+import io.prestosql.spi.connector.ConstraintApplicationResult;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.analyzer.Analysis;
+import io.prestosql.sql.analyzer.Analyzer;
+import io.prestosql.sql.parser.ParsingException;
+import io.prestosql.sql.parser.SqlParser;
+import io.prestosql.sql.planner.LogicalPlanner;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.SymbolAllocator;
+import io.prestosql.sql.planner.TypeAnalyzer;
+import io.prestosql.sql.planner.TypeProvider;
+import io.prestosql.sql.planner.iterative.Lookup;
+import io.prestosql.sql.planner.iterative.Rule;
+import io.prestosql.sql.planner.plan.AggregationNode;
+import io.prestosql.sql.planner.plan.AggregationNode.Aggregation;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.OutputNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.tree.CurrentPath;
+import io.prestosql.sql.tree.CurrentUser;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.ExpressionRewriter;
+import io.prestosql.sql.tree.ExpressionTreeRewriter;
+import io.prestosql.sql.tree.FunctionCall;
+import io.prestosql.sql.tree.QualifiedName;
+import io.prestosql.sql.tree.Statement;
+import io.prestosql.sql.tree.SymbolReference;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.prestosql.SystemSessionProperties.isMaterializedViewRewriteEnabled;
+import static io.prestosql.sql.ExpressionUtils.combineConjuncts;
+import static io.prestosql.sql.ExpressionUtils.extractConjuncts;
+import static io.prestosql.sql.ParsingUtil.createParsingOptions;
+import static io.prestosql.sql.planner.DeterminismEvaluator.isDeterministic;
+import static io.prestosql.sql.planner.ExpressionSymbolInliner.inlineSymbols;
+import static io.prestosql.sql.planner.SessionTimeEvaluator.dependsOnSessionTime;
+import static io.prestosql.sql.planner.SubExpressionExtractor.extract;
+import static io.prestosql.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static io.prestosql.sql.planner.plan.Patterns.aggregation;
+import static io.prestosql.sql.planner.plan.Patterns.project;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Replaces a scan of a table, together with the filters, projections and aggregation above it, with a scan of a
+ * materialized view that stores the same rows. The view may filter fewer rows than the query, in which case the
+ * remaining conjuncts of the query are applied to the rows of the view. An aggregating view answers only queries
+ * with the same grouping keys, and their remaining conjuncts must depend only on the grouping keys.
+ * <p>
+ * Candidate views are those in the schema of the table that were refreshed in the session time zone from the
+ * current version of the table, and that read no other table. Their queries are planned the same way as the query,
+ * and both plans are compared with the symbols of the table scans replaced by column names. The rules therefore
+ * must run before any other optimizer rewrites the plan. Subplans whose result depends on the session, such as the
+ * current user or time, are not replaced.
+ */
+public class AnswerFromMaterializedViews
+{
+    // names the aggregations in the expressions of a subplan, which compare equal when they apply the same function to the same arguments
+    private static final String AGGREGATION_PREFIX = "$aggregation:";
+
+    private final Metadata metadata;
+    private final TypeAnalyzer typeAnalyzer;
+    private final StatsCalculator statsCalculator;
+    private final CostCalculator costCalculator;
+    private final SqlParser sqlParser = new SqlParser();
+
+    public AnswerFromMaterializedViews(Metadata metadata, TypeAnalyzer typeAnalyzer, StatsCalculator statsCalculator, CostCalculator costCalculator)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.typeAnalyzer = requireNonNull(typeAnalyzer, "typeAnalyzer is null");
+        this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
+        this.costCalculator = requireNonNull(costCalculator, "costCalculator is null");
+    }
+
+    public Set<Rule<?>> rules()
+    {
+        return ImmutableSet.of(
+                projectRewrite(),
+                aggregationRewrite());
+    }
+
+    public Rule<?> projectRewrite()
+    {
+        return new ProjectRewrite();
+    }
+
+    public Rule<?> aggregationRewrite()
+    {
+        return new AggregationRewrite();
+    }
+
+    private abstract class MaterializedViewRewrite<T extends PlanNode>
+            implements Rule<T>
+    {
+        @Override
+        public boolean isEnabled(Session session)
+        {
+            return isMaterializedViewRewriteEnabled(session);
+        }
+
+        @Override
+        public Result apply(T node, Captures captures, Context context)
+        {
+            Optional<Subplan> subplan = summarize(node, context.getLookup(), context.getSession());
+            if (!subplan.isPresent()) {
+                return Result.empty();
+            }
+            for (MaterializedView view : getFreshViews(context.getSession(), subplan.get().getTable())) {
+                Optional<PlanNode> rewritten = rewrite(node, subplan.get(), view, context);
+                if (rewritten.isPresent()) {
+                    return Result.ofPlanNode(rewritten.get());
+                }
+            }
+            return Result.empty();
+        }
+
+        private Optional<PlanNode> rewrite(PlanNode node, Subplan query, MaterializedView view, Context context)
+        {
+            Subplan definition = view.getSubplan();
+            if (!query.getGroupingKeys().equals(definition.getGroupingKeys()) || !query.getConjuncts().containsAll(definition.getConjuncts())) {
+                return Optional.empty();
+            }
+
+            // the conjuncts the view does not apply are evaluated on its rows, which is only possible
+            // when they depend on columns of the view, that is on grouping keys if the view aggregates
+            ViewColumnRewriter rewriter = new ViewColumnRewriter(view.getColumns(), context.getSymbolAllocator());
+            List<Expression> remainingConjuncts = query.getConjuncts().stream()
+                    .filter(conjunct -> !definition.getConjuncts().contains(conjunct))
+                    .map(rewriter::rewrite)
+                    .collect(toImmutableList());
+            Assignments.Builder assignments = Assignments.builder();
+            for (Symbol output : node.getOutputSymbols()) {
+                assignments.put(output, rewriter.rewrite(query.getOutputs().get(output)));
+            }
+            if (rewriter.isFailed()) {
+                return Optional.empty();
+            }
+
+            PlanNode source = TableScanNode.newInstance(
+                    context.getIdAllocator().getNextId(),
+                    view.getTable(),
+                    ImmutableList.copyOf(rewriter.getAssignments().keySet()),
+                    rewriter.getAssignments());
+            if (!remainingConjuncts.isEmpty()) {
+                source = new FilterNode(context.getIdAllocator().getNextId(), source, combineConjuncts(remainingConjuncts));
+            }
+            return Optional.of(new ProjectNode(context.getIdAllocator().getNextId(), source, assignments.build()));
+        }
+    }
+
+    private final class ProjectRewrite
+            extends MaterializedViewRewrite<ProjectNode>
+    {
+        @Override
+        public Pattern<ProjectNode> getPattern()
+        {
+            return project();
+        }
+    }
+
+    private final class AggregationRewrite
+            extends MaterializedViewRewrite<AggregationNode>
+    {
+        @Override
+        public Pattern<AggregationNode> getPattern()
+        {
+            return aggregation();
+        }
+    }
+
+    private List<MaterializedView> getFreshViews(Session session, QualifiedObjectName table)
+    {
+        Optional<String> version = metadata.getTableHandle(session, table)
+                .map(handle -> withPartitions(session, handle))
+                .flatMap(handle -> metadata.getTableVersion(session, handle));
+        if (!version.isPresent()) {
+            return ImmutableList.of();
+        }
+
+        ImmutableList.Builder<MaterializedView> views = ImmutableList.builder();
+        for (QualifiedObjectName name : metadata.listMaterializedViews(session, new QualifiedTablePrefix(table.getCatalogName(), table.getSchemaName()))) {
+            Optional<ConnectorMaterializedViewDefinition> definition = metadata.getMaterializedView(session, name);
+            if (definition.isPresent() && isFresh(session, definition.get(), table, version.get())) {
+                planView(session, name, definition.get()).ifPresent(views::add);
+            }
+        }
+        return views.build();
+    }
+
+    private static boolean isFresh(Session session, ConnectorMaterializedViewDefinition definition, QualifiedObjectName table, String version)
+    {
+        // a view that was never refreshed is empty
+        if (!definition.getBaseTables().isPresent() || definition.getBaseTables().get().size() != 1) {
+            return false;
+        }
+        // the conversions of the view query depend on the time zone of the refresh
+        if (!definition.getTimeZone().equals(Optional.of(session.getTimeZoneKey().getId()))) {
+            return false;
+        }
+        BaseTable baseTable = getOnlyElement(definition.getBaseTables().get());
+        return baseTable.getTable().equals(table.asCatalogSchemaTableName()) && baseTable.getVersion().equals(Optional.of(version));
+    }
+
+    /**
+     * Returns the handle narrowed to all partitions of the table, because connectors need not report the
+     * version of a handle whose partitions were not pruned.
+     */
+    private TableHandle withPartitions(Session session, TableHandle handle)
+    {
+        return metadata.applyFilter(session, handle, Constraint.alwaysTrue())
+                .map(ConstraintApplicationResult::getHandle)
+                .orElse(handle);
+    }
+
+    private Optional<MaterializedView> planView(Session session, QualifiedObjectName name, ConnectorMaterializedViewDefinition definition)
+    {
+        Optional<TableHandle> table = metadata.getTableHandle(session, name);
+        if (!table.isPresent()) {
+            return Optional.empty();
+        }
+
+        // the view is only planned to be compared with the query, whose tables were checked for access
+        Session viewSession = Session.builder(metadata.getSessionPropertyManager())
+                .setQueryId(session.getQueryId())
+                .setTransactionId(session.getTransactionId().orElse(null))
+                .setIdentity(session.getIdentity())
+                .setSource(session.getSource().orElse(null))
+                .setCatalog(definition.getCatalog().orElse(null))
+                .setSchema(definition.getSchema().orElse(null))
+                .setPath(session.getPath())
+                .setTimeZoneKey(session.getTimeZoneKey())
+                .setLocale(session.getLocale())
+                .setStartTime(session.getStartTime())
+                .build();
+        OutputNode root;
+        TypeProvider types;
+        try {
+            Statement statement = sqlParser.createStatement(definition.getOriginalSql(), createParsingOptions(viewSession));
+            Analysis analysis = new Analyzer(viewSession, metadata, sqlParser, new AllowAllAccessControl(), Optional.empty(), ImmutableList.of(), ImmutableMap.of(), WarningCollector.NOOP)
+                    .analyze(statement);
+            LogicalPlanner planner = new LogicalPlanner(viewSession, ImmutableList.of(), new PlanNodeIdAllocator(), metadata, typeAnalyzer, statsCalculator, costCalculator, WarningCollector.NOOP);
+            root = (OutputNode) planner.planStatement(analysis, statement);
+            types = planner.getTypes();
+        }
+        catch (ParsingException | PrestoException e) {
+            // the query of a view that no longer plans cannot match any query
+            return Optional.empty();
+        }
+
+        Optional<Subplan> subplan = summarize(root.getSource(), Lookup.noLookup(), viewSession);
+        if (!subplan.isPresent()) {
+            return Optional.empty();
+        }
+
+        // the storage table has the visible columns of the view query in the same order
+        List<ColumnMetadata> columns = metadata.getTableMetadata(session, table.get()).getColumns().stream()
+                .filter(column -> !column.isHidden())
+                .collect(toImmutableList());
+        if (columns.size() != root.getOutputSymbols().size()) {
+            return Optional.empty();
+        }
+        Map<String, ColumnHandle> columnHandles = metadata.getColumnHandles(session, table.get());
+        Map<Expression, StorageColumn> storageColumns = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            ColumnMetadata column = columns.get(i);
+            Symbol output = root.getOutputSymbols().get(i);
+            if (column.getType().equals(types.get(output))) {
+                storageColumns.putIfAbsent(
+                        subplan.get().getOutputs().get(output),
+                        new StorageColumn(column.getName(), column.getType(), columnHandles.get(column.getName())));
+            }
+        }
+        return Optional.of(new MaterializedView(table.get(), subplan.get(), storageColumns));
+    }
+
+    /**
+     * Describes a scan of a table, with the filters, projections and aggregation above it, by expressions over the
+     * names of the columns of the table.
+     */
+    private Optional<Subplan> summarize(PlanNode node, Lookup lookup, Session session)
+    {
+        if (node instanceof TableScanNode) {
+            TableScanNode scan = (TableScanNode) node;
+            if (!scan.getEnforcedConstraint().isAll()) {
+                return Optional.empty();
+            }
+            ImmutableMap.Builder<Symbol, Expression> outputs = ImmutableMap.builder();
+            for (Map.Entry<Symbol, ColumnHandle> assignment : scan.getAssignments().entrySet()) {
+                String column = metadata.getColumnMetadata(session, scan.getTable(), assignment.getValue()).getName();
+                outputs.put(assignment.getKey(), new SymbolReference(column));
+            }
+            QualifiedObjectName table = metadata.getTableMetadata(session, scan.getTable()).getQualifiedName();
+            return Optional.of(new Subplan(table, ImmutableSet.of(), Optional.empty(), outputs.build()));
+        }
+
+        if (node instanceof FilterNode) {
+            FilterNode filter = (FilterNode) node;
+            if (!isReproducible(filter.getPredicate())) {
+                return Optional.empty();
+            }
+            return summarize(lookup.resolve(filter.getSource()), lookup, session)
+                    .filter(source -> !source.getGroupingKeys().isPresent())
+                    .map(source -> source.withConjuncts(extractConjuncts(inlineSymbols(source.getOutputs(), filter.getPredicate()))));
+        }
+
+        if (node instanceof ProjectNode) {
+            ProjectNode project = (ProjectNode) node;
+            if (!project.getAssignments().getExpressions().stream().allMatch(AnswerFromMaterializedViews::isReproducible)) {
+                return Optional.empty();
+            }
+            return summarize(lookup.resolve(project.getSource()), lookup, session)
+                    .map(source -> source.withOutputs(inlineOutputs(project.getAssignments().getMap(), source.getOutputs())));
+        }
+
+        if (node instanceof AggregationNode) {
+            AggregationNode aggregation = (AggregationNode) node;
+            if (aggregation.getStep() != SINGLE || aggregation.getGroupingSetCount() != 1 || aggregation.getHashSymbol().isPresent() || aggregation.getGroupIdSymbol().isPresent()) {
+                return Optional.empty();
+            }
+            Optional<Subplan> source = summarize(lookup.resolve(aggregation.getSource()), lookup, session);
+            if (!source.isPresent() || source.get().getGroupingKeys().isPresent()) {
+                return Optional.empty();
+            }
+
+            Map<Symbol, Expression> inputs = source.get().getOutputs();
+            ImmutableMap.Builder<Symbol, Expression> outputs = ImmutableMap.builder();
+            for (Symbol groupingKey : aggregation.getGroupingKeys()) {
+                outputs.put(groupingKey, inputs.get(groupingKey));
+            }
+            for (Map.Entry<Symbol, Aggregation> entry : aggregation.getAggregations().entrySet()) {
+                Aggregation function = entry.getValue();
+                if (function.getFilter().isPresent() || function.getMask().isPresent() || function.getOrderingScheme().isPresent()) {
+                    return Optional.empty();
+                }
+                outputs.put(entry.getKey(), new FunctionCall(
+                        Optional.empty(),
+                        QualifiedName.of(AGGREGATION_PREFIX + function.getSignature()),
+                        Optional.empty(),
+                        Optional.empty(),
+                        Optional.empty(),
+                        function.isDistinct(),
+                        Optional.empty(),
+                        function.getArguments().stream()
+                                .map(argument -> inlineSymbols(inputs, argument))
+                                .collect(toImmutableList())));
+            }
+            Set<Expression> groupingKeys = aggregation.getGroupingKeys().stream()
+                    .map(inputs::get)
+                    .collect(toImmutableSet());
+            return Optional.of(new Subplan(source.get().getTable(), source.get().getConjuncts(), Optional.of(groupingKeys), outputs.build()));
+        }
+
+        return Optional.empty();
+    }
+
+    private static Map<Symbol, Expression> inlineOutputs(Map<Symbol, Expression> assignments, Map<Symbol, Expression> inputs)
+    {
+        ImmutableMap.Builder<Symbol, Expression> outputs = ImmutableMap.builder();
+        assignments.forEach((symbol, expression) -> outputs.put(symbol, inlineSymbols(inputs, expression)));
+        return outputs.build();
+    }
+
+    /**
+     * Whether the expression evaluates to the same value for the same input in every session, so that the rows
+     * stored by an earlier session can be reused.
+     */
+    private static boolean isReproducible(Expression expression)
+    {
+        return isDeterministic(expression) &&
+                !dependsOnSessionTime(expression) &&
+                extract(expression).stream().noneMatch(node -> node instanceof CurrentUser || node instanceof CurrentPath);
+    }
+
+    private static boolean isAggregation(FunctionCall call)
+    {
+        return call.getName().getSuffix().startsWith(AGGREGATION_PREFIX);
+    }
+
+    private static final class Subplan
+    {
+        private final QualifiedObjectName table;
+        private final Set<Expression> conjuncts;
+        private final Optional<Set<Expression>> groupingKeys;
+        private final Map<Symbol, Expression> outputs;
+
+        public Subplan(QualifiedObjectName table, Set<Expression> conjuncts, Optional<Set<Expression>> groupingKeys, Map<Symbol, Expression> outputs)
+        {
+            this.table = requireNonNull(table, "table is null");
+            this.conjuncts = ImmutableSet.copyOf(requireNonNull(conjuncts, "conjuncts is null"));
+            this.groupingKeys = requireNonNull(groupingKeys, "groupingKeys is null");
+            this.outputs = ImmutableMap.copyOf(requireNonNull(outputs, "outputs is null"));
+        }
+
+        public QualifiedObjectName getTable()
+        {
+            return table;
+        }
+
+        /**
+         * Returns the conjuncts applied to the rows of the table, before any aggregation.
+         */
+        public Set<Expression> getConjuncts()
+        {
+            return conjuncts;
+        }
+
+        /**
+         * Returns the grouping keys if the subplan aggregates.
+         */
+        public Optional<Set<Expression>> getGroupingKeys()
+        {
+            return groupingKeys;
+        }
+
+        public Map<Symbol, Expression> getOutputs()
+        {
+            return outputs;
+        }
+
+        public Subplan withConjuncts(List<Expression> conjuncts)
+        {
+            return new Subplan(
+                    table,
+                    ImmutableSet.<Expression>builder().addAll(this.conjuncts).addAll(conjuncts).build(),
+                    groupingKeys,
+                    outputs);
+        }
+
+        public Subplan withOutputs(Map<Symbol, Expression> outputs)
+        {
+            return new Subplan(table, conjuncts, groupingKeys, outputs);
+        }
+    }
+
+    private static final class MaterializedView
+    {
+        private final TableHandle table;
+        private final Subplan subplan;
+        private final Map<Expression, StorageColumn> columns;
+
+        public MaterializedView(TableHandle table, Subplan subplan, Map<Expression, StorageColumn> columns)
+        {
+            this.table = requireNonNull(table, "table is null");
+            this.subplan = requireNonNull(subplan, "subplan is null");
+            this.columns = ImmutableMap.copyOf(requireNonNull(columns, "columns is null"));
+        }
+
+        public TableHandle getTable()
+        {
+            return table;
+        }
+
+        public Subplan getSubplan()
+        {
+            return subplan;
+        }
+
+        /**
+         * Returns the columns of the storage table by the expression of the view query they store.
+         */
+        public Map<Expression, StorageColumn> getColumns()
+        {
+            return columns;
+        }
+    }
+
+    private static final class StorageColumn
+    {
+        private final String name;
+        private final Type type;
+        private final ColumnHandle handle;
+
+        public StorageColumn(String name, Type type, ColumnHandle handle)
+        {
+            this.name = requireNonNull(name, "name is null");
+            this.type = requireNonNull(type, "type is null");
+            this.handle = requireNonNull(handle, "handle is null");
+        }
+
+        public String getName()
+        {
+            return name;
+        }
+
+        public Type getType()
+        {
+            return type;
+        }
+
+        public ColumnHandle getHandle()
+        {
+            return handle;
+        }
+    }
+
+    /**
+     * Replaces the subexpressions stored by the view with references to its columns. Fails when a column of
+     * the table or an aggregation remains.
+     */
+    private static final class ViewColumnRewriter
+            extends ExpressionRewriter<Void>
+    {
+        private final Map<Expression, StorageColumn> columns;
+        private final SymbolAllocator symbolAllocator;
+        private final Map<StorageColumn, Symbol> symbols = new LinkedHashMap<>();
+        private boolean failed;
+
+        public ViewColumnRewriter(Map<Expression, StorageColumn> columns, SymbolAllocator symbolAllocator)
+        {
+            this.columns = requireNonNull(columns, "columns is null");
+            this.symbolAllocator = requireNonNull(symbolAllocator, "symbolAllocator is null");
+        }
+
+        public Expression rewrite(Expression expression)
+        {
+            return ExpressionTreeRewriter.rewriteWith(this, expression);
+        }
+
+        @Override
+        public Expression rewriteExpression(Expression node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+        {
+            StorageColumn column = columns.get(node);
+            if (column == null) {
+                return null;
+            }
+            return symbols.computeIfAbsent(column, storageColumn -> symbolAllocator.newSymbol(storageColumn.getName(), storageColumn.getType()))
+                    .toSymbolReference();
+        }
+
+        @Override
+        public Expression rewriteSymbolReference(SymbolReference node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+        {
+            Expression rewritten = rewriteExpression(node, context, treeRewriter);
+            if (rewritten == null) {
+                failed = true;
+            }
+            return rewritten;
+        }
+
+        @Override
+        public Expression rewriteFunctionCall(FunctionCall node, Void context, ExpressionTreeRewriter<Void> treeRewriter)
+        {
+            Expression rewritten = rewriteExpression(node, context, treeRewriter);
+            if (rewritten == null && isAggregation(node)) {
+                failed = true;
+            }
+            return rewritten;
+        }
+
+        public boolean isFailed()
+        {
+            return failed;
+        }
+
+        public Map<Symbol, ColumnHandle> getAssignments()
+        {
+            ImmutableMap.Builder<Symbol, ColumnHandle> assignments = ImmutableMap.builder();
+            symbols.forEach((column, symbol) -> assignments.put(symbol, column.getHandle()));
+            return assignments.build();
+        }
+    }
+}
@@ -46,14 +46,17 @@ import io.prestosql.sql.tree.Expression;
 import io.prestosql.sql.tree.SymbolReference;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.IntStream;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -62,9 +65,9 @@ import static com.google.common.base.Verify.verify;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Iterables.getOnlyElement;
-import static com.google.common.collect.Sets.powerSet;
 import static com.google.common.collect.Streams.stream;
 import static io.prestosql.SystemSessionProperties.getJoinDistributionType;
+import static io.prestosql.SystemSessionProperties.getJoinEnumerationMaxSubgraphs;
 import static io.prestosql.SystemSessionProperties.getJoinReorderingStrategy;
 import static io.prestosql.SystemSessionProperties.getMaxReorderedJoins;
 import static io.prestosql.sql.ExpressionUtils.and;
@@ -150,7 +153,7 @@ public class ReorderJoins
                 costComparator,
                 multiJoinNode.getFilter(),
                 context);
-        return joinEnumerator.chooseJoinOrder(multiJoinNode.getSources(), multiJoinNode.getOutputSymbols());
+        return joinEnumerator.chooseJoinOrder(multiJoinNode);
     }
 
     @VisibleForTesting
@@ -168,6 +171,10 @@ public class ReorderJoins
 
         private final Map<Set<PlanNode>, JoinEnumerationResult> memo = new HashMap<>();
 
+        // the sources of the multi join and the pairs of them that can be joined without a cross join
+        private List<PlanNode> graphSources;
+        private JoinGraph joinGraph;
+
         @VisibleForTesting
         JoinEnumerator(CostComparator costComparator, Expression filter, Context context)
         {
@@ -181,6 +188,27 @@ public class ReorderJoins
             this.lookup = requireNonNull(context.getLookup(), "lookup is null");
         }
 
+        /**
+         * Chooses the join order of all sources of the multi join. Join graphs with few enough connected
+         * subgraphs are enumerated exhaustively; larger ones are joined greedily.
+         */
+        private JoinEnumerationResult chooseJoinOrder(MultiJoinNode multiJoinNode)
+        {
+            LinkedHashSet<PlanNode> sources = multiJoinNode.getSources();
+            JoinGraph graph = getJoinGraph(sources);
+            long allSources = graph.getAllNodes();
+            if (!graph.isConnected(allSources)) {
+                // every join order contains a cross join
+                return INFINITE_COST_RESULT;
+            }
+
+            int maxSubgraphs = getJoinEnumerationMaxSubgraphs(session);
+            if (graph.countConnectedSubgraphs(maxSubgraphs) > maxSubgraphs) {
+                return chooseJoinOrderGreedily(multiJoinNode.getOutputSymbols());
+            }
+            return chooseJoinOrder(sources, multiJoinNode.getOutputSymbols());
+        }
+
         private JoinEnumerationResult chooseJoinOrder(LinkedHashSet<PlanNode> sources, List<Symbol> outputSymbols)
         {
             context.checkTimeoutNotExhausted();
@@ -190,7 +218,7 @@ public class ReorderJoins
             if (bestResult == null) {
                 checkState(sources.size() > 1, "sources size is less than or equal to one");
                 ImmutableList.Builder<JoinEnumerationResult> resultBuilder = ImmutableList.builder();
-                Set<Set<Integer>> partitions = generatePartitions(sources.size());
+                List<Set<Integer>> partitions = generateConnectedPartitions(sources);
                 for (Set<Integer> partition : partitions) {
                     JoinEnumerationResult result = createJoinAccordingToPartitioning(sources, outputSymbols, partition);
                     if (result.equals(UNKNOWN_COST_RESULT)) {
@@ -217,30 +245,175 @@ public class ReorderJoins
         }
 
         /**
-         * This method generates all the ways of dividing totalNodes into two sets
-         * each containing at least one node. It will generate one set for each
-         * possible partitioning. The other partition is implied in the absent values.
-         * In order not to generate the inverse of any set, we always include the 0th
-         * node in our sets.
-         *
-         * @return A set of sets each of which defines a partitioning of totalNodes
+         * This method generates the ways of dividing the sources into two sets that can
+         * be joined with each other, and each of which can be joined without a cross join.
+         * Partitions that need a cross join can never be chosen, so they are not generated.
+         * The partitions are sets of positions in the sources, and the other partition is
+         * implied in the absent positions. In order not to generate the inverse of any set,
+         * we always include the 0th source in our sets. The partitions are ordered as the
+         * binary numbers they represent, to facilitate rule determinism.
          */
         @VisibleForTesting
-        static Set<Set<Integer>> generatePartitions(int totalNodes)
+        List<Set<Integer>> generateConnectedPartitions(LinkedHashSet<PlanNode> sources)
         {
-            checkArgument(totalNodes > 1, "totalNodes must be greater than 1");
-            Set<Integer> numbers = IntStream.range(0, totalNodes)
-                    .boxed()
-                    .collect(toImmutableSet());
-            return powerSet(numbers).stream()
-                    .filter(subSet -> subSet.contains(0))
-                    .filter(subSet -> subSet.size() < numbers.size())
-                    .collect(toImmutableSet());
+            JoinGraph graph = getJoinGraph(sources);
+            List<PlanNode> sourceList = ImmutableList.copyOf(sources);
+            long nodes = 0;
+            for (PlanNode source : sourceList) {
+                nodes |= 1L << graphSources.indexOf(source);
+            }
+
+            ImmutableList.Builder<Set<Integer>> partitions = ImmutableList.builder();
+            for (long partition : graph.generateConnectedPartitions(nodes)) {
+                ImmutableSet.Builder<Integer> positions = ImmutableSet.builder();
+                for (int position = 0; position < sourceList.size(); position++) {
+                    if ((partition & (1L << graphSources.indexOf(sourceList.get(position)))) != 0) {
+                        positions.add(position);
+                    }
+                }
+                partitions.add(positions.build());
+            }
+            return partitions.build();
+        }
+
+        private JoinGraph getJoinGraph(Collection<PlanNode> sources)
+        {
+            if (joinGraph == null) {
+                graphSources = ImmutableList.copyOf(sources);
+                checkArgument(graphSources.size() <= Long.SIZE, "too many sources: %s", graphSources.size());
+                long[] edges = new long[graphSources.size()];
+                for (int left = 0; left < graphSources.size(); left++) {
+                    Set<Symbol> leftSymbols = ImmutableSet.copyOf(graphSources.get(left).getOutputSymbols());
+                    for (int right = left + 1; right < graphSources.size(); right++) {
+                        Set<Symbol> rightSymbols = ImmutableSet.copyOf(graphSources.get(right).getOutputSymbols());
+                        if (getJoinPredicates(leftSymbols, rightSymbols).stream().anyMatch(JoinEnumerator::isJoinEqualityCondition)) {
+                            edges[left] |= 1L << right;
+                            edges[right] |= 1L << left;
+                        }
+                    }
+                }
+                joinGraph = new JoinGraph(edges);
+            }
+            return joinGraph;
+        }
+
+        /**
+         * Joins the cheapest pair of joinable components until a single component is left,
+         * starting with every source in a component of its own.
+         */
+        private JoinEnumerationResult chooseJoinOrderGreedily(List<Symbol> outputSymbols)
+        {
+            Set<Symbol> filterSymbols = SymbolsExtractor.extractUnique(allFilter);
+
+            // components are kept in the order of the sources, to facilitate rule determinism
+            Map<Long, JoinEnumerationResult> components = new LinkedHashMap<>();
+            for (int index = 0; index < graphSources.size(); index++) {
+                PlanNode source = graphSources.get(index);
+                JoinEnumerationResult result = getJoinSource(
+                        new LinkedHashSet<>(ImmutableList.of(source)),
+                        getRequiredSymbols(source.getOutputSymbols(), outputSymbols, filterSymbols));
+                if (result.equals(UNKNOWN_COST_RESULT) || result.equals(INFINITE_COST_RESULT)) {
+                    return result;
+                }
+                components.put(1L << index, result);
+            }
+
+            // the join of two components is identified by the union of their sources
+            Map<Long, JoinEnumerationResult> joins = new HashMap<>();
+            while (components.size() > 1) {
+                context.checkTimeoutNotExhausted();
+
+                JoinEnumerationResult bestResult = null;
+                long bestLeft = 0;
+                long bestRight = 0;
+                List<Long> componentNodes = ImmutableList.copyOf(components.keySet());
+                for (int left = 0; left < componentNodes.size(); left++) {
+                    long leftNodes = componentNodes.get(left);
+                    long leftNeighbors = joinGraph.getNeighbors(leftNodes);
+                    for (int right = left + 1; right < componentNodes.size(); right++) {
+                        long rightNodes = componentNodes.get(right);
+                        if ((leftNeighbors & rightNodes) == 0) {
+                            continue;
+                        }
+                        long nodes = leftNodes | rightNodes;
+                        JoinEnumerationResult result = joins.get(nodes);
+                        if (result == null) {
+                            List<Symbol> requiredSymbols = nodes == joinGraph.getAllNodes() ? outputSymbols : getRequiredSymbols(getSymbols(nodes), outputSymbols, filterSymbols);
+                            result = joinComponents(leftNodes, components.get(leftNodes), rightNodes, components.get(rightNodes), requiredSymbols);
+                            joins.put(nodes, result);
+                        }
+                        if (result.equals(UNKNOWN_COST_RESULT)) {
+                            return UNKNOWN_COST_RESULT;
+                        }
+                        if (!result.equals(INFINITE_COST_RESULT) && (bestResult == null || resultComparator.compare(result, bestResult) < 0)) {
+                            bestResult = result;
+                            bestLeft = leftNodes;
+                            bestRight = rightNodes;
+                        }
+                    }
+                }
+
+                if (bestResult == null) {
+                    return INFINITE_COST_RESULT;
+                }
+                components.remove(bestLeft);
+                components.remove(bestRight);
+                components.put(bestLeft | bestRight, bestResult);
+            }
+
+            JoinEnumerationResult result = getOnlyElement(components.values());
+            result.planNode.ifPresent((planNode) -> log.debug("Greedy join order was: %s", planNode));
+            return result;
+        }
+
+        private JoinEnumerationResult joinComponents(long leftNodes, JoinEnumerationResult left, long rightNodes, JoinEnumerationResult right, List<Symbol> outputSymbols)
+        {
+            Set<Symbol> leftSymbols = ImmutableSet.copyOf(getSymbols(leftNodes));
+            Set<Symbol> rightSymbols = ImmutableSet.copyOf(getSymbols(rightNodes));
+
+            List<Expression> joinPredicates = getJoinPredicates(leftSymbols, rightSymbols);
+            List<EquiJoinClause> joinConditions = joinPredicates.stream()
+                    .filter(JoinEnumerator::isJoinEqualityCondition)
+                    .map(predicate -> toEquiJoinClause((ComparisonExpression) predicate, leftSymbols))
+                    .collect(toImmutableList());
+            if (joinConditions.isEmpty()) {
+                return INFINITE_COST_RESULT;
+            }
+            List<Expression> joinFilters = joinPredicates.stream()
+                    .filter(predicate -> !isJoinEqualityCondition(predicate))
+                    .collect(toImmutableList());
+
+            return createJoin(
+                    left.planNode.orElseThrow(() -> new VerifyException("Plan node is not present")),
+                    right.planNode.orElseThrow(() -> new VerifyException("Plan node is not present")),
+                    joinConditions,
+                    joinFilters,
+                    outputSymbols);
+        }
+
+        private List<Symbol> getSymbols(long nodes)
+        {
+            ImmutableList.Builder<Symbol> symbols = ImmutableList.builder();
+            for (int index = 0; index < graphSources.size(); index++) {
+                if ((nodes & (1L << index)) != 0) {
+                    symbols.addAll(graphSources.get(index).getOutputSymbols());
+                }
+            }
+            return symbols.build();
+        }
+
+        private static List<Symbol> getRequiredSymbols(List<Symbol> symbols, List<Symbol> outputSymbols, Set<Symbol> filterSymbols)
+        {
+            // symbols used by any join predicate are kept, since the order of the remaining joins is not known yet
+            return symbols.stream()
+                    .filter(symbol -> outputSymbols.contains(symbol) || filterSymbols.contains(symbol))
+                    .collect(toImmutableList());
         }
 
         @VisibleForTesting
         JoinEnumerationResult createJoinAccordingToPartitioning(LinkedHashSet<PlanNode> sources, List<Symbol> outputSymbols, Set<Integer> partitioning)
         {
+            getJoinGraph(sources);
             List<PlanNode> sourceList = ImmutableList.copyOf(sources);
             LinkedHashSet<PlanNode> leftSources = partitioning.stream()
                     .map(sourceList::get)
@@ -305,6 +478,11 @@ public class ReorderJoins
 
             PlanNode right = rightResult.planNode.orElseThrow(() -> new VerifyException("Plan node is not present"));
 
+            return createJoin(left, right, joinConditions, joinFilters, outputSymbols);
+        }
+
+        private JoinEnumerationResult createJoin(PlanNode left, PlanNode right, List<EquiJoinClause> joinConditions, List<Expression> joinFilters, List<Symbol> outputSymbols)
+        {
             // sort output symbols so that the left input symbols are first
             List<Symbol> sortedOutputSymbols = Stream.concat(left.getOutputSymbols().stream(), right.getOutputSymbols().stream())
                     .filter(outputSymbols::contains)
@@ -514,7 +692,9 @@ public class ReorderJoins
 
         static MultiJoinNode toMultiJoinNode(JoinNode joinNode, Context context, boolean pushProjectionsThroughJoin)
         {
-            return toMultiJoinNode(joinNode, context.getLookup(), context.getIdAllocator(), getMaxReorderedJoins(context.getSession()), pushProjectionsThroughJoin);
+            // the join graph keeps sets of sources in bit sets, so there can be at most 64 sources
+            int joinLimit = Math.min(getMaxReorderedJoins(context.getSession()), Long.SIZE - 1);
+            return toMultiJoinNode(joinNode, context.getLookup(), context.getIdAllocator(), joinLimit, pushProjectionsThroughJoin);
         }
 
         static MultiJoinNode toMultiJoinNode(JoinNode joinNode, Lookup lookup, PlanNodeIdAllocator planNodeIdAllocator, int joinLimit, boolean pushProjectionsThroughJoin)
@@ -633,6 +813,111 @@ public class ReorderJoins
         }
     }
 
+    /**
+     * Sources of a multi join and the pairs of them that can be joined without a cross join.
+     * Sets of sources are bit sets of the positions of the sources.
+     */
+    @VisibleForTesting
+    static class JoinGraph
+    {
+        private final long[] edges;
+        private final long allNodes;
+
+        JoinGraph(long[] edges)
+        {
+            requireNonNull(edges, "edges is null");
+            checkArgument(edges.length > 0 && edges.length <= Long.SIZE, "unsupported number of nodes: %s", edges.length);
+            this.edges = edges.clone();
+            this.allNodes = edges.length == Long.SIZE ? -1L : (1L << edges.length) - 1;
+        }
+
+        public long getAllNodes()
+        {
+            return allNodes;
+        }
+
+        public long getNeighbors(long nodes)
+        {
+            long neighbors = 0;
+            for (long remaining = nodes; remaining != 0; remaining &= remaining - 1) {
+                neighbors |= edges[Long.numberOfTrailingZeros(remaining)];
+            }
+            return neighbors & ~nodes;
+        }
+
+        public boolean isConnected(long nodes)
+        {
+            if (nodes == 0) {
+                return false;
+            }
+            long reached = Long.lowestOneBit(nodes);
+            while (true) {
+                long next = (reached | getNeighbors(reached)) & nodes;
+                if (next == reached) {
+                    return reached == nodes;
+                }
+                reached = next;
+            }
+        }
+
+        /**
+         * Counts the connected subgraphs, which is the number of sets of sources that exhaustive enumeration plans.
+         * Counting stops as soon as the count exceeds the limit.
+         */
+        public long countConnectedSubgraphs(long limit)
+        {
+            long[] count = new long[1];
+            // each connected subgraph is counted from its lowest node, extended only with higher nodes
+            for (int node = edges.length - 1; node >= 0 && count[0] <= limit; node--) {
+                long start = 1L << node;
+                long excluded = (start << 1) - 1;
+                count[0]++;
+                enumerateConnectedSubgraphs(start, excluded, allNodes, subgraph -> count[0]++, () -> count[0] > limit);
+            }
+            return count[0];
+        }
+
+        /**
+         * Generates the sets containing the lowest of the nodes, such that the set and the rest of the nodes are
+         * both connected. The sets are ordered as unsigned numbers.
+         */
+        public List<Long> generateConnectedPartitions(long nodes)
+        {
+            if (Long.bitCount(nodes) < 2 || !isConnected(nodes)) {
+                return ImmutableList.of();
+            }
+
+            List<Long> partitions = new ArrayList<>();
+            long start = Long.lowestOneBit(nodes);
+            Consumer<Long> consumer = subgraph -> {
+                if (subgraph != nodes && isConnected(nodes & ~subgraph)) {
+                    partitions.add(subgraph);
+                }
+            };
+            consumer.accept(start);
+            enumerateConnectedSubgraphs(start, start, nodes, consumer, () -> false);
+            partitions.sort(Long::compareUnsigned);
+            return ImmutableList.copyOf(partitions);
+        }
+
+        /**
+         * Generates every connected extension of the subgraph within the nodes exactly once, never adding excluded nodes.
+         */
+        private void enumerateConnectedSubgraphs(long subgraph, long excluded, long nodes, Consumer<Long> consumer, BooleanSupplier stop)
+        {
+            long neighbors = getNeighbors(subgraph) & nodes & ~excluded;
+            if (neighbors == 0) {
+                return;
+            }
+            for (long subset = neighbors; subset != 0 && !stop.getAsBoolean(); subset = (subset - 1) & neighbors) {
+                consumer.accept(subgraph | subset);
+            }
+            for (long subset = neighbors; subset != 0 && !stop.getAsBoolean(); subset = (subset - 1) & neighbors) {
+                enumerateConnectedSubgraphs(subgraph | subset, excluded | neighbors, nodes, consumer, stop);
+            }
+        }
+    }
+
     @VisibleForTesting
     static class JoinEnumerationResult
     {
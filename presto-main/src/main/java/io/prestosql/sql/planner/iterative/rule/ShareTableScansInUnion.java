@@ -0,0 +1,314 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.Session;
+import io.prestosql.matching.Captures;
+import io.prestosql.matching.Pattern;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.spi.connector.ColumnHandle;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.Lookup;
+import io.prestosql.sql.planner.iterative.Rule;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.GroupIdNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.planner.plan.UnionNode;
+import io.prestosql.sql.tree.ComparisonExpression;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.GenericLiteral;
+import io.prestosql.sql.tree.SimpleCaseExpression;
+import io.prestosql.sql.tree.SymbolReference;
+import io.prestosql.sql.tree.WhenClause;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.prestosql.SystemSessionProperties.isShareTableScansInUnion;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.ExpressionUtils.and;
+import static io.prestosql.sql.ExpressionUtils.or;
+import static io.prestosql.sql.planner.DeterminismEvaluator.isDeterministic;
+import static io.prestosql.sql.planner.ExpressionSymbolInliner.inlineSymbols;
+import static io.prestosql.sql.planner.plan.Patterns.union;
+import static io.prestosql.sql.tree.ComparisonExpression.Operator.EQUAL;
+
+/**
+ * Reads a table once for all branches of a union that scan it, optionally
+ * filtered and projected. Transforms:
+ * <pre>
+ * - Union
+ *    - Project (e1)
+ *       - Filter (p1)
+ *          - TableScan (t)
+ *    - Project (e2)
+ *       - Filter (p2)
+ *          - TableScan (t)
+ * </pre>
+ * into:
+ * <pre>
+ * - Project (CASE group WHEN 0 THEN e1 WHEN 1 THEN e2 END)
+ *    - Filter ((group = 0 AND p1) OR (group = 1 AND p2))
+ *       - GroupId (group, one empty grouping set per branch)
+ *          - Filter (p1 OR p2)
+ *             - TableScan (t)
+ * </pre>
+ * The GroupId node emits each row once per branch, and each branch keeps its own residual
+ * filter, so a row that passes the filters of several branches is still returned several times.
+ * Must run before predicates are pushed into the table scans, while the branches still scan
+ * the same table handle. Only union branches that are a scan with an optional filter and
+ * projection are shared; scans below joins or aggregations, as in self-joins, are not.
+ */
+public class ShareTableScansInUnion
+        implements Rule<UnionNode>
+{
+    private static final Pattern<UnionNode> PATTERN = union();
+
+    @Override
+    public Pattern<UnionNode> getPattern()
+    {
+        return PATTERN;
+    }
+
+    @Override
+    public boolean isEnabled(Session session)
+    {
+        return isShareTableScansInUnion(session);
+    }
+
+    @Override
+    public Result apply(UnionNode node, Captures captures, Context context)
+    {
+        List<Optional<Branch>> branches = new ArrayList<>();
+        for (int i = 0; i < node.getSources().size(); i++) {
+            branches.add(Branch.of(node, i, context.getLookup()));
+        }
+
+        // share the scan of the first table read by more than one branch
+        for (int first = 0; first < branches.size(); first++) {
+            if (!branches.get(first).isPresent()) {
+                continue;
+            }
+            TableScanNode scan = branches.get(first).get().getTableScan();
+            List<Integer> shared = new ArrayList<>();
+            for (int i = first; i < branches.size(); i++) {
+                if (branches.get(i).isPresent() && isSameTable(scan, branches.get(i).get().getTableScan())) {
+                    shared.add(i);
+                }
+            }
+            if (shared.size() > 1) {
+                return Result.ofPlanNode(shareTableScan(node, branches, shared, context));
+            }
+        }
+        return Result.empty();
+    }
+
+    private static PlanNode shareTableScan(UnionNode node, List<Optional<Branch>> branches, List<Integer> shared, Context context)
+    {
+        // one symbol per column read by any of the branches
+        Map<ColumnHandle, Symbol> columns = new LinkedHashMap<>();
+        List<Map<Symbol, SymbolReference>> symbolMappings = new ArrayList<>();
+        for (int index : shared) {
+            Map<Symbol, SymbolReference> mapping = new HashMap<>();
+            branches.get(index).get().getTableScan().getAssignments().forEach((symbol, column) ->
+                    mapping.put(symbol, columns.computeIfAbsent(column, ignored -> symbol).toSymbolReference()));
+            symbolMappings.add(mapping);
+        }
+
+        TableScanNode firstScan = branches.get(shared.get(0)).get().getTableScan();
+        PlanNode source = new TableScanNode(
+                context.getIdAllocator().getNextId(),
+                firstScan.getTable(),
+                ImmutableList.copyOf(columns.values()),
+                columns.entrySet().stream()
+                        .collect(ImmutableMap.toImmutableMap(Map.Entry::getValue, Map.Entry::getKey)),
+                firstScan.getEnforcedConstraint());
+
+        List<Optional<Expression>> predicates = new ArrayList<>();
+        for (int i = 0; i < shared.size(); i++) {
+            Map<Symbol, SymbolReference> mapping = symbolMappings.get(i);
+            predicates.add(branches.get(shared.get(i)).get().getPredicate().map(predicate -> inlineSymbols(mapping, predicate)));
+        }
+        if (predicates.stream().allMatch(Optional::isPresent)) {
+            source = new FilterNode(
+                    context.getIdAllocator().getNextId(),
+                    source,
+                    or(predicates.stream()
+                            .map(Optional::get)
+                            .collect(toImmutableList())));
+        }
+
+        Symbol groupId = context.getSymbolAllocator().newSymbol("group", BIGINT);
+        source = new GroupIdNode(
+                context.getIdAllocator().getNextId(),
+                source,
+                shared.stream()
+                        .map(index -> ImmutableList.<Symbol>of())
+                        .collect(toImmutableList()),
+                ImmutableMap.of(),
+                ImmutableList.copyOf(columns.values()),
+                groupId);
+
+        if (predicates.stream().anyMatch(Optional::isPresent)) {
+            ImmutableList.Builder<Expression> residualPredicates = ImmutableList.builder();
+            for (int i = 0; i < shared.size(); i++) {
+                Expression isBranch = new ComparisonExpression(EQUAL, groupId.toSymbolReference(), groupIdLiteral(i));
+                residualPredicates.add(predicates.get(i)
+                        .map(predicate -> and(isBranch, predicate))
+                        .orElse(isBranch));
+            }
+            source = new FilterNode(context.getIdAllocator().getNextId(), source, or(residualPredicates.build()));
+        }
+
+        // the output symbols of the union if all branches are shared, new symbols otherwise
+        boolean allShared = shared.size() == node.getSources().size();
+        Map<Symbol, Symbol> sharedOutputs = new LinkedHashMap<>();
+        Assignments.Builder assignments = Assignments.builder();
+        for (Symbol output : node.getOutputSymbols()) {
+            List<Expression> values = new ArrayList<>();
+            for (int i = 0; i < shared.size(); i++) {
+                values.add(inlineSymbols(symbolMappings.get(i), branches.get(shared.get(i)).get().getOutput(output)));
+            }
+            Symbol symbol = allShared ? output : context.getSymbolAllocator().newSymbol(output);
+            sharedOutputs.put(output, symbol);
+            assignments.put(symbol, selectByGroup(groupId, values));
+        }
+        PlanNode project = new ProjectNode(context.getIdAllocator().getNextId(), source, assignments.build());
+        if (allShared) {
+            return project;
+        }
+
+        ImmutableList.Builder<PlanNode> sources = ImmutableList.builder();
+        ImmutableListMultimap.Builder<Symbol, Symbol> outputsToInputs = ImmutableListMultimap.builder();
+        for (int i = 0; i < node.getSources().size(); i++) {
+            if (i == shared.get(0)) {
+                sources.add(project);
+                for (Symbol output : node.getOutputSymbols()) {
+                    outputsToInputs.put(output, sharedOutputs.get(output));
+                }
+            }
+            else if (!shared.contains(i)) {
+                sources.add(node.getSources().get(i));
+                for (Symbol output : node.getOutputSymbols()) {
+                    outputsToInputs.put(output, node.getSymbolMapping().get(output).get(i));
+                }
+            }
+        }
+        return new UnionNode(node.getId(), sources.build(), outputsToInputs.build(), node.getOutputSymbols());
+    }
+
+    private static Expression selectByGroup(Symbol groupId, List<Expression> values)
+    {
+        if (values.stream().distinct().count() == 1) {
+            return values.get(0);
+        }
+        ImmutableList.Builder<WhenClause> whenClauses = ImmutableList.builder();
+        for (int i = 0; i < values.size(); i++) {
+            whenClauses.add(new WhenClause(groupIdLiteral(i), values.get(i)));
+        }
+        return new SimpleCaseExpression(groupId.toSymbolReference(), whenClauses.build(), Optional.empty());
+    }
+
+    private static Expression groupIdLiteral(int group)
+    {
+        return new GenericLiteral("BIGINT", Integer.toString(group));
+    }
+
+    private static boolean isSameTable(TableScanNode left, TableScanNode right)
+    {
+        TableHandle leftTable = left.getTable();
+        TableHandle rightTable = right.getTable();
+        return leftTable.getCatalogName().equals(rightTable.getCatalogName()) &&
+                leftTable.getConnectorHandle().equals(rightTable.getConnectorHandle()) &&
+                leftTable.getLayout().equals(rightTable.getLayout()) &&
+                leftTable.getTransaction().equals(rightTable.getTransaction()) &&
+                left.getEnforcedConstraint().equals(right.getEnforcedConstraint());
+    }
+
+    /**
+     * A union source that scans a table, with an optional filter and projection.
+     */
+    private static final class Branch
+    {
+        private final TableScanNode tableScan;
+        private final Optional<Expression> predicate;
+        private final Map<Symbol, Expression> outputs;
+
+        private Branch(TableScanNode tableScan, Optional<Expression> predicate, Map<Symbol, Expression> outputs)
+        {
+            this.tableScan = tableScan;
+            this.predicate = predicate;
+            this.outputs = outputs;
+        }
+
+        public static Optional<Branch> of(UnionNode union, int sourceIndex, Lookup lookup)
+        {
+            PlanNode node = lookup.resolve(union.getSources().get(sourceIndex));
+            Optional<Assignments> projections = Optional.empty();
+            if (node instanceof ProjectNode) {
+                projections = Optional.of(((ProjectNode) node).getAssignments());
+                node = lookup.resolve(((ProjectNode) node).getSource());
+            }
+            Optional<Expression> predicate = Optional.empty();
+            if (node instanceof FilterNode) {
+                predicate = Optional.of(((FilterNode) node).getPredicate());
+                node = lookup.resolve(((FilterNode) node).getSource());
+            }
+            if (!(node instanceof TableScanNode)) {
+                return Optional.empty();
+            }
+            TableScanNode tableScan = (TableScanNode) node;
+            if (predicate.map(expression -> !isDeterministic(expression)).orElse(false)) {
+                return Optional.empty();
+            }
+
+            ImmutableMap.Builder<Symbol, Expression> outputs = ImmutableMap.builder();
+            for (Map.Entry<Symbol, SymbolReference> entry : union.sourceSymbolMap(sourceIndex).entrySet()) {
+                Symbol input = Symbol.from(entry.getValue());
+                Expression value = projections.map(assignments -> assignments.get(input)).orElse(entry.getValue());
+                if (!isDeterministic(value)) {
+                    return Optional.empty();
+                }
+                outputs.put(entry.getKey(), value);
+            }
+            return Optional.of(new Branch(tableScan, predicate, outputs.build()));
+        }
+
+        public TableScanNode getTableScan()
+        {
+            return tableScan;
+        }
+
+        public Optional<Expression> getPredicate()
+        {
+            return predicate;
+        }
+
+        public Expression getOutput(Symbol unionOutput)
+        {
+            return outputs.get(unionOutput);
+        }
+    }
+}
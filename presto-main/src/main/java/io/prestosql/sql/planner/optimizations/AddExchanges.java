@@ -151,7 +151,9 @@ public class AddExchanges
             this.session = session;
             this.distributedIndexJoins = SystemSessionProperties.isDistributedIndexJoinEnabled(session);
             this.redistributeWrites = SystemSessionProperties.isRedistributeWrites(session);
-            this.scaleWriters = SystemSessionProperties.isScaleWriters(session);
+            // the output of a task must know all of its consumers before it can be spooled, so the
+            // writers cannot be added over time in fault-tolerant execution
+            this.scaleWriters = SystemSessionProperties.isScaleWriters(session) && !SystemSessionProperties.isFaultTolerantExecutionEnabled(session);
             this.preferStreamingOperators = SystemSessionProperties.preferStreamingOperators(session);
         }
 
@@ -19,10 +19,13 @@ import com.google.common.collect.Lists;
 import io.prestosql.Session;
 import io.prestosql.execution.warnings.WarningCollector;
 import io.prestosql.metadata.Metadata;
+import io.prestosql.spi.block.SortOrder;
 import io.prestosql.spi.connector.ConstantProperty;
 import io.prestosql.spi.connector.GroupingProperty;
 import io.prestosql.spi.connector.LocalProperty;
 import io.prestosql.spi.connector.SortingProperty;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.OrderingScheme;
 import io.prestosql.sql.planner.Partitioning;
 import io.prestosql.sql.planner.PartitioningScheme;
 import io.prestosql.sql.planner.PlanNodeIdAllocator;
@@ -42,6 +45,7 @@ import io.prestosql.sql.planner.plan.IndexJoinNode;
 import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanVisitor;
@@ -58,8 +62,10 @@ import io.prestosql.sql.planner.plan.UnionNode;
 import io.prestosql.sql.planner.plan.WindowNode;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -67,10 +73,14 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
-import static io.prestosql.SystemSessionProperties.getTaskConcurrency;
+import static io.prestosql.SystemSessionProperties.getTaskHashBuildConcurrency;
 import static io.prestosql.SystemSessionProperties.getTaskWriterCount;
 import static io.prestosql.SystemSessionProperties.isDistributedSortEnabled;
+import static io.prestosql.SystemSessionProperties.isGroupedExecutionEnabled;
+import static io.prestosql.SystemSessionProperties.isMergeJoinEnabled;
 import static io.prestosql.SystemSessionProperties.isSpillEnabled;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.RealType.REAL;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_ARBITRARY_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
@@ -80,6 +90,7 @@ import static io.prestosql.sql.planner.optimizations.StreamPreferredProperties.e
 import static io.prestosql.sql.planner.optimizations.StreamPreferredProperties.fixedParallelism;
 import static io.prestosql.sql.planner.optimizations.StreamPreferredProperties.singleStream;
 import static io.prestosql.sql.planner.optimizations.StreamPropertyDerivations.StreamProperties.StreamDistribution.FIXED;
+import static io.prestosql.sql.planner.optimizations.StreamPropertyDerivations.StreamProperties.StreamDistribution.MULTIPLE;
 import static io.prestosql.sql.planner.optimizations.StreamPropertyDerivations.StreamProperties.StreamDistribution.SINGLE;
 import static io.prestosql.sql.planner.optimizations.StreamPropertyDerivations.derivePropertiesRecursively;
 import static io.prestosql.sql.planner.plan.ChildReplacer.replaceChildren;
@@ -581,6 +592,13 @@ public class AddLocalExchanges
         @Override
         public PlanWithProperties visitJoin(JoinNode node, StreamPreferredProperties parentPreferences)
         {
+            if (isMergeJoinEnabled(session)) {
+                Optional<PlanWithProperties> mergeJoin = tryPlanMergeJoin(node);
+                if (mergeJoin.isPresent()) {
+                    return mergeJoin.get();
+                }
+            }
+
             PlanWithProperties probe = planAndEnforce(
                     node.getLeft(),
                     defaultParallelism(session),
@@ -601,7 +619,7 @@ public class AddLocalExchanges
             // this build consumes the input completely, so we do not pass through parent preferences
             List<Symbol> buildHashSymbols = Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getRight);
             StreamPreferredProperties buildPreference;
-            if (getTaskConcurrency(session) > 1) {
+            if (getTaskHashBuildConcurrency(session) > 1) {
                 buildPreference = exactlyPartitionedOn(buildHashSymbols);
             }
             else {
@@ -612,6 +630,113 @@ public class AddLocalExchanges
             return rebaseAndDeriveProperties(node, ImmutableList.of(probe, build));
         }
 
+        /**
+         * Replaces the join with a merge join when both inputs are already sorted on the join keys
+         * with the same sort orders. Each input is merged into a single sorted stream if necessary.
+         * Scans that are sorted per split are joined bucket by bucket using grouped execution instead.
+         */
+        private Optional<PlanWithProperties> tryPlanMergeJoin(JoinNode node)
+        {
+            if ((node.getType() != JoinNode.Type.INNER && node.getType() != JoinNode.Type.LEFT) ||
+                    node.getCriteria().isEmpty() ||
+                    node.getFilter().isPresent() ||
+                    !node.getDynamicFilters().isEmpty()) {
+                return Optional.empty();
+            }
+
+            List<Symbol> leftKeys = Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getLeft);
+            List<Symbol> rightKeys = Lists.transform(node.getCriteria(), JoinNode.EquiJoinClause::getRight);
+            for (Symbol key : leftKeys) {
+                Type type = types.get(key);
+                // floating point ordering does not agree with join equality for NaN and signed zeros
+                if (!type.isOrderable() || type.equals(DOUBLE) || type.equals(REAL)) {
+                    return Optional.empty();
+                }
+            }
+
+            PlanWithProperties left = planAndEnforce(node.getLeft(), any().withOrderSensitivity(), any().withOrderSensitivity());
+            PlanWithProperties right = planAndEnforce(node.getRight(), any().withOrderSensitivity(), any().withOrderSensitivity());
+
+            Optional<List<SortOrder>> sortOrders = getSortOrders(left.getProperties(), leftKeys);
+            if (!sortOrders.isPresent() || !sortOrders.equals(getSortOrders(right.getProperties(), rightKeys))) {
+                return Optional.empty();
+            }
+
+            Optional<PlanWithProperties> mergedLeft;
+            Optional<PlanWithProperties> mergedRight;
+            if (isDrivenBySplits(left) || isDrivenBySplits(right)) {
+                // Streams driven by splits are sorted per split only and can not be merged locally. With grouped execution
+                // every lifespan reads a single bucket of each side, which the connector exposes as a single sorted split.
+                if (!isDrivenBySplits(left) || !isDrivenBySplits(right) || !isGroupedExecutionEnabled(session)) {
+                    return Optional.empty();
+                }
+                mergedLeft = Optional.of(left);
+                mergedRight = Optional.of(right);
+            }
+            else {
+                mergedLeft = mergeToSingleStream(left, leftKeys, sortOrders.get());
+                mergedRight = mergeToSingleStream(right, rightKeys, sortOrders.get());
+            }
+            if (!mergedLeft.isPresent() || !mergedRight.isPresent()) {
+                return Optional.empty();
+            }
+
+            MergeJoinNode mergeJoin = new MergeJoinNode(
+                    node.getId(),
+                    node.getType(),
+                    mergedLeft.get().getNode(),
+                    mergedRight.get().getNode(),
+                    node.getCriteria(),
+                    sortOrders.get(),
+                    node.getOutputSymbols());
+            return Optional.of(deriveProperties(mergeJoin, ImmutableList.of(mergedLeft.get().getProperties(), mergedRight.get().getProperties())));
+        }
+
+        private Optional<List<SortOrder>> getSortOrders(StreamProperties properties, List<Symbol> keys)
+        {
+            List<LocalProperty<Symbol>> localProperties = properties.getLocalProperties();
+            if (localProperties.size() < keys.size()) {
+                return Optional.empty();
+            }
+
+            ImmutableList.Builder<SortOrder> sortOrders = ImmutableList.builder();
+            for (int i = 0; i < keys.size(); i++) {
+                LocalProperty<Symbol> property = localProperties.get(i);
+                if (!(property instanceof SortingProperty) || !((SortingProperty<Symbol>) property).getColumn().equals(keys.get(i))) {
+                    return Optional.empty();
+                }
+                sortOrders.add(((SortingProperty<Symbol>) property).getOrder());
+            }
+            return Optional.of(sortOrders.build());
+        }
+
+        private boolean isDrivenBySplits(PlanWithProperties plan)
+        {
+            return plan.getProperties().getDistribution() == MULTIPLE;
+        }
+
+        private Optional<PlanWithProperties> mergeToSingleStream(PlanWithProperties plan, List<Symbol> keys, List<SortOrder> sortOrders)
+        {
+            if (plan.getProperties().isSingleStream()) {
+                return Optional.of(plan);
+            }
+            if (plan.getProperties().getDistribution() != FIXED) {
+                return Optional.empty();
+            }
+
+            Map<Symbol, SortOrder> orderings = new HashMap<>();
+            for (int i = 0; i < keys.size(); i++) {
+                orderings.put(keys.get(i), sortOrders.get(i));
+            }
+            return Optional.of(deriveProperties(
+                    mergingExchange(
+                            idAllocator.getNextId(),
+                            LOCAL,
+                            plan.getNode(),
+                            new OrderingScheme(ImmutableList.copyOf(keys), orderings)),
+                    plan.getProperties()));
+        }
+
         @Override
         public PlanWithProperties visitSemiJoin(SemiJoinNode node, StreamPreferredProperties parentPreferences)
         {
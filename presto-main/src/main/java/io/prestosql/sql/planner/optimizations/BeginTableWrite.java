@@ -39,6 +39,8 @@ import io.prestosql.sql.planner.plan.TableWriterNode.CreateTarget;
 import io.prestosql.sql.planner.plan.TableWriterNode.DeleteTarget;
 import io.prestosql.sql.planner.plan.TableWriterNode.InsertReference;
 import io.prestosql.sql.planner.plan.TableWriterNode.InsertTarget;
+import io.prestosql.sql.planner.plan.TableWriterNode.RefreshMaterializedViewReference;
+import io.prestosql.sql.planner.plan.TableWriterNode.RefreshMaterializedViewTarget;
 import io.prestosql.sql.planner.plan.TableWriterNode.WriterTarget;
 import io.prestosql.sql.planner.plan.UnionNode;
 
@@ -182,6 +184,13 @@ public class BeginTableWrite
                 InsertReference insert = (InsertReference) target;
                 return new InsertTarget(metadata.beginInsert(session, insert.getHandle()), metadata.getTableMetadata(session, insert.getHandle()).getTable());
             }
+            if (target instanceof RefreshMaterializedViewReference) {
+                RefreshMaterializedViewReference refresh = (RefreshMaterializedViewReference) target;
+                return new RefreshMaterializedViewTarget(
+                        metadata.beginRefreshMaterializedView(session, refresh.getHandle(), refresh.isIncremental()),
+                        metadata.getTableMetadata(session, refresh.getHandle()).getTable(),
+                        refresh.getBaseTables());
+            }
             if (target instanceof DeleteTarget) {
                 DeleteTarget delete = (DeleteTarget) target;
                 return new DeleteTarget(metadata.beginDelete(session, delete.getHandle()), delete.getSchemaTableName());
@@ -16,6 +16,7 @@ package io.prestosql.sql.planner.optimizations;
 import io.prestosql.Session;
 import io.prestosql.execution.warnings.WarningCollector;
 import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.QueryRuleStatsRecorder;
 import io.prestosql.sql.planner.SymbolAllocator;
 import io.prestosql.sql.planner.TypeProvider;
 import io.prestosql.sql.planner.plan.PlanNode;
@@ -28,4 +29,18 @@ public interface PlanOptimizer
             SymbolAllocator symbolAllocator,
             PlanNodeIdAllocator idAllocator,
             WarningCollector warningCollector);
+
+    /**
+     * Optimizes the plan, recording the rules applied by the optimizer into the statistics of the query.
+     */
+    default PlanNode optimize(PlanNode plan,
+            Session session,
+            TypeProvider types,
+            SymbolAllocator symbolAllocator,
+            PlanNodeIdAllocator idAllocator,
+            WarningCollector warningCollector,
+            QueryRuleStatsRecorder queryRuleStats)
+    {
+        return optimize(plan, session, types, symbolAllocator, idAllocator, warningCollector);
+    }
 }
@@ -55,6 +55,7 @@ import io.prestosql.sql.planner.plan.IndexSourceNode;
 import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanVisitor;
@@ -480,6 +481,32 @@ public final class PropertyDerivations
             }
         }
 
+        @Override
+        public ActualProperties visitMergeJoin(MergeJoinNode node, List<ActualProperties> inputProperties)
+        {
+            ActualProperties leftProperties = inputProperties.get(0);
+            ActualProperties rightProperties = inputProperties.get(1);
+
+            switch (node.getType()) {
+                case INNER:
+                    leftProperties = leftProperties.translate(column -> filterIfMissing(node.getOutputSymbols(), column));
+                    rightProperties = rightProperties.translate(column -> filterIfMissing(node.getOutputSymbols(), column));
+
+                    Map<Symbol, NullableValue> constants = new HashMap<>();
+                    constants.putAll(leftProperties.getConstants());
+                    constants.putAll(rightProperties.getConstants());
+
+                    return ActualProperties.builderFrom(leftProperties)
+                            .constants(constants)
+                            .build();
+                case LEFT:
+                    return ActualProperties.builderFrom(leftProperties.translate(column -> filterIfMissing(node.getOutputSymbols(), column)))
+                            .build();
+                default:
+                    throw new IllegalArgumentException("Unsupported merge join type: " + node.getType());
+            }
+        }
+
         @Override
         public ActualProperties visitIndexJoin(IndexJoinNode node, List<ActualProperties> inputProperties)
         {
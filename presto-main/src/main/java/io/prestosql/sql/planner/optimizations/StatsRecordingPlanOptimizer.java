@@ -17,6 +17,7 @@ import io.prestosql.Session;
 import io.prestosql.execution.warnings.WarningCollector;
 import io.prestosql.sql.planner.OptimizerStatsRecorder;
 import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.QueryRuleStatsRecorder;
 import io.prestosql.sql.planner.SymbolAllocator;
 import io.prestosql.sql.planner.TypeProvider;
 import io.prestosql.sql.planner.plan.PlanNode;
@@ -43,12 +44,25 @@ public final class StatsRecordingPlanOptimizer
             SymbolAllocator symbolAllocator,
             PlanNodeIdAllocator idAllocator,
             WarningCollector warningCollector)
+    {
+        return optimize(plan, session, types, symbolAllocator, idAllocator, warningCollector, new QueryRuleStatsRecorder());
+    }
+
+    @Override
+    public final PlanNode optimize(
+            PlanNode plan,
+            Session session,
+            TypeProvider types,
+            SymbolAllocator symbolAllocator,
+            PlanNodeIdAllocator idAllocator,
+            WarningCollector warningCollector,
+            QueryRuleStatsRecorder queryRuleStats)
     {
         PlanNode result;
         long duration;
         try {
             long start = System.nanoTime();
-            result = delegate.optimize(plan, session, types, symbolAllocator, idAllocator, warningCollector);
+            result = delegate.optimize(plan, session, types, symbolAllocator, idAllocator, warningCollector, queryRuleStats);
             duration = System.nanoTime() - start;
         }
         catch (RuntimeException e) {
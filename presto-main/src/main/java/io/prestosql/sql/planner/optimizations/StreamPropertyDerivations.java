@@ -43,6 +43,7 @@ import io.prestosql.sql.planner.plan.IndexSourceNode;
 import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanNode;
 import io.prestosql.sql.planner.plan.PlanVisitor;
@@ -224,6 +225,20 @@ public final class StreamPropertyDerivations
             }
         }
 
+        @Override
+        public StreamProperties visitMergeJoin(MergeJoinNode node, List<StreamProperties> inputProperties)
+        {
+            StreamProperties leftProperties = inputProperties.get(0);
+
+            switch (node.getType()) {
+                case INNER:
+                case LEFT:
+                    return leftProperties.translate(column -> PropertyDerivations.filterIfMissing(node.getOutputSymbols(), column));
+                default:
+                    throw new IllegalArgumentException("Unsupported merge join type: " + node.getType());
+            }
+        }
+
         @Override
         public StreamProperties visitIndexJoin(IndexJoinNode node, List<StreamProperties> inputProperties)
         {
@@ -0,0 +1,138 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.plan;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import io.prestosql.spi.block.SortOrder;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.plan.JoinNode.EquiJoinClause;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.LEFT;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Equi-join of two inputs that are each a single stream sorted on the join
+ * criteria, in the order of the criteria and with the given sort orders.
+ */
+@Immutable
+public class MergeJoinNode
+        extends PlanNode
+{
+    private final JoinNode.Type type;
+    private final PlanNode left;
+    private final PlanNode right;
+    private final List<EquiJoinClause> criteria;
+    private final List<SortOrder> sortOrders;
+    private final List<Symbol> outputSymbols;
+
+    @JsonCreator
+    public MergeJoinNode(
+            @JsonProperty("id") PlanNodeId id,
+            @JsonProperty("type") JoinNode.Type type,
+            @JsonProperty("left") PlanNode left,
+            @JsonProperty("right") PlanNode right,
+            @JsonProperty("criteria") List<EquiJoinClause> criteria,
+            @JsonProperty("sortOrders") List<SortOrder> sortOrders,
+            @JsonProperty("outputSymbols") List<Symbol> outputSymbols)
+    {
+        super(id);
+
+        this.type = requireNonNull(type, "type is null");
+        this.left = requireNonNull(left, "left is null");
+        this.right = requireNonNull(right, "right is null");
+        this.criteria = ImmutableList.copyOf(requireNonNull(criteria, "criteria is null"));
+        this.sortOrders = ImmutableList.copyOf(requireNonNull(sortOrders, "sortOrders is null"));
+        this.outputSymbols = ImmutableList.copyOf(requireNonNull(outputSymbols, "outputSymbols is null"));
+
+        checkArgument(type == INNER || type == LEFT, "Unsupported merge join type: %s", type);
+        checkArgument(!criteria.isEmpty(), "criteria is empty");
+        checkArgument(criteria.size() == sortOrders.size(), "criteria and sortOrders sizes do not match");
+
+        Set<Symbol> inputSymbols = ImmutableSet.<Symbol>builder()
+                .addAll(left.getOutputSymbols())
+                .addAll(right.getOutputSymbols())
+                .build();
+        checkArgument(inputSymbols.containsAll(outputSymbols), "Left and right join inputs do not contain all output symbols");
+        for (EquiJoinClause clause : criteria) {
+            checkArgument(left.getOutputSymbols().contains(clause.getLeft()), "Left side of join does not contain %s", clause.getLeft());
+            checkArgument(right.getOutputSymbols().contains(clause.getRight()), "Right side of join does not contain %s", clause.getRight());
+        }
+    }
+
+    @JsonProperty("type")
+    public JoinNode.Type getType()
+    {
+        return type;
+    }
+
+    @JsonProperty("left")
+    public PlanNode getLeft()
+    {
+        return left;
+    }
+
+    @JsonProperty("right")
+    public PlanNode getRight()
+    {
+        return right;
+    }
+
+    @JsonProperty("criteria")
+    public List<EquiJoinClause> getCriteria()
+    {
+        return criteria;
+    }
+
+    @JsonProperty("sortOrders")
+    public List<SortOrder> getSortOrders()
+    {
+        return sortOrders;
+    }
+
+    @Override
+    public List<PlanNode> getSources()
+    {
+        return ImmutableList.of(left, right);
+    }
+
+    @Override
+    @JsonProperty("outputSymbols")
+    public List<Symbol> getOutputSymbols()
+    {
+        return outputSymbols;
+    }
+
+    @Override
+    public <R, C> R accept(PlanVisitor<R, C> visitor, C context)
+    {
+        return visitor.visitMergeJoin(this, context);
+    }
+
+    @Override
+    public PlanNode replaceChildren(List<PlanNode> newChildren)
+    {
+        checkArgument(newChildren.size() == 2, "expected newChildren to contain 2 nodes");
+        return new MergeJoinNode(getId(), type, newChildren.get(0), newChildren.get(1), criteria, sortOrders, outputSymbols);
+    }
+}
@@ -23,6 +23,7 @@ import io.prestosql.metadata.InsertTableHandle;
 import io.prestosql.metadata.NewTableLayout;
 import io.prestosql.metadata.OutputTableHandle;
 import io.prestosql.metadata.TableHandle;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition.BaseTable;
 import io.prestosql.spi.connector.ConnectorTableMetadata;
 import io.prestosql.spi.connector.SchemaTableName;
 import io.prestosql.sql.planner.PartitioningScheme;
@@ -173,6 +174,7 @@ public class TableWriterNode
     @JsonSubTypes({
             @JsonSubTypes.Type(value = CreateTarget.class, name = "CreateTarget"),
             @JsonSubTypes.Type(value = InsertTarget.class, name = "InsertTarget"),
+            @JsonSubTypes.Type(value = RefreshMaterializedViewTarget.class, name = "RefreshMaterializedViewTarget"),
             @JsonSubTypes.Type(value = DeleteTarget.class, name = "DeleteTarget")})
     @SuppressWarnings({"EmptyClass", "ClassMayBeInterface"})
     public abstract static class WriterTarget
@@ -309,6 +311,86 @@ public class TableWriterNode
         }
     }
 
+    // only used during planning -- will not be serialized
+    public static class RefreshMaterializedViewReference
+            extends WriterTarget
+    {
+        private final TableHandle handle;
+        private final boolean incremental;
+        private final List<BaseTable> baseTables;
+
+        public RefreshMaterializedViewReference(TableHandle handle, boolean incremental, List<BaseTable> baseTables)
+        {
+            this.handle = requireNonNull(handle, "handle is null");
+            this.incremental = incremental;
+            this.baseTables = ImmutableList.copyOf(requireNonNull(baseTables, "baseTables is null"));
+        }
+
+        public TableHandle getHandle()
+        {
+            return handle;
+        }
+
+        public boolean isIncremental()
+        {
+            return incremental;
+        }
+
+        public List<BaseTable> getBaseTables()
+        {
+            return baseTables;
+        }
+
+        @Override
+        public String toString()
+        {
+            return handle.toString();
+        }
+    }
+
+    public static class RefreshMaterializedViewTarget
+            extends WriterTarget
+    {
+        private final InsertTableHandle handle;
+        private final SchemaTableName schemaTableName;
+        private final List<BaseTable> baseTables;
+
+        @JsonCreator
+        public RefreshMaterializedViewTarget(
+                @JsonProperty("handle") InsertTableHandle handle,
+                @JsonProperty("schemaTableName") SchemaTableName schemaTableName,
+                @JsonProperty("baseTables") List<BaseTable> baseTables)
+        {
+            this.handle = requireNonNull(handle, "handle is null");
+            this.schemaTableName = requireNonNull(schemaTableName, "schemaTableName is null");
+            this.baseTables = ImmutableList.copyOf(requireNonNull(baseTables, "baseTables is null"));
+        }
+
+        @JsonProperty
+        public InsertTableHandle getHandle()
+        {
+            return handle;
+        }
+
+        @JsonProperty
+        public SchemaTableName getSchemaTableName()
+        {
+            return schemaTableName;
+        }
+
+        @JsonProperty
+        public List<BaseTable> getBaseTables()
+        {
+            return baseTables;
+        }
+
+        @Override
+        public String toString()
+        {
+            return handle.toString();
+        }
+    }
+
     public static class DeleteTarget
             extends WriterTarget
     {
@@ -42,6 +42,8 @@ import io.prestosql.sql.planner.plan.TableWriterNode.CreateTarget;
 import io.prestosql.sql.planner.plan.TableWriterNode.DeleteTarget;
 import io.prestosql.sql.planner.plan.TableWriterNode.InsertReference;
 import io.prestosql.sql.planner.plan.TableWriterNode.InsertTarget;
+import io.prestosql.sql.planner.plan.TableWriterNode.RefreshMaterializedViewReference;
+import io.prestosql.sql.planner.plan.TableWriterNode.RefreshMaterializedViewTarget;
 import io.prestosql.sql.planner.plan.TableWriterNode.WriterTarget;
 import io.prestosql.sql.planner.planprinter.IoPlanPrinter.IoPlan.IoPlanBuilder;
 
@@ -635,6 +637,13 @@ public class IoPlanPrinter
                         target.getSchemaTableName().getSchemaName(),
                         target.getSchemaTableName().getTableName()));
             }
+            else if (writerTarget instanceof RefreshMaterializedViewTarget) {
+                RefreshMaterializedViewTarget target = (RefreshMaterializedViewTarget) writerTarget;
+                context.setOutputTable(new CatalogSchemaTableName(
+                        target.getHandle().getCatalogName().getCatalogName(),
+                        target.getSchemaTableName().getSchemaName(),
+                        target.getSchemaTableName().getTableName()));
+            }
             else if (writerTarget instanceof DeleteTarget) {
                 DeleteTarget target = (DeleteTarget) writerTarget;
                 context.setOutputTable(new CatalogSchemaTableName(
@@ -642,7 +651,7 @@ public class IoPlanPrinter
                         target.getSchemaTableName().getSchemaName(),
                         target.getSchemaTableName().getTableName()));
             }
-            else if (writerTarget instanceof CreateReference || writerTarget instanceof InsertReference) {
+            else if (writerTarget instanceof CreateReference || writerTarget instanceof InsertReference || writerTarget instanceof RefreshMaterializedViewReference) {
                 throw new IllegalStateException(format("%s should not appear in final plan", writerTarget.getClass().getSimpleName()));
             }
             else {
@@ -47,6 +47,7 @@ import io.prestosql.sql.planner.SubPlan;
 import io.prestosql.sql.planner.Symbol;
 import io.prestosql.sql.planner.TypeProvider;
 import io.prestosql.sql.planner.iterative.GroupReference;
+import io.prestosql.sql.planner.iterative.RuleStatsSummary;
 import io.prestosql.sql.planner.plan.AggregationNode;
 import io.prestosql.sql.planner.plan.AggregationNode.Aggregation;
 import io.prestosql.sql.planner.plan.ApplyNode;
@@ -68,6 +69,7 @@ import io.prestosql.sql.planner.plan.IntersectNode;
 import io.prestosql.sql.planner.plan.JoinNode;
 import io.prestosql.sql.planner.plan.LimitNode;
 import io.prestosql.sql.planner.plan.MarkDistinctNode;
+import io.prestosql.sql.planner.plan.MergeJoinNode;
 import io.prestosql.sql.planner.plan.OffsetNode;
 import io.prestosql.sql.planner.plan.OutputNode;
 import io.prestosql.sql.planner.plan.PlanFragmentId;
@@ -247,6 +249,20 @@ public class PlanPrinter
         return builder.toString();
     }
 
+    public static String textOptimizerRuleStats(List<RuleStatsSummary> ruleStats)
+    {
+        StringBuilder builder = new StringBuilder();
+        builder.append("Optimizer rules\n");
+        for (RuleStatsSummary rule : ruleStats) {
+            builder.append(format("    %s: %s invocations, %s hits, %s\n",
+                    rule.getRule(),
+                    rule.getInvocations(),
+                    rule.getHits(),
+                    rule.getTime()));
+        }
+        return builder.toString();
+    }
+
     public static String textDistributedPlan(SubPlan plan, Metadata metadata, Session session, boolean verbose)
     {
         TableInfoSupplier tableInfoSupplier = new TableInfoSupplier(metadata, session);
@@ -430,6 +446,24 @@ public class PlanPrinter
             return null;
         }
 
+        @Override
+        public Void visitMergeJoin(MergeJoinNode node, Void context)
+        {
+            List<Expression> joinExpressions = new ArrayList<>();
+            for (JoinNode.EquiJoinClause clause : node.getCriteria()) {
+                joinExpressions.add(clause.toExpression());
+            }
+
+            NodeRepresentation nodeOutput = addNode(node,
+                    "Merge" + node.getType().getJoinLabel(),
+                    format("[%s]", Joiner.on(" AND ").join(joinExpressions)));
+            nodeOutput.appendDetailsLine("Sort orders: %s", node.getSortOrders());
+            node.getLeft().accept(this, context);
+            node.getRight().accept(this, context);
+
+            return null;
+        }
+
         @Override
         public Void visitSemiJoin(SemiJoinNode node, Void context)
         {
@@ -44,10 +44,12 @@ import io.prestosql.cost.TaskCountEstimator;
 import io.prestosql.eventlistener.EventListenerManager;
 import io.prestosql.execution.CommentTask;
 import io.prestosql.execution.CommitTask;
+import io.prestosql.execution.CreateMaterializedViewTask;
 import io.prestosql.execution.CreateTableTask;
 import io.prestosql.execution.CreateViewTask;
 import io.prestosql.execution.DataDefinitionTask;
 import io.prestosql.execution.DeallocateTask;
+import io.prestosql.execution.DropMaterializedViewTask;
 import io.prestosql.execution.DropTableTask;
 import io.prestosql.execution.DropViewTask;
 import io.prestosql.execution.Lifespan;
@@ -66,6 +68,7 @@ import io.prestosql.execution.SetSessionTask;
 import io.prestosql.execution.StartTransactionTask;
 import io.prestosql.execution.TaskManagerConfig;
 import io.prestosql.execution.TaskSource;
+import io.prestosql.execution.fragmentcache.FragmentResultCacheManager;
 import io.prestosql.execution.resourcegroups.NoOpResourceGroupManager;
 import io.prestosql.execution.scheduler.NodeScheduler;
 import io.prestosql.execution.scheduler.NodeSchedulerConfig;
@@ -148,9 +151,11 @@ import io.prestosql.sql.planner.planprinter.PlanPrinter;
 import io.prestosql.sql.planner.sanity.PlanSanityChecker;
 import io.prestosql.sql.tree.Comment;
 import io.prestosql.sql.tree.Commit;
+import io.prestosql.sql.tree.CreateMaterializedView;
 import io.prestosql.sql.tree.CreateTable;
 import io.prestosql.sql.tree.CreateView;
 import io.prestosql.sql.tree.Deallocate;
+import io.prestosql.sql.tree.DropMaterializedView;
 import io.prestosql.sql.tree.DropTable;
 import io.prestosql.sql.tree.DropView;
 import io.prestosql.sql.tree.Prepare;
@@ -193,6 +198,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Verify.verify;
 import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.json.JsonCodec.jsonCodec;
 import static io.prestosql.cost.StatsCalculatorModule.createNewStatsCalculator;
 import static io.prestosql.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.GROUPED_SCHEDULING;
 import static io.prestosql.spi.connector.ConnectorSplitManager.SplitSchedulingStrategy.UNGROUPED_SCHEDULING;
@@ -398,6 +404,8 @@ public class LocalQueryRunner
                 .put(CreateView.class, new CreateViewTask(sqlParser, featuresConfig))
                 .put(DropTable.class, new DropTableTask())
                 .put(DropView.class, new DropViewTask())
+                .put(CreateMaterializedView.class, new CreateMaterializedViewTask(sqlParser))
+                .put(DropMaterializedView.class, new DropMaterializedViewTask())
                 .put(RenameColumn.class, new RenameColumnTask())
                 .put(RenameTable.class, new RenameTableTask())
                 .put(Comment.class, new CommentTask())
@@ -713,7 +721,8 @@ public class LocalQueryRunner
                 new PagesIndex.TestingFactory(false),
                 joinCompiler,
                 new LookupJoinOperators(),
-                new OrderingCompiler());
+                new OrderingCompiler(),
+                new FragmentResultCacheManager(this.taskManagerConfig, metadata.getBlockEncodingSerde(), jsonCodec(PlanNode.class)));
 
         // plan query
         StageExecutionDescriptor stageExecutionDescriptor = subplan.getFragment().getStageExecutionDescriptor();
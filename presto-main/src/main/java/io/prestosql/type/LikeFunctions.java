@@ -28,6 +28,8 @@ import io.prestosql.spi.function.ScalarOperator;
 import io.prestosql.spi.function.SqlType;
 import io.prestosql.spi.type.StandardTypes;
 
+import java.util.Optional;
+
 import static io.airlift.joni.constants.MetaChar.INEFFECTIVE_META_CHAR;
 import static io.airlift.joni.constants.SyntaxProperties.OP_ASTERISK_ZERO_INF;
 import static io.airlift.joni.constants.SyntaxProperties.OP_DOT_ANYCHAR;
@@ -57,7 +59,7 @@ public final class LikeFunctions
     @ScalarFunction(value = "like", hidden = true)
     @LiteralParameters("x")
     @SqlType(StandardTypes.BOOLEAN)
-    public static boolean likeChar(@LiteralParameter("x") Long x, @SqlType("char(x)") Slice value, @SqlType(LikePatternType.NAME) Regex pattern)
+    public static boolean likeChar(@LiteralParameter("x") Long x, @SqlType("char(x)") Slice value, @SqlType(LikePatternType.NAME) LikePattern pattern)
     {
         return likeVarchar(padSpaces(value, x.intValue()), pattern);
     }
@@ -66,18 +68,18 @@ public final class LikeFunctions
     @ScalarFunction(value = "like", hidden = true)
     @LiteralParameters("x")
     @SqlType(StandardTypes.BOOLEAN)
-    public static boolean likeVarchar(@SqlType("varchar(x)") Slice value, @SqlType(LikePatternType.NAME) Regex pattern)
+    public static boolean likeVarchar(@SqlType("varchar(x)") Slice value, @SqlType(LikePatternType.NAME) LikePattern pattern)
     {
         // Joni can infinite loop with UTF8Encoding when invalid UTF-8 is encountered.
         // NonStrictUTF8Encoding must be used to avoid this issue.
         byte[] bytes = value.getBytes();
-        return regexMatches(pattern, bytes);
+        return regexMatches(pattern.getRegex(), bytes);
     }
 
     @ScalarOperator(OperatorType.CAST)
     @LiteralParameters("x")
     @SqlType(LikePatternType.NAME)
-    public static Regex castVarcharToLikePattern(@SqlType("varchar(x)") Slice pattern)
+    public static LikePattern castVarcharToLikePattern(@SqlType("varchar(x)") Slice pattern)
     {
         return likePattern(pattern);
     }
@@ -85,12 +87,12 @@ public final class LikeFunctions
     @ScalarOperator(OperatorType.CAST)
     @LiteralParameters("x")
     @SqlType(LikePatternType.NAME)
-    public static Regex castCharToLikePattern(@LiteralParameter("x") Long charLength, @SqlType("char(x)") Slice pattern)
+    public static LikePattern castCharToLikePattern(@LiteralParameter("x") Long charLength, @SqlType("char(x)") Slice pattern)
     {
         return likePattern(padSpaces(pattern, charLength.intValue()));
     }
 
-    public static Regex likePattern(Slice pattern)
+    public static LikePattern likePattern(Slice pattern)
     {
         return likePattern(pattern.toStringUtf8(), '0', false);
     }
@@ -98,7 +100,7 @@ public final class LikeFunctions
     @ScalarFunction
     @LiteralParameters({"x", "y"})
     @SqlType(LikePatternType.NAME)
-    public static Regex likePattern(@SqlType("varchar(x)") Slice pattern, @SqlType("varchar(y)") Slice escape)
+    public static LikePattern likePattern(@SqlType("varchar(x)") Slice pattern, @SqlType("varchar(y)") Slice escape)
     {
         return likePattern(pattern.toStringUtf8(), getEscapeChar(escape), true);
     }
@@ -166,13 +168,17 @@ public final class LikeFunctions
     }
 
     @SuppressWarnings("NestedSwitchStatement")
-    private static Regex likePattern(String patternString, char escapeChar, boolean shouldEscape)
+    private static LikePattern likePattern(String patternString, char escapeChar, boolean shouldEscape)
     {
         StringBuilder regex = new StringBuilder(patternString.length() * 2);
 
         regex.append('^');
+        StringBuilder literalPrefix = new StringBuilder(patternString.length());
+        boolean literal = true;
+        boolean prefixPattern = false;
         boolean escaped = false;
-        for (char currentChar : patternString.toCharArray()) {
+        for (int i = 0; i < patternString.length(); i++) {
+            char currentChar = patternString.charAt(i);
             checkEscape(!escaped || currentChar == '%' || currentChar == '_' || currentChar == escapeChar);
             if (shouldEscape && !escaped && (currentChar == escapeChar)) {
                 escaped = true;
@@ -180,11 +186,26 @@ public final class LikeFunctions
             else {
                 switch (currentChar) {
                     case '%':
-                        regex.append(escaped ? "%" : ".*");
+                        if (escaped) {
+                            regex.append("%");
+                            literalPrefix.append(currentChar);
+                        }
+                        else {
+                            regex.append(".*");
+                            prefixPattern = literal && i == patternString.length() - 1;
+                            literal = false;
+                        }
                         escaped = false;
                         break;
                     case '_':
-                        regex.append(escaped ? "_" : ".");
+                        if (escaped) {
+                            regex.append("_");
+                            literalPrefix.append(currentChar);
+                        }
+                        else {
+                            regex.append(".");
+                            literal = false;
+                        }
                         escaped = false;
                         break;
                     default:
@@ -199,6 +220,7 @@ public final class LikeFunctions
                         }
 
                         regex.append(currentChar);
+                        literalPrefix.append(currentChar);
                         escaped = false;
                 }
             }
@@ -207,7 +229,8 @@ public final class LikeFunctions
         regex.append('$');
 
         byte[] bytes = regex.toString().getBytes(UTF_8);
-        return new Regex(bytes, 0, bytes.length, Option.MULTILINE, NonStrictUTF8Encoding.INSTANCE, SYNTAX);
+        Regex regex = new Regex(bytes, 0, bytes.length, Option.MULTILINE, NonStrictUTF8Encoding.INSTANCE, SYNTAX);
+        return new LikePattern(regex, prefixPattern ? Optional.of(Slices.utf8Slice(literalPrefix.toString())) : Optional.empty());
     }
 
     @SuppressWarnings("NumericCastThatLosesPrecision")
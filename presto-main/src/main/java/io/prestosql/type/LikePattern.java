@@ -0,0 +1,50 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.type;
+
+import io.airlift.joni.Regex;
+import io.airlift.slice.Slice;
+
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A compiled LIKE pattern. Besides the regular expression it keeps the literal prefix of
+ * patterns of the form {@code 'literal%'}, so they can be matched without the regex.
+ */
+public final class LikePattern
+{
+    private final Regex regex;
+    private final Optional<Slice> literalPrefix;
+
+    public LikePattern(Regex regex, Optional<Slice> literalPrefix)
+    {
+        this.regex = requireNonNull(regex, "regex is null");
+        this.literalPrefix = requireNonNull(literalPrefix, "literalPrefix is null");
+    }
+
+    public Regex getRegex()
+    {
+        return regex;
+    }
+
+    /**
+     * Returns the literal prefix of a pattern of the form {@code 'literal%'}, or empty for any other pattern.
+     */
+    public Optional<Slice> getLiteralPrefix()
+    {
+        return literalPrefix;
+    }
+}
@@ -13,9 +13,11 @@
  */
 package io.prestosql.cost;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import io.prestosql.Session;
 import io.prestosql.metadata.Metadata;
+import io.prestosql.spi.statistics.Histogram;
 import io.prestosql.spi.type.DoubleType;
 import io.prestosql.spi.type.Type;
 import io.prestosql.spi.type.VarcharType;
@@ -37,6 +39,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.function.Consumer;
 
 import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
@@ -643,6 +646,47 @@ public class TestComparisonStatsCalculator
                 .symbolStats("z", equalTo(capNDV(zStats, rowCount)));
     }
 
+    @Test
+    public void symbolWithHistogramStats()
+    {
+        // 40% of the values of both symbols are 1
+        SymbolStatsEstimate sStats = SymbolStatsEstimate.builder()
+                .setAverageRowSize(8.0)
+                .setDistinctValuesCount(10)
+                .setLowValue(0)
+                .setHighValue(10)
+                .setNullsFraction(0)
+                .setHistogram(Optional.of(Histogram.fromQuantiles(ImmutableList.of(0.0, 1.0, 1.0, 1.0, 2.0, 10.0))))
+                .build();
+        SymbolStatsEstimate tStats = SymbolStatsEstimate.builder()
+                .setAverageRowSize(8.0)
+                .setDistinctValuesCount(10)
+                .setLowValue(1)
+                .setHighValue(10)
+                .setNullsFraction(0)
+                .setHistogram(Optional.of(Histogram.fromQuantiles(ImmutableList.of(1.0, 1.0, 1.0, 3.0, 5.0, 10.0))))
+                .build();
+        PlanNodeStatsEstimate input = PlanNodeStatsEstimate.builder()
+                .addSymbolStatistics(new Symbol("s"), sStats)
+                .addSymbolStatistics(new Symbol("t"), tStats)
+                .setOutputRowCount(1000.0)
+                .build();
+        TypeProvider types = TypeProvider.copyOf(ImmutableMap.of(new Symbol("s"), DoubleType.DOUBLE, new Symbol("t"), DoubleType.DOUBLE));
+
+        // most common value
+        PlanNodeStatsAssertion.assertThat(filterStatsCalculator.filterStats(input, new ComparisonExpression(EQUAL, new SymbolReference("s"), new DoubleLiteral("1.0")), session, types))
+                .outputRowsCount(400);
+        // one of the remaining 9 values
+        PlanNodeStatsAssertion.assertThat(filterStatsCalculator.filterStats(input, new ComparisonExpression(EQUAL, new SymbolReference("s"), new DoubleLiteral("5.0")), session, types))
+                .outputRowsCount(600.0 / 9);
+        // half of the first bucket
+        PlanNodeStatsAssertion.assertThat(filterStatsCalculator.filterStats(input, new ComparisonExpression(LESS_THAN, new SymbolReference("s"), new DoubleLiteral("0.5")), session, types))
+                .outputRowsCount(100);
+        // the most common value matches 40% of both sides, the other values match uniformly
+        PlanNodeStatsAssertion.assertThat(filterStatsCalculator.filterStats(input, new ComparisonExpression(EQUAL, new SymbolReference("s"), new SymbolReference("t")), session, types))
+                .outputRowsCount(1000 * (0.4 * 0.4 + 0.6 * 0.6 / 9));
+    }
+
     @Test
     public void symbolToSymbolNotEqual()
     {
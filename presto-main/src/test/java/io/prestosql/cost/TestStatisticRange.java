@@ -13,8 +13,13 @@
  */
 package io.prestosql.cost;
 
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.statistics.Histogram;
 import org.testng.annotations.Test;
 
+import java.util.Optional;
+import java.util.OptionalDouble;
+
 import static io.prestosql.cost.EstimateAssertion.assertEstimateEquals;
 import static java.lang.Double.NEGATIVE_INFINITY;
 import static java.lang.Double.NaN;
@@ -59,6 +64,33 @@ public class TestStatisticRange
         assertOverlap(unboundedRange(0.0), unboundedRange(0), 0);
     }
 
+    @Test
+    public void testOverlapPercentWithHistogram()
+    {
+        // 40% of the values are 1
+        StatisticRange zeroToTen = new StatisticRange(0, 10, 10, Optional.of(Histogram.fromQuantiles(ImmutableList.of(0.0, 1.0, 1.0, 1.0, 2.0, 10.0))));
+
+        assertOverlap(zeroToTen, range(0, 0.5, 1), 0.1);
+        assertOverlap(zeroToTen, range(2, 3000, 3), 0.2);
+        assertOverlap(zeroToTen, range(20, 30, 10), 0);
+
+        // most common value
+        assertOverlap(zeroToTen, range(1, 1, 1), 0.4);
+        assertEquals(zeroToTen.getValueFraction(1), OptionalDouble.of(0.4));
+        // other values share the remaining rows
+        assertOverlap(zeroToTen, range(5, 5, 1), 0.6 / 9);
+        assertEquals(zeroToTen.getValueFraction(20), OptionalDouble.of(0));
+
+        // the histogram is normalized to a narrower range
+        StatisticRange zeroToTwo = zeroToTen.intersect(range(NEGATIVE_INFINITY, 2, NaN));
+        assertEquals(zeroToTwo.getHistogram(), zeroToTen.getHistogram());
+        assertOverlap(zeroToTwo, range(1, 1, 1), 0.5);
+
+        // without a histogram the range is assumed to be uniform
+        assertOverlap(range(0, 10, 10), range(1, 1, 1), 0.1);
+        assertEquals(range(0, 10, 10).getValueFraction(1), OptionalDouble.empty());
+    }
+
     @Test
     public void testIntersect()
     {
@@ -217,6 +217,10 @@ public class MockManagedQueryExecution
 
                         new DataSize(30, BYTE),
 
+                        false,
+
+                        ImmutableList.of(),
+
                         ImmutableList.of(),
                         ImmutableList.of()),
                 Optional.empty(),
@@ -39,6 +39,7 @@ import io.prestosql.operator.TaskContext;
 import io.prestosql.operator.TaskStats;
 import io.prestosql.spi.memory.MemoryPoolId;
 import io.prestosql.spiller.SpillSpaceTracker;
+import io.prestosql.spooling.LocalSpoolingStorage;
 import io.prestosql.sql.planner.Partitioning;
 import io.prestosql.sql.planner.PartitioningScheme;
 import io.prestosql.sql.planner.PlanFragment;
@@ -199,7 +200,8 @@ public class MockRemoteTaskFactory
                     TASK_INSTANCE_ID,
                     executor,
                     new DataSize(1, BYTE),
-                    () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"));
+                    () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"),
+                    new LocalSpoolingStorage(Optional.empty()));
 
             this.fragment = requireNonNull(fragment, "fragment is null");
             this.nodeId = requireNonNull(nodeId, "nodeId is null");
@@ -260,14 +262,19 @@ public class MockRemoteTaskFactory
         public TaskStatus getTaskStatus()
         {
             TaskStats stats = taskContext.getTaskStats();
+            TaskState state = taskStateMachine.getState();
+            List<ExecutionFailureInfo> failures = ImmutableList.of();
+            if (state == TaskState.FAILED) {
+                failures = toFailures(taskStateMachine.getFailureCauses());
+            }
             return new TaskStatus(taskStateMachine.getTaskId(),
                     TASK_INSTANCE_ID,
                     nextTaskInfoVersion.get(),
-                    taskStateMachine.getState(),
+                    state,
                     location,
                     nodeId,
                     ImmutableSet.of(),
-                    ImmutableList.of(),
+                    failures,
                     stats.getQueuedPartitionedDrivers(),
                     stats.getRunningPartitionedDrivers(),
                     false,
@@ -399,6 +406,11 @@ public class MockRemoteTaskFactory
             taskStateMachine.cancel();
         }
 
+        public void fail(Throwable cause)
+        {
+            taskStateMachine.failed(cause);
+        }
+
         @Override
         public void abort()
         {
@@ -34,6 +34,7 @@ import io.prestosql.operator.TaskContext;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.memory.MemoryPoolId;
 import io.prestosql.spiller.SpillSpaceTracker;
+import io.prestosql.spooling.LocalSpoolingStorage;
 import io.prestosql.sql.planner.LocalExecutionPlanner;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import io.prestosql.testing.TestingSession;
@@ -44,6 +45,7 @@ import org.testng.annotations.Test;
 import java.net.URI;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.concurrent.Callable;
@@ -306,6 +308,7 @@ public class TestMemoryRevokingScheduler
                 executor,
                 Functions.identity(),
                 new DataSize(32, MEGABYTE),
-                new CounterStat());
+                new CounterStat(),
+                new LocalSpoolingStorage(Optional.empty()));
     }
 }
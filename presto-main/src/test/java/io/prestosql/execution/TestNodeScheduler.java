@@ -708,6 +708,63 @@ public class TestNodeScheduler
         assertTrue(assignments3.isEmpty());
     }
 
+    @Test
+    public void testLateSplitBinding()
+    {
+        setUpNodes();
+        NodeSchedulerConfig nodeSchedulerConfig = new NodeSchedulerConfig()
+                .setMaxSplitsPerNode(20)
+                .setIncludeCoordinator(false)
+                .setMaxPendingSplitsPerTask(10)
+                .setLateSplitBindingEnabled(true)
+                .setMaxUnstartedSplitsPerTask(4);
+        NodeSelector lateBindingNodeSelector = new NodeScheduler(new UniformNodeSelectorFactory(nodeManager, nodeSchedulerConfig, nodeTaskMap))
+                .createNodeSelector(Optional.of(CONNECTOR_ID));
+
+        // every task has 10 splits, but only the task on the idle node has started all of them
+        List<InternalNode> nodes = ImmutableList.copyOf(nodeManager.getActiveConnectorNodes(CONNECTOR_ID));
+        InternalNode idleNode = nodes.get(0);
+        MockRemoteTaskFactory remoteTaskFactory = new MockRemoteTaskFactory(remoteTaskExecutor, remoteTaskScheduledExecutor);
+        int task = 0;
+        for (InternalNode node : nodes) {
+            List<Split> initialSplits = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                initialSplits.add(new Split(CONNECTOR_ID, new TestSplitRemote(), Lifespan.taskWide()));
+            }
+            TaskId taskId = new TaskId("test", 1, task++);
+            MockRemoteTaskFactory.MockRemoteTask remoteTask = remoteTaskFactory.createTableScanTask(taskId, node, initialSplits, nodeTaskMap.createPartitionedSplitCountTracker(node, taskId));
+            remoteTask.startSplits(node.equals(idleNode) ? 10 : 2);
+            nodeTaskMap.addTask(node, remoteTask);
+            taskMap.put(node, remoteTask);
+        }
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 10; i++) {
+            splits.add(new Split(CONNECTOR_ID, new TestSplitRemote(), Lifespan.taskWide()));
+        }
+
+        // the busy nodes are below the total split limit, so they still get splits without late binding
+        Multimap<InternalNode, Split> assignments = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.keySet().size(), 3);
+
+        // with late binding only the idle node gets splits, and no more than it may queue
+        assignments = lateBindingNodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.keySet(), ImmutableSet.of(idleNode));
+        assertEquals(assignments.size(), 4);
+
+        // once a busy node starts its queued splits, it gets splits again
+        InternalNode busyNode = nodes.get(1);
+        ((MockRemoteTaskFactory.MockRemoteTask) taskMap.get(busyNode)).startSplits(10);
+        ((MockRemoteTaskFactory.MockRemoteTask) taskMap.get(idleNode)).startSplits(6);
+        assignments = lateBindingNodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values())).getAssignments();
+        assertEquals(assignments.keySet(), ImmutableSet.of(busyNode));
+        assertEquals(assignments.size(), 4);
+
+        for (RemoteTask remoteTask : taskMap.values()) {
+            remoteTask.abort();
+        }
+    }
+
     private static class TestSplitLocal
             implements ConnectorSplit
     {
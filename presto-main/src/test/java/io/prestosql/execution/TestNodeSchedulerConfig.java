@@ -35,7 +35,9 @@ public class TestNodeSchedulerConfig
                 .setMaxSplitsPerNode(100)
                 .setMaxPendingSplitsPerTask(10)
                 .setIncludeCoordinator(true)
-                .setOptimizedLocalScheduling(true));
+                .setOptimizedLocalScheduling(true)
+                .setLateSplitBindingEnabled(false)
+                .setMaxUnstartedSplitsPerTask(8));
     }
 
     @Test
@@ -48,6 +50,8 @@ public class TestNodeSchedulerConfig
                 .put("node-scheduler.max-pending-splits-per-task", "11")
                 .put("node-scheduler.max-splits-per-node", "101")
                 .put("node-scheduler.optimized-local-scheduling", "false")
+                .put("node-scheduler.late-split-binding-enabled", "true")
+                .put("node-scheduler.max-unstarted-splits-per-task", "3")
                 .build();
 
         NodeSchedulerConfig expected = new NodeSchedulerConfig()
@@ -56,7 +60,9 @@ public class TestNodeSchedulerConfig
                 .setMaxSplitsPerNode(101)
                 .setMaxPendingSplitsPerTask(11)
                 .setMinCandidates(11)
-                .setOptimizedLocalScheduling(false);
+                .setOptimizedLocalScheduling(false)
+                .setLateSplitBindingEnabled(true)
+                .setMaxUnstartedSplitsPerTask(3);
 
         assertFullMapping(properties, expected);
     }
@@ -14,6 +14,7 @@
 package io.prestosql.execution;
 
 import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
@@ -23,6 +24,8 @@ import java.util.concurrent.TimeUnit;
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
 import static io.airlift.configuration.testing.ConfigAssertions.recordDefaults;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 public class TestQueryManagerConfig
 {
@@ -50,7 +53,21 @@ public class TestQueryManagerConfig
                 .setQueryMaxExecutionTime(new Duration(100, TimeUnit.DAYS))
                 .setQueryMaxCpuTime(new Duration(1_000_000_000, TimeUnit.DAYS))
                 .setRequiredWorkers(1)
-                .setRequiredWorkersMaxWait(new Duration(5, TimeUnit.MINUTES)));
+                .setRequiredWorkersMaxWait(new Duration(5, TimeUnit.MINUTES))
+                .setFaultTolerantExecutionEnabled(false)
+                .setTaskRetryAttempts(4)
+                .setAdaptivePartitionCountEnabled(false)
+                .setAdaptiveTargetPartitionSize(new DataSize(128, MEGABYTE))
+                .setAdaptiveSkewedPartitionSplittingEnabled(true)
+                .setAdaptiveSkewedPartitionFactor(5)
+                .setResultCacheEnabled(false)
+                .setResultCacheMaxSize(new DataSize(256, MEGABYTE))
+                .setResultCacheMaxEntrySize(new DataSize(8, MEGABYTE))
+                .setResultCacheTtl(new Duration(5, TimeUnit.MINUTES))
+                .setPlanCacheEnabled(false)
+                .setPlanCacheMaxEntries(1000)
+                .setPlanCacheTtl(new Duration(10, TimeUnit.MINUTES))
+                .setPlanCacheTableVersionCheckInterval(new Duration(10, TimeUnit.SECONDS)));
     }
 
     @Test
@@ -78,6 +95,20 @@ public class TestQueryManagerConfig
                 .put("query.max-cpu-time", "2d")
                 .put("query-manager.required-workers", "333")
                 .put("query-manager.required-workers-max-wait", "33m")
+                .put("query.fault-tolerant-execution-enabled", "true")
+                .put("query.task-retry-attempts", "2")
+                .put("query.adaptive-partition-count-enabled", "true")
+                .put("query.adaptive-target-partition-size", "64MB")
+                .put("query.adaptive-skewed-partition-splitting-enabled", "false")
+                .put("query.adaptive-skewed-partition-factor", "3")
+                .put("query.result-cache-enabled", "true")
+                .put("query.result-cache-max-size", "1GB")
+                .put("query.result-cache-max-entry-size", "32MB")
+                .put("query.result-cache-ttl", "30s")
+                .put("query.plan-cache-enabled", "true")
+                .put("query.plan-cache-max-entries", "50")
+                .put("query.plan-cache-ttl", "1h")
+                .put("query.plan-cache-table-version-check-interval", "1m")
                 .build();
 
         QueryManagerConfig expected = new QueryManagerConfig()
@@ -101,7 +132,21 @@ public class TestQueryManagerConfig
                 .setQueryMaxExecutionTime(new Duration(3, TimeUnit.HOURS))
                 .setQueryMaxCpuTime(new Duration(2, TimeUnit.DAYS))
                 .setRequiredWorkers(333)
-                .setRequiredWorkersMaxWait(new Duration(33, TimeUnit.MINUTES));
+                .setRequiredWorkersMaxWait(new Duration(33, TimeUnit.MINUTES))
+                .setFaultTolerantExecutionEnabled(true)
+                .setTaskRetryAttempts(2)
+                .setAdaptivePartitionCountEnabled(true)
+                .setAdaptiveTargetPartitionSize(new DataSize(64, MEGABYTE))
+                .setAdaptiveSkewedPartitionSplittingEnabled(false)
+                .setAdaptiveSkewedPartitionFactor(3)
+                .setResultCacheEnabled(true)
+                .setResultCacheMaxSize(new DataSize(1, GIGABYTE))
+                .setResultCacheMaxEntrySize(new DataSize(32, MEGABYTE))
+                .setResultCacheTtl(new Duration(30, TimeUnit.SECONDS))
+                .setPlanCacheEnabled(true)
+                .setPlanCacheMaxEntries(50)
+                .setPlanCacheTtl(new Duration(1, TimeUnit.HOURS))
+                .setPlanCacheTableVersionCheckInterval(new Duration(1, TimeUnit.MINUTES));
 
         assertFullMapping(properties, expected);
     }
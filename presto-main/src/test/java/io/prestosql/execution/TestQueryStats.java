@@ -22,6 +22,7 @@ import io.prestosql.operator.FilterAndProjectOperator;
 import io.prestosql.operator.OperatorStats;
 import io.prestosql.operator.TableWriterOperator;
 import io.prestosql.spi.eventlistener.StageGcStatistics;
+import io.prestosql.sql.planner.iterative.RuleStatsSummary;
 import io.prestosql.sql.planner.plan.PlanNodeId;
 import org.joda.time.DateTime;
 import org.testng.annotations.Test;
@@ -34,6 +35,7 @@ import static io.airlift.units.DataSize.succinctBytes;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.joda.time.DateTimeZone.UTC;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestQueryStats
 {
@@ -74,6 +76,9 @@ public class TestQueryStats
                     succinctBytes(129L),
                     succinctBytes(130L),
                     succinctBytes(131L),
+                    new Duration(132, NANOSECONDS),
+                    succinctBytes(133L),
+                    succinctBytes(134L),
                     Optional.empty(),
                     null),
             new OperatorStats(
@@ -112,6 +117,9 @@ public class TestQueryStats
                     succinctBytes(229L),
                     succinctBytes(230L),
                     succinctBytes(231L),
+                    new Duration(232, NANOSECONDS),
+                    succinctBytes(233L),
+                    succinctBytes(234L),
                     Optional.empty(),
                     null),
             new OperatorStats(
@@ -150,6 +158,9 @@ public class TestQueryStats
                     succinctBytes(329L),
                     succinctBytes(330L),
                     succinctBytes(331L),
+                    new Duration(332, NANOSECONDS),
+                    succinctBytes(333L),
+                    succinctBytes(334L),
                     Optional.empty(),
                     null));
 
@@ -213,6 +224,10 @@ public class TestQueryStats
 
             new DataSize(30, BYTE),
 
+            true,
+
+            ImmutableList.of(new RuleStatsSummary("PushLimitThroughProject", 108, 109, 110, new Duration(111, NANOSECONDS))),
+
             ImmutableList.of(new StageGcStatistics(
                     101,
                     102,
@@ -295,6 +310,16 @@ public class TestQueryStats
 
         assertEquals(actual.getPhysicalWrittenDataSize(), new DataSize(30, BYTE));
 
+        assertTrue(actual.isResultCacheHit());
+
+        assertEquals(actual.getOptimizerRuleStats().size(), 1);
+        RuleStatsSummary ruleStats = actual.getOptimizerRuleStats().get(0);
+        assertEquals(ruleStats.getRule(), "PushLimitThroughProject");
+        assertEquals(ruleStats.getInvocations(), 108);
+        assertEquals(ruleStats.getHits(), 109);
+        assertEquals(ruleStats.getFailures(), 110);
+        assertEquals(ruleStats.getTime(), new Duration(111, NANOSECONDS));
+
         assertEquals(actual.getStageGcStatistics().size(), 1);
         StageGcStatistics gcStatistics = actual.getStageGcStatistics().get(0);
         assertEquals(gcStatistics.getStageId(), 101);
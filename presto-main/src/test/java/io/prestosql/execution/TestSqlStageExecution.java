@@ -18,10 +18,12 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.util.concurrent.SettableFuture;
 import io.prestosql.client.NodeVersion;
 import io.prestosql.cost.StatsAndCosts;
+import io.prestosql.execution.MockRemoteTaskFactory.MockRemoteTask;
 import io.prestosql.execution.TestSqlTaskManager.MockLocationFactory;
 import io.prestosql.execution.scheduler.SplitSchedulerStats;
 import io.prestosql.failuredetector.NoOpFailureDetector;
 import io.prestosql.metadata.InternalNode;
+import io.prestosql.spi.PrestoException;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.type.Type;
 import io.prestosql.sql.planner.Partitioning;
@@ -38,6 +40,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
 import java.net.URI;
+import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.concurrent.CountDownLatch;
@@ -51,13 +54,17 @@ import static io.prestosql.execution.SqlStageExecution.createSqlStageExecution;
 import static io.prestosql.execution.buffer.OutputBuffers.BufferType.ARBITRARY;
 import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
 import static io.prestosql.operator.StageExecutionDescriptor.ungroupedExecution;
+import static io.prestosql.spi.StandardErrorCode.DIVISION_BY_ZERO;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
 import static io.prestosql.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
 import static io.prestosql.sql.planner.plan.ExchangeNode.Type.REPARTITION;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
@@ -157,6 +164,95 @@ public class TestSqlStageExecution
         addTasksTask.cancel(true);
     }
 
+    @Test
+    public void testRetryFailedTask()
+            throws Exception
+    {
+        InternalNode first = new InternalNode("first", URI.create("http://10.0.0.1:8080"), NodeVersion.UNKNOWN, false);
+        InternalNode second = new InternalNode("second", URI.create("http://10.0.0.2:8080"), NodeVersion.UNKNOWN, false);
+        SplitSchedulerStats schedulerStats = new SplitSchedulerStats();
+        SqlStageExecution stage = createRetryingStage(schedulerStats, ImmutableList.of(first, second));
+
+        MockRemoteTask task = (MockRemoteTask) stage.scheduleTask(first, 0, OptionalInt.empty()).get();
+        task.fail(new RuntimeException("worker crashed"));
+
+        // the task is started again on the other node with the same id
+        MockRemoteTask retry = (MockRemoteTask) waitForTask(stage, second);
+        assertEquals(retry.getTaskId(), task.getTaskId());
+        assertEquals(stage.getAllTasks().size(), 1);
+        assertEquals(stage.getState(), StageState.PLANNED);
+        assertEquals(schedulerStats.getRetriedTasks().getTotalCount(), 1);
+
+        // all nodes have been tried
+        retry.fail(new RuntimeException("worker crashed"));
+        assertEquals(waitForDone(stage), StageState.FAILED);
+        assertEquals(schedulerStats.getRetriedTasks().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testUserErrorNotRetried()
+            throws Exception
+    {
+        InternalNode first = new InternalNode("first", URI.create("http://10.0.0.1:8080"), NodeVersion.UNKNOWN, false);
+        InternalNode second = new InternalNode("second", URI.create("http://10.0.0.2:8080"), NodeVersion.UNKNOWN, false);
+        SplitSchedulerStats schedulerStats = new SplitSchedulerStats();
+        SqlStageExecution stage = createRetryingStage(schedulerStats, ImmutableList.of(first, second));
+
+        MockRemoteTask task = (MockRemoteTask) stage.scheduleTask(first, 0, OptionalInt.empty()).get();
+        task.fail(new PrestoException(DIVISION_BY_ZERO, "Division by zero"));
+
+        assertEquals(waitForDone(stage), StageState.FAILED);
+        assertEquals(schedulerStats.getRetriedTasks().getTotalCount(), 0);
+    }
+
+    private SqlStageExecution createRetryingStage(SplitSchedulerStats schedulerStats, List<InternalNode> nodes)
+    {
+        StageId stageId = new StageId(new QueryId("query"), 1);
+        SqlStageExecution stage = createSqlStageExecution(
+                stageId,
+                new MockLocationFactory().createStageLocation(stageId),
+                createExchangePlanFragment(),
+                ImmutableMap.of(),
+                new MockRemoteTaskFactory(executor, scheduledExecutor),
+                TEST_SESSION,
+                true,
+                new NodeTaskMap(new FinalizerService()),
+                executor,
+                new NoOpFailureDetector(),
+                schedulerStats);
+        stage.readSpooledSources();
+        stage.enableTaskRetries(1, () -> nodes);
+        stage.setOutputBuffers(createInitialEmptyOutputBuffers(ARBITRARY).withSpooling());
+        return stage;
+    }
+
+    private static RemoteTask waitForTask(SqlStageExecution stage, InternalNode node)
+            throws InterruptedException
+    {
+        long deadline = System.nanoTime() + SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            for (RemoteTask task : stage.getAllTasks()) {
+                if (task.getNodeId().equals(node.getNodeIdentifier())) {
+                    return task;
+                }
+            }
+            MILLISECONDS.sleep(10);
+        }
+        throw new AssertionError("No task was scheduled on " + node);
+    }
+
+    private static StageState waitForDone(SqlStageExecution stage)
+            throws Exception
+    {
+        SettableFuture<StageState> done = SettableFuture.create();
+        stage.addStateChangeListener(state -> {
+            if (state.isDone()) {
+                done.set(state);
+            }
+        });
+        return done.get(10, SECONDS);
+    }
+
     private static PlanFragment createExchangePlanFragment()
     {
         PlanNode planNode = new RemoteSourceNode(
@@ -31,6 +31,7 @@ import io.prestosql.memory.QueryContext;
 import io.prestosql.spi.QueryId;
 import io.prestosql.spi.memory.MemoryPoolId;
 import io.prestosql.spiller.SpillSpaceTracker;
+import io.prestosql.spooling.LocalSpoolingStorage;
 import io.prestosql.sql.planner.LocalExecutionPlanner;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.Test;
@@ -322,6 +323,7 @@ public class TestSqlTask
                 taskNotificationExecutor,
                 Functions.identity(),
                 new DataSize(32, MEGABYTE),
-                new CounterStat());
+                new CounterStat(),
+                new LocalSpoolingStorage(Optional.empty()));
     }
 }
@@ -51,8 +51,15 @@ public class TestTaskManagerConfig
                 .setMaxLocalExchangeBufferSize(new DataSize(32, Unit.MEGABYTE))
                 .setSinkMaxBufferSize(new DataSize(32, Unit.MEGABYTE))
                 .setMaxPagePartitioningBufferSize(new DataSize(32, Unit.MEGABYTE))
+                .setFragmentResultCacheEnabled(false)
+                .setFragmentResultCacheMaxMemory(new DataSize(256, Unit.MEGABYTE))
+                .setFragmentResultCacheMaxEntrySize(new DataSize(4, Unit.MEGABYTE))
+                .setFragmentResultCacheTtl(new Duration(1, TimeUnit.HOURS))
+                .setFragmentResultCacheDiskPath(null)
+                .setFragmentResultCacheMaxDiskSize(new DataSize(10, Unit.GIGABYTE))
                 .setWriterCount(1)
                 .setTaskConcurrency(16)
+                .setHashBuildConcurrency(null)
                 .setHttpResponseThreads(100)
                 .setHttpTimeoutThreads(3)
                 .setTaskNotificationThreads(5)
@@ -83,8 +90,15 @@ public class TestTaskManagerConfig
                 .put("task.client.timeout", "10s")
                 .put("sink.max-buffer-size", "42MB")
                 .put("driver.max-page-partitioning-buffer-size", "40MB")
+                .put("task.fragment-result-cache-enabled", "true")
+                .put("task.fragment-result-cache-max-memory", "1GB")
+                .put("task.fragment-result-cache-max-entry-size", "16MB")
+                .put("task.fragment-result-cache-ttl", "10m")
+                .put("task.fragment-result-cache-disk-path", "/tmp/fragment-cache")
+                .put("task.fragment-result-cache-max-disk-size", "100GB")
                 .put("task.writer-count", "4")
                 .put("task.concurrency", "8")
+                .put("task.hash-build-concurrency", "32")
                 .put("task.http-response-threads", "4")
                 .put("task.http-timeout-threads", "10")
                 .put("task.task-notification-threads", "13")
@@ -112,8 +126,15 @@ public class TestTaskManagerConfig
                 .setClientTimeout(new Duration(10, TimeUnit.SECONDS))
                 .setSinkMaxBufferSize(new DataSize(42, Unit.MEGABYTE))
                 .setMaxPagePartitioningBufferSize(new DataSize(40, Unit.MEGABYTE))
+                .setFragmentResultCacheEnabled(true)
+                .setFragmentResultCacheMaxMemory(new DataSize(1, Unit.GIGABYTE))
+                .setFragmentResultCacheMaxEntrySize(new DataSize(16, Unit.MEGABYTE))
+                .setFragmentResultCacheTtl(new Duration(10, TimeUnit.MINUTES))
+                .setFragmentResultCacheDiskPath("/tmp/fragment-cache")
+                .setFragmentResultCacheMaxDiskSize(new DataSize(100, Unit.GIGABYTE))
                 .setWriterCount(4)
                 .setTaskConcurrency(8)
+                .setHashBuildConcurrency(32)
                 .setHttpResponseThreads(4)
                 .setHttpTimeoutThreads(10)
                 .setTaskNotificationThreads(13)
@@ -20,18 +20,23 @@ import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
 import io.prestosql.spi.block.BlockBuilder;
 import io.prestosql.spi.type.Type;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
 
 import static io.prestosql.execution.buffer.PagesSerdeUtil.readPages;
 import static io.prestosql.execution.buffer.PagesSerdeUtil.writePages;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
 import static io.prestosql.operator.PageAssertions.assertPageEquals;
 import static io.prestosql.spi.type.BigintType.BIGINT;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestPagesSerde
 {
@@ -59,6 +64,93 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @DataProvider
+    public static Object[][] codecs()
+    {
+        return Stream.of(CompressionCodec.values())
+                .map(codec -> new Object[] {codec})
+                .toArray(Object[][]::new);
+    }
+
+    @Test(dataProvider = "codecs")
+    public void testRoundTripWithCodec(CompressionCodec codec)
+    {
+        PagesSerde serde = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), codec).createPagesSerde();
+        BlockBuilder builder = VARCHAR.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            VARCHAR.writeString(builder, "value " + (i % 10));
+        }
+        Page page = new Page(builder.build());
+
+        // the compression buffer is reused between pages
+        for (int i = 0; i < 3; i++) {
+            SerializedPage serializedPage = serde.serialize(page);
+            assertEquals(serializedPage.isCompressed(), codec != CompressionCodec.NONE);
+            assertPageEquals(ImmutableList.of(VARCHAR), serde.deserialize(serializedPage), page);
+        }
+    }
+
+    @Test
+    public void testSkipCompressionOfIncompressiblePages()
+    {
+        PagesSerde serde = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), CompressionCodec.LZ4).createPagesSerde();
+        Random random = new Random(42);
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(builder, random.nextLong());
+        }
+        Page incompressible = new Page(builder.build());
+        builder = BIGINT.createBlockBuilder(null, 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(builder, i % 3);
+        }
+        Page compressible = new Page(builder.build());
+
+        AdaptiveCompression compression = new AdaptiveCompression();
+        for (int i = 0; i < 3; i++) {
+            assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(serde.serialize(serialize(incompressible), 1000, compression)), incompressible);
+        }
+        assertEquals(compression.getSkippedPages(), 0);
+
+        // the next page is sent as is, even though it would compress
+        SerializedPage skipped = serde.serialize(serialize(compressible), 1000, compression);
+        assertFalse(skipped.isCompressed());
+        assertEquals(compression.getSkippedPages(), 1);
+        assertPageEquals(ImmutableList.of(BIGINT), serde.deserialize(skipped), compressible);
+
+        // the probe page compresses, so compression is used again
+        assertTrue(serde.serialize(serialize(compressible), 1000, compression).isCompressed());
+        assertTrue(serde.serialize(serialize(compressible), 1000, compression).isCompressed());
+        assertEquals(compression.getSkippedPages(), 1);
+    }
+
+    @Test
+    public void testSkipIntervalGrows()
+    {
+        AdaptiveCompression compression = new AdaptiveCompression();
+        for (int i = 0; i < 3; i++) {
+            assertTrue(compression.shouldCompress());
+            compression.recordCompressionResult(false);
+        }
+        int[] expectedSkips = {1, 2, 4, 8, 16, 32, 64, 64};
+        for (int expectedSkip : expectedSkips) {
+            for (int i = 0; i < expectedSkip; i++) {
+                assertFalse(compression.shouldCompress());
+            }
+            // probe page
+            assertTrue(compression.shouldCompress());
+            compression.recordCompressionResult(false);
+        }
+
+        for (int i = 0; i < 64; i++) {
+            assertFalse(compression.shouldCompress());
+        }
+        assertTrue(compression.shouldCompress());
+        compression.recordCompressionResult(true);
+        assertTrue(compression.shouldCompress());
+        assertEquals(compression.getSkippedPages(), 1 + 2 + 4 + 8 + 16 + 32 + 64 + 64 + 64);
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
@@ -106,6 +198,12 @@ public class TestPagesSerde
         assertEquals(secondValueSize, 4 + 3); // length + "bob" (null shared with first entry)
     }
 
+    private static Slice serialize(Page page)
+    {
+        PagesSerde serde = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), CompressionCodec.NONE).createPagesSerde();
+        return serde.serialize(page).getSlice();
+    }
+
     private static int serializedSize(List<? extends Type> types, Page expectedPage)
     {
         PagesSerde serde = new TestingPagesSerdeFactory().createPagesSerde();
@@ -0,0 +1,258 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.buffer;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import io.airlift.slice.InputStreamSliceInput;
+import io.prestosql.execution.StageId;
+import io.prestosql.execution.StateMachine;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.memory.context.SimpleLocalMemoryContext;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spooling.LocalSpoolingStorage;
+import io.prestosql.spooling.SpooledOutputManifest;
+import io.prestosql.spooling.SpooledOutputManifest.FileRange;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.prestosql.execution.buffer.BufferState.FAILED;
+import static io.prestosql.execution.buffer.BufferState.FINISHED;
+import static io.prestosql.execution.buffer.BufferState.OPEN;
+import static io.prestosql.execution.buffer.BufferState.TERMINAL_BUFFER_STATES;
+import static io.prestosql.execution.buffer.BufferTestUtils.PAGES_SERDE;
+import static io.prestosql.execution.buffer.BufferTestUtils.addPage;
+import static io.prestosql.execution.buffer.BufferTestUtils.createPage;
+import static io.prestosql.execution.buffer.OutputBuffers.BufferType.ARBITRARY;
+import static io.prestosql.execution.buffer.OutputBuffers.BufferType.BROADCAST;
+import static io.prestosql.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.readSerializedPages;
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.operator.PageAssertions.assertPageEquals;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spooling.SpooledOutputManifest.ALL_BUFFERS;
+import static io.prestosql.spooling.SpooledOutputManifest.MANIFEST_FILE_NAME;
+import static io.prestosql.spooling.SpooledOutputManifest.dataFileName;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestSpoolingOutputBuffer
+{
+    private static final TaskId TASK_ID = new TaskId(new StageId(new QueryId("query"), 1), 0);
+    private static final OutputBufferId FIRST = new OutputBufferId(0);
+    private static final OutputBufferId SECOND = new OutputBufferId(1);
+    private static final OutputBufferId THIRD = new OutputBufferId(2);
+
+    private ScheduledExecutorService stateNotificationExecutor;
+    private File spoolingPath;
+    private LocalSpoolingStorage storage;
+
+    @BeforeClass
+    public void setUp()
+    {
+        stateNotificationExecutor = newScheduledThreadPool(5, daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        stateNotificationExecutor.shutdownNow();
+    }
+
+    @BeforeMethod
+    public void createStorage()
+    {
+        spoolingPath = Files.createTempDir();
+        storage = new LocalSpoolingStorage(Optional.of(spoolingPath.toPath()));
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void removeStorage()
+            throws IOException
+    {
+        deleteRecursively(spoolingPath.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testPartitioned()
+            throws IOException
+    {
+        OutputBuffers outputBuffers = createInitialEmptyOutputBuffers(PARTITIONED).withSpooling();
+        SpoolingOutputBuffer buffer = createBuffer(outputBuffers);
+        addPage(buffer, createPage(0), 0);
+        addPage(buffer, createPage(1), 1);
+        addPage(buffer, createPage(2), 0);
+        buffer.setNoMorePages();
+
+        // the output is committed only once all buffers are known
+        assertFalse(buffer.isFinished());
+        assertFalse(storage.openCommittedFile(TASK_ID, MANIFEST_FILE_NAME).isPresent());
+
+        buffer.setOutputBuffers(outputBuffers
+                .withBuffer(FIRST, 0)
+                .withBuffer(SECOND, 1)
+                .withBuffer(THIRD, 2)
+                .withNoMoreBufferIds());
+        assertTrue(buffer.isFinished());
+
+        SpooledOutputManifest manifest = readManifest();
+        assertEquals(manifest.getRanges().keySet(), ImmutableSet.of(FIRST.getId(), SECOND.getId()));
+        assertPages(manifest.getRange(FIRST.getId()).get(), createPage(0), createPage(2));
+        assertPages(manifest.getRange(SECOND.getId()).get(), createPage(1));
+        // the third partition has no pages
+        assertFalse(manifest.getRange(THIRD.getId()).isPresent());
+    }
+
+    @Test
+    public void testBroadcast()
+            throws IOException
+    {
+        SpoolingOutputBuffer buffer = createBuffer(createInitialEmptyOutputBuffers(BROADCAST)
+                .withBuffer(FIRST, 0)
+                .withBuffer(SECOND, 0)
+                .withNoMoreBufferIds()
+                .withSpooling());
+        addPage(buffer, createPage(0));
+        addPage(buffer, createPage(1));
+        buffer.setNoMorePages();
+        assertTrue(buffer.isFinished());
+
+        SpooledOutputManifest manifest = readManifest();
+        assertEquals(manifest.getRanges().keySet(), ImmutableSet.of(ALL_BUFFERS));
+        // buffers added later read the same output
+        assertPages(manifest.getRange(7).get(), createPage(0), createPage(1));
+    }
+
+    @Test
+    public void testArbitrary()
+            throws IOException
+    {
+        SpoolingOutputBuffer buffer = createBuffer(createInitialEmptyOutputBuffers(ARBITRARY)
+                .withBuffer(FIRST, 0)
+                .withBuffer(SECOND, 0)
+                .withNoMoreBufferIds()
+                .withSpooling());
+        for (int i = 0; i < 5; i++) {
+            addPage(buffer, createPage(i));
+        }
+        buffer.setNoMorePages();
+        assertTrue(buffer.isFinished());
+
+        SpooledOutputManifest manifest = readManifest();
+        assertPages(manifest.getRange(FIRST.getId()).get(), createPage(0), createPage(1));
+        assertPages(manifest.getRange(SECOND.getId()).get(), createPage(2), createPage(3), createPage(4));
+    }
+
+    @Test
+    public void testDivideArbitraryOutput()
+    {
+        // every page is assigned to exactly one buffer
+        assertEquals(
+                SpoolingOutputBuffer.divideArbitraryOutput(ImmutableList.of(10L, 20L, 30L, 40L), ImmutableList.of(0, 1)),
+                ImmutableMap.of(0, new FileRange(0, 0, 20), 1, new FileRange(0, 20, 40)));
+        // a large page is not split
+        assertEquals(
+                SpoolingOutputBuffer.divideArbitraryOutput(ImmutableList.of(100L, 110L, 120L), ImmutableList.of(0, 1, 2)),
+                ImmutableMap.of(0, new FileRange(0, 0, 100), 1, new FileRange(0, 100, 110), 2, new FileRange(0, 110, 120)));
+        // buffers beyond the last page get no output
+        assertEquals(
+                SpoolingOutputBuffer.divideArbitraryOutput(ImmutableList.of(10L), ImmutableList.of(0, 1, 2)),
+                ImmutableMap.of(0, new FileRange(0, 0, 10)));
+    }
+
+    @Test
+    public void testFailDiscardsOutput()
+            throws IOException
+    {
+        SpoolingOutputBuffer buffer = createBuffer(createInitialEmptyOutputBuffers(BROADCAST).withSpooling());
+        addPage(buffer, createPage(0));
+        buffer.fail();
+        assertEquals(buffer.getInfo().getState(), FAILED);
+
+        buffer.setNoMorePages();
+        assertFalse(storage.openCommittedFile(TASK_ID, MANIFEST_FILE_NAME).isPresent());
+        assertEquals(new File(spoolingPath, "query").listFiles().length, 0);
+    }
+
+    @Test
+    public void testMemoryUsage()
+    {
+        SpoolingOutputBuffer buffer = createBuffer(createInitialEmptyOutputBuffers(PARTITIONED).withSpooling());
+        addPage(buffer, createPage(0), 0);
+        addPage(buffer, createPage(1), 1);
+        addPage(buffer, createPage(2), 1);
+        // each open file holds a write buffer
+        assertEquals(buffer.getPeakMemoryUsage(), 2 * 64 * 1024);
+
+        buffer.destroy();
+        assertEquals(buffer.getInfo().getState(), FINISHED);
+    }
+
+    private SpoolingOutputBuffer createBuffer(OutputBuffers outputBuffers)
+    {
+        return new SpoolingOutputBuffer(
+                TASK_ID,
+                "task-instance-id",
+                new StateMachine<>("bufferState", stateNotificationExecutor, OPEN, TERMINAL_BUFFER_STATES),
+                outputBuffers,
+                storage,
+                () -> new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test"));
+    }
+
+    private SpooledOutputManifest readManifest()
+            throws IOException
+    {
+        try (InputStream input = storage.openCommittedFile(TASK_ID, MANIFEST_FILE_NAME).get()) {
+            return SpooledOutputManifest.readFrom(input);
+        }
+    }
+
+    private void assertPages(FileRange range, Page... expectedPages)
+            throws IOException
+    {
+        try (InputStream data = storage.openCommittedFile(TASK_ID, dataFileName(range.getFileIndex())).get()) {
+            ByteStreams.skipFully(data, range.getStart());
+            List<Page> pages = ImmutableList.copyOf(readSerializedPages(new InputStreamSliceInput(ByteStreams.limit(data, range.getLength())))).stream()
+                    .map(PAGES_SERDE::deserialize)
+                    .collect(toImmutableList());
+            assertEquals(pages.size(), expectedPages.length);
+            for (int i = 0; i < pages.size(); i++) {
+                assertPageEquals(ImmutableList.of(BIGINT), pages.get(i), expectedPages[i]);
+            }
+        }
+    }
+}
@@ -17,6 +17,7 @@ import io.airlift.compress.Compressor;
 import io.airlift.compress.Decompressor;
 import io.airlift.compress.lz4.Lz4Compressor;
 import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.slice.Slice;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.BlockEncodingSerde;
 import io.prestosql.spiller.SpillCipher;
@@ -57,6 +58,12 @@ public class TestingPagesSerdeFactory
             return super.serialize(page);
         }
 
+        @Override
+        public synchronized SerializedPage serialize(Slice rawPage, int positionCount, AdaptiveCompression compression)
+        {
+            return super.serialize(rawPage, positionCount, compression);
+        }
+
         @Override
         public synchronized Page deserialize(SerializedPage serializedPage)
         {
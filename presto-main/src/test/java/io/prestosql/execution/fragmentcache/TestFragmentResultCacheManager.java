@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.fragmentcache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.airlift.slice.Slices;
+import io.prestosql.Session;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.execution.buffer.PageCodecMarker;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static com.google.common.util.concurrent.MoreExecutors.newDirectExecutorService;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.SystemSessionProperties.FRAGMENT_RESULT_CACHE_ENABLED;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.iterative.rule.test.PlanBuilder.expression;
+import static io.prestosql.testing.TestingSession.testSessionBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestFragmentResultCacheManager
+{
+    private static final Session CACHE_ENABLED_SESSION = testSessionBuilder()
+            .setSystemProperty(FRAGMENT_RESULT_CACHE_ENABLED, "true")
+            .build();
+
+    private final File diskPath = Files.createTempDir();
+    private final PlanBuilder planBuilder = new PlanBuilder(new PlanNodeIdAllocator(), createTestMetadataManager());
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws Exception
+    {
+        deleteRecursively(diskPath.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testMemoryHitAndMiss()
+    {
+        FragmentResultCacheManager cacheManager = createCacheManager(1024 * 1024, 1024, Optional.empty());
+        FragmentCacheKey key = createKey("split-1@v1");
+        List<SerializedPage> pages = ImmutableList.of(createPage(100), createPage(200));
+
+        assertFalse(cacheManager.get(key).isPresent());
+        cacheManager.put(key, pages);
+        assertEquals(cacheManager.get(createKey("split-1@v1")).get(), pages);
+
+        // a new version of the data read by the split is a different result
+        assertFalse(cacheManager.get(createKey("split-1@v2")).isPresent());
+
+        assertEquals(cacheManager.getMemoryHits().getTotalCount(), 1);
+        assertEquals(cacheManager.getMisses().getTotalCount(), 2);
+        assertEquals(cacheManager.getMemoryEntryCount(), 1);
+    }
+
+    @Test
+    public void testEntrySizeLimit()
+    {
+        FragmentResultCacheManager cacheManager = createCacheManager(1024 * 1024, 1024, Optional.empty());
+        FragmentCacheKey key = createKey("split-1@v1");
+
+        cacheManager.put(key, ImmutableList.of(createPage(600), createPage(600)));
+        assertFalse(cacheManager.get(key).isPresent());
+        assertEquals(cacheManager.getMemoryEntryCount(), 0);
+    }
+
+    @Test
+    public void testDiskTier()
+    {
+        // no result fits in memory, so every result is written to disk
+        FragmentResultCacheManager cacheManager = createCacheManager(1, 1024, Optional.of(diskPath));
+        FragmentCacheKey key = createKey("split-1@v1");
+        List<SerializedPage> pages = ImmutableList.of(createPage(100), createPage(200));
+
+        cacheManager.put(key, pages);
+        assertEquals(cacheManager.getMemoryEntryCount(), 0);
+        assertEquals(cacheManager.getDiskEntryCount(), 1);
+
+        List<SerializedPage> loaded = cacheManager.get(key).get();
+        assertEquals(loaded.size(), pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            assertEquals(loaded.get(i).getPositionCount(), pages.get(i).getPositionCount());
+            assertEquals(loaded.get(i).getSlice(), pages.get(i).getSlice());
+        }
+        assertEquals(cacheManager.getDiskHits().getTotalCount(), 1);
+
+        cacheManager.destroy();
+        assertEquals(cacheManager.getDiskEntryCount(), 0);
+        assertEquals(diskPath.list().length, 0);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        FragmentResultCacheManager cacheManager = createCacheManager(1024 * 1024, 1024, Optional.empty());
+        Symbol a = planBuilder.symbol("a", BIGINT);
+
+        assertFalse(cacheManager.createContext(TEST_SESSION, tableScan(a)).isPresent());
+        assertEquals(cacheManager.getUncacheable().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testUncacheableFragments()
+    {
+        FragmentResultCacheManager cacheManager = createCacheManager(1024 * 1024, 1024, Optional.empty());
+        Symbol a = planBuilder.symbol("a", BIGINT);
+        Symbol b = planBuilder.symbol("b", BIGINT);
+
+        assertFalse(cacheManager.createContext(CACHE_ENABLED_SESSION, planBuilder.project(Assignments.of(b, expression("random()")), tableScan(a))).isPresent());
+        assertFalse(cacheManager.createContext(CACHE_ENABLED_SESSION, planBuilder.filter(expression("now() > TIMESTAMP '2020-01-01 00:00:00'"), tableScan(a))).isPresent());
+        assertFalse(cacheManager.createContext(CACHE_ENABLED_SESSION, planBuilder.limit(10, tableScan(a))).isPresent());
+        assertFalse(cacheManager.createContext(CACHE_ENABLED_SESSION, planBuilder.values(a)).isPresent());
+        assertFalse(cacheManager.createContext(CACHE_ENABLED_SESSION, tableScan(planBuilder.symbol("$fragment_0", BIGINT))).isPresent());
+        assertEquals(cacheManager.getUncacheable().getTotalCount(), 5);
+    }
+
+    private PlanNode tableScan(Symbol symbol)
+    {
+        return planBuilder.tableScan(ImmutableList.of(symbol), ImmutableMap.of(symbol, new TestingColumnHandle(symbol.getName())));
+    }
+
+    private static FragmentResultCacheManager createCacheManager(long maxMemorySizeInBytes, long maxEntrySizeInBytes, Optional<File> diskPath)
+    {
+        return new FragmentResultCacheManager(
+                createTestMetadataManager().getBlockEncodingSerde(),
+                jsonCodec(PlanNode.class),
+                maxMemorySizeInBytes,
+                maxEntrySizeInBytes,
+                60_000,
+                diskPath.map(File::toPath),
+                1024 * 1024,
+                newDirectExecutorService());
+    }
+
+    private static FragmentCacheKey createKey(String splitIdentity)
+    {
+        return new FragmentCacheKey("fragment", new CatalogName("test"), splitIdentity);
+    }
+
+    private static SerializedPage createPage(int sizeInBytes)
+    {
+        return new SerializedPage(Slices.allocate(sizeInBytes), PageCodecMarker.MarkerSet.empty(), 1, sizeInBytes);
+    }
+}
@@ -0,0 +1,346 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.plancache;
+
+import com.google.common.base.Ticker;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.testing.TestingTicker;
+import io.prestosql.Session;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.cost.StatsAndCosts;
+import io.prestosql.metadata.AbstractMockMetadata;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.metadata.TableMetadata;
+import io.prestosql.spi.connector.ConnectorTableMetadata;
+import io.prestosql.spi.connector.ConnectorTransactionHandle;
+import io.prestosql.spi.connector.SchemaTableName;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.analyzer.Analysis;
+import io.prestosql.sql.parser.SqlParser;
+import io.prestosql.sql.planner.Plan;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.TypeProvider;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.TableScanNode;
+import io.prestosql.sql.tree.ComparisonExpression;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.FunctionCall;
+import io.prestosql.sql.tree.LongLiteral;
+import io.prestosql.sql.tree.NodeRef;
+import io.prestosql.sql.tree.Parameter;
+import io.prestosql.sql.tree.QualifiedName;
+import io.prestosql.sql.tree.Statement;
+import io.prestosql.sql.tree.StringLiteral;
+import io.prestosql.sql.tree.Table;
+import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
+import io.prestosql.testing.TestingMetadata.TestingTableHandle;
+import io.prestosql.testing.TestingTransactionHandle;
+import org.testng.annotations.Test;
+
+import java.util.Map;
+import java.util.Optional;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.SystemSessionProperties.PLAN_CACHE_ENABLED;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.TimestampWithTimeZoneType.TIMESTAMP_WITH_TIME_ZONE;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.sql.tree.ComparisonExpression.Operator.EQUAL;
+import static io.prestosql.testing.TestingSession.testSessionBuilder;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class TestPlanCache
+{
+    private static final Session CACHE_ENABLED_SESSION = testSessionBuilder()
+            .setSystemProperty(PLAN_CACHE_ENABLED, "true")
+            .build();
+    private static final CatalogName CATALOG = new CatalogName("testConnector");
+    private static final SqlParser SQL_PARSER = new SqlParser();
+
+    private final PlanBuilder planBuilder = new PlanBuilder(new PlanNodeIdAllocator(), createTestMetadataManager());
+
+    @Test
+    public void testHitRebindsTransaction()
+    {
+        PlanCache cache = createCache(new VersionedMetadata());
+        ConnectorTransactionHandle firstTransaction = TestingTransactionHandle.create();
+        ConnectorTransactionHandle secondTransaction = TestingTransactionHandle.create();
+
+        Analysis analysis = analysis("SELECT a FROM t", firstTransaction, ImmutableMap.of());
+        PlanCacheKey key = cache.createKey(CACHE_ENABLED_SESSION, analysis).get();
+        assertFalse(cache.get(CACHE_ENABLED_SESSION, key, analysis).isPresent());
+        cache.put(CACHE_ENABLED_SESSION, key, analysis, plan(tableScan(firstTransaction)));
+
+        Analysis nextAnalysis = analysis("SELECT a FROM t", secondTransaction, ImmutableMap.of());
+        PlanCacheKey nextKey = cache.createKey(CACHE_ENABLED_SESSION, nextAnalysis).get();
+        assertEquals(nextKey, key);
+        Plan cachedPlan = cache.get(CACHE_ENABLED_SESSION, nextKey, nextAnalysis).get();
+        assertSame(((TableScanNode) cachedPlan.getRoot()).getTable().getTransaction(), secondTransaction);
+
+        assertEquals(cache.getHits().getTotalCount(), 1);
+        assertEquals(cache.getMisses().getTotalCount(), 1);
+        assertEquals(cache.getEntryCount(), 1);
+    }
+
+    @Test
+    public void testParameterTypesArePartOfKey()
+    {
+        PlanCache cache = createCache(new VersionedMetadata());
+        ConnectorTransactionHandle transaction = TestingTransactionHandle.create();
+        String sql = "SELECT a FROM t WHERE a = ?";
+
+        PlanCacheKey first = cache.createKey(CACHE_ENABLED_SESSION, analysis(sql, transaction, new Parameter(0), new LongLiteral("1"), BIGINT)).get();
+        PlanCacheKey otherValue = cache.createKey(CACHE_ENABLED_SESSION, analysis(sql, transaction, new Parameter(0), new LongLiteral("2"), BIGINT)).get();
+        PlanCacheKey otherType = cache.createKey(CACHE_ENABLED_SESSION, analysis(sql, transaction, new Parameter(0), new StringLiteral("2"), VARCHAR)).get();
+
+        assertEquals(first, otherValue);
+        assertNotEquals(first, otherType);
+    }
+
+    @Test
+    public void testTemplateBindsParametersAndTables()
+    {
+        PlanCache cache = createCache(new VersionedMetadata());
+        ConnectorTransactionHandle firstTransaction = TestingTransactionHandle.create();
+        ConnectorTransactionHandle secondTransaction = TestingTransactionHandle.create();
+        String sql = "SELECT a FROM t WHERE a = ?";
+
+        Parameter parameter = new Parameter(0);
+        Analysis analysis = analysis(sql, firstTransaction, parameter, new LongLiteral("1"), BIGINT);
+        PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+        PlanBuilder templateBuilder = new PlanBuilder(idAllocator, createTestMetadataManager());
+        Symbol a = templateBuilder.symbol("a", BIGINT);
+        TableHandle table = getOnlyElement(analysis.getTables());
+        PlanNode root = templateBuilder.filter(
+                new ComparisonExpression(EQUAL, a.toSymbolReference(), parameter),
+                templateBuilder.tableScan(table, ImmutableList.of(a), ImmutableMap.of(a, new TestingColumnHandle("a"))));
+        PlanTemplate template = PlanTemplate.create(root, TypeProvider.copyOf(ImmutableMap.of(a, BIGINT)), idAllocator, analysis).get();
+
+        PlanCacheKey key = cache.createKey(CACHE_ENABLED_SESSION, analysis).get();
+        assertFalse(cache.getTemplate(key).isPresent());
+        cache.putTemplate(key, template);
+
+        Analysis nextAnalysis = analysis(sql, secondTransaction, new Parameter(0), new LongLiteral("2"), BIGINT);
+        PlanCacheKey nextKey = cache.createKey(CACHE_ENABLED_SESSION, nextAnalysis).get();
+        assertEquals(nextKey, key);
+        FilterNode bound = (FilterNode) cache.getTemplate(nextKey).get().bind(nextAnalysis).get();
+        assertEquals(bound.getPredicate(), new ComparisonExpression(EQUAL, a.toSymbolReference(), new LongLiteral("2")));
+        assertSame(((TableScanNode) bound.getSource()).getTable(), getOnlyElement(nextAnalysis.getTables()));
+        assertEquals(template.createIdAllocator().getNextId(), idAllocator.getNextId());
+
+        assertEquals(cache.getHits().getTotalCount(), 1);
+        assertEquals(cache.getMisses().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testTemplateWithoutParameter()
+    {
+        // the value of a parameter that is not in the plan, such as a sample percentage, was used while analyzing
+        Analysis analysis = analysis("SELECT a FROM t TABLESAMPLE BERNOULLI (?)", TestingTransactionHandle.create(), new Parameter(0), new LongLiteral("10"), BIGINT);
+        PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+        PlanBuilder templateBuilder = new PlanBuilder(idAllocator, createTestMetadataManager());
+        Symbol a = templateBuilder.symbol("a", BIGINT);
+        PlanNode root = templateBuilder.tableScan(getOnlyElement(analysis.getTables()), ImmutableList.of(a), ImmutableMap.of(a, new TestingColumnHandle("a")));
+
+        assertFalse(PlanTemplate.create(root, TypeProvider.copyOf(ImmutableMap.of(a, BIGINT)), idAllocator, analysis).isPresent());
+    }
+
+    @Test
+    public void testInvalidateAll()
+    {
+        PlanCache cache = createCache(new VersionedMetadata());
+        ConnectorTransactionHandle transaction = TestingTransactionHandle.create();
+        Analysis analysis = analysis("SELECT a FROM t", transaction, ImmutableMap.of());
+        PlanCacheKey key = cache.createKey(CACHE_ENABLED_SESSION, analysis).get();
+
+        cache.put(CACHE_ENABLED_SESSION, key, analysis, plan(tableScan(transaction)));
+        cache.invalidateAll();
+        assertFalse(cache.get(CACHE_ENABLED_SESSION, key, analysis).isPresent());
+        assertEquals(cache.getInvalidations().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testChangedTableVersion()
+    {
+        VersionedMetadata metadata = new VersionedMetadata();
+        PlanCache cache = createCache(metadata);
+        ConnectorTransactionHandle transaction = TestingTransactionHandle.create();
+        Analysis analysis = analysis("SELECT a FROM t", transaction, ImmutableMap.of());
+        PlanCacheKey key = cache.createKey(CACHE_ENABLED_SESSION, analysis).get();
+
+        cache.put(CACHE_ENABLED_SESSION, key, analysis, plan(tableScan(transaction)));
+        assertTrue(cache.get(CACHE_ENABLED_SESSION, key, analysis).isPresent());
+
+        metadata.setVersion("v2");
+        assertFalse(cache.get(CACHE_ENABLED_SESSION, key, analysis).isPresent());
+        assertEquals(cache.getEntryCount(), 0);
+        assertEquals(cache.getHits().getTotalCount(), 1);
+        assertEquals(cache.getMisses().getTotalCount(), 1);
+    }
+
+    @Test
+    public void testTableVersionCheckInterval()
+    {
+        VersionedMetadata metadata = new VersionedMetadata();
+        TestingTicker ticker = new TestingTicker();
+        PlanCache cache = new PlanCache(metadata, 100, 60_000, 1_000, ticker);
+        ConnectorTransactionHandle transaction = TestingTransactionHandle.create();
+        Analysis analysis = analysis("SELECT a FROM t", transaction, ImmutableMap.of());
+        PlanCacheKey key = cache.createKey(CACHE_ENABLED_SESSION, analysis).get();
+        cache.put(CACHE_ENABLED_SESSION, key, analysis, plan(tableScan(transaction)));
+
+        // the versions are not checked again within the interval
+        metadata.setVersion("v2");
+        assertTrue(cache.get(CACHE_ENABLED_SESSION, key, analysis).isPresent());
+        assertEquals(metadata.getVersionRequests(), 1);
+
+        ticker.increment(1, SECONDS);
+        assertFalse(cache.get(CACHE_ENABLED_SESSION, key, analysis).isPresent());
+        assertEquals(metadata.getVersionRequests(), 2);
+
+        // a write by this coordinator checks the versions on the next use
+        cache.put(CACHE_ENABLED_SESSION, key, analysis, plan(tableScan(transaction)));
+        assertTrue(cache.get(CACHE_ENABLED_SESSION, key, analysis).isPresent());
+        metadata.setVersion("v3");
+        cache.tableWritten();
+        assertFalse(cache.get(CACHE_ENABLED_SESSION, key, analysis).isPresent());
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        PlanCache cache = createCache(new VersionedMetadata());
+        Analysis analysis = analysis("SELECT a FROM t", TestingTransactionHandle.create(), ImmutableMap.of());
+
+        assertFalse(cache.createKey(TEST_SESSION, analysis).isPresent());
+        assertEquals(cache.getUncacheable().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testUncacheable()
+    {
+        PlanCache cache = createCache(new VersionedMetadata());
+        ConnectorTransactionHandle transaction = TestingTransactionHandle.create();
+
+        Analysis sessionTime = analysis("SELECT now() FROM t", transaction, ImmutableMap.of());
+        FunctionCall now = new FunctionCall(QualifiedName.of("now"), ImmutableList.of());
+        sessionTime.addTypes(ImmutableMap.of(NodeRef.of(now), TIMESTAMP_WITH_TIME_ZONE));
+        assertFalse(cache.createKey(CACHE_ENABLED_SESSION, sessionTime).isPresent());
+
+        assertFalse(cache.createKey(CACHE_ENABLED_SESSION, analysis("SHOW TABLES", transaction, ImmutableMap.of())).isPresent());
+        assertEquals(cache.getUncacheable().getTotalCount(), 2);
+
+        // the table is not scanned by the plan, so a change to it would go unnoticed
+        Analysis analysis = analysis("SELECT a FROM t WHERE false", transaction, ImmutableMap.of());
+        PlanCacheKey key = cache.createKey(CACHE_ENABLED_SESSION, analysis).get();
+        cache.put(CACHE_ENABLED_SESSION, key, analysis, plan(planBuilder.values(planBuilder.symbol("a", BIGINT))));
+        assertEquals(cache.getEntryCount(), 0);
+        assertEquals(cache.getUncacheable().getTotalCount(), 3);
+
+        PlanCache unversionedCache = createCache(new UnversionedMetadata());
+        analysis = analysis("SELECT a FROM t", transaction, ImmutableMap.of());
+        key = unversionedCache.createKey(CACHE_ENABLED_SESSION, analysis).get();
+        unversionedCache.put(CACHE_ENABLED_SESSION, key, analysis, plan(tableScan(transaction)));
+        assertEquals(unversionedCache.getEntryCount(), 0);
+        assertEquals(unversionedCache.getUncacheable().getTotalCount(), 1);
+    }
+
+    private static PlanCache createCache(Metadata metadata)
+    {
+        return new PlanCache(metadata, 100, 60_000, 0, Ticker.systemTicker());
+    }
+
+    private static Analysis analysis(String sql, ConnectorTransactionHandle transaction, Parameter parameter, Expression value, Type type)
+    {
+        Analysis analysis = analysis(sql, transaction, ImmutableMap.of(NodeRef.of(parameter), value));
+        analysis.addTypes(ImmutableMap.of(NodeRef.<Expression>of(parameter), type));
+        return analysis;
+    }
+
+    private static Analysis analysis(String sql, ConnectorTransactionHandle transaction, Map<NodeRef<Parameter>, Expression> parameters)
+    {
+        Statement statement = SQL_PARSER.createStatement(sql);
+        Analysis analysis = new Analysis(statement, parameters, false);
+        analysis.registerTable(new Table(QualifiedName.of("t")), tableHandle(transaction));
+        return analysis;
+    }
+
+    private static TableHandle tableHandle(ConnectorTransactionHandle transaction)
+    {
+        return new TableHandle(CATALOG, new TestingTableHandle(), transaction, Optional.empty());
+    }
+
+    private PlanNode tableScan(ConnectorTransactionHandle transaction)
+    {
+        Symbol a = planBuilder.symbol("a", BIGINT);
+        return planBuilder.tableScan(tableHandle(transaction), ImmutableList.of(a), ImmutableMap.of(a, new TestingColumnHandle("a")));
+    }
+
+    private static Plan plan(PlanNode root)
+    {
+        return new Plan(root, TypeProvider.empty(), StatsAndCosts.empty());
+    }
+
+    private static class VersionedMetadata
+            extends UnversionedMetadata
+    {
+        private String version = "v1";
+        private int versionRequests;
+
+        public void setVersion(String version)
+        {
+            this.version = version;
+        }
+
+        public int getVersionRequests()
+        {
+            return versionRequests;
+        }
+
+        @Override
+        public Optional<String> getTableVersion(Session session, TableHandle tableHandle)
+        {
+            versionRequests++;
+            return Optional.of(version);
+        }
+    }
+
+    private static class UnversionedMetadata
+            extends AbstractMockMetadata
+    {
+        @Override
+        public TableMetadata getTableMetadata(Session session, TableHandle tableHandle)
+        {
+            return new TableMetadata(CATALOG, new ConnectorTableMetadata(new SchemaTableName("s", "t"), ImmutableList.of()));
+        }
+
+        @Override
+        public Optional<String> getTableVersion(Session session, TableHandle tableHandle)
+        {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.resultcache;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slices;
+import io.prestosql.Session;
+import io.prestosql.cost.StatsAndCosts;
+import io.prestosql.execution.buffer.PageCodecMarker;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.metadata.AbstractMockMetadata;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.sql.planner.Plan;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.TypeProvider;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.testing.TestingMetadata.TestingColumnHandle;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.SystemSessionProperties.QUERY_RESULT_CACHE_ENABLED;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.iterative.rule.test.PlanBuilder.expression;
+import static io.prestosql.testing.TestingSession.testSessionBuilder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+
+public class TestQueryResultCache
+{
+    private static final Session CACHE_ENABLED_SESSION = testSessionBuilder()
+            .setSystemProperty(QUERY_RESULT_CACHE_ENABLED, "true")
+            .build();
+
+    private final PlanBuilder planBuilder = new PlanBuilder(new PlanNodeIdAllocator(), createTestMetadataManager());
+
+    @Test
+    public void testHitAndMiss()
+    {
+        QueryResultCache cache = createCache(new UnversionedMetadata(), 1024 * 1024, 1024);
+        QueryResultCacheKey key = createKey("plan", "v1");
+        CachedQueryResult result = createResult(100);
+
+        assertFalse(cache.get(key).isPresent());
+        cache.put(key, result);
+        assertSame(cache.get(key).get(), result);
+        assertSame(cache.get(createKey("plan", "v1")).get(), result);
+
+        // a new table version is a different result
+        assertFalse(cache.get(createKey("plan", "v2")).isPresent());
+
+        assertEquals(cache.getHits().getTotalCount(), 2);
+        assertEquals(cache.getMisses().getTotalCount(), 2);
+        assertEquals(cache.getEntryCount(), 1);
+    }
+
+    @Test
+    public void testEntrySizeLimit()
+    {
+        QueryResultCache cache = createCache(new UnversionedMetadata(), 1024 * 1024, 1024);
+        QueryResultCacheKey key = createKey("plan", "v1");
+
+        cache.put(key, createResult(2048));
+        assertFalse(cache.get(key).isPresent());
+        assertEquals(cache.getEntryCount(), 0);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        QueryResultCache cache = createCache(new UnversionedMetadata(), 1024 * 1024, 1024);
+        Symbol a = planBuilder.symbol("a", BIGINT);
+        PlanNode root = planBuilder.values(a);
+
+        assertFalse(cache.createKey(TEST_SESSION, plan(root)).isPresent());
+        assertEquals(cache.getUncacheable().getTotalCount(), 0);
+    }
+
+    @Test
+    public void testNonDeterministicPlan()
+    {
+        QueryResultCache cache = createCache(new UnversionedMetadata(), 1024 * 1024, 1024);
+        Symbol a = planBuilder.symbol("a", BIGINT);
+        Symbol b = planBuilder.symbol("b", BIGINT);
+
+        assertFalse(cache.createKey(CACHE_ENABLED_SESSION, plan(planBuilder.project(Assignments.of(b, expression("random()")), planBuilder.values(a)))).isPresent());
+        assertFalse(cache.createKey(CACHE_ENABLED_SESSION, plan(planBuilder.project(Assignments.of(b, expression("now()")), planBuilder.values(a)))).isPresent());
+        assertFalse(cache.createKey(CACHE_ENABLED_SESSION, plan(planBuilder.filter(expression("now() > TIMESTAMP '2020-01-01 00:00:00'"), planBuilder.values(a)))).isPresent());
+        assertEquals(cache.getUncacheable().getTotalCount(), 3);
+    }
+
+    @Test
+    public void testUnversionedTable()
+    {
+        QueryResultCache cache = createCache(new UnversionedMetadata(), 1024 * 1024, 1024);
+        Symbol a = planBuilder.symbol("a", BIGINT);
+        PlanNode root = planBuilder.tableScan(ImmutableList.of(a), ImmutableMap.of(a, new TestingColumnHandle("a")));
+
+        assertFalse(cache.createKey(CACHE_ENABLED_SESSION, plan(root)).isPresent());
+        assertEquals(cache.getUncacheable().getTotalCount(), 1);
+    }
+
+    private static QueryResultCache createCache(Metadata metadata, long maxSizeInBytes, long maxEntrySizeInBytes)
+    {
+        return new QueryResultCache(metadata, jsonCodec(PlanNode.class), maxSizeInBytes, maxEntrySizeInBytes, 60_000);
+    }
+
+    private static Plan plan(PlanNode root)
+    {
+        return new Plan(root, TypeProvider.empty(), StatsAndCosts.empty());
+    }
+
+    private static QueryResultCacheKey createKey(String plan, String tableVersion)
+    {
+        return new QueryResultCacheKey(
+                plan,
+                ImmutableList.of(tableVersion),
+                TEST_SESSION.getUser(),
+                TEST_SESSION.getTimeZoneKey(),
+                TEST_SESSION.getLocale(),
+                ImmutableMap.of(),
+                ImmutableMap.of());
+    }
+
+    private static CachedQueryResult createResult(int sizeInBytes)
+    {
+        SerializedPage page = new SerializedPage(Slices.allocate(sizeInBytes), PageCodecMarker.MarkerSet.empty(), 1, sizeInBytes);
+        return new CachedQueryResult(ImmutableList.of("a"), ImmutableList.of(BIGINT), ImmutableList.of(page));
+    }
+
+    private static class UnversionedMetadata
+            extends AbstractMockMetadata
+    {
+        @Override
+        public Optional<String> getTableVersion(Session session, TableHandle tableHandle)
+        {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.execution.scheduler;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import io.prestosql.client.NodeVersion;
+import io.prestosql.cost.StatsAndCosts;
+import io.prestosql.execution.MockRemoteTaskFactory;
+import io.prestosql.execution.MockRemoteTaskFactory.MockRemoteTask;
+import io.prestosql.execution.NodeTaskMap;
+import io.prestosql.execution.RemoteTask;
+import io.prestosql.execution.SqlStageExecution;
+import io.prestosql.execution.StageId;
+import io.prestosql.execution.TestSqlTaskManager.MockLocationFactory;
+import io.prestosql.execution.scheduler.AdaptiveFixedCountScheduler.TaskAssignment;
+import io.prestosql.failuredetector.NoOpFailureDetector;
+import io.prestosql.metadata.InternalNode;
+import io.prestosql.spi.QueryId;
+import io.prestosql.sql.planner.Partitioning;
+import io.prestosql.sql.planner.PartitioningHandle;
+import io.prestosql.sql.planner.PartitioningScheme;
+import io.prestosql.sql.planner.PlanFragment;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
+import io.prestosql.sql.planner.plan.Assignments;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanFragmentId;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.sql.planner.plan.RemoteSourceNode;
+import io.prestosql.sql.planner.plan.ValuesNode;
+import io.prestosql.util.FinalizerService;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.execution.SqlStageExecution.createSqlStageExecution;
+import static io.prestosql.execution.buffer.OutputBuffers.BufferType.ARBITRARY;
+import static io.prestosql.execution.buffer.OutputBuffers.BufferType.PARTITIONED;
+import static io.prestosql.execution.buffer.OutputBuffers.createInitialEmptyOutputBuffers;
+import static io.prestosql.execution.scheduler.AdaptiveFixedCountScheduler.findSplittableJoinSource;
+import static io.prestosql.execution.scheduler.ScheduleResult.BlockedReason.WAITING_FOR_SOURCE_STAGES;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.operator.StageExecutionDescriptor.ungroupedExecution;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.SINGLE_DISTRIBUTION;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.SOURCE_DISTRIBUTION;
+import static io.prestosql.sql.planner.iterative.rule.test.PlanBuilder.expression;
+import static io.prestosql.sql.planner.plan.AggregationNode.Step.PARTIAL;
+import static io.prestosql.sql.planner.plan.AggregationNode.Step.SINGLE;
+import static io.prestosql.sql.planner.plan.ExchangeNode.Type.REPARTITION;
+import static io.prestosql.sql.planner.plan.ExchangeNode.Type.REPLICATE;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.FULL;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.LEFT;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.RIGHT;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestAdaptiveFixedCountScheduler
+{
+    private static final Symbol COLUMN = new Symbol("column");
+
+    private final ExecutorService executor = newCachedThreadPool(daemonThreadsNamed("stageExecutor-%s"));
+    private final ScheduledExecutorService scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("stageScheduledExecutor-%s"));
+
+    @AfterClass(alwaysRun = true)
+    public void destroyExecutor()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdown();
+    }
+
+    @Test
+    public void testTaskCount()
+    {
+        assertEquals(AdaptiveFixedCountScheduler.getTaskCount(0, 100, 8), 1);
+        assertEquals(AdaptiveFixedCountScheduler.getTaskCount(100, 100, 8), 1);
+        assertEquals(AdaptiveFixedCountScheduler.getTaskCount(101, 100, 8), 2);
+        assertEquals(AdaptiveFixedCountScheduler.getTaskCount(450, 100, 8), 5);
+        // never more tasks than partitions
+        assertEquals(AdaptiveFixedCountScheduler.getTaskCount(10_000, 100, 8), 8);
+    }
+
+    @Test
+    public void testCoalescePartitions()
+    {
+        assertEquals(AdaptiveFixedCountScheduler.coalescePartitions(4, 4), ImmutableList.of(
+                ImmutableList.of(0), ImmutableList.of(1), ImmutableList.of(2), ImmutableList.of(3)));
+        assertEquals(AdaptiveFixedCountScheduler.coalescePartitions(5, 2), ImmutableList.of(
+                ImmutableList.of(0, 1), ImmutableList.of(2, 3, 4)));
+        assertEquals(AdaptiveFixedCountScheduler.coalescePartitions(3, 1), ImmutableList.of(
+                ImmutableList.of(0, 1, 2)));
+    }
+
+    @Test
+    public void testAssignPartitions()
+    {
+        long[] noSplits = new long[6];
+
+        // neighbouring partitions are coalesced up to the target size
+        assertEquals(assignPartitions(new long[] {10, 20, 30, 40, 50, 0}, noSplits, 1, 60, 5), ImmutableList.of(
+                ImmutableList.of(0, 1, 2), ImmutableList.of(3), ImmutableList.of(4, 5)));
+        assertEquals(assignPartitions(new long[] {0, 0, 0, 0, 0, 0}, noSplits, 1, 60, 5), ImmutableList.of(
+                ImmutableList.of(0, 1, 2, 3, 4, 5)));
+        // a partition larger than the target size is read by a single task
+        assertEquals(assignPartitions(new long[] {10, 200, 10, 10, 10, 10}, noSplits, 1, 60, 5), ImmutableList.of(
+                ImmutableList.of(0), ImmutableList.of(1), ImmutableList.of(2, 3, 4, 5)));
+    }
+
+    @Test
+    public void testSplitSkewedPartition()
+    {
+        long[] probeBytes = {10, 200, 10, 10, 10, 10};
+        long[] partitionBytes = {20, 210, 20, 20, 20, 20};
+        List<TaskAssignment> assignments = AdaptiveFixedCountScheduler.assignPartitions(partitionBytes, probeBytes, 8, 60, 5);
+        assertEquals(assignments.stream().map(TaskAssignment::getPartitions).collect(toImmutableList()), ImmutableList.of(
+                ImmutableList.of(0),
+                ImmutableList.of(1), ImmutableList.of(1), ImmutableList.of(1), ImmutableList.of(1),
+                ImmutableList.of(2, 3, 4),
+                ImmutableList.of(5)));
+        for (int split = 0; split < 4; split++) {
+            assertEquals(assignments.get(split + 1).getSplit(), split);
+            assertEquals(assignments.get(split + 1).getSplitCount(), 4);
+        }
+        assertEquals(assignments.get(0).getSplitCount(), 1);
+
+        // a partition can not be split into more parts than there are source tasks
+        assignments = AdaptiveFixedCountScheduler.assignPartitions(partitionBytes, probeBytes, 2, 60, 5);
+        assertEquals(assignments.get(1).getSplitCount(), 2);
+        assertEquals(assignments.size(), 5);
+
+        // the partition is not skewed when it is not much larger than the others
+        assertEquals(assignPartitions(partitionBytes, probeBytes, 8, 60, 50), ImmutableList.of(
+                ImmutableList.of(0), ImmutableList.of(1), ImmutableList.of(2, 3, 4), ImmutableList.of(5)));
+        // or when it is not larger than the target size
+        assertEquals(assignPartitions(partitionBytes, probeBytes, 8, 1000, 5), ImmutableList.of(
+                ImmutableList.of(0, 1, 2, 3, 4, 5)));
+    }
+
+    @Test
+    public void testFindSplittableJoinSource()
+    {
+        PlanBuilder p = new PlanBuilder(new PlanNodeIdAllocator(), createTestMetadataManager());
+        Symbol probeKey = p.symbol("probe_key", BIGINT);
+        Symbol buildKey = p.symbol("build_key", BIGINT);
+        RemoteSourceNode probe = p.remoteSourceNode(ImmutableList.of(new PlanFragmentId("probe")), ImmutableList.of(probeKey), REPARTITION);
+        RemoteSourceNode build = p.remoteSourceNode(ImmutableList.of(new PlanFragmentId("build")), ImmutableList.of(buildKey), REPARTITION);
+
+        JoinNode join = partitionedJoin(p, INNER, p.filter(expression("probe_key > 0"), probe), build);
+        assertEquals(findSplittableJoinSource(p.project(Assignments.identity(probeKey), join)), Optional.of(probe));
+        assertEquals(findSplittableJoinSource(partitionedJoin(p, LEFT, probe, build)), Optional.of(probe));
+        assertEquals(
+                findSplittableJoinSource(p.aggregation(aggregation -> aggregation.source(join).singleGroupingSet(probeKey).step(PARTIAL))),
+                Optional.of(probe));
+
+        // the unmatched build rows of a partition would be produced by every task
+        assertFalse(findSplittableJoinSource(partitionedJoin(p, RIGHT, probe, build)).isPresent());
+        assertFalse(findSplittableJoinSource(partitionedJoin(p, FULL, probe, build)).isPresent());
+        // the aggregation relies on the partitioning of the join output
+        assertFalse(findSplittableJoinSource(p.aggregation(aggregation -> aggregation.source(join).singleGroupingSet(probeKey).step(SINGLE))).isPresent());
+        // the probe side does not read a partitioned source
+        RemoteSourceNode replicatedProbe = p.remoteSourceNode(ImmutableList.of(new PlanFragmentId("probe")), ImmutableList.of(probeKey), REPLICATE);
+        assertFalse(findSplittableJoinSource(partitionedJoin(p, INNER, replicatedProbe, build)).isPresent());
+    }
+
+    private static JoinNode partitionedJoin(PlanBuilder p, JoinNode.Type type, PlanNode probe, PlanNode build)
+    {
+        return p.join(
+                type,
+                probe,
+                build,
+                ImmutableList.of(new JoinNode.EquiJoinClause(p.symbol("probe_key", BIGINT), p.symbol("build_key", BIGINT))),
+                ImmutableList.of(p.symbol("probe_key", BIGINT)),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.empty(),
+                Optional.of(JoinNode.DistributionType.PARTITIONED),
+                ImmutableMap.of());
+    }
+
+    private static List<List<Integer>> assignPartitions(long[] partitionBytes, long[] splittablePartitionBytes, int maxSplitCount, long targetPartitionSizeInBytes, int skewedPartitionFactor)
+    {
+        return AdaptiveFixedCountScheduler.assignPartitions(partitionBytes, splittablePartitionBytes, maxSplitCount, targetPartitionSizeInBytes, skewedPartitionFactor).stream()
+                .map(TaskAssignment::getPartitions)
+                .collect(toImmutableList());
+    }
+
+    @Test
+    public void testScheduleAfterSourceStagesFinish()
+            throws Exception
+    {
+        MockRemoteTaskFactory taskFactory = new MockRemoteTaskFactory(executor, scheduledExecutor);
+        NodeTaskMap nodeTaskMap = new NodeTaskMap(new FinalizerService());
+        SplitSchedulerStats schedulerStats = new SplitSchedulerStats();
+        List<InternalNode> nodes = IntStream.range(0, 4)
+                .mapToObj(i -> new InternalNode("node " + i, URI.create("http://127.0.0.1:" + (8080 + i)), NodeVersion.UNKNOWN, false))
+                .collect(toImmutableList());
+
+        SqlStageExecution sourceStage = createStage(1, createSourceFragment(), taskFactory, nodeTaskMap, schedulerStats);
+        sourceStage.setOutputBuffers(createInitialEmptyOutputBuffers(PARTITIONED).withSpooling());
+        RemoteTask sourceTask = sourceStage.scheduleTask(nodes.get(0), 0, OptionalInt.empty()).get();
+
+        SqlStageExecution stage = createStage(0, createPartitionedFragment(), taskFactory, nodeTaskMap, schedulerStats);
+        stage.readSpooledSources();
+        stage.setOutputBuffers(createInitialEmptyOutputBuffers(ARBITRARY).withSpooling());
+        stage.addExchangeLocations(new PlanFragmentId("source"), ImmutableSet.of(sourceTask), false);
+
+        AdaptiveFixedCountScheduler scheduler = new AdaptiveFixedCountScheduler(stage, nodes, ImmutableList.of(sourceStage), new DataSize(1, MEGABYTE), true, 5, schedulerStats);
+
+        // nothing is scheduled while the source stage runs
+        ScheduleResult result = scheduler.schedule();
+        assertFalse(result.isFinished());
+        assertFalse(result.getBlocked().isDone());
+        assertEquals(result.getBlockedReason(), Optional.of(WAITING_FOR_SOURCE_STAGES));
+        assertTrue(result.getNewTasks().isEmpty());
+
+        // the source stage produced no output, so a single task reads all partitions
+        sourceStage.cancel();
+        result.getBlocked().get(10, SECONDS);
+        result = scheduler.schedule();
+        assertTrue(result.isFinished());
+        MockRemoteTask task = (MockRemoteTask) getOnlyElement(result.getNewTasks());
+        assertEquals(task.getTaskId().getId(), 0);
+        assertEquals(task.getNodeId(), "node 0");
+        assertEquals(task.getPartitionedSplitCount(), 4);
+        assertEquals(schedulerStats.getCoalescedPartitions().getTotalCount(), 3);
+    }
+
+    private SqlStageExecution createStage(int id, PlanFragment fragment, MockRemoteTaskFactory taskFactory, NodeTaskMap nodeTaskMap, SplitSchedulerStats schedulerStats)
+    {
+        StageId stageId = new StageId(new QueryId("query"), id);
+        return createSqlStageExecution(
+                stageId,
+                new MockLocationFactory().createStageLocation(stageId),
+                fragment,
+                ImmutableMap.of(),
+                taskFactory,
+                TEST_SESSION,
+                true,
+                nodeTaskMap,
+                executor,
+                new NoOpFailureDetector(),
+                schedulerStats);
+    }
+
+    private static PlanFragment createSourceFragment()
+    {
+        PlanNode planNode = new ValuesNode(new PlanNodeId("values"), ImmutableList.of(COLUMN), ImmutableList.of());
+        return createFragment("source", planNode, SOURCE_DISTRIBUTION, FIXED_HASH_DISTRIBUTION);
+    }
+
+    private static PlanFragment createPartitionedFragment()
+    {
+        PlanNode planNode = new RemoteSourceNode(
+                new PlanNodeId("exchange"),
+                ImmutableList.of(new PlanFragmentId("source")),
+                ImmutableList.of(COLUMN),
+                Optional.empty(),
+                REPARTITION);
+        return createFragment("partitioned", planNode, FIXED_HASH_DISTRIBUTION, SINGLE_DISTRIBUTION);
+    }
+
+    private static PlanFragment createFragment(String id, PlanNode planNode, PartitioningHandle partitioning, PartitioningHandle outputPartitioning)
+    {
+        return new PlanFragment(
+                new PlanFragmentId(id),
+                planNode,
+                ImmutableMap.of(COLUMN, VARCHAR),
+                partitioning,
+                ImmutableList.of(planNode.getId()),
+                new PartitioningScheme(Partitioning.create(outputPartitioning, ImmutableList.of()), planNode.getOutputSymbols()),
+                ungroupedExecution(),
+                StatsAndCosts.empty(),
+                Optional.empty());
+    }
+}
@@ -0,0 +1,178 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.RowPagesBuilder;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Random;
+
+import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.openjdk.jmh.annotations.Mode.AverageTime;
+
+/**
+ * Compares probing a large join hash table one position at a time against
+ * resolving join positions for a whole probe page in a single batch.
+ */
+@SuppressWarnings("MethodMayBeStatic")
+@State(Scope.Thread)
+@OutputTimeUnit(MILLISECONDS)
+@BenchmarkMode(AverageTime)
+@Fork(value = 2, jvmArgsAppend = "-Xmx16g")
+@Warmup(iterations = 5)
+@Measurement(iterations = 10, time = 2, timeUnit = SECONDS)
+public class BenchmarkJoinProbe
+{
+    private static final int ROWS_PER_PAGE = 1024;
+    private static final int PROBE_ROWS_NUMBER = 1_000_000;
+
+    @Param({"10000000", "30000000"})
+    private int buildRowsNumber = 10_000_000;
+
+    @Param({"false", "true"})
+    private boolean hashEnabled;
+
+    @Param({"0.1", "1"})
+    private double matchRate = 1;
+
+    private LookupSource lookupSource;
+    private List<Page> probePages;
+    private List<Page> probeHashChannelsPages;
+    private OptionalInt probeHashChannel;
+
+    @Setup
+    public void setup()
+    {
+        List<Type> types = ImmutableList.of(BIGINT);
+        List<Integer> hashChannels = ImmutableList.of(0);
+
+        RowPagesBuilder buildPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, types);
+        for (int rows = 0; rows < buildRowsNumber; rows += ROWS_PER_PAGE) {
+            buildPagesBuilder.addSequencePage(Math.min(ROWS_PER_PAGE, buildRowsNumber - rows), rows);
+        }
+        PagesIndex pagesIndex = new PagesIndex.TestingFactory(false).newPagesIndex(buildPagesBuilder.getTypes(), buildRowsNumber);
+        buildPagesBuilder.build().forEach(pagesIndex::addPage);
+        OptionalInt buildHashChannel = buildPagesBuilder.getHashChannel().map(OptionalInt::of).orElse(OptionalInt.empty());
+        lookupSource = pagesIndex.createLookupSourceSupplier(TEST_SESSION, hashChannels, buildHashChannel, Optional.empty(), Optional.empty(), ImmutableList.of()).get();
+
+        Random random = new Random(42);
+        RowPagesBuilder probePagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, types);
+        for (int rows = 0; rows < PROBE_ROWS_NUMBER; rows++) {
+            if (rows % ROWS_PER_PAGE == 0) {
+                probePagesBuilder.pageBreak();
+            }
+            long value = random.nextInt(buildRowsNumber);
+            if (random.nextDouble() > matchRate) {
+                value = -value - 1;
+            }
+            probePagesBuilder.row(value);
+        }
+        probePages = probePagesBuilder.build();
+        probeHashChannelsPages = probePages.stream()
+                .map(page -> new Page(page.getBlock(0)))
+                .collect(ImmutableList.toImmutableList());
+        probeHashChannel = probePagesBuilder.getHashChannel().map(OptionalInt::of).orElse(OptionalInt.empty());
+    }
+
+    @Benchmark
+    public long probePerPosition()
+    {
+        long matches = 0;
+        for (int i = 0; i < probePages.size(); i++) {
+            Page page = probePages.get(i);
+            Page hashChannelsPage = probeHashChannelsPages.get(i);
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                long joinPosition;
+                if (probeHashChannel.isPresent()) {
+                    long rawHash = BIGINT.getLong(page.getBlock(probeHashChannel.getAsInt()), position);
+                    joinPosition = lookupSource.getJoinPosition(position, hashChannelsPage, page, rawHash);
+                }
+                else {
+                    joinPosition = lookupSource.getJoinPosition(position, hashChannelsPage, page);
+                }
+                if (joinPosition >= 0) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public long probeBatched()
+    {
+        long matches = 0;
+        for (int i = 0; i < probePages.size(); i++) {
+            Page page = probePages.get(i);
+            Page hashChannelsPage = probeHashChannelsPages.get(i);
+            int positionCount = page.getPositionCount();
+            int[] positions = new int[positionCount];
+            for (int position = 0; position < positionCount; position++) {
+                positions[position] = position;
+            }
+            long[] joinPositions = new long[positionCount];
+            if (probeHashChannel.isPresent()) {
+                long[] rawHashes = new long[positionCount];
+                for (int position = 0; position < positionCount; position++) {
+                    rawHashes[position] = BIGINT.getLong(page.getBlock(probeHashChannel.getAsInt()), position);
+                }
+                lookupSource.getJoinPositions(positions, positionCount, hashChannelsPage, page, rawHashes, joinPositions);
+            }
+            else {
+                lookupSource.getJoinPositions(positions, positionCount, hashChannelsPage, page, joinPositions);
+            }
+            for (long joinPosition : joinPositions) {
+                if (joinPosition >= 0) {
+                    matches++;
+                }
+            }
+        }
+        return matches;
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkJoinProbe.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -43,6 +43,7 @@ import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.testing.Assertions.assertLessThan;
 import static io.prestosql.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
 import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.operator.ExchangeClient.httpPageBufferClientFactory;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
@@ -124,6 +125,53 @@ public class TestExchangeClient
         assertStatus(status.getPageBufferClientStatuses().get(0), location, "closed", 3, 3, 3, "not scheduled");
     }
 
+    @Test
+    public void testOffHeapPages()
+    {
+        DataSize maxResponseSize = new DataSize(10, Unit.MEGABYTE);
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(maxResponseSize);
+
+        URI location = URI.create("http://localhost:8080");
+        processor.addPage(location, createPage(1));
+        processor.addPage(location, createPage(2));
+        processor.addPage(location, createPage(3));
+        processor.setComplete(location);
+
+        SimpleLocalMemoryContext memoryContext = new SimpleLocalMemoryContext(newSimpleAggregatedMemoryContext(), "test");
+        @SuppressWarnings("resource")
+        ExchangeClient exchangeClient = new ExchangeClient(
+                new DataSize(32, Unit.MEGABYTE),
+                1,
+                httpPageBufferClientFactory(
+                        maxResponseSize,
+                        new Duration(1, TimeUnit.MINUTES),
+                        true,
+                        new TestingHttpClient(processor, scheduler),
+                        scheduler,
+                        pageBufferClientCallbackExecutor),
+                scheduler,
+                memoryContext,
+                true);
+
+        exchangeClient.addLocation(location);
+        exchangeClient.noMoreLocations();
+
+        assertPageEquals(getNextPage(exchangeClient), createPage(1));
+
+        // all pages arrive in one response, so the other two are buffered off heap and accounted
+        ExchangeClientStatus status = exchangeClient.getStatus();
+        assertEquals(status.getBufferedPages(), 2);
+        assertTrue(status.getBufferedBytes() > 0);
+        assertEquals(memoryContext.getBytes(), status.getBufferedBytes());
+
+        assertPageEquals(getNextPage(exchangeClient), createPage(2));
+        assertPageEquals(getNextPage(exchangeClient), createPage(3));
+        assertNull(getNextPage(exchangeClient));
+        assertEquals(exchangeClient.isClosed(), true);
+        assertEquals(exchangeClient.getStatus().getBufferedBytes(), 0);
+        assertEquals(memoryContext.getBytes(), 0);
+    }
+
     @Test(timeOut = 10000)
     public void testAddLocation()
             throws Exception
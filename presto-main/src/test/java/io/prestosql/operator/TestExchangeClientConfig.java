@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.http.client.HttpClientConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
+import io.prestosql.operator.ExchangeClientConfig.ExchangeTransport;
 import org.testng.annotations.Test;
 
 import java.util.Map;
@@ -40,7 +41,10 @@ public class TestExchangeClientConfig
                 .setMaxResponseSize(new HttpClientConfig().getMaxContentLength())
                 .setPageBufferClientMaxCallbackThreads(25)
                 .setClientThreads(25)
-                .setAcknowledgePages(true));
+                .setAcknowledgePages(true)
+                .setTransport(ExchangeTransport.HTTP)
+                .setStreamingPort(8081)
+                .setOffHeapPagesEnabled(false));
     }
 
     @Test
@@ -55,6 +59,9 @@ public class TestExchangeClientConfig
                 .put("exchange.client-threads", "2")
                 .put("exchange.page-buffer-client.max-callback-threads", "16")
                 .put("exchange.acknowledge-pages", "false")
+                .put("exchange.transport", "STREAMING")
+                .put("exchange.streaming.port", "9091")
+                .put("exchange.off-heap-pages-enabled", "true")
                 .build();
 
         ExchangeClientConfig expected = new ExchangeClientConfig()
@@ -65,7 +72,10 @@ public class TestExchangeClientConfig
                 .setMaxResponseSize(new DataSize(1, Unit.MEGABYTE))
                 .setClientThreads(2)
                 .setPageBufferClientMaxCallbackThreads(16)
-                .setAcknowledgePages(false);
+                .setAcknowledgePages(false)
+                .setTransport(ExchangeTransport.STREAMING)
+                .setStreamingPort(9091)
+                .setOffHeapPagesEnabled(true);
 
         assertFullMapping(properties, expected);
     }
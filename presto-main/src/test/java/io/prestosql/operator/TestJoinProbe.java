@@ -0,0 +1,94 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.RowPagesBuilder;
+import io.prestosql.operator.JoinProbe.JoinProbeFactory;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.function.Supplier;
+
+import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.operator.PartitionedLookupSource.createPartitionedLookupSourceSupplier;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestJoinProbe
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final List<Integer> HASH_CHANNELS = ImmutableList.of(0, 1);
+
+    @DataProvider
+    public static Object[][] hashEnabledAndPartitionCount()
+    {
+        return new Object[][] {{false, 1}, {true, 1}, {false, 4}, {true, 4}};
+    }
+
+    @Test(dataProvider = "hashEnabledAndPartitionCount")
+    public void testBatchedJoinPositionsMatchSinglePositionLookups(boolean hashEnabled, int partitionCount)
+    {
+        RowPagesBuilder buildPagesBuilder = rowPagesBuilder(hashEnabled, HASH_CHANNELS, TYPES);
+        for (int i = 0; i < 1000; i++) {
+            // duplicate keys exercise position links
+            buildPagesBuilder.row((long) (i % 300), String.valueOf(i % 300));
+        }
+        buildPagesBuilder.row(null, "0");
+        OptionalInt buildHashChannel = buildPagesBuilder.getHashChannel().map(OptionalInt::of).orElse(OptionalInt.empty());
+        PagesIndex pagesIndex = new PagesIndex.TestingFactory(false).newPagesIndex(buildPagesBuilder.getTypes(), 1001);
+        buildPagesBuilder.build().forEach(pagesIndex::addPage);
+        Supplier<LookupSource> partition = pagesIndex.createLookupSourceSupplier(TEST_SESSION, HASH_CHANNELS, buildHashChannel, Optional.empty(), Optional.empty(), ImmutableList.of());
+        ImmutableList.Builder<Supplier<LookupSource>> partitions = ImmutableList.builder();
+        for (int i = 0; i < partitionCount; i++) {
+            partitions.add(partition);
+        }
+        LookupSource lookupSource = createPartitionedLookupSourceSupplier(partitions.build(), TYPES, false).getLookupSource();
+
+        RowPagesBuilder probePagesBuilder = rowPagesBuilder(hashEnabled, HASH_CHANNELS, TYPES);
+        for (int i = -50; i < 400; i++) {
+            probePagesBuilder.row((long) i, String.valueOf(i));
+        }
+        probePagesBuilder.row(null, "1");
+        probePagesBuilder.row(1L, null);
+        Page probePage = probePagesBuilder.build().get(0);
+        OptionalInt probeHashChannel = probePagesBuilder.getHashChannel().map(OptionalInt::of).orElse(OptionalInt.empty());
+        Page hashChannelsPage = new Page(probePage.getBlock(0), probePage.getBlock(1));
+
+        JoinProbe probe = new JoinProbeFactory(new int[] {0, 1}, HASH_CHANNELS, probeHashChannel).createJoinProbe(probePage);
+        int matches = 0;
+        while (probe.advanceNextPosition()) {
+            int position = probe.getPosition();
+            long expected = -1;
+            if (!probePage.getBlock(0).isNull(position) && !probePage.getBlock(1).isNull(position)) {
+                expected = lookupSource.getJoinPosition(position, hashChannelsPage, probePage);
+            }
+            long actual = probe.getCurrentJoinPosition(lookupSource);
+            assertEquals(actual, expected, "position " + position);
+            if (actual >= 0) {
+                matches++;
+            }
+        }
+        assertEquals(matches, 300);
+        assertTrue(lookupSource.supportsBatchedJoinPositions());
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.SortOrder;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanNodeId;
+import io.prestosql.testing.MaterializedResult;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.prestosql.RowPagesBuilder.rowPagesBuilder;
+import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.operator.OperatorAssertion.toMaterializedResult;
+import static io.prestosql.operator.OperatorAssertion.toPages;
+import static io.prestosql.spi.block.SortOrder.ASC_NULLS_LAST;
+import static io.prestosql.spi.block.SortOrder.DESC_NULLS_FIRST;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.INNER;
+import static io.prestosql.sql.planner.plan.JoinNode.Type.LEFT;
+import static io.prestosql.testing.MaterializedResult.resultBuilder;
+import static io.prestosql.testing.TestingTaskContext.createTaskContext;
+import static io.prestosql.testing.assertions.Assert.assertEquals;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestMergeJoinOperator
+{
+    private static final List<Type> LEFT_TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final List<Type> RIGHT_TYPES = ImmutableList.of(VARCHAR, BIGINT);
+
+    private ExecutorService executor;
+    private ScheduledExecutorService scheduledExecutor;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        scheduledExecutor = newScheduledThreadPool(2, daemonThreadsNamed("test-scheduledExecutor-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+        scheduledExecutor.shutdownNow();
+    }
+
+    @Test
+    public void testInnerJoin()
+    {
+        List<Page> left = rowPagesBuilder(LEFT_TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .row(2L, "c")
+                .pageBreak()
+                .row(3L, "d")
+                .row(5L, "e")
+                .row(null, "f")
+                .build();
+        // the group of key 2 spans pages
+        List<Page> right = rowPagesBuilder(RIGHT_TYPES)
+                .row("x", 0L)
+                .row("y", 2L)
+                .pageBreak()
+                .row("z", 2L)
+                .row("w", 5L)
+                .row("v", 6L)
+                .row("u", null)
+                .build();
+
+        MaterializedResult expected = resultBuilder(TEST_SESSION, BIGINT, VARCHAR, VARCHAR)
+                .row(2L, "b", "y")
+                .row(2L, "b", "z")
+                .row(2L, "c", "y")
+                .row(2L, "c", "z")
+                .row(5L, "e", "w")
+                .build();
+
+        assertJoin(INNER, ASC_NULLS_LAST, left, right, expected);
+    }
+
+    @Test
+    public void testLeftJoin()
+    {
+        List<Page> left = rowPagesBuilder(LEFT_TYPES)
+                .row(1L, "a")
+                .row(2L, "b")
+                .row(2L, "c")
+                .row(3L, "d")
+                .row(7L, "e")
+                .row(null, "f")
+                .build();
+        List<Page> right = rowPagesBuilder(RIGHT_TYPES)
+                .row("y", 2L)
+                .row("z", 3L)
+                .row("w", 5L)
+                .build();
+
+        MaterializedResult expected = resultBuilder(TEST_SESSION, BIGINT, VARCHAR, VARCHAR)
+                .row(1L, "a", null)
+                .row(2L, "b", "y")
+                .row(2L, "c", "y")
+                .row(3L, "d", "z")
+                .row(7L, "e", null)
+                .row(null, "f", null)
+                .build();
+
+        assertJoin(LEFT, ASC_NULLS_LAST, left, right, expected);
+    }
+
+    @Test
+    public void testDescendingOrder()
+    {
+        List<Page> left = rowPagesBuilder(LEFT_TYPES)
+                .row(null, "a")
+                .row(9L, "b")
+                .row(4L, "c")
+                .row(1L, "d")
+                .build();
+        List<Page> right = rowPagesBuilder(RIGHT_TYPES)
+                .row("x", null)
+                .row("y", 4L)
+                .row("z", 4L)
+                .row("w", 1L)
+                .build();
+
+        MaterializedResult expected = resultBuilder(TEST_SESSION, BIGINT, VARCHAR, VARCHAR)
+                .row(null, "a", null)
+                .row(9L, "b", null)
+                .row(4L, "c", "y")
+                .row(4L, "c", "z")
+                .row(1L, "d", "w")
+                .build();
+
+        assertJoin(LEFT, DESC_NULLS_FIRST, left, right, expected);
+    }
+
+    @Test
+    public void testInnerJoinFinishesWhenRightIsExhausted()
+    {
+        AtomicBoolean rightClosed = new AtomicBoolean();
+        MergeJoinOperator operator = createOperator(
+                INNER,
+                ASC_NULLS_LAST,
+                rowPagesBuilder(RIGHT_TYPES).row("x", 1L).build(),
+                () -> rightClosed.set(true));
+
+        assertTrue(operator.needsInput());
+        operator.addInput(rowPagesBuilder(LEFT_TYPES).row(1L, "a").row(2L, "b").build().get(0));
+        Page output = operator.getOutput();
+        assertEquals(output.getPositionCount(), 1);
+        assertTrue(operator.isFinished());
+        assertTrue(rightClosed.get());
+    }
+
+    private void assertJoin(JoinNode.Type joinType, SortOrder sortOrder, List<Page> left, List<Page> right, MaterializedResult expected)
+    {
+        MergeJoinOperator operator = createOperator(joinType, sortOrder, right, () -> {});
+        List<Page> output = toPages(operator, left.iterator());
+        MaterializedResult actual = toMaterializedResult(TEST_SESSION, expected.getTypes(), output);
+        assertEquals(actual.getMaterializedRows(), expected.getMaterializedRows());
+    }
+
+    private MergeJoinOperator createOperator(JoinNode.Type joinType, SortOrder sortOrder, List<Page> right, Runnable rightSourceCloser)
+    {
+        DriverContext driverContext = createTaskContext(executor, scheduledExecutor, TEST_SESSION)
+                .addPipelineContext(0, true, true, false)
+                .addDriverContext();
+        OperatorContext operatorContext = driverContext.addOperatorContext(0, new PlanNodeId("test"), MergeJoinOperator.class.getSimpleName());
+        return new MergeJoinOperator(
+                operatorContext,
+                joinType,
+                LEFT_TYPES,
+                ImmutableList.of(0),
+                ImmutableList.of(0, 1),
+                RIGHT_TYPES,
+                ImmutableList.of(1),
+                ImmutableList.of(0),
+                ImmutableList.of(sortOrder),
+                WorkProcessor.fromIterable(right),
+                rightSourceCloser);
+    }
+}
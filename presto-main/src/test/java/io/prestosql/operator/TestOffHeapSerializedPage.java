@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.spi.Page;
+import org.testng.annotations.Test;
+
+import static io.prestosql.block.BlockAssertions.createLongSequenceBlock;
+import static io.prestosql.block.BlockAssertions.createStringSequenceBlock;
+import static io.prestosql.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
+import static io.prestosql.operator.PageAssertions.assertPageEquals;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestOffHeapSerializedPage
+{
+    private static final PagesSerde PAGES_SERDE = testingPagesSerde();
+
+    @Test
+    public void testRoundTrip()
+    {
+        Page page = new Page(createLongSequenceBlock(0, 100), createStringSequenceBlock(0, 100));
+        SerializedPage serializedPage = PAGES_SERDE.serialize(page);
+
+        OffHeapSerializedPage offHeapPage = OffHeapSerializedPage.copyOf(serializedPage);
+        assertFalse(offHeapPage.isFreed());
+        assertTrue(offHeapPage.getRetainedSizeInBytes() > serializedPage.getSizeInBytes());
+
+        SerializedPage copy = offHeapPage.toSerializedPage();
+        assertTrue(offHeapPage.isFreed());
+        assertNotNull(copy.getSlice().getBase(), "page must be copied back into the heap");
+        assertEquals(copy.getSlice(), serializedPage.getSlice());
+        assertEquals(copy.getPageCodecMarkers(), serializedPage.getPageCodecMarkers());
+        assertEquals(copy.getPositionCount(), serializedPage.getPositionCount());
+        assertEquals(copy.getUncompressedSizeInBytes(), serializedPage.getUncompressedSizeInBytes());
+        assertPageEquals(asList(BIGINT, VARCHAR), PAGES_SERDE.deserialize(copy), page);
+    }
+
+    @Test
+    public void testFree()
+    {
+        OffHeapSerializedPage offHeapPage = OffHeapSerializedPage.copyOf(PAGES_SERDE.serialize(new Page(createLongSequenceBlock(0, 10))));
+        offHeapPage.free();
+        assertTrue(offHeapPage.isFreed());
+        // freeing twice is a no-op
+        offHeapPage.free();
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class, expectedExceptionsMessageRegExp = "page already freed")
+    public void testReadAfterFree()
+    {
+        OffHeapSerializedPage offHeapPage = OffHeapSerializedPage.copyOf(PAGES_SERDE.serialize(new Page(createLongSequenceBlock(0, 10))));
+        offHeapPage.free();
+        offHeapPage.toSerializedPage();
+    }
+}
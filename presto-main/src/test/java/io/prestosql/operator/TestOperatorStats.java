@@ -30,7 +30,7 @@ import static org.testng.Assert.assertNull;
 public class TestOperatorStats
 {
     private static final SplitOperatorInfo NON_MERGEABLE_INFO = new SplitOperatorInfo("some_info");
-    private static final PartitionedOutputInfo MERGEABLE_INFO = new PartitionedOutputInfo(1, 2, 1024);
+    private static final PartitionedOutputInfo MERGEABLE_INFO = new PartitionedOutputInfo(1, 2, 1024, new long[] {1, 0, 5});
 
     public static final OperatorStats EXPECTED = new OperatorStats(
             0,
@@ -75,6 +75,9 @@ public class TestOperatorStats
             new DataSize(24, BYTE),
             new DataSize(25, BYTE),
             new DataSize(26, BYTE),
+            new Duration(27, NANOSECONDS),
+            new DataSize(28, BYTE),
+            new DataSize(29, BYTE),
             Optional.empty(),
             NON_MERGEABLE_INFO);
 
@@ -121,6 +124,9 @@ public class TestOperatorStats
             new DataSize(24, BYTE),
             new DataSize(25, BYTE),
             new DataSize(26, BYTE),
+            new Duration(27, NANOSECONDS),
+            new DataSize(28, BYTE),
+            new DataSize(29, BYTE),
             Optional.empty(),
             MERGEABLE_INFO);
 
@@ -176,6 +182,9 @@ public class TestOperatorStats
         assertEquals(actual.getPeakRevocableMemoryReservation(), new DataSize(24, BYTE));
         assertEquals(actual.getPeakTotalMemoryReservation(), new DataSize(25, BYTE));
         assertEquals(actual.getSpilledDataSize(), new DataSize(26, BYTE));
+        assertEquals(actual.getSerdeCpu(), new Duration(27, NANOSECONDS));
+        assertEquals(actual.getSerdeUncompressedDataSize(), new DataSize(28, BYTE));
+        assertEquals(actual.getSerdeSerializedDataSize(), new DataSize(29, BYTE));
         assertEquals(actual.getInfo().getClass(), SplitOperatorInfo.class);
         assertEquals(((SplitOperatorInfo) actual.getInfo()).getSplitInfo(), NON_MERGEABLE_INFO.getSplitInfo());
     }
@@ -223,6 +232,9 @@ public class TestOperatorStats
         assertEquals(actual.getPeakRevocableMemoryReservation(), new DataSize(24, BYTE));
         assertEquals(actual.getPeakTotalMemoryReservation(), new DataSize(25, BYTE));
         assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 26, BYTE));
+        assertEquals(actual.getSerdeCpu(), new Duration(3 * 27, NANOSECONDS));
+        assertEquals(actual.getSerdeUncompressedDataSize(), new DataSize(3 * 28, BYTE));
+        assertEquals(actual.getSerdeSerializedDataSize(), new DataSize(3 * 29, BYTE));
         assertNull(actual.getInfo());
     }
 
@@ -269,7 +281,12 @@ public class TestOperatorStats
         assertEquals(actual.getPeakRevocableMemoryReservation(), new DataSize(24, BYTE));
         assertEquals(actual.getPeakTotalMemoryReservation(), new DataSize(25, BYTE));
         assertEquals(actual.getSpilledDataSize(), new DataSize(3 * 26, BYTE));
+        assertEquals(actual.getSerdeCpu(), new Duration(3 * 27, NANOSECONDS));
+        assertEquals(actual.getSerdeUncompressedDataSize(), new DataSize(3 * 28, BYTE));
+        assertEquals(actual.getSerdeSerializedDataSize(), new DataSize(3 * 29, BYTE));
         assertEquals(actual.getInfo().getClass(), PartitionedOutputInfo.class);
         assertEquals(((PartitionedOutputInfo) actual.getInfo()).getPagesAdded(), 3 * MERGEABLE_INFO.getPagesAdded());
+        assertEquals(((PartitionedOutputInfo) actual.getInfo()).getPartitionRowCounts(), new long[] {3, 0, 15});
+        assertEquals(((PartitionedOutputInfo) actual.getInfo()).getMaxPartitionRowCount(), 15);
     }
 }
@@ -20,6 +20,7 @@ import io.prestosql.execution.buffer.OutputBuffers;
 import io.prestosql.execution.buffer.PagesSerdeFactory;
 import io.prestosql.execution.buffer.PartitionedOutputBuffer;
 import io.prestosql.memory.context.SimpleLocalMemoryContext;
+import io.prestosql.operator.PartitionedOutputOperator.PartitionedOutputInfo;
 import io.prestosql.operator.exchange.LocalPartitionGenerator;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.block.Block;
@@ -38,12 +39,14 @@ import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.function.Function;
+import java.util.stream.LongStream;
 
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
 import static io.prestosql.block.BlockAssertions.createLongDictionaryBlock;
+import static io.prestosql.block.BlockAssertions.createLongRepeatBlock;
 import static io.prestosql.block.BlockAssertions.createLongSequenceBlock;
 import static io.prestosql.block.BlockAssertions.createRLEBlock;
 import static io.prestosql.execution.buffer.BufferState.OPEN;
@@ -55,6 +58,7 @@ import static io.prestosql.spi.type.BigintType.BIGINT;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static java.util.concurrent.Executors.newScheduledThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestPartitionedOutputOperator
 {
@@ -178,6 +182,52 @@ public class TestPartitionedOutputOperator
         assertEquals(operatorContext.getOutputPositions().getTotalCount(), PAGE_COUNT * PARTITION_COUNT * TESTING_PAGE_WITH_NULL_BLOCK.getPositionCount());
     }
 
+    @Test
+    public void testPartitionRowCounts()
+    {
+        PartitionedOutputOperator partitionedOutputOperator = createPartitionedOutputOperator(false);
+        // every row of the second page has the same key
+        partitionedOutputOperator.addInput(TESTING_PAGE);
+        partitionedOutputOperator.addInput(new Page(TESTING_RLE_BLOCK));
+        partitionedOutputOperator.finish();
+
+        PartitionedOutputInfo info = partitionedOutputOperator.getInfo();
+        long[] partitionRowCounts = info.getPartitionRowCounts();
+        assertEquals(partitionRowCounts.length, PARTITION_COUNT);
+        assertEquals(LongStream.of(partitionRowCounts).sum(), 2 * POSITIONS_PER_PAGE);
+        assertEquals(info.getRowsAdded(), 2 * POSITIONS_PER_PAGE);
+        assertTrue(info.getMaxPartitionRowCount() >= POSITIONS_PER_PAGE);
+    }
+
+    @Test
+    public void testPagesOfSkewedPartitionStayNearMaxSize()
+    {
+        PartitionedOutputOperator partitionedOutputOperator = createPartitionedOutputOperator(false);
+        // every row goes to the same partition, whose pages hold about 10kB, or a little over 1000 rows
+        Page page = new Page(createLongRepeatBlock(42, POSITIONS_PER_PAGE));
+        for (int i = 0; i < PAGE_COUNT; i++) {
+            partitionedOutputOperator.addInput(page);
+        }
+        partitionedOutputOperator.finish();
+
+        PartitionedOutputInfo info = partitionedOutputOperator.getInfo();
+        assertEquals(info.getRowsAdded(), PAGE_COUNT * POSITIONS_PER_PAGE);
+        assertTrue(info.getPagesAdded() >= 8, "rows were appended far beyond the page size: " + info.getPagesAdded() + " pages");
+    }
+
+    @Test
+    public void testPartitionRowCountsWithReplication()
+    {
+        PartitionedOutputOperator partitionedOutputOperator = createPartitionedOutputOperator(true);
+        partitionedOutputOperator.addInput(TESTING_PAGE_WITH_NULL_BLOCK);
+        partitionedOutputOperator.finish();
+
+        // the replicated rows are counted for every partition
+        long[] partitionRowCounts = partitionedOutputOperator.getInfo().getPartitionRowCounts();
+        assertEquals(LongStream.of(partitionRowCounts).min().getAsLong(), POSITIONS_PER_PAGE);
+        assertEquals(LongStream.of(partitionRowCounts).max().getAsLong(), POSITIONS_PER_PAGE);
+    }
+
     private PartitionedOutputOperator createPartitionedOutputOperator(boolean shouldReplicate)
     {
         PartitionFunction partitionFunction = new LocalPartitionGenerator(new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0}), PARTITION_COUNT);
@@ -0,0 +1,264 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.units.DataSize;
+import io.prestosql.execution.StageId;
+import io.prestosql.execution.TaskId;
+import io.prestosql.execution.buffer.OutputBuffers.OutputBufferId;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.operator.PageBufferClient.ClientCallback;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spooling.LocalSpoolingStorage;
+import io.prestosql.spooling.SpooledOutputManifest;
+import io.prestosql.spooling.SpooledOutputManifest.FileRange;
+import io.prestosql.spooling.SpoolingStorage.TaskOutputWriter;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.block.BlockAssertions.createLongSequenceBlock;
+import static io.prestosql.execution.buffer.PagesSerdeUtil.writeSerializedPage;
+import static io.prestosql.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
+import static io.prestosql.operator.PageAssertions.assertPageEquals;
+import static io.prestosql.operator.SpoolingPageBufferClient.isSpooledOutputLocation;
+import static io.prestosql.operator.SpoolingPageBufferClient.spooledOutputLocation;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spooling.SpooledOutputManifest.MANIFEST_FILE_NAME;
+import static io.prestosql.spooling.SpooledOutputManifest.dataFileName;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestSpoolingPageBufferClient
+{
+    private static final PagesSerde PAGES_SERDE = testingPagesSerde();
+    private static final TaskId TASK_ID = new TaskId(new StageId(new QueryId("query"), 1), 0);
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService executor;
+    private File spoolingPath;
+    private LocalSpoolingStorage storage;
+
+    @BeforeClass
+    public void setUp()
+    {
+        scheduler = newScheduledThreadPool(4, daemonThreadsNamed("test-%s"));
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @BeforeMethod
+    public void createStorage()
+    {
+        spoolingPath = Files.createTempDir();
+        storage = new LocalSpoolingStorage(Optional.of(spoolingPath.toPath()));
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void removeStorage()
+            throws IOException
+    {
+        deleteRecursively(spoolingPath.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testLocation()
+    {
+        URI location = spooledOutputLocation(TASK_ID, new OutputBufferId(3));
+        assertEquals(location.toString(), "spool:/v1/task/query.1.0/results/3");
+        assertTrue(isSpooledOutputLocation(location));
+        assertFalse(isSpooledOutputLocation(URI.create("http://localhost:8080/v1/task/query.1.0/results/3")));
+    }
+
+    @Test
+    public void testReadCommittedOutput()
+            throws Exception
+    {
+        Page first = new Page(createLongSequenceBlock(0, 100));
+        Page second = new Page(createLongSequenceBlock(100, 200));
+        Page other = new Page(createLongSequenceBlock(200, 300));
+
+        TestingClientCallback callback = new TestingClientCallback();
+        // a tiny response size reads a single page per request
+        SpoolingPageBufferClient client = createClient(new OutputBufferId(1), new DataSize(1, BYTE), callback);
+
+        // nothing is read until the output is committed
+        client.scheduleRequest();
+        assertSame(callback.awaitEvent(), client);
+        assertTrue(callback.getPages().isEmpty());
+        assertEquals(client.getStatus().getHttpRequestState(), "waiting for commit");
+
+        // the output of the second buffer follows the output of the first buffer in the same file
+        commitOutput(ImmutableList.of(other, first, second), ImmutableMap.of(0, 1, 1, 2));
+
+        client.scheduleRequest();
+        assertSame(callback.awaitEvent(), client);
+        assertEquals(client.getStatus().getHttpRequestState(), "reading");
+        client.scheduleRequest();
+        assertSame(callback.awaitEvent(), client);
+        assertEquals(callback.getFinishedClients(), 1);
+        assertEquals(client.getStatus().getState(), "closed");
+
+        List<SerializedPage> pages = callback.getPages();
+        assertEquals(pages.size(), 2);
+        assertPageEquals(ImmutableList.of(BIGINT), PAGES_SERDE.deserialize(pages.get(0)), first);
+        assertPageEquals(ImmutableList.of(BIGINT), PAGES_SERDE.deserialize(pages.get(1)), second);
+        assertNull(callback.getFailure());
+    }
+
+    @Test
+    public void testBufferWithoutOutput()
+            throws Exception
+    {
+        commitOutput(ImmutableList.of(new Page(createLongSequenceBlock(0, 10))), ImmutableMap.of(0, 1));
+
+        TestingClientCallback callback = new TestingClientCallback();
+        SpoolingPageBufferClient client = createClient(new OutputBufferId(1), new DataSize(1, MEGABYTE), callback);
+        client.scheduleRequest();
+        assertSame(callback.awaitEvent(), client);
+        assertTrue(callback.getPages().isEmpty());
+        assertEquals(callback.getFinishedClients(), 1);
+    }
+
+    private SpoolingPageBufferClient createClient(OutputBufferId bufferId, DataSize maxResponseSize, ClientCallback callback)
+    {
+        return new SpoolingPageBufferClient(spooledOutputLocation(TASK_ID, bufferId), storage, maxResponseSize, callback, scheduler, executor);
+    }
+
+    /**
+     * Writes the pages to a single file, and assigns each buffer the given number of pages in order.
+     */
+    private void commitOutput(List<Page> pages, ImmutableMap<Integer, Integer> pagesPerBuffer)
+            throws IOException
+    {
+        TaskOutputWriter writer = storage.createTaskOutput(TASK_ID);
+        List<Long> pageEnds = new ArrayList<>();
+        try (OutputStreamSliceOutput output = new OutputStreamSliceOutput(writer.createFile(dataFileName(0)))) {
+            for (Page page : pages) {
+                writeSerializedPage(output, PAGES_SERDE.serialize(page));
+                pageEnds.add(output.longSize());
+            }
+        }
+
+        ImmutableMap.Builder<Integer, FileRange> ranges = ImmutableMap.builder();
+        int page = 0;
+        for (int bufferId = 0; bufferId < pagesPerBuffer.size(); bufferId++) {
+            long start = page == 0 ? 0 : pageEnds.get(page - 1);
+            page += pagesPerBuffer.get(bufferId);
+            ranges.put(bufferId, new FileRange(0, start, pageEnds.get(page - 1)));
+        }
+        try (OutputStream output = writer.createFile(MANIFEST_FILE_NAME)) {
+            new SpooledOutputManifest(ranges.build()).writeTo(output);
+        }
+        assertTrue(writer.commit());
+    }
+
+    private static class TestingClientCallback
+            implements ClientCallback
+    {
+        private final BlockingQueue<PageBufferClient> events = new LinkedBlockingQueue<>();
+        private final List<SerializedPage> pages = Collections.synchronizedList(new ArrayList<>());
+        private volatile int finishedClients;
+        private volatile Throwable failure;
+
+        public PageBufferClient awaitEvent()
+                throws InterruptedException
+        {
+            PageBufferClient client = events.poll(10, SECONDS);
+            assertTrue(client != null, "timed out waiting for client");
+            return client;
+        }
+
+        public List<SerializedPage> getPages()
+        {
+            return ImmutableList.copyOf(pages);
+        }
+
+        public int getFinishedClients()
+        {
+            return finishedClients;
+        }
+
+        public Throwable getFailure()
+        {
+            return failure;
+        }
+
+        @Override
+        public boolean addPages(PageBufferClient client, List<SerializedPage> pages)
+        {
+            this.pages.addAll(pages);
+            return true;
+        }
+
+        @Override
+        public void requestComplete(PageBufferClient client)
+        {
+            events.add(client);
+        }
+
+        @Override
+        public void clientFinished(PageBufferClient client)
+        {
+            finishedClients++;
+            events.add(client);
+        }
+
+        @Override
+        public void clientFailed(PageBufferClient client, Throwable cause)
+        {
+            failure = cause;
+            events.add(client);
+        }
+    }
+}
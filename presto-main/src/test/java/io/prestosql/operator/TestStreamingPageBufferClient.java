@@ -0,0 +1,367 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.http.client.testing.TestingHttpClient;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.operator.PageBufferClient.ClientCallback;
+import io.prestosql.spi.Page;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousChannelGroup;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static io.prestosql.block.BlockAssertions.createLongSequenceBlock;
+import static io.prestosql.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
+import static io.prestosql.operator.ExchangeClient.httpPageBufferClientFactory;
+import static io.prestosql.operator.ExchangeStreamProtocol.ACCEPTED;
+import static io.prestosql.operator.ExchangeStreamProtocol.CLOSE;
+import static io.prestosql.operator.ExchangeStreamProtocol.CLOSED;
+import static io.prestosql.operator.ExchangeStreamProtocol.OPEN;
+import static io.prestosql.operator.ExchangeStreamProtocol.POLL;
+import static io.prestosql.operator.ExchangeStreamProtocol.REJECTED;
+import static io.prestosql.operator.ExchangeStreamProtocol.allocateFrameHeader;
+import static io.prestosql.operator.ExchangeStreamProtocol.emptyFrame;
+import static io.prestosql.operator.ExchangeStreamProtocol.messageFrame;
+import static io.prestosql.operator.ExchangeStreamProtocol.resultsFrame;
+import static io.prestosql.operator.PageAssertions.assertPageEquals;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestStreamingPageBufferClient
+{
+    private static final PagesSerde PAGES_SERDE = testingPagesSerde();
+    private static final DataSize MAX_RESPONSE_SIZE = new DataSize(1, MEGABYTE);
+
+    private ScheduledExecutorService scheduler;
+    private ExecutorService executor;
+    private AsynchronousChannelGroup channelGroup;
+
+    @BeforeClass
+    public void setUp()
+            throws IOException
+    {
+        scheduler = newScheduledThreadPool(4, daemonThreadsNamed("test-%s"));
+        executor = newCachedThreadPool(daemonThreadsNamed("test-executor-%s"));
+        channelGroup = AsynchronousChannelGroup.withFixedThreadPool(2, daemonThreadsNamed("test-channel-%s"));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+        channelGroup.shutdownNow();
+    }
+
+    @Test
+    public void testStreaming()
+            throws Exception
+    {
+        Page page = new Page(createLongSequenceBlock(0, 1000));
+        try (TestingStreamServer server = new TestingStreamServer(false, ImmutableList.of(page, page))) {
+            URI location = URI.create("http://localhost:8080/v1/task/0.0.0.0/results/0");
+            TestingClientCallback callback = new TestingClientCallback();
+            StreamingPageBufferClient client = createClient(location, server.getPort(), callback, new MockExchangeRequestProcessor(MAX_RESPONSE_SIZE));
+
+            client.scheduleRequest();
+            assertSame(callback.awaitEvent(), client);
+            assertEquals(callback.getPages().size(), 2);
+            for (SerializedPage serializedPage : callback.getPages()) {
+                // the pages are received into the heap
+                assertNotNull(serializedPage.getSlice().getBase());
+                assertPageEquals(ImmutableList.of(BIGINT), PAGES_SERDE.deserialize(serializedPage), page);
+            }
+
+            // the buffer is complete, so the next request closes it
+            client.scheduleRequest();
+            assertSame(callback.awaitEvent(), client);
+            assertEquals(callback.getFinishedClients(), 1);
+            assertEquals(client.getStatus().getState(), "closed");
+            assertEquals(server.getRequests(), ImmutableList.of("OPEN " + location, "POLL 0", "CLOSE"));
+        }
+    }
+
+    @Test
+    public void testResultsExceedingMaxFrameSize()
+            throws Exception
+    {
+        Page page = new Page(createLongSequenceBlock(0, 1000));
+        try (TestingStreamServer server = new TestingStreamServer(false, ImmutableList.of(page))) {
+            URI location = URI.create("http://localhost:8080/v1/task/0.0.0.0/results/0");
+            TestingClientCallback callback = new TestingClientCallback();
+            StreamingPageBufferClient client = createClient(location, server.getPort(), new DataSize(1, KILOBYTE), callback, new MockExchangeRequestProcessor(MAX_RESPONSE_SIZE));
+
+            // the page is not read, and the exchange fails
+            client.scheduleRequest();
+            assertSame(callback.awaitEvent(), client);
+            assertTrue(callback.getPages().isEmpty());
+            assertTrue(callback.getFailure() instanceof PageTransportErrorException);
+            assertTrue(callback.getFailure().getMessage().contains("exceed maximum"), callback.getFailure().getMessage());
+        }
+    }
+
+    @Test
+    public void testFallbackWhenRejected()
+            throws Exception
+    {
+        try (TestingStreamServer server = new TestingStreamServer(true, ImmutableList.of())) {
+            assertFallback(server.getPort());
+        }
+    }
+
+    @Test
+    public void testFallbackWhenNotServed()
+            throws Exception
+    {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        assertFallback(port);
+    }
+
+    private void assertFallback(int port)
+            throws Exception
+    {
+        Page page = new Page(createLongSequenceBlock(0, 10));
+        URI location = URI.create("http://localhost:8080/v1/task/0.0.0.0/results/0");
+        MockExchangeRequestProcessor processor = new MockExchangeRequestProcessor(MAX_RESPONSE_SIZE);
+        processor.addPage(location, page);
+        processor.setComplete(location);
+
+        TestingClientCallback callback = new TestingClientCallback();
+        StreamingPageBufferClient client = createClient(location, port, callback, processor);
+
+        // the pages are fetched over HTTP, but reported for the streaming client
+        client.scheduleRequest();
+        assertSame(callback.awaitEvent(), client);
+        assertEquals(callback.getPages().size(), 1);
+        assertPageEquals(ImmutableList.of(BIGINT), PAGES_SERDE.deserialize(callback.getPages().get(0)), page);
+
+        client.scheduleRequest();
+        assertSame(callback.awaitEvent(), client);
+        client.scheduleRequest();
+        assertSame(callback.awaitEvent(), client);
+        assertEquals(callback.getFinishedClients(), 1);
+        assertNull(callback.getFailure());
+    }
+
+    private StreamingPageBufferClient createClient(URI location, int port, ClientCallback callback, MockExchangeRequestProcessor processor)
+    {
+        return createClient(location, port, MAX_RESPONSE_SIZE, callback, processor);
+    }
+
+    private StreamingPageBufferClient createClient(URI location, int port, DataSize maxResultsFrameSize, ClientCallback callback, MockExchangeRequestProcessor processor)
+    {
+        return new StreamingPageBufferClient(
+                location,
+                port,
+                channelGroup,
+                MAX_RESPONSE_SIZE,
+                maxResultsFrameSize,
+                new Duration(1, MINUTES),
+                callback,
+                scheduler,
+                executor,
+                httpPageBufferClientFactory(MAX_RESPONSE_SIZE, new Duration(1, MINUTES), true, new TestingHttpClient(processor, scheduler), scheduler, executor));
+    }
+
+    private static class TestingClientCallback
+            implements ClientCallback
+    {
+        private final BlockingQueue<PageBufferClient> events = new LinkedBlockingQueue<>();
+        private final List<SerializedPage> pages = Collections.synchronizedList(new ArrayList<>());
+        private volatile int finishedClients;
+        private volatile Throwable failure;
+
+        public PageBufferClient awaitEvent()
+                throws InterruptedException
+        {
+            PageBufferClient client = events.poll(10, SECONDS);
+            assertTrue(client != null, "timed out waiting for client");
+            return client;
+        }
+
+        public List<SerializedPage> getPages()
+        {
+            return ImmutableList.copyOf(pages);
+        }
+
+        public int getFinishedClients()
+        {
+            return finishedClients;
+        }
+
+        public Throwable getFailure()
+        {
+            return failure;
+        }
+
+        @Override
+        public boolean addPages(PageBufferClient client, List<SerializedPage> pages)
+        {
+            this.pages.addAll(pages);
+            return true;
+        }
+
+        @Override
+        public void requestComplete(PageBufferClient client)
+        {
+            events.add(client);
+        }
+
+        @Override
+        public void clientFinished(PageBufferClient client)
+        {
+            finishedClients++;
+            events.add(client);
+        }
+
+        @Override
+        public void clientFailed(PageBufferClient client, Throwable cause)
+        {
+            failure = cause;
+        }
+    }
+
+    /**
+     * Serves a single output buffer over a blocking socket.
+     */
+    private class TestingStreamServer
+            implements AutoCloseable
+    {
+        private final ServerSocketChannel serverChannel;
+        private final boolean reject;
+        private final List<SerializedPage> pages;
+        private final List<String> requests = Collections.synchronizedList(new ArrayList<>());
+
+        public TestingStreamServer(boolean reject, List<Page> pages)
+                throws IOException
+        {
+            this.reject = reject;
+            this.pages = pages.stream()
+                    .map(PAGES_SERDE::serialize)
+                    .collect(ImmutableList.toImmutableList());
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress("localhost", 0));
+            executor.execute(this::serve);
+        }
+
+        public int getPort()
+        {
+            return serverChannel.socket().getLocalPort();
+        }
+
+        public List<String> getRequests()
+        {
+            return ImmutableList.copyOf(requests);
+        }
+
+        private void serve()
+        {
+            try (SocketChannel channel = serverChannel.accept()) {
+                while (true) {
+                    ByteBuffer header = readFully(channel, allocateFrameHeader());
+                    byte type = header.get();
+                    ByteBuffer body = readFully(channel, ByteBuffer.allocate(header.getInt()).order(LITTLE_ENDIAN));
+                    switch (type) {
+                        case OPEN:
+                            body.getInt();
+                            requests.add("OPEN " + ExchangeStreamProtocol.readString(body));
+                            writeFully(channel, reject ? messageFrame(REJECTED, "rejected") : emptyFrame(ACCEPTED));
+                            break;
+                        case POLL:
+                            long token = body.getLong();
+                            requests.add("POLL " + token);
+                            List<SerializedPage> results = pages.subList((int) token, pages.size());
+                            writeFully(channel, resultsFrame("instance", token, pages.size(), true, results));
+                            break;
+                        case CLOSE:
+                            requests.add("CLOSE");
+                            writeFully(channel, emptyFrame(CLOSED));
+                            break;
+                        default:
+                            throw new IllegalStateException("unexpected frame " + type);
+                    }
+                }
+            }
+            catch (IOException ignored) {
+                // connection closed
+            }
+        }
+
+        private ByteBuffer readFully(SocketChannel channel, ByteBuffer buffer)
+                throws IOException
+        {
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    throw new IOException("closed");
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private void writeFully(SocketChannel channel, ByteBuffer... buffers)
+                throws IOException
+        {
+            for (ByteBuffer buffer : buffers) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            }
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            serverChannel.close();
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.operator.repartition;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.execution.buffer.PagesSerde;
+import io.prestosql.execution.buffer.PagesSerdeFactory;
+import io.prestosql.execution.buffer.SerializedPage;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.PageBuilder;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.block.RunLengthEncodedBlock;
+import io.prestosql.spi.type.ArrayType;
+import io.prestosql.spi.type.DecimalType;
+import io.prestosql.spi.type.RowType;
+import io.prestosql.spi.type.Type;
+import org.testng.annotations.Test;
+
+import java.util.List;
+
+import static io.prestosql.block.BlockAssertions.createArrayBigintBlock;
+import static io.prestosql.block.BlockAssertions.createBooleansBlock;
+import static io.prestosql.block.BlockAssertions.createDoublesBlock;
+import static io.prestosql.block.BlockAssertions.createIntsBlock;
+import static io.prestosql.block.BlockAssertions.createLongDecimalsBlock;
+import static io.prestosql.block.BlockAssertions.createLongsBlock;
+import static io.prestosql.block.BlockAssertions.createRowBlock;
+import static io.prestosql.block.BlockAssertions.createStringsBlock;
+import static io.prestosql.execution.buffer.TestingPagesSerdeFactory.testingPagesSerde;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.operator.PageAssertions.assertPageEquals;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static java.util.Arrays.asList;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestSerializedPageBuilder
+{
+    private static final PagesSerde SERDE = testingPagesSerde();
+    private static final PagesSerde UNCOMPRESSED_SERDE = new PagesSerdeFactory(createTestMetadataManager().getBlockEncodingSerde(), false).createPagesSerde();
+    private static final Type LONG_DECIMAL = DecimalType.createDecimalType(20, 2);
+    private static final Type ARRAY_BIGINT = new ArrayType(BIGINT);
+    private static final List<Type> ROW_FIELD_TYPES = ImmutableList.of(VARCHAR, BIGINT);
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR, DOUBLE, BOOLEAN, INTEGER, RowType.anonymous(ROW_FIELD_TYPES), ARRAY_BIGINT, LONG_DECIMAL);
+
+    @Test
+    public void testAllPositions()
+    {
+        Page page = createPage();
+        assertRoundTrip(ImmutableList.of(page), new int[] {0, 1, 2, 3, 4, 5});
+    }
+
+    @Test
+    public void testSelectedPositions()
+    {
+        Page page = createPage();
+        assertRoundTrip(ImmutableList.of(page, page), new int[] {1, 3, 4});
+        assertRoundTrip(ImmutableList.of(page), new int[] {5});
+        assertRoundTrip(ImmutableList.of(page), new int[] {0, 3});
+    }
+
+    @Test
+    public void testDictionaryAndRunLengthEncodedBlocks()
+    {
+        Page page = createPage();
+        int[] ids = {5, 0, 0, 3, 2, 1, 4, 4};
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            if (channel % 2 == 0) {
+                blocks[channel] = new DictionaryBlock(page.getBlock(channel), ids);
+            }
+            else {
+                blocks[channel] = new RunLengthEncodedBlock(page.getBlock(channel).getSingleValueBlock(3), ids.length);
+            }
+        }
+        assertRoundTrip(ImmutableList.of(new Page(blocks)), new int[] {0, 2, 3, 6, 7});
+    }
+
+    @Test
+    public void testAllNulls()
+    {
+        Page page = createPage();
+        // the fourth row is null in every column
+        assertRoundTrip(ImmutableList.of(page, page), new int[] {3});
+    }
+
+    @Test
+    public void testReuseAfterBuild()
+    {
+        Page page = createPage();
+        SerializedPageBuilder builder = new SerializedPageBuilder(TYPES, createTestMetadataManager().getBlockEncodingSerde());
+        builder.appendPositions(page, new int[] {0, 1, 2}, 0, 3);
+        assertEquals(builder.getPositionCount(), 3);
+        assertPageEquals(TYPES, SERDE.deserialize(builder.build(SERDE)), expectedPage(ImmutableList.of(page), new int[] {0, 1, 2}));
+
+        assertTrue(builder.isEmpty());
+        assertEquals(builder.getSizeInBytes(), 0);
+        builder.appendPositions(page, new int[] {2, 3, 4, 5}, 1, 3);
+        assertPageEquals(TYPES, SERDE.deserialize(builder.build(SERDE)), expectedPage(ImmutableList.of(page), new int[] {3, 4, 5}));
+    }
+
+    private static void assertRoundTrip(List<Page> pages, int[] positions)
+    {
+        SerializedPageBuilder builder = new SerializedPageBuilder(TYPES, createTestMetadataManager().getBlockEncodingSerde());
+        for (Page page : pages) {
+            builder.appendPositions(page, positions, 0, positions.length);
+        }
+        Page expected = expectedPage(pages, positions);
+        assertEquals(builder.getPositionCount(), expected.getPositionCount());
+        assertPageEquals(TYPES, SERDE.deserialize(builder.build(SERDE)), expected);
+    }
+
+    @Test
+    public void testSameBytesAsBuiltPage()
+    {
+        // the columns are written in the block encodings the built blocks use
+        List<Type> types = TYPES.subList(0, 6);
+        Page allColumns = createPage();
+        Block[] blocks = new Block[types.size()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = allColumns.getBlock(channel);
+        }
+        Page page = new Page(blocks);
+        int[] positions = {0, 2, 3, 5};
+
+        SerializedPageBuilder builder = new SerializedPageBuilder(types, createTestMetadataManager().getBlockEncodingSerde());
+        builder.appendPositions(page, positions, 0, positions.length);
+        SerializedPage actual = builder.build(UNCOMPRESSED_SERDE);
+
+        PageBuilder pageBuilder = new PageBuilder(types);
+        for (int position : positions) {
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < types.size(); channel++) {
+                types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+        }
+        SerializedPage expected = UNCOMPRESSED_SERDE.serialize(pageBuilder.build());
+        assertEquals(actual.getSlice(), expected.getSlice());
+        assertEquals(actual.getPositionCount(), expected.getPositionCount());
+    }
+
+    private static Page expectedPage(List<Page> pages, int[] positions)
+    {
+        PageBuilder pageBuilder = new PageBuilder(TYPES);
+        for (Page page : pages) {
+            for (int position : positions) {
+                pageBuilder.declarePosition();
+                for (int channel = 0; channel < TYPES.size(); channel++) {
+                    TYPES.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+                }
+            }
+        }
+        return pageBuilder.build();
+    }
+
+    private static Page createPage()
+    {
+        return new Page(
+                createLongsBlock(1L, 2L, null, null, 5L, 6L),
+                createStringsBlock("a", "", "ccc", null, null, "ffffff"),
+                createDoublesBlock(1.5, null, 3.5, null, 5.5, 6.5),
+                createBooleansBlock(true, false, null, null, true, null),
+                createIntsBlock(1, null, 3, null, 5, 6),
+                createRowBlock(ROW_FIELD_TYPES, new Object[] {"x", 1L}, new Object[] {null, 2L}, new Object[] {"z", null}, null, null, new Object[] {"w", 6L}),
+                createArrayBigintBlock(asList(ImmutableList.of(1L, 2L), ImmutableList.of(), null, null, asList(5L, null), ImmutableList.of(6L))),
+                createLongDecimalsBlock("12345678901234567.89", "-1.00", null, null, "0.05", "99999999999999999.99"));
+    }
+}
@@ -17,6 +17,7 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.MoreExecutors;
 import io.airlift.tpch.LineItem;
 import io.airlift.tpch.LineItemGenerator;
+import io.prestosql.execution.buffer.CompressionCodec;
 import io.prestosql.spi.Page;
 import io.prestosql.spi.PageBuilder;
 import io.prestosql.spi.block.BlockEncodingSerde;
@@ -28,6 +29,7 @@ import io.prestosql.spiller.SpillerFactory;
 import io.prestosql.spiller.SpillerStats;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.OutputTimeUnit;
 import org.openjdk.jmh.annotations.Param;
@@ -117,18 +119,30 @@ public class BenchmarkBinaryFileSpiller
                     spillerStats,
                     ImmutableList.of(SPILL_PATH),
                     1.0,
-                    compressionEnabled,
+                    compressionEnabled ? CompressionCodec.LZ4 : CompressionCodec.NONE,
                     encryptionEnabled);
             spillerFactory = new GenericSpillerFactory(singleStreamSpillerFactory);
             pages = createInputPages();
+        }
+
+        // a spill can only be read once
+        @Setup(Level.Invocation)
+        public void setupReadSpiller()
+                throws ExecutionException, InterruptedException
+        {
             readSpiller = spillerFactory.create(TYPES, bytes -> {}, newSimpleAggregatedMemoryContext());
             readSpiller.spill(pages.iterator()).get();
         }
 
+        @TearDown(Level.Invocation)
+        public void tearDownReadSpiller()
+        {
+            readSpiller.close();
+        }
+
         @TearDown
         public void tearDown()
         {
-            readSpiller.close();
             singleStreamSpillerFactory.destroy();
         }
 
@@ -100,6 +100,8 @@ public class TestBasicQueryInfo
                                 DataSize.valueOf("31GB"),
                                 32,
                                 DataSize.valueOf("32GB"),
+                                false,
+                                ImmutableList.of(),
                                 ImmutableList.of(new StageGcStatistics(
                                         101,
                                         102,
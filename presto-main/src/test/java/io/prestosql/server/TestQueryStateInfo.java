@@ -151,6 +151,8 @@ public class TestQueryStateInfo
                         DataSize.valueOf("31GB"),
                         32,
                         DataSize.valueOf("33GB"),
+                        false,
+                        ImmutableList.of(),
                         ImmutableList.of(),
                         ImmutableList.of()),
                 Optional.empty(),
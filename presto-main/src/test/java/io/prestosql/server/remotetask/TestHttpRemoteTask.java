@@ -13,6 +13,7 @@
  */
 package io.prestosql.server.remotetask;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.inject.Binder;
@@ -47,6 +48,8 @@ import io.prestosql.metadata.InternalNode;
 import io.prestosql.metadata.Metadata;
 import io.prestosql.metadata.Split;
 import io.prestosql.server.HttpRemoteTaskFactory;
+import io.prestosql.server.InternalCommunicationConfig;
+import io.prestosql.server.SmileMapper;
 import io.prestosql.server.TaskUpdateRequest;
 import io.prestosql.spi.ErrorCode;
 import io.prestosql.spi.type.Type;
@@ -67,6 +70,7 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.QueryParam;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.HttpHeaders;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriInfo;
 
@@ -82,6 +86,7 @@ import java.util.function.BooleanSupplier;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.airlift.json.JsonBinder.jsonBinder;
 import static io.airlift.json.JsonCodecBinder.jsonCodecBinder;
+import static io.prestosql.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
 import static io.prestosql.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static io.prestosql.client.PrestoHeaders.PRESTO_MAX_WAIT;
@@ -136,11 +141,24 @@ public class TestHttpRemoteTask
     @Test(timeOut = 30000)
     public void testRegular()
             throws Exception
+    {
+        runRegularTest(false);
+    }
+
+    @Test(timeOut = 30000)
+    public void testRegularSmile()
+            throws Exception
+    {
+        runRegularTest(true);
+    }
+
+    private void runRegularTest(boolean smileEnabled)
+            throws Exception
     {
         AtomicLong lastActivityNanos = new AtomicLong(System.nanoTime());
         TestingTaskResource testingTaskResource = new TestingTaskResource(lastActivityNanos, FailureScenario.NO_FAILURE);
 
-        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource);
+        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource, smileEnabled);
 
         RemoteTask remoteTask = createRemoteTask(httpRemoteTaskFactory);
 
@@ -157,6 +175,7 @@ public class TestHttpRemoteTask
 
         remoteTask.noMoreSplits(TABLE_SCAN_NODE_ID);
         poll(() -> testingTaskResource.getTaskSource(TABLE_SCAN_NODE_ID).isNoMoreSplits());
+        assertEquals(testingTaskResource.getLastTaskUpdateMediaType(), smileEnabled ? APPLICATION_JACKSON_SMILE : MediaType.APPLICATION_JSON);
 
         remoteTask.cancel();
         poll(() -> remoteTask.getTaskStatus().getState().isDone());
@@ -171,7 +190,7 @@ public class TestHttpRemoteTask
         AtomicLong lastActivityNanos = new AtomicLong(System.nanoTime());
         TestingTaskResource testingTaskResource = new TestingTaskResource(lastActivityNanos, failureScenario);
 
-        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource);
+        HttpRemoteTaskFactory httpRemoteTaskFactory = createHttpRemoteTaskFactory(testingTaskResource, false);
         RemoteTask remoteTask = createRemoteTask(httpRemoteTaskFactory);
 
         testingTaskResource.setInitialTaskInfo(remoteTask.getTaskInfo());
@@ -212,7 +231,7 @@ public class TestHttpRemoteTask
                 true);
     }
 
-    private static HttpRemoteTaskFactory createHttpRemoteTaskFactory(TestingTaskResource testingTaskResource)
+    private static HttpRemoteTaskFactory createHttpRemoteTaskFactory(TestingTaskResource testingTaskResource, boolean smileEnabled)
     {
         Bootstrap app = new Bootstrap(
                 new JsonModule(),
@@ -233,11 +252,12 @@ public class TestHttpRemoteTask
                     @Provides
                     private HttpRemoteTaskFactory createHttpRemoteTaskFactory(
                             JsonMapper jsonMapper,
+                            ObjectMapper objectMapper,
                             JsonCodec<TaskStatus> taskStatusCodec,
                             JsonCodec<TaskInfo> taskInfoCodec,
                             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec)
                     {
-                        JaxrsTestingHttpProcessor jaxrsTestingHttpProcessor = new JaxrsTestingHttpProcessor(URI.create("http://fake.invalid/"), testingTaskResource, jsonMapper);
+                        JaxrsTestingHttpProcessor jaxrsTestingHttpProcessor = new JaxrsTestingHttpProcessor(URI.create("http://fake.invalid/"), testingTaskResource, jsonMapper, new SmileMapper(objectMapper));
                         TestingHttpClient testingHttpClient = new TestingHttpClient(jaxrsTestingHttpProcessor.setTrace(TRACE_HTTP));
                         testingTaskResource.setHttpClient(testingHttpClient);
                         return new HttpRemoteTaskFactory(
@@ -248,6 +268,8 @@ public class TestHttpRemoteTask
                                 taskStatusCodec,
                                 taskInfoCodec,
                                 taskUpdateRequestCodec,
+                                objectMapper,
+                                new InternalCommunicationConfig().setSmileEnabled(smileEnabled),
                                 new RemoteTaskStats());
                     }
                 });
@@ -335,7 +357,7 @@ public class TestHttpRemoteTask
 
         @GET
         @Path("{taskId}")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskInfo getTaskInfo(
                 @PathParam("taskId") final TaskId taskId,
                 @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
@@ -347,16 +369,19 @@ public class TestHttpRemoteTask
         }
 
         Map<PlanNodeId, TaskSource> taskSourceMap = new HashMap<>();
+        private String lastTaskUpdateMediaType;
 
         @POST
         @Path("{taskId}")
-        @Consumes(MediaType.APPLICATION_JSON)
-        @Produces(MediaType.APPLICATION_JSON)
+        @Consumes({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskInfo createOrUpdateTask(
                 @PathParam("taskId") TaskId taskId,
                 TaskUpdateRequest taskUpdateRequest,
+                @Context HttpHeaders headers,
                 @Context UriInfo uriInfo)
         {
+            lastTaskUpdateMediaType = headers.getMediaType().getType() + "/" + headers.getMediaType().getSubtype();
             for (TaskSource source : taskUpdateRequest.getSources()) {
                 taskSourceMap.compute(source.getPlanNodeId(), (planNodeId, taskSource) -> taskSource == null ? source : taskSource.update(source));
             }
@@ -364,6 +389,11 @@ public class TestHttpRemoteTask
             return buildTaskInfo();
         }
 
+        public synchronized String getLastTaskUpdateMediaType()
+        {
+            return lastTaskUpdateMediaType;
+        }
+
         public synchronized TaskSource getTaskSource(PlanNodeId planNodeId)
         {
             TaskSource source = taskSourceMap.get(planNodeId);
@@ -375,7 +405,7 @@ public class TestHttpRemoteTask
 
         @GET
         @Path("{taskId}/status")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskStatus getTaskStatus(
                 @PathParam("taskId") TaskId taskId,
                 @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
@@ -391,7 +421,7 @@ public class TestHttpRemoteTask
 
         @DELETE
         @Path("{taskId}")
-        @Produces(MediaType.APPLICATION_JSON)
+        @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
         public synchronized TaskInfo deleteTask(
                 @PathParam("taskId") TaskId taskId,
                 @QueryParam("abort") @DefaultValue("true") boolean abort,
@@ -18,6 +18,7 @@ import com.google.common.collect.Iterators;
 import com.google.common.io.Files;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import io.airlift.slice.InputStreamSliceInput;
+import io.prestosql.execution.buffer.CompressionCodec;
 import io.prestosql.execution.buffer.PageCodecMarker;
 import io.prestosql.execution.buffer.PagesSerdeUtil;
 import io.prestosql.execution.buffer.SerializedPage;
@@ -31,6 +32,7 @@ import org.testng.annotations.Test;
 
 import java.io.File;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
@@ -56,6 +58,7 @@ public class TestFileSingleStreamSpiller
 
     private final ListeningExecutorService executor = listeningDecorator(newCachedThreadPool());
     private final File spillPath = Files.createTempDir();
+    private final File secondSpillPath = Files.createTempDir();
 
     @AfterClass(alwaysRun = true)
     public void tearDown()
@@ -63,6 +66,7 @@ public class TestFileSingleStreamSpiller
     {
         executor.shutdown();
         deleteRecursively(spillPath.toPath(), ALLOW_INSECURE);
+        deleteRecursively(secondSpillPath.toPath(), ALLOW_INSECURE);
     }
 
     @Test
@@ -147,13 +151,90 @@ public class TestFileSingleStreamSpiller
         assertEquals(memoryContext.getBytes(), 0);
     }
 
+    @Test
+    public void testStripedSpill()
+            throws Exception
+    {
+        assertStripedSpill(false, false, false);
+    }
+
+    @Test
+    public void testStripedSpillEncryptionWithCompression()
+            throws Exception
+    {
+        assertStripedSpill(true, true, false);
+    }
+
+    @Test
+    public void testStripedGetAllSpilledPages()
+            throws Exception
+    {
+        assertStripedSpill(false, false, true);
+    }
+
+    private void assertStripedSpill(boolean compression, boolean encryption, boolean readAll)
+            throws Exception
+    {
+        SpillerStats spillerStats = new SpillerStats();
+        FileSingleStreamSpillerFactory spillerFactory = new FileSingleStreamSpillerFactory(
+                executor, // executor won't be closed, because we don't call destroy() on the spiller factory
+                createTestMetadataManager().getBlockEncodingSerde(),
+                spillerStats,
+                ImmutableList.of(spillPath.toPath(), secondSpillPath.toPath()),
+                1.0,
+                compression ? CompressionCodec.LZ4 : CompressionCodec.NONE,
+                encryption,
+                2);
+        LocalMemoryContext memoryContext = newSimpleAggregatedMemoryContext().newLocalMemoryContext("test");
+        SingleStreamSpiller spiller = spillerFactory.create(TYPES, bytes -> {}, memoryContext);
+        assertTrue(spiller instanceof StripedFileSingleStreamSpiller);
+
+        // every stripe reserves its buffer up front
+        assertEquals(memoryContext.getBytes(), 2 * StripedFileSingleStreamSpiller.BUFFER_SIZE);
+
+        List<Page> pages = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            pages.add(buildPage(i));
+        }
+        spiller.spill(pages.get(0)).get();
+        spiller.spill(pages.subList(1, pages.size()).iterator()).get();
+        assertEquals(listFiles(spillPath.toPath()).size(), 1);
+        assertEquals(listFiles(secondSpillPath.toPath()).size(), 1);
+
+        List<Page> spilledPages = readAll ? spiller.getAllSpilledPages().get() : ImmutableList.copyOf(spiller.getSpilledPages());
+        assertEquals(spilledPages.size(), pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            PageAssertions.assertPageEquals(TYPES, spilledPages.get(i), pages.get(i));
+        }
+
+        long writtenBytes = 0;
+        for (File path : ImmutableList.of(spillPath, secondSpillPath)) {
+            SpillPathStats pathStats = spillerStats.getSpillPathStats(path.toPath());
+            assertEquals(pathStats.getPendingWrites(), 0);
+            assertEquals(pathStats.getPendingReads(), 0);
+            assertEquals(pathStats.getReadBytes().getTotalCount(), pathStats.getWrittenBytes().getTotalCount());
+            writtenBytes += pathStats.getWrittenBytes().getTotalCount();
+        }
+        assertEquals(writtenBytes, spillerStats.getTotalSpilledBytes());
+
+        spiller.close();
+        assertEquals(listFiles(spillPath.toPath()).size(), 0);
+        assertEquals(listFiles(secondSpillPath.toPath()).size(), 0);
+        assertEquals(memoryContext.getBytes(), 0);
+    }
+
     private Page buildPage()
+    {
+        return buildPage(42);
+    }
+
+    private Page buildPage(long value)
     {
         BlockBuilder col1 = BIGINT.createBlockBuilder(null, 1);
         BlockBuilder col2 = DOUBLE.createBlockBuilder(null, 1);
         BlockBuilder col3 = VARBINARY.createBlockBuilder(null, 1);
 
-        col1.writeLong(42).closeEntry();
+        col1.writeLong(value).closeEntry();
         col2.writeLong(doubleToLongBits(43.0)).closeEntry();
         col3.writeLong(doubleToLongBits(43.0)).writeLong(1).closeEntry();
 
@@ -15,6 +15,7 @@ package io.prestosql.spiller;
 
 import com.google.common.collect.ImmutableMap;
 import io.airlift.units.DataSize;
+import io.prestosql.execution.buffer.CompressionCodec;
 import org.testng.annotations.Test;
 
 import java.util.Map;
@@ -34,6 +35,7 @@ public class TestNodeSpillConfig
                 .setMaxSpillPerNode(new DataSize(100, GIGABYTE))
                 .setQueryMaxSpillPerNode(new DataSize(100, GIGABYTE))
                 .setSpillCompressionEnabled(false)
+                .setSpillCompressionCodec(CompressionCodec.LZ4)
                 .setSpillEncryptionEnabled(false));
     }
 
@@ -44,6 +46,7 @@ public class TestNodeSpillConfig
                 .put("experimental.max-spill-per-node", "10MB")
                 .put("experimental.query-max-spill-per-node", "15 MB")
                 .put("experimental.spill-compression-enabled", "true")
+                .put("experimental.spill-compression-codec", "SNAPPY")
                 .put("experimental.spill-encryption-enabled", "true")
                 .build();
 
@@ -51,6 +54,7 @@ public class TestNodeSpillConfig
                 .setMaxSpillPerNode(new DataSize(10, MEGABYTE))
                 .setQueryMaxSpillPerNode(new DataSize(15, MEGABYTE))
                 .setSpillCompressionEnabled(true)
+                .setSpillCompressionCodec(CompressionCodec.SNAPPY)
                 .setSpillEncryptionEnabled(true);
 
         assertFullMapping(properties, expected);
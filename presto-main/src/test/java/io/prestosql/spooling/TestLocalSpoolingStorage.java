@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spooling;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.Files;
+import io.prestosql.execution.StageId;
+import io.prestosql.execution.TaskId;
+import io.prestosql.spi.PrestoException;
+import io.prestosql.spi.QueryId;
+import io.prestosql.spooling.SpoolingStorage.TaskOutputWriter;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Optional;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+@Test(singleThreaded = true)
+public class TestLocalSpoolingStorage
+{
+    private static final TaskId TASK_ID = new TaskId(new StageId(new QueryId("query"), 1), 0);
+
+    private File spoolingPath;
+    private LocalSpoolingStorage storage;
+
+    @BeforeMethod
+    public void setUp()
+    {
+        spoolingPath = Files.createTempDir();
+        storage = new LocalSpoolingStorage(Optional.of(spoolingPath.toPath()));
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void tearDown()
+            throws IOException
+    {
+        deleteRecursively(spoolingPath.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testCommittedOutputIsVisible()
+            throws IOException
+    {
+        TaskOutputWriter writer = storage.createTaskOutput(TASK_ID);
+        write(writer, "data-0", "hello");
+        assertFalse(storage.openCommittedFile(TASK_ID, "data-0").isPresent());
+
+        assertTrue(writer.commit());
+        assertEquals(read("data-0"), "hello");
+        assertEquals(storage.getCommittedOutputs(), 1);
+        assertEquals(storage.getSpooledBytes(), 5);
+        assertEquals(storage.getReadBytes(), 5);
+    }
+
+    @Test
+    public void testFirstCommitWins()
+            throws IOException
+    {
+        TaskOutputWriter first = storage.createTaskOutput(TASK_ID);
+        TaskOutputWriter second = storage.createTaskOutput(TASK_ID);
+        write(first, "data-0", "first");
+        write(second, "data-0", "second");
+
+        assertTrue(second.commit());
+        assertFalse(first.commit());
+        assertEquals(read("data-0"), "second");
+        assertEquals(storage.getCommittedOutputs(), 1);
+        assertEquals(storage.getDiscardedOutputs(), 1);
+
+        // only the committed output remains
+        File[] taskFiles = new File(spoolingPath, "query").listFiles();
+        assertEquals(taskFiles.length, 1);
+        assertEquals(taskFiles[0].getName(), TASK_ID.toString());
+    }
+
+    @Test
+    public void testAbort()
+            throws IOException
+    {
+        TaskOutputWriter writer = storage.createTaskOutput(TASK_ID);
+        write(writer, "data-0", "aborted");
+        writer.abort();
+        assertEquals(new File(spoolingPath, "query").listFiles().length, 0);
+
+        // a later attempt can still commit
+        TaskOutputWriter retry = storage.createTaskOutput(TASK_ID);
+        write(retry, "data-0", "retried");
+        assertTrue(retry.commit());
+        assertEquals(read("data-0"), "retried");
+    }
+
+    @Test
+    public void testRemoveQuery()
+            throws IOException
+    {
+        TaskOutputWriter writer = storage.createTaskOutput(TASK_ID);
+        write(writer, "data-0", "hello");
+        assertTrue(writer.commit());
+
+        storage.removeQuery(TASK_ID.getQueryId());
+        assertFalse(new File(spoolingPath, "query").exists());
+        assertFalse(storage.openCommittedFile(TASK_ID, "data-0").isPresent());
+
+        // removing the output of a query without output is a no-op
+        storage.removeQuery(new QueryId("other"));
+    }
+
+    @Test(expectedExceptions = PrestoException.class, expectedExceptionsMessageRegExp = "Fault-tolerant execution requires spooling.path to be configured")
+    public void testNotConfigured()
+    {
+        new LocalSpoolingStorage(Optional.empty()).createTaskOutput(TASK_ID);
+    }
+
+    private static void write(TaskOutputWriter writer, String fileName, String value)
+            throws IOException
+    {
+        try (OutputStream output = writer.createFile(fileName)) {
+            output.write(value.getBytes(UTF_8));
+        }
+    }
+
+    private String read(String fileName)
+            throws IOException
+    {
+        try (InputStream input = storage.openCommittedFile(TASK_ID, fileName).get()) {
+            return new String(ByteStreams.toByteArray(input), UTF_8);
+        }
+    }
+}
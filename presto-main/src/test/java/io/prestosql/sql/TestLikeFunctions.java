@@ -13,13 +13,15 @@
  */
 package io.prestosql.sql;
 
-import io.airlift.joni.Regex;
 import io.airlift.slice.Slice;
 import io.airlift.slice.Slices;
 import io.prestosql.operator.scalar.AbstractTestFunctions;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.type.LikePattern;
 import org.testng.annotations.Test;
 
+import java.util.Optional;
+
 import static io.airlift.slice.Slices.utf8Slice;
 import static io.prestosql.spi.type.BooleanType.BOOLEAN;
 import static io.prestosql.type.LikeFunctions.castCharToLikePattern;
@@ -39,7 +41,7 @@ public class TestLikeFunctions
     @Test
     public void testLikeBasic()
     {
-        Regex regex = likePattern(utf8Slice("f%b__"));
+        LikePattern regex = likePattern(utf8Slice("f%b__"));
         assertTrue(likeVarchar(utf8Slice("foobar"), regex));
 
         assertFunction("'foob' LIKE 'f%b__'", BOOLEAN, false);
@@ -49,7 +51,7 @@ public class TestLikeFunctions
     @Test
     public void testLikeChar()
     {
-        Regex regex = likePattern(utf8Slice("f%b__"));
+        LikePattern regex = likePattern(utf8Slice("f%b__"));
         assertTrue(likeChar(6L, utf8Slice("foobar"), regex));
         assertTrue(likeChar(6L, utf8Slice("foob"), regex));
         assertFalse(likeChar(7L, utf8Slice("foob"), regex));
@@ -61,7 +63,7 @@ public class TestLikeFunctions
     @Test
     public void testLikeSpacesInPattern()
     {
-        Regex regex = likePattern(utf8Slice("ala  "));
+        LikePattern regex = likePattern(utf8Slice("ala  "));
         assertTrue(likeVarchar(utf8Slice("ala  "), regex));
         assertFalse(likeVarchar(utf8Slice("ala"), regex));
 
@@ -73,28 +75,28 @@ public class TestLikeFunctions
     @Test
     public void testLikeNewlineInPattern()
     {
-        Regex regex = likePattern(utf8Slice("%o\nbar"));
+        LikePattern regex = likePattern(utf8Slice("%o\nbar"));
         assertTrue(likeVarchar(utf8Slice("foo\nbar"), regex));
     }
 
     @Test
     public void testLikeNewlineBeforeMatch()
     {
-        Regex regex = likePattern(utf8Slice("%b%"));
+        LikePattern regex = likePattern(utf8Slice("%b%"));
         assertTrue(likeVarchar(utf8Slice("foo\nbar"), regex));
     }
 
     @Test
     public void testLikeNewlineInMatch()
     {
-        Regex regex = likePattern(utf8Slice("f%b%"));
+        LikePattern regex = likePattern(utf8Slice("f%b%"));
         assertTrue(likeVarchar(utf8Slice("foo\nbar"), regex));
     }
 
     @Test(timeOut = 1000)
     public void testLikeUtf8Pattern()
     {
-        Regex regex = likePattern(utf8Slice("%\u540d\u8a89%"), utf8Slice("\\"));
+        LikePattern regex = likePattern(utf8Slice("%\u540d\u8a89%"), utf8Slice("\\"));
         assertFalse(likeVarchar(utf8Slice("foo"), regex));
     }
 
@@ -103,28 +105,28 @@ public class TestLikeFunctions
     public void testLikeInvalidUtf8Value()
     {
         Slice value = Slices.wrappedBuffer(new byte[] {'a', 'b', 'c', (byte) 0xFF, 'x', 'y'});
-        Regex regex = likePattern(utf8Slice("%b%"), utf8Slice("\\"));
+        LikePattern regex = likePattern(utf8Slice("%b%"), utf8Slice("\\"));
         assertTrue(likeVarchar(value, regex));
     }
 
     @Test
     public void testBackslashesNoSpecialTreatment()
     {
-        Regex regex = likePattern(utf8Slice("\\abc\\/\\\\"));
+        LikePattern regex = likePattern(utf8Slice("\\abc\\/\\\\"));
         assertTrue(likeVarchar(utf8Slice("\\abc\\/\\\\"), regex));
     }
 
     @Test
     public void testSelfEscaping()
     {
-        Regex regex = likePattern(utf8Slice("\\\\abc\\%"), utf8Slice("\\"));
+        LikePattern regex = likePattern(utf8Slice("\\\\abc\\%"), utf8Slice("\\"));
         assertTrue(likeVarchar(utf8Slice("\\abc%"), regex));
     }
 
     @Test
     public void testAlternateEscapedCharacters()
     {
-        Regex regex = likePattern(utf8Slice("xxx%x_abcxx"), utf8Slice("x"));
+        LikePattern regex = likePattern(utf8Slice("xxx%x_abcxx"), utf8Slice("x"));
         assertTrue(likeVarchar(utf8Slice("x%_abcx"), regex));
     }
 
@@ -160,4 +162,15 @@ public class TestLikeFunctions
         assertEquals(unescapeLiteralLikePattern(utf8Slice("a##bc#_"), utf8Slice("#")), utf8Slice("a#bc_"));
         assertEquals(unescapeLiteralLikePattern(utf8Slice("a###_bc"), utf8Slice("#")), utf8Slice("a#_bc"));
     }
+
+    @Test
+    public void testLiteralPrefix()
+    {
+        assertEquals(likePattern(utf8Slice("abc%")).getLiteralPrefix(), Optional.of(utf8Slice("abc")));
+        assertEquals(likePattern(utf8Slice("%")).getLiteralPrefix(), Optional.of(utf8Slice("")));
+        assertEquals(likePattern(utf8Slice("a#%#_##%"), utf8Slice("#")).getLiteralPrefix(), Optional.of(utf8Slice("a%_#")));
+        assertEquals(likePattern(utf8Slice("abc")).getLiteralPrefix(), Optional.empty());
+        assertEquals(likePattern(utf8Slice("a_c%")).getLiteralPrefix(), Optional.empty());
+        assertEquals(likePattern(utf8Slice("a%c%")).getLiteralPrefix(), Optional.empty());
+    }
 }
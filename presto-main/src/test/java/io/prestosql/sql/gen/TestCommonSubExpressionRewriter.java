@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.operator.DriverYieldSignal;
+import io.prestosql.operator.project.PageProcessor;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.block.DictionaryBlock;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.sql.gen.CommonSubExpressionRewriter.Result;
+import io.prestosql.sql.relational.DeterminismEvaluator;
+import io.prestosql.sql.relational.RowExpression;
+import io.prestosql.sql.relational.SpecialForm;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.metadata.Signature.internalOperator;
+import static io.prestosql.spi.function.OperatorType.ADD;
+import static io.prestosql.spi.function.OperatorType.DIVIDE;
+import static io.prestosql.spi.function.OperatorType.GREATER_THAN;
+import static io.prestosql.spi.function.OperatorType.MULTIPLY;
+import static io.prestosql.spi.function.OperatorType.NOT_EQUAL;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.sql.relational.Expressions.call;
+import static io.prestosql.sql.relational.Expressions.constant;
+import static io.prestosql.sql.relational.Expressions.field;
+import static io.prestosql.sql.relational.SpecialForm.Form.AND;
+import static io.prestosql.sql.relational.SpecialForm.Form.IF;
+import static io.prestosql.testing.TestingConnectorSession.SESSION;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestCommonSubExpressionRewriter
+{
+    private static final RowExpression A = field(0, BIGINT);
+    private static final RowExpression B = field(1, BIGINT);
+
+    private final Metadata metadata = createTestMetadataManager();
+    private final DeterminismEvaluator determinismEvaluator = new DeterminismEvaluator(metadata);
+    private final ExpressionCompiler compiler = new ExpressionCompiler(metadata, new PageFunctionCompiler(metadata, 0), false);
+    private final ExpressionCompiler sharingCompiler = new ExpressionCompiler(metadata, new PageFunctionCompiler(metadata, 0), true);
+
+    @Test
+    public void testSharedAcrossFilterAndProjections()
+    {
+        RowExpression shared = arithmetic(ADD, arithmetic(MULTIPLY, A, constant(3L, BIGINT)), B);
+        Optional<RowExpression> filter = Optional.of(comparison(GREATER_THAN, shared, constant(5L, BIGINT)));
+        List<RowExpression> projections = ImmutableList.of(shared, arithmetic(MULTIPLY, shared, constant(2L, BIGINT)), B);
+
+        Result result = CommonSubExpressionRewriter.extractCommonSubExpressions(filter, projections, determinismEvaluator);
+        assertEquals(result.getInputChannelCount(), 2);
+        assertEquals(result.getFilterSubExpressions(), ImmutableList.of(shared));
+        assertEquals(result.getProjectionSubExpressions(), ImmutableList.of());
+        assertEquals(result.getSharedExpressions(), ImmutableList.of(shared));
+        assertEquals(result.getEliminatedEvaluations(), 2);
+        RowExpression reference = field(2, BIGINT);
+        assertEquals(result.getFilter(), Optional.of(comparison(GREATER_THAN, reference, constant(5L, BIGINT))));
+        assertEquals(result.getProjections(), ImmutableList.of(reference, arithmetic(MULTIPLY, reference, constant(2L, BIGINT)), B));
+
+        assertSameResults(filter, projections);
+    }
+
+    @Test
+    public void testNestedSharedExpressions()
+    {
+        RowExpression inner = arithmetic(ADD, A, B);
+        RowExpression outer = arithmetic(MULTIPLY, inner, constant(7L, BIGINT));
+        List<RowExpression> projections = ImmutableList.of(
+                outer,
+                arithmetic(ADD, outer, constant(1L, BIGINT)),
+                arithmetic(ADD, inner, constant(1L, BIGINT)));
+
+        Result result = CommonSubExpressionRewriter.extractCommonSubExpressions(Optional.empty(), projections, determinismEvaluator);
+        // the inner expression is computed before the outer expression that reads it
+        assertEquals(result.getProjectionSubExpressions(), ImmutableList.of(
+                inner,
+                arithmetic(MULTIPLY, field(2, BIGINT), constant(7L, BIGINT))));
+        assertEquals(result.getSharedExpressions(), ImmutableList.of(inner, outer));
+        assertEquals(result.getProjections(), ImmutableList.of(
+                field(3, BIGINT),
+                arithmetic(ADD, field(3, BIGINT), constant(1L, BIGINT)),
+                arithmetic(ADD, field(2, BIGINT), constant(1L, BIGINT))));
+
+        assertSameResults(Optional.empty(), projections);
+    }
+
+    @Test
+    public void testProjectionSubExpressionsOnlyEvaluatedForSelectedPositions()
+    {
+        // the division is shared by the projections, but only evaluated for positions the filter selects
+        RowExpression quotient = arithmetic(DIVIDE, constant(100L, BIGINT), A);
+        Optional<RowExpression> filter = Optional.of(comparison(NOT_EQUAL, A, constant(0L, BIGINT)));
+        List<RowExpression> projections = ImmutableList.of(
+                arithmetic(ADD, quotient, B),
+                arithmetic(MULTIPLY, quotient, constant(2L, BIGINT)));
+
+        Result result = CommonSubExpressionRewriter.extractCommonSubExpressions(filter, projections, determinismEvaluator);
+        assertEquals(result.getFilterSubExpressions(), ImmutableList.of());
+        assertEquals(result.getProjectionSubExpressions(), ImmutableList.of(quotient));
+        assertEquals(result.getFilter(), filter);
+
+        assertSameResults(filter, projections);
+    }
+
+    @Test
+    public void testConditionalOccurrencesNotShared()
+    {
+        RowExpression quotient = arithmetic(DIVIDE, constant(100L, BIGINT), A);
+        Optional<RowExpression> filter = Optional.of(new SpecialForm(AND, BOOLEAN,
+                comparison(NOT_EQUAL, A, constant(0L, BIGINT)),
+                comparison(GREATER_THAN, quotient, constant(1L, BIGINT))));
+        List<RowExpression> projections = ImmutableList.of(
+                new SpecialForm(IF, BIGINT, comparison(NOT_EQUAL, A, constant(0L, BIGINT)), quotient, constant(0L, BIGINT)),
+                arithmetic(ADD, B, quotient));
+
+        Result result = CommonSubExpressionRewriter.extractCommonSubExpressions(filter, projections, determinismEvaluator);
+        // the comparison is evaluated unconditionally by the filter and the first projection
+        assertEquals(result.getSharedExpressions(), ImmutableList.of(comparison(NOT_EQUAL, A, constant(0L, BIGINT))));
+        assertEquals(result.getEliminatedEvaluations(), 1);
+
+        assertSameResults(filter, projections);
+    }
+
+    @Test
+    public void testNoSharedExpressions()
+    {
+        List<RowExpression> projections = ImmutableList.of(
+                arithmetic(ADD, A, constant(1L, BIGINT)),
+                arithmetic(ADD, B, constant(1L, BIGINT)),
+                A);
+
+        Result result = CommonSubExpressionRewriter.extractCommonSubExpressions(Optional.empty(), projections, determinismEvaluator);
+        assertFalse(result.hasSharedExpressions());
+        assertEquals(result.getProjections(), projections);
+    }
+
+    @Test
+    public void testCompilerStats()
+    {
+        ExpressionCompiler statsCompiler = new ExpressionCompiler(metadata, new PageFunctionCompiler(metadata, 0), true);
+        RowExpression shared = arithmetic(ADD, A, B);
+        statsCompiler.compilePageProcessor(Optional.empty(), ImmutableList.of(shared, shared, shared));
+        statsCompiler.compilePageProcessor(Optional.empty(), ImmutableList.of(shared, A));
+
+        assertEquals(statsCompiler.getPageProcessorsWithSharedExpressions(), 1);
+        assertEquals(statsCompiler.getSharedExpressions(), 1);
+        assertEquals(statsCompiler.getEliminatedEvaluations(), 2);
+    }
+
+    private void assertSameResults(Optional<RowExpression> filter, List<RowExpression> projections)
+    {
+        PageProcessor processor = compiler.compilePageProcessor(filter, projections).get();
+        PageProcessor sharingProcessor = sharingCompiler.compilePageProcessor(filter, projections).get();
+        for (Page page : ImmutableList.of(createInputPage(false), createInputPage(true))) {
+            assertEquals(process(sharingProcessor, page, projections), process(processor, page, projections));
+        }
+    }
+
+    private static List<List<Object>> process(PageProcessor processor, Page page, List<RowExpression> projections)
+    {
+        List<List<Object>> rows = new ArrayList<>();
+        Iterator<Optional<Page>> output = processor.process(
+                SESSION,
+                new DriverYieldSignal(),
+                newSimpleAggregatedMemoryContext().newLocalMemoryContext(PageProcessor.class.getSimpleName()),
+                page);
+        while (output.hasNext()) {
+            Optional<Page> outputPage = output.next();
+            if (!outputPage.isPresent()) {
+                continue;
+            }
+            for (int position = 0; position < outputPage.get().getPositionCount(); position++) {
+                List<Object> row = new ArrayList<>();
+                for (int channel = 0; channel < projections.size(); channel++) {
+                    row.add(projections.get(channel).getType().getObjectValue(SESSION, outputPage.get().getBlock(channel), position));
+                }
+                rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private static Page createInputPage(boolean dictionary)
+    {
+        Long[] a = {0L, 1L, 2L, null, 4L, -3L, 0L, 1L, 50L, 3L};
+        Long[] b = {5L, null, -2L, 7L, 0L, 3L, 1L, 10L, 6L, -4L};
+        Block blockA = createBigintBlock(a);
+        Block blockB = createBigintBlock(b);
+        if (dictionary) {
+            // a small dictionary shared by all positions
+            blockA = new DictionaryBlock(blockA, new int[] {1, 2, 2, 0, 3, 1, 4, 4, 8, 0, 6, 3});
+            blockB = new DictionaryBlock(blockB, new int[] {0, 0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 9});
+        }
+        return new Page(blockA, blockB);
+    }
+
+    private static Block createBigintBlock(Long[] values)
+    {
+        BlockBuilder builder = BIGINT.createBlockBuilder(null, values.length);
+        for (Long value : values) {
+            if (value == null) {
+                builder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(builder, value);
+            }
+        }
+        return builder.build();
+    }
+
+    private static RowExpression arithmetic(OperatorType operator, RowExpression left, RowExpression right)
+    {
+        return call(internalOperator(operator, BIGINT, ImmutableList.of(BIGINT, BIGINT)), BIGINT, left, right);
+    }
+
+    private static RowExpression comparison(OperatorType operator, RowExpression left, RowExpression right)
+    {
+        return call(internalOperator(operator, BOOLEAN, ImmutableList.of(left.getType(), right.getType())), BOOLEAN, left, right);
+    }
+}
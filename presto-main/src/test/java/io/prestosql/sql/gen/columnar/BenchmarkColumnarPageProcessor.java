@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.SequencePageBuilder;
+import io.prestosql.Session;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.operator.DriverYieldSignal;
+import io.prestosql.operator.project.PageProcessor;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.gen.ExpressionCompiler;
+import io.prestosql.sql.gen.PageFunctionCompiler;
+import io.prestosql.sql.parser.SqlParser;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.TypeAnalyzer;
+import io.prestosql.sql.planner.TypeProvider;
+import io.prestosql.sql.relational.RowExpression;
+import io.prestosql.sql.relational.SqlToRowExpressionTranslator;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.NodeRef;
+import io.prestosql.testing.TestingSession;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static io.prestosql.memory.context.AggregatedMemoryContext.newSimpleAggregatedMemoryContext;
+import static io.prestosql.metadata.FunctionKind.SCALAR;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.operator.scalar.FunctionAssertions.createExpression;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+
+/**
+ * Compares generated bytecode with columnar evaluation on the expressions columnar evaluation
+ * is meant for: filters whose conjuncts all have to be evaluated and arithmetic projections
+ * over primitive columns.
+ */
+@SuppressWarnings({"PackageVisibleField", "FieldCanBeLocal"})
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(5)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@BenchmarkMode(Mode.AverageTime)
+public class BenchmarkColumnarPageProcessor
+{
+    private static final Metadata METADATA = createTestMetadataManager();
+    private static final TypeAnalyzer TYPE_ANALYZER = new TypeAnalyzer(new SqlParser(), METADATA);
+    private static final Session TEST_SESSION = TestingSession.testSessionBuilder().build();
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, BIGINT, BIGINT, DOUBLE);
+    private static final int POSITIONS = 8192;
+
+    private final Map<Symbol, Type> symbolTypes = new HashMap<>();
+    private final Map<Symbol, Integer> sourceLayout = new HashMap<>();
+
+    private Page inputPage;
+    private PageProcessor compiledProcessor;
+    private PageProcessor columnarProcessor;
+
+    @Param({"1", "50", "100"})
+    int selectivityPercent;
+
+    @Setup
+    public void setup()
+    {
+        for (int i = 0; i < TYPES.size(); i++) {
+            Symbol symbol = new Symbol("c" + i);
+            symbolTypes.put(symbol, TYPES.get(i));
+            sourceLayout.put(symbol, i);
+        }
+        inputPage = SequencePageBuilder.createSequencePage(TYPES, POSITIONS);
+
+        RowExpression filter = rowExpression("c0 % 100 < " + selectivityPercent + " AND c1 + c2 >= 0 AND c3 < 1e9");
+        List<RowExpression> projections = ImmutableList.of(
+                rowExpression("c1 * 3 + c2"),
+                rowExpression("c2 - c0 % 7"),
+                rowExpression("c3 * 0.5 + 1"));
+
+        compiledProcessor = new ExpressionCompiler(METADATA, new PageFunctionCompiler(METADATA, 0)).compilePageProcessor(Optional.of(filter), projections).get();
+        columnarProcessor = new ExpressionCompiler(METADATA, new PageFunctionCompiler(METADATA, 0, true)).compilePageProcessor(Optional.of(filter), projections).get();
+    }
+
+    @Benchmark
+    public List<Optional<Page>> compiled()
+    {
+        return process(compiledProcessor);
+    }
+
+    @Benchmark
+    public List<Optional<Page>> columnar()
+    {
+        return process(columnarProcessor);
+    }
+
+    private List<Optional<Page>> process(PageProcessor processor)
+    {
+        return ImmutableList.copyOf(
+                processor.process(
+                        null,
+                        new DriverYieldSignal(),
+                        newSimpleAggregatedMemoryContext().newLocalMemoryContext(PageProcessor.class.getSimpleName()),
+                        inputPage));
+    }
+
+    private RowExpression rowExpression(String value)
+    {
+        Expression expression = createExpression(value, METADATA, TypeProvider.copyOf(symbolTypes));
+
+        Map<NodeRef<Expression>, Type> expressionTypes = TYPE_ANALYZER.getTypes(TEST_SESSION, TypeProvider.copyOf(symbolTypes), expression);
+        return SqlToRowExpressionTranslator.translate(expression, SCALAR, expressionTypes, sourceLayout, METADATA, TEST_SESSION, true);
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        new BenchmarkColumnarPageProcessor().setup();
+
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkColumnarPageProcessor.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,259 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.gen.columnar;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.metadata.Metadata;
+import io.prestosql.operator.DriverYieldSignal;
+import io.prestosql.operator.Work;
+import io.prestosql.operator.project.PageFilter;
+import io.prestosql.operator.project.PageProjection;
+import io.prestosql.operator.project.SelectedPositions;
+import io.prestosql.spi.Page;
+import io.prestosql.spi.block.Block;
+import io.prestosql.spi.block.BlockBuilder;
+import io.prestosql.spi.function.OperatorType;
+import io.prestosql.spi.type.Type;
+import io.prestosql.sql.gen.PageFunctionCompiler;
+import io.prestosql.sql.relational.RowExpression;
+import io.prestosql.sql.relational.SpecialForm;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.prestosql.metadata.MetadataManager.createTestMetadataManager;
+import static io.prestosql.metadata.Signature.internalOperator;
+import static io.prestosql.operator.project.SelectedPositions.positionsList;
+import static io.prestosql.operator.project.SelectedPositions.positionsRange;
+import static io.prestosql.spi.StandardErrorCode.DIVISION_BY_ZERO;
+import static io.prestosql.spi.StandardErrorCode.NUMERIC_VALUE_OUT_OF_RANGE;
+import static io.prestosql.spi.function.OperatorType.ADD;
+import static io.prestosql.spi.function.OperatorType.DIVIDE;
+import static io.prestosql.spi.function.OperatorType.EQUAL;
+import static io.prestosql.spi.function.OperatorType.GREATER_THAN;
+import static io.prestosql.spi.function.OperatorType.LESS_THAN;
+import static io.prestosql.spi.function.OperatorType.MODULUS;
+import static io.prestosql.spi.function.OperatorType.MULTIPLY;
+import static io.prestosql.spi.function.OperatorType.NOT_EQUAL;
+import static io.prestosql.spi.function.OperatorType.SUBTRACT;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.spi.type.BooleanType.BOOLEAN;
+import static io.prestosql.spi.type.DoubleType.DOUBLE;
+import static io.prestosql.spi.type.IntegerType.INTEGER;
+import static io.prestosql.spi.type.SmallintType.SMALLINT;
+import static io.prestosql.spi.type.VarcharType.VARCHAR;
+import static io.prestosql.sql.relational.Expressions.call;
+import static io.prestosql.sql.relational.Expressions.constant;
+import static io.prestosql.sql.relational.Expressions.constantNull;
+import static io.prestosql.sql.relational.Expressions.field;
+import static io.prestosql.sql.relational.Signatures.castSignature;
+import static io.prestosql.sql.relational.Signatures.likeVarcharSignature;
+import static io.prestosql.sql.relational.Signatures.notSignature;
+import static io.prestosql.sql.relational.SpecialForm.Form.AND;
+import static io.prestosql.sql.relational.SpecialForm.Form.IN;
+import static io.prestosql.sql.relational.SpecialForm.Form.IS_NULL;
+import static io.prestosql.sql.relational.SpecialForm.Form.OR;
+import static io.prestosql.testing.TestingConnectorSession.SESSION;
+import static io.prestosql.testing.assertions.PrestoExceptionAssert.assertPrestoExceptionThrownBy;
+import static io.prestosql.type.LikeFunctions.likePattern;
+import static io.prestosql.type.LikePatternType.LIKE_PATTERN;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestColumnarExpressionCompiler
+{
+    private static final int BIGINT_CHANNEL = 0;
+    private static final int DOUBLE_CHANNEL = 1;
+    private static final int VARCHAR_CHANNEL = 2;
+    private static final int INTEGER_CHANNEL = 3;
+
+    private final Metadata metadata = createTestMetadataManager();
+    private final PageFunctionCompiler compiledFunctions = new PageFunctionCompiler(metadata, 0, false);
+    private final PageFunctionCompiler columnarFunctions = new PageFunctionCompiler(metadata, 0, true);
+
+    @Test
+    public void testProjectionsMatchCompiledExpressions()
+    {
+        Page page = createInputPage();
+        List<RowExpression> projections = ImmutableList.of(
+                arithmetic(ADD, BIGINT, field(BIGINT_CHANNEL, BIGINT), constant(5L, BIGINT)),
+                arithmetic(SUBTRACT, BIGINT, field(BIGINT_CHANNEL, BIGINT), field(BIGINT_CHANNEL, BIGINT)),
+                arithmetic(MODULUS, INTEGER, field(INTEGER_CHANNEL, INTEGER), constant(7L, INTEGER)),
+                arithmetic(MULTIPLY, DOUBLE, cast(DOUBLE, field(BIGINT_CHANNEL, BIGINT)), field(DOUBLE_CHANNEL, DOUBLE)),
+                arithmetic(DIVIDE, DOUBLE, field(DOUBLE_CHANNEL, DOUBLE), constant(0.0, DOUBLE)),
+                arithmetic(ADD, BIGINT, cast(BIGINT, field(INTEGER_CHANNEL, INTEGER)), constantNull(BIGINT)),
+                cast(BIGINT, field(DOUBLE_CHANNEL, DOUBLE)),
+                cast(SMALLINT, field(INTEGER_CHANNEL, INTEGER)),
+                comparison(GREATER_THAN, field(BIGINT_CHANNEL, BIGINT), constant(3L, BIGINT)),
+                comparison(NOT_EQUAL, field(DOUBLE_CHANNEL, DOUBLE), constant(0.5, DOUBLE)),
+                new SpecialForm(IS_NULL, BOOLEAN, field(VARCHAR_CHANNEL, VARCHAR)),
+                new SpecialForm(IS_NULL, BOOLEAN, arithmetic(ADD, BIGINT, field(BIGINT_CHANNEL, BIGINT), constant(1L, BIGINT))),
+                new SpecialForm(IN, BOOLEAN, field(BIGINT_CHANNEL, BIGINT), constant(1L, BIGINT), constant(4L, BIGINT), constant(-3L, BIGINT)),
+                like(field(VARCHAR_CHANNEL, VARCHAR), "ab%"),
+                like(field(VARCHAR_CHANNEL, VARCHAR), "%"),
+                new SpecialForm(AND, BOOLEAN,
+                        comparison(LESS_THAN, field(DOUBLE_CHANNEL, DOUBLE), constant(0.5, DOUBLE)),
+                        comparison(GREATER_THAN, field(BIGINT_CHANNEL, BIGINT), constant(0L, BIGINT))),
+                new SpecialForm(OR, BOOLEAN,
+                        call(notSignature(), BOOLEAN, comparison(EQUAL, field(BIGINT_CHANNEL, BIGINT), constant(2L, BIGINT))),
+                        new SpecialForm(IS_NULL, BOOLEAN, field(DOUBLE_CHANNEL, DOUBLE))));
+
+        SelectedPositions allPositions = positionsRange(0, page.getPositionCount());
+        SelectedPositions somePositions = positionsList(new int[] {9, 1, 3, 4, 7, 10}, 1, 4);
+        for (RowExpression projection : projections) {
+            PageProjection columnar = columnarFunctions.compileProjection(projection, Optional.empty()).get();
+            assertTrue(columnar instanceof ColumnarPageProjection, projection.toString());
+            PageProjection compiled = compiledFunctions.compileProjection(projection, Optional.empty()).get();
+            for (SelectedPositions positions : ImmutableList.of(allPositions, somePositions)) {
+                assertEquals(
+                        toValues(projection.getType(), project(columnar, page, positions)),
+                        toValues(projection.getType(), project(compiled, page, positions)),
+                        projection.toString());
+            }
+        }
+    }
+
+    @Test
+    public void testFilterMatchesCompiledExpression()
+    {
+        Page page = createInputPage();
+        // division by zero must not be evaluated for the positions the left operand excludes
+        RowExpression filter = new SpecialForm(AND, BOOLEAN,
+                comparison(NOT_EQUAL, field(BIGINT_CHANNEL, BIGINT), constant(0L, BIGINT)),
+                comparison(GREATER_THAN, arithmetic(DIVIDE, BIGINT, constant(100L, BIGINT), field(BIGINT_CHANNEL, BIGINT)), constant(20L, BIGINT)));
+
+        PageFilter columnar = columnarFunctions.compileFilter(filter, Optional.empty()).get();
+        assertTrue(columnar instanceof ColumnarPageFilter);
+        PageFilter compiled = compiledFunctions.compileFilter(filter, Optional.empty()).get();
+
+        assertEquals(toList(columnar.filter(SESSION, page)), toList(compiled.filter(SESSION, page)));
+    }
+
+    @Test
+    public void testFailures()
+    {
+        Page page = createInputPage();
+        PageProjection overflow = columnarFunctions.compileProjection(
+                arithmetic(MULTIPLY, BIGINT, field(BIGINT_CHANNEL, BIGINT), constant(Long.MAX_VALUE, BIGINT)),
+                Optional.empty()).get();
+        assertPrestoExceptionThrownBy(() -> project(overflow, page, positionsRange(0, page.getPositionCount())))
+                .hasErrorCode(NUMERIC_VALUE_OUT_OF_RANGE);
+
+        PageProjection divisionByZero = columnarFunctions.compileProjection(
+                arithmetic(DIVIDE, BIGINT, constant(1L, BIGINT), field(BIGINT_CHANNEL, BIGINT)),
+                Optional.empty()).get();
+        assertPrestoExceptionThrownBy(() -> project(divisionByZero, page, positionsRange(0, page.getPositionCount())))
+                .hasErrorCode(DIVISION_BY_ZERO);
+    }
+
+    @Test
+    public void testUnsupportedExpressionsFallBack()
+    {
+        // varchar comparison and a LIKE pattern that is not a prefix
+        RowExpression varcharComparison = comparison(EQUAL, field(VARCHAR_CHANNEL, VARCHAR), constant(utf8Slice("ab"), VARCHAR));
+        assertFalse(ColumnarExpressionCompiler.compile(varcharComparison).isPresent());
+        assertFalse(columnarFunctions.compileFilter(varcharComparison, Optional.empty()).get() instanceof ColumnarPageFilter);
+        assertFalse(ColumnarExpressionCompiler.compile(like(field(VARCHAR_CHANNEL, VARCHAR), "a%b")).isPresent());
+        assertFalse(ColumnarExpressionCompiler.compile(like(field(VARCHAR_CHANNEL, VARCHAR), "a_%")).isPresent());
+    }
+
+    private static Page createInputPage()
+    {
+        Long[] bigints = {0L, 1L, 2L, null, 4L, -3L, 5L, 1L, null, 3L, 10L, 6L};
+        Double[] doubles = {0.5, null, 0.25, 1.5, -2.0, 0.75, null, 3.0, 0.1, 0.5, 7.7, -0.0};
+        String[] varchars = {"abc", "ab", "a", null, "xab", "abab", "", "b", "ab\nc", null, "ABC", "abz"};
+        Integer[] integers = {1, null, 4_000, -7, 8, 0, 100, null, 14, -1, 7_000, 3};
+
+        BlockBuilder bigintBuilder = BIGINT.createBlockBuilder(null, bigints.length);
+        BlockBuilder doubleBuilder = DOUBLE.createBlockBuilder(null, bigints.length);
+        BlockBuilder varcharBuilder = VARCHAR.createBlockBuilder(null, bigints.length);
+        BlockBuilder integerBuilder = INTEGER.createBlockBuilder(null, bigints.length);
+        for (int i = 0; i < bigints.length; i++) {
+            if (bigints[i] == null) {
+                bigintBuilder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(bigintBuilder, bigints[i]);
+            }
+            if (doubles[i] == null) {
+                doubleBuilder.appendNull();
+            }
+            else {
+                DOUBLE.writeDouble(doubleBuilder, doubles[i]);
+            }
+            if (varchars[i] == null) {
+                varcharBuilder.appendNull();
+            }
+            else {
+                VARCHAR.writeSlice(varcharBuilder, utf8Slice(varchars[i]));
+            }
+            if (integers[i] == null) {
+                integerBuilder.appendNull();
+            }
+            else {
+                INTEGER.writeLong(integerBuilder, integers[i]);
+            }
+        }
+        return new Page(bigintBuilder.build(), doubleBuilder.build(), varcharBuilder.build(), integerBuilder.build());
+    }
+
+    private static RowExpression arithmetic(OperatorType operator, Type type, RowExpression left, RowExpression right)
+    {
+        return call(internalOperator(operator, type, ImmutableList.of(type, type)), type, left, right);
+    }
+
+    private static RowExpression comparison(OperatorType operator, RowExpression left, RowExpression right)
+    {
+        return call(internalOperator(operator, BOOLEAN, ImmutableList.of(left.getType(), right.getType())), BOOLEAN, left, right);
+    }
+
+    private static RowExpression cast(Type type, RowExpression value)
+    {
+        return call(castSignature(type, value.getType()), type, value);
+    }
+
+    private static RowExpression like(RowExpression value, String pattern)
+    {
+        return call(likeVarcharSignature(), BOOLEAN, value, constant(likePattern(utf8Slice(pattern)), LIKE_PATTERN));
+    }
+
+    private static Block project(PageProjection projection, Page page, SelectedPositions selectedPositions)
+    {
+        Work<Block> work = projection.project(SESSION, new DriverYieldSignal(), projection.getInputChannels().getInputChannels(page), selectedPositions);
+        assertTrue(work.process());
+        return work.getResult();
+    }
+
+    private static List<Object> toValues(Type type, Block block)
+    {
+        List<Object> values = new ArrayList<>();
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            values.add(type.getObjectValue(SESSION, block, position));
+        }
+        return values;
+    }
+
+    private static List<Integer> toList(SelectedPositions positions)
+    {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < positions.size(); i++) {
+            list.add(positions.isList() ? positions.getPositions()[positions.getOffset() + i] : positions.getOffset() + i);
+        }
+        return list;
+    }
+}
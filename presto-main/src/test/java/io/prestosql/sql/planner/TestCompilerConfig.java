@@ -28,7 +28,9 @@ public class TestCompilerConfig
     public void testDefaults()
     {
         assertRecordedDefaults(recordDefaults(CompilerConfig.class)
-                .setExpressionCacheSize(10_000));
+                .setExpressionCacheSize(10_000)
+                .setColumnarEvaluationEnabled(false)
+                .setCommonSubExpressionEliminationEnabled(false));
     }
 
     @Test
@@ -36,10 +38,14 @@ public class TestCompilerConfig
     {
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("compiler.expression-cache-size", "52")
+                .put("compiler.columnar-evaluation-enabled", "true")
+                .put("compiler.common-subexpression-elimination-enabled", "true")
                 .build();
 
         CompilerConfig expected = new CompilerConfig()
-                .setExpressionCacheSize(52);
+                .setExpressionCacheSize(52)
+                .setColumnarEvaluationEnabled(true)
+                .setCommonSubExpressionEliminationEnabled(true);
 
         assertFullMapping(properties, expected);
     }
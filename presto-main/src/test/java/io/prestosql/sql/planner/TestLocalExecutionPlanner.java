@@ -14,18 +14,31 @@
 package io.prestosql.sql.planner;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.Session;
+import io.prestosql.operator.Driver;
+import io.prestosql.operator.HashBuilderOperator;
+import io.prestosql.operator.TaskContext;
+import io.prestosql.plugin.tpch.TpchConnectorFactory;
 import io.prestosql.spi.ErrorCodeSupplier;
 import io.prestosql.testing.LocalQueryRunner;
+import io.prestosql.testing.PageConsumerOperator.PageConsumerOutputFactory;
 import org.intellij.lang.annotations.Language;
 import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import java.util.List;
+
 import static io.airlift.testing.Closeables.closeAllRuntimeException;
 import static io.prestosql.SessionTestUtils.TEST_SESSION;
+import static io.prestosql.SystemSessionProperties.TASK_CONCURRENCY;
+import static io.prestosql.SystemSessionProperties.TASK_HASH_BUILD_CONCURRENCY;
 import static io.prestosql.spi.StandardErrorCode.COMPILER_ERROR;
+import static io.prestosql.testing.TestingTaskContext.createTaskContext;
 import static io.prestosql.testing.assertions.PrestoExceptionAssert.assertPrestoExceptionThrownBy;
 import static java.util.Collections.nCopies;
+import static org.testng.Assert.assertEquals;
 
 public class TestLocalExecutionPlanner
 {
@@ -35,6 +48,7 @@ public class TestLocalExecutionPlanner
     public void setUp()
     {
         runner = new LocalQueryRunner(TEST_SESSION);
+        runner.createCatalog("tpch", new TpchConnectorFactory(1), ImmutableMap.of());
     }
 
     @AfterClass(alwaysRun = true)
@@ -53,6 +67,40 @@ public class TestLocalExecutionPlanner
         assertFails("SELECT " + outer, COMPILER_ERROR);
     }
 
+    @Test
+    public void testHashBuildConcurrency()
+    {
+        Session session = Session.builder(TEST_SESSION)
+                .setSystemProperty(TASK_CONCURRENCY, "2")
+                .build();
+        assertEquals(countHashBuildDrivers(session), 2);
+
+        // the build pipeline gets its own driver count, independent of task concurrency
+        Session hashBuildConcurrency = Session.builder(session)
+                .setSystemProperty(TASK_HASH_BUILD_CONCURRENCY, "8")
+                .build();
+        assertEquals(countHashBuildDrivers(hashBuildConcurrency), 8);
+    }
+
+    private long countHashBuildDrivers(Session session)
+    {
+        TaskContext taskContext = createTaskContext(runner.getExecutor(), runner.getScheduler(), session);
+        List<Driver> drivers = runner.inTransaction(session, transactionSession -> runner.createDrivers(
+                transactionSession,
+                "SELECT o.orderkey, l.linenumber FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey",
+                new PageConsumerOutputFactory(types -> (page -> {})),
+                taskContext));
+        try {
+            return drivers.stream()
+                    .filter(driver -> driver.getDriverContext().getOperatorContexts().stream()
+                            .anyMatch(operator -> operator.getOperatorType().equals(HashBuilderOperator.class.getSimpleName())))
+                    .count();
+        }
+        finally {
+            drivers.forEach(Driver::close);
+        }
+    }
+
     private void assertFails(@Language("SQL") String sql, ErrorCodeSupplier supplier)
     {
         assertPrestoExceptionThrownBy(() -> runner.execute(sql))
@@ -0,0 +1,46 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner;
+
+import com.google.common.collect.ImmutableList;
+import io.prestosql.sql.tree.CurrentTime;
+import io.prestosql.sql.tree.Expression;
+import io.prestosql.sql.tree.FunctionCall;
+import io.prestosql.sql.tree.Identifier;
+import io.prestosql.sql.tree.QualifiedName;
+import org.testng.annotations.Test;
+
+import static io.prestosql.sql.planner.SessionTimeEvaluator.dependsOnSessionTime;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestSessionTimeEvaluator
+{
+    @Test
+    public void testSanity()
+    {
+        assertTrue(dependsOnSessionTime(function("now")));
+        assertTrue(dependsOnSessionTime(function("current_date")));
+        assertTrue(dependsOnSessionTime(function("localtimestamp")));
+        assertTrue(dependsOnSessionTime(new CurrentTime(CurrentTime.Function.TIMESTAMP)));
+        assertTrue(dependsOnSessionTime(function("date_trunc", new Identifier("unit"), function("now"))));
+        assertFalse(dependsOnSessionTime(function("abs", new Identifier("symbol"))));
+        assertFalse(dependsOnSessionTime(function("rand")));
+    }
+
+    private static FunctionCall function(String name, Expression... arguments)
+    {
+        return new FunctionCall(QualifiedName.of(name), ImmutableList.copyOf(arguments));
+    }
+}
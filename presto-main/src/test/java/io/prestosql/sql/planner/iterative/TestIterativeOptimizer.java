@@ -22,7 +22,13 @@ import io.prestosql.matching.Captures;
 import io.prestosql.matching.Pattern;
 import io.prestosql.plugin.tpch.TpchConnectorFactory;
 import io.prestosql.spi.PrestoException;
+import io.prestosql.sql.planner.PlanNodeIdAllocator;
+import io.prestosql.sql.planner.QueryRuleStatsRecorder;
 import io.prestosql.sql.planner.RuleStatsRecorder;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.SymbolAllocator;
+import io.prestosql.sql.planner.iterative.rule.RemoveRedundantIdentityProjections;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
 import io.prestosql.sql.planner.optimizations.PlanOptimizer;
 import io.prestosql.sql.planner.plan.Assignments;
 import io.prestosql.sql.planner.plan.PlanNode;
@@ -32,6 +38,7 @@ import org.testng.annotations.AfterClass;
 import org.testng.annotations.BeforeClass;
 import org.testng.annotations.Test;
 
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static io.prestosql.spi.StandardErrorCode.OPTIMIZER_TIMEOUT;
 import static io.prestosql.sql.planner.plan.Patterns.project;
 import static io.prestosql.testing.TestingSession.testSessionBuilder;
@@ -89,6 +96,28 @@ public class TestIterativeOptimizer
         }
     }
 
+    @Test
+    public void testRecordsQueryRuleStats()
+    {
+        PlanNodeIdAllocator idAllocator = new PlanNodeIdAllocator();
+        PlanBuilder p = new PlanBuilder(idAllocator, queryRunner.getMetadata());
+        Symbol a = p.symbol("a");
+        PlanNode plan = p.project(Assignments.identity(a), p.project(Assignments.identity(a), p.values(a)));
+
+        PlanOptimizer optimizer = new IterativeOptimizer(
+                new RuleStatsRecorder(),
+                queryRunner.getStatsCalculator(),
+                queryRunner.getCostCalculator(),
+                ImmutableSet.of(new RemoveRedundantIdentityProjections()));
+        QueryRuleStatsRecorder queryRuleStats = new QueryRuleStatsRecorder();
+        optimizer.optimize(plan, testSessionBuilder().build(), p.getTypes(), new SymbolAllocator(p.getTypes().allTypes()), idAllocator, WarningCollector.NOOP, queryRuleStats);
+
+        RuleStatsSummary ruleStats = getOnlyElement(queryRuleStats.getRuleStats());
+        assertEquals(ruleStats.getRule(), RemoveRedundantIdentityProjections.class.getSimpleName());
+        assertEquals(ruleStats.getHits(), 2);
+        assertEquals(ruleStats.getFailures(), 0);
+    }
+
     private static class NonConvergingRule
             implements Rule<ProjectNode>
     {
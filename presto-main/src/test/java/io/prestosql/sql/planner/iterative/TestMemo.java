@@ -27,6 +27,8 @@ import java.util.Optional;
 
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestMemo
 {
@@ -253,6 +255,36 @@ public class TestMemo
         assertEquals(memo.getCost(xGroup), Optional.empty());
     }
 
+    @Test
+    public void testClearExploredOnReplace()
+    {
+        PlanNode z = node();
+        PlanNode y = node(z);
+        PlanNode x = node(y);
+
+        Memo memo = new Memo(idAllocator, x);
+        int xGroup = memo.getRootGroup();
+        int yGroup = getChildGroup(memo, xGroup);
+        int zGroup = getChildGroup(memo, yGroup);
+
+        // a group cannot be explored before its children
+        memo.markExplored(yGroup);
+        assertFalse(memo.isExplored(yGroup));
+
+        memo.markExplored(zGroup);
+        memo.markExplored(yGroup);
+        memo.markExplored(xGroup);
+        assertTrue(memo.isExplored(xGroup));
+        assertTrue(memo.isExplored(yGroup));
+        assertTrue(memo.isExplored(zGroup));
+
+        memo.replace(zGroup, node(), "rule");
+
+        assertFalse(memo.isExplored(zGroup));
+        assertFalse(memo.isExplored(yGroup));
+        assertFalse(memo.isExplored(xGroup));
+    }
+
     private static void assertMatchesStructure(PlanNode actual, PlanNode expected)
     {
         assertEquals(actual.getClass(), expected.getClass());
@@ -35,7 +35,9 @@ import org.openjdk.jmh.runner.options.Options;
 import org.openjdk.jmh.runner.options.OptionsBuilder;
 import org.openjdk.jmh.runner.options.VerboseMode;
 
+import static com.google.common.base.Preconditions.checkState;
 import static io.prestosql.testing.TestingSession.testSessionBuilder;
+import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.openjdk.jmh.annotations.Mode.AverageTime;
 import static org.openjdk.jmh.annotations.Scope.Thread;
@@ -62,6 +64,12 @@ public class BenchmarkReorderChainedJoins
                         "JOIN region r4 ON r4.regionkey = r3.regionkey");
     }
 
+    @Benchmark
+    public MaterializedResult benchmarkReorderLongChainedJoins(LongChainBenchmarkInfo benchmarkInfo)
+    {
+        return benchmarkInfo.getQueryRunner().execute(benchmarkInfo.getQuery());
+    }
+
     @State(Thread)
     public static class BenchmarkInfo
     {
@@ -95,6 +103,60 @@ public class BenchmarkReorderChainedJoins
         }
     }
 
+    /*
+     * Every table is joined only with the tables next to it in the chain, on a different
+     * key each time, so equality inference does not connect tables further apart.
+     */
+    @State(Thread)
+    public static class LongChainBenchmarkInfo
+    {
+        @Param({"ELIMINATE_CROSS_JOINS", "AUTOMATIC"})
+        private String joinReorderingStrategy;
+
+        @Param({"10", "20", "30"})
+        private int numberOfTables;
+
+        private String query;
+        private LocalQueryRunner queryRunner;
+
+        @Setup
+        public void setup()
+        {
+            checkState(numberOfTables >= 2, "numberOfTables must be >= 2");
+            Session session = testSessionBuilder()
+                    .setSystemProperty("join_reordering_strategy", joinReorderingStrategy)
+                    .setSystemProperty("join_distribution_type", "AUTOMATIC")
+                    .setSystemProperty("max_reordered_joins", Integer.toString(numberOfTables))
+                    .setCatalog("tpch")
+                    .setSchema("tiny")
+                    .build();
+            queryRunner = new LocalQueryRunner(session);
+            queryRunner.createCatalog("tpch", new TpchConnectorFactory(1), ImmutableMap.of());
+            StringBuilder stringBuilder = new StringBuilder();
+            stringBuilder.append("EXPLAIN SELECT * FROM nation n1");
+            for (int i = 2; i <= numberOfTables; i++) {
+                stringBuilder.append(format(" JOIN nation n%s ON n%s.nationkey = n%s.regionkey", i, i - 1, i));
+            }
+            query = stringBuilder.toString();
+        }
+
+        public String getQuery()
+        {
+            return query;
+        }
+
+        public QueryRunner getQueryRunner()
+        {
+            return queryRunner;
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            queryRunner.close();
+        }
+    }
+
     public static void main(String[] args)
             throws RunnerException
     {
@@ -67,7 +67,7 @@ public class BenchmarkReorderInterconnectedJoins
         @Param({"ELIMINATE_CROSS_JOINS", "AUTOMATIC"})
         private String joinReorderingStrategy;
 
-        @Param({"2", "4", "6", "8", "10"})
+        @Param({"2", "4", "6", "8", "10", "15", "20", "30"})
         private int numberOfTables;
 
         private String query;
@@ -80,6 +80,7 @@ public class BenchmarkReorderInterconnectedJoins
             Session session = testSessionBuilder()
                     .setSystemProperty("join_reordering_strategy", joinReorderingStrategy)
                     .setSystemProperty("join_distribution_type", "AUTOMATIC")
+                    .setSystemProperty("max_reordered_joins", Integer.toString(numberOfTables))
                     .setCatalog("tpch")
                     .setSchema("tiny")
                     .build();
@@ -31,6 +31,7 @@ import io.prestosql.sql.planner.iterative.Lookup;
 import io.prestosql.sql.planner.iterative.Rule;
 import io.prestosql.sql.planner.iterative.rule.ReorderJoins.JoinEnumerationResult;
 import io.prestosql.sql.planner.iterative.rule.ReorderJoins.JoinEnumerator;
+import io.prestosql.sql.planner.iterative.rule.ReorderJoins.JoinGraph;
 import io.prestosql.sql.planner.iterative.rule.ReorderJoins.MultiJoinNode;
 import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
 import io.prestosql.testing.LocalQueryRunner;
@@ -43,11 +44,11 @@ import java.util.Optional;
 
 import static io.airlift.testing.Closeables.closeAllRuntimeException;
 import static io.prestosql.sql.planner.iterative.Lookup.noLookup;
-import static io.prestosql.sql.planner.iterative.rule.ReorderJoins.JoinEnumerator.generatePartitions;
 import static io.prestosql.sql.tree.BooleanLiteral.TRUE_LITERAL;
 import static io.prestosql.testing.TestingSession.testSessionBuilder;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
 
 public class TestJoinEnumerator
 {
@@ -67,23 +68,41 @@ public class TestJoinEnumerator
     }
 
     @Test
-    public void testGeneratePartitions()
+    public void testGenerateConnectedPartitions()
     {
-        assertEquals(generatePartitions(4),
-                ImmutableSet.of(
-                        ImmutableSet.of(0),
-                        ImmutableSet.of(0, 1),
-                        ImmutableSet.of(0, 2),
-                        ImmutableSet.of(0, 3),
-                        ImmutableSet.of(0, 1, 2),
-                        ImmutableSet.of(0, 1, 3),
-                        ImmutableSet.of(0, 2, 3)));
-
-        assertEquals(generatePartitions(3),
-                ImmutableSet.of(
-                        ImmutableSet.of(0),
-                        ImmutableSet.of(0, 1),
-                        ImmutableSet.of(0, 2)));
+        // every pair of nodes can be joined, so every partitioning is generated
+        assertEquals(completeGraph(4).generateConnectedPartitions(0b1111),
+                ImmutableList.of(0b0001L, 0b0011L, 0b0101L, 0b0111L, 0b1001L, 0b1011L, 0b1101L));
+
+        assertEquals(completeGraph(3).generateConnectedPartitions(0b111),
+                ImmutableList.of(0b001L, 0b011L, 0b101L));
+
+        // 0 - 1 - 2 - 3
+        JoinGraph chain = chainGraph(4);
+        assertEquals(chain.generateConnectedPartitions(0b1111), ImmutableList.of(0b0001L, 0b0011L, 0b0111L));
+        assertEquals(chain.generateConnectedPartitions(0b1110), ImmutableList.of(0b0010L, 0b0110L));
+        // a set that can only be joined with a cross join has no partitions
+        assertEquals(chain.generateConnectedPartitions(0b1011), ImmutableList.of());
+    }
+
+    @Test
+    public void testCountConnectedSubgraphs()
+    {
+        assertEquals(completeGraph(4).countConnectedSubgraphs(100), 15);
+        assertEquals(chainGraph(4).countConnectedSubgraphs(100), 10);
+        assertEquals(chainGraph(30).countConnectedSubgraphs(1000), 465);
+        // counting stops once the limit is exceeded
+        assertEquals(completeGraph(30).countConnectedSubgraphs(1000), 1001);
+    }
+
+    @Test
+    public void testIsConnected()
+    {
+        JoinGraph chain = chainGraph(4);
+        assertTrue(chain.isConnected(0b1111));
+        assertTrue(chain.isConnected(0b0110));
+        assertFalse(chain.isConnected(0b1001));
+        assertFalse(chain.isConnected(0));
     }
 
     @Test
@@ -107,6 +126,25 @@ public class TestJoinEnumerator
         assertEquals(actual.getCost(), PlanCostEstimate.infinite());
     }
 
+    private static JoinGraph completeGraph(int nodes)
+    {
+        long[] edges = new long[nodes];
+        for (int node = 0; node < nodes; node++) {
+            edges[node] = ((1L << nodes) - 1) & ~(1L << node);
+        }
+        return new JoinGraph(edges);
+    }
+
+    private static JoinGraph chainGraph(int nodes)
+    {
+        long[] edges = new long[nodes];
+        for (int node = 0; node < nodes - 1; node++) {
+            edges[node] |= 1L << (node + 1);
+            edges[node + 1] |= 1L << node;
+        }
+        return new JoinGraph(edges);
+    }
+
     private Rule.Context createContext()
     {
         PlanNodeIdAllocator planNodeIdAllocator = new PlanNodeIdAllocator();
@@ -42,6 +42,7 @@ import java.util.Optional;
 
 import static io.airlift.testing.Closeables.closeAllRuntimeException;
 import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.prestosql.SystemSessionProperties.JOIN_ENUMERATION_MAX_SUBGRAPHS;
 import static io.prestosql.SystemSessionProperties.JOIN_MAX_BROADCAST_TABLE_SIZE;
 import static io.prestosql.SystemSessionProperties.JOIN_REORDERING_STRATEGY;
 import static io.prestosql.spi.type.VarcharType.createUnboundedVarcharType;
@@ -116,6 +117,39 @@ public class TestReorderJoins
                         .withExactOutputs("A2"));
     }
 
+    @Test
+    public void testGreedyJoinOrderKeepsOutputSymbols()
+    {
+        assertReorderJoins()
+                .on(p ->
+                        p.join(
+                                INNER,
+                                p.values(new PlanNodeId("valuesA"), ImmutableList.of(p.symbol("A1"), p.symbol("A2")), TWO_ROWS),
+                                p.values(new PlanNodeId("valuesB"), ImmutableList.of(p.symbol("B1")), TWO_ROWS),
+                                ImmutableList.of(new EquiJoinClause(p.symbol("A1"), p.symbol("B1"))),
+                                ImmutableList.of(p.symbol("A2")),
+                                Optional.empty()))
+                .setSystemProperty(JOIN_ENUMERATION_MAX_SUBGRAPHS, "1")
+                .overrideStats("valuesA", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(5000)
+                        .addSymbolStatistics(ImmutableMap.of(
+                                new Symbol("A1"), new SymbolStatsEstimate(0, 100, 0, 100, 100),
+                                new Symbol("A2"), new SymbolStatsEstimate(0, 100, 0, 100, 100)))
+                        .build())
+                .overrideStats("valuesB", PlanNodeStatsEstimate.builder()
+                        .setOutputRowCount(10000)
+                        .addSymbolStatistics(ImmutableMap.of(new Symbol("B1"), new SymbolStatsEstimate(0, 100, 0, 100, 100)))
+                        .build())
+                .matches(join(
+                        INNER,
+                        ImmutableList.of(equiJoinClause("A1", "B1")),
+                        Optional.empty(),
+                        Optional.of(PARTITIONED),
+                        values(ImmutableMap.of("A1", 0, "A2", 1)),
+                        values(ImmutableMap.of("B1", 0)))
+                        .withExactOutputs("A2"));
+    }
+
     @Test
     public void testReplicatesAndFlipsWhenOneTableMuchSmaller()
     {
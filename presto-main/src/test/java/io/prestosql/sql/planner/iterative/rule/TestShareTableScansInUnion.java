@@ -0,0 +1,209 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.planner.iterative.rule;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.connector.CatalogName;
+import io.prestosql.metadata.TableHandle;
+import io.prestosql.plugin.tpch.TpchColumnHandle;
+import io.prestosql.plugin.tpch.TpchTableHandle;
+import io.prestosql.plugin.tpch.TpchTransactionHandle;
+import io.prestosql.sql.planner.Symbol;
+import io.prestosql.sql.planner.iterative.rule.test.BaseRuleTest;
+import io.prestosql.sql.planner.iterative.rule.test.PlanBuilder;
+import io.prestosql.sql.planner.plan.FilterNode;
+import io.prestosql.sql.planner.plan.GroupIdNode;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.sql.planner.plan.PlanNode;
+import io.prestosql.sql.planner.plan.ProjectNode;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static io.prestosql.SystemSessionProperties.SHARE_TABLE_SCANS_IN_UNION;
+import static io.prestosql.plugin.tpch.TpchMetadata.TINY_SCALE_FACTOR;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.filter;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.node;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.tableScan;
+import static io.prestosql.sql.planner.assertions.PlanMatchPattern.union;
+import static io.prestosql.sql.planner.iterative.rule.test.PlanBuilder.expression;
+
+public class TestShareTableScansInUnion
+        extends BaseRuleTest
+{
+    @Test
+    public void testDoesNotFireWhenDisabled()
+    {
+        tester().assertThat(new ShareTableScansInUnion())
+                .on(p -> {
+                    Symbol first = p.symbol("first", BIGINT);
+                    Symbol second = p.symbol("second", BIGINT);
+                    Symbol output = p.symbol("output", BIGINT);
+                    return p.union(
+                            ImmutableListMultimap.of(output, first, output, second),
+                            ImmutableList.of(
+                                    p.filter(expression("first > BIGINT '10'"), scan(p, "orders", first)),
+                                    p.filter(expression("second < BIGINT '5'"), scan(p, "orders", second))));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testSharesScanOfSameTable()
+    {
+        tester().assertThat(new ShareTableScansInUnion())
+                .setSystemProperty(SHARE_TABLE_SCANS_IN_UNION, "true")
+                .on(p -> {
+                    Symbol first = p.symbol("first", BIGINT);
+                    Symbol second = p.symbol("second", BIGINT);
+                    Symbol output = p.symbol("output", BIGINT);
+                    return p.union(
+                            ImmutableListMultimap.of(output, first, output, second),
+                            ImmutableList.of(
+                                    p.filter(expression("first > BIGINT '10'"), scan(p, "orders", first)),
+                                    p.filter(expression("second < BIGINT '5'"), scan(p, "orders", second))));
+                })
+                .matches(
+                        node(ProjectNode.class,
+                                node(FilterNode.class,
+                                        node(GroupIdNode.class,
+                                                filter(
+                                                        "orderkey > BIGINT '10' OR orderkey < BIGINT '5'",
+                                                        tableScan("orders", ImmutableMap.of("orderkey", "orderkey")))))));
+    }
+
+    @Test
+    public void testKeepsBranchesOverOtherTables()
+    {
+        tester().assertThat(new ShareTableScansInUnion())
+                .setSystemProperty(SHARE_TABLE_SCANS_IN_UNION, "true")
+                .on(p -> {
+                    Symbol first = p.symbol("first", BIGINT);
+                    Symbol second = p.symbol("second", BIGINT);
+                    Symbol third = p.symbol("third", BIGINT);
+                    Symbol output = p.symbol("output", BIGINT);
+                    return p.union(
+                            ImmutableListMultimap.of(output, first, output, second, output, third),
+                            ImmutableList.of(
+                                    p.filter(expression("first > BIGINT '10'"), scan(p, "orders", first)),
+                                    scan(p, "lineitem", second),
+                                    scan(p, "orders", third)));
+                })
+                .matches(
+                        union(
+                                node(ProjectNode.class,
+                                        node(FilterNode.class,
+                                                node(GroupIdNode.class,
+                                                        tableScan("orders", ImmutableMap.of("orderkey", "orderkey"))))),
+                                tableScan("lineitem", ImmutableMap.of("orderkey", "orderkey"))));
+    }
+
+    @Test
+    public void testDoesNotFireForDifferentTables()
+    {
+        tester().assertThat(new ShareTableScansInUnion())
+                .setSystemProperty(SHARE_TABLE_SCANS_IN_UNION, "true")
+                .on(p -> {
+                    Symbol first = p.symbol("first", BIGINT);
+                    Symbol second = p.symbol("second", BIGINT);
+                    Symbol output = p.symbol("output", BIGINT);
+                    return p.union(
+                            ImmutableListMultimap.of(output, first, output, second),
+                            ImmutableList.of(
+                                    scan(p, "orders", first),
+                                    scan(p, "lineitem", second)));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForNonDeterministicFilter()
+    {
+        tester().assertThat(new ShareTableScansInUnion())
+                .setSystemProperty(SHARE_TABLE_SCANS_IN_UNION, "true")
+                .on(p -> {
+                    Symbol first = p.symbol("first", BIGINT);
+                    Symbol second = p.symbol("second", BIGINT);
+                    Symbol output = p.symbol("output", BIGINT);
+                    return p.union(
+                            ImmutableListMultimap.of(output, first, output, second),
+                            ImmutableList.of(
+                                    p.filter(expression("random() > 0.5"), scan(p, "orders", first)),
+                                    p.filter(expression("random() < 0.5"), scan(p, "orders", second))));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForSelfJoinBranch()
+    {
+        // only scans directly under the union are shared, not the two sides of a self-join
+        tester().assertThat(new ShareTableScansInUnion())
+                .setSystemProperty(SHARE_TABLE_SCANS_IN_UNION, "true")
+                .on(p -> {
+                    Symbol left = p.symbol("left", BIGINT);
+                    Symbol right = p.symbol("right", BIGINT);
+                    Symbol other = p.symbol("other", BIGINT);
+                    Symbol output = p.symbol("output", BIGINT);
+                    return p.union(
+                            ImmutableListMultimap.of(output, left, output, other),
+                            ImmutableList.of(
+                                    p.join(
+                                            JoinNode.Type.INNER,
+                                            scan(p, "orders", left),
+                                            scan(p, "orders", right),
+                                            new JoinNode.EquiJoinClause(left, right)),
+                                    p.filter(expression("other > BIGINT '10'"), scan(p, "lineitem", other))));
+                })
+                .doesNotFire();
+    }
+
+    @Test
+    public void testDoesNotFireForAggregatedBranches()
+    {
+        // e.g. two references to a WITH query that aggregates the same table
+        tester().assertThat(new ShareTableScansInUnion())
+                .setSystemProperty(SHARE_TABLE_SCANS_IN_UNION, "true")
+                .on(p -> {
+                    Symbol first = p.symbol("first", BIGINT);
+                    Symbol second = p.symbol("second", BIGINT);
+                    Symbol output = p.symbol("output", BIGINT);
+                    return p.union(
+                            ImmutableListMultimap.of(output, first, output, second),
+                            ImmutableList.of(
+                                    p.aggregation(builder -> builder
+                                            .singleGroupingSet(first)
+                                            .source(scan(p, "orders", first))),
+                                    p.aggregation(builder -> builder
+                                            .singleGroupingSet(second)
+                                            .source(scan(p, "orders", second)))));
+                })
+                .doesNotFire();
+    }
+
+    private static PlanNode scan(PlanBuilder p, String tableName, Symbol orderkey)
+    {
+        return p.tableScan(
+                new TableHandle(
+                        new CatalogName("local"),
+                        new TpchTableHandle(tableName, TINY_SCALE_FACTOR),
+                        TpchTransactionHandle.INSTANCE,
+                        Optional.empty()),
+                ImmutableList.of(orderkey),
+                ImmutableMap.of(orderkey, new TpchColumnHandle("orderkey", BIGINT)));
+    }
+}
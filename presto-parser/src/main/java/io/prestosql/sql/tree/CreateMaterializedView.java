@@ -0,0 +1,119 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.sql.tree;
+
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+public class CreateMaterializedView
+        extends Statement
+{
+    private final QualifiedName name;
+    private final Query query;
+    private final boolean notExists;
+    private final List<Property> properties;
+
+    public CreateMaterializedView(QualifiedName name, Query query, boolean notExists, List<Property> properties)
+    {
+        this(Optional.empty(), name, query, notExists, properties);
+    }
+
+    public CreateMaterializedView(NodeLocation location, QualifiedName name, Query query, boolean notExists, List<Property> properties)
+    {
+        this(Optional.of(location), name, query, notExists, properties);
+    }
+
+    private CreateMaterializedView(Optional<NodeLocation> location, QualifiedName name, Query query, boolean notExists, List<Property> properties)
+    {
+        super(location);
+        this.name = requireNonNull(name, "name is null");
+        this.query = requireNonNull(query, "query is null");
+        this.notExists = notExists;
+        this.properties = ImmutableList.copyOf(requireNonNull(properties, "properties is null"));
+    }
+
+    public QualifiedName getName()
+    {
+        return name;
+    }
+
+    public Query getQuery()
+    {
+        return query;
+    }
+
+    public boolean isNotExists()
+    {
+        return notExists;
+    }
+
+    public List<Property> getProperties()
+    {
+        return properties;
+    }
+
+    @Override
+    public <R, C> R accept(AstVisitor<R, C> visitor, C context)
+    {
+        return visitor.visitCreateMaterializedView(this, context);
+    }
+
+    @Override
+    public List<Node> getChildren()
+    {
+        return ImmutableList.<Node>builder()
+                .add(query)
+                .addAll(properties)
+                .build();
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(name, query, notExists, properties);
+    }
+
+    @Override
+    public boolean equals(Object obj)
+    {
+        if (this == obj) {
+            return true;
+        }
+        if ((obj == null) || (getClass() != obj.getClass())) {
+            return false;
+        }
+        CreateMaterializedView o = (CreateMaterializedView) obj;
+        return Objects.equals(name, o.name)
+                && Objects.equals(query, o.query)
+                && Objects.equals(notExists, o.notExists)
+                && Objects.equals(properties, o.properties);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("name", name)
+                .add("query", query)
+                .add("notExists", notExists)
+                .add("properties", properties)
+                .toString();
+    }
+}
@@ -35,6 +35,7 @@ import io.prestosql.sql.tree.ColumnDefinition;
 import io.prestosql.sql.tree.Comment;
 import io.prestosql.sql.tree.Commit;
 import io.prestosql.sql.tree.ComparisonExpression;
+import io.prestosql.sql.tree.CreateMaterializedView;
 import io.prestosql.sql.tree.CreateRole;
 import io.prestosql.sql.tree.CreateSchema;
 import io.prestosql.sql.tree.CreateTable;
@@ -50,6 +51,7 @@ import io.prestosql.sql.tree.DescribeInput;
 import io.prestosql.sql.tree.DescribeOutput;
 import io.prestosql.sql.tree.DoubleLiteral;
 import io.prestosql.sql.tree.DropColumn;
+import io.prestosql.sql.tree.DropMaterializedView;
 import io.prestosql.sql.tree.DropRole;
 import io.prestosql.sql.tree.DropSchema;
 import io.prestosql.sql.tree.DropTable;
@@ -106,6 +108,7 @@ import io.prestosql.sql.tree.QualifiedName;
 import io.prestosql.sql.tree.QuantifiedComparisonExpression;
 import io.prestosql.sql.tree.Query;
 import io.prestosql.sql.tree.QuerySpecification;
+import io.prestosql.sql.tree.RefreshMaterializedView;
 import io.prestosql.sql.tree.RenameColumn;
 import io.prestosql.sql.tree.RenameSchema;
 import io.prestosql.sql.tree.RenameTable;
@@ -1772,6 +1775,36 @@ public class TestSqlParser
         assertStatement("CREATE VIEW \"awesome schema\".\"awesome view\" AS SELECT * FROM t", new CreateView(QualifiedName.of("awesome schema", "awesome view"), query, false, Optional.empty()));
     }
 
+    @Test
+    public void testCreateMaterializedView()
+    {
+        Query query = simpleQuery(selectList(new AllColumns()), table(QualifiedName.of("t")));
+
+        assertStatement("CREATE MATERIALIZED VIEW a AS SELECT * FROM t", new CreateMaterializedView(QualifiedName.of("a"), query, false, ImmutableList.of()));
+        assertStatement("CREATE MATERIALIZED VIEW IF NOT EXISTS bar.foo AS SELECT * FROM t", new CreateMaterializedView(QualifiedName.of("bar", "foo"), query, true, ImmutableList.of()));
+        assertStatement("CREATE MATERIALIZED VIEW a WITH (format = 'ORC') AS SELECT * FROM t",
+                new CreateMaterializedView(
+                        QualifiedName.of("a"),
+                        query,
+                        false,
+                        ImmutableList.of(new Property(new Identifier("format"), new StringLiteral("ORC")))));
+    }
+
+    @Test
+    public void testRefreshMaterializedView()
+    {
+        assertStatement("REFRESH MATERIALIZED VIEW a", new RefreshMaterializedView(QualifiedName.of("a")));
+        assertStatement("REFRESH MATERIALIZED VIEW a.b.c", new RefreshMaterializedView(QualifiedName.of("a", "b", "c")));
+    }
+
+    @Test
+    public void testDropMaterializedView()
+    {
+        assertStatement("DROP MATERIALIZED VIEW a", new DropMaterializedView(QualifiedName.of("a"), false));
+        assertStatement("DROP MATERIALIZED VIEW a.b.c", new DropMaterializedView(QualifiedName.of("a", "b", "c"), false));
+        assertStatement("DROP MATERIALIZED VIEW IF EXISTS a.b", new DropMaterializedView(QualifiedName.of("a", "b"), true));
+    }
+
     @Test
     public void testGrant()
     {
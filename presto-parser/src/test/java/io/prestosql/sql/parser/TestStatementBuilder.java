@@ -218,6 +218,11 @@ public class TestStatementBuilder
 
         printStatement("drop view foo");
 
+        printStatement("create materialized view foo as select a, count(*) from t group by a");
+        printStatement("create materialized view if not exists foo with (a = 'apple') as select * from t");
+        printStatement("refresh materialized view foo");
+        printStatement("drop materialized view if exists foo");
+
         printStatement("insert into t select * from t");
         printStatement("insert into t (c1, c2) select * from t");
 
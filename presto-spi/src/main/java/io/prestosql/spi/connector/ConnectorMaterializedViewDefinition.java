@@ -0,0 +1,205 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.connector;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.prestosql.spi.connector.ConnectorViewDefinition.ViewColumn;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.StringJoiner;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Objects.requireNonNull;
+
+public class ConnectorMaterializedViewDefinition
+{
+    private final String originalSql;
+    private final Optional<String> catalog;
+    private final Optional<String> schema;
+    private final List<ViewColumn> columns;
+    private final Optional<String> owner;
+    private final Optional<List<BaseTable>> baseTables;
+    private final Optional<String> timeZone;
+
+    @JsonCreator
+    public ConnectorMaterializedViewDefinition(
+            @JsonProperty("originalSql") String originalSql,
+            @JsonProperty("catalog") Optional<String> catalog,
+            @JsonProperty("schema") Optional<String> schema,
+            @JsonProperty("columns") List<ViewColumn> columns,
+            @JsonProperty("owner") Optional<String> owner,
+            @JsonProperty("baseTables") Optional<List<BaseTable>> baseTables,
+            @JsonProperty("timeZone") Optional<String> timeZone)
+    {
+        this.originalSql = requireNonNull(originalSql, "originalSql is null");
+        this.catalog = requireNonNull(catalog, "catalog is null");
+        this.schema = requireNonNull(schema, "schema is null");
+        this.columns = unmodifiableList(new ArrayList<>(requireNonNull(columns, "columns is null")));
+        this.owner = requireNonNull(owner, "owner is null");
+        this.baseTables = requireNonNull(baseTables, "baseTables is null").map(tables -> unmodifiableList(new ArrayList<>(tables)));
+        this.timeZone = requireNonNull(timeZone, "timeZone is null");
+        if (!catalog.isPresent() && schema.isPresent()) {
+            throw new IllegalArgumentException("catalog must be present if schema is present");
+        }
+        if (columns.isEmpty()) {
+            throw new IllegalArgumentException("columns list is empty");
+        }
+    }
+
+    @JsonProperty
+    public String getOriginalSql()
+    {
+        return originalSql;
+    }
+
+    @JsonProperty
+    public Optional<String> getCatalog()
+    {
+        return catalog;
+    }
+
+    @JsonProperty
+    public Optional<String> getSchema()
+    {
+        return schema;
+    }
+
+    @JsonProperty
+    public List<ViewColumn> getColumns()
+    {
+        return columns;
+    }
+
+    @JsonProperty
+    public Optional<String> getOwner()
+    {
+        return owner;
+    }
+
+    /**
+     * Returns the versions of the tables the view reads as of the last refresh, or empty
+     * if the view has never been refreshed.
+     */
+    @JsonProperty
+    public Optional<List<BaseTable>> getBaseTables()
+    {
+        return baseTables;
+    }
+
+    /**
+     * Returns the time zone of the session the view was last refreshed in, or empty
+     * if the view has never been refreshed.
+     */
+    @JsonProperty
+    public Optional<String> getTimeZone()
+    {
+        return timeZone;
+    }
+
+    public ConnectorMaterializedViewDefinition withRefresh(List<BaseTable> baseTables, String timeZone)
+    {
+        return new ConnectorMaterializedViewDefinition(originalSql, catalog, schema, columns, owner, Optional.of(baseTables), Optional.of(timeZone));
+    }
+
+    @Override
+    public String toString()
+    {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        owner.ifPresent(value -> joiner.add("owner=" + value));
+        joiner.add("columns=" + columns);
+        catalog.ifPresent(value -> joiner.add("catalog=" + value));
+        schema.ifPresent(value -> joiner.add("schema=" + value));
+        baseTables.ifPresent(value -> joiner.add("baseTables=" + value));
+        timeZone.ifPresent(value -> joiner.add("timeZone=" + value));
+        joiner.add("originalSql=[" + originalSql + "]");
+        return getClass().getSimpleName() + joiner.toString();
+    }
+
+    public static final class BaseTable
+    {
+        private final CatalogSchemaTableName table;
+        private final Optional<String> version;
+        private final Map<String, String> partitionVersions;
+
+        @JsonCreator
+        public BaseTable(
+                @JsonProperty("table") CatalogSchemaTableName table,
+                @JsonProperty("version") Optional<String> version,
+                @JsonProperty("partitionVersions") Map<String, String> partitionVersions)
+        {
+            this.table = requireNonNull(table, "table is null");
+            this.version = requireNonNull(version, "version is null");
+            this.partitionVersions = unmodifiableMap(new HashMap<>(requireNonNull(partitionVersions, "partitionVersions is null")));
+        }
+
+        @JsonProperty
+        public CatalogSchemaTableName getTable()
+        {
+            return table;
+        }
+
+        /**
+         * Returns the version of the table as returned by {@link ConnectorMetadata#getTableVersion},
+         * or empty if the connector cannot detect changes of the table.
+         */
+        @JsonProperty
+        public Optional<String> getVersion()
+        {
+            return version;
+        }
+
+        /**
+         * Returns the versions of the partitions of the table as returned by {@link ConnectorMetadata#getPartitionVersions}.
+         */
+        @JsonProperty
+        public Map<String, String> getPartitionVersions()
+        {
+            return partitionVersions;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            BaseTable other = (BaseTable) o;
+            return table.equals(other.table) &&
+                    version.equals(other.version) &&
+                    partitionVersions.equals(other.partitionVersions);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(table, version, partitionVersions);
+        }
+
+        @Override
+        public String toString()
+        {
+            return table + version.map(value -> "@" + value).orElse("") + " (" + partitionVersions.size() + " partitions)";
+        }
+    }
+}
@@ -229,6 +229,37 @@ public interface ConnectorMetadata
         return TableStatistics.empty();
     }
 
+    /**
+     * Returns a token identifying the current version of the data the table handle reads. The token must change
+     * whenever that data changes. Return empty if the connector cannot detect changes, in which case results
+     * computed from the table are never cached. A connector may also return empty for a handle that was not
+     * narrowed by {@link #applyFilter}, if computing the token would require loading metadata for every
+     * partition of the table.
+     */
+    default Optional<String> getTableVersion(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a version token for each partition the table handle reads, keyed by a name that identifies
+     * the partition across versions. A token must change whenever the data of its partition changes.
+     * Return empty if the table is not partitioned or the connector cannot detect changes.
+     */
+    default Optional<Map<String, String>> getPartitionVersions(ConnectorSession session, ConnectorTableHandle tableHandle)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Returns a handle that reads only the given partitions of the table handle, named as in
+     * {@link #getPartitionVersions}, or empty if the connector cannot restrict the handle.
+     */
+    default Optional<ConnectorTableHandle> applyPartitions(ConnectorSession session, ConnectorTableHandle tableHandle, Set<String> partitionNames)
+    {
+        return Optional.empty();
+    }
+
     /**
      * Creates a schema.
      */
@@ -499,6 +530,60 @@ public interface ConnectorMetadata
         return Optional.empty();
     }
 
+    /**
+     * Create the specified materialized view. The connector creates the table described by
+     * {@code tableMetadata} to store the data of the view, and stores the view definition with it.
+     */
+    default void createMaterializedView(ConnectorSession session, ConnectorTableMetadata tableMetadata, ConnectorMaterializedViewDefinition definition, boolean ignoreExisting)
+    {
+        throw new PrestoException(NOT_SUPPORTED, "This connector does not support creating materialized views");
+    }
+
+    /**
+     * Drop the specified materialized view and its data.
+     */
+    default void dropMaterializedView(ConnectorSession session, SchemaTableName viewName)
+    {
+        throw new PrestoException(NOT_SUPPORTED, "This connector does not support dropping materialized views");
+    }
+
+    default List<SchemaTableName> listMaterializedViews(ConnectorSession session, Optional<String> schemaName)
+    {
+        return emptyList();
+    }
+
+    /**
+     * Gets the definition of the specified materialized view. The data of the view is read
+     * through the table handle of the same name.
+     */
+    default Optional<ConnectorMaterializedViewDefinition> getMaterializedView(ConnectorSession session, SchemaTableName viewName)
+    {
+        return Optional.empty();
+    }
+
+    /**
+     * Begin refresh of the data of a materialized view. The rows written replace the data of the view,
+     * unless {@code incremental} is set, in which case they are added to it.
+     */
+    default ConnectorInsertTableHandle beginRefreshMaterializedView(ConnectorSession session, ConnectorTableHandle tableHandle, boolean incremental)
+    {
+        throw new PrestoException(NOT_SUPPORTED, "This connector does not support materialized views");
+    }
+
+    /**
+     * Finish refresh of a materialized view. The connector commits the data together with the
+     * versions of the base tables the data was computed from.
+     */
+    default Optional<ConnectorOutputMetadata> finishRefreshMaterializedView(
+            ConnectorSession session,
+            ConnectorInsertTableHandle insertHandle,
+            Collection<Slice> fragments,
+            Collection<ComputedStatistics> computedStatistics,
+            List<ConnectorMaterializedViewDefinition.BaseTable> baseTables)
+    {
+        throw new PrestoException(GENERIC_INTERNAL_ERROR, "ConnectorMetadata beginRefreshMaterializedView() is implemented without finishRefreshMaterializedView()");
+    }
+
     /**
      * @return whether delete without table scan is supported
      */
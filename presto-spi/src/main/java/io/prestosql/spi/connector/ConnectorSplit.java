@@ -16,6 +16,7 @@ package io.prestosql.spi.connector;
 import io.prestosql.spi.HostAddress;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface ConnectorSplit
 {
@@ -24,4 +25,15 @@ public interface ConnectorSplit
     List<HostAddress> getAddresses();
 
     Object getInfo();
+
+    /**
+     * Returns a value that identifies the data read by this split, including the version of
+     * that data, or empty if the data cannot be identified. Two splits with the same value must
+     * produce the same rows for the same columns and constraints. The engine uses this value to
+     * reuse results computed from an earlier split over the same data.
+     */
+    default Optional<String> getVersionedIdentity()
+    {
+        return Optional.empty();
+    }
 }
@@ -0,0 +1,221 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.statistics;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+
+import static java.lang.Double.isNaN;
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.String.format;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Distribution of the non-null values of a column, in the same double domain as {@link DoubleRange}.
+ * <p>
+ * The boundaries describe an equi-height histogram: every bucket between two consecutive boundaries
+ * holds the same fraction of the values, and values are assumed to be uniform within a bucket.
+ * The most common values carry their own fraction of the values.
+ */
+public final class Histogram
+{
+    private final List<Double> boundaries;
+    private final List<Double> mostCommonValues;
+    private final List<Double> mostCommonValueFractions;
+
+    @JsonCreator
+    public Histogram(
+            @JsonProperty("boundaries") List<Double> boundaries,
+            @JsonProperty("mostCommonValues") List<Double> mostCommonValues,
+            @JsonProperty("mostCommonValueFractions") List<Double> mostCommonValueFractions)
+    {
+        requireNonNull(boundaries, "boundaries is null");
+        requireNonNull(mostCommonValues, "mostCommonValues is null");
+        requireNonNull(mostCommonValueFractions, "mostCommonValueFractions is null");
+        if (boundaries.size() < 2) {
+            throw new IllegalArgumentException(format("histogram must have at least two boundaries: %s", boundaries));
+        }
+        for (int i = 0; i < boundaries.size(); i++) {
+            if (isNaN(boundaries.get(i))) {
+                throw new IllegalArgumentException("boundaries must not contain NaN");
+            }
+            if (i > 0 && boundaries.get(i - 1) > boundaries.get(i)) {
+                throw new IllegalArgumentException(format("boundaries must be sorted: %s", boundaries));
+            }
+        }
+        if (mostCommonValues.size() != mostCommonValueFractions.size()) {
+            throw new IllegalArgumentException(format("mostCommonValues and mostCommonValueFractions must have the same size: %s, %s", mostCommonValues, mostCommonValueFractions));
+        }
+        double totalFraction = 0;
+        for (double fraction : mostCommonValueFractions) {
+            if (!(fraction >= 0 && fraction <= 1)) {
+                throw new IllegalArgumentException(format("mostCommonValueFractions must be between 0 and 1: %s", mostCommonValueFractions));
+            }
+            totalFraction += fraction;
+        }
+        if (totalFraction > 1 + 1e-9) {
+            throw new IllegalArgumentException(format("mostCommonValueFractions must not sum up to more than 1: %s", mostCommonValueFractions));
+        }
+        this.boundaries = unmodifiableList(new ArrayList<>(boundaries));
+        this.mostCommonValues = unmodifiableList(new ArrayList<>(mostCommonValues));
+        this.mostCommonValueFractions = unmodifiableList(new ArrayList<>(mostCommonValueFractions));
+    }
+
+    /**
+     * Creates a histogram from equally spaced quantiles of a column, the first being the minimum and the last
+     * being the maximum. A value spanning several quantiles is a most common value, and its fraction is the
+     * fraction of the empty buckets it spans.
+     */
+    public static Histogram fromQuantiles(List<Double> quantiles)
+    {
+        requireNonNull(quantiles, "quantiles is null");
+        int buckets = quantiles.size() - 1;
+        List<Double> mostCommonValues = new ArrayList<>();
+        List<Double> mostCommonValueFractions = new ArrayList<>();
+        int first = 0;
+        for (int i = 1; i <= quantiles.size(); i++) {
+            if (i == quantiles.size() || Double.compare(quantiles.get(i), quantiles.get(first)) != 0) {
+                if (i - first > 1) {
+                    mostCommonValues.add(quantiles.get(first));
+                    mostCommonValueFractions.add(((double) (i - first - 1)) / buckets);
+                }
+                first = i;
+            }
+        }
+        return new Histogram(quantiles, mostCommonValues, mostCommonValueFractions);
+    }
+
+    @JsonProperty
+    public List<Double> getBoundaries()
+    {
+        return boundaries;
+    }
+
+    @JsonProperty
+    public List<Double> getMostCommonValues()
+    {
+        return mostCommonValues;
+    }
+
+    @JsonProperty
+    public List<Double> getMostCommonValueFractions()
+    {
+        return mostCommonValueFractions;
+    }
+
+    /**
+     * Returns the fraction of the values between {@code low} and {@code high}, inclusive.
+     */
+    public double getFraction(double low, double high)
+    {
+        double bucketFraction = 1.0 / (boundaries.size() - 1);
+        double fraction = 0;
+        for (int i = 1; i < boundaries.size(); i++) {
+            double bucketLow = boundaries.get(i - 1);
+            double bucketHigh = boundaries.get(i);
+            if (bucketLow == bucketHigh) {
+                if (low <= bucketLow && bucketLow <= high) {
+                    fraction += bucketFraction;
+                }
+            }
+            else {
+                double overlap = min(bucketHigh, high) - max(bucketLow, low);
+                if (overlap > 0) {
+                    fraction += bucketFraction * overlap / (bucketHigh - bucketLow);
+                }
+            }
+        }
+        return min(fraction, 1);
+    }
+
+    /**
+     * Returns the fraction of the values equal to {@code value}, if it is one of the most common values.
+     */
+    public OptionalDouble getMostCommonValueFraction(double value)
+    {
+        for (int i = 0; i < mostCommonValues.size(); i++) {
+            if (Double.compare(mostCommonValues.get(i), value) == 0) {
+                return OptionalDouble.of(mostCommonValueFractions.get(i));
+            }
+        }
+        return OptionalDouble.empty();
+    }
+
+    /**
+     * Returns the fraction of the values that are most common values between {@code low} and {@code high}, inclusive.
+     */
+    public double getMostCommonValuesFraction(double low, double high)
+    {
+        double fraction = 0;
+        for (int i = 0; i < mostCommonValues.size(); i++) {
+            double value = mostCommonValues.get(i);
+            if (low <= value && value <= high) {
+                fraction += mostCommonValueFractions.get(i);
+            }
+        }
+        return min(fraction, 1);
+    }
+
+    /**
+     * Returns the number of most common values between {@code low} and {@code high}, inclusive.
+     */
+    public int getMostCommonValuesCount(double low, double high)
+    {
+        int count = 0;
+        for (double value : mostCommonValues) {
+            if (low <= value && value <= high) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Histogram that = (Histogram) o;
+        return Objects.equals(boundaries, that.boundaries) &&
+                Objects.equals(mostCommonValues, that.mostCommonValues) &&
+                Objects.equals(mostCommonValueFractions, that.mostCommonValueFractions);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(boundaries, mostCommonValues, mostCommonValueFractions);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "Histogram{" +
+                "boundaries=" + boundaries +
+                ", mostCommonValues=" + mostCommonValues +
+                ", mostCommonValueFractions=" + mostCommonValueFractions +
+                '}';
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.connector;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.JsonCodecFactory;
+import io.airlift.json.ObjectMapperProvider;
+import io.prestosql.spi.connector.ConnectorMaterializedViewDefinition.BaseTable;
+import io.prestosql.spi.connector.ConnectorViewDefinition.ViewColumn;
+import org.testng.annotations.Test;
+
+import java.util.Optional;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static io.prestosql.spi.type.BigintType.BIGINT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+
+public class TestConnectorMaterializedViewDefinition
+{
+    private static final JsonCodec<ConnectorMaterializedViewDefinition> CODEC = new JsonCodecFactory(new ObjectMapperProvider()).jsonCodec(ConnectorMaterializedViewDefinition.class);
+
+    @Test
+    public void testNotRefreshed()
+    {
+        ConnectorMaterializedViewDefinition view = CODEC.fromJson("{" +
+                "\"originalSql\": \"SELECT 42 x\", " +
+                "\"columns\": [{\"name\": \"x\", \"type\": \"bigint\"}]}");
+        assertEquals(view.getOriginalSql(), "SELECT 42 x");
+        assertEquals(getOnlyElement(view.getColumns()).getType(), BIGINT.getTypeId());
+        assertFalse(view.getBaseTables().isPresent());
+        assertFalse(view.getTimeZone().isPresent());
+    }
+
+    @Test
+    public void testRoundTrip()
+    {
+        ConnectorMaterializedViewDefinition expected = new ConnectorMaterializedViewDefinition(
+                "SELECT ds, count(*) c FROM orders GROUP BY ds",
+                Optional.of("test_catalog"),
+                Optional.of("test_schema"),
+                ImmutableList.of(new ViewColumn("ds", BIGINT.getTypeId()), new ViewColumn("c", BIGINT.getTypeId())),
+                Optional.of("test_owner"),
+                Optional.empty(),
+                Optional.empty());
+        BaseTable baseTable = new BaseTable(
+                new CatalogSchemaTableName("test_catalog", "test_schema", "orders"),
+                Optional.of("abc"),
+                ImmutableMap.of("ds=1", "def", "ds=2", "ghi"));
+        expected = expected.withRefresh(ImmutableList.of(baseTable), "America/Los_Angeles");
+
+        ConnectorMaterializedViewDefinition actual = CODEC.fromJson(CODEC.toJson(expected));
+        assertEquals(actual.getOriginalSql(), expected.getOriginalSql());
+        assertEquals(actual.getCatalog(), expected.getCatalog());
+        assertEquals(actual.getSchema(), expected.getSchema());
+        assertEquals(actual.getOwner(), expected.getOwner());
+        assertEquals(actual.getColumns().size(), 2);
+        assertEquals(actual.getBaseTables(), Optional.of(ImmutableList.of(baseTable)));
+        assertEquals(actual.getTimeZone(), Optional.of("America/Los_Angeles"));
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.spi.statistics;
+
+import org.testng.annotations.Test;
+
+import java.util.OptionalDouble;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.testng.Assert.assertEquals;
+
+public class TestHistogram
+{
+    @Test
+    public void testFromQuantiles()
+    {
+        Histogram histogram = Histogram.fromQuantiles(asList(0.0, 1.0, 1.0, 1.0, 2.0, 10.0));
+        assertEquals(histogram.getBoundaries(), asList(0.0, 1.0, 1.0, 1.0, 2.0, 10.0));
+        assertEquals(histogram.getMostCommonValues(), singletonList(1.0));
+        assertEquals(histogram.getMostCommonValueFractions(), singletonList(0.4));
+
+        histogram = Histogram.fromQuantiles(asList(0.0, 5.0, 10.0));
+        assertEquals(histogram.getMostCommonValues(), emptyList());
+        assertEquals(histogram.getMostCommonValueFractions(), emptyList());
+
+        histogram = Histogram.fromQuantiles(asList(3.0, 3.0, 3.0));
+        assertEquals(histogram.getMostCommonValues(), singletonList(3.0));
+        assertEquals(histogram.getMostCommonValueFractions(), singletonList(1.0));
+    }
+
+    @Test
+    public void testFraction()
+    {
+        Histogram histogram = Histogram.fromQuantiles(asList(0.0, 1.0, 1.0, 1.0, 2.0, 10.0));
+        assertEquals(histogram.getFraction(0, 10), 1.0);
+        assertEquals(histogram.getFraction(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY), 1.0);
+        assertEquals(histogram.getFraction(0, 0.5), 0.1);
+        assertEquals(histogram.getFraction(1, 1), 0.4);
+        assertEquals(histogram.getFraction(2, 10), 0.2);
+        assertEquals(histogram.getFraction(20, 30), 0.0);
+
+        assertEquals(histogram.getMostCommonValueFraction(1), OptionalDouble.of(0.4));
+        assertEquals(histogram.getMostCommonValueFraction(2), OptionalDouble.empty());
+        assertEquals(histogram.getMostCommonValuesFraction(0, 10), 0.4);
+        assertEquals(histogram.getMostCommonValuesFraction(2, 10), 0.0);
+        assertEquals(histogram.getMostCommonValuesCount(0, 10), 1);
+        assertEquals(histogram.getMostCommonValuesCount(2, 10), 0);
+    }
+
+    @Test
+    public void testInvalidHistogram()
+    {
+        assertThatThrownBy(() -> new Histogram(singletonList(1.0), emptyList(), emptyList()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Histogram(asList(2.0, 1.0), emptyList(), emptyList()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Histogram(asList(1.0, Double.NaN), emptyList(), emptyList()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Histogram(asList(1.0, 2.0), singletonList(1.0), emptyList()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new Histogram(asList(1.0, 2.0), asList(1.0, 2.0), asList(0.6, 0.6)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
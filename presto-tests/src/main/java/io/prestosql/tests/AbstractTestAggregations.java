@@ -21,6 +21,7 @@ import java.util.List;
 
 import static io.prestosql.testing.MaterializedResult.resultBuilder;
 import static io.prestosql.tests.QueryAssertions.assertEqualsIgnoreOrder;
+import static java.util.Collections.nCopies;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertTrue;
 
@@ -789,6 +790,29 @@ public abstract class AbstractTestAggregations
         // $internal$max_data_size_for_stats is not needed for array, map and row
     }
 
+    @Test
+    public void testApproximateHistogramForStats()
+    {
+        // a single value is every quantile
+        MaterializedResult actual = computeActual("SELECT \"$internal$approx_histogram_for_stats\"(x) FROM (VALUES 7, 7, NULL) t(x)");
+        assertEquals(actual.getOnlyValue(), nCopies(101, 7.0));
+        actual = computeActual("SELECT \"$internal$approx_histogram_for_stats\"(x) FROM (VALUES DOUBLE '-1.5') t(x)");
+        assertEquals(actual.getOnlyValue(), nCopies(101, -1.5));
+
+        // the quantiles span the values
+        actual = computeActual("SELECT \"$internal$approx_histogram_for_stats\"(orderkey) FROM orders");
+        List<?> quantiles = (List<?>) actual.getOnlyValue();
+        assertEquals(quantiles.size(), 101);
+        for (int i = 1; i < quantiles.size(); i++) {
+            assertTrue((Double) quantiles.get(i - 1) <= (Double) quantiles.get(i));
+        }
+        assertTrue((Double) quantiles.get(0) >= 1.0);
+        assertTrue((Double) quantiles.get(100) <= 60000.0);
+
+        actual = computeActual("SELECT \"$internal$approx_histogram_for_stats\"(CAST(NULL AS BIGINT))");
+        assertEquals(actual.getOnlyValue(), null);
+    }
+
     @Test
     public void testApproximateCountDistinctGroupBy()
     {
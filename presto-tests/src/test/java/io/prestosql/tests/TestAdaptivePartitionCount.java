@@ -0,0 +1,174 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.tests;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.prestosql.Session;
+import io.prestosql.execution.StageInfo;
+import io.prestosql.operator.OperatorStats;
+import io.prestosql.operator.PartitionedOutputOperator.PartitionedOutputInfo;
+import io.prestosql.spi.QueryId;
+import io.prestosql.sql.planner.plan.JoinNode;
+import io.prestosql.testing.MaterializedResult;
+import io.prestosql.tests.tpch.TpchQueryRunnerBuilder;
+import org.intellij.lang.annotations.Language;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+import static com.google.common.collect.MoreCollectors.onlyElement;
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.prestosql.SystemSessionProperties.ADAPTIVE_PARTITION_COUNT;
+import static io.prestosql.SystemSessionProperties.ADAPTIVE_SKEWED_PARTITION_SPLITTING;
+import static io.prestosql.SystemSessionProperties.ADAPTIVE_TARGET_PARTITION_SIZE;
+import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+import static io.prestosql.SystemSessionProperties.JOIN_REORDERING_STRATEGY;
+import static io.prestosql.execution.StageInfo.getAllStages;
+import static io.prestosql.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
+import static io.prestosql.sql.planner.optimizations.PlanNodeSearcher.searchFrom;
+import static io.prestosql.tests.QueryAssertions.assertEqualsIgnoreOrder;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestAdaptivePartitionCount
+        extends AbstractTestQueryFramework
+{
+    private static final String AGGREGATION = "SELECT custkey, count(*), max(totalprice) FROM orders GROUP BY custkey";
+
+    private final File spoolingPath;
+
+    public TestAdaptivePartitionCount()
+    {
+        this(Files.createTempDir());
+    }
+
+    private TestAdaptivePartitionCount(File spoolingPath)
+    {
+        // the tiny schema is far below the target size, so every hash partitioned stage runs in a single task
+        super(() -> TpchQueryRunnerBuilder.builder()
+                .setExtraProperties(ImmutableMap.of(
+                        "query.fault-tolerant-execution-enabled", "true",
+                        "spooling.path", spoolingPath.getAbsolutePath(),
+                        "query.adaptive-partition-count-enabled", "true",
+                        "query.adaptive-target-partition-size", "1GB"))
+                .build());
+        this.spoolingPath = spoolingPath;
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void removeSpoolingPath()
+            throws IOException
+    {
+        deleteRecursively(spoolingPath.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testAggregation()
+    {
+        assertQuery(AGGREGATION);
+        assertQuery("SELECT orderstatus, count(DISTINCT orderpriority) FROM orders GROUP BY orderstatus");
+    }
+
+    @Test
+    public void testJoin()
+    {
+        assertQuery("SELECT o.orderpriority, sum(l.quantity) FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey GROUP BY o.orderpriority");
+        assertQuery(
+                Session.builder(getSession())
+                        .setSystemProperty(JOIN_DISTRIBUTION_TYPE, "BROADCAST")
+                        .build(),
+                "SELECT o.orderstatus, count(*) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.totalprice > 100000 GROUP BY o.orderstatus");
+    }
+
+    @Test
+    public void testCoalescedTaskCount()
+    {
+        StageInfo adaptiveStage = getHashPartitionedStage(getSession(), AGGREGATION);
+        assertEquals(adaptiveStage.getTasks().size(), 1);
+
+        Session disabled = Session.builder(getSession())
+                .setSystemProperty(ADAPTIVE_PARTITION_COUNT, "false")
+                .build();
+        StageInfo fixedStage = getHashPartitionedStage(disabled, AGGREGATION);
+        assertTrue(fixedStage.getTasks().size() > 1);
+    }
+
+    @Test
+    public void testSkewedJoin()
+    {
+        // three quarters of the line items join with the first part
+        @Language("SQL") String sql = "SELECT p.brand, count(*), sum(length(l.comment)) " +
+                "FROM lineitem l JOIN part p ON (CASE WHEN l.linenumber > 1 THEN 1 ELSE l.partkey END) = p.partkey " +
+                "GROUP BY p.brand";
+        Session session = Session.builder(getSession())
+                .setSystemProperty(JOIN_DISTRIBUTION_TYPE, "PARTITIONED")
+                .setSystemProperty(JOIN_REORDERING_STRATEGY, "NONE")
+                .setSystemProperty(ADAPTIVE_TARGET_PARTITION_SIZE, "1MB")
+                .build();
+        MaterializedResult expected = computeActual(
+                Session.builder(session)
+                        .setSystemProperty(ADAPTIVE_PARTITION_COUNT, "false")
+                        .build(),
+                sql);
+        StageInfo splitStage = getJoinStage(getStages(session, sql, Optional.of(expected)));
+
+        Session noSplitting = Session.builder(session)
+                .setSystemProperty(ADAPTIVE_SKEWED_PARTITION_SPLITTING, "false")
+                .build();
+        StageInfo stage = getJoinStage(getStages(noSplitting, sql, Optional.of(expected)));
+        assertTrue(splitStage.getTasks().size() > stage.getTasks().size());
+
+        // the skew is visible in the per-partition row counts of the probe source
+        StageInfo probeStage = splitStage.getSubStages().stream()
+                .filter(subStage -> subStage.getTables().values().stream()
+                        .anyMatch(table -> table.getTableName().getObjectName().equals("lineitem")))
+                .collect(onlyElement());
+        PartitionedOutputInfo outputInfo = probeStage.getStageStats().getOperatorSummaries().stream()
+                .map(OperatorStats::getInfo)
+                .filter(PartitionedOutputInfo.class::isInstance)
+                .map(PartitionedOutputInfo.class::cast)
+                .collect(onlyElement());
+        assertTrue(outputInfo.getMaxPartitionRowCount() > outputInfo.getRowsAdded() / 2);
+    }
+
+    private static StageInfo getJoinStage(List<StageInfo> stages)
+    {
+        return stages.stream()
+                .filter(stage -> searchFrom(stage.getPlan().getRoot()).where(JoinNode.class::isInstance).matches())
+                .collect(onlyElement());
+    }
+
+    private StageInfo getHashPartitionedStage(Session session, String sql)
+    {
+        return getStages(session, sql, Optional.empty()).stream()
+                .filter(stage -> stage.getPlan().getPartitioning().equals(FIXED_HASH_DISTRIBUTION))
+                .collect(onlyElement());
+    }
+
+    private List<StageInfo> getStages(Session session, @Language("SQL") String sql, Optional<MaterializedResult> expected)
+    {
+        DistributedQueryRunner queryRunner = (DistributedQueryRunner) getQueryRunner();
+        ResultWithQueryId<MaterializedResult> result = queryRunner.executeWithQueryId(session, sql);
+        assertEqualsIgnoreOrder(result.getResult(), expected.orElseGet(() -> computeExpected(sql, result.getResult().getTypes())));
+
+        QueryId queryId = result.getQueryId();
+        return getAllStages(queryRunner.getCoordinator().getQueryManager().getFullQueryInfo(queryId).getOutputStage());
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.tests;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
+import io.prestosql.Session;
+import io.prestosql.tests.tpch.TpchQueryRunnerBuilder;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import static com.google.common.io.MoreFiles.deleteRecursively;
+import static com.google.common.io.RecursiveDeleteOption.ALLOW_INSECURE;
+import static io.prestosql.SystemSessionProperties.JOIN_DISTRIBUTION_TYPE;
+
+public class TestFaultTolerantExecution
+        extends AbstractTestQueryFramework
+{
+    private final File spoolingPath;
+
+    public TestFaultTolerantExecution()
+    {
+        this(Files.createTempDir());
+    }
+
+    private TestFaultTolerantExecution(File spoolingPath)
+    {
+        // all nodes of the query runner share the local spooling directory
+        super(() -> TpchQueryRunnerBuilder.builder()
+                .setExtraProperties(ImmutableMap.of(
+                        "query.fault-tolerant-execution-enabled", "true",
+                        "spooling.path", spoolingPath.getAbsolutePath()))
+                .build());
+        this.spoolingPath = spoolingPath;
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void removeSpoolingPath()
+            throws IOException
+    {
+        deleteRecursively(spoolingPath.toPath(), ALLOW_INSECURE);
+    }
+
+    @Test
+    public void testRepartitionedAggregation()
+    {
+        assertQuery("SELECT orderstatus, count(*), sum(totalprice) FROM orders GROUP BY orderstatus");
+        assertQuery("SELECT custkey, count(DISTINCT orderpriority) FROM orders GROUP BY custkey");
+    }
+
+    @Test
+    public void testJoin()
+    {
+        assertQuery("SELECT o.orderpriority, sum(l.quantity) FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey GROUP BY o.orderpriority");
+        assertQuery("SELECT count(*) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.orderstatus = 'F'");
+    }
+
+    @Test
+    public void testBroadcastJoin()
+    {
+        assertQuery(
+                Session.builder(getSession())
+                        .setSystemProperty(JOIN_DISTRIBUTION_TYPE, "BROADCAST")
+                        .build(),
+                "SELECT count(*), sum(l.extendedprice) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.totalprice > 100000");
+    }
+
+    @Test
+    public void testOrderBy()
+    {
+        assertQueryOrdered("SELECT orderkey, totalprice FROM orders ORDER BY totalprice DESC, orderkey LIMIT 100");
+    }
+
+    @Test
+    public void testUnion()
+    {
+        assertQuery("SELECT orderkey FROM orders WHERE orderstatus = 'F' UNION ALL SELECT orderkey FROM lineitem WHERE linenumber = 1");
+    }
+}
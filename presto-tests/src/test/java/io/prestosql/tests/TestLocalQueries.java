@@ -23,7 +23,10 @@ import io.prestosql.testing.MaterializedResult;
 import org.testng.annotations.Test;
 
 import static io.prestosql.SystemSessionProperties.ENABLE_DYNAMIC_FILTERING;
+import static io.prestosql.SystemSessionProperties.MERGE_JOIN_ENABLED;
 import static io.prestosql.SystemSessionProperties.PUSH_PARTIAL_AGGREGATION_THROUGH_JOIN;
+import static io.prestosql.SystemSessionProperties.TASK_CONCURRENCY;
+import static io.prestosql.SystemSessionProperties.TASK_HASH_BUILD_CONCURRENCY;
 import static io.prestosql.plugin.tpch.TpchMetadata.TINY_SCHEMA_NAME;
 import static io.prestosql.spi.type.DoubleType.DOUBLE;
 import static io.prestosql.spi.type.VarcharType.VARCHAR;
@@ -31,6 +34,7 @@ import static io.prestosql.testing.MaterializedResult.resultBuilder;
 import static io.prestosql.testing.TestingSession.TESTING_CATALOG;
 import static io.prestosql.testing.TestingSession.testSessionBuilder;
 import static io.prestosql.testing.assertions.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
 
 public class TestLocalQueries
         extends AbstractTestQueries
@@ -112,4 +116,34 @@ public class TestLocalQueries
         // https://github.com/cloudera/hue/blob/b49e98c1250c502be596667ce1f0fe118983b432/desktop/libs/notebook/src/notebook/connectors/jdbc.py#L213
         assertQuerySucceeds(getSession(), "SELECT column_name, data_type, column_comment FROM information_schema.columns WHERE table_schema='local' AND TABLE_NAME='nation'");
     }
+
+    @Test
+    public void testHashBuildConcurrency()
+    {
+        Session session = Session.builder(getSession())
+                .setSystemProperty(TASK_CONCURRENCY, "2")
+                .setSystemProperty(TASK_HASH_BUILD_CONCURRENCY, "8")
+                .build();
+        assertQuery(session, "SELECT o.orderkey, l.linenumber FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey");
+        assertQuery(session, "SELECT o.orderkey, l.linenumber FROM orders o LEFT JOIN lineitem l ON o.orderkey = l.orderkey AND l.linenumber > 3");
+        assertQuery(session, "SELECT l.linenumber, o.orderkey FROM lineitem l RIGHT JOIN orders o ON o.orderkey = l.orderkey AND l.linenumber > 5");
+    }
+
+    @Test
+    public void testMergeJoin()
+    {
+        Session session = Session.builder(getSession())
+                .setSystemProperty(MERGE_JOIN_ENABLED, "true")
+                .build();
+        String sortedOrders = "(SELECT orderkey, totalprice FROM orders ORDER BY orderkey LIMIT 300)";
+        String sortedLineitem = "(SELECT orderkey, linenumber FROM lineitem ORDER BY orderkey LIMIT 1000)";
+
+        String innerJoin = "SELECT o.orderkey, o.totalprice, l.linenumber FROM " + sortedOrders + " o JOIN " + sortedLineitem + " l ON o.orderkey = l.orderkey";
+        assertTrue(((String) computeActual(session, "EXPLAIN " + innerJoin).getOnlyValue()).contains("MergeInnerJoin"));
+        assertQuery(session, innerJoin);
+
+        String leftJoin = "SELECT o.orderkey, o.totalprice, l.linenumber FROM " + sortedOrders + " o LEFT JOIN " + sortedLineitem + " l ON o.orderkey = l.orderkey";
+        assertTrue(((String) computeActual(session, "EXPLAIN " + leftJoin).getOnlyValue()).contains("MergeLeftJoin"));
+        assertQuery(session, leftJoin);
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.prestosql.tests;
+
+import com.google.common.collect.ImmutableMap;
+import io.prestosql.tests.tpch.TpchQueryRunnerBuilder;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+
+public class TestStreamingExchangeQueries
+        extends AbstractTestQueryFramework
+{
+    public TestStreamingExchangeQueries()
+    {
+        // all nodes share the streaming port, so the output buffers of the node that binds it are
+        // streamed and the output buffers of the other nodes are fetched over HTTP
+        super(() -> TpchQueryRunnerBuilder.builder()
+                .setExtraProperties(ImmutableMap.of(
+                        "exchange.transport", "STREAMING",
+                        "exchange.streaming.port", String.valueOf(findUnusedPort())))
+                .build());
+    }
+
+    @Test
+    public void testRepartitionedAggregation()
+    {
+        assertQuery("SELECT orderstatus, count(*), sum(totalprice) FROM orders GROUP BY orderstatus");
+        assertQuery("SELECT custkey, count(DISTINCT orderpriority) FROM orders GROUP BY custkey");
+    }
+
+    @Test
+    public void testJoin()
+    {
+        assertQuery("SELECT o.orderpriority, sum(l.quantity) FROM orders o JOIN lineitem l ON o.orderkey = l.orderkey GROUP BY o.orderpriority");
+        assertQuery("SELECT count(*) FROM lineitem l JOIN orders o ON l.orderkey = o.orderkey WHERE o.orderstatus = 'F'");
+    }
+
+    @Test
+    public void testOrderBy()
+    {
+        assertQueryOrdered("SELECT orderkey, totalprice FROM orders ORDER BY totalprice DESC, orderkey LIMIT 100");
+    }
+
+    private static int findUnusedPort()
+    {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}